@@ -0,0 +1,131 @@
+package com.belman.bootstrap;
+
+import com.belman.bootstrap.persistence.DatabaseConfig;
+import com.belman.common.logging.EmojiLogger;
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlOrderRepository;
+import com.belman.repository.persistence.sql.SqlUserRepository;
+import com.belman.service.usecase.photo.LegacyArchiveImporter;
+import com.belman.service.usecase.photo.LegacyArchiveImporter.ImportMode;
+import com.belman.service.usecase.photo.LegacyArchiveImporter.ImportResult;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Command line entry point for importing the legacy photo archive into the configured database.
+ * <p>
+ * Usage: {@code LegacyArchiveImportMain <archive root> <checkpoint file> <username> [--link]
+ * [--threads=N] [--batch-size=N] [--photos=DIR]}. The user with the given username is recorded
+ * as the creator of the imported orders. The process exits with status 1 if any order failed to
+ * import, so the import can be run again until it completes.
+ */
+public final class LegacyArchiveImportMain {
+
+    private static final EmojiLogger logger = EmojiLogger.getLogger(LegacyArchiveImportMain.class);
+    private static final String DEFAULT_PHOTO_STORAGE_DIRECTORY = "photos";
+    private static final int EXIT_FAILED_ORDERS = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private LegacyArchiveImportMain() {
+    }
+
+    /**
+     * Runs the import.
+     *
+     * @param args the archive root, the checkpoint file, the importing username and options
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            usage("Missing arguments");
+        }
+        Path archiveRoot = Path.of(args[0]);
+        Path checkpointFile = Path.of(args[1]);
+        String username = args[2];
+        ImportMode mode = ImportMode.COPY;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int batchSize = LegacyArchiveImporter.DEFAULT_BATCH_SIZE;
+        Path photoStorageDirectory = Path.of(DEFAULT_PHOTO_STORAGE_DIRECTORY);
+        for (int i = 3; i < args.length; i++) {
+            String option = args[i];
+            try {
+                if (option.equals("--link")) {
+                    mode = ImportMode.LINK;
+                } else if (option.startsWith("--threads=")) {
+                    threads = Integer.parseInt(option.substring("--threads=".length()));
+                } else if (option.startsWith("--batch-size=")) {
+                    batchSize = Integer.parseInt(option.substring("--batch-size=".length()));
+                } else if (option.startsWith("--photos=")) {
+                    photoStorageDirectory = Path.of(option.substring("--photos=".length()));
+                } else {
+                    usage("Unknown option: " + option);
+                }
+            } catch (NumberFormatException e) {
+                usage("Invalid number in option: " + option);
+            }
+        }
+
+        DatabaseConfig.initialize();
+        int status;
+        try {
+            status = run(archiveRoot, checkpointFile, username, mode, threads, batchSize, photoStorageDirectory);
+        } finally {
+            DatabaseConfig.shutdown();
+        }
+        System.exit(status);
+    }
+
+    private static int run(Path archiveRoot, Path checkpointFile, String username, ImportMode mode, int threads,
+                           int batchSize, Path photoStorageDirectory) {
+        DataSource dataSource = DatabaseConfig.getDataSource();
+        if (dataSource == null) {
+            logger.failure("No database is available, nothing was imported");
+            return EXIT_FAILED_ORDERS;
+        }
+        SqlUserRepository userRepository = new SqlUserRepository(dataSource);
+        Optional<UserBusiness> importedBy = userRepository.findByUsername(new Username(username));
+        if (importedBy.isEmpty()) {
+            logger.failure("Unknown user: " + username);
+            return EXIT_USAGE;
+        }
+
+        LegacyArchiveImporter importer = new LegacyArchiveImporter(EmojiLoggerFactory.getInstance(),
+                new SqlOrderRepository(dataSource), userRepository, photoStorageDirectory, importedBy.get(),
+                mode, threads, batchSize);
+        Runtime.getRuntime().addShutdownHook(new Thread(importer::cancel, "legacy-import-cancel"));
+
+        logger.startup("Importing legacy archive " + archiveRoot + " into the " + DatabaseConfig.getProfile() +
+                       " database");
+        ImportResult result;
+        try {
+            result = importer.importArchive(archiveRoot, checkpointFile);
+        } catch (IOException e) {
+            logger.error("Legacy archive import failed", e);
+            return EXIT_FAILED_ORDERS;
+        }
+        logger.info("Imported {} orders with {} photos, skipped {} already imported orders",
+                result.importedOrders(), result.importedPhotos(), result.skippedOrders());
+        for (Map.Entry<String, String> failure : result.failedOrders().entrySet()) {
+            logger.error("Failed to import legacy order {}: {}", failure.getKey(), failure.getValue());
+        }
+        if (!result.failedOrders().isEmpty() || result.cancelled()) {
+            logger.failure(result.failedOrders().size() + " legacy orders were not imported" +
+                           (result.cancelled() ? " and the import was cancelled" : ""));
+            return EXIT_FAILED_ORDERS;
+        }
+        logger.success("Legacy archive imported successfully");
+        return 0;
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: LegacyArchiveImportMain <archive root> <checkpoint file> <username> " +
+                           "[--link] [--threads=N] [--batch-size=N] [--photos=DIR]");
+        System.exit(EXIT_USAGE);
+    }
+}
@@ -13,6 +13,7 @@ import com.belman.common.platform.PlatformUtils;
 import com.belman.domain.security.AuthenticationService;
 import com.belman.domain.services.Logger;
 import com.belman.domain.services.LoggerFactory;
+import com.belman.domain.shared.StateStore;
 import com.belman.repository.logging.EmojiLoggerAdapter;
 import com.belman.service.error.ErrorHandler;
 import com.belman.presentation.core.UIErrorHandlerAdapter;
@@ -21,6 +22,7 @@ import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.splash.SplashView;
 import com.gluonhq.charm.glisten.application.MobileApplication;
 import com.gluonhq.charm.glisten.mvc.View;
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
 
@@ -97,6 +99,10 @@ public class Main extends MobileApplication {
             logger.info("Using com.gluonhq.license.disable=true to disable Gluon licensing checks");
         }
 
+        // Deliver state store notifications on the FX thread, coalesced per frame (GUI)
+        logger.debug("Routing state notifications to the FX thread");
+        StateStore.getInstance().setNotificationExecutor(Platform::runLater);
+
         // Register views (GUI)
         registerViews();
 
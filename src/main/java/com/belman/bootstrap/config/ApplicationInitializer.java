@@ -2,29 +2,63 @@ package com.belman.bootstrap.config;
 
 import com.belman.bootstrap.di.ServiceRegistry;
 import com.belman.bootstrap.persistence.DatabaseConfig;
+import com.belman.common.config.SecureConfigStorage;
 import com.belman.common.logging.EmojiLogger;
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.audit.AuditFacade;
 import com.belman.domain.customer.CustomerDataAccess;
 import com.belman.domain.customer.CustomerRepository;
+import com.belman.domain.event.BusinessEvent;
+import com.belman.domain.event.BusinessEventPublisher;
+import com.belman.domain.order.OrderChangeFeed;
 import com.belman.domain.order.OrderDataAccess;
 import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.PhotoAnnotationRepository;
 import com.belman.domain.order.photo.PhotoDataAccess;
 import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.order.photo.policy.IPhotoQualityService;
+import com.belman.domain.order.photo.policy.PhotoQualityPolicy;
+import com.belman.domain.order.photo.policy.ProductPhotoRequirementPolicy;
+import com.belman.domain.order.photo.service.PhotoValidationService;
 import com.belman.domain.report.ReportDataAccess;
 import com.belman.domain.report.ReportRepository;
+import com.belman.domain.report.service.PhotoReportGenerationService;
 import com.belman.domain.security.AuthenticationService;
 import com.belman.domain.services.PhotoService;
 import com.belman.domain.user.UserDataAccess;
 import com.belman.domain.user.UserRepository;
 import com.belman.domain.user.rbac.AccessPolicyFactory;
 import com.belman.domain.user.rbac.RoleBasedAccessControlFactory;
+import com.belman.presentation.components.FxImageDecoder;
+import com.belman.presentation.components.FxPixelDecoder;
+import com.belman.repository.email.MailSpool;
+import com.belman.repository.email.SmtpEmailService;
 import com.belman.repository.persistence.adapter.*;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
 import com.belman.repository.persistence.memory.*;
+import com.belman.repository.persistence.sql.SqlCustomerRepository;
+import com.belman.repository.persistence.sql.SqlOrderChangeFeed;
+import com.belman.repository.persistence.sql.SqlOrderRepository;
+import com.belman.repository.persistence.sql.SqlPhotoAnnotationRepository;
+import com.belman.repository.persistence.sql.SqlPhotoRepository;
+import com.belman.repository.persistence.sql.SqlUserRepository;
 import com.belman.service.session.SessionManager;
+import com.belman.service.usecase.order.OrderSyncAgent;
+import com.belman.service.usecase.photo.DecodedImageCache;
 import com.belman.service.usecase.photo.DefaultPhotoService;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+import com.belman.service.usecase.qa.BulkReviewEngine;
+import com.belman.service.usecase.qa.DefaultQAService;
+import com.belman.service.usecase.qa.QAService;
+import com.belman.service.usecase.qa.ReviewQueueProjection;
+import com.belman.service.usecase.report.DeliveryBundleWriter;
 import com.belman.service.usecase.security.DefaultAuthenticationService;
+import javafx.scene.image.Image;
 
 import javax.sql.DataSource;
-import java.lang.reflect.Constructor;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * Initializes the application's services and repositories.
@@ -36,7 +70,18 @@ public class ApplicationInitializer {
     private static final EmojiLogger logger = EmojiLogger.getLogger(ApplicationInitializer.class);
     // Photo storage directory
     private static final String PHOTO_STORAGE_DIRECTORY = "photos";
+    // How often tablets pull order changes from the database
+    private static final Duration ORDER_SYNC_INTERVAL = Duration.ofSeconds(5);
+    // SMTP settings in the secure configuration
+    private static final String SMTP_HOST_CONFIG = "smtp.host";
+    private static final String SMTP_PORT_CONFIG = "smtp.port";
+    private static final String SMTP_USERNAME_CONFIG = "smtp.username";
+    private static final String SMTP_PASSWORD_CONFIG = "smtp.password";
+    private static final String SMTP_FROM_CONFIG = "smtp.from";
+    private static final String DEFAULT_SMTP_PORT = "587";
     private static boolean initialized = false;
+    private static JournalAuditRepository auditJournal;
+    private static SmtpEmailService emailService;
 
     /**
      * Initializes the application's services and repositories.
@@ -62,73 +107,58 @@ public class ApplicationInitializer {
             CustomerRepository customerRepository;
             ReportRepository reportRepository;
             PhotoRepository photoRepository;
+            // Annotations are only stored separately in the database; in memory they stay on the photos
+            PhotoAnnotationRepository photoAnnotationRepository = null;
+
+            // Score uploaded photos for blur and exposure before they reach QA. They are decoded with
+            // the JavaFX image loader, which is available on every platform the app runs on
+            ImageQualityPrescreener prescreener =
+                    new ImageQualityPrescreener(EmojiLoggerFactory.getInstance(), new FxPixelDecoder());
+            ServiceRegistry.registerService(prescreener);
+
+            // Decoded photos shared by the photo upload and review views, within a byte budget. They
+            // are decoded into JavaFX images, which the views show without a copy on every platform
+            DecodedImageCache<Image> imageCache =
+                    new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), new FxImageDecoder());
+            ServiceRegistry.registerService(imageCache);
+
             logger.debug("Creating repositories");
 
             // Try to use SQL-based repositories if database is available
             DataSource dataSource = DatabaseConfig.getDataSource();
             if (dataSource != null) {
                 try {
-                    // Initialize UserRepository - try SQL implementation first
-                    userRepository = createRepository(UserRepository.class, "SqlUserRepository", dataSource,
-                            InMemoryUserRepository.class);
+                    // Both database profiles have the same tables, so every repository with a SQL
+                    // implementation is backed by the database and survives a restart
+                    logger.database("Creating SQL-based repositories on the " + DatabaseConfig.getProfile() +
+                                    " database");
+                    userRepository = new SqlUserRepository(dataSource);
                     ServiceRegistry.registerService(userRepository);
 
-                    // Create and register UserDataAccessAdapter
-                    if (userRepository instanceof InMemoryUserRepository) {
-                        logger.database("Creating UserDataAccessAdapter");
-                        UserDataAccess userDataAccess = new UserDataAccessAdapter(
-                                (InMemoryUserRepository) userRepository);
-                        ServiceRegistry.registerService(userDataAccess);
-                        logger.success("UserDataAccessAdapter created successfully");
-                    }
-
-                    // Initialize OrderRepository - try SQL implementation first
-                    orderRepository = createRepository(OrderRepository.class, "SqlOrderRepository", dataSource,
-                            InMemoryOrderRepository.class);
+                    orderRepository = new SqlOrderRepository(dataSource);
                     ServiceRegistry.registerService(orderRepository);
 
-                    // Create and register OrderDataAccessAdapter
-                    if (orderRepository instanceof InMemoryOrderRepository) {
-                        logger.database("Creating OrderDataAccessAdapter");
-                        OrderDataAccess orderDataAccess = new OrderDataAccessAdapter(
-                                (InMemoryOrderRepository) orderRepository);
-                        ServiceRegistry.registerService(orderDataAccess);
-                        logger.success("OrderDataAccessAdapter created successfully");
-                    }
-
-                    // Initialize CustomerRepository - try SQL implementation first
-                    customerRepository = createRepository(CustomerRepository.class, "SqlCustomerRepository", dataSource,
-                            InMemoryCustomerRepository.class);
+                    customerRepository = new SqlCustomerRepository(dataSource);
                     ServiceRegistry.registerService(customerRepository);
 
-                    // Create and register CustomerDataAccessAdapter
-                    if (customerRepository instanceof InMemoryCustomerRepository) {
-                        logger.database("Creating CustomerDataAccessAdapter");
-                        CustomerDataAccess customerDataAccess = new CustomerDataAccessAdapter(
-                                (InMemoryCustomerRepository) customerRepository);
-                        ServiceRegistry.registerService(customerDataAccess);
-                        logger.success("CustomerDataAccessAdapter created successfully");
-                    }
-
-                    // Initialize ReportRepository - try SQL implementation first
-                    reportRepository = createRepository(ReportRepository.class, "SqlReportRepository", dataSource,
-                            InMemoryReportRepository.class);
+                    photoRepository = new SqlPhotoRepository(dataSource);
+                    ServiceRegistry.registerService(photoRepository);
+
+                    photoAnnotationRepository = new SqlPhotoAnnotationRepository(dataSource);
+                    ServiceRegistry.registerService(photoAnnotationRepository);
+                    logger.success("Using SQL-based user, order, customer, photo and annotation repositories");
+
+                    // Initialize ReportRepository - reports have no table yet and are regenerated from orders
+                    logger.database("Creating in-memory ReportRepository");
+                    reportRepository = new InMemoryReportRepository();
                     ServiceRegistry.registerService(reportRepository);
 
                     // Create and register ReportDataAccessAdapter
-                    if (reportRepository instanceof InMemoryReportRepository) {
-                        logger.database("Creating ReportDataAccessAdapter");
-                        ReportDataAccess reportDataAccess = new ReportDataAccessAdapter(
-                                (InMemoryReportRepository) reportRepository);
-                        ServiceRegistry.registerService(reportDataAccess);
-                        logger.success("ReportDataAccessAdapter created successfully");
-                    }
-
-                    // Initialize PhotoRepository - use InMemoryPhotoRepository for now
-                    logger.database("Creating InMemoryPhotoRepository");
-                    photoRepository = new InMemoryPhotoRepository();
-                    ServiceRegistry.registerService(photoRepository);
-                    logger.success("Using InMemoryPhotoRepository");
+                    logger.database("Creating ReportDataAccessAdapter");
+                    ReportDataAccess reportDataAccess = new ReportDataAccessAdapter(
+                            (InMemoryReportRepository) reportRepository);
+                    ServiceRegistry.registerService(reportDataAccess);
+                    logger.success("ReportDataAccessAdapter created successfully");
 
                     // Create and register PhotoDataAccessAdapter
                     logger.database("Creating PhotoDataAccessAdapter");
@@ -138,12 +168,14 @@ public class ApplicationInitializer {
 
                     // Initialize PhotoService
                     logger.database("Creating DefaultPhotoService");
-                    PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY);
+                    PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY,
+                            prescreener);
                     ServiceRegistry.registerService(photoService);
                     logger.success("Using DefaultPhotoService");
                 } catch (Exception e) {
                     // Fall back to in-memory repositories if there's an error
                     logger.warn("Failed to initialize repositories, falling back to in-memory repositories", e);
+                    photoAnnotationRepository = null;
 
                     // Initialize UserRepository as fallback
                     logger.database("Creating in-memory UserRepository as fallback");
@@ -210,7 +242,8 @@ public class ApplicationInitializer {
 
                     // Initialize PhotoService as fallback
                     logger.database("Creating DefaultPhotoService as fallback");
-                    PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY);
+                    PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY,
+                            prescreener);
                     ServiceRegistry.registerService(photoService);
                     logger.info("Using DefaultPhotoService as fallback");
                 }
@@ -282,11 +315,78 @@ public class ApplicationInitializer {
 
                 // Initialize PhotoService as fallback
                 logger.database("Creating DefaultPhotoService as fallback");
-                PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY);
+                PhotoService photoService = new DefaultPhotoService(orderRepository, PHOTO_STORAGE_DIRECTORY,
+                        prescreener);
                 ServiceRegistry.registerService(photoService);
                 logger.info("Using DefaultPhotoService as fallback");
             }
 
+            // Keep a local order cache current from the change feed instead of reloading all orders
+            logger.debug("Creating order sync agent");
+            OrderChangeFeed orderChangeFeed = orderRepository instanceof SqlOrderRepository
+                                              ? new SqlOrderChangeFeed(dataSource)
+                                              : null;
+            OrderSyncAgent orderSyncAgent = new OrderSyncAgent(EmojiLoggerFactory.getInstance(), orderRepository,
+                    orderChangeFeed);
+            ServiceRegistry.registerService(orderSyncAgent);
+            if (orderChangeFeed != null) {
+                orderSyncAgent.start(ORDER_SYNC_INTERVAL);
+            }
+            logger.success("Order sync agent created successfully");
+
+            // Build the QA review queue and keep it current from photo events
+            logger.debug("Building QA review queue");
+            ReviewQueueProjection reviewQueue = new ReviewQueueProjection(EmojiLoggerFactory.getInstance());
+            reviewQueue.rebuild(photoRepository);
+            reviewQueue.subscribe(BusinessEventPublisher.getInstance());
+            ServiceRegistry.registerService(reviewQueue);
+            logger.success("QA review queue built successfully");
+
+            // Route single and bulk reviews through the engine, which saves each order once
+            logger.debug("Creating QA service");
+            // Keep the audit trail in the tamper-evident journal on the device, in memory if it cannot be opened
+            AuditConfig auditConfig = new AuditConfig(EmojiLoggerFactory.getInstance());
+            AuditFacade auditFacade;
+            try {
+                auditJournal = auditConfig.openJournal(JournalAuditRepository.defaultDirectory());
+                ServiceRegistry.registerService(auditJournal);
+                auditFacade = auditConfig.initialize(auditJournal);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to open the audit journal, keeping the audit trail in memory", e);
+                auditFacade = auditConfig.initializeWithInMemoryRepository();
+            }
+            ServiceRegistry.registerService(auditFacade);
+            BulkReviewEngine reviewEngine = new BulkReviewEngine(photoRepository, orderRepository, auditFacade,
+                    event -> BusinessEventPublisher.getInstance().publish((BusinessEvent) event),
+                    EmojiLoggerFactory.getInstance());
+            ServiceRegistry.registerService(reviewEngine);
+            QAService qaService = new DefaultQAService(photoRepository, reviewEngine, reviewQueue,
+                    EmojiLoggerFactory.getInstance());
+            ServiceRegistry.registerService(qaService);
+            logger.success("QA service created successfully");
+
+            // Check orders against their required photo templates, for reports and the dashboard tiles
+            logger.debug("Creating report generation service");
+            IPhotoQualityService photoQualityPolicy = new ProductPhotoRequirementPolicy();
+            PhotoReportGenerationService reportGenerationService = new PhotoReportGenerationService(
+                    new PhotoValidationService(photoQualityPolicy, EmojiLoggerFactory.getInstance()),
+                    EmojiLoggerFactory.getInstance(), photoQualityPolicy, photoAnnotationRepository);
+            ServiceRegistry.registerService(reportGenerationService);
+            logger.success("Report generation service created successfully");
+
+            // Deliver approved orders as bundles of their report and approved photos
+            ServiceRegistry.registerService(new DeliveryBundleWriter(EmojiLoggerFactory.getInstance(),
+                    Path.of(PHOTO_STORAGE_DIRECTORY), orderRepository));
+
+            // Queue report mails for background delivery, if an SMTP server is configured
+            emailService = createEmailService();
+            if (emailService != null) {
+                ServiceRegistry.registerService(emailService);
+            }
+
+            // Flag uploaded photos whose pre-screen scores indicate they need retaking
+            ServiceRegistry.registerService(new PhotoQualityPolicy());
+
             // Create services
             logger.debug("Creating authentication service");
             AuthenticationService authenticationService = new DefaultAuthenticationService(userRepository);
@@ -326,57 +426,28 @@ public class ApplicationInitializer {
     }
 
     /**
-     * Creates a repository instance, trying to use a SQL implementation first if available,
-     * and falling back to an in-memory implementation if the SQL implementation is not available.
+     * Creates the email service from the SMTP settings in the secure configuration.
      *
-     * @param <T>                 the repository interface type
-     * @param repositoryInterface the repository interface class
-     * @param sqlImplName         the name of the SQL implementation class
-     * @param dataSource          the DataSource to pass to the SQL implementation constructor
-     * @param inMemoryImplClass   the in-memory implementation class to use as fallback
-     * @return a repository instance
-     * @throws Exception if an error occurs while creating the repository
+     * @return the email service, or null if no SMTP server is configured or the service cannot be created
      */
-    @SuppressWarnings("unchecked")
-    private static <T> T createRepository(Class<T> repositoryInterface, String sqlImplName, DataSource dataSource,
-                                          Class<? extends T> inMemoryImplClass) throws Exception {
-        // Try to create SQL implementation first
+    private static SmtpEmailService createEmailService() {
+        SecureConfigStorage config = SecureConfigStorage.getInstance();
+        String host = config.getValue(SMTP_HOST_CONFIG);
+        if (host == null || host.isBlank()) {
+            logger.info("No SMTP server configured, reports will not be mailed");
+            return null;
+        }
         try {
-            // Construct the full class name for the SQL implementation
-            String sqlImplClassName = "com.belman.infrastructure.persistence." + sqlImplName;
-
-            // Try to load the SQL implementation class
-            Class<?> sqlImplClass = Class.forName(sqlImplClassName);
-
-            // Check if the class implements the repository interface
-            if (repositoryInterface.isAssignableFrom(sqlImplClass)) {
-                logger.database("Creating SQL-based " + repositoryInterface.getSimpleName());
-
-                // Find constructor that takes a DataSource
-                Constructor<?> constructor = sqlImplClass.getConstructor(DataSource.class);
-
-                // Create instance
-                T repository = (T) constructor.newInstance(dataSource);
-
-                logger.success("Using SQL-based " + repositoryInterface.getSimpleName());
-                return repository;
-            } else {
-                logger.warn("Class " + sqlImplClassName + " does not implement " + repositoryInterface.getSimpleName());
-            }
-        } catch (ClassNotFoundException e) {
-            // SQL implementation not found, this is expected for repositories that don't have SQL implementations yet
-            logger.info("SQL implementation " + sqlImplName + " not found, using in-memory implementation");
-        } catch (Exception e) {
-            // Other error occurred while trying to create SQL implementation
-            logger.warn("Failed to create SQL-based " + repositoryInterface.getSimpleName() +
-                        ", falling back to in-memory implementation", e);
+            SmtpEmailService service = new SmtpEmailService(host,
+                    Integer.parseInt(config.getValue(SMTP_PORT_CONFIG, DEFAULT_SMTP_PORT)),
+                    config.getValue(SMTP_USERNAME_CONFIG), config.getValue(SMTP_PASSWORD_CONFIG),
+                    config.getValue(SMTP_FROM_CONFIG, config.getValue(SMTP_USERNAME_CONFIG)));
+            logger.email("Email service created, mails are queued in " + MailSpool.defaultDirectory());
+            return service;
+        } catch (RuntimeException e) {
+            logger.warn("Failed to create the email service, reports will not be mailed", e);
+            return null;
         }
-
-        // Fall back to in-memory implementation
-        logger.database("Creating in-memory " + repositoryInterface.getSimpleName());
-        T repository = inMemoryImplClass.getDeclaredConstructor().newInstance();
-        logger.info("Using in-memory " + repositoryInterface.getSimpleName());
-        return repository;
     }
 
     /**
@@ -397,6 +468,18 @@ public class ApplicationInitializer {
             DatabaseConfig.shutdown();
             logger.success("Database connection pool shut down successfully");
 
+            // Stop mail delivery; undelivered mails stay queued for the next start
+            if (emailService != null) {
+                emailService.close();
+                emailService = null;
+            }
+
+            // Force the audit journal to storage and store its anchor
+            if (auditJournal != null) {
+                auditJournal.close();
+                auditJournal = null;
+            }
+
             initialized = false;
             logger.shutdown("Application shut down successfully 👋");
         } catch (Exception e) {
@@ -1,13 +1,21 @@
 package com.belman.bootstrap.config;
 
+import com.belman.common.config.SecureConfigStorage;
 import com.belman.domain.audit.AuditFacade;
 import com.belman.domain.audit.AuditRepository;
 import com.belman.domain.audit.DefaultAuditFacade;
 import com.belman.domain.core.BusinessObject;
 import com.belman.domain.services.Logger;
 import com.belman.domain.services.LoggerFactory;
+import com.belman.repository.persistence.journal.JournalAnchor;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
 import com.belman.repository.persistence.memory.InMemoryAuditRepository;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+
 /**
  * Configuration class for setting up the audit system.
  * <p>
@@ -16,6 +24,18 @@ import com.belman.repository.persistence.memory.InMemoryAuditRepository;
  */
 public class AuditConfig {
 
+    /**
+     * The secure configuration key holding the Base64-encoded key that chains the audit journal.
+     */
+    public static final String JOURNAL_KEY_CONFIG = "audit.journalKey";
+
+    /**
+     * The secure configuration key holding the last anchor of the audit journal.
+     */
+    public static final String JOURNAL_ANCHOR_CONFIG = "audit.journalAnchor";
+
+    private static final int GENERATED_KEY_LENGTH = 32;
+
     private final LoggerFactory loggerFactory;
 
     /**
@@ -30,8 +50,10 @@ public class AuditConfig {
     /**
      * Initializes the audit system with an in-memory repository.
      * This is suitable for development and testing environments.
+     *
+     * @return the audit facade that was set on the BusinessObject class
      */
-    public void initializeWithInMemoryRepository() {
+    public AuditFacade initializeWithInMemoryRepository() {
         Logger logger = loggerFactory.getLogger(DefaultAuditFacade.class);
         AuditRepository auditRepository = new InMemoryAuditRepository();
         AuditFacade auditFacade = new DefaultAuditFacade(auditRepository, logger);
@@ -40,6 +62,72 @@ public class AuditConfig {
         BusinessObject.setAuditFacade(auditFacade);
 
         logger.info("Audit system initialized with in-memory repository");
+        return auditFacade;
+    }
+
+    /**
+     * Initializes the audit system with an audit journal in the given directory.
+     * This keeps a complete audit trail on the device with little memory use.
+     *
+     * @param directory the journal directory
+     * @return the journal, which the caller closes on shutdown
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournalAuditRepository initializeWithJournal(Path directory) throws IOException {
+        JournalAuditRepository journal = openJournal(directory);
+        initialize(journal);
+        return journal;
+    }
+
+    /**
+     * Opens the audit journal in the given directory with the key from secure configuration, and
+     * checks it against the anchor that was stored there when it was last used.
+     * If no key has been configured yet, a random key is generated and stored. The anchor is
+     * updated in secure configuration whenever the journal seals a segment or is closed.
+     *
+     * @param directory the journal directory
+     * @return the journal, which the caller closes on shutdown
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournalAuditRepository openJournal(Path directory) throws IOException {
+        Logger logger = loggerFactory.getLogger(AuditConfig.class);
+        SecureConfigStorage storage = SecureConfigStorage.getInstance();
+        String encodedKey = storage.getValue(JOURNAL_KEY_CONFIG);
+        if (encodedKey == null || encodedKey.isBlank()) {
+            byte[] generated = new byte[GENERATED_KEY_LENGTH];
+            new SecureRandom().nextBytes(generated);
+            encodedKey = Base64.getEncoder().encodeToString(generated);
+            storage.storeValue(JOURNAL_KEY_CONFIG, encodedKey);
+            logger.warn("No audit journal key configured, generated a new one");
+        }
+
+        JournalAuditRepository journal = new JournalAuditRepository(directory,
+                Base64.getDecoder().decode(encodedKey));
+        boolean intact = true;
+        if (journal.getRecovery() == JournalAuditRepository.Recovery.DAMAGED) {
+            logger.error("The audit journal in {} has damaged or changed records", directory);
+            intact = false;
+        } else if (journal.getRecovery() == JournalAuditRepository.Recovery.TORN_RECORD_CLEARED) {
+            logger.warn("Cleared an audit journal record that was interrupted by a crash");
+        }
+
+        String storedAnchor = storage.getValue(JOURNAL_ANCHOR_CONFIG);
+        if (intact && storedAnchor != null && !storedAnchor.isBlank()) {
+            try {
+                intact = journal.verify(JournalAnchor.parse(storedAnchor));
+            } catch (IllegalArgumentException e) {
+                logger.warn("Ignoring invalid audit journal anchor: {}", storedAnchor);
+            }
+            if (!intact) {
+                logger.error("The audit journal in {} does not continue from its stored anchor {}; " +
+                             "events were changed or removed", directory, storedAnchor);
+            }
+        }
+        // Keep the stored anchor as evidence of a journal that no longer matches it
+        if (intact) {
+            journal.setAnchorListener(anchor -> storage.storeValue(JOURNAL_ANCHOR_CONFIG, anchor.toString()));
+        }
+        return journal;
     }
 
     /**
@@ -47,8 +135,9 @@ public class AuditConfig {
      * This allows for more flexibility in how audit events are stored.
      *
      * @param auditRepository the repository to use for storing audit events
+     * @return the audit facade that was set on the BusinessObject class
      */
-    public void initialize(AuditRepository auditRepository) {
+    public AuditFacade initialize(AuditRepository auditRepository) {
         Logger logger = loggerFactory.getLogger(DefaultAuditFacade.class);
         AuditFacade auditFacade = new DefaultAuditFacade(auditRepository, logger);
 
@@ -57,5 +146,6 @@ public class AuditConfig {
 
         logger.info("Audit system initialized with custom repository: {}",
                 auditRepository.getClass().getSimpleName());
+        return auditFacade;
     }
 }
\ No newline at end of file
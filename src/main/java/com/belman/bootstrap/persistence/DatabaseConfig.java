@@ -2,10 +2,13 @@ package com.belman.bootstrap.persistence;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
 
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -13,11 +16,18 @@ import java.util.logging.Logger;
 /**
  * Configuration class for database connectivity.
  * Sets up a connection pool using HikariCP and provides a DataSource.
+ * <p>
+ * The db.profile property selects SQL Server (sqlserver, the default) or an embedded SQLite
+ * database file (sqlite). When SQL Server cannot be reached, the embedded database is used
+ * instead unless db.embedded.fallback is false, so data entered offline is kept across restarts.
  */
 public class DatabaseConfig {
     private static final Logger LOGGER = Logger.getLogger(DatabaseConfig.class.getName());
     private static final String DB_PROPERTIES_FILE = "database.properties";
+    private static final String SQLITE_SCHEMA_LOCATION = "classpath:db/sqlite";
+    private static final String SQLITE_SEED_LOCATION = "classpath:db/sqlite-seed";
     private static HikariDataSource dataSource;
+    private static DatabaseProfile profile;
 
     /**
      * Initializes the database connection pool.
@@ -25,34 +35,133 @@ public class DatabaseConfig {
      */
     public static void initialize() {
         if (dataSource == null) {
+            Properties props;
             try {
-                Properties props = loadDatabaseProperties();
-                HikariConfig config = new HikariConfig();
+                props = loadDatabaseProperties();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to load " + DB_PROPERTIES_FILE + ", using defaults", e);
+                props = new Properties();
+            }
 
-                config.setJdbcUrl(props.getProperty("db.url"));
-                config.setUsername(props.getProperty("db.username"));
-                config.setPassword(props.getProperty("db.password"));
-                config.setDriverClassName(props.getProperty("db.driver"));
+            if (DatabaseProfile.fromProperty(props.getProperty("db.profile")) == DatabaseProfile.SQLITE) {
+                initializeSqlite(props);
+                return;
+            }
+            initializeSqlServer(props);
+            if (dataSource == null && Boolean.parseBoolean(props.getProperty("db.embedded.fallback", "true"))) {
+                LOGGER.warning("SQL Server is not available, using the embedded SQLite database");
+                initializeSqlite(props);
+            }
+        }
+    }
 
-                // Connection pool settings
-                config.setMaximumPoolSize(Integer.parseInt(props.getProperty("db.pool.maxSize", "10")));
-                config.setMinimumIdle(Integer.parseInt(props.getProperty("db.pool.minIdle", "5")));
-                config.setIdleTimeout(Long.parseLong(props.getProperty("db.pool.idleTimeout", "30000")));
-                config.setConnectionTimeout(Long.parseLong(props.getProperty("db.pool.connectionTimeout", "30000")));
+    private static void initializeSqlServer(Properties props) {
+        try {
+            HikariConfig config = new HikariConfig();
 
-                // Set pool name for easier debugging
-                config.setPoolName("BelSignHikariPool");
+            config.setJdbcUrl(props.getProperty("db.url"));
+            config.setUsername(props.getProperty("db.username"));
+            config.setPassword(props.getProperty("db.password"));
+            config.setDriverClassName(props.getProperty("db.driver"));
 
-                dataSource = new HikariDataSource(config);
-                LOGGER.info("Database connection pool initialized successfully");
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "Failed to initialize database connection pool", e);
-                // Don't throw an exception, just log it and return
-                // The application will fall back to using in-memory repositories
-            }
+            // Connection pool settings
+            config.setMaximumPoolSize(Integer.parseInt(props.getProperty("db.pool.maxSize", "10")));
+            config.setMinimumIdle(Integer.parseInt(props.getProperty("db.pool.minIdle", "5")));
+            config.setIdleTimeout(Long.parseLong(props.getProperty("db.pool.idleTimeout", "30000")));
+            config.setConnectionTimeout(Long.parseLong(props.getProperty("db.pool.connectionTimeout", "30000")));
+
+            // Set pool name for easier debugging
+            config.setPoolName("BelSignHikariPool");
+
+            dataSource = new HikariDataSource(config);
+            profile = DatabaseProfile.SQL_SERVER;
+            LOGGER.info("Database connection pool initialized successfully");
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to initialize database connection pool", e);
+            // Don't throw an exception, just log it and return
+            // The application will fall back to the embedded or in-memory repositories
         }
     }
 
+    /**
+     * Initializes the embedded SQLite database at the configured path.
+     */
+    private static void initializeSqlite(Properties props) {
+        try {
+            Path file = Path.of(props.getProperty("db.sqlite.path",
+                    Path.of(System.getProperty("user.home"), ".belsign", "belsign.db").toString()));
+            dataSource = openSqlite(file, props);
+            profile = DatabaseProfile.SQLITE;
+            LOGGER.info("Embedded SQLite database initialized successfully: " + file.toAbsolutePath());
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Failed to initialize embedded SQLite database", e);
+            // The application will fall back to using in-memory repositories
+        }
+    }
+
+    /**
+     * Opens an embedded SQLite database file, creating and migrating it if needed.
+     * <p>
+     * The database runs in WAL mode, so readers never block the single writer and a commit is
+     * one sequential append. With WAL, synchronous=NORMAL only syncs at checkpoints, which keeps
+     * the database consistent after a crash and may only lose the last commits on power loss.
+     * Writers wait for the lock instead of failing, and each connection keeps a 16 MB page cache.
+     *
+     * @param file  the database file
+     * @param props the database properties
+     * @return the connection pool of the migrated database
+     * @throws IOException if the directory of the database file cannot be created
+     */
+    public static HikariDataSource openSqlite(Path file, Properties props) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:sqlite:" + absolute);
+        config.setDriverClassName("org.sqlite.JDBC");
+
+        // Pragmas, applied by the driver to every new connection
+        config.addDataSourceProperty("journal_mode", "WAL");
+        config.addDataSourceProperty("synchronous", "NORMAL");
+        config.addDataSourceProperty("foreign_keys", "true");
+        config.addDataSourceProperty("busy_timeout", props.getProperty("db.sqlite.busyTimeout", "5000"));
+        config.addDataSourceProperty("cache_size", "-16000");
+        config.addDataSourceProperty("temp_store", "MEMORY");
+
+        // SQLite has a single writer, so a few connections are enough for concurrent readers
+        config.setMaximumPoolSize(Integer.parseInt(props.getProperty("db.sqlite.pool.maxSize", "4")));
+        config.setMinimumIdle(1);
+        config.setPoolName("BelSignSqlitePool");
+
+        HikariDataSource sqlite = new HikariDataSource(config);
+        try {
+            migrateSqlite(sqlite, true);
+        } catch (RuntimeException e) {
+            sqlite.close();
+            throw e;
+        }
+        return sqlite;
+    }
+
+    /**
+     * Applies the pending SQLite migrations to a database.
+     *
+     * @param sqlite       the SQLite database
+     * @param seedDefaults  whether to also seed the default users when the database is created
+     */
+    public static void migrateSqlite(DataSource sqlite, boolean seedDefaults) {
+        String[] locations = seedDefaults
+                ? new String[]{SQLITE_SCHEMA_LOCATION, SQLITE_SEED_LOCATION}
+                : new String[]{SQLITE_SCHEMA_LOCATION};
+        Flyway.configure()
+                .dataSource(sqlite)
+                .locations(locations)
+                .load()
+                .migrate();
+    }
+
     /**
      * Loads database properties from the properties file.
      *
@@ -79,6 +188,15 @@ public class DatabaseConfig {
         return dataSource;
     }
 
+    /**
+     * Gets the profile of the DataSource.
+     *
+     * @return the profile, or null if the DataSource has not been initialized or failed to initialize
+     */
+    public static DatabaseProfile getProfile() {
+        return profile;
+    }
+
     /**
      * Closes the database connection pool.
      * This method should be called during application shutdown.
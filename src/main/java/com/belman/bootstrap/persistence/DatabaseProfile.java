@@ -0,0 +1,35 @@
+package com.belman.bootstrap.persistence;
+
+/**
+ * The database backends the application can run on.
+ */
+public enum DatabaseProfile {
+    /**
+     * The shared SQL Server database. Its schema is managed outside the application.
+     */
+    SQL_SERVER,
+
+    /**
+     * An embedded SQLite database file on the device. The application creates and migrates the
+     * schema itself, and seeds the default users when the database is created.
+     */
+    SQLITE;
+
+    /**
+     * Parses the value of the db.profile property.
+     *
+     * @param value the property value, or null for the default profile
+     * @return the profile
+     * @throws IllegalArgumentException if the value names no profile
+     */
+    public static DatabaseProfile fromProperty(String value) {
+        if (value == null || value.isBlank()) {
+            return SQL_SERVER;
+        }
+        return switch (value.trim().toLowerCase()) {
+            case "sqlserver" -> SQL_SERVER;
+            case "sqlite" -> SQLITE;
+            default -> throw new IllegalArgumentException("Unknown database profile: " + value);
+        };
+    }
+}
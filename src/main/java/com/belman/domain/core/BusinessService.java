@@ -5,6 +5,8 @@ import com.belman.domain.audit.event.AuditPublisher;
 import com.belman.domain.services.Logger;
 import com.belman.domain.services.LoggerFactory;
 
+import java.util.Objects;
+
 /**
  * Base class for all business services.
  * Provides common functionality and standardizes service implementation.
@@ -24,6 +26,20 @@ public abstract class BusinessService implements IBusinessService {
         this.logger = getLoggerFactory().getLogger(this.getClass());
     }
 
+    /**
+     * Creates a new BusinessService with a logger from the given factory.
+     * <p>
+     * Services that keep the factory in a field use this constructor, because the field is not
+     * set yet while the no-argument constructor calls {@link #getLoggerFactory()}.
+     *
+     * @param loggerFactory the factory to create the logger with
+     * @throws NullPointerException if loggerFactory is null
+     */
+    protected BusinessService(LoggerFactory loggerFactory) {
+        this.logger = Objects.requireNonNull(loggerFactory, "loggerFactory must not be null")
+                .getLogger(this.getClass());
+    }
+
     /**
      * Gets the logger factory to use for creating loggers.
      * <p>
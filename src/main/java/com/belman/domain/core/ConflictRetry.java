@@ -0,0 +1,80 @@
+package com.belman.domain.core;
+
+import com.belman.domain.exceptions.VersionConflictException;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Applies commutative changes to aggregates stored with optimistic concurrency.
+ * <p>
+ * A change such as adding a photo to an order does not depend on what other users changed in
+ * the meantime, so a version conflict is resolved by reloading the aggregate, applying the same
+ * change to the fresh copy and saving again. Changes that depend on the state the user saw, such
+ * as approving an order, must not be retried this way; their conflicts belong to the user.
+ */
+public final class ConflictRetry {
+
+    /**
+     * The number of attempts used by {@link #update(Repository, Object, Consumer)}.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private ConflictRetry() {
+    }
+
+    /**
+     * Loads an aggregate, applies a change and saves it, retrying on version conflicts.
+     *
+     * @param repository the repository that stores the aggregate
+     * @param id         the identifier of the aggregate
+     * @param change     the change to apply; it may be applied once per attempt
+     * @param <T>        the type of the aggregate
+     * @param <ID>       the type of the identifier
+     * @return the saved aggregate, or empty if it does not exist
+     * @throws VersionConflictException if the aggregate is still in conflict after the last attempt
+     */
+    public static <T, ID> Optional<T> update(Repository<T, ID> repository, ID id, Consumer<? super T> change) {
+        return update(repository, id, change, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Loads an aggregate, applies a change and saves it, retrying on version conflicts.
+     *
+     * @param repository  the repository that stores the aggregate
+     * @param id          the identifier of the aggregate
+     * @param change      the change to apply; it may be applied once per attempt
+     * @param maxAttempts the maximum number of times the change is applied and saved
+     * @param <T>         the type of the aggregate
+     * @param <ID>        the type of the identifier
+     * @return the saved aggregate, or empty if it does not exist or was deleted concurrently
+     * @throws VersionConflictException if the aggregate is still in conflict after the last attempt
+     */
+    public static <T, ID> Optional<T> update(Repository<T, ID> repository, ID id, Consumer<? super T> change,
+                                             int maxAttempts) {
+        Objects.requireNonNull(repository, "repository must not be null");
+        Objects.requireNonNull(change, "change must not be null");
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            Optional<T> aggregate = repository.findById(id);
+            if (aggregate.isEmpty()) {
+                return Optional.empty();
+            }
+            change.accept(aggregate.get());
+            try {
+                return Optional.of(repository.save(aggregate.get()));
+            } catch (VersionConflictException e) {
+                if (e.isDeleted()) {
+                    return Optional.empty();
+                }
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class CustomerAggregate {
     private Company company;
     private EmailAddress email;
     private PhoneNumber phoneNumber;
+    // Stored version this copy was loaded with; 0 until the customer has been saved
+    private long version;
 
     /**
      * Private constructor used by factory methods.
@@ -157,6 +159,22 @@ public class CustomerAggregate {
         this.phoneNumber = phoneNumber;
     }
 
+    /**
+     * @return the stored version this customer was loaded or last saved with, or 0 if it has not been saved yet
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the stored version of this customer. Used by repositories when loading and saving.
+     *
+     * @param version the stored version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Builder class for creating Customer instances.
      */
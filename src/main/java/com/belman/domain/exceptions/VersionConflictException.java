@@ -0,0 +1,63 @@
+package com.belman.domain.exceptions;
+
+/**
+ * Exception thrown when an entity is saved from a stale copy.
+ * This happens when another user or device changed or deleted the entity after it was loaded,
+ * so writing it would overwrite their change.
+ */
+public class VersionConflictException extends BusinessException {
+
+    /**
+     * The actual version reported when the entity no longer exists.
+     */
+    public static final long DELETED = -1;
+
+    private final String entityType;
+    private final String entityId;
+    private final long expectedVersion;
+    private final long actualVersion;
+
+    /**
+     * Creates a new VersionConflictException.
+     *
+     * @param entityType      the type of entity that was saved
+     * @param entityId        the ID of the entity that was saved
+     * @param expectedVersion the version the entity was loaded with, or 0 for a new entity
+     * @param actualVersion   the version that is stored, or {@link #DELETED} if the entity was deleted
+     */
+    public VersionConflictException(String entityType, String entityId, long expectedVersion, long actualVersion) {
+        super(actualVersion == DELETED
+              ? entityType + " with ID " + entityId + " was deleted"
+              : entityType + " with ID " + entityId + " was changed: expected version " + expectedVersion +
+                ", found version " + actualVersion);
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    public long getActualVersion() {
+        return actualVersion;
+    }
+
+    /**
+     * Checks whether the conflict is caused by the entity having been deleted.
+     *
+     * @return true if the entity no longer exists
+     */
+    public boolean isDeleted() {
+        return actualVersion == DELETED;
+    }
+}
@@ -8,13 +8,22 @@ import com.belman.domain.order.events.OrderApprovedEvent;
 import com.belman.domain.order.events.OrderCancelledEvent;
 import com.belman.domain.order.events.OrderCompletedEvent;
 import com.belman.domain.order.events.OrderRejectedEvent;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.order.photo.PerceptualHashIndex;
+import com.belman.domain.order.photo.PhotoAnnotation;
 import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.TemplateCoverage;
 import com.belman.domain.user.UserReference;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Primary business object representing a customer order in the BelSign system.
@@ -48,6 +57,12 @@ public class OrderBusiness extends BusinessObject<OrderId> {
     private ProductDescription productDescription;
     private DeliveryInformation deliveryInformation;
     private OrderStatus status;
+    // Stored version this copy was loaded with; 0 until the order has been saved
+    private long version;
+    // Templates of the approved photos; derived state, rebuilt from the photos when null
+    private transient TemplateCoverage approvedCoverage;
+    // Perceptual hashes of the photos; derived state, rebuilt from the photos when null
+    private transient PerceptualHashIndex<PhotoDocument> duplicateIndex;
 
     /**
      * Creates a new OrderBusiness with the specified ID, creator, and creation time.
@@ -193,6 +208,25 @@ public class OrderBusiness extends BusinessObject<OrderId> {
         updateLastModifiedAt();
     }
 
+    /**
+     * Returns the stored version this order was loaded or last saved with.
+     * Repositories only overwrite an order when its stored version still matches.
+     *
+     * @return the version, or 0 if the order has not been saved yet
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the stored version of this order. Used by repositories when loading and saving.
+     *
+     * @param version the stored version
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     /**
      * Returns the user who created this order.
      */
@@ -223,10 +257,168 @@ public class OrderBusiness extends BusinessObject<OrderId> {
     public void addPhoto(PhotoDocument photo) {
         Objects.requireNonNull(photo, "photo must not be null");
         photo.assignToOrder(this.id);
+        photo.setReviewListener(this::onPhotoReviewed);
         this.photoDocuments.add(photo);
+        if (photo.isApproved() && approvedCoverage != null) {
+            approvedCoverage = approvedCoverage.with(photo.getTemplate());
+        }
+        if (photo.getPerceptualHash() != null && duplicateIndex != null) {
+            duplicateIndex.add(photo.getPerceptualHash(), photo);
+        }
+        updateLastModifiedAt();
+    }
+
+    /**
+     * Approves a photo document of this order and adds its template to the approved template coverage.
+     *
+     * @param photoId    the ID of the photo document to approve
+     * @param reviewer   the user who reviewed the photo
+     * @param reviewedAt the time when the photo was reviewed
+     * @return the approved photo document
+     * @throws IllegalArgumentException if the photo document does not belong to this order
+     * @throws IllegalStateException    if the photo document is already approved or rejected
+     */
+    public PhotoDocument approvePhoto(PhotoId photoId, UserReference reviewer, Timestamp reviewedAt) {
+        PhotoDocument photo = findPhoto(photoId);
+        photo.approve(reviewer, reviewedAt);
+        return photo;
+    }
+
+    /**
+     * Rejects a photo document of this order. Only pending photos can be rejected, so the approved
+     * template coverage does not change.
+     *
+     * @param photoId    the ID of the photo document to reject
+     * @param reviewer   the user who reviewed the photo
+     * @param reviewedAt the time when the photo was reviewed
+     * @param reason     the reason for rejection (optional)
+     * @return the rejected photo document
+     * @throws IllegalArgumentException if the photo document does not belong to this order
+     * @throws IllegalStateException    if the photo document is already approved or rejected
+     */
+    public PhotoDocument rejectPhoto(PhotoId photoId, UserReference reviewer, Timestamp reviewedAt, String reason) {
+        PhotoDocument photo = findPhoto(photoId);
+        photo.reject(reviewer, reviewedAt, reason);
+        return photo;
+    }
+
+    /**
+     * Returns the set of templates covered by the approved photo documents of this order.
+     * The coverage is kept current by {@link #addPhoto} and by every review of a photo of this
+     * order, whether it goes through {@link #approvePhoto} or straight to the photo document.
+     */
+    public TemplateCoverage getApprovedTemplateCoverage() {
+        if (approvedCoverage == null) {
+            approvedCoverage = TemplateCoverage.of(getApprovedPhotos().stream()
+                    .map(PhotoDocument::getTemplate)
+                    .toList());
+        }
+        return approvedCoverage;
+    }
+
+    /**
+     * Finds the photo documents of this order that look like a photo with the given perceptual hash.
+     * Photos without a perceptual hash are never reported.
+     *
+     * @param hash        the perceptual hash of the photo to compare
+     * @param maxDistance the maximum Hamming distance between the hashes
+     * @return the similar photo documents, in the order they were added
+     */
+    public List<PhotoDocument> findNearDuplicates(PerceptualHash hash, int maxDistance) {
+        Objects.requireNonNull(hash, "hash must not be null");
+        List<PhotoDocument> matches = new ArrayList<>(getDuplicateIndex().search(hash, maxDistance));
+        matches.sort(Comparator.comparingInt(photoDocuments::indexOf));
+        return matches;
+    }
+
+    /**
+     * Groups the photo documents of this order with their near-duplicates, so a review screen can
+     * show each group once. The first photo of each group is the earliest one added; photos without
+     * a perceptual hash form groups of their own.
+     *
+     * @return the groups, ordered by their first photo
+     */
+    public List<List<PhotoDocument>> groupNearDuplicates() {
+        List<List<PhotoDocument>> groups = new ArrayList<>();
+        Set<PhotoDocument> grouped = new HashSet<>();
+        for (PhotoDocument photo : photoDocuments) {
+            if (!grouped.add(photo)) {
+                continue;
+            }
+            List<PhotoDocument> group = new ArrayList<>();
+            group.add(photo);
+            if (photo.getPerceptualHash() != null) {
+                for (PhotoDocument duplicate : findNearDuplicates(photo.getPerceptualHash(),
+                        PerceptualHash.NEAR_DUPLICATE_DISTANCE)) {
+                    if (grouped.add(duplicate)) {
+                        group.add(duplicate);
+                    }
+                }
+            }
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    /**
+     * Checks if any photo document of this order still has to load its annotations.
+     *
+     * @return true if at least one photo's annotations are not in memory
+     */
+    public boolean hasUnloadedAnnotations() {
+        for (PhotoDocument photo : photoDocuments) {
+            if (!photo.areAnnotationsLoaded()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Supplies the annotations of all photo documents of this order that have not loaded them yet.
+     * Photos missing from the map have no annotations.
+     *
+     * @param annotationsByPhoto the stored annotations of the order, by photo ID
+     */
+    public void preloadAnnotations(Map<PhotoId, List<PhotoAnnotation>> annotationsByPhoto) {
+        Objects.requireNonNull(annotationsByPhoto, "annotationsByPhoto must not be null");
+        for (PhotoDocument photo : photoDocuments) {
+            photo.provideAnnotations(annotationsByPhoto.getOrDefault(photo.getPhotoId(), List.of()));
+        }
+    }
+
+    private PerceptualHashIndex<PhotoDocument> getDuplicateIndex() {
+        if (duplicateIndex == null) {
+            duplicateIndex = new PerceptualHashIndex<>();
+            for (PhotoDocument photo : photoDocuments) {
+                if (photo.getPerceptualHash() != null) {
+                    duplicateIndex.add(photo.getPerceptualHash(), photo);
+                }
+            }
+        }
+        return duplicateIndex;
+    }
+
+    /**
+     * Updates the approved template coverage after a photo of this order was reviewed.
+     */
+    private void onPhotoReviewed(PhotoDocument photo) {
+        if (photo.isApproved() && approvedCoverage != null) {
+            approvedCoverage = approvedCoverage.with(photo.getTemplate());
+        }
         updateLastModifiedAt();
     }
 
+    private PhotoDocument findPhoto(PhotoId photoId) {
+        Objects.requireNonNull(photoId, "photoId must not be null");
+        for (PhotoDocument photo : photoDocuments) {
+            if (photo.getPhotoId().equals(photoId)) {
+                return photo;
+            }
+        }
+        throw new IllegalArgumentException("Photo " + photoId.id() + " does not belong to order " + id.id());
+    }
+
     /**
      * Returns a filtered list of photo documents that are still pending QA review.
      */
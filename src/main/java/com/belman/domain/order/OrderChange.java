@@ -0,0 +1,42 @@
+package com.belman.domain.order;
+
+import java.util.Objects;
+
+/**
+ * An entry in the order change feed: an order or one of its photos was written or deleted.
+ * <p>
+ * Entries carry no data beyond the identity of what changed. Clients reload the orders that
+ * changed, so the feed stays small and never holds stale copies of an order.
+ *
+ * @param sequence   the position of the change in the feed, increasing with every change
+ * @param entityType whether the order itself or one of its photos changed
+ * @param entityId   the ID of the order or photo that changed
+ * @param orderId    the ID of the order the change belongs to
+ * @param operation  whether the entity was written or deleted
+ */
+public record OrderChange(long sequence, EntityType entityType, String entityId, OrderId orderId,
+                          Operation operation) {
+
+    public OrderChange {
+        Objects.requireNonNull(entityType, "entityType must not be null");
+        Objects.requireNonNull(entityId, "entityId must not be null");
+        Objects.requireNonNull(orderId, "orderId must not be null");
+        Objects.requireNonNull(operation, "operation must not be null");
+    }
+
+    /**
+     * The kind of entity a change refers to.
+     */
+    public enum EntityType {
+        ORDER,
+        PHOTO
+    }
+
+    /**
+     * What happened to the entity.
+     */
+    public enum Operation {
+        UPSERT,
+        DELETE
+    }
+}
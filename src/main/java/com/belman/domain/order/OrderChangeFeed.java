@@ -0,0 +1,72 @@
+package com.belman.domain.order;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Feed of the changes made to orders and their photos, in the order they were made.
+ * <p>
+ * Clients remember the sequence of the last change they applied and ask only for the changes
+ * after it, instead of reloading all orders. Sequences increase but may have gaps, for example
+ * when a transaction that wrote a change was rolled back.
+ * <p>
+ * Clients acknowledge the sequence up to which they have applied every change, and changes that
+ * every active client has acknowledged can be pruned. A client that finds its cursor below the
+ * pruned sequence has missed changes and must reload all orders.
+ */
+public interface OrderChangeFeed {
+
+    /**
+     * Finds the changes after the given sequence, oldest first.
+     *
+     * @param sequence the sequence of the last change already seen, or 0 for all changes
+     * @param limit    the maximum number of changes to return
+     * @return the changes, ordered by sequence
+     */
+    List<OrderChange> findChangesSince(long sequence, int limit);
+
+    /**
+     * Finds the sequence of the latest change.
+     *
+     * @return the latest sequence, or 0 if there are no changes
+     */
+    long findLatestSequence();
+
+    /**
+     * Settles a range of sequences that were missing from the feed: waits for the transactions
+     * that are still writing any of them, then returns the changes that were committed. A sequence
+     * in the range that is not returned was rolled back or never used and will not appear later.
+     *
+     * @param after the sequence before the range
+     * @param upTo  the last sequence of the range
+     * @return the committed changes in the range, ordered by sequence
+     * @throws RuntimeException if a transaction writing the range did not finish in time, in which
+     *                          case the range is not settled yet
+     */
+    List<OrderChange> settleChanges(long after, long upTo);
+
+    /**
+     * Records that a client has applied every change up to a sequence.
+     *
+     * @param consumerId the ID of the client
+     * @param sequence   the sequence up to which the client has applied every change
+     */
+    void acknowledge(String consumerId, long sequence);
+
+    /**
+     * Finds the sequence up to which changes have been pruned.
+     *
+     * @return the pruned sequence, or 0 if nothing has been pruned
+     */
+    long findPrunedSequence();
+
+    /**
+     * Prunes the changes that every active client has acknowledged. Clients that have not
+     * acknowledged anything for longer than the timeout are forgotten first, so a retired tablet
+     * does not keep the feed growing.
+     *
+     * @param consumerTimeout how long a client may go without acknowledging before it is forgotten
+     * @return the number of pruned changes
+     */
+    int pruneAcknowledged(Duration consumerTimeout);
+}
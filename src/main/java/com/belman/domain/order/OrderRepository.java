@@ -3,6 +3,7 @@ package com.belman.domain.order;
 import com.belman.domain.core.Repository;
 import com.belman.domain.specification.Specification;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +27,24 @@ public interface OrderRepository extends Repository<OrderBusiness, OrderId> {
      * @return an Optional containing the order if found, or empty if not found
      */
     Optional<OrderBusiness> findByOrderNumber(OrderNumber orderNumber);
-}
\ No newline at end of file
+
+    /**
+     * Inserts new orders with their photos, skipping orders whose ID is already stored.
+     * Bulk imports use this to write many orders at once, and to resume without duplicating the
+     * orders an interrupted run already wrote. Implementations may write all orders in one
+     * transaction.
+     *
+     * @param orders the orders to insert
+     * @return the orders that were inserted
+     */
+    default List<OrderBusiness> insertAll(List<OrderBusiness> orders) {
+        List<OrderBusiness> inserted = new ArrayList<>();
+        for (OrderBusiness order : orders) {
+            if (!existsById(order.getId())) {
+                save(order);
+                inserted.add(order);
+            }
+        }
+        return inserted;
+    }
+}
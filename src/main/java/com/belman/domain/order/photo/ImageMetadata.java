@@ -0,0 +1,76 @@
+package com.belman.domain.order.photo;
+
+import com.belman.domain.common.base.ValueObject;
+
+import java.time.Instant;
+
+/**
+ * Value object holding the metadata read from the header of a photo when it is uploaded.
+ * <p>
+ * The dimensions are those of the stored pixels. Cameras often store portrait photos as
+ * landscape pixels and record the rotation in the EXIF orientation, so the displayed size is
+ * given by {@link #displayWidth()} and {@link #displayHeight()}.
+ *
+ * @param width       the width of the stored pixels
+ * @param height      the height of the stored pixels
+ * @param orientation the EXIF orientation, from 1 (upright) to 8; 1 if the image does not record one
+ * @param capturedAt  the time the photo was taken, or null if the image does not record it
+ */
+public record ImageMetadata(int width, int height, int orientation, Instant capturedAt) implements ValueObject {
+
+    /**
+     * The orientation of an image that is stored upright.
+     */
+    public static final int ORIENTATION_NORMAL = 1;
+
+    /**
+     * Creates a new ImageMetadata.
+     *
+     * @throws IllegalArgumentException if a dimension is not positive or the orientation is unknown
+     */
+    public ImageMetadata {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Image dimensions must be positive");
+        }
+        if (orientation < 1 || orientation > 8) {
+            throw new IllegalArgumentException("Orientation must be between 1 and 8");
+        }
+    }
+
+    /**
+     * Checks whether the image must be rotated by 90 or 270 degrees to be displayed upright,
+     * which swaps its width and height.
+     *
+     * @return true for the orientations 5 to 8
+     */
+    public boolean isTransposed() {
+        return orientation >= 5;
+    }
+
+    /**
+     * Gets the width of the image when displayed upright.
+     *
+     * @return the displayed width
+     */
+    public int displayWidth() {
+        return isTransposed() ? height : width;
+    }
+
+    /**
+     * Gets the height of the image when displayed upright.
+     *
+     * @return the displayed height
+     */
+    public int displayHeight() {
+        return isTransposed() ? width : height;
+    }
+
+    /**
+     * Gets the number of stored pixels.
+     *
+     * @return the width times the height
+     */
+    public long pixelCount() {
+        return (long) width * height;
+    }
+}
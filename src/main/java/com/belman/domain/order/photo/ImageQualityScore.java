@@ -0,0 +1,47 @@
+package com.belman.domain.order.photo;
+
+import com.belman.domain.common.base.ValueObject;
+
+/**
+ * Value object holding the image quality scores computed when a photo is uploaded.
+ * <p>
+ * The scores are measured on a downsampled luminance plane of the image, so they are comparable
+ * between photos of different resolutions.
+ *
+ * @param sharpness           the variance of the Laplacian of the luminance; low values indicate blur
+ * @param meanLuminance       the mean luminance, from 0 (black) to 255 (white)
+ * @param darkClippingRatio   the fraction of pixels that are crushed to black, from 0 to 1
+ * @param brightClippingRatio the fraction of pixels that are blown out to white, from 0 to 1
+ */
+public record ImageQualityScore(double sharpness, double meanLuminance, double darkClippingRatio,
+                                double brightClippingRatio) implements ValueObject {
+
+    /**
+     * Creates a new ImageQualityScore.
+     *
+     * @throws IllegalArgumentException if a score is out of range
+     */
+    public ImageQualityScore {
+        if (!(sharpness >= 0)) {
+            throw new IllegalArgumentException("Sharpness must not be negative");
+        }
+        if (!(meanLuminance >= 0 && meanLuminance <= 255)) {
+            throw new IllegalArgumentException("Mean luminance must be between 0 and 255");
+        }
+        if (!(darkClippingRatio >= 0 && darkClippingRatio <= 1)) {
+            throw new IllegalArgumentException("Dark clipping ratio must be between 0 and 1");
+        }
+        if (!(brightClippingRatio >= 0 && brightClippingRatio <= 1)) {
+            throw new IllegalArgumentException("Bright clipping ratio must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Gets the fraction of pixels that are clipped at either end of the luminance range.
+     *
+     * @return the clipping ratio, from 0 to 1
+     */
+    public double clippingRatio() {
+        return darkClippingRatio + brightClippingRatio;
+    }
+}
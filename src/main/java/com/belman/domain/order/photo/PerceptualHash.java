@@ -0,0 +1,69 @@
+package com.belman.domain.order.photo;
+
+import com.belman.domain.common.base.ValueObject;
+
+/**
+ * Value object holding a 64-bit perceptual hash of a photo.
+ * <p>
+ * Photos of the same scene have hashes that differ in only a few bits, even after re-encoding,
+ * resizing or small exposure changes, so the Hamming distance between two hashes measures how
+ * similar the photos look.
+ *
+ * @param bits the hash bits
+ */
+public record PerceptualHash(long bits) implements ValueObject {
+
+    /**
+     * The maximum Hamming distance at which two photos are considered near-duplicates.
+     */
+    public static final int NEAR_DUPLICATE_DISTANCE = 10;
+
+    /**
+     * Parses a hash from its hexadecimal representation.
+     *
+     * @param hex the 16 hexadecimal digits of the hash
+     * @return the hash
+     * @throws IllegalArgumentException if the value is not a hexadecimal hash
+     */
+    public static PerceptualHash fromHex(String hex) {
+        if (hex == null || hex.length() != 16) {
+            throw new IllegalArgumentException("Perceptual hash must be 16 hexadecimal digits");
+        }
+        return new PerceptualHash(Long.parseUnsignedLong(hex, 16));
+    }
+
+    /**
+     * Gets the number of bits in which this hash differs from another hash.
+     *
+     * @param other the other hash
+     * @return the Hamming distance, from 0 to 64
+     */
+    public int distanceTo(PerceptualHash other) {
+        return Long.bitCount(bits ^ other.bits);
+    }
+
+    /**
+     * Checks if the photo of another hash is a near-duplicate of the photo of this hash.
+     *
+     * @param other the other hash
+     * @return true if the hashes are at most {@link #NEAR_DUPLICATE_DISTANCE} bits apart
+     */
+    public boolean isNearDuplicateOf(PerceptualHash other) {
+        return distanceTo(other) <= NEAR_DUPLICATE_DISTANCE;
+    }
+
+    /**
+     * Gets the hexadecimal representation of this hash.
+     *
+     * @return the 16 hexadecimal digits of the hash
+     */
+    public String toHex() {
+        String hex = Long.toHexString(bits);
+        return "0".repeat(16 - hex.length()) + hex;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+}
@@ -0,0 +1,112 @@
+package com.belman.domain.order.photo;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A BK-tree of photos keyed by their perceptual hash, for finding the photos within a Hamming
+ * distance of a hash.
+ * <p>
+ * Each child of a node holds the photos at one exact distance from that node, so by the triangle
+ * inequality a search for distance {@code d} only descends into the children at distances
+ * {@code [n - d, n + d]} of a node at distance {@code n}. For near-duplicate distances this visits
+ * a small fraction of the photos, and adding a photo is a single walk from the root.
+ * <p>
+ * Photos with identical hashes share a node. The index is not thread-safe.
+ *
+ * @param <T> the type of the photos, for example the photo documents or their IDs
+ */
+public final class PerceptualHashIndex<T> {
+
+    private Node<T> root;
+    private int size;
+
+    /**
+     * Adds a photo to the index.
+     *
+     * @param hash  the perceptual hash of the photo
+     * @param photo the photo
+     */
+    public void add(PerceptualHash hash, T photo) {
+        Objects.requireNonNull(hash, "hash must not be null");
+        Objects.requireNonNull(photo, "photo must not be null");
+        size++;
+        if (root == null) {
+            root = new Node<>(hash.bits(), photo);
+            return;
+        }
+
+        Node<T> node = root;
+        while (true) {
+            int distance = Long.bitCount(node.bits ^ hash.bits());
+            if (distance == 0) {
+                node.photos.add(photo);
+                return;
+            }
+            Node<T> child = node.children[distance];
+            if (child == null) {
+                node.children[distance] = new Node<>(hash.bits(), photo);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Finds the photos whose hash is within a distance of a hash.
+     *
+     * @param hash        the hash to search for
+     * @param maxDistance the maximum Hamming distance, inclusive
+     * @return the matching photos, in no particular order
+     */
+    public List<T> search(PerceptualHash hash, int maxDistance) {
+        Objects.requireNonNull(hash, "hash must not be null");
+        List<T> matches = new ArrayList<>();
+        if (root == null) {
+            return matches;
+        }
+
+        Deque<Node<T>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Node<T> node = pending.pop();
+            int distance = Long.bitCount(node.bits ^ hash.bits());
+            if (distance <= maxDistance) {
+                matches.addAll(node.photos);
+            }
+            int from = Math.max(1, distance - maxDistance);
+            int to = Math.min(Long.SIZE, distance + maxDistance);
+            for (int i = from; i <= to; i++) {
+                Node<T> child = node.children[i];
+                if (child != null) {
+                    pending.push(child);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Gets the number of photos in the index.
+     *
+     * @return the number of photos
+     */
+    public int size() {
+        return size;
+    }
+
+    private static final class Node<T> {
+        private final long bits;
+        private final List<T> photos = new ArrayList<>(1);
+        @SuppressWarnings("unchecked")
+        private final Node<T>[] children = (Node<T>[]) new Node<?>[Long.SIZE + 1];
+
+        private Node(long bits, T photo) {
+            this.bits = bits;
+            this.photos.add(photo);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.belman.domain.order.photo;
+
+import com.belman.domain.order.OrderId;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository for the annotations of photo documents.
+ * <p>
+ * Annotations are stored separately from the photo documents, so loading an order does not load
+ * them. A photo document loads its own annotations the first time they are read, and reports
+ * load the annotations of a whole order with {@link #findByOrderId(OrderId)}.
+ */
+public interface PhotoAnnotationRepository {
+
+    /**
+     * Finds the annotations of a photo document.
+     *
+     * @param photoId the ID of the photo document
+     * @return the annotations, empty if the photo has none
+     */
+    List<PhotoAnnotation> findByPhotoId(PhotoId photoId);
+
+    /**
+     * Finds the annotations of all photo documents of an order.
+     *
+     * @param orderId the ID of the order
+     * @return the annotations by photo ID; photos without annotations are not included
+     */
+    Map<PhotoId, List<PhotoAnnotation>> findByOrderId(OrderId orderId);
+
+    /**
+     * Saves the annotations of a photo document, replacing any stored annotations.
+     *
+     * @param photo the photo document, which must be assigned to an order
+     */
+    void save(PhotoDocument photo);
+}
@@ -10,8 +10,11 @@ import com.belman.domain.user.UserReference;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Entity representing a photo document linked to an order in the BelSign system.
@@ -37,22 +40,40 @@ import java.util.Objects;
  */
 public class PhotoDocument extends BusinessComponent<PhotoId> {
 
+    /**
+     * Orders photos by the time they were taken, using the upload time for photos without a
+     * recorded capture time.
+     */
+    public static final Comparator<PhotoDocument> CAPTURE_ORDER = Comparator
+            .comparing(PhotoDocument::getCapturedAt)
+            .thenComparing(photo -> photo.getPhotoId().id());
+
     private final PhotoTemplate template;
     private final Photo imagePath;
-    private final List<PhotoAnnotation> annotations;
+    private List<PhotoAnnotation> annotations;
+    private Supplier<List<PhotoAnnotation>> annotationLoader;
     private final UserBusiness uploadedBy;
     private final Timestamp uploadedAt;
     private final PhotoId photoId;
     private final ReportType type;
+    private final ImageQualityScore qualityScore;
+    private final PerceptualHash perceptualHash;
+    private final ImageMetadata imageMetadata;
     private OrderId orderId;
     private ApprovalStatus status;
     private UserReference reviewedBy;
     private Timestamp reviewedAt;
     private String reviewComment;
     private Instant lastModifiedAt;
+    // Notified after every review transition, so the owning order can keep its derived state current
+    private transient Consumer<PhotoDocument> reviewListener;
 
     private PhotoDocument(Builder builder) {
-        this.annotations = new ArrayList<>(builder.annotations);
+        if (builder.annotationLoader != null) {
+            this.annotationLoader = builder.annotationLoader;
+        } else {
+            this.annotations = new ArrayList<>(builder.annotations);
+        }
         this.photoId = Objects.requireNonNull(builder.photoId, "photoId must not be null");
         this.template = Objects.requireNonNull(builder.template, "template must not be null");
         this.imagePath = Objects.requireNonNull(builder.imagePath, "imagePath must not be null");
@@ -60,6 +81,9 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         this.uploadedAt = Objects.requireNonNull(builder.uploadedAt, "uploadedAt must not be null");
         this.status = ApprovalStatus.PENDING;
         this.orderId = builder.orderId;
+        this.qualityScore = builder.qualityScore;
+        this.perceptualHash = builder.perceptualHash;
+        this.imageMetadata = builder.imageMetadata;
         this.type = ReportType.PHOTO_DOCUMENTATION;
     }
 
@@ -78,6 +102,17 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         updateLastModifiedAt();
     }
 
+    /**
+     * Sets the listener that is notified after this photo is approved or rejected. The order a
+     * photo is added to registers itself here, so reviews that go straight to the photo document
+     * still update the order.
+     *
+     * @param reviewListener the listener, or null to remove it
+     */
+    public void setReviewListener(Consumer<PhotoDocument> reviewListener) {
+        this.reviewListener = reviewListener;
+    }
+
     /**
      * Updates the last modified timestamp of this photo document.
      */
@@ -101,6 +136,7 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         this.reviewedBy = Objects.requireNonNull(reviewer, "reviewer must not be null");
         this.reviewedAt = Objects.requireNonNull(reviewedAt, "reviewedAt must not be null");
         updateLastModifiedAt();
+        notifyReviewed();
     }
 
     /**
@@ -121,6 +157,13 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         this.reviewedAt = Objects.requireNonNull(reviewedAt, "reviewedAt must not be null");
         this.reviewComment = reason; // reason can be null
         updateLastModifiedAt();
+        notifyReviewed();
+    }
+
+    private void notifyReviewed() {
+        if (reviewListener != null) {
+            reviewListener.accept(this);
+        }
     }
 
     /**
@@ -255,15 +298,80 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         return this.lastModifiedAt;
     }
 
+    /**
+     * Returns the image quality scores computed by the upload pre-screen.
+     *
+     * @return the quality scores, or null if the photo was not pre-screened
+     */
+    public ImageQualityScore getQualityScore() {
+        return qualityScore;
+    }
+
+    /**
+     * Returns the perceptual hash computed by the upload pre-screen, used to find near-duplicates.
+     *
+     * @return the perceptual hash, or null if the photo was not pre-screened
+     */
+    public PerceptualHash getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    /**
+     * Returns the dimensions, orientation and capture time read from the image header on upload.
+     *
+     * @return the image metadata, or null if the header could not be read
+     */
+    public ImageMetadata getImageMetadata() {
+        return imageMetadata;
+    }
+
+    /**
+     * Returns the time this photo was taken, falling back to the upload time when the image does
+     * not record a capture time.
+     *
+     * @return the capture time, or the upload time
+     */
+    public Instant getCapturedAt() {
+        return imageMetadata != null && imageMetadata.capturedAt() != null
+               ? imageMetadata.capturedAt()
+               : uploadedAt.toInstant();
+    }
+
     /**
      * Returns the list of annotations associated with this photo document.
+     * Annotations of a stored photo are loaded on the first call.
      *
      * @return an unmodifiable list of photo annotations
      */
     public List<PhotoAnnotation> getAnnotations() {
+        if (annotations == null) {
+            provideAnnotations(annotationLoader.get());
+        }
         return Collections.unmodifiableList(annotations);
     }
 
+    /**
+     * Checks if the annotations of this photo document are in memory.
+     *
+     * @return false if the annotations will be loaded by the next call to {@link #getAnnotations()}
+     */
+    public boolean areAnnotationsLoaded() {
+        return annotations != null;
+    }
+
+    /**
+     * Supplies the annotations of this photo document if they have not been loaded yet, so the
+     * annotations of many photos can be loaded at once. Loaded annotations are not replaced.
+     *
+     * @param loaded the stored annotations of this photo document
+     */
+    public void provideAnnotations(List<PhotoAnnotation> loaded) {
+        if (annotations == null) {
+            annotations = new ArrayList<>(Objects.requireNonNull(loaded, "loaded must not be null"));
+            annotationLoader = null;
+        }
+    }
+
     /**
      * Represents the approval status of a photo document in the quality control process.
      * <p>
@@ -304,7 +412,11 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
         private UserBusiness uploadedBy;
         private Timestamp uploadedAt;
         private OrderId orderId;
+        private ImageQualityScore qualityScore;
+        private PerceptualHash perceptualHash;
+        private ImageMetadata imageMetadata;
         private List<PhotoAnnotation> annotations = new ArrayList<>();
+        private Supplier<List<PhotoAnnotation>> annotationLoader;
 
         private Builder() {
         }
@@ -319,6 +431,15 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
             return this;
         }
 
+        /**
+         * Defers the annotations to a loader that is called when they are first read.
+         * Annotations added to the builder are ignored when a loader is set.
+         */
+        public Builder annotationLoader(Supplier<List<PhotoAnnotation>> annotationLoader) {
+            this.annotationLoader = annotationLoader;
+            return this;
+        }
+
         public Builder photoId(PhotoId photoId) {
             this.photoId = photoId;
             return this;
@@ -349,6 +470,21 @@ public class PhotoDocument extends BusinessComponent<PhotoId> {
             return this;
         }
 
+        public Builder qualityScore(ImageQualityScore qualityScore) {
+            this.qualityScore = qualityScore;
+            return this;
+        }
+
+        public Builder perceptualHash(PerceptualHash perceptualHash) {
+            this.perceptualHash = perceptualHash;
+            return this;
+        }
+
+        public Builder imageMetadata(ImageMetadata imageMetadata) {
+            this.imageMetadata = imageMetadata;
+            return this;
+        }
+
         public PhotoDocument build() {
             return new PhotoDocument(this);
         }
@@ -4,6 +4,7 @@ import com.belman.domain.core.Repository;
 import com.belman.domain.order.OrderId;
 import com.belman.domain.user.ApprovalStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,15 @@ public interface PhotoRepository extends Repository<PhotoDocument, PhotoId> {
      */
     Optional<PhotoDocument> findById(PhotoId id);
 
+    /**
+     * Finds the photo documents with the given IDs in one lookup.
+     *
+     * @param ids the photo IDs to search for
+     * @return the photo documents that were found, in no particular order; IDs that are not found
+     *         are skipped
+     */
+    List<PhotoDocument> findByIds(Collection<PhotoId> ids);
+
     /**
      * Finds all photo documents for a specific order.
      *
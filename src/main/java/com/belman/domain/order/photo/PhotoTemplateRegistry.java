@@ -0,0 +1,97 @@
+package com.belman.domain.order.photo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Assigns every photo template a dense ordinal, so sets of templates can be stored as bitsets
+ * (see {@link TemplateCoverage}).
+ * <p>
+ * Templates are identified by name. The predefined templates get the lowest ordinals in the order
+ * they are declared in {@link PhotoTemplate}; other templates get the next free ordinal the first
+ * time they are seen. Ordinals are only stable within one run and must not be persisted.
+ */
+public final class PhotoTemplateRegistry {
+
+    private static final Map<String, Integer> ORDINALS = new ConcurrentHashMap<>();
+    private static final List<PhotoTemplate> TEMPLATES = new CopyOnWriteArrayList<>();
+
+    private static final List<PhotoTemplate> PREDEFINED = List.of(
+            PhotoTemplate.TOP_VIEW_OF_JOINT,
+            PhotoTemplate.SIDE_VIEW_OF_WELD,
+            PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY,
+            PhotoTemplate.BACK_VIEW_OF_ASSEMBLY,
+            PhotoTemplate.LEFT_VIEW_OF_ASSEMBLY,
+            PhotoTemplate.RIGHT_VIEW_OF_ASSEMBLY,
+            PhotoTemplate.BOTTOM_VIEW_OF_ASSEMBLY,
+            PhotoTemplate.CLOSE_UP_OF_WELD,
+            PhotoTemplate.ANGLED_VIEW_OF_JOINT,
+            PhotoTemplate.OVERVIEW_OF_ASSEMBLY,
+            PhotoTemplate.CUSTOM);
+
+    static {
+        PREDEFINED.forEach(PhotoTemplateRegistry::ordinal);
+    }
+
+    private PhotoTemplateRegistry() {
+    }
+
+    /**
+     * Forgets every template that is not predefined, so their ordinals can be handed out again.
+     * The predefined templates keep their ordinals. Coverage that contains a forgotten template
+     * must not be used afterwards, so this is only meant for tests that register many templates.
+     */
+    public static void reset() {
+        synchronized (TEMPLATES) {
+            ORDINALS.clear();
+            TEMPLATES.clear();
+            PREDEFINED.forEach(PhotoTemplateRegistry::ordinal);
+        }
+    }
+
+    /**
+     * Gets the ordinal of a template, registering the template if it has not been seen before.
+     *
+     * @param template the template
+     * @return the ordinal, starting at 0
+     */
+    public static int ordinal(PhotoTemplate template) {
+        Objects.requireNonNull(template, "template must not be null");
+        Integer ordinal = ORDINALS.get(template.name());
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (TEMPLATES) {
+            return ORDINALS.computeIfAbsent(template.name(), name -> {
+                TEMPLATES.add(template);
+                return TEMPLATES.size() - 1;
+            });
+        }
+    }
+
+    /**
+     * Gets the template registered under an ordinal.
+     *
+     * @param ordinal the ordinal
+     * @return the first template registered with that ordinal's name
+     * @throws IndexOutOfBoundsException if no template has the ordinal
+     */
+    public static PhotoTemplate template(int ordinal) {
+        return TEMPLATES.get(ordinal);
+    }
+
+    /**
+     * Gets the template registered under a name.
+     *
+     * @param name the template name
+     * @return the first template registered with that name, or empty if none has been seen
+     */
+    public static Optional<PhotoTemplate> findByName(String name) {
+        Integer ordinal = ORDINALS.get(Objects.requireNonNull(name, "name must not be null"));
+        return ordinal != null ? Optional.of(TEMPLATES.get(ordinal)) : Optional.empty();
+    }
+}
@@ -0,0 +1,167 @@
+package com.belman.domain.order.photo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * An immutable set of photo templates, stored as a bitset over the ordinals of the
+ * {@link PhotoTemplateRegistry}.
+ * <p>
+ * Comparing a required set against a provided set is a bitwise AND-NOT and a population count per
+ * 64 templates, so checking whether an order covers its required templates does not look at the
+ * photos at all.
+ */
+public final class TemplateCoverage {
+
+    /**
+     * The coverage without any templates.
+     */
+    public static final TemplateCoverage EMPTY = new TemplateCoverage(new long[0]);
+
+    private final long[] words;
+
+    private TemplateCoverage(long[] words) {
+        this.words = words;
+    }
+
+    /**
+     * Creates the coverage of the given templates.
+     *
+     * @param templates the templates
+     * @return the coverage
+     */
+    public static TemplateCoverage of(Collection<PhotoTemplate> templates) {
+        TemplateCoverage coverage = EMPTY;
+        for (PhotoTemplate template : templates) {
+            coverage = coverage.with(template);
+        }
+        return coverage;
+    }
+
+    /**
+     * Returns this coverage with a template added.
+     *
+     * @param template the template to add
+     * @return the new coverage, or this coverage if it already contains the template
+     */
+    public TemplateCoverage with(PhotoTemplate template) {
+        int ordinal = PhotoTemplateRegistry.ordinal(template);
+        if (contains(ordinal)) {
+            return this;
+        }
+        long[] copy = Arrays.copyOf(words, Math.max(words.length, (ordinal >> 6) + 1));
+        copy[ordinal >> 6] |= 1L << ordinal;
+        return new TemplateCoverage(copy);
+    }
+
+    /**
+     * Checks if this coverage contains a template.
+     *
+     * @param template the template
+     * @return true if the template is contained
+     */
+    public boolean contains(PhotoTemplate template) {
+        return contains(PhotoTemplateRegistry.ordinal(template));
+    }
+
+    /**
+     * Gets the number of templates in this coverage.
+     *
+     * @return the number of templates
+     */
+    public int size() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Counts the templates of this coverage that are missing from another coverage.
+     *
+     * @param provided the provided templates
+     * @return the number of templates in this coverage but not in the provided one
+     */
+    public int countMissingFrom(TemplateCoverage provided) {
+        int count = 0;
+        for (int i = 0; i < words.length; i++) {
+            count += Long.bitCount(words[i] & ~provided.word(i));
+        }
+        return count;
+    }
+
+    /**
+     * Checks if another coverage contains all templates of this coverage.
+     *
+     * @param provided the provided templates
+     * @return true if no template of this coverage is missing from the provided one
+     */
+    public boolean isCoveredBy(TemplateCoverage provided) {
+        for (int i = 0; i < words.length; i++) {
+            if ((words[i] & ~provided.word(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lists the templates of this coverage that are missing from another coverage.
+     *
+     * @param provided the provided templates
+     * @return the missing templates, in ordinal order
+     */
+    public List<PhotoTemplate> missingFrom(TemplateCoverage provided) {
+        List<PhotoTemplate> missing = new ArrayList<>();
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i] & ~provided.word(i);
+            while (word != 0) {
+                missing.add(PhotoTemplateRegistry.template((i << 6) + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+        return missing;
+    }
+
+    private boolean contains(int ordinal) {
+        return (word(ordinal >> 6) & (1L << ordinal)) != 0;
+    }
+
+    private long word(int index) {
+        return index < words.length ? words[index] : 0L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TemplateCoverage other)) {
+            return false;
+        }
+        int length = Math.max(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if (word(i) != other.word(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.hashCode(Arrays.copyOf(words, length));
+    }
+
+    @Override
+    public String toString() {
+        return "TemplateCoverage" + missingFrom(EMPTY).stream().map(PhotoTemplate::name).toList();
+    }
+}
@@ -0,0 +1,86 @@
+package com.belman.domain.order.photo.events;
+
+import com.belman.domain.audit.event.BaseAuditEvent;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.PhotoId;
+
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Audit event that is published when a photo document is uploaded and added to an order.
+ * The photo document starts in the pending state, so subscribers such as the QA review
+ * queue can add it to the photos awaiting review.
+ */
+public final class PhotoUploadedEvent extends BaseAuditEvent {
+    private final PhotoId photoId;
+    private final OrderId orderId;
+    private final Instant uploadedAt;
+    private final ImageQualityScore qualityScore;
+
+    /**
+     * Creates a new PhotoUploadedEvent for a photo without quality scores.
+     *
+     * @param photoId    the ID of the photo document that was uploaded
+     * @param orderId    the ID of the order the photo document was added to
+     * @param uploadedAt the time the photo document was uploaded
+     * @throws NullPointerException if any parameter is null
+     */
+    public PhotoUploadedEvent(PhotoId photoId, OrderId orderId, Instant uploadedAt) {
+        this(photoId, orderId, uploadedAt, null);
+    }
+
+    /**
+     * Creates a new PhotoUploadedEvent.
+     *
+     * @param photoId      the ID of the photo document that was uploaded
+     * @param orderId      the ID of the order the photo document was added to
+     * @param uploadedAt   the time the photo document was uploaded
+     * @param qualityScore the scores of the upload pre-screen, or null if the photo was not scored
+     * @throws NullPointerException if photoId, orderId or uploadedAt is null
+     */
+    public PhotoUploadedEvent(PhotoId photoId, OrderId orderId, Instant uploadedAt, ImageQualityScore qualityScore) {
+        super();
+        this.photoId = Objects.requireNonNull(photoId, "photoId must not be null");
+        this.orderId = Objects.requireNonNull(orderId, "orderId must not be null");
+        this.uploadedAt = Objects.requireNonNull(uploadedAt, "uploadedAt must not be null");
+        this.qualityScore = qualityScore;
+    }
+
+    /**
+     * Gets the ID of the photo document that was uploaded.
+     *
+     * @return the photo ID
+     */
+    public PhotoId getPhotoId() {
+        return photoId;
+    }
+
+    /**
+     * Gets the ID of the order the photo document was added to.
+     *
+     * @return the order ID
+     */
+    public OrderId getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Gets the time the photo document was uploaded.
+     *
+     * @return the upload time
+     */
+    public Instant getUploadedAt() {
+        return uploadedAt;
+    }
+
+    /**
+     * Gets the scores of the upload pre-screen.
+     *
+     * @return the quality scores, or null if the photo was not scored
+     */
+    public ImageQualityScore getQualityScore() {
+        return qualityScore;
+    }
+}
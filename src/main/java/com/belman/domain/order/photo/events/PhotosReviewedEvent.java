@@ -0,0 +1,89 @@
+package com.belman.domain.order.photo.events;
+
+import com.belman.domain.audit.event.BaseAuditEvent;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.user.UserId;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Audit event that is published once when several photo documents of the same order are
+ * reviewed together, instead of one {@link PhotoApprovedEvent} or {@link PhotoRejectedEvent}
+ * per photo. Subscribers that react to order progress only need to handle one event per
+ * order and bulk review.
+ */
+public final class PhotosReviewedEvent extends BaseAuditEvent {
+    private final OrderId orderId;
+    private final List<PhotoId> photoIds;
+    private final PhotoDocument.ApprovalStatus outcome;
+    private final UserId reviewerId;
+    private final String reason;
+
+    /**
+     * Creates a new PhotosReviewedEvent.
+     *
+     * @param orderId    the ID of the order the photo documents belong to
+     * @param photoIds   the IDs of the photo documents that were reviewed
+     * @param outcome    the status the photo documents were moved to
+     * @param reviewerId the ID of the user who reviewed the photo documents
+     * @param reason     the rejection reason, or null if the photo documents were approved
+     * @throws NullPointerException if any parameter other than reason is null
+     */
+    public PhotosReviewedEvent(OrderId orderId, List<PhotoId> photoIds, PhotoDocument.ApprovalStatus outcome,
+                               UserId reviewerId, String reason) {
+        super();
+        this.orderId = Objects.requireNonNull(orderId, "orderId must not be null");
+        this.photoIds = List.copyOf(Objects.requireNonNull(photoIds, "photoIds must not be null"));
+        this.outcome = Objects.requireNonNull(outcome, "outcome must not be null");
+        this.reviewerId = Objects.requireNonNull(reviewerId, "reviewerId must not be null");
+        this.reason = reason;
+    }
+
+    /**
+     * Gets the ID of the order the photo documents belong to.
+     *
+     * @return the order ID
+     */
+    public OrderId getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Gets the IDs of the photo documents that were reviewed.
+     *
+     * @return an unmodifiable list of photo IDs
+     */
+    public List<PhotoId> getPhotoIds() {
+        return photoIds;
+    }
+
+    /**
+     * Gets the status the photo documents were moved to.
+     *
+     * @return APPROVED or REJECTED
+     */
+    public PhotoDocument.ApprovalStatus getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Gets the ID of the user who reviewed the photo documents.
+     *
+     * @return the reviewer ID
+     */
+    public UserId getReviewerId() {
+        return reviewerId;
+    }
+
+    /**
+     * Gets the rejection reason.
+     *
+     * @return the reason, or null if the photo documents were approved
+     */
+    public String getReason() {
+        return reason;
+    }
+}
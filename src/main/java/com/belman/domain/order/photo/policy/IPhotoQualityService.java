@@ -1,8 +1,11 @@
 package com.belman.domain.order.photo.policy;
 
 import com.belman.domain.order.ProductDescription;
+import com.belman.domain.order.photo.ImageQualityScore;
 import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.TemplateCoverage;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -18,6 +21,17 @@ public interface IPhotoQualityService {
      */
     Set<PhotoTemplate> getRequiredTemplates(ProductDescription productDescription);
 
+    /**
+     * Gets the required photo templates for a given product as a bitset.
+     * Implementations with fixed requirements should return a precompiled coverage.
+     *
+     * @param productDescription the product to get photo requirements for
+     * @return the coverage of the required photo templates
+     */
+    default TemplateCoverage getRequiredCoverage(ProductDescription productDescription) {
+        return TemplateCoverage.of(getRequiredTemplates(productDescription));
+    }
+
     /**
      * Gets the minimum number of photos required for a given product.
      *
@@ -33,4 +47,25 @@ public interface IPhotoQualityService {
      * @return true if annotations are required, false otherwise
      */
     boolean requiresAnnotations(ProductDescription productDescription);
+
+    /**
+     * Gets the image quality problems indicated by the pre-screen scores of a photo.
+     * Implementations without image quality rules report no problems.
+     *
+     * @param score the pre-screen scores of the photo
+     * @return descriptions of the problems, empty if the photo looks usable
+     */
+    default List<String> getImageQualityIssues(ImageQualityScore score) {
+        return List.of();
+    }
+
+    /**
+     * Determines if a photo is likely to be rejected by QA, based on its pre-screen scores.
+     *
+     * @param score the pre-screen scores of the photo
+     * @return true if the photo should be flagged for retaking
+     */
+    default boolean isLikelyUnusable(ImageQualityScore score) {
+        return !getImageQualityIssues(score).isEmpty();
+    }
 }
@@ -1,6 +1,7 @@
 package com.belman.domain.order.photo.policy;
 
 import com.belman.domain.order.ProductDescription;
+import com.belman.domain.order.photo.ImageQualityScore;
 import com.belman.domain.order.photo.PhotoTemplate;
 
 import java.util.*;
@@ -14,6 +15,16 @@ import java.util.*;
  */
 public class PhotoQualityPolicy implements IPhotoQualityService {
 
+    // Variance of the Laplacian below which a photo is considered blurred
+    private static final double MINIMUM_SHARPNESS = 100.0;
+
+    // Mean luminance range outside which a photo is considered under- or overexposed
+    private static final double MINIMUM_MEAN_LUMINANCE = 40.0;
+    private static final double MAXIMUM_MEAN_LUMINANCE = 220.0;
+
+    // Fraction of clipped pixels above which details are lost in shadows or highlights
+    private static final double MAXIMUM_CLIPPING_RATIO = 0.25;
+
     // Map of product categories to required photo templates
     private final Map<String, Set<PhotoTemplate>> requiredTemplates;
 
@@ -135,6 +146,32 @@ public class PhotoQualityPolicy implements IPhotoQualityService {
         return annotationRequirements.getOrDefault(category, false);
     }
 
+    /**
+     * Gets the image quality problems indicated by the pre-screen scores of a photo.
+     * Photos with problems are flagged so they can be retaken before QA reviews them.
+     *
+     * @param score the pre-screen scores of the photo
+     * @return descriptions of the problems, empty if the photo looks usable
+     */
+    @Override
+    public List<String> getImageQualityIssues(ImageQualityScore score) {
+        Objects.requireNonNull(score, "score must not be null");
+
+        List<String> issues = new ArrayList<>();
+        if (score.sharpness() < MINIMUM_SHARPNESS) {
+            issues.add("Photo is blurred");
+        }
+        if (score.meanLuminance() < MINIMUM_MEAN_LUMINANCE
+                || score.darkClippingRatio() > MAXIMUM_CLIPPING_RATIO) {
+            issues.add("Photo is underexposed");
+        }
+        if (score.meanLuminance() > MAXIMUM_MEAN_LUMINANCE
+                || score.brightClippingRatio() > MAXIMUM_CLIPPING_RATIO) {
+            issues.add("Photo is overexposed");
+        }
+        return issues;
+    }
+
     /**
      * Determines the product category based on product description.
      * This method applies business rules to categorize products.
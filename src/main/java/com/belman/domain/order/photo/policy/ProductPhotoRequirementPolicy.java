@@ -2,6 +2,7 @@ package com.belman.domain.order.photo.policy;
 
 import com.belman.domain.order.ProductDescription;
 import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.TemplateCoverage;
 
 import java.util.*;
 
@@ -17,6 +18,9 @@ public class ProductPhotoRequirementPolicy implements IPhotoQualityService {
     // Map of product categories to required photo templates
     private static final Map<String, Set<PhotoTemplate>> REQUIRED_TEMPLATES;
 
+    // Required photo templates by product category, compiled into bitsets
+    private static final Map<String, TemplateCoverage> REQUIRED_COVERAGE;
+
     // Map of product categories to minimum number of photos required
     private static final Map<String, Integer> MINIMUM_PHOTO_COUNTS;
 
@@ -53,6 +57,10 @@ public class ProductPhotoRequirementPolicy implements IPhotoQualityService {
         ));
         REQUIRED_TEMPLATES = Collections.unmodifiableMap(templateMap);
 
+        Map<String, TemplateCoverage> coverageMap = new HashMap<>();
+        templateMap.forEach((category, templates) -> coverageMap.put(category, TemplateCoverage.of(templates)));
+        REQUIRED_COVERAGE = Collections.unmodifiableMap(coverageMap);
+
         // Initialize minimum photo counts by product category
         Map<String, Integer> countMap = new HashMap<>();
         countMap.put("STANDARD", 4);
@@ -84,6 +92,20 @@ public class ProductPhotoRequirementPolicy implements IPhotoQualityService {
         return REQUIRED_TEMPLATES.getOrDefault(category, Collections.emptySet());
     }
 
+    /**
+     * Gets the precompiled coverage of the required photo templates for a given product.
+     *
+     * @param productDescription the product to get photo requirements for
+     * @return the coverage of the required photo templates
+     */
+    @Override
+    public TemplateCoverage getRequiredCoverage(ProductDescription productDescription) {
+        Objects.requireNonNull(productDescription, "productDescription must not be null");
+
+        String category = determineProductCategory(productDescription);
+        return REQUIRED_COVERAGE.getOrDefault(category, TemplateCoverage.EMPTY);
+    }
+
     /**
      * Gets the minimum number of photos required for a given product.
      *
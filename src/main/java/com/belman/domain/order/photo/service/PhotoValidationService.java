@@ -6,14 +6,12 @@ import com.belman.domain.order.OrderId;
 import com.belman.domain.order.ProductDescription;
 import com.belman.domain.order.photo.PhotoDocument;
 import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.TemplateCoverage;
 import com.belman.domain.order.photo.policy.IPhotoQualityService;
 import com.belman.domain.services.LoggerFactory;
 
-import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Business service responsible for validating photos according to business rules.
@@ -34,7 +32,7 @@ public class PhotoValidationService extends BusinessService {
      * @param loggerFactory       the factory for creating loggers
      */
     public PhotoValidationService(IPhotoQualityService photoQualityService, LoggerFactory loggerFactory) {
-        super();
+        super(loggerFactory);
         this.photoQualityService = Objects.requireNonNull(photoQualityService, "photoQualityService must not be null");
         this.loggerFactory = Objects.requireNonNull(loggerFactory, "loggerFactory must not be null");
     }
@@ -68,20 +66,33 @@ public class PhotoValidationService extends BusinessService {
         Objects.requireNonNull(photos, "photos must not be null");
         Objects.requireNonNull(productDescription, "productDescription must not be null");
 
-        ValidationResult result = new ValidationResult();
-        Set<PhotoTemplate> requiredTemplates = photoQualityService.getRequiredTemplates(productDescription);
-
         // Extract all templates from the provided photos
-        Set<PhotoTemplate> providedTemplates = photos.stream()
-                .map(PhotoDocument::getTemplate)
-                .collect(Collectors.toSet());
+        TemplateCoverage providedCoverage = TemplateCoverage.EMPTY;
+        for (PhotoDocument photo : photos) {
+            providedCoverage = providedCoverage.with(photo.getTemplate());
+        }
 
-        // Find missing templates
-        Set<PhotoTemplate> missingTemplates = new HashSet<>(requiredTemplates);
-        missingTemplates.removeAll(providedTemplates);
+        return validateRequiredTemplates(providedCoverage, productDescription);
+    }
+
+    /**
+     * Validates that the provided templates include all templates required for the product.
+     *
+     * @param providedCoverage   the templates of the provided photos
+     * @param productDescription the product description determining the requirements
+     * @return a result containing an error for each missing template
+     */
+    public ValidationResult validateRequiredTemplates(TemplateCoverage providedCoverage,
+                                                      ProductDescription productDescription) {
+        Objects.requireNonNull(providedCoverage, "providedCoverage must not be null");
+        Objects.requireNonNull(productDescription, "productDescription must not be null");
+
+        ValidationResult result = new ValidationResult();
+        TemplateCoverage requiredCoverage = photoQualityService.getRequiredCoverage(productDescription);
 
-        if (!missingTemplates.isEmpty()) {
-            for (PhotoTemplate missingTemplate : missingTemplates) {
+        // Find missing templates
+        if (!requiredCoverage.isCoveredBy(providedCoverage)) {
+            for (PhotoTemplate missingTemplate : requiredCoverage.missingFrom(providedCoverage)) {
                 result.addError(String.format("Missing required photo for template: %s", missingTemplate));
             }
         }
@@ -28,7 +28,7 @@ public class PhotoApprovalService extends BusinessService {
      * @param loggerFactory  the logger factory to use for creating loggers
      */
     public PhotoApprovalService(PhotoEventPublisher eventPublisher, LoggerFactory loggerFactory) {
-        super();
+        super(loggerFactory);
         this.eventPublisher = Objects.requireNonNull(eventPublisher, "Event publisher must not be null");
         this.loggerFactory = Objects.requireNonNull(loggerFactory, "Logger factory must not be null");
     }
@@ -27,7 +27,7 @@ public class OrderBusinessService extends BusinessService {
      * @param loggerFactory the factory for creating loggers
      */
     public OrderBusinessService(LoggerFactory loggerFactory) {
-        super();
+        super(loggerFactory);
         this.loggerFactory = Objects.requireNonNull(loggerFactory, "loggerFactory must not be null");
     }
 
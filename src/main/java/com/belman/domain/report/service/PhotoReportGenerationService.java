@@ -5,6 +5,7 @@ import com.belman.domain.common.validation.ValidationResult;
 import com.belman.domain.core.BusinessService;
 import com.belman.domain.order.OrderBusiness;
 import com.belman.domain.order.ProductDescription;
+import com.belman.domain.order.photo.PhotoAnnotationRepository;
 import com.belman.domain.order.photo.PhotoDocument;
 import com.belman.domain.order.photo.policy.IPhotoQualityService;
 import com.belman.domain.order.photo.service.PhotoValidationService;
@@ -32,6 +33,7 @@ public class PhotoReportGenerationService extends BusinessService {
     private final PhotoValidationService photoValidationService;
     private final LoggerFactory loggerFactory;
     private final IPhotoQualityService photoQualityPolicy;
+    private final PhotoAnnotationRepository photoAnnotationRepository;
 
     /**
      * Creates a new PhotoReportGenerationService with the specified dependencies.
@@ -44,11 +46,30 @@ public class PhotoReportGenerationService extends BusinessService {
             PhotoValidationService photoValidationService,
             LoggerFactory loggerFactory,
             IPhotoQualityService photoQualityPolicy) {
-        super();
+        this(photoValidationService, loggerFactory, photoQualityPolicy, null);
+    }
+
+    /**
+     * Creates a new PhotoReportGenerationService that loads the annotations of all photos of an
+     * order in one batch before generating its report.
+     *
+     * @param photoValidationService    the service for validating photos
+     * @param loggerFactory             the factory for creating loggers
+     * @param photoQualityPolicy        the policy for photo quality requirements
+     * @param photoAnnotationRepository the repository of photo annotations, or null if the
+     *                                  annotations of orders are always in memory
+     */
+    public PhotoReportGenerationService(
+            PhotoValidationService photoValidationService,
+            LoggerFactory loggerFactory,
+            IPhotoQualityService photoQualityPolicy,
+            PhotoAnnotationRepository photoAnnotationRepository) {
+        super(loggerFactory);
         this.photoValidationService = Objects.requireNonNull(
                 photoValidationService, "photoValidationService must not be null");
         this.loggerFactory = Objects.requireNonNull(loggerFactory, "loggerFactory must not be null");
         this.photoQualityPolicy = Objects.requireNonNull(photoQualityPolicy, "photoQualityPolicy must not be null");
+        this.photoAnnotationRepository = photoAnnotationRepository;
     }
 
     @Override
@@ -67,6 +88,7 @@ public class PhotoReportGenerationService extends BusinessService {
         Objects.requireNonNull(order, "order must not be null");
         Objects.requireNonNull(requester, "requester must not be null");
 
+        preloadAnnotations(order);
         List<PhotoDocument> approvedPhotos = order.getApprovedPhotos();
 
         // Validate that we have enough approved photos
@@ -109,6 +131,7 @@ public class PhotoReportGenerationService extends BusinessService {
     public ValidationResult validateReportReadiness(OrderBusiness order) {
         Objects.requireNonNull(order, "order must not be null");
 
+        preloadAnnotations(order);
         List<PhotoDocument> approvedPhotos = order.getApprovedPhotos();
 
         // If no photos are approved, the order is not ready
@@ -116,11 +139,43 @@ public class PhotoReportGenerationService extends BusinessService {
             return ValidationResult.failure("No approved photos available for report generation");
         }
 
-        // Validate the approved photos against the product requirements
-        return photoValidationService.validateAll(
-                approvedPhotos,
-                order.getId(),
-                order.getProductDescription());
+        // Validate the approved photos against the product requirements. The photos of an order always
+        // belong to it, and the required templates are checked against the live approved coverage.
+        ProductDescription productDescription = Objects.requireNonNull(
+                order.getProductDescription(), "productDescription must not be null");
+        ValidationResult result = new ValidationResult();
+        result.combine(photoValidationService.validateRequiredTemplates(
+                order.getApprovedTemplateCoverage(), productDescription));
+        result.combine(photoValidationService.validatePhotoQuality(approvedPhotos, productDescription));
+        return result;
+    }
+
+    /**
+     * Counts the required photo templates that no approved photo of the order covers yet.
+     * This compares the order's live approved template coverage with the precompiled requirements,
+     * without looking at the photos, so it is cheap enough to show on every order tile.
+     *
+     * @param order the order to check
+     * @return the number of missing templates, or 0 if the order has no product description
+     */
+    public int countMissingTemplates(OrderBusiness order) {
+        Objects.requireNonNull(order, "order must not be null");
+
+        if (order.getProductDescription() == null) {
+            return 0;
+        }
+        return photoQualityPolicy.getRequiredCoverage(order.getProductDescription())
+                .countMissingFrom(order.getApprovedTemplateCoverage());
+    }
+
+    /**
+     * Loads all annotations of the order with one query, instead of one query per photo when the
+     * photo quality checks read them.
+     */
+    private void preloadAnnotations(OrderBusiness order) {
+        if (photoAnnotationRepository != null && order.hasUnloadedAnnotations()) {
+            order.preloadAnnotations(photoAnnotationRepository.findByOrderId(order.getId()));
+        }
     }
 
     public ValidationResult validatePhotoQuality(List<PhotoDocument> photos, ProductDescription productDescription) {
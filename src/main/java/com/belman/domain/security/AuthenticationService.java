@@ -3,6 +3,7 @@ package com.belman.domain.security;
 import com.belman.domain.user.UserBusiness;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for authenticating users.
@@ -17,6 +18,19 @@ public interface AuthenticationService {
      */
     Optional<UserBusiness> authenticate(String username, String password);
 
+    /**
+     * Authenticates a user with the given username and password without blocking the caller.
+     * Implementations should run the password verification on a dedicated thread so that
+     * UI threads are never blocked by the hashing work.
+     *
+     * @param username the username
+     * @param password the password
+     * @return a CompletableFuture that completes with the authenticated User, or empty if authentication failed
+     */
+    default CompletableFuture<Optional<UserBusiness>> authenticateAsync(String username, String password) {
+        return CompletableFuture.supplyAsync(() -> authenticate(username, password));
+    }
+
     /**
      * Gets the currently authenticated user.
      *
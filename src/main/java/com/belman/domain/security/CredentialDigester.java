@@ -0,0 +1,30 @@
+package com.belman.domain.security;
+
+/**
+ * Interface for digesting short login credentials such as PIN codes and QR badge codes.
+ * <p>
+ * Unlike passwords, these credentials are used to look a user up rather than to verify a
+ * known user, so they need a deterministic digest that can be stored in an indexed column.
+ * Implementations should use a keyed digest, so the stored values cannot be reversed by
+ * brute-forcing the small PIN space without the key.
+ */
+public interface CredentialDigester {
+
+    /**
+     * Digests a PIN code.
+     *
+     * @param pinCode the plain PIN code
+     * @return the digest, as a lowercase hexadecimal string
+     * @throws IllegalArgumentException if the PIN code is null or blank
+     */
+    String digestPinCode(String pinCode);
+
+    /**
+     * Digests the value read from a QR badge.
+     *
+     * @param qrCode the scanned QR code value
+     * @return the digest, as a lowercase hexadecimal string
+     * @throws IllegalArgumentException if the QR code is null or blank
+     */
+    String digestQrCode(String qrCode);
+}
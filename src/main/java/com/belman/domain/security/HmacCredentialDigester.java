@@ -0,0 +1,108 @@
+package com.belman.domain.security;
+
+import com.belman.common.config.SecureConfigStorage;
+import com.belman.common.logging.EmojiLogger;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Implementation of the CredentialDigester interface using HMAC-SHA256.
+ * <p>
+ * PIN codes and QR codes are digested with a secret key, so the digests can be stored in
+ * indexed columns and looked up with a single equality probe. A purpose prefix is mixed into
+ * every digest, so a PIN code never produces the same digest as an identical QR code.
+ * <p>
+ * All devices that share a database must use the same key, otherwise they cannot find each
+ * other's credentials.
+ */
+public class HmacCredentialDigester implements CredentialDigester {
+
+    /**
+     * The secure configuration key holding the Base64-encoded HMAC key.
+     */
+    public static final String CREDENTIAL_KEY_CONFIG = "auth.credentialDigestKey";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_LENGTH = 16;
+    private static final int GENERATED_KEY_LENGTH = 32;
+    private static final byte[] PIN_PURPOSE = "pin:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] QR_PURPOSE = "qr:".getBytes(StandardCharsets.UTF_8);
+
+    private static final EmojiLogger LOGGER = EmojiLogger.getLogger(HmacCredentialDigester.class);
+
+    private final SecretKeySpec key;
+    // Mac instances are not thread-safe, and creating one per lookup is comparatively expensive
+    private final ThreadLocal<Mac> macs;
+
+    /**
+     * Creates a new HmacCredentialDigester with the specified key.
+     *
+     * @param key the HMAC key
+     * @throws IllegalArgumentException if the key is null or shorter than 16 bytes
+     */
+    public HmacCredentialDigester(byte[] key) {
+        if (key == null || key.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("Credential key must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+        this.key = new SecretKeySpec(Arrays.copyOf(key, key.length), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::createMac);
+        // Fail fast if HMAC-SHA256 is unavailable rather than on the first login
+        createMac();
+    }
+
+    /**
+     * Creates a HmacCredentialDigester using the key stored in secure configuration.
+     * If no key has been configured yet, a random key is generated and stored.
+     *
+     * @return the HmacCredentialDigester
+     */
+    public static HmacCredentialDigester fromSecureConfig() {
+        SecureConfigStorage storage = SecureConfigStorage.getInstance();
+        String encodedKey = storage.getValue(CREDENTIAL_KEY_CONFIG);
+        if (encodedKey == null || encodedKey.isBlank()) {
+            byte[] generated = new byte[GENERATED_KEY_LENGTH];
+            new SecureRandom().nextBytes(generated);
+            encodedKey = Base64.getEncoder().encodeToString(generated);
+            storage.storeValue(CREDENTIAL_KEY_CONFIG, encodedKey);
+            LOGGER.warn("No credential digest key configured, generated a new one. " +
+                        "Devices sharing the database must be configured with the same {}", CREDENTIAL_KEY_CONFIG);
+        }
+        return new HmacCredentialDigester(Base64.getDecoder().decode(encodedKey));
+    }
+
+    @Override
+    public String digestPinCode(String pinCode) {
+        return digest(PIN_PURPOSE, pinCode, "PIN code");
+    }
+
+    @Override
+    public String digestQrCode(String qrCode) {
+        return digest(QR_PURPOSE, qrCode, "QR code");
+    }
+
+    private String digest(byte[] purpose, String value, String description) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(description + " must not be null or blank");
+        }
+        Mac mac = macs.get();
+        mac.update(purpose);
+        return HexFormat.of().formatHex(mac.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
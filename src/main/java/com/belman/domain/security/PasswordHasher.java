@@ -24,4 +24,15 @@ public interface PasswordHasher {
      * @return true if the password matches, false otherwise
      */
     boolean verify(String plainTextPassword, String hashedPassword);
-}
\ No newline at end of file
+
+    /**
+     * Checks if a hashed password was produced with different parameters than this hasher
+     * currently uses, and should therefore be re-hashed on the next successful login.
+     *
+     * @param hashedPassword the hashed password to inspect
+     * @return true if the password should be re-hashed, false otherwise
+     */
+    default boolean needsRehash(String hashedPassword) {
+        return false;
+    }
+}
@@ -6,6 +6,7 @@ import com.belman.domain.report.ReportAggregate;
 
 import java.io.File;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for sending emails with QC reports to customers.
@@ -19,7 +20,7 @@ public interface EmailService {
      * @param subject         the email subject
      * @param message         the email message
      * @param attachments     optional file attachments (e.g., PDF reportAggregate)
-     * @return true if the email was sent successfully, false otherwise
+     * @return true if the email was sent or queued for sending, false otherwise
      */
     boolean sendReport(ReportAggregate reportAggregate, List<EmailAddress> recipients, String subject, String message,
                        List<File> attachments);
@@ -32,8 +33,25 @@ public interface EmailService {
      * @param subject         the email subject
      * @param message         the email message
      * @param attachments     optional file attachments (e.g., PDF reportAggregate)
-     * @return true if the email was sent successfully, false otherwise
+     * @return true if the email was sent or queued for sending, false otherwise
      */
     boolean sendReport(ReportAggregate reportAggregate, EmailAddress recipient, String subject, String message,
                        List<File> attachments);
-}
\ No newline at end of file
+
+    /**
+     * Sends a QC reportAggregate to the specified email addresses without blocking the caller.
+     * The default implementation sends the report on the calling thread.
+     *
+     * @param reportAggregate the reportAggregate to send
+     * @param recipients      the email addresses of the recipients
+     * @param subject         the email subject
+     * @param message         the email message
+     * @param attachments     optional file attachments (e.g., PDF reportAggregate)
+     * @return a future that completes with true once the email has been delivered
+     */
+    default CompletableFuture<Boolean> sendReportAsync(ReportAggregate reportAggregate, List<EmailAddress> recipients,
+                                                       String subject, String message, List<File> attachments) {
+        return CompletableFuture.completedFuture(sendReport(reportAggregate, recipients, subject, message,
+                attachments));
+    }
+}
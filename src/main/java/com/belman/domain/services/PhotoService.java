@@ -51,6 +51,14 @@ public interface PhotoService {
      */
     PhotoDocument getPhotoById(PhotoId photoId);
 
+    /**
+     * Gets the stored image file of a photo document.
+     *
+     * @param photo the photo document
+     * @return the image file, which may not exist if the photo was deleted
+     */
+    File getPhotoFile(PhotoDocument photo);
+
     /**
      * Generates a unique file path for a photo.
      *
@@ -48,6 +48,22 @@ public interface Command<T> {
         return false;
     }
 
+    /**
+     * Merges this command with a command that was submitted right after it, before either has
+     * been executed. The merged command must have the same effect as executing this command and
+     * then the next one, so it is persisted as one change and undone as one step.
+     * <p>
+     * For example, two consecutive saves of the same data merge into one save of the final
+     * value. Commands decide this by comparing their {@link CommandKey}s, not the objects they
+     * were built from.
+     *
+     * @param next the command submitted after this one
+     * @return the merged command, or null if the commands cannot be merged
+     */
+    default Command<?> mergeWith(Command<?> next) {
+        return null;
+    }
+
     /**
      * Gets a description of this command, useful for logging and UI display.
      *
@@ -0,0 +1,28 @@
+package com.belman.domain.shared;
+
+/**
+ * Identifies what a command changes: the entity it changes and the operation it applies.
+ * <p>
+ * Consecutive commands with equal keys overwrite the same state, so a command may
+ * {@linkplain Command#mergeWith(Command) merge} with the next command if their keys are equal.
+ * Keys compare by value, unlike the lambdas or repositories a command is built from.
+ *
+ * @param entityId  the ID of the changed entity, such as a photo or order ID
+ * @param operation the name of the operation, such as {@code "edit-comment"}
+ */
+public record CommandKey(String entityId, String operation) {
+
+    /**
+     * Creates a new CommandKey.
+     *
+     * @throws IllegalArgumentException if the entity ID or operation is null or blank
+     */
+    public CommandKey {
+        if (entityId == null || entityId.isBlank()) {
+            throw new IllegalArgumentException("Entity ID must not be null or blank");
+        }
+        if (operation == null || operation.isBlank()) {
+            throw new IllegalArgumentException("Operation must not be null or blank");
+        }
+    }
+}
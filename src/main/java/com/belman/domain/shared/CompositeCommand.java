@@ -1,17 +1,29 @@
 package com.belman.domain.shared;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
 /**
  * A command that executes multiple commands as a unit.
  * <p>
  * This command supports transaction-like behavior with rollback on failure.
- * If any command in the sequence fails, all previously executed commands
- * will be undone in reverse order.
+ * If any command fails, all previously executed commands will be undone,
+ * each one after the executed commands that depend on it.
+ * <p>
+ * Commands created with the constructors run strictly one after another. Commands created with
+ * the {@link Builder} declare which other commands they depend on; a command starts as soon as
+ * the commands it depends on have completed, with at most a configured number of commands
+ * running at the same time. Commands without dependencies between them, such as the uploads of
+ * several photos, therefore run concurrently, and are rolled back concurrently.
  *
  * @param <T> the type of result returned by this command
  */
@@ -20,7 +32,14 @@ public class CompositeCommand<T> implements Command<T> {
     private final String description;
     private final boolean rollbackOnFailure;
     private final int resultCommandIndex;
+    private final int maxParallelism;
+    private final List<int[]> dependencies;
+    private final List<List<Integer>> dependents;
+
+    // Executed commands in completion order, guarded by stateLock
+    private final Object stateLock = new Object();
     private final List<Command<?>> executedCommands = new ArrayList<>();
+    private final List<Integer> executedIndices = new ArrayList<>();
 
     /**
      * Creates a new CompositeCommand with the specified commands, returning the result of the last command.
@@ -45,71 +64,68 @@ public class CompositeCommand<T> implements Command<T> {
     @SafeVarargs
     public CompositeCommand(String description, boolean rollbackOnFailure, int resultCommandIndex,
                             Command<?>... commands) {
-        if (commands == null || commands.length == 0) {
+        this(description, rollbackOnFailure, resultCommandIndex, 1,
+                commands == null ? null : Arrays.asList(commands), sequentialDependencies(commands));
+    }
+
+    private CompositeCommand(String description, boolean rollbackOnFailure, int resultCommandIndex,
+                             int maxParallelism, List<Command<?>> commands, List<int[]> dependencies) {
+        if (commands == null || commands.isEmpty()) {
             throw new IllegalArgumentException("Commands cannot be null or empty");
         }
-        if (resultCommandIndex < 0 || resultCommandIndex >= commands.length) {
+        if (resultCommandIndex < 0 || resultCommandIndex >= commands.size()) {
             throw new IllegalArgumentException("Result command index out of bounds: " + resultCommandIndex);
         }
 
-        this.commands = Arrays.asList(commands);
+        this.commands = commands;
         this.description = description != null ? description : "Composite command";
         this.rollbackOnFailure = rollbackOnFailure;
         this.resultCommandIndex = resultCommandIndex;
+        this.maxParallelism = maxParallelism;
+        this.dependencies = dependencies;
+        this.dependents = new ArrayList<>();
+        for (int i = 0; i < commands.size(); i++) {
+            dependents.add(new ArrayList<>());
+        }
+        for (int i = 0; i < commands.size(); i++) {
+            for (int dependency : dependencies.get(i)) {
+                dependents.get(dependency).add(i);
+            }
+        }
+    }
+
+    /**
+     * Creates a builder for a composite command whose commands declare their dependencies.
+     *
+     * @param description a description of the composite command
+     * @param <T>         the type of result returned by the composite command
+     * @return a new builder
+     */
+    public static <T> Builder<T> builder(String description) {
+        return new Builder<>(description);
+    }
+
+    private static List<int[]> sequentialDependencies(Command<?>[] commands) {
+        List<int[]> dependencies = new ArrayList<>();
+        if (commands != null) {
+            for (int i = 0; i < commands.length; i++) {
+                dependencies.add(i == 0 ? new int[0] : new int[]{i - 1});
+            }
+        }
+        return dependencies;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public CompletableFuture<T> execute() {
         // Clear the list of executed commands
-        executedCommands.clear();
-
-        // Execute each command in sequence
-        CompletableFuture<Object> future = CompletableFuture.completedFuture(null);
-
-        for (int i = 0; i < commands.size(); i++) {
-            final Command<?> command = commands.get(i);
-            final int commandIndex = i;
-
-            future = future.thenCompose(ignored -> {
-                if (!command.canExecute()) {
-                    if (rollbackOnFailure) {
-                        // Rollback all executed commands in reverse order
-                        return rollback().thenCompose(v ->
-                                CompletableFuture.failedFuture(
-                                        new IllegalStateException(
-                                                "Command cannot be executed: " + command.getDescription())));
-                    } else {
-                        return CompletableFuture.failedFuture(
-                                new IllegalStateException("Command cannot be executed: " + command.getDescription()));
-                    }
-                }
-
-                return command.execute().thenApply(result -> {
-                    // Add the command to the list of executed commands
-                    executedCommands.add(command);
-
-                    // If this is the result command, store its result
-                    if (commandIndex == resultCommandIndex) {
-                        return result;
-                    }
-
-                    return null;
-                });
-            }).handle((result, ex) -> {
-                if (ex != null) {
-                    if (rollbackOnFailure) {
-                        // Rollback all executed commands in reverse order
-                        rollback().join();
-                    }
-                    // Wrap the exception and complete the future exceptionally
-                    throw new RuntimeException("Command execution failed: " + command.getDescription(), ex);
-                }
-                return result;
-            });
+        synchronized (stateLock) {
+            executedCommands.clear();
+            executedIndices.clear();
         }
 
-        return (CompletableFuture<T>) future.thenApply(result -> result);
+        Execution execution = new Execution();
+        execution.start();
+        return execution.result;
     }
 
     @Override
@@ -136,12 +152,13 @@ public class CompositeCommand<T> implements Command<T> {
     @Override
     public boolean canUndo() {
         // The composite command can be undone if all executed commands can be undone
-        for (Command<?> command : executedCommands) {
+        List<Command<?>> executed = getExecutedCommands();
+        for (Command<?> command : executed) {
             if (!command.canUndo()) {
                 return false;
             }
         }
-        return !executedCommands.isEmpty();
+        return !executed.isEmpty();
     }
 
     @Override
@@ -150,28 +167,37 @@ public class CompositeCommand<T> implements Command<T> {
     }
 
     /**
-     * Rolls back all executed commands in reverse order.
+     * Rolls back all executed commands. Each command is undone once the executed commands that
+     * depend on it have been undone, so independent commands are undone concurrently.
      *
      * @return a CompletableFuture that will complete when all commands have been undone
      */
     private CompletableFuture<Void> rollback() {
-        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
-
-        // Undo all executed commands in reverse order
-        List<Command<?>> reversedCommands = new ArrayList<>(executedCommands);
-        Collections.reverse(reversedCommands);
-
-        for (Command<?> command : reversedCommands) {
-            future = future.thenCompose(ignored -> {
-                if (command.canUndo()) {
-                    return command.undo();
-                } else {
-                    return CompletableFuture.completedFuture(null);
-                }
-            });
+        List<Integer> executed;
+        synchronized (stateLock) {
+            executed = new ArrayList<>(executedIndices);
+        }
+
+        // Commands complete after the commands they depend on, so in reverse completion order
+        // every command comes after its dependents
+        Map<Integer, CompletableFuture<Void>> undone = new HashMap<>();
+        for (int k = executed.size() - 1; k >= 0; k--) {
+            int index = executed.get(k);
+            Command<?> command = commands.get(index);
+            CompletableFuture<?>[] dependentsUndone = dependents.get(index).stream()
+                    .map(undone::get)
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture[]::new);
+
+            // Undo this command even if undoing a dependent failed, and report the failure at the end
+            undone.put(index, CompletableFuture.allOf(dependentsUndone)
+                    .handle((ignored, ex) -> (Void) null)
+                    .thenCompose(ignored -> command.canUndo()
+                            ? command.undo()
+                            : CompletableFuture.completedFuture(null)));
         }
 
-        return future;
+        return CompletableFuture.allOf(undone.values().toArray(new CompletableFuture[0]));
     }
 
     /**
@@ -184,11 +210,242 @@ public class CompositeCommand<T> implements Command<T> {
     }
 
     /**
-     * Gets the list of commands that have been executed.
+     * Gets the list of commands that have been executed, in the order they completed.
      *
      * @return the list of executed commands
      */
     public List<Command<?>> getExecutedCommands() {
-        return Collections.unmodifiableList(executedCommands);
+        synchronized (stateLock) {
+            return List.copyOf(executedCommands);
+        }
+    }
+
+    /**
+     * Gets the maximum number of commands that run at the same time.
+     *
+     * @return the maximum parallelism
+     */
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    /**
+     * One execution of the composite command. Commands are started when their dependencies have
+     * completed; after the first failure no more commands are started, and the result completes
+     * once the running commands have finished and, if configured, have been rolled back.
+     */
+    private final class Execution {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final Object[] results = new Object[commands.size()];
+        private final int[] pendingDependencies = new int[commands.size()];
+        private final Deque<Integer> ready = new ArrayDeque<>();
+        private int running;
+        private int completed;
+        private Throwable failure;
+        private Command<?> failedCommand;
+
+        private void start() {
+            synchronized (stateLock) {
+                for (int i = 0; i < commands.size(); i++) {
+                    pendingDependencies[i] = dependencies.get(i).length;
+                    if (pendingDependencies[i] == 0) {
+                        ready.add(i);
+                    }
+                }
+            }
+            startReadyCommands();
+        }
+
+        private void startReadyCommands() {
+            List<Integer> starting = new ArrayList<>();
+            synchronized (stateLock) {
+                while (failure == null && running < maxParallelism && !ready.isEmpty()) {
+                    starting.add(ready.poll());
+                    running++;
+                }
+            }
+            for (int index : starting) {
+                startCommand(index);
+            }
+        }
+
+        private void startCommand(int index) {
+            Command<?> command = commands.get(index);
+            CompletableFuture<?> future;
+            try {
+                future = command.canExecute()
+                        ? command.execute()
+                        : CompletableFuture.failedFuture(
+                                new IllegalStateException("Command cannot be executed: " + command.getDescription()));
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, ex) -> onCommandCompleted(index, value, ex));
+        }
+
+        private void onCommandCompleted(int index, Object value, Throwable ex) {
+            boolean finished;
+            synchronized (stateLock) {
+                running--;
+                if (ex == null) {
+                    results[index] = value;
+                    executedCommands.add(commands.get(index));
+                    executedIndices.add(index);
+                    completed++;
+                    for (int dependent : dependents.get(index)) {
+                        if (--pendingDependencies[dependent] == 0) {
+                            ready.add(dependent);
+                        }
+                    }
+                } else if (failure == null) {
+                    failure = ex;
+                    failedCommand = commands.get(index);
+                }
+                finished = running == 0 && (failure != null || completed == commands.size());
+            }
+
+            if (finished) {
+                finish();
+            } else {
+                startReadyCommands();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void finish() {
+            if (failure == null) {
+                result.complete((T) results[resultCommandIndex]);
+                return;
+            }
+
+            RuntimeException error = new RuntimeException(
+                    "Command execution failed: " + failedCommand.getDescription(), failure);
+            if (rollbackOnFailure) {
+                // Rollback all executed commands, and fail with the original error either way
+                rollback().whenComplete((ignored, rollbackEx) -> result.completeExceptionally(error));
+            } else {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Builder for composite commands whose commands declare their dependencies.
+     * <p>
+     * A command can only depend on commands added before it, so the dependencies never form a
+     * cycle. Commands added without dependencies may run concurrently with all other commands.
+     *
+     * @param <T> the type of result returned by the composite command
+     */
+    public static class Builder<T> {
+        private final String description;
+        private final List<Command<?>> commands = new ArrayList<>();
+        private final List<int[]> dependencies = new ArrayList<>();
+        private final Map<Command<?>, Integer> indices = new IdentityHashMap<>();
+        private boolean rollbackOnFailure = true;
+        private int maxParallelism = 4;
+        private Command<?> resultCommand;
+
+        private Builder(String description) {
+            this.description = description;
+        }
+
+        /**
+         * Adds a command that starts once the given commands have completed.
+         *
+         * @param command   the command to add
+         * @param dependsOn the previously added commands that must complete first
+         * @return this builder
+         * @throws IllegalArgumentException if the command was already added, or a dependency was not
+         */
+        public Builder<T> add(Command<?> command, Command<?>... dependsOn) {
+            Objects.requireNonNull(command, "command must not be null");
+            if (indices.containsKey(command)) {
+                throw new IllegalArgumentException("Command already added: " + command.getDescription());
+            }
+            int[] dependencyIndices = new int[dependsOn.length];
+            for (int i = 0; i < dependsOn.length; i++) {
+                Integer index = indices.get(dependsOn[i]);
+                if (index == null) {
+                    throw new IllegalArgumentException("Dependency must be added before the command depending on it: "
+                            + (dependsOn[i] == null ? "null" : dependsOn[i].getDescription()));
+                }
+                dependencyIndices[i] = index;
+            }
+            indices.put(command, commands.size());
+            commands.add(command);
+            dependencies.add(dependencyIndices);
+            return this;
+        }
+
+        /**
+         * Adds commands that do not depend on any other command.
+         *
+         * @param independentCommands the commands to add
+         * @return this builder
+         */
+        public Builder<T> addIndependent(Command<?>... independentCommands) {
+            for (Command<?> command : independentCommands) {
+                add(command);
+            }
+            return this;
+        }
+
+        /**
+         * Sets whether the executed commands are undone when a command fails. Defaults to true.
+         *
+         * @param rollbackOnFailure whether to rollback on failure
+         * @return this builder
+         */
+        public Builder<T> rollbackOnFailure(boolean rollbackOnFailure) {
+            this.rollbackOnFailure = rollbackOnFailure;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of commands that run at the same time. Defaults to 4.
+         *
+         * @param maxParallelism the maximum parallelism
+         * @return this builder
+         * @throws IllegalArgumentException if maxParallelism is less than 1
+         */
+        public Builder<T> maxParallelism(int maxParallelism) {
+            if (maxParallelism < 1) {
+                throw new IllegalArgumentException("Max parallelism must be at least 1");
+            }
+            this.maxParallelism = maxParallelism;
+            return this;
+        }
+
+        /**
+         * Sets the command whose result is the result of the composite command. Defaults to the
+         * last added command.
+         *
+         * @param resultCommand a command added to this builder
+         * @return this builder
+         */
+        public Builder<T> resultCommand(Command<?> resultCommand) {
+            this.resultCommand = resultCommand;
+            return this;
+        }
+
+        /**
+         * Builds the composite command.
+         *
+         * @return the composite command
+         * @throws IllegalArgumentException if no commands were added, or the result command was not added
+         */
+        public CompositeCommand<T> build() {
+            int resultIndex = commands.size() - 1;
+            if (resultCommand != null) {
+                Integer index = indices.get(resultCommand);
+                if (index == null) {
+                    throw new IllegalArgumentException("Result command was not added: " + resultCommand.getDescription());
+                }
+                resultIndex = index;
+            }
+            return new CompositeCommand<>(description, rollbackOnFailure, resultIndex, maxParallelism,
+                    List.copyOf(commands), List.copyOf(dependencies));
+        }
     }
 }
@@ -1,19 +1,24 @@
 package com.belman.domain.shared;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 /**
  * A platform-agnostic property class that can be used to store values
  * and notify listeners when the value changes.
+ * <p>
+ * Properties may be written from background threads, so the value is held in an
+ * {@link AtomicReference} and {@link #compareAndSet(Object, Object)} is available for
+ * lock-free read-modify-write updates.
  *
  * @param <T> the type of the value stored in this property
  */
 public class Property<T> {
-    private final List<Consumer<T>> listeners = new ArrayList<>();
-    private T value;
+    private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicReference<T> value;
 
     /**
      * Creates a new property with a null initial value.
@@ -28,7 +33,7 @@ public class Property<T> {
      * @param initialValue the initial value
      */
     public Property(T initialValue) {
-        this.value = initialValue;
+        this.value = new AtomicReference<>(initialValue);
     }
 
     /**
@@ -37,7 +42,7 @@ public class Property<T> {
      * @return the current value
      */
     public T get() {
-        return value;
+        return value.get();
     }
 
     /**
@@ -46,18 +51,43 @@ public class Property<T> {
      * @param newValue the new value
      */
     public void set(T newValue) {
-        if (!Objects.equals(value, newValue)) {
-            this.value = newValue;
-            notifyListeners();
+        T oldValue = value.getAndSet(newValue);
+        if (!Objects.equals(oldValue, newValue)) {
+            notifyListeners(newValue);
         }
     }
 
     /**
-     * Notifies all listeners with the current value.
+     * Atomically sets the value if the current value is the same instance as the expected value,
+     * and notifies all listeners if the value changed.
+     *
+     * @param expectedValue the value previously read with {@link #get()}
+     * @param newValue      the new value
+     * @return true if the value was set, false if another thread changed it in the meantime
+     */
+    public boolean compareAndSet(T expectedValue, T newValue) {
+        if (!value.compareAndSet(expectedValue, newValue)) {
+            return false;
+        }
+        if (!Objects.equals(expectedValue, newValue)) {
+            notifyListeners(newValue);
+        }
+        return true;
+    }
+
+    /**
+     * Notifies all listeners with the current value, for subclasses that change the value in place.
+     */
+    protected void fireValueChanged() {
+        notifyListeners(value.get());
+    }
+
+    /**
+     * Notifies all listeners with the specified value.
      */
-    private void notifyListeners() {
+    private void notifyListeners(T newValue) {
         for (Consumer<T> listener : listeners) {
-            listener.accept(value);
+            listener.accept(newValue);
         }
     }
 
@@ -69,8 +99,9 @@ public class Property<T> {
     public void addListener(Consumer<T> listener) {
         if (listener != null) {
             listeners.add(listener);
-            if (value != null) {
-                listener.accept(value);
+            T currentValue = value.get();
+            if (currentValue != null) {
+                listener.accept(currentValue);
             }
         }
     }
@@ -0,0 +1,301 @@
+package com.belman.domain.shared;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A dotted property path (e.g. "user.address.city") compiled into a chain of accessors.
+ * <p>
+ * The path is parsed once, and each segment resolves its bean getter and setter once per
+ * runtime class into a {@link MethodHandle}. After the first access of a path on a given
+ * object graph, reading and writing it involves no string parsing, regex matching or
+ * reflective method lookup.
+ * <p>
+ * Each segment is resolved against the current object in the following order:
+ * <ol>
+ *   <li>{@link Map}: the segment is used as the key</li>
+ *   <li>{@link List}: a numeric segment is used as the index</li>
+ *   <li>bean: {@code getX()}, {@code isX()} or the field {@code x}; {@code setX(value)} or the field {@code x}</li>
+ * </ol>
+ */
+public final class PropertyPath {
+
+    // Paths come from code and view bindings, so the set is small; the limit only guards against misuse
+    private static final int MAX_CACHED_PATHS = 1024;
+    private static final Map<String, PropertyPath> COMPILED_PATHS = new ConcurrentHashMap<>();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final String path;
+    private final Segment[] segments;
+
+    private PropertyPath(String path) {
+        this.path = path;
+        String[] names = path.split("\\.");
+        this.segments = new Segment[names.length];
+        for (int i = 0; i < names.length; i++) {
+            this.segments[i] = new Segment(names[i]);
+        }
+    }
+
+    /**
+     * Compiles a dotted path, or returns the already compiled form.
+     *
+     * @param path the path (e.g. "user.address.city")
+     * @return the compiled path
+     * @throws IllegalArgumentException if the path is null or empty
+     */
+    public static PropertyPath compile(String path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Path cannot be null or empty");
+        }
+        PropertyPath compiled = COMPILED_PATHS.get(path);
+        if (compiled != null) {
+            return compiled;
+        }
+        if (COMPILED_PATHS.size() >= MAX_CACHED_PATHS) {
+            return new PropertyPath(path);
+        }
+        return COMPILED_PATHS.computeIfAbsent(path, PropertyPath::new);
+    }
+
+    /**
+     * Gets the source text of this path.
+     *
+     * @return the path
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Reads the value at this path.
+     *
+     * @param root the root object
+     * @return the value, or null if any object along the path is null or a property is not found
+     */
+    public Object get(Object root) {
+        Object value = root;
+        for (Segment segment : segments) {
+            if (value == null) {
+                return null;
+            }
+            value = segment.get(value);
+        }
+        return value;
+    }
+
+    /**
+     * Writes the value at this path. Missing intermediate values inside maps are created as new maps.
+     *
+     * @param root  the root object
+     * @param value the value to set
+     * @throws IllegalStateException if an intermediate object is null and cannot be created,
+     *                               or the last property cannot be set
+     */
+    public void set(Object root, Object value) {
+        Object parent = root;
+        int last = segments.length - 1;
+
+        // Navigate to the parent object
+        for (int i = 0; i < last; i++) {
+            Segment segment = segments[i];
+            Object child = segment.get(parent);
+
+            if (child == null) {
+                // Try to create a new object if the parent is a map
+                if (parent instanceof Map) {
+                    child = new HashMap<String, Object>();
+                    segment.set(parent, child);
+                } else {
+                    throw new IllegalStateException(
+                            "Cannot set nested property: parent object is null at path: " + segment.name);
+                }
+            }
+
+            parent = child;
+        }
+
+        segments[last].set(parent, value);
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+
+    /**
+     * A single name in a path, with its accessors cached per runtime class.
+     */
+    private static final class Segment {
+        private final String name;
+        private final int index;
+        private final ClassValue<BeanAccessor> beanAccessors = new ClassValue<>() {
+            @Override
+            protected BeanAccessor computeValue(Class<?> type) {
+                return BeanAccessor.resolve(type, name);
+            }
+        };
+
+        private Segment(String name) {
+            this.name = name;
+            this.index = parseIndex(name);
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object get(Object obj) {
+            if (obj instanceof Map) {
+                return ((Map<String, Object>) obj).get(name);
+            }
+            if (obj instanceof List && index >= 0) {
+                List<Object> list = (List<Object>) obj;
+                return index < list.size() ? list.get(index) : null;
+            }
+            return beanAccessors.get(obj.getClass()).get(obj);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void set(Object obj, Object value) {
+            if (obj == null) {
+                throw new IllegalArgumentException("Object cannot be null");
+            }
+            if (obj instanceof Map) {
+                ((Map<String, Object>) obj).put(name, value);
+                return;
+            }
+            if (obj instanceof List && index >= 0) {
+                List<Object> list = (List<Object>) obj;
+
+                // Ensure the list is large enough
+                while (list.size() <= index) {
+                    list.add(null);
+                }
+
+                list.set(index, value);
+                return;
+            }
+            beanAccessors.get(obj.getClass()).set(obj, value);
+        }
+
+        private static int parseIndex(String name) {
+            if (name.isEmpty() || name.length() > 9) {
+                return -1;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+            }
+            return Integer.parseInt(name);
+        }
+    }
+
+    /**
+     * The getter and setter of a bean property on one class, adapted to Object signatures.
+     */
+    private static final class BeanAccessor {
+        private final String name;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private BeanAccessor(String name, MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        private static BeanAccessor resolve(Class<?> type, String name) {
+            String capitalized = name.isEmpty() ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Field field = findField(type, name);
+
+            MethodHandle getter = null;
+            try {
+                getter = lookup.unreflect(type.getMethod("get" + capitalized));
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                try {
+                    getter = lookup.unreflect(type.getMethod("is" + capitalized));
+                } catch (ReflectiveOperationException | RuntimeException e2) {
+                    getter = field != null ? unreflectGetter(lookup, field) : null;
+                }
+            }
+
+            MethodHandle setter = null;
+            for (Method method : type.getMethods()) {
+                if (method.getName().equals("set" + capitalized) && method.getParameterCount() == 1) {
+                    try {
+                        setter = lookup.unreflect(method);
+                    } catch (ReflectiveOperationException | RuntimeException e) {
+                        // Fall back to the field below
+                    }
+                    break;
+                }
+            }
+            if (setter == null && field != null) {
+                setter = unreflectSetter(lookup, field);
+            }
+
+            return new BeanAccessor(name,
+                    getter != null ? getter.asType(GETTER_TYPE) : null,
+                    setter != null ? setter.asType(SETTER_TYPE) : null);
+        }
+
+        private static Field findField(Class<?> type, String name) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle unreflectGetter(MethodHandles.Lookup lookup, Field field) {
+            try {
+                return lookup.unreflectGetter(field);
+            } catch (IllegalAccessException e) {
+                return null;
+            }
+        }
+
+        private static MethodHandle unreflectSetter(MethodHandles.Lookup lookup, Field field) {
+            try {
+                return lookup.unreflectSetter(field);
+            } catch (IllegalAccessException e) {
+                // Final fields cannot be set
+                return null;
+            }
+        }
+
+        private Object get(Object obj) {
+            if (getter == null) {
+                // Property not found
+                return null;
+            }
+            try {
+                return (Object) getter.invokeExact(obj);
+            } catch (Throwable e) {
+                return null;
+            }
+        }
+
+        private void set(Object obj, Object value) {
+            if (setter == null) {
+                throw new IllegalStateException("Cannot set property: " + name);
+            }
+            try {
+                setter.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Cannot set property: " + name, e);
+            }
+        }
+    }
+}
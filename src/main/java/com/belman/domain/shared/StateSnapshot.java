@@ -0,0 +1,52 @@
+package com.belman.domain.shared;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable copy of the values in the {@link StateStore}, tagged with the store version
+ * it was taken at.
+ * <p>
+ * The store version increases with every write, so two snapshots with the same version
+ * contain the same values, and a consumer can skip work if the version has not changed.
+ */
+public final class StateSnapshot {
+    private final long version;
+    private final Map<String, Object> values;
+
+    StateSnapshot(long version, Map<String, Object> values) {
+        this.version = version;
+        this.values = Collections.unmodifiableMap(new HashMap<>(values));
+    }
+
+    /**
+     * Gets the store version this snapshot was taken at.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets a value from this snapshot.
+     *
+     * @param key the key for the state value
+     * @param <T> the expected type of the value
+     * @return the value, or null if not found
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key) {
+        return (T) values.get(key);
+    }
+
+    /**
+     * Gets all values in this snapshot.
+     *
+     * @return an unmodifiable map of values, keyed by state key
+     */
+    public Map<String, Object> getValues() {
+        return values;
+    }
+}
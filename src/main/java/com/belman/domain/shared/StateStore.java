@@ -5,7 +5,10 @@ import com.belman.domain.common.validation.ValidationResult;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -13,10 +16,24 @@ import java.util.function.Function;
  * A global state management store for the application.
  * Inspired by Vuex/Pinja from Vue.js, this class provides a centralized
  * store for managing application state with reactive properties.
+ * <p>
+ * Writes are lock-free: {@link #set(String, Object)} and {@link #update(String, Function)} use
+ * compare-and-set on the property of the key, so concurrent writers never lose an update. Every
+ * write increases the store version, which is recorded in {@link #snapshot()}.
+ * <p>
+ * Store listeners are notified through the notification executor. Writes to a key that arrive
+ * while a notification for that key is still scheduled are coalesced, so a listener receives the
+ * latest value once instead of every intermediate value. By default the executor runs
+ * notifications immediately on the writing thread; the presentation layer installs an executor
+ * that runs them on the UI thread once per frame.
  */
 public class StateStore {
     private static final StateStore instance = new StateStore();
 
+    // Runs notifications immediately on the writing thread
+    private static final Executor DIRECT_EXECUTOR = Runnable::run;
+    private static final int MAX_SNAPSHOT_ATTEMPTS = 8;
+
     // The actual state storage
     private final Map<String, Property<Object>> state;
 
@@ -26,11 +43,20 @@ public class StateStore {
     // Schemas for state validation
     private final Map<String, StateSchema<?>> schemas;
 
+    // Keys with a listener notification that has been scheduled but not yet delivered
+    private final Set<String> scheduledNotifications;
+
+    // Increased on every write
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile Executor notificationExecutor = DIRECT_EXECUTOR;
+
     // Private constructor for singleton
     private StateStore() {
         this.state = new ConcurrentHashMap<>();
         this.listeners = new ConcurrentHashMap<>();
         this.schemas = new ConcurrentHashMap<>();
+        this.scheduledNotifications = ConcurrentHashMap.newKeySet();
     }
 
     /**
@@ -70,6 +96,56 @@ public class StateStore {
     public void clear() {
         state.clear();
         listeners.clear();
+        scheduledNotifications.clear();
+        version.incrementAndGet();
+    }
+
+    /**
+     * Sets the executor used to notify store listeners.
+     * <p>
+     * Notifications for the same key are coalesced while one is waiting in the executor, so an
+     * executor that defers work (e.g. to the next UI frame) turns a burst of writes into a single
+     * callback with the latest value.
+     *
+     * @param executor the executor, or null to notify immediately on the writing thread
+     */
+    public void setNotificationExecutor(Executor executor) {
+        this.notificationExecutor = executor != null ? executor : DIRECT_EXECUTOR;
+    }
+
+    /**
+     * Gets the current store version. The version increases with every write.
+     *
+     * @return the current version
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Takes an immutable snapshot of all state values.
+     * <p>
+     * The copy is retried while writes are happening, so the snapshot normally reflects a
+     * single version. Under constant writes the copy may include values written after the
+     * recorded version, but never values older than it.
+     *
+     * @return the snapshot
+     */
+    public StateSnapshot snapshot() {
+        Map<String, Object> values = new HashMap<>();
+        long startVersion;
+        int attempts = 0;
+        do {
+            values.clear();
+            startVersion = version.get();
+            state.forEach((key, property) -> {
+                Object value = property.get();
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+        } while (version.get() != startVersion && ++attempts < MAX_SNAPSHOT_ATTEMPTS);
+        return new StateSnapshot(startVersion, values);
     }
 
     /**
@@ -104,18 +180,20 @@ public class StateStore {
         Property<Object> property = state.computeIfAbsent(key,
                 k -> new Property<>(null));
 
-        Object oldValue = property.get();
-
-        // Only set and notify if the value has changed
-        if (!Objects.equals(oldValue, value)) {
-            property.set(value);
+        while (true) {
+            Object oldValue = property.get();
 
-            // Notify listeners
-            if (listeners.containsKey(key)) {
-                listeners.get(key).values().forEach(listener ->
-                        listener.accept(value));
+            // Only set and notify if the value has changed
+            if (Objects.equals(oldValue, value)) {
+                return;
+            }
+            if (property.compareAndSet(oldValue, value)) {
+                break;
             }
         }
+
+        version.incrementAndGet();
+        scheduleNotification(key);
     }
 
     /**
@@ -291,6 +369,9 @@ public class StateStore {
 
     /**
      * Updates a value in the state store using a function.
+     * <p>
+     * The update is applied with compare-and-set, so the updater may be called more than once
+     * if other threads write the same key concurrently. It should therefore be free of side effects.
      *
      * @param key     the key for the state value
      * @param updater the function to update the value
@@ -306,30 +387,50 @@ public class StateStore {
             throw new IllegalArgumentException("Updater function cannot be null");
         }
 
-        // Get the property directly to avoid an extra lookup
-        Property<Object> property = state.get(key);
-        if (property == null) {
-            // If the property doesn't exist, create it and set the updated value
-            T newValue = updater.apply(null);
-            if (newValue != null) {
-                set(key, newValue);
-            }
-        } else {
-            // If the property exists, update its value
+        Property<Object> property = state.computeIfAbsent(key,
+                k -> new Property<>(null));
+
+        while (true) {
             T currentValue = (T) property.get();
             T newValue = updater.apply(currentValue);
 
-            // Only set if the value has changed
-            if (!Objects.equals(currentValue, newValue)) {
-                property.set(newValue);
-
-                // Notify listeners
-                if (listeners.containsKey(key)) {
-                    listeners.get(key).values().forEach(listener ->
-                            listener.accept(newValue));
-                }
+            // Only set and notify if the value has changed
+            if (Objects.equals(currentValue, newValue)) {
+                return;
             }
+            if (property.compareAndSet(currentValue, newValue)) {
+                break;
+            }
+            // Another thread changed the value in the meantime, apply the updater again
+        }
+
+        version.incrementAndGet();
+        scheduleNotification(key);
+    }
+
+    /**
+     * Schedules a notification of the listeners of a key, unless one is already scheduled.
+     */
+    private void scheduleNotification(String key) {
+        if (!listeners.containsKey(key) || !scheduledNotifications.add(key)) {
+            return;
         }
+        notificationExecutor.execute(() -> deliverNotification(key));
+    }
+
+    /**
+     * Notifies the listeners of a key with its latest value.
+     */
+    private void deliverNotification(String key) {
+        // Removed before reading the value, so a write that races with this delivery schedules another one
+        scheduledNotifications.remove(key);
+
+        Map<Object, Consumer<Object>> keyListeners = listeners.get(key);
+        if (keyListeners == null) {
+            return;
+        }
+        Object value = get(key);
+        keyListeners.values().forEach(listener -> listener.accept(value));
     }
 
     // --- Nested Property API ---
@@ -370,19 +471,16 @@ public class StateStore {
             throw new IllegalArgumentException("Key cannot be null");
         }
 
-        Property<Object> property = state.get(key);
-        if (property instanceof NestedProperty) {
-            return (NestedProperty<T>) property;
-        }
-
-        // Create a new nested property with the current value
-        T value = property != null ? (T) property.get() : null;
-        NestedProperty<T> nestedProperty = new NestedProperty<>(value);
-
-        // Replace the existing property with the nested property
-        state.put(key, (Property<Object>) nestedProperty);
+        // Replace the existing property with a nested property holding the current value
+        Property<Object> property = state.compute(key, (k, existing) -> {
+            if (existing instanceof NestedProperty) {
+                return existing;
+            }
+            Object value = existing != null ? existing.get() : null;
+            return (Property<Object>) (Property<?>) new NestedProperty<>(value);
+        });
 
-        return nestedProperty;
+        return (NestedProperty<T>) property;
     }
 
     // --- Schema API ---
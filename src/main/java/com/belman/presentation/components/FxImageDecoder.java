@@ -0,0 +1,37 @@
+package com.belman.presentation.components;
+
+import com.belman.service.usecase.photo.DecodedImageCache;
+import javafx.scene.image.Image;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Decodes photos for the {@link DecodedImageCache} into JavaFX images, so the cache holds the
+ * images the views display and showing a cached photo does not copy it.
+ * <p>
+ * The JavaFX image loader is available on every platform the app runs on, and it scales the rows
+ * of a photo while it reads them, so the full-resolution photo is never held in memory.
+ */
+public class FxImageDecoder implements DecodedImageCache.Decoder<Image> {
+
+    @Override
+    public Image decode(Path imageFile, int maxEdge) throws IOException {
+        Image image = new Image(imageFile.toUri().toString(), maxEdge, maxEdge, true, true, false);
+        if (image.isError()) {
+            throw new IOException("Cannot decode image: " + imageFile.getFileName(), image.getException());
+        }
+        return image;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Decoded images are counted at 4 bytes per pixel, the size of the premultiplied BGRA pixels
+     * the toolkit keeps for most images.
+     */
+    @Override
+    public long byteSize(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+}
@@ -0,0 +1,41 @@
+package com.belman.presentation.components;
+
+import com.belman.domain.order.photo.ImageMetadata;
+import com.belman.service.usecase.photo.ImageMetadataReader;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Decodes photos for the {@link ImageQualityPrescreener} with the JavaFX image loader, the same
+ * way {@link FxImageDecoder} decodes them for display.
+ * <p>
+ * The JavaFX image loader is available on every platform the app runs on, and it scales the rows
+ * of a photo while it reads them, so the full-resolution photo is never held in memory. The loader
+ * also scales small images up to the requested size, so the size is first read from the image
+ * header and a small photo is decoded at its own size.
+ */
+public class FxPixelDecoder implements ImageQualityPrescreener.Decoder {
+
+    @Override
+    public ImageQualityPrescreener.Pixels decode(Path imageFile, int maxEdge) throws IOException {
+        Optional<ImageMetadata> metadata = ImageMetadataReader.read(imageFile);
+        int edge = metadata.map(m -> Math.min(maxEdge, Math.max(m.width(), m.height()))).orElse(maxEdge);
+
+        Image image = new Image(imageFile.toUri().toString(), edge, edge, true, true, false);
+        PixelReader reader = image.getPixelReader();
+        if (image.isError() || reader == null) {
+            throw new IOException("Cannot decode image: " + imageFile.getFileName(), image.getException());
+        }
+        int width = (int) image.getWidth();
+        int height = (int) image.getHeight();
+        int[] argb = new int[width * height];
+        reader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), argb, 0, width);
+        return new ImageQualityPrescreener.Pixels(width, height, argb);
+    }
+}
@@ -0,0 +1,463 @@
+package com.belman.presentation.components;
+
+import com.belman.service.usecase.photo.ImageMetadataReader;
+import javafx.application.Platform;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.input.ZoomEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.transform.Affine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A zoomable and pannable view of a photo, for inspecting details such as weld seams.
+ * <p>
+ * The photo is decoded with the JavaFX image loader, which is available on every platform the
+ * app runs on, at the resolution it is displayed: the photo halved as often as the zoom allows,
+ * and never larger than {@value #MAX_LEVEL_PIXELS} pixels, so the memory used does not grow with
+ * the sensor resolution. The loader can only decode whole images, not a region of one, so photos
+ * larger than {@value #MAX_LEVEL_PIXELS} pixels are never shown at their native resolution.
+ * <p>
+ * Levels are decoded on a background thread. Until a level arrives, the images already shown are
+ * scaled and moved with the gesture, so zooming and panning never wait for the decoder. Decoded
+ * levels of the photo are kept in a least recently used cache of at most
+ * {@value #LEVEL_CACHE_BYTES} bytes, so zooming back to a level shown before does not decode the
+ * photo again.
+ * <p>
+ * Pinch or scroll to zoom, drag to pan and double-tap to fit the photo to the view. The EXIF
+ * orientation of the photo is applied when drawing, so it is shown upright.
+ */
+public class ZoomableImagePane extends Region {
+
+    private static final Logger LOGGER = Logger.getLogger(ZoomableImagePane.class.getName());
+
+    private static final double MAX_SCALE = 4.0;
+    private static final double SCROLL_ZOOM_BASE = 1.005;
+
+    // The largest level decoded, about 48 MB of pixels
+    static final long MAX_LEVEL_PIXELS = 12_000_000L;
+
+    // Room for the largest level and the smaller levels below it
+    static final long LEVEL_CACHE_BYTES = 80L * 1024 * 1024;
+
+    // The size a photo is decoded at when its header does not record its size
+    private static final int UNKNOWN_SIZE_EDGE = 2048;
+
+    private final Canvas canvas = new Canvas();
+    private final ExecutorService decodeExecutor;
+    private final AtomicReference<LevelRequest> pendingLevel = new AtomicReference<>();
+
+    private Path imageFile;
+    private Object imageToken = new Object();
+    private Affine orientation = new Affine();
+    private int storedWidth;
+    private int storedHeight;
+    private double imageWidth;
+    private double imageHeight;
+    private double scale;
+    private double offsetX;
+    private double offsetY;
+    private boolean fitted = true;
+    private double dragX;
+    private double dragY;
+    private Image levelImage;
+    private int shownLevel;
+    private int wantedLevel;
+    private final LinkedHashMap<Integer, Image> decodedLevels = new LinkedHashMap<>(8, 0.75f, true);
+    private long decodedLevelBytes;
+    private Image preview;
+
+    /**
+     * Creates an empty ZoomableImagePane.
+     */
+    public ZoomableImagePane() {
+        getStyleClass().add("zoomable-image-pane");
+        getChildren().add(canvas);
+        decodeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "photo-level-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        addEventHandler(ZoomEvent.ZOOM, event -> {
+            zoomAt(event.getX(), event.getY(), event.getZoomFactor());
+            event.consume();
+        });
+        addEventHandler(ScrollEvent.SCROLL, event -> {
+            if (event.getTouchCount() > 0 || event.isInertia()) {
+                // Touch screens pan with a scroll gesture; a mouse wheel zooms
+                panBy(event.getDeltaX(), event.getDeltaY());
+            } else {
+                zoomAt(event.getX(), event.getY(), Math.pow(SCROLL_ZOOM_BASE, event.getDeltaY()));
+            }
+            event.consume();
+        });
+        addEventHandler(MouseEvent.MOUSE_PRESSED, event -> {
+            dragX = event.getX();
+            dragY = event.getY();
+        });
+        addEventHandler(MouseEvent.MOUSE_DRAGGED, event -> {
+            // Touch drags arrive as scroll events as well, so synthesized mouse drags are ignored
+            if (!event.isSynthesized()) {
+                panBy(event.getX() - dragX, event.getY() - dragY);
+                dragX = event.getX();
+                dragY = event.getY();
+            }
+        });
+        addEventHandler(MouseEvent.MOUSE_CLICKED, event -> {
+            if (event.getClickCount() == 2) {
+                fitToView();
+            }
+        });
+    }
+
+    /**
+     * Shows a photo. The previous photo is released.
+     *
+     * @param file            the image file, or null to clear the view
+     * @param exifOrientation the EXIF orientation of the photo, from 1 to 8
+     */
+    public void setImage(Path file, int exifOrientation) {
+        Object token = new Object();
+        imageToken = token;
+        pendingLevel.set(null);
+        imageFile = file;
+        storedWidth = 0;
+        storedHeight = 0;
+        levelImage = null;
+        decodedLevels.clear();
+        decodedLevelBytes = 0;
+        preview = null;
+        draw();
+        if (file == null || decodeExecutor.isShutdown()) {
+            return;
+        }
+        decodeExecutor.execute(() -> {
+            int[] size = readSize(file);
+            Image decoded = null;
+            if (size == null) {
+                // Without a size the levels cannot be computed, so the photo is shown at one resolution
+                decoded = decode(file, UNKNOWN_SIZE_EDGE, UNKNOWN_SIZE_EDGE);
+                if (decoded == null) {
+                    return;
+                }
+                size = new int[] {(int) decoded.getWidth(), (int) decoded.getHeight()};
+            }
+            int width = size[0];
+            int height = size[1];
+            Image initial = decoded;
+            Platform.runLater(() -> {
+                if (imageToken == token) {
+                    install(width, height, initial, exifOrientation);
+                }
+            });
+        });
+    }
+
+    /**
+     * Shows a decoded preview of the photo set with {@link #setImage(Path, int)}, typically from the
+     * shared decoded photo cache. A level is only decoded where the view needs more detail than the
+     * preview has, so stepping through photos with cached previews decodes nothing.
+     *
+     * @param previewImage the whole photo decoded at a lower resolution, or null for none
+     */
+    public void setPreview(Image previewImage) {
+        preview = previewImage;
+        draw();
+        requestLevel();
+    }
+
+    /**
+     * Clears the view and releases the photo.
+     */
+    public void clear() {
+        setImage(null, 1);
+    }
+
+    /**
+     * Releases the photo and stops the decode thread. The pane cannot show photos afterwards.
+     */
+    public void dispose() {
+        clear();
+        decodeExecutor.shutdown();
+    }
+
+    /**
+     * Scales the photo so it fits the view and centers it.
+     */
+    public void fitToView() {
+        fitted = true;
+        if (storedWidth <= 0 || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        scale = fitScale();
+        offsetX = (imageWidth - getWidth() / scale) / 2;
+        offsetY = (imageHeight - getHeight() / scale) / 2;
+        viewChanged();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            if (fitted) {
+                fitToView();
+            } else {
+                viewChanged();
+            }
+        }
+    }
+
+    private void install(int width, int height, Image decoded, int exifOrientation) {
+        storedWidth = width;
+        storedHeight = height;
+        levelImage = decoded;
+        shownLevel = 0;
+        if (decoded != null) {
+            cacheLevel(0, decoded);
+        }
+        orientation = orientationTransform(exifOrientation, width, height);
+        boolean transposed = exifOrientation >= 5 && exifOrientation <= 8;
+        imageWidth = transposed ? height : width;
+        imageHeight = transposed ? width : height;
+        fitToView();
+    }
+
+    private void zoomAt(double x, double y, double factor) {
+        if (storedWidth <= 0 || !(factor > 0)) {
+            return;
+        }
+        double newScale = Math.max(fitScale(), Math.min(MAX_SCALE, scale * factor));
+        // Keep the point under the fingers in place
+        offsetX += x / scale - x / newScale;
+        offsetY += y / scale - y / newScale;
+        scale = newScale;
+        fitted = false;
+        viewChanged();
+    }
+
+    private void panBy(double dx, double dy) {
+        if (storedWidth <= 0) {
+            return;
+        }
+        offsetX -= dx / scale;
+        offsetY -= dy / scale;
+        fitted = false;
+        viewChanged();
+    }
+
+    private double fitScale() {
+        return Math.min(MAX_SCALE, Math.min(getWidth() / imageWidth, getHeight() / imageHeight));
+    }
+
+    /**
+     * Keeps the photo in view, redraws the images already decoded and requests the level for the new view.
+     */
+    private void viewChanged() {
+        if (storedWidth <= 0) {
+            return;
+        }
+        double viewWidth = getWidth() / scale;
+        double viewHeight = getHeight() / scale;
+        offsetX = viewWidth >= imageWidth ? (imageWidth - viewWidth) / 2
+                                          : Math.max(0, Math.min(imageWidth - viewWidth, offsetX));
+        offsetY = viewHeight >= imageHeight ? (imageHeight - viewHeight) / 2
+                                            : Math.max(0, Math.min(imageHeight - viewHeight, offsetY));
+        draw();
+        requestLevel();
+    }
+
+    private void requestLevel() {
+        if (imageFile == null || storedWidth <= 0 || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        double displayScale = scale * outputScale();
+        if (hasDetail(preview, displayScale)) {
+            // A decoded image already has all the detail the view can show
+            pendingLevel.set(null);
+            return;
+        }
+        int level = levelFor(displayScale, storedWidth, storedHeight);
+        wantedLevel = level;
+        if (levelImage != null && level == shownLevel) {
+            return;
+        }
+        Image cached = decodedLevels.get(level);
+        if (cached != null) {
+            pendingLevel.set(null);
+            showLevel(level, cached);
+            return;
+        }
+        LevelRequest request = new LevelRequest(imageToken, imageFile, level, storedWidth >> level,
+                storedHeight >> level);
+        // Requests are coalesced: the decode thread only decodes the level of the latest view
+        if (pendingLevel.getAndSet(request) == null) {
+            decodeExecutor.execute(this::decodePending);
+        }
+    }
+
+    private void decodePending() {
+        LevelRequest request = pendingLevel.getAndSet(null);
+        if (request == null) {
+            return;
+        }
+        Image image = decode(request.file(), request.width(), request.height());
+        if (image == null) {
+            return;
+        }
+        Platform.runLater(() -> {
+            if (imageToken == request.imageToken()) {
+                cacheLevel(request.level(), image);
+                // A cached level may have been shown for a later view while this one was decoded
+                if (request.level() == wantedLevel) {
+                    showLevel(request.level(), image);
+                }
+            }
+        });
+    }
+
+    private void showLevel(int level, Image image) {
+        levelImage = image;
+        shownLevel = level;
+        draw();
+    }
+
+    /**
+     * Adds a decoded level to the cache and evicts the least recently used levels over the budget.
+     * The level just added is kept even if it alone exceeds the budget, as it is about to be shown.
+     */
+    private void cacheLevel(int level, Image image) {
+        Image replaced = decodedLevels.put(level, image);
+        if (replaced != null) {
+            decodedLevelBytes -= byteSize(replaced);
+        }
+        decodedLevelBytes += byteSize(image);
+        Iterator<Map.Entry<Integer, Image>> eldest = decodedLevels.entrySet().iterator();
+        while (decodedLevelBytes > LEVEL_CACHE_BYTES && eldest.hasNext()) {
+            Map.Entry<Integer, Image> entry = eldest.next();
+            if (entry.getKey() != level) {
+                decodedLevelBytes -= byteSize(entry.getValue());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long byteSize(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+
+    private boolean hasDetail(Image image, double displayScale) {
+        return image != null && image.getWidth() / storedWidth >= displayScale;
+    }
+
+    private void draw() {
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        graphics.setTransform(new Affine());
+        graphics.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        if (storedWidth <= 0 || (preview == null && levelImage == null)) {
+            return;
+        }
+        Affine transform = new Affine();
+        transform.appendScale(scale, scale);
+        transform.appendTranslation(-offsetX, -offsetY);
+        transform.append(orientation);
+        graphics.setTransform(transform);
+        graphics.setImageSmoothing(true);
+        if (preview != null) {
+            // The preview covers the whole photo; the level is drawn over it where it has more detail
+            graphics.drawImage(preview, 0, 0, storedWidth, storedHeight);
+        }
+        if (levelImage != null) {
+            graphics.drawImage(levelImage, 0, 0, storedWidth, storedHeight);
+        }
+    }
+
+    private double outputScale() {
+        return getScene() != null && getScene().getWindow() != null ? getScene().getWindow().getOutputScaleX() : 1;
+    }
+
+    /**
+     * Gets the resolution level for a display scale: the photo halved {@code level} times, which is
+     * the coarsest level with at least the detail of the display, but no larger than
+     * {@value #MAX_LEVEL_PIXELS} pixels.
+     *
+     * @param displayScale the device pixels per pixel of the stored image
+     * @param width        the width of the stored image
+     * @param height       the height of the stored image
+     * @return the number of times the photo is halved
+     */
+    static int levelFor(double displayScale, int width, int height) {
+        int level = 0;
+        while (level < 16 && Math.pow(0.5, level + 1) >= displayScale) {
+            level++;
+        }
+        while (level < 16 && (double) (width >> level) * (height >> level) > MAX_LEVEL_PIXELS) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Decodes an image scaled to fit the given size. The JavaFX image loader scales the rows while
+     * it reads them, so the full-resolution photo is never held in memory.
+     *
+     * @return the image, or null if it cannot be decoded
+     */
+    private static Image decode(Path file, double width, double height) {
+        Image image = new Image(file.toUri().toString(), Math.max(1, width), Math.max(1, height), true, true, false);
+        if (image.isError()) {
+            LOGGER.log(Level.WARNING, "Cannot decode photo " + file.getFileName(), image.getException());
+            return null;
+        }
+        return image;
+    }
+
+    /**
+     * Reads the size of the stored image from its header, without decoding it.
+     *
+     * @return the width and height, or null if the header cannot be read
+     */
+    private static int[] readSize(Path file) {
+        try {
+            return ImageMetadataReader.read(file)
+                    .map(metadata -> new int[] {metadata.width(), metadata.height()})
+                    .orElse(null);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cannot read the header of photo " + file.getFileName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the transform from the pixels of the stored image to the upright photo.
+     */
+    private static Affine orientationTransform(int orientation, double width, double height) {
+        return switch (orientation) {
+            case 2 -> new Affine(-1, 0, width, 0, 1, 0);
+            case 3 -> new Affine(-1, 0, width, 0, -1, height);
+            case 4 -> new Affine(1, 0, 0, 0, -1, height);
+            case 5 -> new Affine(0, 1, 0, 1, 0, 0);
+            case 6 -> new Affine(0, -1, height, 1, 0, 0);
+            case 7 -> new Affine(0, -1, height, -1, 0, width);
+            case 8 -> new Affine(0, 1, 0, -1, 0, width);
+            default -> new Affine();
+        };
+    }
+
+    private record LevelRequest(Object imageToken, Path file, int level, int width, int height) {
+    }
+}
@@ -14,6 +14,7 @@ import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.photoupload.PhotoUploadView;
 import com.belman.presentation.views.qadashboard.QADashboardView;
 import com.belman.presentation.views.usermanagement.UserManagementView;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -130,65 +131,82 @@ public class LoginViewModel extends BaseViewModel<LoginViewModel> {
             return;
         }
 
+        // Ignore repeated taps while a login attempt is already running
+        if (loginInProgress.get()) {
+            logger.debug("Login already in progress for user: {}", username.get());
+            return;
+        }
+
         // Set login in progress
         loginInProgress.set(true);
         logger.debug("Login in progress for user: {}", username.get());
 
-        try {
-            // Attempt to log in
-            logger.debug("Calling sessionManager.login for user: {}", username.get());
-            Optional<UserBusiness> userOpt = sessionManager.login(username.get(), password.get());
-
-            if (userOpt.isPresent()) {
-                // Login successful, navigate to role-specific view
-                UserBusiness user = userOpt.get();
-                logger.success("Login successful for user: " + username.get());
-
-                // Save username and "Remember Me" preference if "Remember Me" is checked
-                if (rememberMe.get()) {
-                    preferences.put(PREF_USERNAME, username.get());
-                    preferences.putBoolean(PREF_REMEMBER_ME, true);
-                    logger.debug("Saved username and 'Remember Me' preference");
-                } else {
-                    // Clear saved username and "Remember Me" preference
-                    preferences.remove(PREF_USERNAME);
-                    preferences.putBoolean(PREF_REMEMBER_ME, false);
-                    logger.debug("Cleared saved username and 'Remember Me' preference");
-                }
-
-                try {
-                    // Use the RoleBasedNavigationService to navigate to the appropriate view based on user role
-                    logger.debug("Navigating to user home view");
-                    navigationService.navigateToUserHome();
-                    logger.debug("Navigation to user home view completed");
-                } catch (Exception e) {
-                    logger.error("Failed to navigate to role-specific view", e);
-                    errorMessage.set("Navigation error: " + e.getMessage());
-                }
+        // Verify the credentials off the FX thread and handle the result back on it
+        String usernameStr = username.get();
+        logger.debug("Calling sessionManager.loginAsync for user: {}", usernameStr);
+        sessionManager.loginAsync(usernameStr, password.get())
+                .whenComplete((userOpt, error) -> Platform.runLater(() -> {
+                    try {
+                        if (error != null) {
+                            // Handle any exceptions
+                            logger.error("Exception during login for user: {}", usernameStr, error);
+                            errorMessage.set("An error occurred during login. Please try again later.");
+                        } else {
+                            handleLoginResult(usernameStr, userOpt);
+                        }
+                    } finally {
+                        // Clear login in progress
+                        loginInProgress.set(false);
+                        logger.debug("Login process completed for user: {}", usernameStr);
+                    }
+                }));
+    }
+
+    /**
+     * Handles the result of a login attempt. Must be called on the FX thread.
+     *
+     * @param usernameStr the username that was used for the attempt
+     * @param userOpt     the authenticated user, or empty if authentication failed
+     */
+    private void handleLoginResult(String usernameStr, Optional<UserBusiness> userOpt) {
+        if (userOpt.isPresent()) {
+            // Login successful, navigate to role-specific view
+            logger.success("Login successful for user: " + usernameStr);
+
+            // Save username and "Remember Me" preference if "Remember Me" is checked
+            if (rememberMe.get()) {
+                preferences.put(PREF_USERNAME, usernameStr);
+                preferences.putBoolean(PREF_REMEMBER_ME, true);
+                logger.debug("Saved username and 'Remember Me' preference");
+            } else {
+                // Clear saved username and "Remember Me" preference
+                preferences.remove(PREF_USERNAME);
+                preferences.putBoolean(PREF_REMEMBER_ME, false);
+                logger.debug("Cleared saved username and 'Remember Me' preference");
+            }
+
+            try {
+                // Use the RoleBasedNavigationService to navigate to the appropriate view based on user role
+                logger.debug("Navigating to user home view");
+                navigationService.navigateToUserHome();
+                logger.debug("Navigation to user home view completed");
+            } catch (Exception e) {
+                logger.error("Failed to navigate to role-specific view", e);
+                errorMessage.set("Navigation error: " + e.getMessage());
+            }
+        } else {
+            // Provide more specific error messages based on the username
+            // Check if the username looks valid (simple heuristic)
+            if (usernameStr.length() < 3 || !usernameStr.matches("[a-zA-Z0-9_]+")) {
+                // Username is likely invalid
+                logger.warn("Login failed: User not found: {}", usernameStr);
+                errorMessage.set("User not found. Please check your username.");
             } else {
-                // Provide more specific error messages based on the username
-                String usernameStr = username.get();
-
-                // Check if the username looks valid (simple heuristic)
-                if (usernameStr.length() < 3 || !usernameStr.matches("[a-zA-Z0-9_]+")) {
-                    // Username is likely invalid
-                    logger.warn("Login failed: User not found: {}", usernameStr);
-                    errorMessage.set("User not found. Please check your username.");
-                } else {
-                    // Username looks valid, so password is likely incorrect or account is locked
-                    logger.warn("Login failed: Invalid password or account locked for user: {}", usernameStr);
-                    errorMessage.set(
-                            "Login failed. This could be due to an incorrect password or your account may be locked due to too many failed attempts. Please try again later or contact an administrator.");
-                }
+                // Username looks valid, so password is likely incorrect or account is locked
+                logger.warn("Login failed: Invalid password or account locked for user: {}", usernameStr);
+                errorMessage.set(
+                        "Login failed. This could be due to an incorrect password or your account may be locked due to too many failed attempts. Please try again later or contact an administrator.");
             }
-        } catch (Exception e) {
-            // Handle any exceptions
-            logger.error("Exception during login for user: {}", username.get(), e);
-            errorMessage.set("An error occurred during login. Please try again later.");
-        } finally {
-            // Clear login in progress
-            loginInProgress.set(false);
-            logger.debug("Login process completed for user: {}", username.get());
         }
     }
 
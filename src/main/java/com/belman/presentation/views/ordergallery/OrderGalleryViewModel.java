@@ -9,15 +9,18 @@ import com.belman.domain.order.OrderRepository;
 import com.belman.domain.user.UserBusiness;
 import com.belman.domain.user.UserReference;
 import com.belman.service.session.SessionManager;
+import com.belman.service.usecase.order.OrderSyncAgent;
 import com.belman.presentation.base.BaseViewModel;
 import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.login.LoginView;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -38,24 +41,35 @@ public class OrderGalleryViewModel extends BaseViewModel<OrderGalleryViewModel>
             FXCollections.observableArrayList());
     private final ListProperty<OrderBusiness> filteredOrderBusinesses = new SimpleListProperty<>(
             FXCollections.observableArrayList());
+    private final Consumer<OrderSyncAgent.Delta> syncListener =
+            delta -> Platform.runLater(() -> applyDelta(delta));
     @Inject
     private OrderRepository orderRepository;
+    @Inject
+    private OrderSyncAgent orderSyncAgent;
 
     @Override
     public void onShow() {
-        // Load all orderBusinesses when the view is shown
+        // Load all orderBusinesses when the view is shown, then follow the changes pulled in the background
         loadAllOrders();
+        orderSyncAgent.addListener(syncListener);
+    }
+
+    @Override
+    public void onHide() {
+        orderSyncAgent.removeListener(syncListener);
     }
 
     /**
-     * Loads all orderBusinesses from the repository.
+     * Loads all orderBusinesses from the local order cache, after pulling the changes since the last refresh.
      */
     public void loadAllOrders() {
         isLoading.set(true);
         errorMessage.set("");
 
         try {
-            List<OrderBusiness> allOrderBusinesses = orderRepository.findAll();
+            orderSyncAgent.refresh();
+            List<OrderBusiness> allOrderBusinesses = orderSyncAgent.getOrders();
             orderBusinesses.setAll(allOrderBusinesses);
             filteredOrderBusinesses.setAll(allOrderBusinesses);
             isLoading.set(false);
@@ -65,6 +79,47 @@ public class OrderGalleryViewModel extends BaseViewModel<OrderGalleryViewModel>
         }
     }
 
+    /**
+     * Replaces the changed orders in the lists and removes the deleted ones, keeping the current search.
+     */
+    private void applyDelta(OrderSyncAgent.Delta delta) {
+        if (delta.fullReload()) {
+            orderBusinesses.setAll(delta.updated());
+        } else {
+            orderBusinesses.removeIf(order -> delta.removed().contains(order.getId()));
+            for (OrderBusiness changed : delta.updated()) {
+                int index = indexOf(changed.getId());
+                if (index >= 0) {
+                    orderBusinesses.set(index, changed);
+                } else {
+                    orderBusinesses.add(changed);
+                }
+            }
+        }
+        searchOrders();
+
+        OrderBusiness selected = selectedOrder.get();
+        if (selected != null) {
+            if (delta.removed().contains(selected.getId())) {
+                selectOrder(null);
+            } else {
+                delta.updated().stream()
+                        .filter(order -> order.getId().equals(selected.getId()))
+                        .findFirst()
+                        .ifPresent(this::selectOrder);
+            }
+        }
+    }
+
+    private int indexOf(OrderId orderId) {
+        for (int i = 0; i < orderBusinesses.size(); i++) {
+            if (orderBusinesses.get(i).getId().equals(orderId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     public StringProperty errorMessageProperty() {
         return errorMessage;
     }
@@ -6,6 +6,7 @@ import com.belman.domain.user.UserRole;
 import com.belman.service.session.SessionManager;
 import com.belman.presentation.base.BaseController;
 import com.belman.presentation.components.TouchFriendlyDialog;
+import com.belman.presentation.components.ZoomableImagePane;
 import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.photoupload.PhotoUploadView;
 import com.belman.presentation.views.photoupload.TouchFriendlyPhotoListCell;
@@ -30,6 +31,9 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
     @FXML
     private TextArea commentTextArea;
 
+    @FXML
+    private Label qualityIssuesLabel;
+
     @FXML
     private Button searchButton;
 
@@ -39,9 +43,18 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
     @FXML
     private Button rejectButton;
 
+    @FXML
+    private Button approveAllButton;
+
+    @FXML
+    private Button rejectAllButton;
+
     @FXML
     private ListView<PhotoDocument> photoListView;
 
+    @FXML
+    private ZoomableImagePane photoZoomPane;
+
     @FXML
     private Button backButton;
 
@@ -54,6 +67,9 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
         orderNumberField.textProperty().bindBidirectional(getViewModel().orderNumberProperty());
         orderInfoLabel.textProperty().bind(getViewModel().orderInfoProperty());
         commentTextArea.textProperty().bindBidirectional(getViewModel().commentTextProperty());
+        qualityIssuesLabel.textProperty().bind(getViewModel().qualityIssuesProperty());
+        qualityIssuesLabel.visibleProperty().bind(Bindings.isNotEmpty(getViewModel().qualityIssuesProperty()));
+        qualityIssuesLabel.managedProperty().bind(qualityIssuesLabel.visibleProperty());
 
         // Bind button states
         approveButton.disableProperty().bind(
@@ -65,6 +81,15 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
                         .or(Bindings.isEmpty(commentTextArea.textProperty()))
         );
 
+        approveAllButton.disableProperty().bind(
+                getViewModel().pendingPhotoCountProperty().isEqualTo(0)
+        );
+
+        rejectAllButton.disableProperty().bind(
+                getViewModel().pendingPhotoCountProperty().isEqualTo(0)
+                        .or(Bindings.isEmpty(commentTextArea.textProperty()))
+        );
+
         // Bind list view to photos list
         photoListView.setItems(getViewModel().getPhotos());
 
@@ -77,6 +102,25 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
                 getViewModel().setSelectedPhoto(newVal);
             }
         });
+
+        // Show the selected photo in the zoomable view, which decodes it at the resolution it is shown
+        getViewModel().selectedPhotoFileProperty().addListener((obs, oldFile, newFile) ->
+                photoZoomPane.setImage(newFile, getViewModel().getSelectedPhotoOrientation()));
+        getViewModel().selectedPhotoPreviewProperty().addListener((obs, oldPreview, newPreview) ->
+                photoZoomPane.setPreview(newPreview));
+    }
+
+    @Override
+    public void onHide() {
+        super.onHide();
+        // Release the decoded photo while the view is not shown
+        photoZoomPane.clear();
+    }
+
+    @Override
+    public void onClose() {
+        photoZoomPane.dispose();
+        super.onClose();
     }
 
     /**
@@ -169,6 +213,50 @@ public class PhotoReviewViewController extends BaseController<PhotoReviewViewMod
         }).start();
     }
 
+    /**
+     * Handles the approve all pending button action.
+     */
+    @FXML
+    private void handleApprovePendingPhotos(ActionEvent event) {
+        progressIndicator.setVisible(true);
+
+        // Approve the pending photos in a background thread, as one bulk review
+        new Thread(() -> {
+            int approved = getViewModel().approvePendingPhotos();
+
+            javafx.application.Platform.runLater(() -> {
+                if (approved >= 0) {
+                    showInfo(approved + " photos approved successfully");
+                } else {
+                    showError(getViewModel().errorMessageProperty().get());
+                }
+                progressIndicator.setVisible(false);
+            });
+        }).start();
+    }
+
+    /**
+     * Handles the reject all pending button action.
+     */
+    @FXML
+    private void handleRejectPendingPhotos(ActionEvent event) {
+        progressIndicator.setVisible(true);
+
+        // Reject the pending photos in a background thread, as one bulk review
+        new Thread(() -> {
+            int rejected = getViewModel().rejectPendingPhotos();
+
+            javafx.application.Platform.runLater(() -> {
+                if (rejected >= 0) {
+                    showInfo(rejected + " photos rejected successfully");
+                } else {
+                    showError(getViewModel().errorMessageProperty().get());
+                }
+                progressIndicator.setVisible(false);
+            });
+        }).start();
+    }
+
     /**
      * Handles the back button action.
      * Navigates to the appropriate view based on the user's role.
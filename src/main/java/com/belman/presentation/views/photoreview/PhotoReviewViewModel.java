@@ -1,23 +1,34 @@
 package com.belman.presentation.views.photoreview;
 
 import com.belman.common.di.Inject;
-import com.belman.domain.common.Timestamp;
 import com.belman.domain.order.OrderBusiness;
 import com.belman.domain.order.OrderId;
 import com.belman.domain.order.OrderNumber;
 import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.ImageMetadata;
 import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.policy.IPhotoQualityService;
 import com.belman.domain.services.PhotoService;
-import com.belman.domain.user.UserReference;
+import com.belman.domain.user.UserBusiness;
 import com.belman.service.session.SessionManager;
+import com.belman.service.usecase.photo.DecodedImageCache;
+import com.belman.service.usecase.qa.QAService;
+import com.belman.service.usecase.qa.ReviewQueueProjection;
 import com.belman.presentation.base.BaseViewModel;
 import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.login.LoginView;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.image.Image;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View model for the photo review view.
@@ -29,15 +40,37 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
     private final StringProperty orderInfo = new SimpleStringProperty("No order selected");
     private final StringProperty commentText = new SimpleStringProperty("");
     private final StringProperty errorMessage = new SimpleStringProperty("");
+    private final StringProperty qualityIssues = new SimpleStringProperty("");
     private final BooleanProperty orderSelected = new SimpleBooleanProperty(false);
     private final BooleanProperty photoSelected = new SimpleBooleanProperty(false);
     private final ObjectProperty<OrderBusiness> selectedOrder = new SimpleObjectProperty<>();
     private final ObjectProperty<PhotoDocument> selectedPhoto = new SimpleObjectProperty<>();
+    private final ObjectProperty<Path> selectedPhotoFile = new SimpleObjectProperty<>();
+    private final ObjectProperty<Image> selectedPhotoPreview = new SimpleObjectProperty<>();
     private final ListProperty<PhotoDocument> photos = new SimpleListProperty<>(FXCollections.observableArrayList());
+    private final IntegerProperty pendingPhotoCount = new SimpleIntegerProperty(0);
+    private final BooleanProperty collapseDuplicates = new SimpleBooleanProperty(false);
+    private final IntegerProperty hiddenDuplicateCount = new SimpleIntegerProperty(0);
     @Inject
     private PhotoService photoService;
     @Inject
     private OrderRepository orderRepository;
+    @Inject
+    private ReviewQueueProjection reviewQueue;
+    @Inject
+    private QAService qaService;
+    @Inject
+    private IPhotoQualityService photoQualityPolicy;
+    @Inject
+    private DecodedImageCache<Image> imageCache;
+
+    public PhotoReviewViewModel() {
+        collapseDuplicates.addListener((obs, oldValue, newValue) -> {
+            if (selectedOrder.get() != null) {
+                loadPhotosForOrder(selectedOrder.get().getId());
+            }
+        });
+    }
 
     @Override
     public void onShow() {
@@ -49,11 +82,16 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
         orderInfo.set("No order selected");
         commentText.set("");
         errorMessage.set("");
+        qualityIssues.set("");
         orderSelected.set(false);
         photoSelected.set(false);
         selectedOrder.set(null);
         selectedPhoto.set(null);
+        selectedPhotoFile.set(null);
+        selectedPhotoPreview.set(null);
         photos.clear();
+        pendingPhotoCount.set(0);
+        hiddenDuplicateCount.set(0);
     }
 
     public StringProperty errorMessageProperty() {
@@ -110,7 +148,17 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
     private void loadPhotosForOrder(OrderId orderId) {
         try {
             List<PhotoDocument> orderPhotos = photoService.getPhotosForOrder(orderId);
-            photos.setAll(orderPhotos);
+            if (collapseDuplicates.get() && selectedOrder.get() != null) {
+                // Show the first photo of each group of near-duplicates
+                List<List<PhotoDocument>> groups = selectedOrder.get().groupNearDuplicates();
+                orderPhotos = groups.stream().map(group -> group.get(0)).toList();
+                hiddenDuplicateCount.set(selectedOrder.get().getPhotos().size() - groups.size());
+            } else {
+                hiddenDuplicateCount.set(0);
+            }
+            // Show the photos in the order they were taken
+            photos.setAll(orderPhotos.stream().sorted(PhotoDocument.CAPTURE_ORDER).toList());
+            pendingPhotoCount.set(reviewQueue.count(PhotoDocument.ApprovalStatus.PENDING, orderId));
         } catch (Exception e) {
             setErrorMessage("Error loading photos: " + e.getMessage());
         }
@@ -119,19 +167,86 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
     public void setSelectedPhoto(PhotoDocument photo) {
         if (photo != null) {
             selectedPhoto.set(photo);
+            selectedPhotoFile.set(photoFile(photo));
             photoSelected.set(true);
             commentText.set(photo.getReviewComment() != null ? photo.getReviewComment() : "");
+            qualityIssues.set(describeQualityIssues(photo));
+            loadPreview(photo);
         }
     }
 
+    /**
+     * Describes the problems the upload pre-screen found with a photo, so the reviewer sees why
+     * it was flagged for retaking.
+     */
+    private String describeQualityIssues(PhotoDocument photo) {
+        if (photoQualityPolicy == null || photo.getQualityScore() == null
+            || !photoQualityPolicy.isLikelyUnusable(photo.getQualityScore())) {
+            return "";
+        }
+        return "Pre-screen: " + String.join(", ", photoQualityPolicy.getImageQualityIssues(photo.getQualityScore()));
+    }
+
+    /**
+     * Shows the selected photo from the shared decoded photo cache and prefetches the photos next
+     * to it in the review order, so stepping to the next or previous photo shows it at once.
+     */
+    private void loadPreview(PhotoDocument photo) {
+        selectedPhotoPreview.set(null);
+        Path file = selectedPhotoFile.get();
+        if (imageCache == null || file == null) {
+            return;
+        }
+        CompletableFuture<Image> preview = imageCache.getAsync(file);
+        if (preview.isDone() && !preview.isCompletedExceptionally()) {
+            selectedPhotoPreview.set(preview.join());
+        } else {
+            preview.whenComplete((image, error) -> Platform.runLater(() -> {
+                // Ignore previews of a photo that is no longer selected
+                if (error == null && file.equals(selectedPhotoFile.get())) {
+                    selectedPhotoPreview.set(image);
+                }
+            }));
+        }
+
+        List<Path> sequence = new ArrayList<>(photos.size());
+        int index = -1;
+        for (PhotoDocument reviewed : photos) {
+            Path reviewedFile = photoFile(reviewed);
+            if (reviewedFile != null) {
+                if (reviewed.getPhotoId().equals(photo.getPhotoId())) {
+                    index = sequence.size();
+                }
+                sequence.add(reviewedFile);
+            }
+        }
+        if (index >= 0) {
+            imageCache.prefetch(sequence, index);
+        }
+    }
+
+    private Path photoFile(PhotoDocument photo) {
+        File file = photoService.getPhotoFile(photo);
+        return file != null ? file.toPath() : null;
+    }
+
+    /**
+     * Approves the selected photo through the QA service, which saves the order before the review
+     * is published.
+     *
+     * @return true if the photo was approved and saved, false otherwise
+     */
     public boolean approvePhoto() {
         if (!validatePhotoSelection()) return false;
 
         try {
             PhotoDocument photo = selectedPhoto.get();
-            UserReference currentUser = getCurrentUser();
-            photo.approve(currentUser, Timestamp.now());
-            refreshPhotos();
+            boolean approved = qaService.approvePhoto(photo.getPhotoId(), getCurrentUser());
+            reloadSelectedOrder();
+            if (!approved) {
+                setErrorMessage("The photo could not be approved");
+                return false;
+            }
             clearPhotoSelection();
             return true;
         } catch (Exception e) {
@@ -140,6 +255,75 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
         }
     }
 
+    /**
+     * Approves every photo of the selected order that is still pending review, saving the order once.
+     *
+     * @return the number of photos that were approved, or -1 if they could not be approved
+     */
+    public int approvePendingPhotos() {
+        if (!validateOrderSelection()) return -1;
+
+        try {
+            int approved = qaService.approvePhotos(pendingPhotoIds(), getCurrentUser());
+            reloadSelectedOrder();
+            clearPhotoSelection();
+            return approved;
+        } catch (Exception e) {
+            setErrorMessage("Error approving photos: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Rejects every photo of the selected order that is still pending review with the entered
+     * comment as the reason, saving the order once.
+     *
+     * @return the number of photos that were rejected, or -1 if they could not be rejected
+     */
+    public int rejectPendingPhotos() {
+        if (!validateOrderSelection()) return -1;
+
+        if (isNullOrEmpty(commentText.get())) {
+            setErrorMessage("Please provide a reason for rejection");
+            return -1;
+        }
+
+        try {
+            int rejected = qaService.rejectPhotos(pendingPhotoIds(), getCurrentUser(), commentText.get());
+            reloadSelectedOrder();
+            clearPhotoSelection();
+            return rejected;
+        } catch (Exception e) {
+            setErrorMessage("Error rejecting photos: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private boolean validateOrderSelection() {
+        if (!orderSelected.get() || selectedOrder.get() == null) {
+            setErrorMessage("Please select an order first");
+            return false;
+        }
+        return true;
+    }
+
+    private List<PhotoId> pendingPhotoIds() {
+        return selectedOrder.get().getPhotos().stream()
+                .filter(PhotoDocument::isPending)
+                .map(PhotoDocument::getPhotoId)
+                .toList();
+    }
+
+    /**
+     * Replaces the selected order with its stored copy, which the QA service has reviewed, and
+     * shows its photos again.
+     */
+    private void reloadSelectedOrder() {
+        OrderId orderId = selectedOrder.get().getId();
+        orderRepository.findById(orderId).ifPresent(selectedOrder::set);
+        loadPhotosForOrder(orderId);
+    }
+
     private boolean validatePhotoSelection() {
         if (!photoSelected.get()) {
             setErrorMessage("Please select a photo first");
@@ -148,24 +332,28 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
         return true;
     }
 
-    private UserReference getCurrentUser() {
+    private UserBusiness getCurrentUser() {
         return sessionManager.getCurrentUser()
-                .map(user -> new UserReference(user.getId(), user.getUsername()))
                 .orElseThrow(() -> new IllegalStateException("User not logged in"));
     }
 
-    private void refreshPhotos() {
-        loadPhotosForOrder(selectedOrder.get().getId());
-    }
-
     private void clearPhotoSelection() {
         selectedPhoto.set(null);
+        selectedPhotoFile.set(null);
+        selectedPhotoPreview.set(null);
         photoSelected.set(false);
         commentText.set("");
+        qualityIssues.set("");
     }
 
     // Getters for properties
 
+    /**
+     * Rejects the selected photo with the entered comment as the reason, through the QA service,
+     * which saves the order before the review is published.
+     *
+     * @return true if the photo was rejected and saved, false otherwise
+     */
     public boolean rejectPhoto() {
         if (!validatePhotoSelection()) return false;
 
@@ -176,9 +364,13 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
 
         try {
             PhotoDocument photo = selectedPhoto.get();
-            UserReference currentUser = getCurrentUser();
-            photo.reject(currentUser, Timestamp.now(), commentText.get());
-            refreshPhotos();
+            boolean rejected = qaService.rejectPhoto(photo.getPhotoId(), getCurrentUser(),
+                    commentText.get());
+            reloadSelectedOrder();
+            if (!rejected) {
+                setErrorMessage("The photo could not be rejected");
+                return false;
+            }
             clearPhotoSelection();
             return true;
         } catch (Exception e) {
@@ -199,6 +391,15 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
         return commentText;
     }
 
+    /**
+     * Gets the problems the upload pre-screen found with the selected photo.
+     *
+     * @return the quality issues property; empty if the photo looks usable or was not scored
+     */
+    public StringProperty qualityIssuesProperty() {
+        return qualityIssues;
+    }
+
     public BooleanProperty orderSelectedProperty() {
         return orderSelected;
     }
@@ -211,6 +412,63 @@ public class PhotoReviewViewModel extends BaseViewModel<PhotoReviewViewModel> {
         return selectedPhoto;
     }
 
+    /**
+     * Gets the stored image file of the selected photo, for the zoomable photo view.
+     *
+     * @return the selected photo file property; null while no photo is selected
+     */
+    public ObjectProperty<Path> selectedPhotoFileProperty() {
+        return selectedPhotoFile;
+    }
+
+    /**
+     * Gets the selected photo decoded at screen resolution, once it is available.
+     *
+     * @return the selected photo preview property; null while the photo is being decoded
+     */
+    public ObjectProperty<Image> selectedPhotoPreviewProperty() {
+        return selectedPhotoPreview;
+    }
+
+    /**
+     * Gets the EXIF orientation of the selected photo, so it can be shown upright.
+     *
+     * @return the orientation, or {@link ImageMetadata#ORIENTATION_NORMAL} if it is not known
+     */
+    public int getSelectedPhotoOrientation() {
+        PhotoDocument photo = selectedPhoto.get();
+        return photo != null && photo.getImageMetadata() != null
+               ? photo.getImageMetadata().orientation()
+               : ImageMetadata.ORIENTATION_NORMAL;
+    }
+
+    /**
+     * Gets the number of photos of the selected order that are still pending review.
+     *
+     * @return the pending photo count property
+     */
+    public IntegerProperty pendingPhotoCountProperty() {
+        return pendingPhotoCount;
+    }
+
+    /**
+     * Gets whether near-duplicate photos of the selected order are collapsed into one entry.
+     *
+     * @return the collapse duplicates property
+     */
+    public BooleanProperty collapseDuplicatesProperty() {
+        return collapseDuplicates;
+    }
+
+    /**
+     * Gets the number of near-duplicate photos hidden from the list while duplicates are collapsed.
+     *
+     * @return the hidden duplicate count property
+     */
+    public IntegerProperty hiddenDuplicateCountProperty() {
+        return hiddenDuplicateCount;
+    }
+
     public ListProperty<PhotoDocument> photosProperty() {
         return photos;
     }
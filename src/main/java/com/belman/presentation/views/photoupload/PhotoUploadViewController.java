@@ -15,6 +15,7 @@ import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
+import javafx.scene.image.ImageView;
 
 import java.io.File;
 
@@ -44,6 +45,9 @@ public class PhotoUploadViewController extends BaseController<PhotoUploadViewMod
     @FXML
     private ListView<PhotoDocument> photoListView;
 
+    @FXML
+    private ImageView photoPreview;
+
     @FXML
     private Button deleteButton;
 
@@ -77,6 +81,12 @@ public class PhotoUploadViewController extends BaseController<PhotoUploadViewMod
 
         // Set cell factory to use touch-friendly photo list cells
         photoListView.setCellFactory(listView -> new TouchFriendlyPhotoListCell());
+
+        // Preview the selected uploaded photo from the shared decoded photo cache
+        photoListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) ->
+                getViewModel().setSelectedUploadedPhoto(newVal));
+        getViewModel().uploadedPhotoPreviewProperty().addListener((obs, oldPreview, newPreview) ->
+                photoPreview.setImage(newPreview));
     }
 
     /**
@@ -239,6 +249,13 @@ public class PhotoUploadViewController extends BaseController<PhotoUploadViewMod
      */
     @FXML
     private void handleUpload(ActionEvent event) {
+        // Let the user confirm uploading a photo that looks like one already uploaded
+        String duplicateWarning = getViewModel().duplicateWarningProperty().get();
+        if (duplicateWarning != null && !duplicateWarning.isBlank()
+            && !TouchFriendlyDialog.showConfirmation("Possible Duplicate", duplicateWarning + ". Upload anyway?")) {
+            return;
+        }
+
         // Show progress indicator
         progressIndicator.setVisible(true);
 
@@ -253,7 +270,10 @@ public class PhotoUploadViewController extends BaseController<PhotoUploadViewMod
 
             // Update UI on JavaFX thread
             javafx.application.Platform.runLater(() -> {
-                if (uploaded) {
+                String qualityWarning = getViewModel().qualityWarningProperty().get();
+                if (uploaded && qualityWarning != null && !qualityWarning.isBlank()) {
+                    showInfo("Photo uploaded, but it may need to be retaken: " + qualityWarning);
+                } else if (uploaded) {
                     showInfo("Photo uploaded successfully");
                 } else {
                     showError(getViewModel().errorMessageProperty().get());
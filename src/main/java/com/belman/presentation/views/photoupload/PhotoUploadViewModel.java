@@ -5,19 +5,28 @@ import com.belman.domain.order.OrderBusiness;
 import com.belman.domain.order.OrderId;
 import com.belman.domain.order.OrderNumber;
 import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.PerceptualHash;
 import com.belman.domain.order.photo.PhotoDocument;
 import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.policy.IPhotoQualityService;
 import com.belman.domain.services.PhotoService;
 import com.belman.service.session.SessionManager;
+import com.belman.service.usecase.photo.DecodedImageCache;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
 import com.belman.presentation.base.BaseViewModel;
 import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.login.LoginView;
+import javafx.application.Platform;
 import javafx.beans.property.*;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.image.Image;
 
 import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * View model for the photo upload view.
@@ -29,15 +38,25 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
     private final StringProperty orderInfo = new SimpleStringProperty("No order selected");
     private final StringProperty photoAngle = new SimpleStringProperty("");
     private final StringProperty errorMessage = new SimpleStringProperty("");
+    private final StringProperty duplicateWarning = new SimpleStringProperty("");
+    private final StringProperty qualityWarning = new SimpleStringProperty("");
     private final BooleanProperty orderSelected = new SimpleBooleanProperty(false);
     private final BooleanProperty photoSelected = new SimpleBooleanProperty(false);
     private final ObjectProperty<OrderBusiness> selectedOrder = new SimpleObjectProperty<>();
     private final ObjectProperty<File> selectedPhotoFile = new SimpleObjectProperty<>();
     private final ListProperty<PhotoDocument> photos = new SimpleListProperty<>(FXCollections.observableArrayList());
+    private final ObjectProperty<PhotoDocument> selectedUploadedPhoto = new SimpleObjectProperty<>();
+    private final ObjectProperty<Image> uploadedPhotoPreview = new SimpleObjectProperty<>();
     @Inject
     private PhotoService photoService;
     @Inject
     private OrderRepository orderRepository;
+    @Inject
+    private ImageQualityPrescreener prescreener;
+    @Inject
+    private DecodedImageCache<Image> imageCache;
+    @Inject
+    private IPhotoQualityService photoQualityPolicy;
 
     @Override
     public void onShow() {
@@ -53,10 +72,14 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         orderInfo.set("No order selected");
         photoAngle.set("");
         errorMessage.set("");
+        duplicateWarning.set("");
+        qualityWarning.set("");
         orderSelected.set(false);
         photoSelected.set(false);
         selectedOrder.set(null);
         selectedPhotoFile.set(null);
+        selectedUploadedPhoto.set(null);
+        uploadedPhotoPreview.set(null);
         photos.clear();
     }
 
@@ -64,6 +87,27 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         return errorMessage;
     }
 
+    /**
+     * Gets the warning shown when the selected photo looks like a photo already uploaded for the
+     * selected order. The warning is empty if no near-duplicate was found.
+     *
+     * @return the duplicate warning property
+     */
+    public StringProperty duplicateWarningProperty() {
+        return duplicateWarning;
+    }
+
+    /**
+     * Gets the warning shown after an upload when the pre-screen scores of the uploaded photo
+     * indicate that it should be retaken. The warning is empty if the photo looks usable or was
+     * not scored.
+     *
+     * @return the quality warning property
+     */
+    public StringProperty qualityWarningProperty() {
+        return qualityWarning;
+    }
+
     /**
      * Searches for an order by its number.
      *
@@ -123,9 +167,75 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         if (file != null) {
             selectedPhotoFile.set(file);
             photoSelected.set(true);
+            checkForNearDuplicates(file);
+        }
+    }
+
+    /**
+     * Selects one of the photos already uploaded for the order and shows its preview from the
+     * shared decoded photo cache. The photos next to it in the list are prefetched, so stepping
+     * through the uploaded photos shows each one at once.
+     *
+     * @param photo the selected uploaded photo, or null to clear the preview
+     */
+    public void setSelectedUploadedPhoto(PhotoDocument photo) {
+        selectedUploadedPhoto.set(photo);
+        uploadedPhotoPreview.set(null);
+        if (photo == null || imageCache == null) {
+            return;
+        }
+        Path file = photoService.getPhotoFile(photo).toPath();
+        CompletableFuture<Image> preview = imageCache.getAsync(file);
+        if (preview.isDone() && !preview.isCompletedExceptionally()) {
+            uploadedPhotoPreview.set(preview.join());
+        } else {
+            preview.whenComplete((image, error) -> Platform.runLater(() -> {
+                // Ignore previews of a photo that is no longer selected
+                if (error == null && photo == selectedUploadedPhoto.get()) {
+                    uploadedPhotoPreview.set(image);
+                }
+            }));
+        }
+
+        List<Path> sequence = new ArrayList<>(photos.size());
+        for (PhotoDocument uploaded : photos) {
+            sequence.add(photoService.getPhotoFile(uploaded).toPath());
+        }
+        int index = photos.indexOf(photo);
+        if (index >= 0) {
+            imageCache.prefetch(sequence, index);
         }
     }
 
+    /**
+     * Hashes the selected photo off the FX thread and warns if the selected order already has a
+     * photo that looks the same.
+     *
+     * @param file the selected photo file
+     */
+    private void checkForNearDuplicates(File file) {
+        duplicateWarning.set("");
+        OrderBusiness order = selectedOrder.get();
+        if (order == null || prescreener == null) {
+            return;
+        }
+
+        prescreener.screen(file.toPath()).whenComplete((result, error) -> Platform.runLater(() -> {
+            // Ignore results for a photo or order that is no longer selected
+            if (error != null || result.isEmpty()
+                || file != selectedPhotoFile.get() || order != selectedOrder.get()) {
+                return;
+            }
+            List<PhotoDocument> duplicates = order.findNearDuplicates(result.get().perceptualHash(),
+                    PerceptualHash.NEAR_DUPLICATE_DISTANCE);
+            if (!duplicates.isEmpty()) {
+                duplicateWarning.set("This photo looks like " + duplicates.size() +
+                                     " photo(s) already uploaded for this order, e.g. " +
+                                     duplicates.get(0).getTemplate().name());
+            }
+        }));
+    }
+
     /**
      * Uploads the selected photo.
      *
@@ -159,12 +269,16 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
                     sessionManager.getCurrentUser().orElseThrow(() -> new IllegalStateException("User not logged in"))
             );
 
+            // Flag photos that QA would likely reject, so they can be retaken right away
+            qualityWarning.set(String.join(", ", getImageQualityIssues(photo)));
+
             // Refresh the photos list
             loadPhotosForOrder(selectedOrder.get().getId());
 
             // Clear the photo selection
             selectedPhotoFile.set(null);
             photoSelected.set(false);
+            duplicateWarning.set("");
             photoAngle.set("");
 
             return true;
@@ -180,6 +294,14 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         }
     }
 
+    private List<String> getImageQualityIssues(PhotoDocument photo) {
+        if (photoQualityPolicy == null || photo.getQualityScore() == null
+            || !photoQualityPolicy.isLikelyUnusable(photo.getQualityScore())) {
+            return List.of();
+        }
+        return photoQualityPolicy.getImageQualityIssues(photo.getQualityScore());
+    }
+
     // Getters for properties
 
     /**
@@ -195,8 +317,12 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         }
 
         try {
+            File file = photoService.getPhotoFile(photo);
             boolean deleted = photoService.deletePhoto(photo.getPhotoId());
             if (deleted) {
+                if (imageCache != null) {
+                    imageCache.invalidate(file.toPath());
+                }
                 // Refresh the photos list
                 loadPhotosForOrder(selectedOrder.get().getId());
                 return true;
@@ -230,6 +356,15 @@ public class PhotoUploadViewModel extends BaseViewModel<PhotoUploadViewModel> {
         return photoSelected;
     }
 
+    /**
+     * Gets the selected uploaded photo decoded at screen resolution, once it is available.
+     *
+     * @return the uploaded photo preview property; null while no photo is selected or it is being decoded
+     */
+    public ObjectProperty<Image> uploadedPhotoPreviewProperty() {
+        return uploadedPhotoPreview;
+    }
+
     public ListProperty<PhotoDocument> photosProperty() {
         return photos;
     }
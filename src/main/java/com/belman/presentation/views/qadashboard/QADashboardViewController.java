@@ -69,6 +69,26 @@ public class QADashboardViewController extends BaseController<QADashboardViewMod
         // Bind list view to pending orders
         pendingOrdersListView.setItems(getViewModel().getPendingOrders());
 
+        // Show how many required photo templates each order still misses on its tile
+        pendingOrdersListView.setCellFactory(listView -> new ListCell<>() {
+            @Override
+            protected void updateItem(String orderNumber, boolean empty) {
+                super.updateItem(orderNumber, empty);
+                if (empty || orderNumber == null) {
+                    setText(null);
+                    return;
+                }
+                int missing = getViewModel().getMissingTemplateCount(orderNumber);
+                if (missing > 0) {
+                    setText(orderNumber + "  (" + missing + " required photos missing)");
+                } else if (missing == 0) {
+                    setText(orderNumber + "  (all required photos approved)");
+                } else {
+                    setText(orderNumber);
+                }
+            }
+        });
+
         // Set selection listener
         pendingOrdersListView.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal != null) {
@@ -2,12 +2,18 @@ package com.belman.presentation.views.qadashboard;
 
 import com.belman.common.di.Inject;
 import com.belman.domain.order.OrderBusiness;
-import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.report.service.PhotoReportGenerationService;
 import com.belman.service.session.SessionManager;
+import com.belman.service.usecase.order.OrderSyncAgent;
+import com.belman.service.usecase.qa.ReviewQueueProjection;
 import com.belman.presentation.base.BaseViewModel;
 import com.belman.presentation.navigation.Router;
 import com.belman.presentation.views.login.LoginView;
 import com.belman.presentation.views.photoreview.PhotoReviewView;
+import javafx.application.Platform;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
@@ -17,21 +23,41 @@ import javafx.collections.transformation.FilteredList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * ViewModel for the QA dashboard view.
  * Provides data and operations for QA-specific functionality.
  */
 public class QADashboardViewModel extends BaseViewModel<QADashboardViewModel> {
+    // Loads the pending orders off the FX thread, one load at a time
+    private static final ExecutorService LOAD_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qa-dashboard-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final SessionManager sessionManager = SessionManager.getInstance();
     private final StringProperty welcomeMessage = new SimpleStringProperty("Welcome to QA Dashboard");
     private final StringProperty searchText = new SimpleStringProperty("");
     private final StringProperty errorMessage = new SimpleStringProperty("");
+    private final IntegerProperty pendingPhotoCount = new SimpleIntegerProperty(0);
     private final ObservableList<String> pendingOrders = FXCollections.observableArrayList();
     private final FilteredList<String> filteredOrders = new FilteredList<>(pendingOrders);
+    private final Map<String, Integer> missingTemplateCounts = new ConcurrentHashMap<>();
+    private final AtomicLong loadGeneration = new AtomicLong();
+    @Inject
+    private OrderSyncAgent orderSyncAgent;
+    @Inject
+    private ReviewQueueProjection reviewQueue;
     @Inject
-    private OrderRepository orderRepository;
+    private PhotoReportGenerationService reportGenerationService;
     private String selectedOrder;
 
     @Override
@@ -47,25 +73,55 @@ public class QADashboardViewModel extends BaseViewModel<QADashboardViewModel> {
 
     /**
      * Loads pending orders that need QA review.
+     * Only the orders listed by the review queue are shown, oldest pending photo first. The orders
+     * are read from the local order cache after pulling the changes since its last refresh, on a
+     * background thread, so the dashboard never waits for the database. The number of required
+     * photo templates each order still misses is counted from its approved template coverage, for
+     * the order tiles.
      */
     public void loadPendingOrders() {
-        try {
-            // In a real implementation, this would filter orderBusinesses by status
-            // For now, we'll just load all orderBusinesses
-            List<OrderBusiness> orderBusinesses = orderRepository.findAll();
+        long load = loadGeneration.incrementAndGet();
+        CompletableFuture.supplyAsync(this::readPendingOrders, LOAD_EXECUTOR)
+                .whenComplete((page, error) -> Platform.runLater(() -> {
+                    // A newer load replaces the result of an older one
+                    if (load != loadGeneration.get()) {
+                        return;
+                    }
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                          ? error.getCause() : error;
+                        errorMessage.set("Error loading orders: " + cause.getMessage());
+                        return;
+                    }
+                    missingTemplateCounts.clear();
+                    missingTemplateCounts.putAll(page.missingTemplateCounts());
+                    pendingOrders.setAll(page.orderNumbers());
+                    pendingPhotoCount.set(page.pendingPhotoCount());
 
-            // Convert to order numbers for display
-            List<String> orderNumbers = orderBusinesses.stream()
-                    .map(order -> order.getOrderNumber().toString())
-                    .collect(Collectors.toList());
+                    // Apply any existing search filter
+                    filterOrders();
+                }));
+    }
 
-            pendingOrders.setAll(orderNumbers);
+    /**
+     * Reads the pending orders from the order cache. Runs on the load thread.
+     */
+    private PendingOrders readPendingOrders() {
+        orderSyncAgent.refresh();
+        List<OrderBusiness> orders = reviewQueue.getOrderIds(PhotoDocument.ApprovalStatus.PENDING).stream()
+                .map(orderSyncAgent::getOrder)
+                .flatMap(Optional::stream)
+                .filter(order -> order.getOrderNumber() != null)
+                .toList();
 
-            // Apply any existing search filter
-            filterOrders();
-        } catch (Exception e) {
-            errorMessage.set("Error loading orders: " + e.getMessage());
+        Map<String, Integer> counts = new HashMap<>();
+        if (reportGenerationService != null) {
+            for (OrderBusiness order : orders) {
+                counts.put(order.getOrderNumber().toString(), reportGenerationService.countMissingTemplates(order));
+            }
         }
+        return new PendingOrders(orders.stream().map(order -> order.getOrderNumber().toString()).toList(), counts,
+                reviewQueue.count(PhotoDocument.ApprovalStatus.PENDING));
     }
 
     /**
@@ -152,6 +208,25 @@ public class QADashboardViewModel extends BaseViewModel<QADashboardViewModel> {
         return welcomeMessage;
     }
 
+    /**
+     * Gets the number of photos awaiting review across all orders.
+     *
+     * @return the pending photo count property
+     */
+    public IntegerProperty pendingPhotoCountProperty() {
+        return pendingPhotoCount;
+    }
+
+    /**
+     * Gets the number of required photo templates that no approved photo of a pending order covers yet.
+     *
+     * @param orderNumber the order number shown on the tile
+     * @return the number of missing templates, or -1 if it is not known
+     */
+    public int getMissingTemplateCount(String orderNumber) {
+        return missingTemplateCounts.getOrDefault(orderNumber, -1);
+    }
+
     /**
      * Gets the search text property.
      *
@@ -186,4 +261,11 @@ public class QADashboardViewModel extends BaseViewModel<QADashboardViewModel> {
             errorMessage.set("Error logging out: " + e.getMessage());
         }
     }
+
+    /**
+     * The pending orders read for the dashboard.
+     */
+    private record PendingOrders(List<String> orderNumbers, Map<String, Integer> missingTemplateCounts,
+                                 int pendingPhotoCount) {
+    }
 }
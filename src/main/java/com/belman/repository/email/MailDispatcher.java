@@ -0,0 +1,294 @@
+package com.belman.repository.email;
+
+import jakarta.mail.MessagingException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Delivers the mails in a {@link MailSpool} on a background worker thread.
+ * <p>
+ * Submitting a mail only persists it; the caller never waits for the SMTP server. The worker
+ * sends all due mails in one pass over a single SMTP connection, which stays open for a while
+ * after the queue runs empty so that mails submitted in quick succession reuse it.
+ * <p>
+ * A mail that fails with a temporary error is retried with exponential backoff. It is moved to
+ * the spool's failed directory after a permanent error or after the maximum number of
+ * attempts. When the server cannot be reached at all, the whole queue waits with the same
+ * backoff and no mail is charged an attempt.
+ */
+public class MailDispatcher implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(MailDispatcher.class.getName());
+
+    public static final Duration DEFAULT_INITIAL_BACKOFF = Duration.ofSeconds(5);
+    public static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(15);
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_ATTEMPTS = 8;
+
+    private final MailSpool spool;
+    private final SmtpMailTransport transport;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long idleTimeoutMillis;
+    private final int maxAttempts;
+    private final ScheduledExecutorService worker;
+
+    // Futures of the mails submitted since the dispatcher was created
+    private final Map<String, CompletableFuture<Void>> futures = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private volatile boolean closed;
+
+    // Worker thread state
+    private ScheduledFuture<?> wakeUp;
+    private ScheduledFuture<?> idleClose;
+    private int connectFailures;
+    private long holdUntil;
+
+    /**
+     * Creates a new MailDispatcher with the default backoff, idle timeout and attempt limit.
+     *
+     * @param spool     the queue of mails to deliver
+     * @param transport the SMTP transport to deliver them with
+     */
+    public MailDispatcher(MailSpool spool, SmtpMailTransport transport) {
+        this(spool, transport, DEFAULT_INITIAL_BACKOFF, DEFAULT_MAX_BACKOFF, DEFAULT_IDLE_TIMEOUT,
+                DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a new MailDispatcher.
+     *
+     * @param spool          the queue of mails to deliver
+     * @param transport      the SMTP transport to deliver them with
+     * @param initialBackoff the delay before the first retry, doubled for every further retry
+     * @param maxBackoff     the longest delay between retries
+     * @param idleTimeout    how long the SMTP connection stays open after the queue runs empty
+     * @param maxAttempts    the number of attempts after which a mail is given up
+     */
+    public MailDispatcher(MailSpool spool, SmtpMailTransport transport, Duration initialBackoff,
+                          Duration maxBackoff, Duration idleTimeout, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+        this.spool = spool;
+        this.transport = transport;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+        this.maxAttempts = maxAttempts;
+        this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mail-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts delivering the mails left in the spool by a previous run.
+     */
+    public void start() {
+        scheduleDrain();
+    }
+
+    /**
+     * Persists a mail and queues it for delivery.
+     *
+     * @param mail the mail to send
+     * @return a future that completes when the mail has been delivered, or completes exceptionally
+     * with the last error when it is given up or cannot be queued
+     */
+    public CompletableFuture<Void> submit(OutboundMail mail) {
+        try {
+            return enqueue(mail);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new UncheckedIOException("Failed to queue mail", e));
+        } catch (IllegalStateException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Persists a mail and queues it for delivery. Unlike {@link #submit}, a mail that cannot be
+     * queued is reported when this method returns, so callers know right away whether it is queued.
+     *
+     * @param mail the mail to send
+     * @return a future that completes when the mail has been delivered, or completes exceptionally
+     * with the last error when it is given up
+     * @throws IOException           if an attachment cannot be copied or the mail cannot be persisted
+     * @throws IllegalStateException if the dispatcher is closed
+     */
+    public CompletableFuture<Void> enqueue(OutboundMail mail) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Mail dispatcher is closed");
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        futures.put(mail.getId(), future);
+        try {
+            spool.add(mail);
+        } catch (IOException e) {
+            futures.remove(mail.getId());
+            LOGGER.log(Level.SEVERE, "Failed to queue mail " + mail.getId(), e);
+            throw e;
+        }
+        scheduleDrain();
+        return future;
+    }
+
+    /**
+     * Gets the mails that are waiting for delivery.
+     *
+     * @return the queued mails, oldest first
+     */
+    public List<OutboundMail> getPendingMails() {
+        return spool.pending();
+    }
+
+    /**
+     * Stops the worker and closes the SMTP connection. Mails that have not been delivered stay in
+     * the spool and are sent after the next start; their futures are cancelled.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        worker.execute(transport::close);
+        worker.shutdown();
+        try {
+            if (!worker.awaitTermination(30, TimeUnit.SECONDS)) {
+                worker.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            worker.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        futures.values().forEach(future -> future.cancel(false));
+        futures.clear();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                worker.execute(this::drain);
+            } catch (RuntimeException e) {
+                // Rejected because the dispatcher was closed concurrently; the mail stays in the spool
+                drainScheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        drainScheduled.set(false);
+        if (closed) {
+            return;
+        }
+        cancel(idleClose);
+        long now = System.currentTimeMillis();
+        if (now >= holdUntil) {
+            List<OutboundMail> due = spool.due(now);
+            while (!due.isEmpty() && !closed && connect()) {
+                for (OutboundMail mail : due) {
+                    deliver(mail);
+                }
+                due = spool.due(System.currentTimeMillis());
+            }
+        }
+        scheduleWakeUp();
+    }
+
+    private boolean connect() {
+        try {
+            transport.connect();
+            connectFailures = 0;
+            holdUntil = 0;
+            return true;
+        } catch (MessagingException e) {
+            connectFailures++;
+            long delay = backoff(connectFailures);
+            holdUntil = System.currentTimeMillis() + delay;
+            LOGGER.log(Level.WARNING, "SMTP server not reachable, retrying in " + delay + " ms", e);
+            return false;
+        }
+    }
+
+    private void deliver(OutboundMail mail) {
+        try {
+            transport.send(mail);
+        } catch (MessagingException | IOException e) {
+            handleFailure(mail, e);
+            return;
+        }
+        try {
+            spool.remove(mail);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Delivered mail " + mail.getId() + " could not be removed from the spool", e);
+        }
+        LOGGER.info("Delivered mail " + mail.getId() + " to " + mail.getRecipients().size() + " recipients");
+        CompletableFuture<Void> future = futures.remove(mail.getId());
+        if (future != null) {
+            future.complete(null);
+        }
+    }
+
+    private void handleFailure(OutboundMail mail, Exception error) {
+        int attempts = mail.getAttempts() + 1;
+        boolean permanent = SmtpMailTransport.isPermanent(error);
+        try {
+            if (permanent || attempts >= maxAttempts) {
+                spool.moveToFailed(mail.withFailedAttempt(Long.MAX_VALUE, String.valueOf(error.getMessage())));
+                LOGGER.log(Level.SEVERE, "Giving up mail " + mail.getId() + " after " + attempts + " attempts", error);
+                CompletableFuture<Void> future = futures.remove(mail.getId());
+                if (future != null) {
+                    future.completeExceptionally(error);
+                }
+            } else {
+                long delay = backoff(attempts);
+                spool.update(mail.withFailedAttempt(System.currentTimeMillis() + delay,
+                        String.valueOf(error.getMessage())));
+                LOGGER.log(Level.WARNING, "Sending mail " + mail.getId() + " failed, retrying in " + delay + " ms",
+                        error);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "Failed to update mail " + mail.getId() + " in the spool", e);
+        }
+    }
+
+    private long backoff(int failures) {
+        int shift = Math.min(failures - 1, 30);
+        return Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+    }
+
+    private void scheduleWakeUp() {
+        cancel(wakeUp);
+        wakeUp = null;
+        if (closed) {
+            return;
+        }
+        OptionalLong next = spool.nextAttemptAt();
+        if (next.isPresent()) {
+            long delay = Math.max(next.getAsLong(), holdUntil) - System.currentTimeMillis();
+            wakeUp = worker.schedule(this::scheduleDrain, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        }
+        idleClose = worker.schedule(transport::close, idleTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancel(ScheduledFuture<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+}
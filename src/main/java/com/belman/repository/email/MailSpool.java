@@ -0,0 +1,349 @@
+package com.belman.repository.email;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Persistent queue of outbound mails.
+ * <p>
+ * Every queued mail is one file in the spool directory, written to a temporary file and moved
+ * into place, so a crash never leaves a half-written entry. Mails that are still in the
+ * directory when the spool is opened are queued again. Mails that cannot be delivered are moved
+ * to the failed subdirectory. Files that cannot be read are moved there as well.
+ * <p>
+ * The attachments of a mail are copied into a directory next to its entry when the mail is
+ * added, so a queued mail does not depend on files the caller may change or delete. The copies
+ * are deleted with the mail once it has been delivered.
+ */
+public class MailSpool {
+    private static final Logger LOGGER = Logger.getLogger(MailSpool.class.getName());
+    private static final String SUFFIX = ".mail";
+    private static final String ATTACHMENTS_SUFFIX = ".attachments";
+    private static final String FAILED_DIRECTORY = "failed";
+    private static final int FORMAT_VERSION = 1;
+
+    private final Path directory;
+    private final Path failedDirectory;
+    // Queued mails in the order they were created, guarded by this
+    private final Map<String, OutboundMail> mails = new LinkedHashMap<>();
+
+    /**
+     * Opens the spool in the given directory, creating the directory if needed, and loads the
+     * mails left in it.
+     *
+     * @param directory the spool directory
+     * @throws IOException if the directory cannot be created or listed
+     */
+    public MailSpool(Path directory) throws IOException {
+        this.directory = directory;
+        this.failedDirectory = directory.resolve(FAILED_DIRECTORY);
+        Files.createDirectories(failedDirectory);
+        load();
+    }
+
+    /**
+     * Gets the default spool directory, ~/.belsign/outbox.
+     *
+     * @return the default spool directory
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".belsign", "outbox");
+    }
+
+    /**
+     * Copies the attachments of a mail into the spool, persists the mail and adds it to the queue.
+     *
+     * @param mail the mail to add
+     * @return the queued mail, which refers to the copies of the attachments
+     * @throws IOException if an attachment cannot be copied or the mail cannot be written
+     */
+    public OutboundMail add(OutboundMail mail) throws IOException {
+        // Copy outside the lock, so large attachments do not hold up the delivery of other mails
+        OutboundMail queued = copyAttachments(mail);
+        try {
+            synchronized (this) {
+                write(queued);
+                mails.put(queued.getId(), queued);
+            }
+        } catch (IOException e) {
+            deleteRecursively(attachmentsOf(mail));
+            throw e;
+        }
+        return queued;
+    }
+
+    /**
+     * Replaces a queued mail, for example after a failed attempt. The queue holds the updated mail
+     * even if it cannot be written, so a mail rescheduled after a failed attempt is not due again at
+     * once; its file keeps the previous attempt until the next successful write.
+     *
+     * @param mail the updated mail
+     * @throws IOException if the mail cannot be written
+     */
+    public synchronized void update(OutboundMail mail) throws IOException {
+        mails.put(mail.getId(), mail);
+        write(mail);
+    }
+
+    /**
+     * Removes a delivered mail from the queue.
+     *
+     * @param mail the mail to remove
+     * @throws IOException if the mail's file cannot be deleted
+     */
+    public synchronized void remove(OutboundMail mail) throws IOException {
+        mails.remove(mail.getId());
+        Files.deleteIfExists(fileOf(mail));
+        deleteRecursively(attachmentsOf(mail));
+    }
+
+    /**
+     * Removes a mail that cannot be delivered from the queue and moves it to the failed
+     * subdirectory, where it is kept for inspection.
+     *
+     * @param mail the mail that failed
+     * @throws IOException if the mail cannot be moved
+     */
+    public synchronized void moveToFailed(OutboundMail mail) throws IOException {
+        mails.remove(mail.getId());
+        Path attachments = attachmentsOf(mail);
+        if (Files.isDirectory(attachments)) {
+            Path failedAttachments = failedDirectory.resolve(attachments.getFileName());
+            deleteRecursively(failedAttachments);
+            Files.move(attachments, failedAttachments);
+            List<Path> moved = new ArrayList<>();
+            for (Path attachment : mail.getAttachments()) {
+                moved.add(attachment.startsWith(attachments)
+                          ? failedAttachments.resolve(attachments.relativize(attachment))
+                          : attachment);
+            }
+            mail = mail.withAttachments(moved);
+        }
+        write(mail);
+        Path file = fileOf(mail);
+        Files.move(file, failedDirectory.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Gets the mails that are due for delivery, oldest first.
+     *
+     * @param now the current time, in epoch milliseconds
+     * @return the due mails
+     */
+    public synchronized List<OutboundMail> due(long now) {
+        List<OutboundMail> due = new ArrayList<>();
+        for (OutboundMail mail : mails.values()) {
+            if (mail.getNextAttemptAt() <= now) {
+                due.add(mail);
+            }
+        }
+        return due;
+    }
+
+    /**
+     * Gets the time of the earliest pending delivery attempt.
+     *
+     * @return the time in epoch milliseconds, or empty if the queue is empty
+     */
+    public synchronized OptionalLong nextAttemptAt() {
+        return mails.values().stream().mapToLong(OutboundMail::getNextAttemptAt).min();
+    }
+
+    /**
+     * Gets all queued mails, oldest first.
+     *
+     * @return the queued mails
+     */
+    public synchronized List<OutboundMail> pending() {
+        return new ArrayList<>(mails.values());
+    }
+
+    /**
+     * Gets the number of queued mails.
+     *
+     * @return the number of queued mails
+     */
+    public synchronized int size() {
+        return mails.size();
+    }
+
+    private void load() throws IOException {
+        List<OutboundMail> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (InputStream in = Files.newInputStream(file)) {
+                    loaded.add(read(in));
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "Unreadable mail spool entry moved aside: " + file, e);
+                    Files.move(file, failedDirectory.resolve(file.getFileName()),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(OutboundMail::getCreatedAt));
+        for (OutboundMail mail : loaded) {
+            mails.put(mail.getId(), mail);
+        }
+
+        // Attachments copied for a mail that was never written, because of a crash while adding it
+        try (DirectoryStream<Path> dirs = Files.newDirectoryStream(directory, "*" + ATTACHMENTS_SUFFIX)) {
+            for (Path dir : dirs) {
+                String name = dir.getFileName().toString();
+                if (!mails.containsKey(name.substring(0, name.length() - ATTACHMENTS_SUFFIX.length()))) {
+                    deleteRecursively(dir);
+                }
+            }
+        }
+        if (!loaded.isEmpty()) {
+            LOGGER.info("Loaded " + loaded.size() + " queued mails from " + directory);
+        }
+    }
+
+    private Path fileOf(OutboundMail mail) {
+        return directory.resolve(mail.getId() + SUFFIX);
+    }
+
+    private Path attachmentsOf(OutboundMail mail) {
+        return directory.resolve(mail.getId() + ATTACHMENTS_SUFFIX);
+    }
+
+    /**
+     * Copies the attachments of a mail into its attachment directory. Each file is copied into a
+     * numbered subdirectory, so attachments with the same file name keep their names.
+     *
+     * @return the mail with the paths of the copies
+     */
+    private OutboundMail copyAttachments(OutboundMail mail) throws IOException {
+        if (mail.getAttachments().isEmpty()) {
+            return mail;
+        }
+        Path target = attachmentsOf(mail);
+        List<Path> copies = new ArrayList<>();
+        try {
+            for (int i = 0; i < mail.getAttachments().size(); i++) {
+                Path attachment = mail.getAttachments().get(i);
+                Path copy = target.resolve(String.valueOf(i)).resolve(attachment.getFileName());
+                Files.createDirectories(copy.getParent());
+                Files.copy(attachment, copy, StandardCopyOption.REPLACE_EXISTING);
+                copies.add(copy.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            deleteRecursively(target);
+            throw e;
+        }
+        return mail.withAttachments(copies);
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path entry : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(entry);
+            }
+        }
+    }
+
+    private void write(OutboundMail mail) throws IOException {
+        Path file = fileOf(mail);
+        Path temp = directory.resolve(mail.getId() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            write(mail, out);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void write(OutboundMail mail, OutputStream stream) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+        out.writeByte(FORMAT_VERSION);
+        writeString(out, mail.getId());
+        out.writeLong(mail.getCreatedAt());
+        out.writeInt(mail.getRecipients().size());
+        for (String recipient : mail.getRecipients()) {
+            writeString(out, recipient);
+        }
+        writeString(out, mail.getSubject());
+        writeString(out, mail.getBody());
+        out.writeInt(mail.getAttachments().size());
+        for (Path attachment : mail.getAttachments()) {
+            writeString(out, attachment.toAbsolutePath().toString());
+        }
+        out.writeInt(mail.getAttempts());
+        out.writeLong(mail.getNextAttemptAt());
+        out.writeBoolean(mail.getLastError() != null);
+        if (mail.getLastError() != null) {
+            writeString(out, mail.getLastError());
+        }
+        out.flush();
+    }
+
+    static OutboundMail read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported mail spool format: " + version);
+        }
+        String id = readString(in);
+        long createdAt = in.readLong();
+        int recipientCount = in.readInt();
+        List<String> recipients = new ArrayList<>(recipientCount);
+        for (int i = 0; i < recipientCount; i++) {
+            recipients.add(readString(in));
+        }
+        String subject = readString(in);
+        String body = readString(in);
+        int attachmentCount = in.readInt();
+        List<Path> attachments = new ArrayList<>(attachmentCount);
+        for (int i = 0; i < attachmentCount; i++) {
+            attachments.add(Paths.get(readString(in)));
+        }
+        int attempts = in.readInt();
+        long nextAttemptAt = in.readLong();
+        String lastError = in.readBoolean() ? readString(in) : null;
+        return new OutboundMail(id, createdAt, recipients, subject, body, attachments, attempts, nextAttemptAt,
+                lastError);
+    }
+
+    // Length-prefixed rather than writeUTF, which is limited to 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt mail spool entry");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
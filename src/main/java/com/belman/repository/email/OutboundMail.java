@@ -0,0 +1,137 @@
+package com.belman.repository.email;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * An email waiting in the outbound mail queue.
+ * <p>
+ * Attachments are referenced by path and are read from disk only while the message is sent.
+ * The {@link MailSpool} copies them when the mail is queued, so the original files may change
+ * or disappear before the mail has been delivered.
+ */
+public final class OutboundMail {
+    private final String id;
+    private final long createdAt;
+    private final List<String> recipients;
+    private final String subject;
+    private final String body;
+    private final List<Path> attachments;
+    private final int attempts;
+    private final long nextAttemptAt;
+    private final String lastError;
+
+    OutboundMail(String id, long createdAt, List<String> recipients, String subject, String body,
+                 List<Path> attachments, int attempts, long nextAttemptAt, String lastError) {
+        this.id = Objects.requireNonNull(id, "id must not be null");
+        this.createdAt = createdAt;
+        this.recipients = List.copyOf(recipients);
+        this.subject = Objects.requireNonNull(subject, "subject must not be null");
+        this.body = Objects.requireNonNull(body, "body must not be null");
+        this.attachments = List.copyOf(attachments);
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = lastError;
+    }
+
+    /**
+     * Creates a new mail that is due for sending immediately.
+     *
+     * @param recipients  the recipients' email addresses
+     * @param subject     the subject of the email
+     * @param body        the plain text body of the email
+     * @param attachments the files to attach
+     * @return the new mail
+     * @throws IllegalArgumentException if there are no recipients
+     */
+    public static OutboundMail create(List<String> recipients, String subject, String body, List<Path> attachments) {
+        if (recipients == null || recipients.isEmpty()) {
+            throw new IllegalArgumentException("A mail needs at least one recipient");
+        }
+        long now = System.currentTimeMillis();
+        return new OutboundMail(UUID.randomUUID().toString(), now, recipients, subject,
+                body != null ? body : "", attachments != null ? attachments : List.of(), 0, now, null);
+    }
+
+    /**
+     * Returns a copy of this mail with one more failed attempt, to be retried at the given time.
+     *
+     * @param nextAttemptAt the time of the next attempt, in epoch milliseconds
+     * @param error         the reason the attempt failed
+     * @return the updated mail
+     */
+    public OutboundMail withFailedAttempt(long nextAttemptAt, String error) {
+        return new OutboundMail(id, createdAt, recipients, subject, body, attachments, attempts + 1,
+                nextAttemptAt, error);
+    }
+
+    /**
+     * Returns a copy of this mail with its attachments at other paths, such as their copies in
+     * the spool.
+     *
+     * @param attachments the paths of the attachments, in the same order
+     * @return the updated mail
+     */
+    OutboundMail withAttachments(List<Path> attachments) {
+        return new OutboundMail(id, createdAt, recipients, subject, body, attachments, attempts,
+                nextAttemptAt, lastError);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public List<Path> getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * Gets the number of failed delivery attempts.
+     *
+     * @return the number of failed attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Gets the time at which the mail is due for (another) delivery attempt.
+     *
+     * @return the time of the next attempt, in epoch milliseconds
+     */
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    /**
+     * Gets the reason the last attempt failed.
+     *
+     * @return the last error, or null if no attempt has failed
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundMail{id='" + id + "', recipients=" + recipients + ", attempts=" + attempts + "}";
+    }
+}
@@ -6,25 +6,32 @@ import com.belman.domain.report.ReportAggregate;
 import com.belman.domain.services.EmailService;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Implementation of EmailService that sends emails using SMTP.
+ * <p>
+ * Reports are written to a persistent outbound queue and delivered by a {@link MailDispatcher}
+ * in the background, so sending never blocks the caller on the SMTP server. The attachments are
+ * copied into the queue when a report is sent, so the caller may delete them right away. Queued
+ * reports survive a restart of the application.
  */
-public class SmtpEmailService implements EmailService {
+public class SmtpEmailService implements EmailService, AutoCloseable {
     private static final Logger LOGGER = Logger.getLogger(SmtpEmailService.class.getName());
 
-    private final String smtpHost;
-    private final int smtpPort;
-    private final String username;
-    private final String password;
-    private final String fromAddress;
+    private final MailDispatcher dispatcher;
 
     /**
-     * Creates a new SmtpEmailService with the specified SMTP configuration.
+     * Creates a new SmtpEmailService with the specified SMTP configuration, queueing mails in
+     * the default spool directory.
      *
      * @param smtpHost    the SMTP server host
      * @param smtpPort    the SMTP server port
@@ -33,30 +40,48 @@ public class SmtpEmailService implements EmailService {
      * @param fromAddress the email address to send from
      */
     public SmtpEmailService(String smtpHost, int smtpPort, String username, String password, String fromAddress) {
-        this.smtpHost = smtpHost;
-        this.smtpPort = smtpPort;
-        this.username = username;
-        this.password = password;
-        this.fromAddress = fromAddress;
+        this(smtpHost, smtpPort, username, password, fromAddress, MailSpool.defaultDirectory());
     }
 
+    /**
+     * Creates a new SmtpEmailService with the specified SMTP configuration and spool directory.
+     *
+     * @param smtpHost       the SMTP server host
+     * @param smtpPort       the SMTP server port
+     * @param username       the SMTP server username
+     * @param password       the SMTP server password
+     * @param fromAddress    the email address to send from
+     * @param spoolDirectory the directory in which queued mails are kept
+     */
+    public SmtpEmailService(String smtpHost, int smtpPort, String username, String password, String fromAddress,
+                            Path spoolDirectory) {
+        this(new MailDispatcher(openSpool(spoolDirectory),
+                new SmtpMailTransport(smtpHost, smtpPort, username, password, fromAddress)));
+    }
+
+    /**
+     * Creates a new SmtpEmailService that queues mails with the specified dispatcher.
+     *
+     * @param dispatcher the dispatcher that delivers the queued mails
+     */
+    public SmtpEmailService(MailDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+        dispatcher.start();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Returns as soon as the report has been queued; it is delivered in the background. Returns
+     * false if the report could not be queued, for example because an attachment is missing.
+     */
     @Override
     public boolean sendReport(ReportAggregate reportAggregate, List<EmailAddress> recipients, String subject,
                               String message, List<File> attachments) {
         try {
-            // In a real implementation, this would use JavaMail API to send the email
-            LOGGER.info("Sending reportAggregate " + reportAggregate.getOrderId() + " to " + recipients.size() +
-                        " recipients");
-
-            // Log the email details for debugging
-            LOGGER.info("Subject: " + subject);
-            LOGGER.info("Message: " + message);
-            LOGGER.info("Attachments: " + (attachments != null ? attachments.size() : 0));
-
-            // Simulate sending the email
+            enqueue(reportAggregate, recipients, subject, message, attachments);
             return true;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to send email", e);
+        } catch (IOException | RuntimeException e) {
             return false;
         }
     }
@@ -66,4 +91,80 @@ public class SmtpEmailService implements EmailService {
                               List<File> attachments) {
         return sendReport(reportAggregate, Collections.singletonList(recipient), subject, message, attachments);
     }
-}
\ No newline at end of file
+
+    @Override
+    public CompletableFuture<Boolean> sendReportAsync(ReportAggregate reportAggregate, List<EmailAddress> recipients,
+                                                      String subject, String message, List<File> attachments) {
+        try {
+            return enqueue(reportAggregate, recipients, subject, message, attachments).thenApply(ignored -> true);
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Gets the number of mails waiting for delivery.
+     *
+     * @return the number of queued mails
+     */
+    public int getPendingCount() {
+        return dispatcher.getPendingMails().size();
+    }
+
+    /**
+     * Stops the background delivery. Undelivered mails stay queued for the next start.
+     */
+    @Override
+    public void close() {
+        dispatcher.close();
+    }
+
+    /**
+     * Queues a report, copying its attachments into the spool.
+     *
+     * @return a future that completes when the report has been delivered
+     * @throws IOException if an attachment cannot be copied or the mail cannot be persisted
+     */
+    private CompletableFuture<Void> enqueue(ReportAggregate reportAggregate, List<EmailAddress> recipients,
+                                            String subject, String message, List<File> attachments)
+            throws IOException {
+        try {
+            OutboundMail mail = OutboundMail.create(toStrings(recipients), subject, message, toPaths(attachments));
+            CompletableFuture<Void> delivered = dispatcher.enqueue(mail);
+            LOGGER.info("Queued report " + reportAggregate.getOrderId() + " for " + mail.getRecipients().size() +
+                        " recipients as mail " + mail.getId());
+            return delivered;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Failed to queue report " + reportAggregate.getOrderId(), e);
+            throw e;
+        }
+    }
+
+    private static MailSpool openSpool(Path spoolDirectory) {
+        try {
+            return new MailSpool(spoolDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open mail spool " + spoolDirectory, e);
+        }
+    }
+
+    private static List<String> toStrings(List<EmailAddress> recipients) {
+        List<String> addresses = new ArrayList<>();
+        if (recipients != null) {
+            for (EmailAddress recipient : recipients) {
+                addresses.add(recipient.value());
+            }
+        }
+        return addresses;
+    }
+
+    private static List<Path> toPaths(List<File> attachments) {
+        List<Path> paths = new ArrayList<>();
+        if (attachments != null) {
+            for (File attachment : attachments) {
+                paths.add(attachment.toPath());
+            }
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,189 @@
+package com.belman.repository.email;
+
+import com.sun.mail.smtp.SMTPAddressFailedException;
+import com.sun.mail.smtp.SMTPSendFailedException;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeBodyPart;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends outbound mails over one SMTP connection, which is kept open between messages.
+ * <p>
+ * Attachments are added as file parts, so they are read from disk and encoded while the
+ * message is written to the connection instead of being loaded into memory first.
+ * <p>
+ * This class is not thread-safe; the {@link MailDispatcher} uses it from its worker thread only.
+ */
+public class SmtpMailTransport implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(SmtpMailTransport.class.getName());
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final String fromAddress;
+    private Transport transport;
+
+    /**
+     * Creates a new SmtpMailTransport with the specified SMTP configuration.
+     *
+     * @param smtpHost    the SMTP server host
+     * @param smtpPort    the SMTP server port
+     * @param username    the SMTP server username, or null to send without authentication
+     * @param password    the SMTP server password
+     * @param fromAddress the email address to send from
+     */
+    public SmtpMailTransport(String smtpHost, int smtpPort, String username, String password, String fromAddress) {
+        this.host = smtpHost;
+        this.port = smtpPort;
+        this.username = username;
+        this.password = password;
+        this.fromAddress = fromAddress;
+
+        Properties props = new Properties();
+        props.put("mail.smtp.host", smtpHost);
+        props.put("mail.smtp.port", String.valueOf(smtpPort));
+        props.put("mail.smtp.auth", String.valueOf(username != null && !username.isEmpty()));
+        props.put("mail.smtp.starttls.enable", "true");
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.timeout", "30000");
+        props.put("mail.smtp.writetimeout", "30000");
+        this.session = Session.getInstance(props);
+    }
+
+    /**
+     * Opens the connection to the SMTP server, unless it is already open.
+     *
+     * @throws MessagingException if the server cannot be reached or rejects the login
+     */
+    public void connect() throws MessagingException {
+        if (transport != null && transport.isConnected()) {
+            return;
+        }
+        closeQuietly();
+        Transport newTransport = session.getTransport("smtp");
+        newTransport.connect(host, port, username, password);
+        transport = newTransport;
+    }
+
+    /**
+     * Sends a mail over the open connection, connecting first if needed.
+     *
+     * @param mail the mail to send
+     * @throws MessagingException if the message cannot be built or is not accepted by the server
+     * @throws IOException        if an attachment cannot be read
+     */
+    public void send(OutboundMail mail) throws MessagingException, IOException {
+        MimeMessage message = buildMessage(mail);
+        connect();
+        transport.sendMessage(message, message.getAllRecipients());
+    }
+
+    /**
+     * Checks whether a send failure will happen again on every retry, such as a rejected
+     * address, a permanent (5xx) SMTP reply or a missing attachment.
+     *
+     * @param failure the exception thrown by {@link #send(OutboundMail)}
+     * @return true if retrying is pointless
+     */
+    public static boolean isPermanent(Exception failure) {
+        if (failure instanceof IOException || failure instanceof AddressException) {
+            return true;
+        }
+        Exception current = failure;
+        while (current != null) {
+            if (current instanceof SMTPSendFailedException
+                && ((SMTPSendFailedException) current).getReturnCode() >= 500) {
+                return true;
+            }
+            if (current instanceof SMTPAddressFailedException
+                && ((SMTPAddressFailedException) current).getReturnCode() >= 500) {
+                return true;
+            }
+            current = current instanceof MessagingException
+                      ? ((MessagingException) current).getNextException()
+                      : null;
+        }
+        return false;
+    }
+
+    /**
+     * Closes the connection. It is opened again by the next send.
+     */
+    @Override
+    public void close() {
+        closeQuietly();
+    }
+
+    private MimeMessage buildMessage(OutboundMail mail) throws MessagingException, IOException {
+        MimeMessage message = new MimeMessage(session);
+        message.setFrom(new InternetAddress(fromAddress));
+        message.setRecipients(Message.RecipientType.TO, toAddresses(mail.getRecipients()));
+        message.setSubject(mail.getSubject(), "UTF-8");
+        message.setSentDate(new Date());
+        message.setHeader("X-Outbound-Mail-Id", mail.getId());
+
+        if (mail.getAttachments().isEmpty()) {
+            message.setText(mail.getBody(), "UTF-8");
+        } else {
+            MimeMultipart multipart = new MimeMultipart("mixed");
+            MimeBodyPart text = new MimeBodyPart();
+            text.setText(mail.getBody(), "UTF-8");
+            multipart.addBodyPart(text);
+            for (Path attachment : mail.getAttachments()) {
+                multipart.addBodyPart(attachmentPart(attachment));
+            }
+            message.setContent(multipart);
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    private static MimeBodyPart attachmentPart(Path attachment) throws MessagingException, IOException {
+        if (!Files.isRegularFile(attachment)) {
+            throw new FileNotFoundException("Attachment not found: " + attachment);
+        }
+        String contentType = Files.probeContentType(attachment);
+        MimeBodyPart part = new MimeBodyPart();
+        part.attachFile(attachment.toFile(), contentType != null ? contentType : DEFAULT_CONTENT_TYPE, "base64");
+        return part;
+    }
+
+    private static InternetAddress[] toAddresses(List<String> recipients) throws AddressException {
+        InternetAddress[] addresses = new InternetAddress[recipients.size()];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = new InternetAddress(recipients.get(i), true);
+        }
+        return addresses;
+    }
+
+    private void closeQuietly() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            LOGGER.log(Level.FINE, "Error closing SMTP connection", e);
+        }
+        transport = null;
+    }
+}
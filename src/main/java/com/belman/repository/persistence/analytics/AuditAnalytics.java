@@ -0,0 +1,364 @@
+package com.belman.repository.persistence.analytics;
+
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
+import com.belman.repository.persistence.journal.JournaledAuditEvent;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory column store for compliance queries over the audit trail.
+ * <p>
+ * The audit repositories answer one question at a time and return complete events. This engine
+ * keeps only what the queries filter and group on, in columns of {@link AuditBlock}s of 65536
+ * events: the time each event occurred, delta-encoded, and its value in every dimension,
+ * dictionary-encoded with a bitmap index per value. The dimensions are the event type, entity
+ * type, entity ID and user ID of every event, plus the event properties named when the engine is
+ * created, such as "orderId" or "action".
+ * <p>
+ * An {@link AuditQuery} is answered block by block: blocks outside its time range are skipped,
+ * the index entries of the accepted values of each dimension are combined with OR, and the
+ * dimensions with AND. Only the rows that remain are read, to count them, to group them, or to
+ * pass them to an action, so a query never collects the events it matches.
+ * <p>
+ * The engine is safe for concurrent use. It is filled from the audit journal with
+ * {@link #load}, and new events can be added as they are stored.
+ */
+public class AuditAnalytics {
+
+    /**
+     * The type of the event, such as "PhotoRejected".
+     */
+    public static final String EVENT_TYPE = "eventType";
+
+    /**
+     * The type of the entity the event concerns.
+     */
+    public static final String ENTITY_TYPE = "entityType";
+
+    /**
+     * The ID of the entity the event concerns.
+     */
+    public static final String ENTITY_ID = "entityId";
+
+    /**
+     * The ID of the user who caused the event.
+     */
+    public static final String USER_ID = "userId";
+
+    private static final int FIXED_DIMENSIONS = 4;
+
+    private final List<String> dimensions;
+    private final ValueDictionary[] dictionaries;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock; only the last block is appended to
+    private final List<AuditBlock> blocks = new ArrayList<>();
+    private long eventCount;
+
+    /**
+     * Creates an empty engine.
+     *
+     * @param propertyDimensions the event properties to index besides the fixed dimensions, as
+     *                           named by {@link JournaledAuditEvent#getProperties()}
+     */
+    public AuditAnalytics(String... propertyDimensions) {
+        List<String> names = new ArrayList<>(List.of(EVENT_TYPE, ENTITY_TYPE, ENTITY_ID, USER_ID));
+        for (String property : propertyDimensions) {
+            Objects.requireNonNull(property, "propertyDimensions must not contain null");
+            if (names.contains(property)) {
+                throw new IllegalArgumentException("Duplicate audit dimension: " + property);
+            }
+            names.add(property);
+        }
+        this.dimensions = Collections.unmodifiableList(names);
+        this.dictionaries = new ValueDictionary[names.size()];
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new ValueDictionary();
+        }
+    }
+
+    /**
+     * Creates an engine with the events of the audit journal that occurred in a time range.
+     * The journal is read in one pass without collecting its events.
+     *
+     * @param journal            the audit journal
+     * @param from               the start of the range, inclusive
+     * @param to                 the end of the range, exclusive
+     * @param propertyDimensions the event properties to index besides the fixed dimensions
+     * @return the engine
+     */
+    public static AuditAnalytics load(JournalAuditRepository journal, Instant from, Instant to,
+                                      String... propertyDimensions) {
+        Objects.requireNonNull(journal, "journal must not be null");
+        AuditAnalytics analytics = new AuditAnalytics(propertyDimensions);
+        analytics.lock.writeLock().lock();
+        try {
+            journal.forEachEventBetween(from, to, analytics::append);
+        } finally {
+            analytics.lock.writeLock().unlock();
+        }
+        return analytics;
+    }
+
+    /**
+     * Gets the dimensions of the engine: the fixed dimensions followed by the indexed properties.
+     *
+     * @return the dimension names
+     */
+    public List<String> getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * Adds an audit event.
+     *
+     * @param event the event to add
+     */
+    public void add(AuditEvent event) {
+        Objects.requireNonNull(event, "event must not be null");
+        JournaledAuditEvent described = JournaledAuditEvent.of(event);
+        lock.writeLock().lock();
+        try {
+            append(described);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds audit events.
+     *
+     * @param events the events to add
+     */
+    public void addAll(List<? extends AuditEvent> events) {
+        Objects.requireNonNull(events, "events must not be null");
+        List<JournaledAuditEvent> described = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            described.add(JournaledAuditEvent.of(Objects.requireNonNull(event, "events must not contain null")));
+        }
+        lock.writeLock().lock();
+        try {
+            described.forEach(this::append);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of events in the engine.
+     *
+     * @return the number of events
+     */
+    public long getEventCount() {
+        lock.readLock().lock();
+        try {
+            return eventCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the events that match a query.
+     *
+     * @param query the query
+     * @return the number of matching events
+     */
+    public long count(AuditQuery query) {
+        long[] count = {0};
+        execute(query, (block, rows) -> count[0] += rows.size());
+        return count[0];
+    }
+
+    /**
+     * Counts the events that match a query by their value in a dimension.
+     * Events without a value in the dimension are not counted.
+     *
+     * @param query     the query
+     * @param dimension the dimension to group by
+     * @return the number of matching events per value, largest first
+     */
+    public Map<String, Long> countBy(AuditQuery query, String dimension) {
+        int grouped = dimensionIndex(dimension);
+        Map<Integer, Long> counts = new LinkedHashMap<>();
+        execute(query, (block, rows) -> {
+            Map<Integer, RowSet> index = block.index(grouped);
+            if (index.size() <= rows.size()) {
+                // Few values: intersect the matching rows with the index entry of each value
+                index.forEach((code, valueRows) -> {
+                    int count = rows.intersectionSize(valueRows);
+                    if (count > 0) {
+                        counts.merge(code, (long) count, Long::sum);
+                    }
+                });
+            } else {
+                // Few rows: read the value of each matching row
+                for (int row = rows.next(0); row >= 0; row = rows.next(row + 1)) {
+                    int code = block.code(grouped, row);
+                    if (code != ValueDictionary.NO_VALUE) {
+                        counts.merge(code, 1L, Long::sum);
+                    }
+                }
+            }
+        });
+
+        Map<String, Long> result = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            counts.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder())
+                                    .thenComparing(Map.Entry.comparingByKey()))
+                    .forEach(entry -> result.put(dictionaries[grouped].decode(entry.getKey()), entry.getValue()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Passes the events that match a query to an action, in the order they were added, without
+     * collecting them first. The action runs while the engine is locked for reading, so it must
+     * not add events to it.
+     *
+     * @param query  the query
+     * @param action the action to perform for each matching event
+     */
+    public void forEach(AuditQuery query, Consumer<? super AuditRow> action) {
+        Objects.requireNonNull(action, "action must not be null");
+        execute(query, (block, rows) -> {
+            long[] times = block.decodeTimes();
+            for (int row = rows.next(0); row >= 0; row = rows.next(row + 1)) {
+                String[] values = new String[dictionaries.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = dictionaries[i].decode(block.code(i, row));
+                }
+                action.accept(new AuditRow(block.eventId(row), Instant.ofEpochMilli(times[row]), dimensions, values));
+            }
+        });
+    }
+
+    private void append(JournaledAuditEvent event) {
+        int[] codes = new int[dictionaries.length];
+        codes[0] = dictionaries[0].encode(event.getEventType());
+        codes[1] = dictionaries[1].encode(event.getEntityType());
+        codes[2] = dictionaries[2].encode(event.getEntityId());
+        codes[3] = dictionaries[3].encode(event.getUserId());
+        for (int i = FIXED_DIMENSIONS; i < codes.length; i++) {
+            codes[i] = dictionaries[i].encode(event.getProperty(dimensions.get(i)));
+        }
+
+        AuditBlock block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (block == null || block.isFull()) {
+            if (block != null) {
+                block.seal();
+            }
+            block = new AuditBlock(dictionaries.length);
+            blocks.add(block);
+        }
+        block.append(event.getEventId(), event.getOccurredOn().toEpochMilli(), codes);
+        eventCount++;
+    }
+
+    /**
+     * Finds the matching rows of every block and passes them to a visitor, holding the read lock.
+     */
+    private void execute(AuditQuery query, BlockVisitor visitor) {
+        Objects.requireNonNull(query, "query must not be null");
+        long from = query.getFrom() != null ? query.getFrom().toEpochMilli() : Long.MIN_VALUE;
+        long to = query.getTo() != null ? query.getTo().toEpochMilli() : Long.MAX_VALUE;
+        if (from >= to) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            List<int[]> filterDimensions = new ArrayList<>();
+            for (Map.Entry<String, Set<String>> filter : query.getFilters().entrySet()) {
+                int dimension = dimensionIndex(filter.getKey());
+                int[] codes = filter.getValue().stream()
+                        .mapToInt(dictionaries[dimension]::find)
+                        .filter(code -> code != ValueDictionary.NO_VALUE)
+                        .toArray();
+                if (codes.length == 0) {
+                    // No event has any of the accepted values
+                    return;
+                }
+                int[] entry = new int[codes.length + 1];
+                entry[0] = dimension;
+                System.arraycopy(codes, 0, entry, 1, codes.length);
+                filterDimensions.add(entry);
+            }
+
+            for (AuditBlock block : blocks) {
+                if (block.size() == 0 || block.getMaxMillis() < from || block.getMinMillis() >= to) {
+                    continue;
+                }
+                RowSet rows = matchingRows(block, filterDimensions);
+                if (rows == null) {
+                    continue;
+                }
+                if (block.getMinMillis() < from || block.getMaxMillis() >= to) {
+                    long[] times = block.decodeTimes();
+                    for (int row = rows.next(0); row >= 0; row = rows.next(row + 1)) {
+                        if (times[row] < from || times[row] >= to) {
+                            rows.remove(row);
+                        }
+                    }
+                }
+                if (!rows.isEmpty()) {
+                    visitor.visit(block, rows);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static RowSet matchingRows(AuditBlock block, List<int[]> filterDimensions) {
+        if (filterDimensions.isEmpty()) {
+            return RowSet.firstRows(block.size());
+        }
+        RowSet rows = null;
+        for (int[] filter : filterDimensions) {
+            int[] codes = new int[filter.length - 1];
+            System.arraycopy(filter, 1, codes, 0, codes.length);
+            RowSet accepted = block.rowsWithAny(filter[0], codes);
+            if (accepted == null) {
+                return null;
+            }
+            if (rows == null) {
+                rows = accepted;
+            } else {
+                rows.and(accepted);
+            }
+            if (rows.isEmpty()) {
+                return null;
+            }
+        }
+        return rows;
+    }
+
+    private int dimensionIndex(String dimension) {
+        int index = dimensions.indexOf(dimension);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown audit dimension: " + dimension);
+        }
+        return index;
+    }
+
+    private interface BlockVisitor {
+        void visit(AuditBlock block, RowSet rows);
+    }
+}
@@ -0,0 +1,178 @@
+package com.belman.repository.persistence.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A block of up to {@value #CAPACITY} audit events stored column by column.
+ * <p>
+ * The occurred-on times are stored as zigzag varint deltas to the previous row, in milliseconds,
+ * which takes one to three bytes per row for events stored in time order; the block keeps its
+ * earliest and latest time so time-range queries skip blocks without decoding them. Every
+ * dimension is a column of dictionary codes with a bitmap index: a {@link RowSet} per code that
+ * occurs in the block. Only the last block of an {@link AuditAnalytics} is appended to; the
+ * others are sealed and never change.
+ */
+final class AuditBlock {
+    static final int CAPACITY = 1 << 16;
+
+    private int size;
+
+    private byte[] times = new byte[256];
+    private int timesLength;
+    private long firstMillis;
+    private long lastMillis;
+    private long minMillis = Long.MAX_VALUE;
+    private long maxMillis = Long.MIN_VALUE;
+
+    private long[] eventIds = new long[64];
+    private final int[][] codes;
+    private final Map<Integer, RowSet>[] index;
+
+    @SuppressWarnings("unchecked")
+    AuditBlock(int dimensionCount) {
+        codes = new int[dimensionCount][16];
+        index = new Map[dimensionCount];
+        for (int i = 0; i < dimensionCount; i++) {
+            index[i] = new HashMap<>();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == CAPACITY;
+    }
+
+    long getMinMillis() {
+        return minMillis;
+    }
+
+    long getMaxMillis() {
+        return maxMillis;
+    }
+
+    /**
+     * Appends an event. The caller checks that the block is not full.
+     *
+     * @param eventId    the ID of the event
+     * @param millis     the time the event occurred, in epoch milliseconds
+     * @param valueCodes the dictionary code of the event in every dimension
+     */
+    void append(UUID eventId, long millis, int[] valueCodes) {
+        int row = size;
+        if (row == codes[0].length) {
+            int capacity = Math.min(row * 2, CAPACITY);
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = Arrays.copyOf(codes[i], capacity);
+            }
+            eventIds = Arrays.copyOf(eventIds, capacity * 2);
+        }
+        if (row == 0) {
+            firstMillis = millis;
+        }
+        appendTime(millis - (row == 0 ? millis : lastMillis));
+        lastMillis = millis;
+        minMillis = Math.min(minMillis, millis);
+        maxMillis = Math.max(maxMillis, millis);
+
+        eventIds[row * 2] = eventId.getMostSignificantBits();
+        eventIds[row * 2 + 1] = eventId.getLeastSignificantBits();
+        for (int i = 0; i < codes.length; i++) {
+            int code = valueCodes[i];
+            codes[i][row] = code;
+            if (code != ValueDictionary.NO_VALUE) {
+                index[i].computeIfAbsent(code, c -> RowSet.empty()).append(row);
+            }
+        }
+        size++;
+    }
+
+    /**
+     * Releases the spare capacity of the block once it is full.
+     */
+    void seal() {
+        times = Arrays.copyOf(times, timesLength);
+        for (Map<Integer, RowSet> rowSets : index) {
+            rowSets.values().forEach(RowSet::trim);
+        }
+    }
+
+    /**
+     * Gets the rows that have one of the given codes in a dimension.
+     *
+     * @param dimension  the dimension
+     * @param valueCodes the codes to look for
+     * @return a new set of the rows, or null if there are none
+     */
+    RowSet rowsWithAny(int dimension, int[] valueCodes) {
+        RowSet rows = null;
+        for (int code : valueCodes) {
+            RowSet matching = index[dimension].get(code);
+            if (matching != null) {
+                if (rows == null) {
+                    rows = matching.mutableCopy();
+                } else {
+                    rows.or(matching);
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Gets the bitmap index of a dimension: the rows of every code that occurs in the block.
+     */
+    Map<Integer, RowSet> index(int dimension) {
+        return index[dimension];
+    }
+
+    int code(int dimension, int row) {
+        return codes[dimension][row];
+    }
+
+    UUID eventId(int row) {
+        return new UUID(eventIds[row * 2], eventIds[row * 2 + 1]);
+    }
+
+    /**
+     * Decodes the time column.
+     *
+     * @return the time of every row, in epoch milliseconds
+     */
+    long[] decodeTimes() {
+        long[] decoded = new long[size];
+        long millis = 0;
+        int position = 0;
+        for (int row = 0; row < size; row++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = times[position++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            long delta = (value >>> 1) ^ -(value & 1);
+            millis = row == 0 ? firstMillis : millis + delta;
+            decoded[row] = millis;
+        }
+        return decoded;
+    }
+
+    private void appendTime(long delta) {
+        if (timesLength + 10 > times.length) {
+            times = Arrays.copyOf(times, times.length * 2);
+        }
+        long value = (delta << 1) ^ (delta >> 63);
+        while ((value & ~0x7FL) != 0) {
+            times[timesLength++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        times[timesLength++] = (byte) value;
+    }
+}
@@ -0,0 +1,175 @@
+package com.belman.repository.persistence.analytics;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A filter on audit events for {@link AuditAnalytics}.
+ * <p>
+ * A query matches the events that have one of the given values in every filtered dimension and
+ * that occurred in its time range, for example all "PhotoRejected" events by one inspector on a
+ * set of orders in the last quarter:
+ * <pre>
+ * AuditQuery query = AuditQuery.builder()
+ *         .where(AuditAnalytics.EVENT_TYPE, "PhotoRejected")
+ *         .where(AuditAnalytics.USER_ID, inspectorId)
+ *         .where("orderId", customerOrderIds)
+ *         .between(quarterStart, quarterEnd)
+ *         .build();
+ * </pre>
+ */
+public final class AuditQuery {
+    private final Map<String, Set<String>> filters;
+    private final Instant from;
+    private final Instant to;
+
+    private AuditQuery(Builder builder) {
+        Map<String, Set<String>> copy = new LinkedHashMap<>();
+        builder.filters.forEach((dimension, values) ->
+                copy.put(dimension, Collections.unmodifiableSet(new LinkedHashSet<>(values))));
+        this.filters = Collections.unmodifiableMap(copy);
+        this.from = builder.from;
+        this.to = builder.to;
+    }
+
+    /**
+     * Creates a new builder for constructing AuditQuery instances.
+     *
+     * @return a new AuditQuery builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Gets a query that matches all events.
+     *
+     * @return the query
+     */
+    public static AuditQuery all() {
+        return builder().build();
+    }
+
+    /**
+     * Gets the accepted values by dimension.
+     *
+     * @return the filters, in the order they were added
+     */
+    public Map<String, Set<String>> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Gets the start of the time range, inclusive.
+     *
+     * @return the start, or null if the range is open
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the end of the time range, exclusive.
+     *
+     * @return the end, or null if the range is open
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditQuery{" +
+               "filters=" + filters +
+               ", from=" + from +
+               ", to=" + to +
+               '}';
+    }
+
+    /**
+     * Builder for AuditQuery.
+     */
+    public static final class Builder {
+        private final Map<String, Set<String>> filters = new LinkedHashMap<>();
+        private Instant from;
+        private Instant to;
+
+        private Builder() {
+        }
+
+        /**
+         * Only matches events with one of the given values in a dimension.
+         * Filtering the same dimension again keeps only the values accepted by both filters.
+         *
+         * @param dimension the dimension, for example {@link AuditAnalytics#USER_ID}
+         * @param values    the accepted values
+         * @return this builder
+         */
+        public Builder where(String dimension, String... values) {
+            return where(dimension, List.of(values));
+        }
+
+        /**
+         * Only matches events with one of the given values in a dimension.
+         * Filtering the same dimension again keeps only the values accepted by both filters.
+         *
+         * @param dimension the dimension, for example {@link AuditAnalytics#USER_ID}
+         * @param values    the accepted values
+         * @return this builder
+         */
+        public Builder where(String dimension, Collection<String> values) {
+            Objects.requireNonNull(dimension, "dimension must not be null");
+            Objects.requireNonNull(values, "values must not be null");
+            Set<String> accepted = new LinkedHashSet<>(values);
+            filters.merge(dimension, accepted, (existing, added) -> {
+                existing.retainAll(added);
+                return existing;
+            });
+            return this;
+        }
+
+        /**
+         * Only matches events that occurred at or after the given time.
+         *
+         * @param from the start of the range, inclusive
+         * @return this builder
+         */
+        public Builder from(Instant from) {
+            this.from = Objects.requireNonNull(from, "from must not be null");
+            return this;
+        }
+
+        /**
+         * Only matches events that occurred before the given time.
+         *
+         * @param to the end of the range, exclusive
+         * @return this builder
+         */
+        public Builder to(Instant to) {
+            this.to = Objects.requireNonNull(to, "to must not be null");
+            return this;
+        }
+
+        /**
+         * Only matches events that occurred in a time range.
+         *
+         * @param from the start of the range, inclusive
+         * @param to   the end of the range, exclusive
+         * @return this builder
+         */
+        public Builder between(Instant from, Instant to) {
+            return from(from).to(to);
+        }
+
+        public AuditQuery build() {
+            return new AuditQuery(this);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.belman.repository.persistence.analytics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * An audit event returned by an {@link AuditAnalytics} query: its ID, the time it occurred to the
+ * millisecond, and its value in every dimension of the engine.
+ */
+public final class AuditRow {
+    private final UUID eventId;
+    private final Instant occurredOn;
+    private final List<String> dimensions;
+    private final String[] values;
+
+    AuditRow(UUID eventId, Instant occurredOn, List<String> dimensions, String[] values) {
+        this.eventId = eventId;
+        this.occurredOn = occurredOn;
+        this.dimensions = dimensions;
+        this.values = values;
+    }
+
+    public UUID getEventId() {
+        return eventId;
+    }
+
+    public Instant getOccurredOn() {
+        return occurredOn;
+    }
+
+    public String getEventType() {
+        return values[0];
+    }
+
+    public String getEntityType() {
+        return values[1];
+    }
+
+    public String getEntityId() {
+        return values[2];
+    }
+
+    public String getUserId() {
+        return values[3];
+    }
+
+    /**
+     * Gets the value of the event in a dimension.
+     *
+     * @param dimension the dimension
+     * @return the value, or null if the event has none
+     * @throws IllegalArgumentException if the engine has no such dimension
+     */
+    public String get(String dimension) {
+        int index = dimensions.indexOf(dimension);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown audit dimension: " + dimension);
+        }
+        return values[index];
+    }
+
+    @Override
+    public String toString() {
+        return "AuditRow{" +
+               "eventId=" + eventId +
+               ", occurredOn=" + occurredOn +
+               ", eventType='" + getEventType() + '\'' +
+               ", entityType='" + getEntityType() + '\'' +
+               ", entityId='" + getEntityId() + '\'' +
+               ", userId='" + getUserId() + '\'' +
+               '}';
+    }
+}
@@ -0,0 +1,213 @@
+package com.belman.repository.persistence.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Set of rows of one {@link AuditBlock}, used as bitmap index entry and as query result.
+ * <p>
+ * A block holds at most 65536 rows, so a row fits in a char. Sparse sets are kept as a sorted
+ * array of rows, which grows as rows are appended; once a set holds more than
+ * {@value #ARRAY_LIMIT} rows it switches to a bitmap of 1024 longs, which is smaller from there on
+ * and makes intersections a word-wise AND.
+ */
+final class RowSet {
+    static final int ARRAY_LIMIT = 4096;
+    private static final int WORDS = AuditBlock.CAPACITY / 64;
+
+    // Exactly one of rows and bits is set
+    private char[] rows;
+    private long[] bits;
+    private int size;
+
+    private RowSet(char[] rows, long[] bits, int size) {
+        this.rows = rows;
+        this.bits = bits;
+        this.size = size;
+    }
+
+    static RowSet empty() {
+        return new RowSet(new char[4], null, 0);
+    }
+
+    /**
+     * Creates a set of the first rows of a block.
+     *
+     * @param count the number of rows
+     * @return the rows 0 to count - 1
+     */
+    static RowSet firstRows(int count) {
+        long[] bits = new long[WORDS];
+        Arrays.fill(bits, 0, count / 64, -1L);
+        if (count % 64 != 0) {
+            bits[count / 64] = (1L << count) - 1;
+        }
+        return new RowSet(null, bits, count);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int row) {
+        if (bits != null) {
+            return (bits[row >>> 6] & (1L << row)) != 0;
+        }
+        return Arrays.binarySearch(rows, 0, size, (char) row) >= 0;
+    }
+
+    /**
+     * Adds a row that is greater than every row in the set, as rows are appended to a block.
+     */
+    void append(int row) {
+        if (bits != null) {
+            bits[row >>> 6] |= 1L << row;
+        } else if (size == ARRAY_LIMIT) {
+            toBitmap();
+            bits[row >>> 6] |= 1L << row;
+        } else {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, Math.min(size * 2, ARRAY_LIMIT));
+            }
+            rows[size] = (char) row;
+        }
+        size++;
+    }
+
+    /**
+     * Releases the spare capacity of a set that no longer grows.
+     */
+    void trim() {
+        if (rows != null && rows.length > size) {
+            rows = Arrays.copyOf(rows, size);
+        }
+    }
+
+    /**
+     * Adds all rows of another set to this set, which must be a bitmap.
+     */
+    void or(RowSet other) {
+        if (other.bits != null) {
+            for (int i = 0; i < WORDS; i++) {
+                bits[i] |= other.bits[i];
+            }
+        } else {
+            for (int i = 0; i < other.size; i++) {
+                bits[other.rows[i] >>> 6] |= 1L << other.rows[i];
+            }
+        }
+        size = cardinality(bits);
+    }
+
+    /**
+     * Keeps only the rows that are also in another set; this set must be a bitmap.
+     */
+    void and(RowSet other) {
+        if (other.bits != null) {
+            for (int i = 0; i < WORDS; i++) {
+                bits[i] &= other.bits[i];
+            }
+        } else {
+            long[] kept = new long[WORDS];
+            for (int i = 0; i < other.size; i++) {
+                int row = other.rows[i];
+                kept[row >>> 6] |= bits[row >>> 6] & (1L << row);
+            }
+            bits = kept;
+        }
+        size = cardinality(bits);
+    }
+
+    /**
+     * Counts the rows that are in both sets without building the intersection.
+     */
+    int intersectionSize(RowSet other) {
+        if (bits != null && other.bits != null) {
+            int count = 0;
+            for (int i = 0; i < WORDS; i++) {
+                count += Long.bitCount(bits[i] & other.bits[i]);
+            }
+            return count;
+        }
+        RowSet array = bits == null ? this : other;
+        RowSet probe = array == this ? other : this;
+        int count = 0;
+        for (int i = 0; i < array.size; i++) {
+            if (probe.contains(array.rows[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes a row from this set, which must be a bitmap.
+     */
+    void remove(int row) {
+        long mask = 1L << row;
+        if ((bits[row >>> 6] & mask) != 0) {
+            bits[row >>> 6] &= ~mask;
+            size--;
+        }
+    }
+
+    /**
+     * Gets a bitmap copy of this set that can be changed by {@link #or}, {@link #and} and {@link #remove}.
+     */
+    RowSet mutableCopy() {
+        if (bits != null) {
+            return new RowSet(null, bits.clone(), size);
+        }
+        RowSet copy = new RowSet(null, new long[WORDS], 0);
+        copy.or(this);
+        return copy;
+    }
+
+    /**
+     * Gets the row after the given one.
+     *
+     * @param from the first row to look at
+     * @return the first row in the set at or after from, or -1 if there is none
+     */
+    int next(int from) {
+        if (bits == null) {
+            int index = Arrays.binarySearch(rows, 0, size, (char) from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < size ? rows[index] : -1;
+        }
+        int word = from >>> 6;
+        if (word >= WORDS) {
+            return -1;
+        }
+        long remaining = bits[word] & (-1L << from);
+        while (remaining == 0) {
+            if (++word == WORDS) {
+                return -1;
+            }
+            remaining = bits[word];
+        }
+        return word * 64 + Long.numberOfTrailingZeros(remaining);
+    }
+
+    private void toBitmap() {
+        long[] bitmap = new long[WORDS];
+        for (int i = 0; i < size; i++) {
+            bitmap[rows[i] >>> 6] |= 1L << rows[i];
+        }
+        bits = bitmap;
+        rows = null;
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+}
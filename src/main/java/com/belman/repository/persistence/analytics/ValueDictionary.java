@@ -0,0 +1,56 @@
+package com.belman.repository.persistence.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encoding of the values of one dimension.
+ * Each distinct value is stored once and rows hold its code; codes are assigned in order of first
+ * appearance and are never reused.
+ */
+final class ValueDictionary {
+    static final int NO_VALUE = -1;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Gets the code of a value, adding the value if it is new.
+     *
+     * @param value the value, or null
+     * @return the code, or {@link #NO_VALUE} for null
+     */
+    int encode(String value) {
+        if (value == null) {
+            return NO_VALUE;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            codes.put(value, code);
+            values.add(value);
+        }
+        return code;
+    }
+
+    /**
+     * Gets the code of a value without adding it.
+     *
+     * @param value the value
+     * @return the code, or {@link #NO_VALUE} if the value never occurred
+     */
+    int find(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : NO_VALUE;
+    }
+
+    String decode(int code) {
+        return code == NO_VALUE ? null : values.get(code);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
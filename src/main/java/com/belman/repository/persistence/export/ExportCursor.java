@@ -0,0 +1,81 @@
+package com.belman.repository.persistence.export;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Position in an export: the time and ID of the last row that was written.
+ * <p>
+ * An export resumed from a cursor continues with the row after it. The cursor can be kept as
+ * text with {@link #toString()} and read back with {@link #parse(String)}. The time is null if
+ * the last row had no time; such rows sort before all rows with a time.
+ */
+public final class ExportCursor {
+    private static final char SEPARATOR = '|';
+
+    private final Instant time;
+    private final String id;
+
+    /**
+     * Creates a new ExportCursor.
+     *
+     * @param time the time of the last written row, or null if it had no time
+     * @param id   the ID of the last written row
+     */
+    public ExportCursor(Instant time, String id) {
+        this.time = time;
+        this.id = Objects.requireNonNull(id, "id must not be null");
+    }
+
+    /**
+     * Reads a cursor written by {@link #toString()}.
+     *
+     * @param text the cursor as text
+     * @return the cursor
+     * @throws IllegalArgumentException if the text is not a cursor
+     */
+    public static ExportCursor parse(String text) {
+        Objects.requireNonNull(text, "text must not be null");
+        int separator = text.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid export cursor: " + text);
+        }
+        try {
+            Instant time = separator == 0 ? null : Instant.parse(text.substring(0, separator));
+            return new ExportCursor(time, text.substring(separator + 1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid export cursor: " + text, e);
+        }
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ExportCursor that = (ExportCursor) o;
+        return Objects.equals(time, that.time) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(time, id);
+    }
+
+    @Override
+    public String toString() {
+        return (time != null ? time.toString() : "") + SEPARATOR + id;
+    }
+}
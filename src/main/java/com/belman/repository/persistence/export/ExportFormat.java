@@ -0,0 +1,131 @@
+package com.belman.repository.persistence.export;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * File formats of an export. Every value is written as text; missing values are empty in CSV and
+ * null in JSON Lines.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values with a header line, quoted as described in RFC 4180.
+     */
+    CSV(".csv") {
+        @Override
+        void writeHeader(Writer out, List<String> columns) throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeCsvValue(out, columns.get(i));
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        void writeRow(Writer out, List<String> columns, String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (values[i] != null) {
+                    writeCsvValue(out, values[i]);
+                }
+            }
+            out.write("\r\n");
+        }
+    },
+
+    /**
+     * One JSON object per line, with the columns as keys.
+     */
+    JSON_LINES(".jsonl") {
+        @Override
+        void writeHeader(Writer out, List<String> columns) {
+            // Every line names its columns
+        }
+
+        @Override
+        void writeRow(Writer out, List<String> columns, String[] values) throws IOException {
+            out.write('{');
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                writeJsonString(out, columns.get(i));
+                out.write(':');
+                if (values[i] == null) {
+                    out.write("null");
+                } else {
+                    writeJsonString(out, values[i]);
+                }
+            }
+            out.write("}\n");
+        }
+    };
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the file name extension of the format, without compression.
+     *
+     * @return the extension, including the dot
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    abstract void writeHeader(Writer out, List<String> columns) throws IOException;
+
+    abstract void writeRow(Writer out, List<String> columns, String[] values) throws IOException;
+
+    private static void writeCsvValue(Writer out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+                }
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,65 @@
+package com.belman.repository.persistence.export;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Opens the files and writers the export jobs write to.
+ */
+final class ExportOutput {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ExportOutput() {
+    }
+
+    /**
+     * Opens an export file. A new export replaces the file; a resumed export is appended to it.
+     *
+     * @param target  the export file
+     * @param request the export request
+     * @return the stream to write the export to
+     * @throws IOException if the file cannot be opened
+     */
+    static OutputStream openFile(Path target, ExportRequest request) throws IOException {
+        StandardOpenOption mode = request.getResumeAfter() != null
+                                  ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING;
+        return Files.newOutputStream(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, mode);
+    }
+
+    /**
+     * Opens a buffered writer on a stream, optionally gzip-compressed. Closing the writer finishes
+     * the compression and flushes the stream, but does not close it.
+     *
+     * @param target     the stream to write to, owned by the caller
+     * @param compressed whether to write with gzip compression
+     * @return the writer
+     * @throws IOException if the compression header cannot be written
+     */
+    static Writer writer(OutputStream target, boolean compressed) throws IOException {
+        OutputStream out = new FilterOutputStream(target) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // The caller owns the target
+                flush();
+            }
+        };
+        if (compressed) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
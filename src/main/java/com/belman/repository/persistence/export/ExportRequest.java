@@ -0,0 +1,224 @@
+package com.belman.repository.persistence.export;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Describes an export: what is exported, how it is written, and where it resumes.
+ * <p>
+ * For example, the history of an order as compressed JSON Lines:
+ * <pre>
+ * ExportRequest request = ExportRequest.builder(ExportSource.AUDIT_EVENTS)
+ *         .where("entity_id", orderId.id())
+ *         .format(ExportFormat.JSON_LINES)
+ *         .compressed(true)
+ *         .build();
+ * </pre>
+ */
+public final class ExportRequest {
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final ExportSource source;
+    private final ExportFormat format;
+    private final boolean compressed;
+    private final Map<String, String> filters;
+    private final Instant from;
+    private final Instant to;
+    private final ExportCursor resumeAfter;
+    private final int fetchSize;
+    private final long maxRows;
+
+    private ExportRequest(Builder builder) {
+        this.source = builder.source;
+        this.format = builder.format;
+        this.compressed = builder.compressed;
+        this.filters = Collections.unmodifiableMap(new LinkedHashMap<>(builder.filters));
+        this.from = builder.from;
+        this.to = builder.to;
+        this.resumeAfter = builder.resumeAfter;
+        this.fetchSize = builder.fetchSize;
+        this.maxRows = builder.maxRows;
+    }
+
+    /**
+     * Creates a new builder for an export of the given source, as CSV without compression.
+     *
+     * @param source what to export
+     * @return a new ExportRequest builder
+     */
+    public static Builder builder(ExportSource source) {
+        return new Builder(source);
+    }
+
+    public ExportSource getSource() {
+        return source;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Checks whether the export is written with gzip compression.
+     *
+     * @return true if the export is compressed
+     */
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    /**
+     * Gets the required column values.
+     *
+     * @return the values by column
+     */
+    public Map<String, String> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Gets the start of the time range, inclusive.
+     *
+     * @return the start, or null if the range is open
+     */
+    public Instant getFrom() {
+        return from;
+    }
+
+    /**
+     * Gets the end of the time range, exclusive.
+     *
+     * @return the end, or null if the range is open
+     */
+    public Instant getTo() {
+        return to;
+    }
+
+    /**
+     * Gets the cursor the export resumes after.
+     *
+     * @return the cursor, or null to start at the beginning
+     */
+    public ExportCursor getResumeAfter() {
+        return resumeAfter;
+    }
+
+    /**
+     * Gets the number of rows the database driver fetches at a time. Exports from the audit
+     * journal read it in place and do not use it.
+     *
+     * @return the fetch size
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Gets the maximum number of rows a run writes.
+     *
+     * @return the maximum, or 0 for no limit
+     */
+    public long getMaxRows() {
+        return maxRows;
+    }
+
+    /**
+     * Builder for ExportRequest.
+     */
+    public static final class Builder {
+        private final ExportSource source;
+        private final Map<String, String> filters = new LinkedHashMap<>();
+        private ExportFormat format = ExportFormat.CSV;
+        private boolean compressed;
+        private Instant from;
+        private Instant to;
+        private ExportCursor resumeAfter;
+        private int fetchSize = DEFAULT_FETCH_SIZE;
+        private long maxRows;
+
+        private Builder(ExportSource source) {
+            this.source = Objects.requireNonNull(source, "source must not be null");
+        }
+
+        public Builder format(ExportFormat format) {
+            this.format = Objects.requireNonNull(format, "format must not be null");
+            return this;
+        }
+
+        public Builder compressed(boolean compressed) {
+            this.compressed = compressed;
+            return this;
+        }
+
+        /**
+         * Only exports rows with the given value in a column.
+         *
+         * @param column one of the {@link ExportSource#getFilterColumns() filter columns} of the source
+         * @param value  the required value
+         * @return this builder
+         * @throws IllegalArgumentException if the source cannot be filtered on the column
+         */
+        public Builder where(String column, String value) {
+            Objects.requireNonNull(column, "column must not be null");
+            Objects.requireNonNull(value, "value must not be null");
+            if (!source.getFilterColumns().contains(column)) {
+                throw new IllegalArgumentException("Cannot filter " + source + " on column: " + column);
+            }
+            filters.put(column, value);
+            return this;
+        }
+
+        /**
+         * Only exports rows whose time is in a range.
+         *
+         * @param from the start of the range, inclusive, or null
+         * @param to   the end of the range, exclusive, or null
+         * @return this builder
+         */
+        public Builder between(Instant from, Instant to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        /**
+         * Resumes an export after the last row an earlier run wrote.
+         *
+         * @param cursor the cursor of the earlier run, or null to start at the beginning
+         * @return this builder
+         */
+        public Builder resumeAfter(ExportCursor cursor) {
+            this.resumeAfter = cursor;
+            return this;
+        }
+
+        public Builder fetchSize(int fetchSize) {
+            if (fetchSize <= 0) {
+                throw new IllegalArgumentException("fetchSize must be positive");
+            }
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * Stops a run after the given number of rows; it can be resumed from its cursor.
+         *
+         * @param maxRows the maximum number of rows, or 0 for no limit
+         * @return this builder
+         */
+        public Builder maxRows(long maxRows) {
+            if (maxRows < 0) {
+                throw new IllegalArgumentException("maxRows must not be negative");
+            }
+            this.maxRows = maxRows;
+            return this;
+        }
+
+        public ExportRequest build() {
+            return new ExportRequest(this);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.belman.repository.persistence.export;
+
+/**
+ * Outcome of running an {@link SqlExportJob} or a {@link JournalExportJob}.
+ */
+public final class ExportResult {
+    private final long rowCount;
+    private final ExportCursor cursor;
+    private final boolean complete;
+
+    ExportResult(long rowCount, ExportCursor cursor, boolean complete) {
+        this.rowCount = rowCount;
+        this.cursor = cursor;
+        this.complete = complete;
+    }
+
+    /**
+     * Gets the number of rows written by this run.
+     *
+     * @return the number of rows
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Gets the cursor to resume the export from: the last row written by this run, or the cursor
+     * this run was resumed from if it wrote no rows.
+     *
+     * @return the cursor, or null if no row has been written yet
+     */
+    public ExportCursor getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Checks whether all matching rows have been written, or whether the run was cancelled or
+     * reached its row limit.
+     *
+     * @return true if the export is complete
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportResult{" +
+               "rowCount=" + rowCount +
+               ", cursor=" + cursor +
+               ", complete=" + complete +
+               '}';
+    }
+}
@@ -0,0 +1,84 @@
+package com.belman.repository.persistence.export;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Data that can be exported, with the columns that are written and can be filtered on.
+ * <p>
+ * Sources with a table are exported from the database by a {@link SqlExportJob}; the audit trail
+ * is exported from the audit journal by a {@link JournalExportJob}.
+ * <p>
+ * Rows are exported in order of their time column and then their ID, which is also the order of
+ * the {@link ExportCursor} an export can be resumed from.
+ */
+public enum ExportSource {
+
+    /**
+     * The audit trail: one row per audit event, in the order the events were stored in the audit
+     * journal. The other properties of an event are written as one "name=value" line each.
+     */
+    AUDIT_EVENTS(null, "occurred_on",
+            List.of("id", "occurred_on", "event_type", "entity_type", "entity_id", "user_id", "properties"),
+            Set.of("event_type", "entity_type", "entity_id", "user_id"),
+            Set.of("occurred_on")),
+
+    /**
+     * Photo documents and their review decisions, in the order they were uploaded.
+     */
+    PHOTO_DOCUMENTS("photo_documents", "uploaded_at",
+            List.of("id", "order_id", "angle", "image_path", "status", "uploaded_by", "uploaded_at", "reviewed_by",
+                    "reviewed_at", "review_comment"),
+            Set.of("order_id", "status", "uploaded_by", "reviewed_by"),
+            Set.of("uploaded_at", "reviewed_at"));
+
+    private final String table;
+    private final String timeColumn;
+    private final List<String> columns;
+    private final Set<String> filterColumns;
+    private final Set<String> timestampColumns;
+
+    ExportSource(String table, String timeColumn, List<String> columns, Set<String> filterColumns,
+                 Set<String> timestampColumns) {
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.columns = columns;
+        this.filterColumns = filterColumns;
+        this.timestampColumns = timestampColumns;
+    }
+
+    /**
+     * Gets the database table of the source.
+     *
+     * @return the table, or null if the source is not stored in the database
+     */
+    String getTable() {
+        return table;
+    }
+
+    String getTimeColumn() {
+        return timeColumn;
+    }
+
+    /**
+     * Gets the columns that are exported, in the order they are written.
+     *
+     * @return the column names
+     */
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets the columns an export can be filtered on.
+     *
+     * @return the column names
+     */
+    public Set<String> getFilterColumns() {
+        return filterColumns;
+    }
+
+    boolean isTimestamp(String column) {
+        return timestampColumns.contains(column);
+    }
+}
@@ -0,0 +1,198 @@
+package com.belman.repository.persistence.export;
+
+import com.belman.repository.persistence.journal.JournalAuditRepository;
+import com.belman.repository.persistence.journal.JournaledAuditEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams the audit trail from the audit journal to a CSV or JSON Lines file.
+ * <p>
+ * The events are read in place from the journal in the order they were stored, and each matching
+ * event is written through a buffered, optionally gzip-compressed stream as soon as it is read,
+ * so a year of audit events exports with the usual heap. Filters and the time range of the
+ * request are applied to the events as they are read.
+ * <p>
+ * A run stops when all events are written, when it reaches the row limit of the request, or when
+ * it is {@link #cancel() cancelled} from another thread. The {@link ExportResult} then holds the
+ * time and ID of the last written event. Because the journal is ordered by storage rather than
+ * by time, a request that {@link ExportRequest.Builder#resumeAfter resumes after} that cursor
+ * reads the events up to the event with its ID again and writes the events after it.
+ */
+public class JournalExportJob {
+    private static final Logger LOGGER = Logger.getLogger(JournalExportJob.class.getName());
+
+    private final JournalAuditRepository journal;
+    private final ExportRequest request;
+
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a new JournalExportJob.
+     *
+     * @param journal the audit journal to export from
+     * @param request what to export and how
+     * @throws IllegalArgumentException if the request does not export the audit trail
+     */
+    public JournalExportJob(JournalAuditRepository journal, ExportRequest request) {
+        this.journal = Objects.requireNonNull(journal, "journal must not be null");
+        this.request = Objects.requireNonNull(request, "request must not be null");
+        if (request.getSource() != ExportSource.AUDIT_EVENTS) {
+            throw new IllegalArgumentException(request.getSource() + " is not kept in the audit journal");
+        }
+    }
+
+    /**
+     * Runs the export into a file. A new export replaces the file; a resumed export is appended
+     * to it, as a new gzip member if it is compressed, which gzip readers read as one stream.
+     *
+     * @param target the export file
+     * @return the result of the run
+     * @throws IOException if the file cannot be written
+     */
+    public ExportResult run(Path target) throws IOException {
+        Objects.requireNonNull(target, "target must not be null");
+        try (OutputStream out = ExportOutput.openFile(target, request)) {
+            return run(out);
+        }
+    }
+
+    /**
+     * Runs the export into a stream, which is flushed but not closed. The header of a CSV export is
+     * only written when the export is not resumed.
+     *
+     * @param target the stream to write to
+     * @return the result of the run
+     * @throws IOException if the stream cannot be written
+     */
+    public ExportResult run(OutputStream target) throws IOException {
+        Objects.requireNonNull(target, "target must not be null");
+        List<String> columns = request.getSource().getColumns();
+        ExportFormat format = request.getFormat();
+        Instant from = request.getFrom() != null ? request.getFrom() : Instant.ofEpochMilli(Long.MIN_VALUE);
+        Instant to = request.getTo() != null ? request.getTo() : Instant.ofEpochMilli(Long.MAX_VALUE);
+
+        Run run = new Run(request.getResumeAfter());
+        boolean complete;
+        try (Writer writer = ExportOutput.writer(target, request.isCompressed())) {
+            if (run.cursor == null) {
+                format.writeHeader(writer, columns);
+            }
+            if (cancelled) {
+                return new ExportResult(0, run.cursor, false);
+            }
+            complete = journal.scanEventsBetween(from, to, event -> {
+                if (cancelled || (request.getMaxRows() > 0 && run.rowCount >= request.getMaxRows())) {
+                    return false;
+                }
+                if (run.skipping) {
+                    run.skipping = !event.getEventId().toString().equals(run.cursor.getId());
+                    return true;
+                }
+                if (matches(event)) {
+                    write(writer, format, columns, event);
+                    run.rowCount++;
+                    run.cursor = new ExportCursor(event.getOccurredOn(), event.getEventId().toString());
+                }
+                return true;
+            });
+        } catch (UncheckedIOException e) {
+            LOGGER.log(Level.SEVERE, "Error exporting the audit trail after " + run.rowCount + " rows", e);
+            throw e.getCause();
+        }
+        if (cancelled) {
+            LOGGER.info("Export of the audit trail cancelled after " + run.rowCount + " rows");
+        }
+        return new ExportResult(run.rowCount, run.cursor, complete && !cancelled);
+    }
+
+    /**
+     * Cancels a run in progress from another thread; the run stops after the event it is writing
+     * and returns its cursor.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks whether the job has been cancelled.
+     *
+     * @return true if {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private boolean matches(JournaledAuditEvent event) {
+        for (Map.Entry<String, String> filter : request.getFilters().entrySet()) {
+            if (!filter.getValue().equals(valueOf(event, filter.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void write(Writer writer, ExportFormat format, List<String> columns, JournaledAuditEvent event) {
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = valueOf(event, columns.get(i));
+        }
+        try {
+            format.writeRow(writer, columns, values);
+        } catch (IOException e) {
+            // The journal scan only passes unchecked exceptions through
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String valueOf(JournaledAuditEvent event, String column) {
+        return switch (column) {
+            case "id" -> event.getEventId().toString();
+            case "occurred_on" -> event.getOccurredOn().toString();
+            case "event_type" -> event.getEventType();
+            case "entity_type" -> event.getEntityType();
+            case "entity_id" -> event.getEntityId();
+            case "user_id" -> event.getUserId();
+            case "properties" -> properties(event);
+            default -> throw new IllegalArgumentException("Unknown audit export column: " + column);
+        };
+    }
+
+    private static String properties(JournaledAuditEvent event) {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, String> property : event.getProperties().entrySet()) {
+            if (property.getValue() == null) {
+                continue;
+            }
+            if (!text.isEmpty()) {
+                text.append('\n');
+            }
+            text.append(property.getKey()).append('=').append(property.getValue());
+        }
+        return !text.isEmpty() ? text.toString() : null;
+    }
+
+    /**
+     * Progress of a run, updated by the journal scan.
+     */
+    private static final class Run {
+        private ExportCursor cursor;
+        private boolean skipping;
+        private long rowCount;
+
+        private Run(ExportCursor resumeAfter) {
+            this.cursor = resumeAfter;
+            this.skipping = resumeAfter != null;
+        }
+    }
+}
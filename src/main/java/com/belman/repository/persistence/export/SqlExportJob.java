@@ -0,0 +1,226 @@
+package com.belman.repository.persistence.export;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Streams one table from the database to a CSV or JSON Lines file.
+ * <p>
+ * The rows are read with a single forward-only query in the order of the export cursor, and the
+ * driver fetches them {@link ExportRequest#getFetchSize() a batch at a time}; each row is written
+ * through a buffered, optionally gzip-compressed stream as soon as it is read. Memory use does
+ * not depend on the number of rows, so a year of photo decisions exports with the usual heap.
+ * The audit trail is kept in the audit journal and is exported with a {@link JournalExportJob}.
+ * <p>
+ * A run stops when all rows are written, when it reaches the row limit of the request, or when it
+ * is {@link #cancel() cancelled} from another thread. The {@link ExportResult} then holds the
+ * cursor of the last written row, and a request that {@link ExportRequest.Builder#resumeAfter
+ * resumes after} it continues the export where it stopped.
+ */
+public class SqlExportJob {
+    private static final Logger LOGGER = Logger.getLogger(SqlExportJob.class.getName());
+
+    private final DataSource dataSource;
+    private final ExportRequest request;
+
+    private volatile boolean cancelled;
+    private volatile Statement running;
+
+    /**
+     * Creates a new SqlExportJob.
+     *
+     * @param dataSource the DataSource to use for database connections
+     * @param request    what to export and how
+     * @throws IllegalArgumentException if the source of the request is not stored in the database
+     */
+    public SqlExportJob(DataSource dataSource, ExportRequest request) {
+        this.dataSource = Objects.requireNonNull(dataSource, "dataSource must not be null");
+        this.request = Objects.requireNonNull(request, "request must not be null");
+        if (request.getSource().getTable() == null) {
+            throw new IllegalArgumentException(request.getSource() + " is not stored in the database");
+        }
+    }
+
+    /**
+     * Runs the export into a file. A new export replaces the file; a resumed export is appended
+     * to it, as a new gzip member if it is compressed, which gzip readers read as one stream.
+     *
+     * @param target the export file
+     * @return the result of the run
+     * @throws IOException if the file cannot be written
+     */
+    public ExportResult run(Path target) throws IOException {
+        Objects.requireNonNull(target, "target must not be null");
+        try (OutputStream out = ExportOutput.openFile(target, request)) {
+            return run(out);
+        }
+    }
+
+    /**
+     * Runs the export into a stream, which is flushed but not closed. The header of a CSV export is
+     * only written when the export is not resumed.
+     *
+     * @param target the stream to write to
+     * @return the result of the run
+     * @throws IOException if the stream cannot be written
+     */
+    public ExportResult run(OutputStream target) throws IOException {
+        Objects.requireNonNull(target, "target must not be null");
+        ExportSource source = request.getSource();
+        List<String> columns = source.getColumns();
+        ExportFormat format = request.getFormat();
+
+        long rowCount = 0;
+        ExportCursor cursor = request.getResumeAfter();
+        boolean complete = false;
+        try (Writer writer = ExportOutput.writer(target, request.isCompressed());
+             Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(buildQuery(), ResultSet.TYPE_FORWARD_ONLY,
+                     ResultSet.CONCUR_READ_ONLY)) {
+            if (cursor == null) {
+                format.writeHeader(writer, columns);
+            }
+            bindQuery(stmt);
+            stmt.setFetchSize(request.getFetchSize());
+            running = stmt;
+            if (cancelled) {
+                return new ExportResult(0, cursor, false);
+            }
+
+            int idColumn = columns.indexOf("id");
+            int timeColumn = columns.indexOf(source.getTimeColumn());
+            String[] values = new String[columns.size()];
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (!cancelled && (request.getMaxRows() == 0 || rowCount < request.getMaxRows())) {
+                    if (!rs.next()) {
+                        complete = true;
+                        break;
+                    }
+                    Timestamp time = null;
+                    for (int i = 0; i < values.length; i++) {
+                        if (source.isTimestamp(columns.get(i))) {
+                            Timestamp timestamp = rs.getTimestamp(i + 1);
+                            values[i] = timestamp != null ? timestamp.toInstant().toString() : null;
+                            if (i == timeColumn) {
+                                time = timestamp;
+                            }
+                        } else {
+                            values[i] = rs.getString(i + 1);
+                        }
+                    }
+                    format.writeRow(writer, columns, values);
+                    rowCount++;
+                    cursor = new ExportCursor(time != null ? time.toInstant() : null, values[idColumn]);
+                }
+            }
+        } catch (SQLException e) {
+            if (cancelled) {
+                LOGGER.info("Export of " + source + " cancelled after " + rowCount + " rows");
+                return new ExportResult(rowCount, cursor, false);
+            }
+            LOGGER.log(Level.SEVERE, "Error exporting " + source + " after " + rowCount + " rows", e);
+            throw new RuntimeException("Error exporting " + source, e);
+        } finally {
+            running = null;
+        }
+        if (cancelled) {
+            LOGGER.info("Export of " + source + " cancelled after " + rowCount + " rows");
+        }
+        return new ExportResult(rowCount, cursor, complete);
+    }
+
+    /**
+     * Cancels a run in progress from another thread; the run stops after the row it is writing
+     * and returns its cursor. A query that has not returned its first row yet is cancelled in the
+     * database.
+     */
+    public void cancel() {
+        cancelled = true;
+        Statement statement = running;
+        if (statement != null) {
+            try {
+                statement.cancel();
+            } catch (SQLException e) {
+                LOGGER.log(Level.FINE, "Could not cancel the export query", e);
+            }
+        }
+    }
+
+    /**
+     * Checks whether the job has been cancelled.
+     *
+     * @return true if {@link #cancel()} was called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private String buildQuery() {
+        ExportSource source = request.getSource();
+        String time = source.getTimeColumn();
+        List<String> conditions = new ArrayList<>();
+        for (String column : request.getFilters().keySet()) {
+            // Filter columns are checked against the source, so they are safe to embed
+            conditions.add(column + " = ?");
+        }
+        if (request.getFrom() != null) {
+            conditions.add(time + " >= ?");
+        }
+        if (request.getTo() != null) {
+            conditions.add(time + " < ?");
+        }
+        if (request.getResumeAfter() != null) {
+            // Keyset condition on the sort order, so a resumed export starts at the next row
+            if (request.getResumeAfter().getTime() != null) {
+                conditions.add("(" + time + " > ? OR (" + time + " = ? AND id > ?))");
+            } else {
+                // SQLite and SQL Server both sort rows without a time first
+                conditions.add("(" + time + " IS NOT NULL OR id > ?)");
+            }
+        }
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(String.join(", ", source.getColumns()))
+                .append(" FROM ").append(source.getTable());
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY ").append(time).append(", id").toString();
+    }
+
+    private void bindQuery(PreparedStatement stmt) throws SQLException {
+        int index = 1;
+        for (Map.Entry<String, String> filter : request.getFilters().entrySet()) {
+            stmt.setString(index++, filter.getValue());
+        }
+        if (request.getFrom() != null) {
+            stmt.setTimestamp(index++, Timestamp.from(request.getFrom()));
+        }
+        if (request.getTo() != null) {
+            stmt.setTimestamp(index++, Timestamp.from(request.getTo()));
+        }
+        ExportCursor resumeAfter = request.getResumeAfter();
+        if (resumeAfter != null) {
+            if (resumeAfter.getTime() != null) {
+                Timestamp time = Timestamp.from(resumeAfter.getTime());
+                stmt.setTimestamp(index++, time);
+                stmt.setTimestamp(index++, time);
+            }
+            stmt.setString(index, resumeAfter.getId());
+        }
+    }
+}
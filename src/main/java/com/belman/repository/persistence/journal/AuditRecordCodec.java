@@ -0,0 +1,360 @@
+package com.belman.repository.persistence.journal;
+
+import com.belman.domain.audit.event.AuditEvent;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Binary encoding of audit events in the journal.
+ * <p>
+ * A record body starts with the fixed-size fields, so the time an event occurred is read at
+ * offset 0 without decoding anything else:
+ * <pre>
+ * long   occurred on, epoch second
+ * int    occurred on, nanosecond
+ * long   event ID, most significant bits
+ * long   event ID, least significant bits
+ * short  event type, entity type, entity ID and user ID, each as an unsigned length (0xFFFF for null)
+ *        followed by its UTF-8 bytes
+ * short  property count, then per property a short-length name and an int-length value (-1 for null)
+ * </pre>
+ * The identity fields can be compared with {@link #fieldEquals} on the encoded bytes, so queries
+ * only decode the records they return.
+ * <p>
+ * Records are chained with a keyed HMAC-SHA-256 over the MAC of the previous record and the
+ * record body, so a record cannot be changed, removed or inserted without the key.
+ */
+final class AuditRecordCodec {
+
+    static final int FIELD_EVENT_TYPE = 0;
+    static final int FIELD_ENTITY_TYPE = 1;
+    static final int FIELD_ENTITY_ID = 2;
+    static final int FIELD_USER_ID = 3;
+
+    static final int MAC_LENGTH = 32;
+    static final int MIN_KEY_LENGTH = 16;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int FIXED_SIZE = 28;
+    private static final int NULL_SHORT_LENGTH = 0xFFFF;
+    private static final int MAX_SHORT_LENGTH = 0xFFFE;
+
+    // Getters that are stored as fixed fields, or that are not properties of the event
+    private static final Set<String> EXCLUDED_GETTERS = Set.of("getClass", "getEventId", "getOccurredOn",
+            "getEventType", "getEntityType", "getEntityId", "getUserId", "getProperties");
+
+    private static final ClassValue<List<Method>> PROPERTY_GETTERS = new ClassValue<>() {
+        @Override
+        protected List<Method> computeValue(Class<?> type) {
+            List<Method> getters = new ArrayList<>();
+            for (Method method : type.getMethods()) {
+                if (method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers())
+                    && method.getReturnType() != void.class && propertyName(method) != null
+                    && !EXCLUDED_GETTERS.contains(method.getName())) {
+                    getters.add(method);
+                }
+            }
+            getters.sort(Comparator.comparing(Method::getName));
+            return List.copyOf(getters);
+        }
+    };
+
+    private static final String[] IDENTITY_GETTERS = {"getEntityType", "getEntityId", "getUserId"};
+
+    private static final ClassValue<Method[]> IDENTITY_METHODS = new ClassValue<>() {
+        @Override
+        protected Method[] computeValue(Class<?> type) {
+            Method[] methods = new Method[IDENTITY_GETTERS.length];
+            for (int i = 0; i < methods.length; i++) {
+                try {
+                    methods[i] = type.getMethod(IDENTITY_GETTERS[i]);
+                } catch (NoSuchMethodException e) {
+                    // The event does not concern an entity or a user
+                }
+            }
+            return methods;
+        }
+    };
+
+    private AuditRecordCodec() {
+    }
+
+    /**
+     * Encodes an audit event as a record body.
+     * The entity, the user and the other properties are read from the public getters of the
+     * event, as the in-memory repository does.
+     *
+     * @param event the event to encode
+     * @return the record body
+     * @throws IllegalArgumentException if an identity field is longer than 65534 bytes
+     */
+    static byte[] encode(AuditEvent event) {
+        JournaledAuditEvent journaled = describe(event);
+        String entityType = journaled.getEntityType();
+        String entityId = journaled.getEntityId();
+        String userId = journaled.getUserId();
+        Map<String, String> properties = journaled.getProperties();
+
+        byte[][] identity = {
+                utf8(event.getEventType()), utf8(entityType), utf8(entityId), utf8(userId)
+        };
+        List<byte[]> propertyBytes = new ArrayList<>(properties.size() * 2);
+        int size = FIXED_SIZE + identity.length * 2 + 2;
+        for (byte[] field : identity) {
+            size += checkShortLength(field);
+        }
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            byte[] name = utf8(property.getKey());
+            byte[] value = utf8(property.getValue());
+            propertyBytes.add(name);
+            propertyBytes.add(value);
+            size += 2 + checkShortLength(name) + 4 + (value != null ? value.length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        Instant occurredOn = event.getOccurredOn();
+        buffer.putLong(occurredOn.getEpochSecond());
+        buffer.putInt(occurredOn.getNano());
+        buffer.putLong(event.getEventId().getMostSignificantBits());
+        buffer.putLong(event.getEventId().getLeastSignificantBits());
+        for (byte[] field : identity) {
+            putShortString(buffer, field);
+        }
+        buffer.putShort((short) properties.size());
+        for (int i = 0; i < propertyBytes.size(); i += 2) {
+            putShortString(buffer, propertyBytes.get(i));
+            byte[] value = propertyBytes.get(i + 1);
+            if (value == null) {
+                buffer.putInt(-1);
+            } else {
+                buffer.putInt(value.length);
+                buffer.put(value);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Describes an audit event by the values the journal stores.
+     *
+     * @param event the event
+     * @return the event itself if it was read from the journal, otherwise its values
+     */
+    static JournaledAuditEvent describe(AuditEvent event) {
+        if (event instanceof JournaledAuditEvent) {
+            return (JournaledAuditEvent) event;
+        }
+        Method[] identity = IDENTITY_METHODS.get(event.getClass());
+        return new JournaledAuditEvent(event.getEventId(), event.getOccurredOn(), event.getEventType(),
+                invokeGetter(event, identity[0]), invokeGetter(event, identity[1]), invokeGetter(event, identity[2]),
+                readProperties(event));
+    }
+
+    /**
+     * Reads the time a record's event occurred, in epoch milliseconds.
+     *
+     * @param buffer the buffer holding the record
+     * @param body   the offset of the record body
+     * @return the time the event occurred
+     */
+    static long occurredOnMillis(ByteBuffer buffer, int body) {
+        return buffer.getLong(body) * 1000 + buffer.getInt(body + 8) / 1_000_000;
+    }
+
+    /**
+     * Compares an identity field of a record with the UTF-8 bytes of a value, without decoding it.
+     *
+     * @param buffer   the buffer holding the record
+     * @param body     the offset of the record body
+     * @param field    the field, one of the FIELD constants
+     * @param expected the encoded value to compare with
+     * @return true if the field holds the value
+     */
+    static boolean fieldEquals(ByteBuffer buffer, int body, int field, byte[] expected) {
+        int position = body + FIXED_SIZE;
+        for (int i = 0; i < field; i++) {
+            position += 2 + shortLength(buffer.getShort(position));
+        }
+        int length = buffer.getShort(position) & 0xFFFF;
+        if (length != expected.length) {
+            return false;
+        }
+        position += 2;
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(position + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a record body.
+     *
+     * @param buffer the buffer holding the record
+     * @param body   the offset of the record body
+     * @return the event
+     */
+    static JournaledAuditEvent decode(ByteBuffer buffer, int body) {
+        Instant occurredOn = Instant.ofEpochSecond(buffer.getLong(body), buffer.getInt(body + 8));
+        UUID eventId = new UUID(buffer.getLong(body + 12), buffer.getLong(body + 20));
+        int[] position = {body + FIXED_SIZE};
+        String eventType = readShortString(buffer, position);
+        String entityType = readShortString(buffer, position);
+        String entityId = readShortString(buffer, position);
+        String userId = readShortString(buffer, position);
+        int propertyCount = buffer.getShort(position[0]) & 0xFFFF;
+        position[0] += 2;
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (int i = 0; i < propertyCount; i++) {
+            String name = readShortString(buffer, position);
+            int length = buffer.getInt(position[0]);
+            position[0] += 4;
+            String value = null;
+            if (length >= 0) {
+                value = string(buffer, position[0], length);
+                position[0] += length;
+            }
+            properties.put(name, value);
+        }
+        return new JournaledAuditEvent(eventId, occurredOn, eventType, entityType, entityId, userId, properties);
+    }
+
+    /**
+     * Creates the MAC that chains the records of a journal.
+     * Mac instances are not thread-safe, so each thread that reads or writes the chain needs its own.
+     *
+     * @param key the secret key of the journal
+     * @return the MAC
+     * @throws IllegalArgumentException if the key is shorter than 16 bytes
+     */
+    static Mac newMac(byte[] key) {
+        if (key == null || key.length < MIN_KEY_LENGTH) {
+            throw new IllegalArgumentException("Audit journal key must be at least " + MIN_KEY_LENGTH + " bytes");
+        }
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    /**
+     * Computes the MAC of a record, chained to the MAC of the record before it.
+     *
+     * @param mac      the MAC of the journal
+     * @param previous the MAC of the previous record in the journal
+     * @param buffer   the buffer holding the record body
+     * @param body     the offset of the record body
+     * @param length   the length of the record body
+     * @return the MAC of the record
+     */
+    static byte[] chain(Mac mac, byte[] previous, ByteBuffer buffer, int body, int length) {
+        mac.update(previous);
+        mac.update(buffer.duplicate().limit(body + length).position(body));
+        return mac.doFinal();
+    }
+
+    /**
+     * Encodes a value as UTF-8 for {@link #fieldEquals}.
+     *
+     * @param value the value, or null
+     * @return the encoded value, or null
+     */
+    static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static Map<String, String> readProperties(AuditEvent event) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (Method getter : PROPERTY_GETTERS.get(event.getClass())) {
+            try {
+                Object value = getter.invoke(event);
+                properties.put(propertyName(getter), value != null ? value.toString() : null);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // A getter that fails is not part of the trail
+            }
+        }
+        return properties;
+    }
+
+    private static String invokeGetter(Object event, Method getter) {
+        if (getter == null) {
+            return null;
+        }
+        try {
+            Object value = getter.invoke(event);
+            return value != null ? value.toString() : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String propertyName(Method method) {
+        String name = method.getName();
+        int prefix = name.startsWith("get") ? 3
+                     : name.startsWith("is") && method.getReturnType() == boolean.class ? 2 : 0;
+        if (prefix == 0 || name.length() == prefix) {
+            return null;
+        }
+        return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+    }
+
+    private static int checkShortLength(byte[] value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.length > MAX_SHORT_LENGTH) {
+            throw new IllegalArgumentException("Audit field too long: " + value.length + " bytes");
+        }
+        return value.length;
+    }
+
+    private static int shortLength(short encoded) {
+        int length = encoded & 0xFFFF;
+        return length == NULL_SHORT_LENGTH ? 0 : length;
+    }
+
+    private static void putShortString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putShort((short) NULL_SHORT_LENGTH);
+        } else {
+            buffer.putShort((short) value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String readShortString(ByteBuffer buffer, int[] position) {
+        int length = buffer.getShort(position[0]) & 0xFFFF;
+        position[0] += 2;
+        if (length == NULL_SHORT_LENGTH) {
+            return null;
+        }
+        String value = string(buffer, position[0], length);
+        position[0] += length;
+        return value;
+    }
+
+    private static String string(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
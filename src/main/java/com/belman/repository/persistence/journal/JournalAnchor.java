@@ -0,0 +1,50 @@
+package com.belman.repository.persistence.journal;
+
+import java.util.Objects;
+
+/**
+ * The head of the MAC chain of an audit journal at some point in time: the number of events the
+ * journal held and the MAC of the last of them.
+ * <p>
+ * Kept outside the journal, an anchor shows whether events were later cut off the end of the
+ * journal, which leaves a chain that is valid on its own. See {@link JournalAuditRepository#verify(JournalAnchor)}.
+ *
+ * @param eventCount the number of events in the journal
+ * @param headMac    the MAC of the last event as hex, or of the chain seed if there were none
+ */
+public record JournalAnchor(long eventCount, String headMac) {
+
+    public JournalAnchor {
+        if (eventCount < 0) {
+            throw new IllegalArgumentException("eventCount must not be negative");
+        }
+        Objects.requireNonNull(headMac, "headMac must not be null");
+    }
+
+    /**
+     * Parses an anchor written by {@link #toString()}.
+     *
+     * @param value the anchor as text
+     * @return the anchor
+     * @throws IllegalArgumentException if the value is not an anchor
+     */
+    public static JournalAnchor parse(String value) {
+        int separator = value.indexOf(':');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Not an audit journal anchor: " + value);
+        }
+        try {
+            return new JournalAnchor(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an audit journal anchor: " + value, e);
+        }
+    }
+
+    /**
+     * Formats the anchor as {@code <event count>:<head MAC>}, to store it as text.
+     */
+    @Override
+    public String toString() {
+        return eventCount + ":" + headMac;
+    }
+}
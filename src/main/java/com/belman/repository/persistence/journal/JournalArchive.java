@@ -0,0 +1,160 @@
+package com.belman.repository.persistence.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A sealed segment compacted into an archive file.
+ * <p>
+ * The archive keeps the segment header uncompressed, so it is skipped by time like a segment,
+ * followed by the records without the unused tail of the segment, deflated. Archives are read by
+ * inflating them into a heap buffer with the segment layout.
+ */
+final class JournalArchive implements JournalFile {
+
+    private final Path path;
+    private final ByteBuffer header;
+
+    private JournalArchive(Path path, ByteBuffer header) {
+        this.path = path;
+        this.header = header;
+    }
+
+    /**
+     * Writes the records of a sealed segment to an archive file.
+     * The archive is written to a temporary file and moved into place, so a crash never leaves a
+     * partial archive.
+     *
+     * @param segment the sealed segment
+     * @param target  the archive file
+     * @return the archive
+     * @throws IOException if the archive cannot be written
+     */
+    static JournalArchive write(JournalSegment segment, Path target) throws IOException {
+        ByteBuffer view = segment.view();
+        ByteBuffer header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+        header.put(view.duplicate().limit(JournalSegment.HEADER_SIZE));
+        header.putShort(6, (short) (JournalSegment.FLAG_SEALED | JournalSegment.FLAG_ARCHIVED));
+        header.flip();
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+            out.write(header.array());
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DeflaterOutputStream deflated = new DeflaterOutputStream(out, deflater)) {
+                ByteBuffer records = view.duplicate().limit(segment.getEnd()).position(JournalSegment.HEADER_SIZE);
+                byte[] chunk = new byte[64 * 1024];
+                while (records.hasRemaining()) {
+                    int length = Math.min(chunk.length, records.remaining());
+                    records.get(chunk, 0, length);
+                    deflated.write(chunk, 0, length);
+                }
+            } finally {
+                deflater.end();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new JournalArchive(target, header);
+    }
+
+    /**
+     * Opens an archive, reading only its header.
+     *
+     * @param path the archive file
+     * @return the archive
+     * @throws IOException if the file cannot be read or is not an archive
+     */
+    static JournalArchive open(Path path) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(JournalSegment.HEADER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Read the whole header
+            }
+        }
+        header.flip();
+        JournalSegment.checkHeader(header, path);
+        if ((header.getShort(6) & JournalSegment.FLAG_ARCHIVED) == 0) {
+            throw new IOException("Not an audit journal archive: " + path);
+        }
+        return new JournalArchive(path, header);
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long getSequence() {
+        return header.getLong(8);
+    }
+
+    @Override
+    public long getMinOccurredOn() {
+        return header.getLong(16);
+    }
+
+    @Override
+    public long getMaxOccurredOn() {
+        return header.getLong(24);
+    }
+
+    @Override
+    public byte[] getChainSeed() {
+        return JournalSegment.readMac(header, JournalSegment.OFFSET_CHAIN_SEED);
+    }
+
+    @Override
+    public int getRecordCount() {
+        return header.getInt(JournalSegment.OFFSET_COUNT);
+    }
+
+    @Override
+    public int getEnd() {
+        return header.getInt(JournalSegment.OFFSET_END);
+    }
+
+    @Override
+    public byte[] getLastMac() {
+        return JournalSegment.readMac(header, JournalSegment.OFFSET_LAST_MAC);
+    }
+
+    /**
+     * Inflates the archive into a heap buffer with the segment layout.
+     */
+    @Override
+    public ByteBuffer view() throws IOException {
+        byte[] segment = new byte[getEnd()];
+        header.get(0, segment, 0, JournalSegment.HEADER_SIZE);
+        try (InputStream in = Files.newInputStream(path)) {
+            in.skipNBytes(JournalSegment.HEADER_SIZE);
+            try (InflaterInputStream inflated = new InflaterInputStream(in)) {
+                int read = inflated.readNBytes(segment, JournalSegment.HEADER_SIZE,
+                        segment.length - JournalSegment.HEADER_SIZE);
+                if (read != segment.length - JournalSegment.HEADER_SIZE) {
+                    throw new IOException("Truncated audit journal archive: " + path);
+                }
+            }
+        }
+        return ByteBuffer.wrap(segment).asReadOnlyBuffer();
+    }
+}
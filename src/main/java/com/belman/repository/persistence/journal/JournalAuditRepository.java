@@ -0,0 +1,644 @@
+package com.belman.repository.persistence.journal;
+
+import com.belman.domain.audit.AuditRepository;
+import com.belman.domain.audit.event.AuditEvent;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only audit journal on the local file system, implementing the AuditRepository interface.
+ * <p>
+ * Events are encoded as length-prefixed records in fixed-size, memory-mapped segment files. Storing
+ * an event copies its record into the mapping, so it is visible to readers and survives a crash of
+ * the application at once. Changed pages are forced to the storage device by a background commit
+ * every commit interval, so all events stored in the meantime share one write (group commit), or
+ * by {@link #flush()}. When a record does not fit in the current segment, the segment is sealed
+ * and the next one is started.
+ * <p>
+ * Each record carries an HMAC-SHA-256 of its body chained to the MAC of the record before it,
+ * across segments, with a key that is kept outside the journal. A record that was changed, removed
+ * or torn by a crash breaks the chain, and without the key the chain cannot be rebuilt. A record
+ * torn by a crash is cleared when the journal is opened, while damage to committed records is kept
+ * and reported by {@link #getRecovery()}; {@link #verify()} checks the whole trail. Because
+ * cutting whole records off the end leaves a valid chain, the head of the chain is also exported
+ * as a {@link JournalAnchor}, which {@link #verify(JournalAnchor)} checks the journal against.
+ * <p>
+ * Queries read the records in place: segments whose time range does not overlap the query are
+ * skipped using their headers, and only matching records are decoded. Sealed segments can be
+ * compacted into deflated archives with {@link #compact(Instant)}; archives remain part of the
+ * trail and are read by queries like segments.
+ * <p>
+ * Events are read back as {@link JournaledAuditEvent}s.
+ */
+public class JournalAuditRepository implements AuditRepository, AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(JournalAuditRepository.class.getName());
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(100);
+
+    private static final String PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ARCHIVE_SUFFIX = ".arc";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService committer;
+    // Mac instances are not thread-safe, and verify() runs concurrently with appends
+    private final ThreadLocal<Mac> macs;
+    private Recovery recovery = Recovery.CLEAN;
+    private volatile Consumer<JournalAnchor> anchorListener = anchor -> { };
+
+    // Guarded by this: archives and sealed segments in sequence order, then the active segment
+    private final List<JournalFile> files = new ArrayList<>();
+    private JournalSegment active;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * The outcome of checking the last segment when the journal was opened.
+     */
+    public enum Recovery {
+        /**
+         * Every record of the segment was intact.
+         */
+        CLEAN,
+        /**
+         * A record that was being written during a crash was cleared; no committed record was lost.
+         */
+        TORN_RECORD_CLEARED,
+        /**
+         * A committed record was changed, damaged or cut off. The segment was kept as evidence and
+         * {@link #verify()} fails.
+         */
+        DAMAGED
+    }
+
+    /**
+     * Opens the journal in the given directory with the default segment size and commit interval.
+     *
+     * @param directory the journal directory, created if needed
+     * @param key       the secret key that chains the records, at least 16 bytes
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournalAuditRepository(Path directory, byte[] key) throws IOException {
+        this(directory, key, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens the journal in the given directory.
+     *
+     * @param directory      the journal directory, created if needed
+     * @param key            the secret key that chains the records, at least 16 bytes
+     * @param segmentSize    the size of new segment files in bytes
+     * @param commitInterval the longest time a stored event waits before it is forced to storage
+     * @throws IOException if the journal cannot be opened
+     */
+    public JournalAuditRepository(Path directory, byte[] key, int segmentSize, Duration commitInterval)
+            throws IOException {
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096 bytes");
+        }
+        byte[] macKey = Arrays.copyOf(key, key.length);
+        // Fail fast on a short key or a missing algorithm rather than on the first event
+        AuditRecordCodec.newMac(macKey);
+        this.macs = ThreadLocal.withInitial(() -> AuditRecordCodec.newMac(macKey));
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        load();
+
+        committer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "audit-journal-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, commitInterval.toMillis());
+        committer.scheduleWithFixedDelay(this::commitQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the default journal directory, ~/.belsign/audit.
+     *
+     * @return the default journal directory
+     */
+    public static Path defaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".belsign", "audit");
+    }
+
+    @Override
+    public void store(AuditEvent event) {
+        Objects.requireNonNull(event, "event must not be null");
+        storeAll(List.of(event));
+    }
+
+    @Override
+    public void storeAll(List<AuditEvent> events) {
+        Objects.requireNonNull(events, "events must not be null");
+        // Encode outside the lock, so writers only contend for the copy into the segment
+        List<byte[]> bodies = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            byte[] body = AuditRecordCodec.encode(event);
+            if (body.length > JournalSegment.maxBodyLength(segmentSize)) {
+                throw new IllegalArgumentException("Audit event " + event.getEventId() + " is too large for a " +
+                                                   "journal segment: " + body.length + " bytes");
+            }
+            bodies.add(body);
+        }
+
+        synchronized (this) {
+            checkOpen();
+            for (int i = 0; i < bodies.size(); i++) {
+                byte[] body = bodies.get(i);
+                if (!active.fits(body.length)) {
+                    rotate();
+                }
+                active.append(body, events.get(i).getOccurredOn().toEpochMilli(), macs.get());
+            }
+            dirty = true;
+        }
+    }
+
+    @Override
+    public List<AuditEvent> getEventsByEntity(String entityType, String entityId) {
+        Objects.requireNonNull(entityType, "entityType must not be null");
+        Objects.requireNonNull(entityId, "entityId must not be null");
+        byte[] type = AuditRecordCodec.utf8(entityType);
+        byte[] id = AuditRecordCodec.utf8(entityId);
+        List<AuditEvent> events = new ArrayList<>();
+        RecordMatcher matcher = (buffer, body) ->
+                AuditRecordCodec.fieldEquals(buffer, body, AuditRecordCodec.FIELD_ENTITY_ID, id)
+                && AuditRecordCodec.fieldEquals(buffer, body, AuditRecordCodec.FIELD_ENTITY_TYPE, type);
+        scan(Long.MIN_VALUE, Long.MAX_VALUE, matcher, events::add);
+        return events;
+    }
+
+    @Override
+    public List<AuditEvent> getEventsByType(String eventType) {
+        Objects.requireNonNull(eventType, "eventType must not be null");
+        byte[] type = AuditRecordCodec.utf8(eventType);
+        List<AuditEvent> events = new ArrayList<>();
+        scan(Long.MIN_VALUE, Long.MAX_VALUE,
+                (buffer, body) -> AuditRecordCodec.fieldEquals(buffer, body, AuditRecordCodec.FIELD_EVENT_TYPE, type),
+                events::add);
+        return events;
+    }
+
+    @Override
+    public List<AuditEvent> getEventsByUser(String userId) {
+        Objects.requireNonNull(userId, "userId must not be null");
+        byte[] user = AuditRecordCodec.utf8(userId);
+        List<AuditEvent> events = new ArrayList<>();
+        scan(Long.MIN_VALUE, Long.MAX_VALUE,
+                (buffer, body) -> AuditRecordCodec.fieldEquals(buffer, body, AuditRecordCodec.FIELD_USER_ID, user),
+                events::add);
+        return events;
+    }
+
+    /**
+     * Retrieves the audit events that occurred in a time range, in the order they were stored.
+     *
+     * @param from the start of the range, inclusive
+     * @param to   the end of the range, exclusive
+     * @return the events in the range
+     */
+    public List<AuditEvent> getEventsBetween(Instant from, Instant to) {
+        List<AuditEvent> events = new ArrayList<>();
+        forEachEventBetween(from, to, events::add);
+        return events;
+    }
+
+    /**
+     * Passes the audit events that occurred in a time range to an action, in the order they were
+     * stored, without collecting them first.
+     *
+     * @param from   the start of the range, inclusive
+     * @param to     the end of the range, exclusive
+     * @param action the action to perform for each event
+     */
+    public void forEachEventBetween(Instant from, Instant to, Consumer<? super JournaledAuditEvent> action) {
+        Objects.requireNonNull(from, "from must not be null");
+        Objects.requireNonNull(to, "to must not be null");
+        scan(from.toEpochMilli(), to.toEpochMilli(), (buffer, body) -> true, event -> {
+            action.accept(event);
+            return true;
+        });
+    }
+
+    /**
+     * Passes the audit events that occurred in a time range to an action, in the order they were
+     * stored, until the action returns false. Exports use it to stop at a row limit or when they
+     * are cancelled without reading the rest of the journal.
+     *
+     * @param from   the start of the range, inclusive
+     * @param to     the end of the range, exclusive
+     * @param action the action to perform for each event, returning false to stop
+     * @return true if all events in the range were passed, false if the action stopped the scan
+     */
+    public boolean scanEventsBetween(Instant from, Instant to, Predicate<? super JournaledAuditEvent> action) {
+        Objects.requireNonNull(from, "from must not be null");
+        Objects.requireNonNull(to, "to must not be null");
+        Objects.requireNonNull(action, "action must not be null");
+        return scan(from.toEpochMilli(), to.toEpochMilli(), (buffer, body) -> true, action);
+    }
+
+    /**
+     * Gets the number of events in the journal.
+     *
+     * @return the number of stored events
+     */
+    public synchronized long getEventCount() {
+        long count = 0;
+        for (JournalFile file : files) {
+            count += file.getRecordCount();
+        }
+        return count;
+    }
+
+    /**
+     * Gets the outcome of checking the journal when it was opened.
+     *
+     * @return {@link Recovery#DAMAGED} if committed records were found changed or cut off
+     */
+    public synchronized Recovery getRecovery() {
+        return recovery;
+    }
+
+    /**
+     * Gets the head of the MAC chain, to keep outside the journal and check it against later with
+     * {@link #verify(JournalAnchor)}.
+     *
+     * @return the number of events and the MAC of the last one
+     */
+    public synchronized JournalAnchor getAnchor() {
+        return new JournalAnchor(getEventCount(), HexFormat.of().formatHex(active.getLastMac()));
+    }
+
+    /**
+     * Sets the listener that is passed the anchor of the journal when it is opened, when a segment
+     * is sealed and when the journal is closed, so the anchor can be kept outside the journal.
+     * The listener is called while the journal is locked and should return quickly.
+     *
+     * @param anchorListener the listener
+     */
+    public void setAnchorListener(Consumer<JournalAnchor> anchorListener) {
+        this.anchorListener = Objects.requireNonNull(anchorListener, "anchorListener must not be null");
+        synchronized (this) {
+            checkOpen();
+            anchorListener.accept(getAnchor());
+        }
+    }
+
+    /**
+     * Forces all stored events to the storage device, without waiting for the next group commit.
+     */
+    public void flush() {
+        commit();
+    }
+
+    /**
+     * Compacts the sealed segments whose events all occurred before the given time into archives.
+     * The archives stay part of the journal; only the unused space of the segments is reclaimed
+     * and the records are deflated.
+     *
+     * @param before the time before which segments are archived
+     * @return the number of segments archived
+     * @throws IOException if an archive cannot be written
+     */
+    public int compact(Instant before) throws IOException {
+        long cutoff = before.toEpochMilli();
+        List<JournalSegment> candidates = new ArrayList<>();
+        synchronized (this) {
+            checkOpen();
+            for (JournalFile file : files) {
+                if (file instanceof JournalSegment && file != active && file.getMaxOccurredOn() < cutoff) {
+                    candidates.add((JournalSegment) file);
+                }
+            }
+        }
+
+        int archived = 0;
+        for (JournalSegment segment : candidates) {
+            JournalArchive archive = JournalArchive.write(segment, fileFor(segment.getSequence(), ARCHIVE_SUFFIX));
+            synchronized (this) {
+                files.set(files.indexOf(segment), archive);
+            }
+            segment.close();
+            try {
+                Files.delete(segment.getPath());
+            } catch (IOException e) {
+                // A segment that is still mapped may not be deletable; it is removed when the journal is opened
+                LOGGER.log(Level.WARNING, "Could not delete archived audit segment " + segment.getPath(), e);
+            }
+            archived++;
+        }
+        if (archived > 0) {
+            LOGGER.info("Archived " + archived + " audit journal segments");
+        }
+        return archived;
+    }
+
+    /**
+     * Checks the MAC chain of the whole journal, including the archives.
+     *
+     * @return true if every record is intact and no record or segment is missing
+     * @throws IOException if an archive cannot be read
+     */
+    public boolean verify() throws IOException {
+        return verify(null);
+    }
+
+    /**
+     * Checks the MAC chain of the whole journal, including the archives, and that it still holds
+     * the head of the chain that an earlier {@link #getAnchor()} returned. This also detects
+     * events that were cut off the end of the journal.
+     *
+     * @param anchor an earlier anchor of this journal, or null to only check the chain
+     * @return true if every record is intact, no record or segment is missing and the journal
+     * continues from the anchor
+     * @throws IOException if an archive cannot be read
+     */
+    public boolean verify(JournalAnchor anchor) throws IOException {
+        List<JournalFile> snapshot;
+        JournalSegment activeSnapshot;
+        int activeEnd;
+        synchronized (this) {
+            checkOpen();
+            snapshot = new ArrayList<>(files);
+            activeSnapshot = active;
+            activeEnd = active.getEnd();
+        }
+
+        Mac mac = macs.get();
+        byte[] chain = snapshot.isEmpty() ? new byte[AuditRecordCodec.MAC_LENGTH] : snapshot.get(0).getChainSeed();
+        long expectedSequence = snapshot.isEmpty() ? 0 : snapshot.get(0).getSequence();
+        long events = 0;
+        boolean anchorReached = anchor == null || anchor.eventCount() == 0;
+        for (JournalFile file : snapshot) {
+            if (file.getSequence() != expectedSequence || !Arrays.equals(file.getChainSeed(), chain)) {
+                LOGGER.warning("Audit journal chain broken before segment " + file.getSequence());
+                return false;
+            }
+            ByteBuffer view = file.view();
+            int end = file == activeSnapshot ? activeEnd : file.getEnd();
+            int position = JournalSegment.HEADER_SIZE;
+            int count = 0;
+            while (position < end) {
+                int length = view.getInt(position);
+                int body = position + JournalSegment.RECORD_HEADER_SIZE;
+                byte[] expected = length > 0 && body + length <= end
+                                  ? AuditRecordCodec.chain(mac, chain, view, body, length)
+                                  : null;
+                if (expected == null || !JournalSegment.macMatches(view, position, expected)) {
+                    LOGGER.warning("Audit journal record at " + position + " of segment " + file.getSequence() +
+                                   " is damaged");
+                    return false;
+                }
+                chain = expected;
+                count++;
+                events++;
+                if (!anchorReached && events == anchor.eventCount()) {
+                    if (!HexFormat.of().formatHex(chain).equalsIgnoreCase(anchor.headMac())) {
+                        LOGGER.warning("Audit journal does not continue from its anchor at event " + events);
+                        return false;
+                    }
+                    anchorReached = true;
+                }
+                position = body + length;
+            }
+            if (file != activeSnapshot && (count != file.getRecordCount()
+                                           || !Arrays.equals(chain, file.getLastMac()))) {
+                LOGGER.warning("Audit journal segment " + file.getSequence() + " does not match its header");
+                return false;
+            }
+            expectedSequence++;
+        }
+        if (!anchorReached) {
+            LOGGER.warning("Audit journal holds " + events + " events, fewer than the " + anchor.eventCount() +
+                           " of its anchor; events were cut off");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Forces the stored events to storage and closes the journal.
+     */
+    @Override
+    public void close() {
+        committer.shutdownNow();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            active.force();
+            anchorListener.accept(getAnchor());
+            closed = true;
+            for (JournalFile file : files) {
+                if (file instanceof JournalSegment) {
+                    try {
+                        ((JournalSegment) file).close();
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Could not close audit segment " + file.getPath(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the records of the time range that match, decoding only those.
+     */
+    private boolean scan(long from, long to, RecordMatcher matcher, Predicate<? super JournaledAuditEvent> action) {
+        List<JournalFile> snapshot;
+        JournalSegment activeSnapshot;
+        int activeEnd;
+        synchronized (this) {
+            checkOpen();
+            snapshot = new ArrayList<>(files);
+            activeSnapshot = active;
+            activeEnd = active.getEnd();
+        }
+
+        for (JournalFile file : snapshot) {
+            if (file.getMaxOccurredOn() < from || file.getMinOccurredOn() >= to) {
+                continue;
+            }
+            ByteBuffer view;
+            try {
+                view = file.view();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading audit journal file " + file.getPath(), e);
+            }
+            int end = file == activeSnapshot ? activeEnd : file.getEnd();
+            int position = JournalSegment.HEADER_SIZE;
+            while (position < end) {
+                int length = view.getInt(position);
+                int body = position + JournalSegment.RECORD_HEADER_SIZE;
+                if (length <= 0 || body + length > end) {
+                    // Only a damaged segment has an invalid length; verify() reports it
+                    LOGGER.warning("Skipping the rest of damaged audit journal segment " + file.getSequence());
+                    break;
+                }
+                long occurredOn = AuditRecordCodec.occurredOnMillis(view, body);
+                try {
+                    if (occurredOn >= from && occurredOn < to && matcher.matches(view, body)
+                        && !action.test(AuditRecordCodec.decode(view, body))) {
+                        return false;
+                    }
+                } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                    LOGGER.warning("Skipping damaged audit journal record at " + position + " of segment " +
+                                   file.getSequence());
+                }
+                position = body + length;
+            }
+        }
+        return true;
+    }
+
+    private void rotate() {
+        JournalSegment previous = active;
+        try {
+            JournalSegment next = JournalSegment.create(fileFor(previous.getSequence() + 1, SEGMENT_SUFFIX),
+                    previous.getSequence() + 1, segmentSize, previous.getLastMac());
+            previous.seal();
+            files.add(next);
+            active = next;
+            anchorListener.accept(getAnchor());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error starting audit journal segment " + (previous.getSequence() + 1), e);
+        }
+        LOGGER.fine("Sealed audit journal segment " + previous.getSequence());
+    }
+
+    private void commit() {
+        JournalSegment segment;
+        synchronized (this) {
+            if (!dirty || closed) {
+                return;
+            }
+            dirty = false;
+            segment = active;
+        }
+        // Segments sealed since the last commit were forced when they were sealed
+        segment.force();
+    }
+
+    private void commitQuietly() {
+        try {
+            commit();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Audit journal commit failed", e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Audit journal is closed");
+        }
+    }
+
+    private Path fileFor(long sequence, String suffix) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, sequence, suffix));
+    }
+
+    /**
+     * Opens the segments and archives in the directory and selects or starts the active segment.
+     */
+    private void load() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        TreeMap<Long, Path> archives = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(TEMP_SUFFIX)) {
+                    // An archive that was not completed; its segment is still there
+                    Files.deleteIfExists(path);
+                    continue;
+                }
+                TreeMap<Long, Path> target = name.endsWith(SEGMENT_SUFFIX) ? segments
+                                             : name.endsWith(ARCHIVE_SUFFIX) ? archives : null;
+                if (target == null) {
+                    continue;
+                }
+                try {
+                    target.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - 4)), path);
+                } catch (NumberFormatException e) {
+                    LOGGER.warning("Ignoring unexpected file in audit journal: " + path);
+                }
+            }
+        }
+
+        for (Long sequence : archives.keySet()) {
+            Path archived = segments.remove(sequence);
+            if (archived != null) {
+                Files.deleteIfExists(archived);
+            }
+        }
+        TreeMap<Long, JournalFile> opened = new TreeMap<>();
+        for (Path path : archives.values()) {
+            JournalArchive archive = JournalArchive.open(path);
+            opened.put(archive.getSequence(), archive);
+        }
+        for (Path path : segments.values()) {
+            JournalSegment segment = JournalSegment.open(path, macs.get());
+            opened.put(segment.getSequence(), segment);
+            if (segment.getRecovery().compareTo(recovery) > 0) {
+                recovery = segment.getRecovery();
+            }
+        }
+        files.addAll(opened.values());
+
+        // Every segment but the last must be sealed, also when a crash interrupted a rotation
+        for (int i = 0; i < files.size() - 1; i++) {
+            if (files.get(i) instanceof JournalSegment && !((JournalSegment) files.get(i)).isSealed()) {
+                ((JournalSegment) files.get(i)).seal();
+            }
+        }
+
+        JournalFile last = files.isEmpty() ? null : files.get(files.size() - 1);
+        if (last instanceof JournalSegment && !((JournalSegment) last).isSealed()) {
+            active = (JournalSegment) last;
+        } else {
+            long sequence = last != null ? last.getSequence() + 1 : 1;
+            active = JournalSegment.create(fileFor(sequence, SEGMENT_SUFFIX), sequence, segmentSize,
+                    last != null ? last.getLastMac() : new byte[AuditRecordCodec.MAC_LENGTH]);
+            files.add(active);
+        }
+        if (recovery == Recovery.DAMAGED) {
+            LOGGER.severe("Opened audit journal in " + directory + " with damaged records; verify() will fail");
+        } else {
+            LOGGER.info("Opened audit journal in " + directory + " at segment " + active.getSequence());
+        }
+    }
+
+    /**
+     * Tests a record without decoding it.
+     */
+    @FunctionalInterface
+    private interface RecordMatcher {
+        boolean matches(ByteBuffer buffer, int body);
+    }
+}
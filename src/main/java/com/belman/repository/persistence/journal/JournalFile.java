@@ -0,0 +1,48 @@
+package com.belman.repository.persistence.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * A file of the audit journal: a live segment or an archived one.
+ * Both have the segment layout described in {@link JournalSegment} once they are viewed.
+ */
+interface JournalFile {
+
+    Path getPath();
+
+    long getSequence();
+
+    /**
+     * @return the earliest time a record of this file occurred, in epoch milliseconds
+     */
+    long getMinOccurredOn();
+
+    /**
+     * @return the latest time a record of this file occurred, in epoch milliseconds
+     */
+    long getMaxOccurredOn();
+
+    /**
+     * @return the MAC of the last record of the previous file, which the chain of this file starts from
+     */
+    byte[] getChainSeed();
+
+    /**
+     * @return the MAC of the last record of this file, or its chain seed if it has no records
+     */
+    byte[] getLastMac();
+
+    int getRecordCount();
+
+    int getEnd();
+
+    /**
+     * Gets the header and records of this file in the segment layout.
+     *
+     * @return a buffer that the caller may read without synchronisation
+     * @throws IOException if an archive cannot be read
+     */
+    ByteBuffer view() throws IOException;
+}
@@ -0,0 +1,335 @@
+package com.belman.repository.persistence.journal;
+
+import javax.crypto.Mac;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.logging.Logger;
+
+/**
+ * One fixed-size, memory-mapped segment file of the audit journal.
+ * <p>
+ * The file starts with a header that summarises the segment, followed by the records:
+ * <pre>
+ *  0 int      magic
+ *  4 short    format version
+ *  6 short    flags (1 = sealed, 2 = archived)
+ *  8 long     segment sequence
+ * 16 long     earliest occurred on of its records, epoch milliseconds
+ * 24 long     latest occurred on of its records, epoch milliseconds
+ * 32 int      record count
+ * 36 int      end of the records
+ * 40 byte[32] chain seed: the MAC of the last record of the previous segment
+ * 72 byte[32] MAC of the last record
+ * </pre>
+ * Each record is its body length, its HMAC-SHA-256 and its body, see {@link AuditRecordCodec}.
+ * A length of 0 marks the end, which is why new segments are zero-filled. The header is updated
+ * with every append, so sealed segments and archives can be skipped by time without reading
+ * their records.
+ */
+final class JournalSegment implements JournalFile {
+    private static final Logger LOGGER = Logger.getLogger(JournalSegment.class.getName());
+
+    static final int HEADER_SIZE = 128;
+    static final int RECORD_HEADER_SIZE = 4 + AuditRecordCodec.MAC_LENGTH;
+    static final int MAGIC = 0x42414A31;
+    static final short FORMAT_VERSION = 2;
+    static final short FLAG_SEALED = 1;
+    static final short FLAG_ARCHIVED = 2;
+
+    private static final int OFFSET_FLAGS = 6;
+    private static final int OFFSET_SEQUENCE = 8;
+    private static final int OFFSET_MIN_OCCURRED_ON = 16;
+    private static final int OFFSET_MAX_OCCURRED_ON = 24;
+    static final int OFFSET_COUNT = 32;
+    static final int OFFSET_END = 36;
+    static final int OFFSET_CHAIN_SEED = 40;
+    static final int OFFSET_LAST_MAC = 72;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private JournalAuditRepository.Recovery recovery = JournalAuditRepository.Recovery.CLEAN;
+
+    private JournalSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Creates a new, empty segment.
+     *
+     * @param path      the segment file, which must not exist
+     * @param sequence  the sequence of the segment
+     * @param capacity  the size of the segment file
+     * @param chainSeed the MAC of the last record of the previous segment
+     * @return the segment
+     * @throws IOException if the file cannot be created or mapped
+     */
+    static JournalSegment create(Path path, long sequence, int capacity, byte[] chainSeed) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, FORMAT_VERSION);
+            buffer.putShort(OFFSET_FLAGS, (short) 0);
+            buffer.putLong(OFFSET_SEQUENCE, sequence);
+            buffer.putLong(OFFSET_MIN_OCCURRED_ON, Long.MAX_VALUE);
+            buffer.putLong(OFFSET_MAX_OCCURRED_ON, Long.MIN_VALUE);
+            buffer.putInt(OFFSET_COUNT, 0);
+            buffer.putInt(OFFSET_END, HEADER_SIZE);
+            buffer.put(OFFSET_CHAIN_SEED, chainSeed);
+            buffer.put(OFFSET_LAST_MAC, chainSeed);
+            buffer.force();
+            return new JournalSegment(path, channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing segment. The records of a segment that was not sealed are checked, see
+     * {@link #recover(Mac)}, and the outcome is available from {@link #getRecovery()}.
+     *
+     * @param path the segment file
+     * @param mac  the MAC of the journal, to check the records with
+     * @return the segment
+     * @throws IOException if the file cannot be mapped or is not a journal segment
+     */
+    static JournalSegment open(Path path, Mac mac) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            checkHeader(buffer, path);
+            JournalSegment segment = new JournalSegment(path, channel, buffer);
+            if (!segment.isSealed()) {
+                segment.recovery = segment.recover(mac);
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static void checkHeader(ByteBuffer header, Path path) throws IOException {
+        if (header.limit() < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an audit journal segment: " + path);
+        }
+        if (header.getShort(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported audit journal format " + header.getShort(4) + ": " + path);
+        }
+    }
+
+    @Override
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public long getSequence() {
+        return buffer.getLong(OFFSET_SEQUENCE);
+    }
+
+    @Override
+    public long getMinOccurredOn() {
+        return buffer.getLong(OFFSET_MIN_OCCURRED_ON);
+    }
+
+    @Override
+    public long getMaxOccurredOn() {
+        return buffer.getLong(OFFSET_MAX_OCCURRED_ON);
+    }
+
+    @Override
+    public byte[] getChainSeed() {
+        return readMac(buffer, OFFSET_CHAIN_SEED);
+    }
+
+    @Override
+    public int getRecordCount() {
+        return buffer.getInt(OFFSET_COUNT);
+    }
+
+    @Override
+    public int getEnd() {
+        return buffer.getInt(OFFSET_END);
+    }
+
+    @Override
+    public byte[] getLastMac() {
+        return readMac(buffer, OFFSET_LAST_MAC);
+    }
+
+    /**
+     * Gets the outcome of checking the records when the segment was opened.
+     */
+    JournalAuditRepository.Recovery getRecovery() {
+        return recovery;
+    }
+
+    boolean isSealed() {
+        return (buffer.getShort(OFFSET_FLAGS) & FLAG_SEALED) != 0;
+    }
+
+    /**
+     * Checks whether a record body of the given length fits after the last record, leaving room
+     * for the zero length that marks the end.
+     */
+    boolean fits(int bodyLength) {
+        return (long) getEnd() + RECORD_HEADER_SIZE + bodyLength + 4 <= buffer.capacity();
+    }
+
+    /**
+     * Gets the largest record body a segment of the given size can hold.
+     */
+    static int maxBodyLength(int capacity) {
+        return capacity - HEADER_SIZE - RECORD_HEADER_SIZE - 4;
+    }
+
+    /**
+     * Reads a MAC stored in a journal buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the offset of the MAC
+     * @return a copy of the MAC
+     */
+    static byte[] readMac(ByteBuffer buffer, int offset) {
+        byte[] mac = new byte[AuditRecordCodec.MAC_LENGTH];
+        buffer.get(offset, mac);
+        return mac;
+    }
+
+    /**
+     * Checks the MAC of a record against the MAC it should have, in constant time.
+     *
+     * @param buffer   the buffer holding the record
+     * @param position the offset of the record
+     * @param expected the MAC the record should have
+     * @return true if the record has the expected MAC
+     */
+    static boolean macMatches(ByteBuffer buffer, int position, byte[] expected) {
+        return MessageDigest.isEqual(readMac(buffer, position + 4), expected);
+    }
+
+    /**
+     * Appends a record. The caller checks that it {@link #fits} and serialises appends.
+     *
+     * @param body       the record body
+     * @param occurredOn the time the event occurred, in epoch milliseconds
+     * @param mac        the MAC of the journal
+     * @return the MAC of the record
+     */
+    byte[] append(byte[] body, long occurredOn, Mac mac) {
+        int end = getEnd();
+        int bodyOffset = end + RECORD_HEADER_SIZE;
+        buffer.put(bodyOffset, body);
+        byte[] recordMac = AuditRecordCodec.chain(mac, getLastMac(), buffer, bodyOffset, body.length);
+        buffer.put(end + 4, recordMac);
+        buffer.putInt(end, body.length);
+
+        buffer.putLong(OFFSET_MIN_OCCURRED_ON, Math.min(getMinOccurredOn(), occurredOn));
+        buffer.putLong(OFFSET_MAX_OCCURRED_ON, Math.max(getMaxOccurredOn(), occurredOn));
+        buffer.putInt(OFFSET_COUNT, getRecordCount() + 1);
+        buffer.put(OFFSET_LAST_MAC, recordMac);
+        buffer.putInt(OFFSET_END, bodyOffset + body.length);
+        return recordMac;
+    }
+
+    /**
+     * Gets a read-only view of the segment. Records before the end read at the same time are
+     * never changed, so the view can be read without holding the journal lock.
+     */
+    @Override
+    public ByteBuffer view() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Writes the changed pages of the segment to the storage device.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Marks the segment as complete and forces it, so it is no longer checked when opened.
+     */
+    void seal() {
+        buffer.putShort(OFFSET_FLAGS, FLAG_SEALED);
+        buffer.force();
+    }
+
+    void close() throws IOException {
+        // The mapping stays valid until the buffer is collected; the channel is not needed for it
+        channel.close();
+    }
+
+    /**
+     * Finds the last intact record by walking the MAC chain.
+     * <p>
+     * A break after the end in the header is a record that was being written during a crash, and
+     * is cleared. A break before it means that a committed record was damaged, changed or cut off
+     * with the file; the segment is then sealed as it is, so the damage stays visible to
+     * {@link JournalAuditRepository#verify()}, and appending continues in a new segment.
+     *
+     * @return what was found
+     */
+    private JournalAuditRepository.Recovery recover(Mac mac) {
+        int position = HEADER_SIZE;
+        byte[] chain = getChainSeed();
+        int count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        while (position + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            int bodyOffset = position + RECORD_HEADER_SIZE;
+            if (length <= 0 || bodyOffset + length > buffer.capacity()) {
+                break;
+            }
+            byte[] expected = AuditRecordCodec.chain(mac, chain, buffer, bodyOffset, length);
+            if (!macMatches(buffer, position, expected)) {
+                break;
+            }
+            chain = expected;
+            long occurredOn = AuditRecordCodec.occurredOnMillis(buffer, bodyOffset);
+            min = Math.min(min, occurredOn);
+            max = Math.max(max, occurredOn);
+            count++;
+            position = bodyOffset + length;
+        }
+
+        if (position < getEnd()) {
+            String problem = getEnd() > buffer.capacity() ? "truncated" : "damaged or changed";
+            LOGGER.severe("Audit journal segment " + path.getFileName() + " is " + problem + " after " + count +
+                          " of " + getRecordCount() + " records; sealing it as it is");
+            seal();
+            return JournalAuditRepository.Recovery.DAMAGED;
+        }
+        boolean torn = false;
+        for (int i = position; i < buffer.capacity(); i++) {
+            if (buffer.get(i) != 0) {
+                buffer.put(i, (byte) 0);
+                torn = true;
+            }
+        }
+        if (torn) {
+            LOGGER.warning("Audit journal segment " + path.getFileName() + " recovered at " + count +
+                           " records; cleared an incomplete record after them");
+        }
+        buffer.putLong(OFFSET_MIN_OCCURRED_ON, min);
+        buffer.putLong(OFFSET_MAX_OCCURRED_ON, max);
+        buffer.putInt(OFFSET_COUNT, count);
+        buffer.putInt(OFFSET_END, position);
+        buffer.put(OFFSET_LAST_MAC, chain);
+        buffer.force();
+        return torn ? JournalAuditRepository.Recovery.TORN_RECORD_CLEARED : JournalAuditRepository.Recovery.CLEAN;
+    }
+}
@@ -0,0 +1,107 @@
+package com.belman.repository.persistence.journal;
+
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.domain.audit.event.BaseAuditEvent;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Audit event read back from the audit journal.
+ * <p>
+ * The journal does not know the event classes, so it stores what an audit trail needs: the
+ * event identity, type and time, the entity and user it concerns, and the other properties of the
+ * event as text. Reads return those values in this class instead of the original event objects.
+ */
+public final class JournaledAuditEvent extends BaseAuditEvent {
+    private final String eventType;
+    private final String entityType;
+    private final String entityId;
+    private final String userId;
+    private final Map<String, String> properties;
+
+    /**
+     * Creates a new JournaledAuditEvent.
+     *
+     * @param eventId    the ID of the original event
+     * @param occurredOn the time the original event occurred
+     * @param eventType  the type of the original event
+     * @param entityType the type of the entity the event concerns, or null
+     * @param entityId   the ID of the entity the event concerns, or null
+     * @param userId     the ID of the user who caused the event, or null
+     * @param properties the other properties of the event, by name
+     */
+    public JournaledAuditEvent(UUID eventId, Instant occurredOn, String eventType, String entityType,
+                               String entityId, String userId, Map<String, String> properties) {
+        super(eventId, occurredOn);
+        this.eventType = Objects.requireNonNull(eventType, "eventType must not be null");
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.userId = userId;
+        this.properties = Collections.unmodifiableMap(new LinkedHashMap<>(properties));
+    }
+
+    /**
+     * Describes any audit event by the values the journal stores for it.
+     * The entity, the user and the other properties are read from the public getters of the event.
+     *
+     * @param event the event
+     * @return the event itself if it was read from the journal, otherwise its values
+     */
+    public static JournaledAuditEvent of(AuditEvent event) {
+        Objects.requireNonNull(event, "event must not be null");
+        return AuditRecordCodec.describe(event);
+    }
+
+    @Override
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    /**
+     * Gets the other properties of the original event, such as the order or photo it concerns.
+     *
+     * @return the properties by name, in the order they were recorded
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    /**
+     * Gets a property of the original event.
+     *
+     * @param name the name of the property, for example "orderId"
+     * @return the value, or null if the event had no such property
+     */
+    public String getProperty(String name) {
+        return properties.get(name);
+    }
+
+    @Override
+    public String toString() {
+        return "JournaledAuditEvent{" +
+               "eventId=" + getEventId() +
+               ", occurredOn=" + getOccurredOn() +
+               ", eventType='" + eventType + '\'' +
+               ", entityType='" + entityType + '\'' +
+               ", entityId='" + entityId + '\'' +
+               ", userId='" + userId + '\'' +
+               '}';
+    }
+}
@@ -32,6 +32,15 @@ public class InMemoryPhotoRepository extends BaseService implements PhotoReposit
         return Optional.ofNullable(photosById.get(id));
     }
 
+    @Override
+    public List<PhotoDocument> findByIds(Collection<PhotoId> ids) {
+        return ids.stream()
+                .distinct()
+                .map(photosById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<PhotoDocument> findByOrderId(OrderId orderId) {
         List<PhotoId> photoIds = photoIdsByOrderId.getOrDefault(orderId, new ArrayList<>());
@@ -1,11 +1,15 @@
 package com.belman.repository.persistence.memory;
 
 import com.belman.domain.common.EmailAddress;
+import com.belman.domain.security.CredentialDigester;
 import com.belman.domain.security.HashedPassword;
+import com.belman.domain.security.HmacCredentialDigester;
 import com.belman.domain.security.PasswordHasher;
 import com.belman.domain.user.*;
 import com.belman.service.usecase.security.BCryptPasswordHasher;
 
+import java.security.SecureRandom;
+
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,9 +21,11 @@ import java.util.stream.Collectors;
 public class InMemoryUserRepository implements UserRepository {
     private final Map<Username, UserId> userIdsByUsername = new HashMap<>();
     private final Map<EmailAddress, UserId> userIdsByEmail = new HashMap<>();
+    // PIN codes and QR codes are keyed by digest, like in the SQL repository
     private final Map<String, UserId> userIdsByPinCode = new HashMap<>();
     private final Map<String, UserId> userIdsByQrCodeHash = new HashMap<>();
     private final Map<UserId, UserBusiness> usersById = new HashMap<>();
+    private final CredentialDigester credentialDigester = new HmacCredentialDigester(randomKey());
 
     /**
      * Creates a new InMemoryUserRepository with default users.
@@ -195,13 +201,19 @@ public class InMemoryUserRepository implements UserRepository {
 
     @Override
     public Optional<UserBusiness> findByPinCode(String pinCode) {
-        UserId userId = userIdsByPinCode.get(pinCode);
+        if (pinCode == null || pinCode.isBlank()) {
+            return Optional.empty();
+        }
+        UserId userId = userIdsByPinCode.get(credentialDigester.digestPinCode(pinCode));
         return Optional.ofNullable(userId != null ? usersById.get(userId) : null);
     }
 
     @Override
     public Optional<UserBusiness> findByQrCodeHash(String qrCodeHash) {
-        UserId userId = userIdsByQrCodeHash.get(qrCodeHash);
+        if (qrCodeHash == null || qrCodeHash.isBlank()) {
+            return Optional.empty();
+        }
+        UserId userId = userIdsByQrCodeHash.get(credentialDigester.digestQrCode(qrCodeHash));
         return Optional.ofNullable(userId != null ? usersById.get(userId) : null);
     }
 
@@ -218,7 +230,7 @@ public class InMemoryUserRepository implements UserRepository {
      * This method must be called after saving a user if the PIN code mapping needs to be updated.
      */
     public void addPinCodeMapping(String pinCode, UserId userId) {
-        userIdsByPinCode.put(pinCode, userId);
+        userIdsByPinCode.put(credentialDigester.digestPinCode(pinCode), userId);
     }
 
     /**
@@ -226,6 +238,13 @@ public class InMemoryUserRepository implements UserRepository {
      * This method must be called after saving a user if the QR code hash mapping needs to be updated.
      */
     public void addQrCodeHashMapping(String qrCodeHash, UserId userId) {
-        userIdsByQrCodeHash.put(qrCodeHash, userId);
+        userIdsByQrCodeHash.put(credentialDigester.digestQrCode(qrCodeHash), userId);
+    }
+
+    private static byte[] randomKey() {
+        // Nothing is persisted, so a per-instance key is sufficient
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
     }
 }
@@ -0,0 +1,240 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.customer.CustomerId;
+import com.belman.domain.order.DeliveryInformation;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.order.ProductDescription;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Maps between rows of the orders table and OrderBusiness objects.
+ * <p>
+ * Rows are read in two steps: {@link #readRow(ResultSet)} copies the column values, and
+ * {@link #toOrder(OrderRow, Map)} builds the order once the users it refers to have been loaded,
+ * so the users of many orders can be fetched in one query.
+ * <p>
+ * The product description and delivery information are stored as their fields joined with the
+ * unit separator character, which cannot occur in text typed into the application.
+ */
+final class OrderRowMapper {
+    private static final Logger LOGGER = Logger.getLogger(OrderRowMapper.class.getName());
+
+    /**
+     * The order columns read by {@link #readRow(ResultSet)}, qualified with the alias {@code o}.
+     */
+    static final String COLUMNS = "o.id, o.order_number, o.customer_id, o.product_description, " +
+                                  "o.delivery_information, o.status, o.created_by, o.created_at, o.version";
+
+    private static final String FIELD_SEPARATOR = "\u001F";
+    private static final Pattern FIELD_SPLITTER = Pattern.compile(FIELD_SEPARATOR);
+
+    // Stands in for users that no longer exist, so orders and photos that refer to them still load
+    private static final Username UNKNOWN_USERNAME = new Username("unknown");
+    private static final HashedPassword UNUSABLE_PASSWORD = new HashedPassword("!");
+    private static final EmailAddress UNKNOWN_EMAIL = new EmailAddress("unknown.user@belman.invalid");
+
+    private OrderRowMapper() {
+    }
+
+    /**
+     * Copies the order columns of the current row.
+     *
+     * @param rs the result set, positioned on a row
+     * @return the row values
+     * @throws SQLException if a column cannot be read
+     */
+    static OrderRow readRow(ResultSet rs) throws SQLException {
+        java.sql.Timestamp createdAt = rs.getTimestamp("created_at");
+        return new OrderRow(
+                rs.getString("id"),
+                rs.getString("order_number"),
+                rs.getString("customer_id"),
+                rs.getString("product_description"),
+                rs.getString("delivery_information"),
+                rs.getString("status"),
+                rs.getString("created_by"),
+                createdAt != null ? createdAt.toInstant() : null,
+                rs.getLong("version"));
+    }
+
+    /**
+     * Builds an order without its photos from row values.
+     *
+     * @param row       the row values
+     * @param usersById the users the row refers to, by ID
+     * @return the order
+     */
+    static OrderBusiness toOrder(OrderRow row, Map<String, UserBusiness> usersById) {
+        Timestamp createdAt = row.createdAt() != null ? new Timestamp(row.createdAt()) : Timestamp.now();
+        OrderBusiness order = new OrderBusiness(new OrderId(row.id()), toReference(row.createdBy(), usersById),
+                createdAt);
+
+        if (row.orderNumber() != null) {
+            order.setOrderNumber(new OrderNumber(row.orderNumber()));
+        }
+        if (row.customerId() != null) {
+            order.setCustomerId(new CustomerId(row.customerId()));
+        }
+        ProductDescription productDescription = decodeProductDescription(row.productDescription());
+        if (productDescription != null) {
+            order.setProductDescription(productDescription);
+        }
+        DeliveryInformation deliveryInformation = decodeDeliveryInformation(row.deliveryInformation());
+        if (deliveryInformation != null) {
+            order.setDeliveryInformation(deliveryInformation);
+        }
+        if (row.status() != null) {
+            order.setStatus(OrderStatus.valueOf(row.status()));
+        }
+        order.setVersion(row.version());
+
+        return order;
+    }
+
+    /**
+     * Gets a user by ID, or a placeholder with that ID if the user no longer exists.
+     *
+     * @param userId    the ID of the user
+     * @param usersById the loaded users, by ID
+     * @return the user
+     */
+    static UserBusiness toUser(String userId, Map<String, UserBusiness> usersById) {
+        UserBusiness user = usersById.get(userId);
+        if (user != null) {
+            return user;
+        }
+        return new UserBusiness.Builder()
+                .id(new UserId(userId))
+                .username(UNKNOWN_USERNAME)
+                .password(UNUSABLE_PASSWORD)
+                .email(UNKNOWN_EMAIL)
+                .build();
+    }
+
+    /**
+     * Gets a reference to a user by ID, keeping the ID if the user no longer exists.
+     *
+     * @param userId    the ID of the user
+     * @param usersById the loaded users, by ID
+     * @return the user reference
+     */
+    static UserReference toReference(String userId, Map<String, UserBusiness> usersById) {
+        UserBusiness user = usersById.get(userId);
+        return new UserReference(new UserId(userId), user != null ? user.getUsername() : UNKNOWN_USERNAME);
+    }
+
+    /**
+     * Encodes a product description for the product_description column.
+     *
+     * @param description the product description, or null
+     * @return the encoded description, or null
+     */
+    static String encodeProductDescription(ProductDescription description) {
+        if (description == null) {
+            return null;
+        }
+        return join(description.name(), description.specifications(), description.notes());
+    }
+
+    /**
+     * Encodes delivery information for the delivery_information column.
+     *
+     * @param information the delivery information, or null
+     * @return the encoded information, or null
+     */
+    static String encodeDeliveryInformation(DeliveryInformation information) {
+        if (information == null) {
+            return null;
+        }
+        return join(information.address(), information.estimatedDeliveryDate().toString(),
+                information.contactName(), information.contactEmail().value(), information.specialInstructions());
+    }
+
+    private static ProductDescription decodeProductDescription(String value) {
+        String[] fields = split(value, 3);
+        if (fields == null) {
+            return null;
+        }
+        try {
+            return new ProductDescription(fields[0], fields[1], fields[2]);
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Ignoring invalid stored product description", e);
+            return null;
+        }
+    }
+
+    private static DeliveryInformation decodeDeliveryInformation(String value) {
+        String[] fields = split(value, 5);
+        if (fields == null) {
+            return null;
+        }
+        try {
+            return new DeliveryInformation(fields[0], LocalDate.parse(fields[1]), fields[2],
+                    new EmailAddress(fields[3]), fields[4]);
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring invalid stored delivery information", e);
+            return null;
+        }
+    }
+
+    private static String join(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                sb.append(FIELD_SEPARATOR);
+            }
+            if (fields[i] != null) {
+                sb.append(fields[i]);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Splits an encoded value into its fields, mapping empty optional fields back to null.
+     *
+     * @return the fields, or null if the value is null or was not written by this mapper
+     */
+    private static String[] split(String value, int fieldCount) {
+        if (value == null) {
+            return null;
+        }
+        String[] fields = FIELD_SPLITTER.split(value, -1);
+        if (fields.length != fieldCount) {
+            LOGGER.warning("Ignoring stored value with " + fields.length + " fields, expected " + fieldCount);
+            return null;
+        }
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].isEmpty()) {
+                fields[i] = null;
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * The column values of a single row of the orders table.
+     */
+    record OrderRow(String id, String orderNumber, String customerId, String productDescription,
+                    String deliveryInformation, String status, String createdBy, Instant createdAt,
+                    long version) {
+    }
+}
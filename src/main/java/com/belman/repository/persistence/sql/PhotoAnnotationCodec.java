@@ -0,0 +1,163 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.order.photo.PhotoAnnotation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes the annotations of one photo into a compact, column-oriented binary value.
+ * <p>
+ * Layout, with unsigned LEB128 varints for all counts and lengths:
+ * <pre>
+ * version (1 byte)
+ * annotation count
+ * type dictionary: entry count, then each type name as length + UTF-8
+ * type column:     one dictionary index byte per annotation
+ * x column:        one 32-bit float per annotation
+ * y column:        one 32-bit float per annotation
+ * id column:       length + UTF-8 per annotation
+ * text column:     length + UTF-8 per annotation
+ * </pre>
+ * Types are stored by name in a per-value dictionary, so reordering {@link PhotoAnnotation.AnnotationType}
+ * does not corrupt stored values. Coordinates are stored as floats, which keeps about seven
+ * significant digits of the normalized position.
+ */
+final class PhotoAnnotationCodec {
+
+    private static final byte VERSION = 1;
+
+    private PhotoAnnotationCodec() {
+    }
+
+    /**
+     * Encodes annotations.
+     *
+     * @param annotations the annotations
+     * @return the encoded value
+     */
+    static byte[] encode(List<PhotoAnnotation> annotations) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + annotations.size() * 32);
+        out.write(VERSION);
+        writeVarint(out, annotations.size());
+
+        // Insertion order, so the position of a name in the dictionary is its index
+        Map<PhotoAnnotation.AnnotationType, Integer> dictionary = new LinkedHashMap<>();
+        for (PhotoAnnotation annotation : annotations) {
+            dictionary.putIfAbsent(annotation.getType(), dictionary.size());
+        }
+        writeVarint(out, dictionary.size());
+        for (PhotoAnnotation.AnnotationType type : dictionary.keySet()) {
+            writeString(out, type.name());
+        }
+
+        for (PhotoAnnotation annotation : annotations) {
+            out.write(dictionary.get(annotation.getType()));
+        }
+        ByteBuffer coordinates = ByteBuffer.allocate(annotations.size() * 2 * Float.BYTES);
+        for (PhotoAnnotation annotation : annotations) {
+            coordinates.putFloat((float) annotation.getX());
+        }
+        for (PhotoAnnotation annotation : annotations) {
+            coordinates.putFloat((float) annotation.getY());
+        }
+        out.write(coordinates.array(), 0, coordinates.capacity());
+        for (PhotoAnnotation annotation : annotations) {
+            writeString(out, annotation.getId());
+        }
+        for (PhotoAnnotation annotation : annotations) {
+            writeString(out, annotation.getText());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes annotations.
+     *
+     * @param data the encoded value
+     * @return the annotations, in the order they were encoded
+     * @throws IllegalArgumentException if the value is malformed or uses an unknown version or type
+     */
+    static List<PhotoAnnotation> decode(byte[] data) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data);
+            byte version = in.get();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported annotation encoding version " + version);
+            }
+            int count = readVarint(in);
+
+            PhotoAnnotation.AnnotationType[] dictionary = new PhotoAnnotation.AnnotationType[readVarint(in)];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = PhotoAnnotation.AnnotationType.valueOf(readString(in));
+            }
+
+            PhotoAnnotation.AnnotationType[] types = new PhotoAnnotation.AnnotationType[count];
+            for (int i = 0; i < count; i++) {
+                types[i] = dictionary[in.get() & 0xFF];
+            }
+            float[] xs = new float[count];
+            for (int i = 0; i < count; i++) {
+                xs[i] = in.getFloat();
+            }
+            float[] ys = new float[count];
+            for (int i = 0; i < count; i++) {
+                ys[i] = in.getFloat();
+            }
+            String[] ids = new String[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = readString(in);
+            }
+
+            List<PhotoAnnotation> annotations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                annotations.add(new PhotoAnnotation(ids[i], xs[i], ys[i], readString(in), types[i]));
+            }
+            return annotations;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated annotation value", e);
+        }
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarint(in);
+        if (length > in.remaining()) {
+            throw new IllegalArgumentException("Truncated annotation value");
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in annotation value");
+    }
+}
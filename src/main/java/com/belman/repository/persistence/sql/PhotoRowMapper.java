@@ -0,0 +1,351 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.ImageMetadata;
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoAnnotationRepository;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.PhotoTemplateRegistry;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserReference;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Maps between rows of the photo_documents table and PhotoDocument objects.
+ * <p>
+ * Rows are read in two steps: {@link #readRow(ResultSet)} copies the column values, and
+ * {@link #toPhoto(PhotoRow, Map, PhotoAnnotationRepository)} builds the photo once the users it
+ * refers to have been loaded, so the users of many photos can be fetched in one query. The
+ * annotations of a built photo are read from the annotation repository when first needed, unless
+ * the annotations of its whole order are preloaded first. The review state is restored through
+ * {@link PhotoDocument#approve} and {@link PhotoDocument#reject}, as it was when the photo was reviewed.
+ */
+final class PhotoRowMapper {
+
+    /**
+     * The photo columns read by {@link #readRow(ResultSet)}, qualified with the alias {@code p}.
+     */
+    static final String COLUMNS = "p.id, p.order_id, p.image_path, p.angle, p.status, p.uploaded_by, p.uploaded_at, " +
+                                  "p.reviewed_by, p.reviewed_at, p.review_comment, p.sharpness, p.mean_luminance, " +
+                                  "p.dark_clipping_ratio, p.bright_clipping_ratio, p.perceptual_hash, " +
+                                  "p.image_width, p.image_height, p.orientation, p.captured_at";
+
+    /**
+     * Inserts a photo; bound by {@link #bindInsert(PreparedStatement, PhotoDocument)}.
+     */
+    static final String INSERT_SQL =
+            "INSERT INTO photo_documents (id, order_id, image_path, angle, status, uploaded_by, uploaded_at, " +
+            "reviewed_by, reviewed_at, review_comment, " +
+            "sharpness, mean_luminance, dark_clipping_ratio, bright_clipping_ratio, perceptual_hash, " +
+            "image_width, image_height, orientation, captured_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Updates the mutable columns of a photo; bound by {@link #bindUpdate(PreparedStatement, PhotoDocument)}.
+     */
+    static final String UPDATE_SQL =
+            "UPDATE photo_documents SET image_path = ?, angle = ?, status = ?, " +
+            "reviewed_by = ?, reviewed_at = ?, review_comment = ?, " +
+            "sharpness = ?, mean_luminance = ?, dark_clipping_ratio = ?, bright_clipping_ratio = ?, " +
+            "perceptual_hash = ?, image_width = ?, image_height = ?, orientation = ?, captured_at = ?, " +
+            "updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+
+    private PhotoRowMapper() {
+    }
+
+    /**
+     * Copies the photo columns of the current row.
+     *
+     * @param rs the result set, positioned on a row
+     * @return the row values
+     * @throws SQLException if a column cannot be read
+     */
+    static PhotoRow readRow(ResultSet rs) throws SQLException {
+        return new PhotoRow(
+                rs.getString("id"),
+                rs.getString("order_id"),
+                rs.getString("image_path"),
+                rs.getString("angle"),
+                rs.getString("status"),
+                rs.getString("uploaded_by"),
+                toInstant(rs.getTimestamp("uploaded_at")),
+                rs.getString("reviewed_by"),
+                toInstant(rs.getTimestamp("reviewed_at")),
+                rs.getString("review_comment"),
+                readQualityScore(rs),
+                readPerceptualHash(rs),
+                readImageMetadata(rs));
+    }
+
+    /**
+     * Collects the IDs of the users that photo rows refer to.
+     *
+     * @param rows the row values
+     * @return the uploader and reviewer IDs
+     */
+    static Set<String> userIds(Collection<PhotoRow> rows) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (PhotoRow row : rows) {
+            ids.add(row.uploadedBy());
+            if (row.reviewedBy() != null) {
+                ids.add(row.reviewedBy());
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Builds a photo from row values.
+     *
+     * @param row         the row values
+     * @param usersById   the users the row refers to, by ID
+     * @param annotations the repository the annotations of the photo are loaded from
+     * @return the photo
+     */
+    static PhotoDocument toPhoto(PhotoRow row, Map<String, UserBusiness> usersById,
+                                 PhotoAnnotationRepository annotations) {
+        UserBusiness uploadedBy = OrderRowMapper.toUser(row.uploadedBy(), usersById);
+        Timestamp uploadedAt = new Timestamp(row.uploadedAt() != null ? row.uploadedAt() : Instant.EPOCH);
+        PhotoId photoId = new PhotoId(row.id());
+
+        PhotoDocument photo = PhotoDocument.builder()
+                .photoId(photoId)
+                .orderId(new OrderId(row.orderId()))
+                .template(toTemplate(row.angle()))
+                .imagePath(new Photo(row.imagePath()))
+                .uploadedBy(uploadedBy)
+                .uploadedAt(uploadedAt)
+                .qualityScore(row.qualityScore())
+                .perceptualHash(row.perceptualHash())
+                .imageMetadata(row.imageMetadata())
+                .annotationLoader(() -> annotations.findByPhotoId(photoId))
+                .build();
+
+        PhotoDocument.ApprovalStatus status = PhotoDocument.ApprovalStatus.valueOf(row.status());
+        if (status != PhotoDocument.ApprovalStatus.PENDING) {
+            // Rows reviewed before the reviewer was recorded are attributed to the uploader
+            UserReference reviewer = row.reviewedBy() != null
+                                     ? OrderRowMapper.toReference(row.reviewedBy(), usersById)
+                                     : new UserReference(uploadedBy.getId(), uploadedBy.getUsername());
+            Timestamp reviewedAt = row.reviewedAt() != null ? new Timestamp(row.reviewedAt()) : uploadedAt;
+            if (status == PhotoDocument.ApprovalStatus.APPROVED) {
+                photo.approve(reviewer, reviewedAt);
+            } else {
+                photo.reject(reviewer, reviewedAt, row.reviewComment());
+            }
+        }
+
+        return photo;
+    }
+
+    /**
+     * Binds the columns of {@link #INSERT_SQL}.
+     *
+     * @param stmt  the statement
+     * @param photo the photo, which must belong to an order
+     * @throws SQLException if a parameter cannot be bound
+     */
+    static void bindInsert(PreparedStatement stmt, PhotoDocument photo) throws SQLException {
+        stmt.setString(1, photo.getPhotoId().id());
+        stmt.setString(2, photo.getOrderId().id());
+        stmt.setString(3, photo.getImagePath().path());
+        stmt.setString(4, photo.getTemplate().name());
+        stmt.setString(5, photo.getStatus().name());
+        stmt.setString(6, photo.getUploadedBy().getId().id());
+        stmt.setTimestamp(7, java.sql.Timestamp.from(photo.getUploadedAt().toInstant()));
+        bindReview(stmt, 8, photo);
+        bindQualityScore(stmt, 11, photo);
+        bindPerceptualHash(stmt, 15, photo);
+        bindImageMetadata(stmt, 16, photo);
+    }
+
+    /**
+     * Binds the columns of {@link #UPDATE_SQL}.
+     *
+     * @param stmt  the statement
+     * @param photo the photo
+     * @throws SQLException if a parameter cannot be bound
+     */
+    static void bindUpdate(PreparedStatement stmt, PhotoDocument photo) throws SQLException {
+        stmt.setString(1, photo.getImagePath().path());
+        stmt.setString(2, photo.getTemplate().name());
+        stmt.setString(3, photo.getStatus().name());
+        bindReview(stmt, 4, photo);
+        bindQualityScore(stmt, 7, photo);
+        bindPerceptualHash(stmt, 11, photo);
+        bindImageMetadata(stmt, 12, photo);
+        stmt.setString(16, photo.getPhotoId().id());
+    }
+
+    /**
+     * Checks whether a photo still has the values of its stored row, so writing it again would not
+     * change the row. Times are compared to the millisecond, as the databases store them; a photo
+     * that only differs below that is written again, which is harmless.
+     *
+     * @param row   the stored row values
+     * @param photo the photo
+     * @return true if the mutable columns of the row match the photo
+     */
+    static boolean matches(PhotoRow row, PhotoDocument photo) {
+        String reviewedBy = photo.getReviewedBy() != null ? photo.getReviewedBy().id().id() : null;
+        Instant reviewedAt = photo.getReviewedAt() != null ? photo.getReviewedAt().toInstant() : null;
+        ImageMetadata metadata = photo.getImageMetadata();
+        ImageMetadata stored = row.imageMetadata();
+        boolean metadataMatches = metadata == null || stored == null
+                                  ? metadata == stored
+                                  : metadata.width() == stored.width() && metadata.height() == stored.height()
+                                    && metadata.orientation() == stored.orientation()
+                                    && sameMillis(metadata.capturedAt(), stored.capturedAt());
+        return photo.getImagePath().path().equals(row.imagePath())
+               && photo.getTemplate().name().equals(row.angle())
+               && photo.getStatus().name().equals(row.status())
+               && Objects.equals(reviewedBy, row.reviewedBy())
+               && sameMillis(reviewedAt, row.reviewedAt())
+               && Objects.equals(photo.getReviewComment(), row.reviewComment())
+               && Objects.equals(photo.getQualityScore(), row.qualityScore())
+               && Objects.equals(photo.getPerceptualHash(), row.perceptualHash())
+               && metadataMatches;
+    }
+
+    private static boolean sameMillis(Instant first, Instant second) {
+        return first == null || second == null ? first == second : first.toEpochMilli() == second.toEpochMilli();
+    }
+
+    /**
+     * Finds a template by its stored name. Templates that are not predefined and have not been
+     * seen in this run are recreated with the description of the custom template.
+     */
+    private static PhotoTemplate toTemplate(String name) {
+        if (name == null || name.isBlank()) {
+            return PhotoTemplate.CUSTOM;
+        }
+        return PhotoTemplateRegistry.findByName(name)
+                .orElseGet(() -> new PhotoTemplate(name, PhotoTemplate.CUSTOM.description()));
+    }
+
+    private static ImageQualityScore readQualityScore(ResultSet rs) throws SQLException {
+        double sharpness = rs.getDouble("sharpness");
+        if (rs.wasNull()) {
+            return null;
+        }
+        return new ImageQualityScore(sharpness, rs.getDouble("mean_luminance"), rs.getDouble("dark_clipping_ratio"),
+                rs.getDouble("bright_clipping_ratio"));
+    }
+
+    private static PerceptualHash readPerceptualHash(ResultSet rs) throws SQLException {
+        long bits = rs.getLong("perceptual_hash");
+        return rs.wasNull() ? null : new PerceptualHash(bits);
+    }
+
+    private static ImageMetadata readImageMetadata(ResultSet rs) throws SQLException {
+        int width = rs.getInt("image_width");
+        if (rs.wasNull()) {
+            return null;
+        }
+        int orientation = rs.getInt("orientation");
+        if (rs.wasNull()) {
+            orientation = ImageMetadata.ORIENTATION_NORMAL;
+        }
+        return new ImageMetadata(width, rs.getInt("image_height"), orientation,
+                toInstant(rs.getTimestamp("captured_at")));
+    }
+
+    private static Instant toInstant(java.sql.Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+
+    /**
+     * Binds reviewed_by, reviewed_at and review_comment, in that order.
+     */
+    private static void bindReview(PreparedStatement stmt, int startIndex, PhotoDocument photo) throws SQLException {
+        if (photo.getReviewedBy() != null) {
+            stmt.setString(startIndex, photo.getReviewedBy().id().id());
+        } else {
+            stmt.setNull(startIndex, Types.VARCHAR);
+        }
+
+        if (photo.getReviewedAt() != null) {
+            stmt.setTimestamp(startIndex + 1, java.sql.Timestamp.from(photo.getReviewedAt().toInstant()));
+        } else {
+            stmt.setNull(startIndex + 1, Types.TIMESTAMP);
+        }
+
+        stmt.setString(startIndex + 2, photo.getReviewComment());
+    }
+
+    /**
+     * Binds sharpness, mean_luminance, dark_clipping_ratio and bright_clipping_ratio, in that order.
+     */
+    private static void bindQualityScore(PreparedStatement stmt, int startIndex, PhotoDocument photo)
+            throws SQLException {
+        ImageQualityScore score = photo.getQualityScore();
+        if (score == null) {
+            for (int i = 0; i < 4; i++) {
+                stmt.setNull(startIndex + i, Types.DOUBLE);
+            }
+            return;
+        }
+        stmt.setDouble(startIndex, score.sharpness());
+        stmt.setDouble(startIndex + 1, score.meanLuminance());
+        stmt.setDouble(startIndex + 2, score.darkClippingRatio());
+        stmt.setDouble(startIndex + 3, score.brightClippingRatio());
+    }
+
+    /**
+     * Binds perceptual_hash.
+     */
+    private static void bindPerceptualHash(PreparedStatement stmt, int index, PhotoDocument photo)
+            throws SQLException {
+        if (photo.getPerceptualHash() != null) {
+            stmt.setLong(index, photo.getPerceptualHash().bits());
+        } else {
+            stmt.setNull(index, Types.BIGINT);
+        }
+    }
+
+    /**
+     * Binds image_width, image_height, orientation and captured_at, in that order.
+     */
+    private static void bindImageMetadata(PreparedStatement stmt, int startIndex, PhotoDocument photo)
+            throws SQLException {
+        ImageMetadata metadata = photo.getImageMetadata();
+        if (metadata == null) {
+            stmt.setNull(startIndex, Types.INTEGER);
+            stmt.setNull(startIndex + 1, Types.INTEGER);
+            stmt.setNull(startIndex + 2, Types.SMALLINT);
+            stmt.setNull(startIndex + 3, Types.TIMESTAMP);
+            return;
+        }
+        stmt.setInt(startIndex, metadata.width());
+        stmt.setInt(startIndex + 1, metadata.height());
+        stmt.setShort(startIndex + 2, (short) metadata.orientation());
+        if (metadata.capturedAt() != null) {
+            stmt.setTimestamp(startIndex + 3, java.sql.Timestamp.from(metadata.capturedAt()));
+        } else {
+            stmt.setNull(startIndex + 3, Types.TIMESTAMP);
+        }
+    }
+
+    /**
+     * The column values of a single row of the photo_documents table.
+     */
+    record PhotoRow(String id, String orderId, String imagePath, String angle, String status, String uploadedBy,
+                    Instant uploadedAt, String reviewedBy, Instant reviewedAt, String reviewComment,
+                    ImageQualityScore qualityScore, PerceptualHash perceptualHash, ImageMetadata imageMetadata) {
+    }
+}
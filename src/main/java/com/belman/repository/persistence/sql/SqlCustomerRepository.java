@@ -4,6 +4,7 @@ import com.belman.domain.common.EmailAddress;
 import com.belman.domain.common.PersonName;
 import com.belman.domain.common.PhoneNumber;
 import com.belman.domain.customer.*;
+import com.belman.domain.exceptions.VersionConflictException;
 import com.belman.domain.specification.Specification;
 
 import javax.sql.DataSource;
@@ -19,6 +20,9 @@ import java.util.logging.Logger;
 /**
  * SQL-based implementation of the CustomerRepository interface.
  * This implementation stores customers in a SQL database.
+ * <p>
+ * Writes are conditional on the version column: saving a customer that was changed by someone
+ * else after it was loaded throws a {@link VersionConflictException} instead of overwriting that change.
  */
 public class SqlCustomerRepository implements CustomerRepository {
     private static final Logger LOGGER = Logger.getLogger(SqlCustomerRepository.class.getName());
@@ -83,140 +87,172 @@ public class SqlCustomerRepository implements CustomerRepository {
                 .toList();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A customer with version 0 is inserted if its ID is free; any other customer is updated only
+     * if its stored version still matches, so no existence check is needed. The write and the
+     * version read that explains a conflict run in one transaction.
+     *
+     * @throws VersionConflictException if the customer was changed or deleted since it was loaded,
+     *                                  or a new customer's ID is already in use
+     */
     @Override
     public void save(CustomerAggregate customer) {
-        // Check if customer already exists
-        String checkSql = "SELECT COUNT(*) FROM customers WHERE id = ?";
-        boolean customerExists = false;
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(checkSql)) {
-
-            stmt.setString(1, customer.getId().id());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    customerExists = rs.getInt(1) > 0;
-                }
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long version = customer.getVersion() == 0 ? insertCustomer(conn, customer)
+                                                          : updateCustomer(conn, customer);
+                conn.commit();
+                customer.setVersion(version);
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
+            LOGGER.info("Customer saved successfully: " + customer.getId().id());
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking if customer exists: " + customer.getId().id(), e);
-            throw new RuntimeException("Error checking if customer exists", e);
-        }
-
-        if (customerExists) {
-            updateCustomer(customer);
-        } else {
-            insertCustomer(customer);
+            LOGGER.log(Level.SEVERE, "Error saving customer: " + customer.getId().id(), e);
+            throw new RuntimeException("Error saving customer", e);
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A saved customer is only deleted if its stored version still matches.
+     *
+     * @throws VersionConflictException if the customer was changed since it was loaded
+     */
     @Override
     public void delete(CustomerAggregate customer) {
-        String sql = "DELETE FROM customers WHERE id = ?";
+        boolean versioned = customer.getVersion() > 0;
+        String sql = versioned ? "DELETE FROM customers WHERE id = ? AND version = ?"
+                               : "DELETE FROM customers WHERE id = ?";
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, customer.getId().id());
+            if (versioned) {
+                stmt.setLong(2, customer.getVersion());
+            }
             int rowsAffected = stmt.executeUpdate();
 
             if (rowsAffected > 0) {
                 LOGGER.info("Customer deleted successfully: " + customer.getId().id());
-            } else {
-                LOGGER.warning("No customer found to delete with id: " + customer.getId().id());
+                return;
             }
+            long actualVersion = versioned ? findVersion(conn, customer.getId()) : VersionConflictException.DELETED;
+            if (actualVersion != VersionConflictException.DELETED) {
+                throw conflict(customer, actualVersion);
+            }
+            LOGGER.warning("No customer found to delete with id: " + customer.getId().id());
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting customer: " + customer.getId().id(), e);
             throw new RuntimeException("Error deleting customer", e);
         }
     }
 
-    private void updateCustomer(CustomerAggregate customer) {
+    /**
+     * Updates a customer if its stored version still matches, on the given connection.
+     *
+     * @return the new version of the customer
+     */
+    private long updateCustomer(Connection conn, CustomerAggregate customer) throws SQLException {
         String sql = "UPDATE customers SET type = ?, person_first_name = ?, person_last_name = ?, " +
-                     "company_name = ?, email = ?, phone_number = ? WHERE id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, customer.getType().name());
-
-            // Set person name or company name based on customer type
-            if (customer.isIndividual()) {
-                PersonName personName = customer.getPersonName();
-                stmt.setString(2, personName.firstName());
-                stmt.setString(3, personName.lastName());
-                stmt.setNull(4, java.sql.Types.VARCHAR); // No company name
-            } else {
-                stmt.setNull(2, java.sql.Types.VARCHAR); // No first name
-                stmt.setNull(3, java.sql.Types.VARCHAR); // No last name
-                stmt.setString(4, customer.getCompany().toString());
-            }
-
-            stmt.setString(5, customer.getEmail().value());
-
-            // Set phone number if available
-            if (customer.getPhoneNumber() != null) {
-                stmt.setString(6, customer.getPhoneNumber().toString());
-            } else {
-                stmt.setNull(6, java.sql.Types.VARCHAR);
-            }
+                     "company_name = ?, email = ?, phone_number = ?, version = version + 1 " +
+                     "WHERE id = ? AND version = ?";
 
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            bindColumns(stmt, 1, customer);
             stmt.setString(7, customer.getId().id());
+            stmt.setLong(8, customer.getVersion());
 
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                LOGGER.info("Customer updated successfully: " + customer.getId().id());
+            if (stmt.executeUpdate() == 0) {
+                throw conflict(customer, findVersion(conn, customer.getId()));
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error updating customer: " + customer.getId().id(), e);
-            throw new RuntimeException("Error updating customer", e);
         }
+        return customer.getVersion() + 1;
     }
 
-    private void insertCustomer(CustomerAggregate customer) {
+    /**
+     * Inserts a new customer if its ID is free, on the given connection. The insert is conditional,
+     * so a taken ID is reported as a conflict without a failed statement aborting the transaction.
+     *
+     * @return the version of the inserted customer
+     */
+    private long insertCustomer(Connection conn, CustomerAggregate customer) throws SQLException {
         String sql = "INSERT INTO customers (id, type, person_first_name, person_last_name, company_name, " +
-                     "email, phone_number) VALUES (?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+                     "email, phone_number, version) SELECT ?, ?, ?, ?, ?, ?, ?, 1 " +
+                     "WHERE NOT EXISTS (SELECT 1 FROM customers WHERE id = ?)";
 
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, customer.getId().id());
-            stmt.setString(2, customer.getType().name());
-
-            // Set person name or company name based on customer type
-            if (customer.isIndividual()) {
-                PersonName personName = customer.getPersonName();
-                stmt.setString(3, personName.firstName());
-                stmt.setString(4, personName.lastName());
-                stmt.setNull(5, java.sql.Types.VARCHAR); // No company name
-            } else {
-                stmt.setNull(3, java.sql.Types.VARCHAR); // No first name
-                stmt.setNull(4, java.sql.Types.VARCHAR); // No last name
-                stmt.setString(5, customer.getCompany().toString());
+            bindColumns(stmt, 2, customer);
+            stmt.setString(8, customer.getId().id());
+
+            if (stmt.executeUpdate() == 0) {
+                throw conflict(customer, findVersion(conn, customer.getId()));
             }
+        }
+        return 1;
+    }
 
-            stmt.setString(6, customer.getEmail().value());
+    /**
+     * Binds the type, names, email and phone number of a customer to six consecutive parameters.
+     */
+    private static void bindColumns(PreparedStatement stmt, int first, CustomerAggregate customer)
+            throws SQLException {
+        stmt.setString(first, customer.getType().name());
+
+        // Set person name or company name based on customer type
+        if (customer.isIndividual()) {
+            PersonName personName = customer.getPersonName();
+            stmt.setString(first + 1, personName.firstName());
+            stmt.setString(first + 2, personName.lastName());
+            stmt.setNull(first + 3, java.sql.Types.VARCHAR); // No company name
+        } else {
+            stmt.setNull(first + 1, java.sql.Types.VARCHAR); // No first name
+            stmt.setNull(first + 2, java.sql.Types.VARCHAR); // No last name
+            stmt.setString(first + 3, customer.getCompany().toString());
+        }
 
-            // Set phone number if available
-            if (customer.getPhoneNumber() != null) {
-                stmt.setString(7, customer.getPhoneNumber().toString());
-            } else {
-                stmt.setNull(7, java.sql.Types.VARCHAR);
-            }
+        stmt.setString(first + 4, customer.getEmail().value());
 
-            int rowsAffected = stmt.executeUpdate();
+        // Set phone number if available
+        if (customer.getPhoneNumber() != null) {
+            stmt.setString(first + 5, customer.getPhoneNumber().toString());
+        } else {
+            stmt.setNull(first + 5, java.sql.Types.VARCHAR);
+        }
+    }
 
-            if (rowsAffected > 0) {
-                LOGGER.info("Customer inserted successfully: " + customer.getId().id());
+    /**
+     * Reads the stored version of a customer.
+     *
+     * @return the stored version, or {@link VersionConflictException#DELETED} if the customer does not exist
+     */
+    private long findVersion(Connection conn, CustomerId customerId) throws SQLException {
+        String sql = "SELECT version FROM customers WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, customerId.id());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : VersionConflictException.DELETED;
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error inserting customer: " + customer.getId().id(), e);
-            throw new RuntimeException("Error inserting customer", e);
         }
     }
 
+    private VersionConflictException conflict(CustomerAggregate customer, long actualVersion) {
+        LOGGER.warning("Version conflict saving customer " + customer.getId().id() + ": expected version " +
+                       customer.getVersion() + ", found " + actualVersion);
+        return new VersionConflictException("Customer", customer.getId().id(), customer.getVersion(),
+                actualVersion);
+    }
+
     private CustomerAggregate mapResultSetToCustomer(ResultSet rs) throws SQLException {
         CustomerId id = new CustomerId(rs.getString("id"));
         CustomerType type = CustomerType.valueOf(rs.getString("type"));
@@ -256,6 +292,7 @@ public class SqlCustomerRepository implements CustomerRepository {
             }
         }
 
+        customer.setVersion(rs.getLong("version"));
         return customer;
     }
 }
@@ -0,0 +1,332 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderChange;
+import com.belman.domain.order.OrderChangeFeed;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SQL-based implementation of the OrderChangeFeed interface.
+ * <p>
+ * Changes are rows of the order_changes table, numbered by its identity column. The order
+ * repository writes them with {@link #recordOrderChange} and {@link #recordPhotoChanges} on the
+ * connection of the transaction that changes the order, so a change is in the feed exactly when
+ * it is committed.
+ * <p>
+ * Clients acknowledge their cursors in the order_change_consumers table, and
+ * {@link #pruneAcknowledged(Duration)} deletes the changes every active client has applied and
+ * records how far it pruned in the order_change_retention table.
+ */
+public class SqlOrderChangeFeed implements OrderChangeFeed {
+    private static final Logger LOGGER = Logger.getLogger(SqlOrderChangeFeed.class.getName());
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_changes (entity_type, entity_id, order_id, operation) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_COLUMNS = "SELECT change_seq, entity_type, entity_id, order_id, operation ";
+
+    // How long settling a gap waits for the transaction that writes it, before trying again later
+    private static final int SETTLE_LOCK_TIMEOUT_MILLIS = 2000;
+
+    private final DataSource dataSource;
+
+    /**
+     * Creates a new SqlOrderChangeFeed with the specified DataSource.
+     *
+     * @param dataSource the DataSource to use for database connections
+     */
+    public SqlOrderChangeFeed(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<OrderChange> findChangesSince(long sequence, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        // Keyset read on the primary key; the limit is applied while reading so the query stays portable
+        String sql = SELECT_COLUMNS + "FROM order_changes WHERE change_seq > ? ORDER BY change_seq";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setLong(1, sequence);
+            stmt.setMaxRows(limit);
+            stmt.setFetchSize(limit);
+            return readChanges(stmt, limit);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading order changes since: " + sequence, e);
+            throw new RuntimeException("Error reading order changes", e);
+        }
+    }
+
+    @Override
+    public long findLatestSequence() {
+        String sql = "SELECT MAX(change_seq) FROM order_changes";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading the latest order change", e);
+            throw new RuntimeException("Error reading order changes", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * On SQL Server the range is read with locking reads, which wait for a transaction that still
+     * holds an uncommitted row of the range, up to a lock timeout. SQLite has one writer at a time,
+     * so a sequence below a committed one is already settled and the range is read directly.
+     */
+    @Override
+    public List<OrderChange> settleChanges(long after, long upTo) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean sqlServer = isSqlServer(conn);
+            String sql = SELECT_COLUMNS + "FROM order_changes" + (sqlServer ? " WITH (READCOMMITTEDLOCK)" : "") +
+                         " WHERE change_seq > ? AND change_seq <= ? ORDER BY change_seq";
+            if (sqlServer) {
+                setLockTimeout(conn, SETTLE_LOCK_TIMEOUT_MILLIS);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setLong(1, after);
+                stmt.setLong(2, upTo);
+                return readChanges(stmt, Integer.MAX_VALUE);
+            } finally {
+                if (sqlServer) {
+                    // The connection goes back to the pool, so the session setting is reset
+                    setLockTimeout(conn, -1);
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.FINE, "Could not settle order changes " + (after + 1) + " to " + upTo, e);
+            throw new RuntimeException("Error settling order changes", e);
+        }
+    }
+
+    @Override
+    public void acknowledge(String consumerId, long sequence) {
+        Timestamp now = Timestamp.from(Instant.now());
+        try (Connection conn = dataSource.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE order_change_consumers SET last_sequence = ?, acknowledged_at = ? WHERE consumer_id = ?")) {
+                stmt.setLong(1, sequence);
+                stmt.setTimestamp(2, now);
+                stmt.setString(3, consumerId);
+                if (stmt.executeUpdate() > 0) {
+                    return;
+                }
+            }
+            // Each client acknowledges only its own row, so the insert cannot race with another client
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO order_change_consumers (consumer_id, last_sequence, acknowledged_at) VALUES (?, ?, ?)")) {
+                stmt.setString(1, consumerId);
+                stmt.setLong(2, sequence);
+                stmt.setTimestamp(3, now);
+                stmt.executeUpdate();
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error acknowledging order changes for consumer: " + consumerId, e);
+            throw new RuntimeException("Error acknowledging order changes", e);
+        }
+    }
+
+    @Override
+    public long findPrunedSequence() {
+        try (Connection conn = dataSource.getConnection()) {
+            return findPrunedSequence(conn);
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error reading the pruned order change sequence", e);
+            throw new RuntimeException("Error reading order changes", e);
+        }
+    }
+
+    @Override
+    public int pruneAcknowledged(Duration consumerTimeout) {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(consumerTimeout));
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "DELETE FROM order_change_consumers WHERE acknowledged_at < ?")) {
+                    stmt.setTimestamp(1, cutoff);
+                    stmt.executeUpdate();
+                }
+                long acknowledged;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT MIN(last_sequence) FROM order_change_consumers");
+                     ResultSet rs = stmt.executeQuery()) {
+                    acknowledged = rs.next() ? rs.getLong(1) : 0;
+                    if (rs.wasNull()) {
+                        acknowledged = 0;
+                    }
+                }
+                // Without active clients nothing is known to be applied, so nothing is pruned
+                if (acknowledged <= findPrunedSequence(conn)) {
+                    conn.commit();
+                    return 0;
+                }
+                int pruned;
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM order_changes WHERE change_seq <= ?")) {
+                    stmt.setLong(1, acknowledged);
+                    pruned = stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "UPDATE order_change_retention SET pruned_up_to = ? WHERE id = 1 AND pruned_up_to < ?")) {
+                    stmt.setLong(1, acknowledged);
+                    stmt.setLong(2, acknowledged);
+                    stmt.executeUpdate();
+                }
+                conn.commit();
+                LOGGER.info("Pruned " + pruned + " order changes up to " + acknowledged);
+                return pruned;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error pruning order changes", e);
+            throw new RuntimeException("Error pruning order changes", e);
+        }
+    }
+
+    /**
+     * Records a change of an order on the given connection, as part of its transaction.
+     *
+     * @param conn      the connection of the transaction that changes the order
+     * @param orderId   the ID of the order
+     * @param operation whether the order was written or deleted
+     * @throws SQLException if the change cannot be recorded
+     */
+    static void recordOrderChange(Connection conn, OrderId orderId, OrderChange.Operation operation)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            bind(stmt, OrderChange.EntityType.ORDER, orderId.id(), orderId, operation);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Records that photos of an order were written, as one batch on the given connection.
+     *
+     * @param conn    the connection of the transaction that writes the photos
+     * @param orderId the ID of the order the photos belong to
+     * @param photos  the written photos
+     * @throws SQLException if the changes cannot be recorded
+     */
+    static void recordPhotoChanges(Connection conn, OrderId orderId, List<PhotoDocument> photos)
+            throws SQLException {
+        if (photos.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (PhotoDocument photo : photos) {
+                bind(stmt, OrderChange.EntityType.PHOTO, photo.getPhotoId().id(), orderId,
+                        OrderChange.Operation.UPSERT);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Records a change of a single photo on the given connection, as part of its transaction.
+     *
+     * @param conn      the connection of the transaction that changes the photo
+     * @param orderId   the ID of the order the photo belongs to
+     * @param photoId   the ID of the photo
+     * @param operation whether the photo was written or deleted
+     * @throws SQLException if the change cannot be recorded
+     */
+    static void recordPhotoChange(Connection conn, OrderId orderId, PhotoId photoId, OrderChange.Operation operation)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            bind(stmt, OrderChange.EntityType.PHOTO, photoId.id(), orderId, operation);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Records that new orders and their photos were written, as one batch on the given connection.
+     *
+     * @param conn   the connection of the transaction that inserts the orders
+     * @param orders the inserted orders
+     * @throws SQLException if the changes cannot be recorded
+     */
+    static void recordInsertedOrders(Connection conn, List<OrderBusiness> orders) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_SQL)) {
+            for (OrderBusiness order : orders) {
+                // Photos first, as for a single insert, so a client that sees the order sees its photos
+                for (PhotoDocument photo : order.getPhotos()) {
+                    bind(stmt, OrderChange.EntityType.PHOTO, photo.getPhotoId().id(), order.getId(),
+                            OrderChange.Operation.UPSERT);
+                    stmt.addBatch();
+                }
+                bind(stmt, OrderChange.EntityType.ORDER, order.getId().id(), order.getId(),
+                        OrderChange.Operation.UPSERT);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, OrderChange.EntityType entityType, String entityId,
+                             OrderId orderId, OrderChange.Operation operation) throws SQLException {
+        stmt.setString(1, entityType.name());
+        stmt.setString(2, entityId);
+        stmt.setString(3, orderId.id());
+        stmt.setString(4, operation.name());
+    }
+
+    private static List<OrderChange> readChanges(PreparedStatement stmt, int limit) throws SQLException {
+        List<OrderChange> changes = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next() && changes.size() < limit) {
+                changes.add(new OrderChange(
+                        rs.getLong(1),
+                        OrderChange.EntityType.valueOf(rs.getString(2)),
+                        rs.getString(3),
+                        new OrderId(rs.getString(4)),
+                        OrderChange.Operation.valueOf(rs.getString(5))));
+            }
+        }
+        return changes;
+    }
+
+    private static long findPrunedSequence(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT pruned_up_to FROM order_change_retention WHERE id = 1");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    private static boolean isSqlServer(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().toLowerCase().contains("sql server");
+    }
+
+    private static void setLockTimeout(Connection conn, int millis) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("SET LOCK_TIMEOUT " + millis);
+        }
+    }
+}
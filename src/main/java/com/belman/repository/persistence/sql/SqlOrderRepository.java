@@ -1,18 +1,10 @@
 package com.belman.repository.persistence.sql;
 
-import com.belman.domain.common.Timestamp;
-import com.belman.domain.customer.CustomerAggregate;
-import com.belman.domain.customer.CustomerId;
-import com.belman.domain.customer.CustomerRepository;
+import com.belman.domain.exceptions.VersionConflictException;
 import com.belman.domain.order.*;
 import com.belman.domain.order.photo.PhotoDocument;
-import com.belman.domain.order.photo.PhotoId;
-import com.belman.domain.order.photo.PhotoTemplate;
 import com.belman.domain.specification.Specification;
-import com.belman.domain.user.UserId;
-import com.belman.domain.user.UserReference;
-import com.belman.domain.user.UserRepository;
-import com.belman.bootstrap.di.ServiceLocator;
+import com.belman.domain.user.UserBusiness;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -20,19 +12,43 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * SQL-based implementation of the OrderRepository interface.
  * This implementation stores orders in a SQL database.
+ * <p>
+ * Orders are loaded together with their photos and the users they refer to, using one batched
+ * photo query and one batched user query per result set.
+ * <p>
+ * Every write also records what changed in the order change feed, in the same transaction,
+ * so {@link SqlOrderChangeFeed} clients see each committed change exactly once.
+ * <p>
+ * Writes are conditional on the version column: saving an order that was changed by someone else
+ * after it was loaded throws a {@link VersionConflictException} instead of overwriting that change.
  */
 public class SqlOrderRepository implements OrderRepository {
     private static final Logger LOGGER = Logger.getLogger(SqlOrderRepository.class.getName());
 
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (id, order_number, customer_id, product_description, " +
+            "delivery_information, status, created_by, created_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 1)";
+
+    // Maximum number of IDs in one IN list, well below the parameter limits of SQL Server and SQLite
+    private static final int MAX_IN_LIST = 500;
+
     private final DataSource dataSource;
+    private final SqlPhotoAnnotationRepository annotationRepository;
 
     /**
      * Creates a new SqlOrderRepository with the specified DataSource.
@@ -41,46 +57,27 @@ public class SqlOrderRepository implements OrderRepository {
      */
     public SqlOrderRepository(DataSource dataSource) {
         this.dataSource = dataSource;
+        this.annotationRepository = new SqlPhotoAnnotationRepository(dataSource);
     }
 
     @Override
     public Optional<OrderBusiness> findById(OrderId id) {
-        String sql = "SELECT * FROM orders WHERE id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, id.id());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToOrder(rs));
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding order by id: " + id.id(), e);
-        }
-        return Optional.empty();
-
+        return findOne("o.id = ?", id.id(), "Error finding order by id: " + id.id());
     }
 
     @Override
     public List<OrderBusiness> findAll() {
-        String sql = "SELECT * FROM orders";
-        List<OrderBusiness> orderBusinesses = new ArrayList<>();
+        String sql = "SELECT " + OrderRowMapper.COLUMNS + " FROM orders o";
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                orderBusinesses.add(mapResultSetToOrder(rs));
-            }
+            return loadOrders(conn, stmt);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all orderBusinesses", e);
         }
 
-        return orderBusinesses;
+        return new ArrayList<>();
     }
 
     @Override
@@ -92,40 +89,75 @@ public class SqlOrderRepository implements OrderRepository {
                 .toList();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * An order with version 0 is inserted; any other order is updated only if its stored version
+     * still matches, so no existence check is needed. The version of the order is incremented once
+     * the write has committed.
+     *
+     * @throws VersionConflictException if the order was changed or deleted since it was loaded,
+     *                                  or a new order's ID is already in use
+     */
     @Override
     public OrderBusiness save(OrderBusiness orderBusiness) {
-        // Check if orderBusiness already exists
-        String checkSql = "SELECT COUNT(*) FROM orders WHERE id = ?";
-        boolean orderExists = false;
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(checkSql)) {
-
-            stmt.setString(1, orderBusiness.getId().id());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    orderExists = rs.getInt(1) > 0;
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking if orderBusiness exists: " + orderBusiness.getId().id(), e);
-            throw new RuntimeException("Error checking if orderBusiness exists", e);
-        }
-
-        if (orderExists) {
-            updateOrder(orderBusiness);
-        } else {
+        if (orderBusiness.getVersion() == 0) {
             insertOrder(orderBusiness);
+        } else {
+            updateOrder(orderBusiness);
         }
 
         return orderBusiness;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A saved order is only deleted if its stored version still matches.
+     *
+     * @throws VersionConflictException if the order was changed since it was loaded
+     */
     @Override
     public void delete(OrderBusiness orderBusiness) {
-        if (orderBusiness != null) {
+        if (orderBusiness == null) {
+            return;
+        }
+        if (orderBusiness.getVersion() == 0) {
             deleteById(orderBusiness.getId());
+            return;
+        }
+
+        String sql = "DELETE FROM orders WHERE id = ? AND version = ?";
+        OrderId id = orderBusiness.getId();
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, id.id());
+                stmt.setLong(2, orderBusiness.getVersion());
+
+                if (stmt.executeUpdate() == 0) {
+                    long actualVersion = findVersion(conn, id);
+                    conn.rollback();
+                    if (actualVersion == VersionConflictException.DELETED) {
+                        // Already deleted, which is what the caller wanted
+                        return;
+                    }
+                    throw conflict(orderBusiness, actualVersion);
+                }
+                SqlOrderChangeFeed.recordOrderChange(conn, id, OrderChange.Operation.DELETE);
+                conn.commit();
+                LOGGER.info("Order deleted successfully: " + id.id());
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting order: " + id.id(), e);
+            throw new RuntimeException("Error deleting order", e);
         }
     }
 
@@ -133,15 +165,27 @@ public class SqlOrderRepository implements OrderRepository {
     public boolean deleteById(OrderId id) {
         String sql = "DELETE FROM orders WHERE id = ?";
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, id.id());
+                int rowsAffected = stmt.executeUpdate();
 
-            stmt.setString(1, id.id());
-            int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected > 0) {
+                    SqlOrderChangeFeed.recordOrderChange(conn, id, OrderChange.Operation.DELETE);
+                }
+                conn.commit();
 
-            if (rowsAffected > 0) {
-                LOGGER.info("Order deleted successfully: " + id.id());
-                return true;
+                if (rowsAffected > 0) {
+                    LOGGER.info("Order deleted successfully: " + id.id());
+                    return true;
+                }
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error deleting order: " + id.id(), e);
@@ -191,55 +235,95 @@ public class SqlOrderRepository implements OrderRepository {
 
     @Override
     public Optional<OrderBusiness> findByOrderNumber(OrderNumber orderNumber) {
-        String sql = "SELECT * FROM orders WHERE order_number = ?";
+        return findOne("o.order_number = ?", orderNumber.value(),
+                "Error finding order by order number: " + orderNumber.value());
+    }
+
+    private Optional<OrderBusiness> findOne(String condition, String value, String errorMessage) {
+        String sql = "SELECT " + OrderRowMapper.COLUMNS + " FROM orders o WHERE " + condition;
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, orderNumber.value());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToOrder(rs));
-                }
-            }
+            stmt.setString(1, value);
+            return loadOrders(conn, stmt).stream().findFirst();
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding order by order number: " + orderNumber.value(), e);
+            LOGGER.log(Level.SEVERE, errorMessage, e);
         }
 
         return Optional.empty();
     }
 
-    private void updateOrder(OrderBusiness orderBusiness) {
-        String sql = "UPDATE orders SET order_number = ?, customer_id = ?, product_description = ?, " +
-                     "delivery_information = ?, status = ? WHERE id = ?";
+    /**
+     * Runs an order query and loads the photos of all returned orders, and the users that the orders
+     * and photos refer to, with batched queries on the same connection instead of one extra
+     * connection and query per order, photo and user.
+     */
+    private List<OrderBusiness> loadOrders(Connection conn, PreparedStatement stmt) throws SQLException {
+        List<OrderRowMapper.OrderRow> orderRows = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                orderRows.add(OrderRowMapper.readRow(rs));
+            }
+        }
+        if (orderRows.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        List<PhotoRowMapper.PhotoRow> photoRows = SqlPhotoRepository.findRowsByOrderIds(conn,
+                orderRows.stream().map(OrderRowMapper.OrderRow::id).toList());
 
-            stmt.setString(1, orderBusiness.getOrderNumber() != null ? orderBusiness.getOrderNumber().value() : null);
-            stmt.setString(2,
-                    orderBusiness.getCustomerId() != null ? orderBusiness.getCustomerId().toString() : null);
-            stmt.setString(3,
-                    orderBusiness.getProductDescription() != null ? orderBusiness.getProductDescription().toString() :
-                            null);
-            stmt.setString(4, orderBusiness.getDeliveryInformation() != null ?
-                    orderBusiness.getDeliveryInformation().toString() : null);
-            stmt.setString(5, orderBusiness.getStatus().name());
-            stmt.setString(6, orderBusiness.getId().id());
-
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
-                // Update photos (this is simplified - in a real implementation, we would need to handle photo updates more carefully)
-                for (PhotoDocument photo : orderBusiness.getPhotos()) {
-                    if (photoExists(conn, photo.getPhotoId())) {
-                        updatePhoto(conn, photo);
-                    } else {
-                        insertPhoto(conn, photo);
-                    }
+        Set<String> userIds = new HashSet<>(PhotoRowMapper.userIds(photoRows));
+        orderRows.forEach(row -> userIds.add(row.createdBy()));
+        Map<String, UserBusiness> usersById = SqlUserRepository.findUsersByIds(conn, userIds);
+
+        Map<String, OrderBusiness> ordersById = new LinkedHashMap<>();
+        for (OrderRowMapper.OrderRow row : orderRows) {
+            ordersById.put(row.id(), OrderRowMapper.toOrder(row, usersById));
+        }
+        for (PhotoRowMapper.PhotoRow row : photoRows) {
+            ordersById.get(row.orderId()).addPhoto(PhotoRowMapper.toPhoto(row, usersById, annotationRepository));
+        }
+
+        return new ArrayList<>(ordersById.values());
+    }
+
+    /**
+     * Updates the order row and writes all of its photos in one transaction.
+     * Changed photos are updated and new photos inserted in two JDBC batches, so saving an order after
+     * reviewing many of its photos costs one round trip per statement type rather than one per photo.
+     * The order row is only updated while its version matches, and nothing is written otherwise.
+     */
+    private void updateOrder(OrderBusiness orderBusiness) {
+        String sql = "UPDATE orders SET order_number = ?, customer_id = ?, product_description = ?, " +
+                     "delivery_information = ?, status = ?, updated_at = CURRENT_TIMESTAMP, " +
+                     "version = version + 1 WHERE id = ? AND version = ?";
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setString(1, orderBusiness.getOrderNumber() != null ? orderBusiness.getOrderNumber().value() : null);
+                stmt.setString(2, orderBusiness.getCustomerId() != null ? orderBusiness.getCustomerId().id() : null);
+                stmt.setString(3, OrderRowMapper.encodeProductDescription(orderBusiness.getProductDescription()));
+                stmt.setString(4, OrderRowMapper.encodeDeliveryInformation(orderBusiness.getDeliveryInformation()));
+                stmt.setString(5, orderBusiness.getStatus().name());
+                stmt.setString(6, orderBusiness.getId().id());
+                stmt.setLong(7, orderBusiness.getVersion());
+
+                if (stmt.executeUpdate() == 0) {
+                    throw conflict(orderBusiness, findVersion(conn, orderBusiness.getId()));
                 }
+                writePhotos(conn, orderBusiness);
+                SqlOrderChangeFeed.recordOrderChange(conn, orderBusiness.getId(), OrderChange.Operation.UPSERT);
+                conn.commit();
+                orderBusiness.setVersion(orderBusiness.getVersion() + 1);
                 LOGGER.info("OrderBusiness updated successfully: " + orderBusiness.getId().id());
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error updating orderBusiness: " + orderBusiness.getId().id(), e);
@@ -248,34 +332,36 @@ public class SqlOrderRepository implements OrderRepository {
     }
 
     private void insertOrder(OrderBusiness orderBusiness) {
-        String sql = "INSERT INTO orders (id, order_number, customer_id, product_description, " +
-                     "delivery_information, status, created_by, created_at) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_ORDER_SQL)) {
+                bindNewOrder(stmt, orderBusiness);
+
+                try {
+                    stmt.executeUpdate();
+                } catch (SQLException e) {
+                    // Most likely the ID is taken, which is a conflict rather than a failure
+                    long actualVersion = findVersion(conn, orderBusiness.getId());
+                    if (actualVersion == VersionConflictException.DELETED) {
+                        throw e;
+                    }
+                    throw conflict(orderBusiness, actualVersion);
+                }
 
-            stmt.setString(1, orderBusiness.getId().id());
-            stmt.setString(2, orderBusiness.getOrderNumber() != null ? orderBusiness.getOrderNumber().value() : null);
-            stmt.setString(3,
-                    orderBusiness.getCustomerId() != null ? orderBusiness.getCustomerId().toString() : null);
-            stmt.setString(4,
-                    orderBusiness.getProductDescription() != null ? orderBusiness.getProductDescription().toString() :
-                            null);
-            stmt.setString(5, orderBusiness.getDeliveryInformation() != null ?
-                    orderBusiness.getDeliveryInformation().toString() : null);
-            stmt.setString(6, orderBusiness.getStatus().name());
-            stmt.setString(7, orderBusiness.getCreatedBy().toString()); //TODO: Use Reference Properly
-            stmt.setTimestamp(8, java.sql.Timestamp.from(orderBusiness.getCreatedAt().value()));
-
-            int rowsAffected = stmt.executeUpdate();
-
-            if (rowsAffected > 0) {
                 // Insert photos
-                for (PhotoDocument photo : orderBusiness.getPhotos()) {
-                    insertPhoto(conn, photo);
-                }
+                SqlPhotoRepository.insertPhotos(conn, orderBusiness.getPhotos());
+                SqlPhotoAnnotationRepository.writeAnnotations(conn, orderBusiness.getPhotos());
+                SqlOrderChangeFeed.recordPhotoChanges(conn, orderBusiness.getId(), orderBusiness.getPhotos());
+                SqlOrderChangeFeed.recordOrderChange(conn, orderBusiness.getId(), OrderChange.Operation.UPSERT);
+                conn.commit();
+                orderBusiness.setVersion(1);
                 LOGGER.info("OrderBusiness inserted successfully: " + orderBusiness.getId().id());
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error inserting orderBusiness: " + orderBusiness.getId().id(), e);
@@ -283,238 +369,151 @@ public class SqlOrderRepository implements OrderRepository {
         }
     }
 
-    private boolean photoExists(Connection conn, PhotoId photoId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM photo_documents WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, photoId.toString());
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1) > 0;
-                }
-            }
-        }
-        return false;
-    }
-
-    private void updatePhoto(Connection conn, PhotoDocument photo) throws SQLException {
-        String sql = "UPDATE photo_documents SET image_path = ?, angle = ?, status = ?, " +
-                     "reviewed_by = ?, reviewed_at = ?, review_comment = ? WHERE id = ?";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, photo.getImagePath().path());
-
-            // Store the angle - use named angle if available, otherwise use degrees
-            // TODO: Broken
-            String angleStr = photo.getTemplate().name();
-            stmt.setString(2, angleStr);
-
-            // Store the status
-            stmt.setString(3, photo.getStatus().name());
-
-            // Store the reviewed_by user ID if available
-            if (photo.getReviewedBy() != null) {
-                stmt.setString(4, photo.getReviewedBy().id().toString());
-            } else {
-                stmt.setNull(4, java.sql.Types.VARCHAR);
-            }
-
-            // Store the reviewed_at timestamp if available
-            if (photo.getReviewedAt() != null) {
-                stmt.setTimestamp(5, java.sql.Timestamp.from(photo.getReviewedAt().toInstant()));
-            } else {
-                stmt.setNull(5, java.sql.Types.TIMESTAMP);
-            }
-
-            // Store the review comment if available
-            stmt.setString(6, photo.getReviewComment());
-
-            // Where clause
-            stmt.setString(7, photo.getPhotoId().toString());
-
-            stmt.executeUpdate();
-            LOGGER.info("Photo updated successfully: " + photo.getPhotoId());
+    /**
+     * {@inheritDoc}
+     * <p>
+     * All orders are written in one transaction with JDBC batches: the IDs that are already stored
+     * are looked up first, then the new orders, their photos and their change feed rows are each
+     * inserted in one batch.
+     */
+    @Override
+    public List<OrderBusiness> insertAll(List<OrderBusiness> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
         }
-    }
-
-    private void insertPhoto(Connection conn, PhotoDocument photo) throws SQLException {
-        String sql =
-                "INSERT INTO photo_documents (id, order_id, image_path, angle, status, uploaded_by, uploaded_at, " +
-                "reviewed_by, reviewed_at, review_comment) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, photo.getPhotoId().toString());
-            stmt.setString(2, photo.getOrderId().id());
-            stmt.setString(3, photo.getImagePath().value());
 
-            // Store the angle - use named angle if available, otherwise use degrees
-            String angleStr = photo.getTemplate().name();
-            stmt.setString(4, angleStr);
-
-            // Store the status
-            stmt.setString(5, photo.getStatus().name());
-
-            // Store the uploaded_by user ID
-            stmt.setString(6, photo.getUploadedBy().getId().id());
-
-            // Store the uploaded_at timestamp
-            stmt.setTimestamp(7, java.sql.Timestamp.from(photo.getUploadedAt().toInstant()));
-
-            // Store the reviewed_by user ID if available
-            if (photo.getReviewedBy() != null) {
-                stmt.setString(8, photo.getReviewedBy().id().toString());
-            } else {
-                stmt.setNull(8, java.sql.Types.VARCHAR);
-            }
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                Set<String> storedIds = findStoredOrderIds(conn, orders);
+                List<OrderBusiness> inserts = new ArrayList<>();
+                List<PhotoDocument> photos = new ArrayList<>();
+                for (OrderBusiness orderBusiness : orders) {
+                    if (storedIds.add(orderBusiness.getId().id())) {
+                        inserts.add(orderBusiness);
+                        photos.addAll(orderBusiness.getPhotos());
+                    }
+                }
 
-            // Store the reviewed_at timestamp if available
-            if (photo.getReviewedAt() != null) {
-                stmt.setTimestamp(9, java.sql.Timestamp.from(photo.getReviewedAt().toInstant()));
-            } else {
-                stmt.setNull(9, java.sql.Types.TIMESTAMP);
+                if (!inserts.isEmpty()) {
+                    try (PreparedStatement stmt = conn.prepareStatement(INSERT_ORDER_SQL)) {
+                        for (OrderBusiness orderBusiness : inserts) {
+                            bindNewOrder(stmt, orderBusiness);
+                            stmt.addBatch();
+                        }
+                        stmt.executeBatch();
+                    }
+                    SqlPhotoRepository.insertPhotos(conn, photos);
+                    SqlPhotoAnnotationRepository.writeAnnotations(conn, photos);
+                    SqlOrderChangeFeed.recordInsertedOrders(conn, inserts);
+                }
+                conn.commit();
+                inserts.forEach(orderBusiness -> orderBusiness.setVersion(1));
+                LOGGER.info("Orders inserted in batch: " + inserts.size() + " of " + orders.size() +
+                            ", with " + photos.size() + " photos");
+                return inserts;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-
-            // Store the review comment if available
-            stmt.setString(10, photo.getReviewComment());
-
-            stmt.executeUpdate();
-            LOGGER.info("Photo inserted successfully: " + photo.getPhotoId());
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error inserting a batch of " + orders.size() + " orders", e);
+            throw new RuntimeException("Error inserting orders", e);
         }
     }
 
-    private OrderBusiness mapResultSetToOrder(ResultSet rs) throws SQLException {
-        OrderId id = new OrderId("order_id");
-
-        // Get the created_by user ID and fetch the user
-        UserId createdById = new UserId("user_id");
-        UserReference createdBy = fetchUser(createdById);
-
-        // Get the creation timestamp
-        java.sql.Timestamp sqlTimestamp = rs.getTimestamp("created_at");
-        Timestamp createdAt = new Timestamp(sqlTimestamp.toInstant());
-
-        // Create the orderBusiness with the required fields
-        OrderBusiness orderBusiness = new OrderBusiness(id, createdBy, createdAt);
-
-        // Set optional fields
-        String orderNumberStr = rs.getString("order_number");
-        if (orderNumberStr != null) {
-            orderBusiness.setOrderNumber(new OrderNumber(orderNumberStr));
-        }
-
-        String customerId = rs.getString("customer_id");
-        if (customerId != null) {
-            CustomerAggregate customer = fetchCustomer(new CustomerId("dwd"));
-            if (customer != null) {
-                orderBusiness.setCustomerId(customer.getId());
+    private Set<String> findStoredOrderIds(Connection conn, List<OrderBusiness> orders) throws SQLException {
+        Set<String> ids = new HashSet<>();
+        for (int start = 0; start < orders.size(); start += MAX_IN_LIST) {
+            List<OrderBusiness> chunk = orders.subList(start, Math.min(start + MAX_IN_LIST, orders.size()));
+            String sql = "SELECT id FROM orders WHERE id IN (" +
+                         String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i).getId().id());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getString(1));
+                    }
+                }
             }
         }
-
-        String productDescriptionStr = rs.getString("product_description");
-        if (productDescriptionStr != null) {
-            // This is simplified - in a real implementation, we would parse the product description properly
-        }
-
-        String deliveryInfoStr = rs.getString("delivery_information");
-        if (deliveryInfoStr != null) {
-            // This is simplified - in a real implementation, we would parse the delivery information properly
-        }
-
-        String statusStr = rs.getString("status");
-        if (statusStr != null) {
-            orderBusiness.setStatus(OrderStatus.valueOf(statusStr));
-        }
-
-        // Load photos for this orderBusiness
-        loadPhotos(orderBusiness);
-
-        return orderBusiness;
-    }
-
-    private UserReference fetchUser(UserId userId) {
-        try {
-            // Get the UserRepository from the ServiceLocator
-            UserRepository userRepository = ServiceLocator.getService(UserRepository.class);
-            // Use the UserRepository to find the user by ID
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching user: " + userId.id(), e);
-        }
-        return null;
+        return ids;
     }
 
-    private CustomerAggregate fetchCustomer(CustomerId customerId) {
-        try {
-            // Get the CustomerRepository from the ServiceLocator
-            CustomerRepository customerRepository = ServiceLocator.getService(CustomerRepository.class);
-            // Use the CustomerRepository to find the customer by ID
-            return customerRepository.findById(customerId);
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error fetching customer: " + customerId.id(), e);
-        }
-        return null;
+    /**
+     * Binds the columns of {@link #INSERT_ORDER_SQL}.
+     */
+    private void bindNewOrder(PreparedStatement stmt, OrderBusiness orderBusiness) throws SQLException {
+        stmt.setString(1, orderBusiness.getId().id());
+        stmt.setString(2, orderBusiness.getOrderNumber() != null ? orderBusiness.getOrderNumber().value() : null);
+        stmt.setString(3, orderBusiness.getCustomerId() != null ? orderBusiness.getCustomerId().id() : null);
+        stmt.setString(4, OrderRowMapper.encodeProductDescription(orderBusiness.getProductDescription()));
+        stmt.setString(5, OrderRowMapper.encodeDeliveryInformation(orderBusiness.getDeliveryInformation()));
+        stmt.setString(6, orderBusiness.getStatus().name());
+        stmt.setString(7, orderBusiness.getCreatedBy().id().id());
+        stmt.setTimestamp(8, java.sql.Timestamp.from(orderBusiness.getCreatedAt().value()));
     }
 
-    private void loadPhotos(OrderBusiness orderBusiness) {
-        String sql = "SELECT * FROM photo_documents WHERE order_id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, orderBusiness.getId().id());
-
+    /**
+     * Reads the stored version of an order on the connection of the current transaction.
+     *
+     * @return the stored version, or {@link VersionConflictException#DELETED} if the order does not exist
+     */
+    private long findVersion(Connection conn, OrderId orderId) throws SQLException {
+        String sql = "SELECT version FROM orders WHERE id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, orderId.id());
             try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    PhotoDocument photo = mapResultSetToPhoto(rs);
-                    if (photo != null) {
-                        orderBusiness.addPhoto(photo);
-                    }
-                }
+                return rs.next() ? rs.getLong(1) : VersionConflictException.DELETED;
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error loading photos for orderBusiness: " + orderBusiness.getId().id(), e);
         }
     }
 
-    private PhotoDocument mapResultSetToPhoto(ResultSet rs) throws SQLException {
-        // This is a simplified implementation - in a real implementation, we would map all fields properly
-        try {
-            PhotoId photoId = new PhotoId("id");
-            OrderId orderId = new OrderId("order_id");
-            String imagePath = rs.getString("image_path");
-            String angle = rs.getString("angle");
-            String status = rs.getString("status");
-
-            // Get the uploaded_by user ID and fetch the user
-            UserId uploadedById = new UserId(("uploaded_by"));
-            UserReference uploadedBy = fetchUser(uploadedById);
-
-            // Get the upload timestamp
-            java.sql.Timestamp sqlTimestamp = rs.getTimestamp("uploaded_at");
-            Timestamp uploadedAt = new Timestamp(sqlTimestamp.toInstant());
-
-            // TODO: Create the photo document
-
-
-            // Set the order ID
-
-            return null;
-        } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Error mapping result set to photo", e);
-            return null;
-        }
+    private VersionConflictException conflict(OrderBusiness orderBusiness, long actualVersion) {
+        LOGGER.warning("Version conflict saving order " + orderBusiness.getId().id() + ": expected version " +
+                       orderBusiness.getVersion() + ", found " + actualVersion);
+        return new VersionConflictException("Order", orderBusiness.getId().id(), orderBusiness.getVersion(),
+                actualVersion);
     }
 
     /**
-     * Creates a PhotoAngle from a string representation.
-     * Tries to parse the string as a named angle first, then as a custom angle (degrees).
-     *
-     * @param angleStr the string representation of the angle
-     * @return a PhotoAngle object
+     * Writes the photos of an order, updating the stored ones that changed and inserting the rest.
+     * Only those photos are recorded in the change feed; the order change recorded with them already
+     * tells consumers to reload the order. The annotations of photos whose annotations were loaded
+     * are replaced in the same transaction.
      */
-    private PhotoTemplate createPhotoAngle(String angleStr) {
-        if (angleStr == null || angleStr.isBlank()) {
-            // Default to FRONT if no angle is specified
-            return new PhotoTemplate(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY.name(), "okwodk");
+    private void writePhotos(Connection conn, OrderBusiness orderBusiness) throws SQLException {
+        if (orderBusiness.getPhotos().isEmpty()) {
+            return;
         }
-        return null;
+
+        Map<String, PhotoRowMapper.PhotoRow> storedRows = new HashMap<>();
+        for (PhotoRowMapper.PhotoRow row : SqlPhotoRepository.findRowsByOrderIds(conn,
+                List.of(orderBusiness.getId().id()))) {
+            storedRows.put(row.id(), row);
+        }
+        List<PhotoDocument> updates = new ArrayList<>();
+        List<PhotoDocument> inserts = new ArrayList<>();
+        List<PhotoDocument> changed = new ArrayList<>();
+        for (PhotoDocument photo : orderBusiness.getPhotos()) {
+            PhotoRowMapper.PhotoRow stored = storedRows.get(photo.getPhotoId().id());
+            if (stored == null) {
+                inserts.add(photo);
+                changed.add(photo);
+            } else if (!PhotoRowMapper.matches(stored, photo)) {
+                updates.add(photo);
+                changed.add(photo);
+            }
+        }
+
+        SqlPhotoRepository.updatePhotos(conn, updates);
+        SqlPhotoRepository.insertPhotos(conn, inserts);
+        SqlOrderChangeFeed.recordPhotoChanges(conn, orderBusiness.getId(), changed);
+        SqlPhotoAnnotationRepository.writeAnnotations(conn, orderBusiness.getPhotos());
     }
 }
@@ -0,0 +1,143 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoAnnotation;
+import com.belman.domain.order.photo.PhotoAnnotationRepository;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SQL-based implementation of the PhotoAnnotationRepository interface.
+ * <p>
+ * All annotations of a photo are stored in one row of the photo_annotations table, encoded by
+ * the {@link PhotoAnnotationCodec}. The row also holds the order ID, so the annotations of an
+ * order are read with one indexed query.
+ */
+public class SqlPhotoAnnotationRepository implements PhotoAnnotationRepository {
+    private static final Logger LOGGER = Logger.getLogger(SqlPhotoAnnotationRepository.class.getName());
+
+    private final DataSource dataSource;
+
+    /**
+     * Creates a new SqlPhotoAnnotationRepository with the specified DataSource.
+     *
+     * @param dataSource the DataSource to use for database connections
+     */
+    public SqlPhotoAnnotationRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public List<PhotoAnnotation> findByPhotoId(PhotoId photoId) {
+        String sql = "SELECT data FROM photo_annotations WHERE photo_id = ?";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, photoId.id());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? PhotoAnnotationCodec.decode(rs.getBytes(1)) : List.of();
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading annotations of photo: " + photoId, e);
+            throw new RuntimeException("Error loading photo annotations", e);
+        }
+    }
+
+    @Override
+    public Map<PhotoId, List<PhotoAnnotation>> findByOrderId(OrderId orderId) {
+        String sql = "SELECT photo_id, data FROM photo_annotations WHERE order_id = ?";
+        Map<PhotoId, List<PhotoAnnotation>> annotations = new HashMap<>();
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, orderId.id());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    annotations.put(new PhotoId(rs.getString(1)), PhotoAnnotationCodec.decode(rs.getBytes(2)));
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error loading annotations of order: " + orderId.id(), e);
+            throw new RuntimeException("Error loading photo annotations", e);
+        }
+        return annotations;
+    }
+
+    @Override
+    public void save(PhotoDocument photo) {
+        Objects.requireNonNull(photo.getOrderId(), "photo must be assigned to an order");
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                writeAnnotations(conn, List.of(photo));
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving annotations of photo: " + photo.getPhotoId(), e);
+            throw new RuntimeException("Error saving photo annotations", e);
+        }
+    }
+
+    /**
+     * Replaces the stored annotations of photos in two JDBC batches, on the caller's connection.
+     * Photos whose annotations have not been loaded are skipped, since their stored annotations
+     * cannot have changed; photos without annotations get no row.
+     *
+     * @param conn   the connection, in the caller's transaction
+     * @param photos the photos, all assigned to an order
+     * @throws SQLException if a statement fails
+     */
+    static void writeAnnotations(Connection conn, List<PhotoDocument> photos) throws SQLException {
+        List<PhotoDocument> loaded = photos.stream().filter(PhotoDocument::areAnnotationsLoaded).toList();
+        if (loaded.isEmpty()) {
+            return;
+        }
+
+        try (PreparedStatement delete = conn.prepareStatement("DELETE FROM photo_annotations WHERE photo_id = ?")) {
+            for (PhotoDocument photo : loaded) {
+                delete.setString(1, photo.getPhotoId().id());
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+
+        String sql = "INSERT INTO photo_annotations (photo_id, order_id, annotation_count, data) VALUES (?, ?, ?, ?)";
+        try (PreparedStatement insert = conn.prepareStatement(sql)) {
+            int rows = 0;
+            for (PhotoDocument photo : loaded) {
+                List<PhotoAnnotation> annotations = photo.getAnnotations();
+                if (annotations.isEmpty()) {
+                    continue;
+                }
+                insert.setString(1, photo.getPhotoId().id());
+                insert.setString(2, photo.getOrderId().id());
+                insert.setInt(3, annotations.size());
+                insert.setBytes(4, PhotoAnnotationCodec.encode(annotations));
+                insert.addBatch();
+                rows++;
+            }
+            if (rows > 0) {
+                insert.executeBatch();
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.order.OrderChange;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.user.ApprovalStatus;
+import com.belman.domain.user.UserBusiness;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SQL-based implementation of the PhotoRepository interface.
+ * This implementation reads and writes the photo_documents table that SqlOrderRepository stores
+ * the photos of an order in, so both repositories see the same photos.
+ * <p>
+ * Photos are loaded together with the users they refer to using one batched user query per
+ * result set, and every write records the photo in the order change feed in the same transaction.
+ */
+public class SqlPhotoRepository implements PhotoRepository {
+    private static final Logger LOGGER = Logger.getLogger(SqlPhotoRepository.class.getName());
+
+    // Maximum number of IDs in one IN list, well below the parameter limits of SQL Server and SQLite
+    private static final int MAX_IN_LIST = 500;
+
+    private final DataSource dataSource;
+    private final SqlPhotoAnnotationRepository annotationRepository;
+
+    /**
+     * Creates a new SqlPhotoRepository with the specified DataSource.
+     *
+     * @param dataSource the DataSource to use for database connections
+     */
+    public SqlPhotoRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.annotationRepository = new SqlPhotoAnnotationRepository(dataSource);
+    }
+
+    @Override
+    public Optional<PhotoDocument> findById(PhotoId id) {
+        return find("p.id = ?", List.of(id.id()), "Error finding photo by id: " + id.id()).stream().findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The photos are read with one query per {@value #MAX_IN_LIST} IDs.
+     */
+    @Override
+    public List<PhotoDocument> findByIds(Collection<PhotoId> ids) {
+        List<String> idValues = ids.stream().map(PhotoId::id).distinct().toList();
+        List<PhotoDocument> photos = new ArrayList<>(idValues.size());
+        for (int start = 0; start < idValues.size(); start += MAX_IN_LIST) {
+            List<String> chunk = idValues.subList(start, Math.min(start + MAX_IN_LIST, idValues.size()));
+            photos.addAll(find("p.id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")", chunk,
+                    "Error finding " + chunk.size() + " photos by id"));
+        }
+        return photos;
+    }
+
+    @Override
+    public List<PhotoDocument> findByOrderId(OrderId orderId) {
+        return find("p.order_id = ?", List.of(orderId.id()), "Error finding photos of order: " + orderId.id());
+    }
+
+    @Override
+    public List<PhotoDocument> findByStatus(ApprovalStatus status) {
+        return find("p.status = ?", List.of(status.name()), "Error finding photos by status: " + status);
+    }
+
+    @Override
+    public List<PhotoDocument> findByOrderIdAndStatus(OrderId orderId, ApprovalStatus status) {
+        return find("p.order_id = ? AND p.status = ?", List.of(orderId.id(), status.name()),
+                "Error finding photos of order " + orderId.id() + " by status: " + status);
+    }
+
+    @Override
+    public List<PhotoDocument> findAll() {
+        return find("1 = 1", List.of(), "Error finding all photos");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The photo is updated if it is stored and inserted otherwise, and its annotations are replaced
+     * if they were loaded, all in one transaction.
+     *
+     * @throws IllegalArgumentException if the photo is not assigned to an order
+     */
+    @Override
+    public PhotoDocument save(PhotoDocument photo) {
+        if (photo == null || photo.getOrderId() == null) {
+            throw new IllegalArgumentException("Photo document must be assigned to an order");
+        }
+
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                if (findOrderId(conn, photo.getPhotoId()) != null) {
+                    updatePhotos(conn, List.of(photo));
+                } else {
+                    insertPhotos(conn, List.of(photo));
+                }
+                SqlOrderChangeFeed.recordPhotoChanges(conn, photo.getOrderId(), List.of(photo));
+                SqlPhotoAnnotationRepository.writeAnnotations(conn, List.of(photo));
+                conn.commit();
+                return photo;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving photo: " + photo.getPhotoId().id(), e);
+            throw new RuntimeException("Error saving photo", e);
+        }
+    }
+
+    @Override
+    public void delete(PhotoDocument photo) {
+        if (photo != null) {
+            deleteById(photo.getPhotoId());
+        }
+    }
+
+    @Override
+    public boolean deleteById(PhotoId id) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                OrderId orderId = findOrderId(conn, id);
+                if (orderId == null) {
+                    conn.rollback();
+                    return false;
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM photo_annotations WHERE photo_id = ?")) {
+                    stmt.setString(1, id.id());
+                    stmt.executeUpdate();
+                }
+                try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM photo_documents WHERE id = ?")) {
+                    stmt.setString(1, id.id());
+                    stmt.executeUpdate();
+                }
+                SqlOrderChangeFeed.recordPhotoChange(conn, orderId, id, OrderChange.Operation.DELETE);
+                conn.commit();
+                LOGGER.info("Photo deleted successfully: " + id.id());
+                return true;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error deleting photo: " + id.id(), e);
+        }
+        return false;
+    }
+
+    @Override
+    public boolean existsById(PhotoId id) {
+        try (Connection conn = dataSource.getConnection()) {
+            return findOrderId(conn, id) != null;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error checking if photo exists: " + id.id(), e);
+        }
+        return false;
+    }
+
+    @Override
+    public long count() {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM photo_documents");
+             ResultSet rs = stmt.executeQuery()) {
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error counting photos", e);
+        }
+        return 0;
+    }
+
+    /**
+     * Inserts photos as one batch on the given connection, as part of its transaction.
+     *
+     * @param conn   the connection of the transaction
+     * @param photos the photos, which must belong to an order
+     * @throws SQLException if the photos cannot be inserted
+     */
+    static void insertPhotos(Connection conn, List<PhotoDocument> photos) throws SQLException {
+        if (photos.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(PhotoRowMapper.INSERT_SQL)) {
+            for (PhotoDocument photo : photos) {
+                PhotoRowMapper.bindInsert(stmt, photo);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            LOGGER.info("Photos inserted successfully: " + photos.size());
+        }
+    }
+
+    /**
+     * Updates stored photos as one batch on the given connection, as part of its transaction.
+     *
+     * @param conn   the connection of the transaction
+     * @param photos the stored photos
+     * @throws SQLException if the photos cannot be updated
+     */
+    static void updatePhotos(Connection conn, List<PhotoDocument> photos) throws SQLException {
+        if (photos.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(PhotoRowMapper.UPDATE_SQL)) {
+            for (PhotoDocument photo : photos) {
+                PhotoRowMapper.bindUpdate(stmt, photo);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            LOGGER.info("Photos updated successfully: " + photos.size());
+        }
+    }
+
+    /**
+     * Reads the photo rows of orders on the given connection, with one query per
+     * {@value #MAX_IN_LIST} orders.
+     *
+     * @param conn     the connection to use
+     * @param orderIds the IDs of the orders
+     * @return the photo rows, in upload order within each order
+     * @throws SQLException if the photos cannot be read
+     */
+    static List<PhotoRowMapper.PhotoRow> findRowsByOrderIds(Connection conn, List<String> orderIds)
+            throws SQLException {
+        List<PhotoRowMapper.PhotoRow> rows = new ArrayList<>();
+        for (int start = 0; start < orderIds.size(); start += MAX_IN_LIST) {
+            List<String> chunk = orderIds.subList(start, Math.min(start + MAX_IN_LIST, orderIds.size()));
+            String sql = "SELECT " + PhotoRowMapper.COLUMNS + " FROM photo_documents p WHERE p.order_id IN (" +
+                         String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") " +
+                         "ORDER BY p.uploaded_at, p.id";
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    stmt.setString(i + 1, chunk.get(i));
+                }
+                rows.addAll(readRows(stmt));
+            }
+        }
+        return rows;
+    }
+
+    private List<PhotoDocument> find(String condition, List<String> params, String errorMessage) {
+        String sql = "SELECT " + PhotoRowMapper.COLUMNS + " FROM photo_documents p WHERE " + condition +
+                     " ORDER BY p.uploaded_at, p.id";
+
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setString(i + 1, params.get(i));
+            }
+
+            List<PhotoRowMapper.PhotoRow> rows = readRows(stmt);
+            Map<String, UserBusiness> usersById =
+                    SqlUserRepository.findUsersByIds(conn, PhotoRowMapper.userIds(rows));
+
+            List<PhotoDocument> photos = new ArrayList<>(rows.size());
+            for (PhotoRowMapper.PhotoRow row : rows) {
+                photos.add(PhotoRowMapper.toPhoto(row, usersById, annotationRepository));
+            }
+            return photos;
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, errorMessage, e);
+        }
+
+        return new ArrayList<>();
+    }
+
+    private static List<PhotoRowMapper.PhotoRow> readRows(PreparedStatement stmt) throws SQLException {
+        List<PhotoRowMapper.PhotoRow> rows = new ArrayList<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                rows.add(PhotoRowMapper.readRow(rs));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the order a stored photo belongs to.
+     *
+     * @return the order ID, or null if the photo is not stored
+     */
+    private static OrderId findOrderId(Connection conn, PhotoId photoId) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT order_id FROM photo_documents WHERE id = ?")) {
+            stmt.setString(1, Objects.requireNonNull(photoId, "photoId must not be null").id());
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new OrderId(rs.getString(1)) : null;
+            }
+        }
+    }
+}
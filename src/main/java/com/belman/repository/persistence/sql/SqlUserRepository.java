@@ -1,8 +1,8 @@
 package com.belman.repository.persistence.sql;
 
 import com.belman.domain.common.EmailAddress;
-import com.belman.domain.common.PersonName;
-import com.belman.domain.security.HashedPassword;
+import com.belman.domain.security.CredentialDigester;
+import com.belman.domain.security.HmacCredentialDigester;
 import com.belman.domain.user.*;
 
 import javax.sql.DataSource;
@@ -11,335 +11,394 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * SQL-based implementation of the UserRepository interface.
  * This implementation stores users in a SQL database.
+ * <p>
+ * Users are loaded together with their roles using one batched role query per result set, and
+ * saving a user only writes the roles that changed.
+ * <p>
+ * PIN codes and QR codes are never stored or compared in plain text. They are stored as keyed
+ * digests in indexed columns, so a badge or PIN login is one digest computation plus one indexed
+ * probe. Every login is checked against the database, so a credential that is revoked or
+ * reassigned elsewhere stops working right away.
  */
 public class SqlUserRepository implements UserRepository {
     private static final Logger LOGGER = Logger.getLogger(SqlUserRepository.class.getName());
+    // Stays well below the 2100 parameter limit of SQL Server
+    private static final int ROLE_QUERY_BATCH_SIZE = 500;
 
     private final DataSource dataSource;
+    private final CredentialDigester credentialDigester;
+    private final AtomicBoolean legacyCredentialsMigrated = new AtomicBoolean();
 
     /**
      * Creates a new SqlUserRepository with the specified DataSource.
+     * Credentials are digested with the key from secure configuration.
      *
      * @param dataSource the DataSource to use for database connections
      */
     public SqlUserRepository(DataSource dataSource) {
+        this(dataSource, HmacCredentialDigester.fromSecureConfig());
+    }
+
+    /**
+     * Creates a new SqlUserRepository with the specified DataSource and credential digester.
+     *
+     * @param dataSource         the DataSource to use for database connections
+     * @param credentialDigester the digester used for PIN codes and QR codes
+     */
+    public SqlUserRepository(DataSource dataSource, CredentialDigester credentialDigester) {
         this.dataSource = dataSource;
+        this.credentialDigester = credentialDigester;
     }
 
     @Override
     public Optional<UserBusiness> findByUsername(Username username) {
-        String sql = "SELECT * FROM users WHERE username = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, username.value());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by username: " + username.value(), e);
-        }
-
-        return Optional.empty();
+        return findOne("u.username = ?", username.value(), "Error finding user by username: " + username.value());
     }
 
     @Override
     public Optional<UserBusiness> findByEmail(EmailAddress email) {
-        String sql = "SELECT * FROM users WHERE email = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, email.value());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by email: " + email.value(), e);
-        }
-
-        return Optional.empty();
+        return findOne("u.email = ?", email.value(), "Error finding user by email: " + email.value());
     }
 
     @Override
     public Optional<UserBusiness> findById(UserId id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, id.id());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by id: " + id.id(), e);
-        }
-
-        return Optional.empty();
+        return findOne("u.id = ?", id.id(), "Error finding user by id: " + id.id());
     }
 
     @Override
     public List<UserBusiness> findAll() {
-        String sql = "SELECT * FROM users";
-        List<UserBusiness> users = new ArrayList<>();
+        String sql = "SELECT " + UserRowMapper.COLUMNS + " FROM users u";
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            while (rs.next()) {
-                users.add(mapResultSetToUser(rs));
-            }
+            return loadUsers(conn, stmt);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding all users", e);
         }
 
-        return users;
+        return new ArrayList<>();
     }
 
     @Override
     public List<UserBusiness> findByRole(UserRole role) {
-        String sql = "SELECT u.* FROM users u " +
+        String sql = "SELECT " + UserRowMapper.COLUMNS + " FROM users u " +
                      "JOIN user_roles ur ON u.id = ur.user_id " +
                      "WHERE ur.role = ?";
-        List<UserBusiness> users = new ArrayList<>();
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
             stmt.setString(1, role.name());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    users.add(mapResultSetToUser(rs));
-                }
-            }
+            return loadUsers(conn, stmt);
         } catch (SQLException e) {
             LOGGER.log(Level.SEVERE, "Error finding users by role: " + role, e);
         }
 
-        return users;
+        return new ArrayList<>();
     }
 
-    @Override
-    public Optional<UserBusiness> findByPinCode(String pinCode) {
-        String sql = "SELECT * FROM users WHERE pin_code = ?";
+    private Optional<UserBusiness> findOne(String condition, String value, String errorMessage) {
+        String sql = "SELECT " + UserRowMapper.COLUMNS + " FROM users u WHERE " + condition;
 
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            stmt.setString(1, pinCode);
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
-                }
-            }
+            stmt.setString(1, value);
+            return loadUsers(conn, stmt).stream().findFirst();
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by PIN code: " + pinCode, e);
+            LOGGER.log(Level.SEVERE, errorMessage, e);
         }
 
         return Optional.empty();
     }
 
-    @Override
-    public Optional<UserBusiness> findByQrCodeHash(String qrCodeHash) {
-        String sql = "SELECT * FROM users WHERE qr_code_hash = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    /**
+     * Loads users by ID on the given connection, with one batched query per
+     * {@value #ROLE_QUERY_BATCH_SIZE} IDs for the users and one for their roles.
+     * Used by the other SQL repositories to resolve the users their rows refer to.
+     *
+     * @param conn    the connection to use
+     * @param userIds the IDs of the users to load
+     * @return the users that exist, by ID
+     * @throws SQLException if the users cannot be loaded
+     */
+    static Map<String, UserBusiness> findUsersByIds(Connection conn, Collection<String> userIds) throws SQLException {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        Map<String, UserBusiness> usersById = new HashMap<>();
+
+        for (int from = 0; from < ids.size(); from += ROLE_QUERY_BATCH_SIZE) {
+            List<String> batch = ids.subList(from, Math.min(from + ROLE_QUERY_BATCH_SIZE, ids.size()));
+            String sql = "SELECT " + UserRowMapper.COLUMNS + " FROM users u WHERE u.id IN (" +
+                         String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i));
+                }
+                for (UserBusiness user : loadUsers(conn, stmt)) {
+                    usersById.put(user.getId().id(), user);
+                }
+            }
+        }
 
-            stmt.setString(1, qrCodeHash);
+        return usersById;
+    }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapResultSetToUser(rs));
-                }
+    /**
+     * Runs a user query and loads the roles of all returned users with batched queries on the
+     * same connection, instead of one extra connection and query per user.
+     */
+    private static List<UserBusiness> loadUsers(Connection conn, PreparedStatement stmt) throws SQLException {
+        Map<String, UserRowMapper.UserRow> rowsById = new LinkedHashMap<>();
+        try (ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                UserRowMapper.UserRow row = UserRowMapper.readRow(rs);
+                rowsById.put(row.id(), row);
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error finding user by QR code hash: " + qrCodeHash, e);
         }
 
-        return Optional.empty();
+        Map<String, Set<UserRole>> rolesByUserId = loadRoles(conn, new ArrayList<>(rowsById.keySet()));
+
+        List<UserBusiness> users = new ArrayList<>(rowsById.size());
+        for (UserRowMapper.UserRow row : rowsById.values()) {
+            users.add(UserRowMapper.toUser(row, rolesByUserId.getOrDefault(row.id(), Set.of())));
+        }
+        return users;
     }
 
-    @Override
-    public UserBusiness save(UserBusiness user) {
-        // Check if user already exists
-        String checkSql = "SELECT COUNT(*) FROM users WHERE id = ?";
-        boolean userExists = false;
+    private static Map<String, Set<UserRole>> loadRoles(Connection conn, List<String> userIds) throws SQLException {
+        Map<String, Set<UserRole>> rolesByUserId = new HashMap<>();
 
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(checkSql)) {
+        for (int from = 0; from < userIds.size(); from += ROLE_QUERY_BATCH_SIZE) {
+            List<String> batch = userIds.subList(from, Math.min(from + ROLE_QUERY_BATCH_SIZE, userIds.size()));
+            String sql = "SELECT user_id, role FROM user_roles WHERE user_id IN (" +
+                         String.join(", ", Collections.nCopies(batch.size(), "?")) + ")";
 
-            stmt.setString(1, user.getId().id());
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < batch.size(); i++) {
+                    stmt.setString(i + 1, batch.get(i));
+                }
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    userExists = rs.getInt(1) > 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rolesByUserId.computeIfAbsent(rs.getString("user_id"), id -> EnumSet.noneOf(UserRole.class))
+                                .add(UserRole.valueOf(rs.getString("role")));
+                    }
                 }
             }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error checking if user exists: " + user.getId().id(), e);
-            throw new RuntimeException("Error checking if user exists", e);
-        }
-
-        if (userExists) {
-            updateUser(user);
-        } else {
-            insertUser(user);
         }
 
-        return user;
+        return rolesByUserId;
     }
 
-    private void updateUser(UserBusiness user) {
-        String sql = "UPDATE users SET username = ?, password = ?, first_name = ?, last_name = ?, " +
-                     "email = ?, status = ? WHERE id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+    @Override
+    public Optional<UserBusiness> findByPinCode(String pinCode) {
+        if (pinCode == null || pinCode.isBlank()) {
+            return Optional.empty();
+        }
+        return findByCredentialDigest("pin_code_digest", credentialDigester.digestPinCode(pinCode));
+    }
 
-            stmt.setString(1, user.getUsername().value());
-            stmt.setString(2, user.getPassword().value());
+    @Override
+    public Optional<UserBusiness> findByQrCodeHash(String qrCodeHash) {
+        if (qrCodeHash == null || qrCodeHash.isBlank()) {
+            return Optional.empty();
+        }
+        return findByCredentialDigest("qr_code_digest", credentialDigester.digestQrCode(qrCodeHash));
+    }
 
-            // Get name from user if available
-            PersonName name = null;
-            try {
-                // This is a workaround since we don't know if getName() exists
-                java.lang.reflect.Method getNameMethod = user.getClass().getMethod("getName");
-                name = (PersonName) getNameMethod.invoke(user);
-            } catch (Exception e) {
-                // Ignore if getName() doesn't exist
-            }
+    private Optional<UserBusiness> findByCredentialDigest(String column, String digest) {
+        migrateLegacyCredentialsOnce();
 
-            if (name != null) {
-                stmt.setString(3, name.firstName());
-                stmt.setString(4, name.lastName());
-            } else {
-                stmt.setNull(3, java.sql.Types.VARCHAR);
-                stmt.setNull(4, java.sql.Types.VARCHAR);
-            }
+        // The column name is one of two constants, never user input
+        return findOne("u." + column + " = ?", digest, "Error finding user by " + column);
+    }
 
-            stmt.setString(5, user.getEmail().value());
+    /**
+     * Assigns a PIN code to a user, replacing any previous PIN code.
+     *
+     * @param userId  the ID of the user
+     * @param pinCode the plain PIN code, or null to remove the PIN code
+     * @return true if the user exists and was updated, false otherwise
+     */
+    public boolean assignPinCode(UserId userId, String pinCode) {
+        return assignCredential(userId, "pin_code_digest",
+                pinCode == null ? null : credentialDigester.digestPinCode(pinCode));
+    }
 
-            // Get status from user if available
-            UserStatus status = UserStatus.ACTIVE; // Default to ACTIVE
-            try {
-                // This is a workaround since we don't know if getStatus() exists
-                java.lang.reflect.Method getStatusMethod = user.getClass().getMethod("getStatus");
-                status = (UserStatus) getStatusMethod.invoke(user);
-            } catch (Exception e) {
-                // Ignore if getStatus() doesn't exist
-            }
+    /**
+     * Assigns a QR badge code to a user, replacing any previous QR code.
+     *
+     * @param userId the ID of the user
+     * @param qrCode the scanned QR code value, or null to remove the QR code
+     * @return true if the user exists and was updated, false otherwise
+     */
+    public boolean assignQrCode(UserId userId, String qrCode) {
+        return assignCredential(userId, "qr_code_digest",
+                qrCode == null ? null : credentialDigester.digestQrCode(qrCode));
+    }
 
-            stmt.setString(6, status.name());
-            stmt.setString(7, user.getId().id());
+    private boolean assignCredential(UserId userId, String column, String digest) {
+        String sql = "UPDATE users SET " + column + " = ? WHERE id = ?";
 
-            int rowsAffected = stmt.executeUpdate();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            if (rowsAffected > 0) {
-                // Update user roles (delete and re-insert)
-                deleteUserRoles(conn, user.getId());
-                insertUserRoles(conn, user);
-                LOGGER.info("User updated successfully: " + user.getId().id());
-            }
+            stmt.setString(1, digest);
+            stmt.setString(2, userId.id());
+            return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error updating user: " + user.getId().id(), e);
-            throw new RuntimeException("Error updating user", e);
+            LOGGER.log(Level.SEVERE, "Error assigning " + column + " for user: " + userId.id(), e);
+            throw new RuntimeException("Error assigning credential", e);
         }
     }
 
-    private void insertUser(UserBusiness user) {
-        String sql = "INSERT INTO users (id, username, password, first_name, last_name, email, status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    /**
+     * Replaces plain text PIN codes and QR codes left over from before the credential digest
+     * columns were added with their digests.
+     *
+     * @return the number of users that were migrated
+     */
+    public int migrateLegacyCredentials() {
+        String selectSql = "SELECT id, pin_code, qr_code_hash FROM users " +
+                           "WHERE pin_code IS NOT NULL OR qr_code_hash IS NOT NULL";
+        String updateSql = "UPDATE users SET pin_code_digest = COALESCE(?, pin_code_digest), " +
+                           "qr_code_digest = COALESCE(?, qr_code_digest), " +
+                           "pin_code = NULL, qr_code_hash = NULL WHERE id = ?";
+        int migrated = 0;
 
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement select = conn.prepareStatement(selectSql);
+             PreparedStatement update = conn.prepareStatement(updateSql);
+             ResultSet rs = select.executeQuery()) {
 
-            stmt.setString(1, user.getId().id());
-            stmt.setString(2, user.getUsername().value());
-            stmt.setString(3, user.getPassword().value());
-
-            // Get name from user if available
-            PersonName name = null;
-            try {
-                // This is a workaround since we don't know if getName() exists
-                java.lang.reflect.Method getNameMethod = user.getClass().getMethod("getName");
-                name = (PersonName) getNameMethod.invoke(user);
-            } catch (Exception e) {
-                // Ignore if getName() doesn't exist
+            while (rs.next()) {
+                String pinCode = rs.getString("pin_code");
+                String qrCode = rs.getString("qr_code_hash");
+                update.setString(1, pinCode == null || pinCode.isBlank() ? null : credentialDigester.digestPinCode(pinCode));
+                update.setString(2, qrCode == null || qrCode.isBlank() ? null : credentialDigester.digestQrCode(qrCode));
+                update.setString(3, rs.getString("id"));
+                update.addBatch();
+                migrated++;
             }
 
-            if (name != null) {
-                stmt.setString(4, name.firstName());
-                stmt.setString(5, name.lastName());
-            } else {
-                stmt.setNull(4, java.sql.Types.VARCHAR);
-                stmt.setNull(5, java.sql.Types.VARCHAR);
+            if (migrated > 0) {
+                update.executeBatch();
+                LOGGER.info("Migrated legacy credentials for " + migrated + " users");
             }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Error migrating legacy credentials", e);
+            return 0;
+        }
+
+        return migrated;
+    }
 
-            stmt.setString(6, user.getEmail().value());
+    private void migrateLegacyCredentialsOnce() {
+        if (legacyCredentialsMigrated.compareAndSet(false, true)) {
+            migrateLegacyCredentials();
+        }
+    }
 
-            // Get status from user if available
-            UserStatus status = UserStatus.ACTIVE; // Default to ACTIVE
+    @Override
+    public UserBusiness save(UserBusiness user) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
             try {
-                // This is a workaround since we don't know if getStatus() exists
-                java.lang.reflect.Method getStatusMethod = user.getClass().getMethod("getStatus");
-                status = (UserStatus) getStatusMethod.invoke(user);
-            } catch (Exception e) {
-                // Ignore if getStatus() doesn't exist
+                // Try the update first, so saving an existing user needs no separate existence check
+                boolean existed = updateUser(conn, user);
+                if (!existed) {
+                    insertUser(conn, user);
+                }
+                writeRoles(conn, user, existed);
+                conn.commit();
+                LOGGER.info("User " + (existed ? "updated" : "inserted") + " successfully: " + user.getId().id());
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Error saving user: " + user.getId().id(), e);
+            throw new RuntimeException("Error saving user", e);
+        }
 
-            stmt.setString(7, status.name());
+        return user;
+    }
 
-            int rowsAffected = stmt.executeUpdate();
+    private boolean updateUser(Connection conn, UserBusiness user) throws SQLException {
+        String sql = "UPDATE users SET username = ?, password = ?, first_name = ?, last_name = ?, " +
+                     "email = ?, status = ? WHERE id = ?";
 
-            if (rowsAffected > 0) {
-                // Insert user roles
-                insertUserRoles(conn, user);
-                LOGGER.info("User inserted successfully: " + user.getId().id());
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error inserting user: " + user.getId().id(), e);
-            throw new RuntimeException("Error inserting user", e);
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            UserRowMapper.bindColumns(stmt, 1, user);
+            stmt.setString(UserRowMapper.BOUND_COLUMN_COUNT + 1, user.getId().id());
+            return stmt.executeUpdate() > 0;
         }
     }
 
-    private void deleteUserRoles(Connection conn, UserId userId) throws SQLException {
-        String sql = "DELETE FROM user_roles WHERE user_id = ?";
+    private void insertUser(Connection conn, UserBusiness user) throws SQLException {
+        String sql = "INSERT INTO users (id, username, password, first_name, last_name, email, status) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
 
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, userId.id());
+            stmt.setString(1, user.getId().id());
+            UserRowMapper.bindColumns(stmt, 2, user);
             stmt.executeUpdate();
         }
     }
 
-    private void insertUserRoles(Connection conn, UserBusiness user) throws SQLException {
-        String sql = "INSERT INTO user_roles (user_id, role) VALUES (?, ?)";
+    /**
+     * Writes only the role changes of a user: roles that were removed are deleted and roles that
+     * were added are inserted, each as a single batch. Unchanged roles are left alone.
+     */
+    private void writeRoles(Connection conn, UserBusiness user, boolean existed) throws SQLException {
+        String userId = user.getId().id();
+        Set<UserRole> stored = existed
+                ? loadRoles(conn, List.of(userId)).getOrDefault(userId, Set.of())
+                : Set.of();
+
+        Set<UserRole> removed = EnumSet.noneOf(UserRole.class);
+        removed.addAll(stored);
+        removed.removeAll(user.getRoles());
+
+        Set<UserRole> added = EnumSet.noneOf(UserRole.class);
+        added.addAll(user.getRoles());
+        added.removeAll(stored);
+
+        if (!removed.isEmpty()) {
+            executeRoleBatch(conn, "DELETE FROM user_roles WHERE user_id = ? AND role = ?", userId, removed);
+        }
+        if (!added.isEmpty()) {
+            executeRoleBatch(conn, "INSERT INTO user_roles (user_id, role) VALUES (?, ?)", userId, added);
+        }
+    }
 
+    private void executeRoleBatch(Connection conn, String sql, String userId, Set<UserRole> roles)
+            throws SQLException {
         try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            for (UserRole role : user.getRoles()) {
-                stmt.setString(1, user.getId().id());
+            for (UserRole role : roles) {
+                stmt.setString(1, userId);
                 stmt.setString(2, role.name());
                 stmt.addBatch();
             }
@@ -414,56 +473,4 @@ public class SqlUserRepository implements UserRepository {
 
         return 0;
     }
-
-    private UserBusiness mapResultSetToUser(ResultSet rs) throws SQLException {
-        UserId id = new UserId(rs.getString("id"));
-        Username username = new Username(rs.getString("username"));
-        HashedPassword password = new HashedPassword(rs.getString("password"));
-
-        String firstName = rs.getString("first_name");
-        String lastName = rs.getString("last_name");
-        PersonName name = (firstName != null && lastName != null)
-                ? new PersonName(firstName, lastName)
-                : null;
-
-        EmailAddress email = new EmailAddress(rs.getString("email"));
-        UserStatus status = UserStatus.valueOf(rs.getString("status"));
-
-        // Create a UserBusiness using the Builder pattern
-        UserBusiness.Builder builder = new UserBusiness.Builder()
-                .id(id)
-                .username(username)
-                .password(password)
-                .email(email);
-
-        if (name != null) {
-            builder.name(name);
-        }
-
-        UserBusiness user = builder.build();
-
-        // Load user roles
-        loadUserRoles(user);
-
-        return user;
-    }
-
-    private void loadUserRoles(UserBusiness user) {
-        String sql = "SELECT role FROM user_roles WHERE user_id = ?";
-
-        try (Connection conn = dataSource.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, user.getId().id());
-
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    UserRole role = UserRole.valueOf(rs.getString("role"));
-                    user.addRole(role);
-                }
-            }
-        } catch (SQLException e) {
-            LOGGER.log(Level.SEVERE, "Error loading user roles: " + user.getId().id(), e);
-        }
-    }
 }
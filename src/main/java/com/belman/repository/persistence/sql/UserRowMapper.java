@@ -0,0 +1,128 @@
+package com.belman.repository.persistence.sql;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.PersonName;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.ApprovalState;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserRole;
+import com.belman.domain.user.UserStatus;
+import com.belman.domain.user.Username;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Set;
+
+/**
+ * Maps between rows of the users table and UserBusiness objects.
+ * <p>
+ * Rows are read in two steps: {@link #readRow(ResultSet)} copies the column values, and
+ * {@link #toUser(UserRow, Set)} builds the user once its roles have been loaded, so roles
+ * can be fetched for many users in one query.
+ */
+final class UserRowMapper {
+
+    /**
+     * The user columns read by {@link #readRow(ResultSet)}, qualified with the alias {@code u}.
+     */
+    static final String COLUMNS = "u.id, u.username, u.password, u.first_name, u.last_name, u.email, u.status";
+
+    /**
+     * The number of parameters bound by {@link #bindColumns(PreparedStatement, int, UserBusiness)}.
+     */
+    static final int BOUND_COLUMN_COUNT = 6;
+
+    private UserRowMapper() {
+    }
+
+    /**
+     * Copies the user columns of the current row.
+     *
+     * @param rs the result set, positioned on a row
+     * @return the row values
+     * @throws SQLException if a column cannot be read
+     */
+    static UserRow readRow(ResultSet rs) throws SQLException {
+        return new UserRow(
+                rs.getString("id"),
+                rs.getString("username"),
+                rs.getString("password"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("email"),
+                rs.getString("status"));
+    }
+
+    /**
+     * Builds a user from row values and roles.
+     *
+     * @param row   the row values
+     * @param roles the roles of the user
+     * @return the user
+     */
+    static UserBusiness toUser(UserRow row, Set<UserRole> roles) {
+        UserBusiness.Builder builder = new UserBusiness.Builder()
+                .id(new UserId(row.id()))
+                .username(new Username(row.username()))
+                .password(new HashedPassword(row.password()))
+                .email(new EmailAddress(row.email()))
+                .approvalState(toApprovalState(row.status()));
+
+        if (row.firstName() != null && row.lastName() != null) {
+            builder.name(new PersonName(row.firstName(), row.lastName()));
+        }
+        roles.forEach(builder::addRole);
+
+        return builder.build();
+    }
+
+    /**
+     * Binds username, password, first name, last name, email and status, in that order.
+     *
+     * @param stmt       the statement
+     * @param startIndex the index of the first parameter to bind
+     * @param user       the user
+     * @throws SQLException if a parameter cannot be bound
+     */
+    static void bindColumns(PreparedStatement stmt, int startIndex, UserBusiness user) throws SQLException {
+        stmt.setString(startIndex, user.getUsername().value());
+        stmt.setString(startIndex + 1, user.getPassword().value());
+
+        PersonName name = user.getName();
+        if (name != null) {
+            stmt.setString(startIndex + 2, name.firstName());
+            stmt.setString(startIndex + 3, name.lastName());
+        } else {
+            stmt.setNull(startIndex + 2, Types.VARCHAR);
+            stmt.setNull(startIndex + 3, Types.VARCHAR);
+        }
+
+        stmt.setString(startIndex + 4, user.getEmail().value());
+        stmt.setString(startIndex + 5, user.getStatus().name());
+    }
+
+    /**
+     * Converts a stored status back into the approval state it was derived from.
+     * This is the inverse of {@link UserBusiness#getStatus()}.
+     */
+    private static ApprovalState toApprovalState(String status) {
+        if (status == null) {
+            return ApprovalState.createPendingState();
+        }
+        return switch (UserStatus.valueOf(status)) {
+            case ACTIVE -> ApprovalState.createApproved();
+            case PENDING -> ApprovalState.createPendingState();
+            default -> ApprovalState.createRejected(status);
+        };
+    }
+
+    /**
+     * The column values of a single row of the users table.
+     */
+    record UserRow(String id, String username, String password, String firstName, String lastName,
+                   String email, String status) {
+    }
+}
@@ -7,14 +7,20 @@ import com.belman.bootstrap.di.ServiceLocator;
 import com.belman.domain.events.CommandExecutedEvent;
 import com.belman.domain.events.CommandRedoneEvent;
 import com.belman.domain.events.CommandUndoneEvent;
+import com.belman.domain.events.DomainEvent;
 import com.belman.domain.events.DomainEventPublisher;
 import com.belman.domain.services.LoggerFactory;
 import com.belman.domain.shared.Command;
 import com.belman.service.base.BaseService;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Manages command execution, history tracking, and undo/redo functionality.
@@ -22,19 +28,45 @@ import java.util.concurrent.CompletableFuture;
  * The CommandManager is a singleton service that executes commands, tracks command history,
  * and provides undo/redo functionality. It also publishes events when commands are executed,
  * undone, or redone.
+ * <p>
+ * Executions, undos and redos may be submitted from any thread. They are queued and run one at
+ * a time, in submission order, on a single command thread, which is also the only thread that
+ * changes the undo and redo stacks. An undo therefore always undoes the last command submitted
+ * before it. Consecutive queued commands that {@linkplain Command#mergeWith(Command) merge} are
+ * executed as one command. Each operation completes its futures as soon as it has run, so a caller
+ * never waits for the operations queued after its own. Their events are published together once
+ * the queue is empty, so a burst of commands notifies the event handlers once rather than once per
+ * command.
+ * <p>
+ * Commands run on the command thread and must not wait for other operations of the
+ * CommandManager, since those only run after the command has completed.
  */
 public class CommandManager extends BaseService {
+    // Maximum number of events held back while the queue is not empty
+    private static final int MAX_EVENT_BATCH = 64;
+
     private static CommandManager instance;
 
-    // Command history stacks
+    // Command history stacks, only accessed on the command thread
     private final Deque<Command<?>> undoStack = new ArrayDeque<>();
     private final Deque<Command<?>> redoStack = new ArrayDeque<>();
 
+    // Sizes of the history stacks, published for other threads after each operation
+    private volatile int undoStackSize;
+    private volatile int redoStackSize;
+
+    // Operations waiting for the command thread, guarded by queueLock
+    private final Object queueLock = new Object();
+    private final Deque<Operation> queue = new ArrayDeque<>();
+    private boolean drainScheduled;
+
+    private final ExecutorService commandThread;
+
     // Event publisher
     private final DomainEventPublisher eventPublisher;
 
     // Maximum history size
-    private int maxHistorySize = 100;
+    private volatile int maxHistorySize = 100;
 
     /**
      * Private constructor to enforce singleton pattern.
@@ -44,6 +76,11 @@ public class CommandManager extends BaseService {
     private CommandManager(LoggerFactory loggerFactory) {
         super(loggerFactory);
         this.eventPublisher = DomainEventPublisher.getInstance();
+        this.commandThread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "command-manager");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -61,11 +98,15 @@ public class CommandManager extends BaseService {
 
     /**
      * Executes a command and adds it to the undo stack if it supports undo.
+     * <p>
+     * If the command merges with the command queued right before it, both are executed as the
+     * merged command, and both futures complete with its result.
      *
      * @param command the command to execute
      * @param <T>     the type of result returned by the command
      * @return a CompletableFuture that will complete with the result of the command execution
      */
+    @SuppressWarnings("unchecked")
     public <T> CompletableFuture<T> execute(Command<T> command) {
         if (!command.canExecute()) {
             return CompletableFuture.failedFuture(
@@ -74,97 +115,31 @@ public class CommandManager extends BaseService {
 
         logInfo("Executing command: {}", command.getDescription());
 
-        return command.execute()
-                .thenApply(result -> {
-                    // If the command supports undo, add it to the undo stack
-                    if (command.canUndo()) {
-                        addToUndoStack(command);
-                        // Clear the redo stack when a new command is executed
-                        redoStack.clear();
-                        // Publish command executed event
-                        eventPublisher.publish(new CommandExecutedEvent(command));
-                    }
-                    return result;
-                })
-                .exceptionally(ex -> {
-                    logError("Command execution failed: {}", command.getDescription(), ex);
-                    throw new RuntimeException("Command execution failed: " + command.getDescription(), ex);
-                });
-    }
-
-    /**
-     * Adds a command to the undo stack, respecting the maximum history size.
-     *
-     * @param command the command to add
-     */
-    private void addToUndoStack(Command<?> command) {
-        undoStack.push(command);
-
-        // Trim the history if needed
-        if (undoStack.size() > maxHistorySize) {
-            undoStack.removeLast();
-        }
+        return (CompletableFuture<T>) submit(OperationType.EXECUTE, command);
     }
 
     /**
      * Undoes the most recently executed command.
+     * <p>
+     * The future fails with an IllegalStateException if there are no commands to undo once the
+     * operations submitted before this one have run.
      *
      * @return a CompletableFuture that will complete when the undo operation is complete
-     * @throws IllegalStateException if there are no commands to undo
      */
     public CompletableFuture<Void> undo() {
-        if (undoStack.isEmpty()) {
-            return CompletableFuture.failedFuture(
-                    new IllegalStateException("No commands to undo"));
-        }
-
-        Command<?> command = undoStack.pop();
-        logInfo("Undoing command: {}", command.getDescription());
-
-        return command.undo()
-                .thenAccept(v -> {
-                    // Add the command to the redo stack
-                    redoStack.push(command);
-                    // Publish command undone event
-                    eventPublisher.publish(new CommandUndoneEvent(command));
-                })
-                .exceptionally(ex -> {
-                    logError("Command undo failed: {}", command.getDescription(), ex);
-                    // Put the command back on the undo stack
-                    undoStack.push(command);
-                    throw new RuntimeException("Command undo failed: " + command.getDescription(), ex);
-                });
+        return submit(OperationType.UNDO, null).thenApply(ignored -> null);
     }
 
     /**
      * Redoes the most recently undone command.
+     * <p>
+     * The future fails with an IllegalStateException if there are no commands to redo once the
+     * operations submitted before this one have run.
      *
      * @return a CompletableFuture that will complete with the result of the command execution
-     * @throws IllegalStateException if there are no commands to redo
      */
     public CompletableFuture<?> redo() {
-        if (redoStack.isEmpty()) {
-            return CompletableFuture.failedFuture(
-                    new IllegalStateException("No commands to redo"));
-        }
-
-        Command<?> command = redoStack.pop();
-        logInfo("Redoing command: {}", command.getDescription());
-
-        return command.execute()
-                .thenApply(result -> {
-                    // Add the command back to the undo stack
-                    addToUndoStack(command);
-                    // Publish command redone event
-                    eventPublisher.publish(new CommandRedoneEvent(command));
-                    return result;
-                })
-                .exceptionally(ex -> {
-                    logError("Command redo failed: {}", command.getDescription(), ex);
-                    // Put the command back on the redo stack
-                    redoStack.push(command);
-                    throw new RuntimeException("Command redo failed: " + command.getDescription(), ex);
-                });
+        return submit(OperationType.REDO, null);
     }
 
     /**
@@ -173,7 +148,7 @@ public class CommandManager extends BaseService {
      * @return true if there are commands that can be undone, false otherwise
      */
     public boolean canUndo() {
-        return !undoStack.isEmpty();
+        return undoStackSize > 0;
     }
 
     /**
@@ -182,16 +157,16 @@ public class CommandManager extends BaseService {
      * @return true if there are commands that can be redone, false otherwise
      */
     public boolean canRedo() {
-        return !redoStack.isEmpty();
+        return redoStackSize > 0;
     }
 
     /**
-     * Clears the command history.
+     * Clears the command history, after the operations that were submitted before.
+     *
+     * @return a CompletableFuture that will complete when the history has been cleared
      */
-    public void clearHistory() {
-        undoStack.clear();
-        redoStack.clear();
-        logInfo("Command history cleared");
+    public CompletableFuture<Void> clearHistory() {
+        return submit(OperationType.CLEAR, null).thenApply(ignored -> null);
     }
 
     /**
@@ -215,27 +190,221 @@ public class CommandManager extends BaseService {
         }
         this.maxHistorySize = maxHistorySize;
 
-        // Trim the history if needed
-        while (undoStack.size() > maxHistorySize) {
-            undoStack.removeLast();
-        }
+        // Trim the history on the command thread, after the operations submitted before
+        submit(OperationType.TRIM, null);
     }
 
     /**
-     * Gets the number of commands in the undo stack.
+     * Gets the number of commands in the undo stack, after the operations that have completed.
      *
      * @return the undo stack size
      */
     public int getUndoStackSize() {
-        return undoStack.size();
+        return undoStackSize;
     }
 
     /**
-     * Gets the number of commands in the redo stack.
+     * Gets the number of commands in the redo stack, after the operations that have completed.
      *
      * @return the redo stack size
      */
     public int getRedoStackSize() {
-        return redoStack.size();
+        return redoStackSize;
+    }
+
+    /**
+     * Queues an operation for the command thread, merging a command into the command queued
+     * right before it if possible.
+     */
+    private CompletableFuture<Object> submit(OperationType type, Command<?> command) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        synchronized (queueLock) {
+            Operation last = queue.peekLast();
+            if (type == OperationType.EXECUTE && last != null && last.type == OperationType.EXECUTE) {
+                Command<?> merged = last.command.mergeWith(command);
+                if (merged != null) {
+                    logDebug("Merged command {} into {}", command.getDescription(), last.command.getDescription());
+                    last.command = merged;
+                    last.futures.add(future);
+                    return future;
+                }
+            }
+            queue.addLast(new Operation(type, command, future));
+            if (!drainScheduled) {
+                drainScheduled = true;
+                commandThread.execute(this::drain);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Runs the queued operations on the command thread until the queue is empty. The futures of
+     * each operation are completed as soon as it has run, while its events are collected and
+     * published once the queue is empty, or once {@value #MAX_EVENT_BATCH} events are waiting.
+     */
+    private void drain() {
+        List<DomainEvent> events = new ArrayList<>();
+        while (true) {
+            Operation operation;
+            synchronized (queueLock) {
+                operation = queue.pollFirst();
+                if (operation == null && events.isEmpty()) {
+                    drainScheduled = false;
+                    return;
+                }
+            }
+            if (operation != null) {
+                run(operation, events);
+            }
+            if (operation == null || events.size() >= MAX_EVENT_BATCH) {
+                // Operations queued while publishing are run by the next iteration
+                publish(events);
+                events.clear();
+            }
+        }
+    }
+
+    private void publish(List<DomainEvent> events) {
+        try {
+            eventPublisher.publishAll(events);
+        } catch (RuntimeException e) {
+            logError("Failed to publish {} command events", events.size(), e);
+        }
+    }
+
+    private void run(Operation operation, List<DomainEvent> events) {
+        Object result = null;
+        RuntimeException failure = null;
+        try {
+            result = switch (operation.type) {
+                case EXECUTE -> runExecute(operation.command, events);
+                case UNDO -> runUndo(events);
+                case REDO -> runRedo(events);
+                case CLEAR -> {
+                    undoStack.clear();
+                    redoStack.clear();
+                    logInfo("Command history cleared");
+                    yield null;
+                }
+                case TRIM -> {
+                    trimUndoStack();
+                    yield null;
+                }
+            };
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+
+        undoStackSize = undoStack.size();
+        redoStackSize = redoStack.size();
+        for (CompletableFuture<Object> future : operation.futures) {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+
+    private Object runExecute(Command<?> command, List<DomainEvent> events) {
+        if (!command.canExecute()) {
+            throw new IllegalStateException("Command cannot be executed: " + command.getDescription());
+        }
+        Object result;
+        try {
+            result = command.execute().join();
+        } catch (CompletionException e) {
+            logError("Command execution failed: {}", command.getDescription(), e.getCause());
+            throw new RuntimeException("Command execution failed: " + command.getDescription(), e.getCause());
+        }
+
+        // If the command supports undo, add it to the undo stack
+        if (command.canUndo()) {
+            addToUndoStack(command);
+            // Clear the redo stack when a new command is executed
+            redoStack.clear();
+            events.add(new CommandExecutedEvent(command));
+        }
+        return result;
+    }
+
+    private Object runUndo(List<DomainEvent> events) {
+        if (undoStack.isEmpty()) {
+            throw new IllegalStateException("No commands to undo");
+        }
+
+        Command<?> command = undoStack.pop();
+        logInfo("Undoing command: {}", command.getDescription());
+        try {
+            command.undo().join();
+        } catch (CompletionException e) {
+            logError("Command undo failed: {}", command.getDescription(), e.getCause());
+            // Put the command back on the undo stack
+            undoStack.push(command);
+            throw new RuntimeException("Command undo failed: " + command.getDescription(), e.getCause());
+        }
+
+        redoStack.push(command);
+        events.add(new CommandUndoneEvent(command));
+        return null;
+    }
+
+    private Object runRedo(List<DomainEvent> events) {
+        if (redoStack.isEmpty()) {
+            throw new IllegalStateException("No commands to redo");
+        }
+
+        Command<?> command = redoStack.pop();
+        logInfo("Redoing command: {}", command.getDescription());
+        Object result;
+        try {
+            result = command.execute().join();
+        } catch (CompletionException e) {
+            logError("Command redo failed: {}", command.getDescription(), e.getCause());
+            // Put the command back on the redo stack
+            redoStack.push(command);
+            throw new RuntimeException("Command redo failed: " + command.getDescription(), e.getCause());
+        }
+
+        addToUndoStack(command);
+        events.add(new CommandRedoneEvent(command));
+        return result;
+    }
+
+    /**
+     * Adds a command to the undo stack, respecting the maximum history size.
+     *
+     * @param command the command to add
+     */
+    private void addToUndoStack(Command<?> command) {
+        undoStack.push(command);
+        trimUndoStack();
+    }
+
+    private void trimUndoStack() {
+        while (undoStack.size() > maxHistorySize) {
+            undoStack.removeLast();
+        }
+    }
+
+    private enum OperationType {
+        EXECUTE, UNDO, REDO, CLEAR, TRIM
+    }
+
+    /**
+     * A queued operation. The command of an execution is replaced when a later command is merged
+     * into it, and the futures of all merged submissions complete with its result.
+     */
+    private static final class Operation {
+        private final OperationType type;
+        private Command<?> command;
+        private final List<CompletableFuture<Object>> futures = new ArrayList<>(1);
+
+        private Operation(OperationType type, Command<?> command, CompletableFuture<Object> future) {
+            this.type = type;
+            this.command = command;
+            this.futures.add(future);
+        }
     }
 }
@@ -1,6 +1,7 @@
 package com.belman.service.command.data;
 
 import com.belman.domain.shared.Command;
+import com.belman.domain.shared.CommandKey;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
@@ -10,7 +11,8 @@ import java.util.function.Supplier;
  * Command for saving data to a repository.
  * <p>
  * This command saves data to a repository and supports undo functionality
- * by keeping track of the previous state.
+ * by keeping track of the previous state. Saves created with a {@link CommandKey} merge with
+ * the next save that has the same key.
  *
  * @param <T> the type of data being saved
  */
@@ -19,6 +21,7 @@ public class SaveDataCommand<T> implements Command<T> {
     private final Consumer<T> saveOperation;
     private final Supplier<T> loadOperation;
     private final String description;
+    private final CommandKey mergeKey;
     private T previousData;
 
     /**
@@ -30,6 +33,20 @@ public class SaveDataCommand<T> implements Command<T> {
      * @param description   a description of the save operation
      */
     public SaveDataCommand(T data, Consumer<T> saveOperation, Supplier<T> loadOperation, String description) {
+        this(data, saveOperation, loadOperation, description, null);
+    }
+
+    /**
+     * Creates a new SaveDataCommand that merges with later saves of the same entity.
+     *
+     * @param data          the data to save
+     * @param saveOperation the operation to save the data
+     * @param loadOperation the operation to load the current data (for undo)
+     * @param description   a description of the save operation
+     * @param mergeKey      the saved entity and operation, or null if this save never merges
+     */
+    public SaveDataCommand(T data, Consumer<T> saveOperation, Supplier<T> loadOperation, String description,
+                           CommandKey mergeKey) {
         if (data == null) {
             throw new IllegalArgumentException("Data cannot be null");
         }
@@ -44,6 +61,7 @@ public class SaveDataCommand<T> implements Command<T> {
         this.saveOperation = saveOperation;
         this.loadOperation = loadOperation;
         this.description = description != null ? description : "Save data";
+        this.mergeKey = mergeKey;
     }
 
     @Override
@@ -77,6 +95,19 @@ public class SaveDataCommand<T> implements Command<T> {
         return previousData != null;
     }
 
+    /**
+     * Merges with a later save with the same merge key, such as repeated edits of one photo. The
+     * previous data is loaded when the merged command executes, so the later save alone has the
+     * effect of both.
+     */
+    @Override
+    public Command<?> mergeWith(Command<?> next) {
+        if (mergeKey != null && next instanceof SaveDataCommand<?> other && mergeKey.equals(other.mergeKey)) {
+            return other;
+        }
+        return null;
+    }
+
     @Override
     public String getDescription() {
         return description;
@@ -9,6 +9,7 @@ import com.belman.common.logging.EmojiLoggerFactory;
 import com.belman.service.base.BaseService;
 
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Manages user sessions and provides access to the current user.
@@ -143,4 +144,35 @@ public class SessionManager extends BaseService {
             return Optional.empty();
         }
     }
+
+    /**
+     * Authenticates a user with the given username and password without blocking the caller.
+     * The password is verified on the authentication service's verification pool, so this
+     * method is safe to call from the FX thread.
+     *
+     * @param username the username
+     * @param password the password
+     * @return a CompletableFuture that completes with the authenticated User, or empty if authentication failed
+     */
+    public CompletableFuture<Optional<UserBusiness>> loginAsync(String username, String password) {
+        if (authenticationService == null) {
+            logError("AuthenticationService is null. Cannot perform login.");
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        logInfo("Attempting to authenticate user: {}", username);
+        return authenticationService.authenticateAsync(username, password)
+                .handle((user, error) -> {
+                    if (error != null) {
+                        logError("Error during authentication: {}", error.getMessage(), error);
+                        return Optional.<UserBusiness>empty();
+                    }
+                    if (user.isPresent()) {
+                        logInfo("Authentication successful for user: {}", username);
+                    } else {
+                        logWarn("Authentication failed for user: {}", username);
+                    }
+                    return user;
+                });
+    }
 }
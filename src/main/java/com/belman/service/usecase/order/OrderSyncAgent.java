@@ -0,0 +1,405 @@
+package com.belman.service.usecase.order;
+
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderChange;
+import com.belman.domain.order.OrderChangeFeed;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.service.base.BaseService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a local cache of orders current by pulling deltas from the order change feed.
+ * <p>
+ * The first refresh loads all orders. After that, each refresh reads only the changes after the
+ * last applied sequence, collapses them per order and reloads just the orders that changed.
+ * Listeners receive the resulting delta, so view models update the rows that changed instead of
+ * reloading their lists.
+ * <p>
+ * Sequences are assigned when a change is written but become visible when its transaction
+ * commits, so a gap in the feed may be a change that is still being committed. The agent applies
+ * the changes after a gap and keeps the gap open until the feed settles it: the changes that were
+ * committed in it are applied then, and the rest were rolled back or skipped by the database.
+ * <p>
+ * The agent acknowledges the sequence below its first open gap, so the feed can prune the
+ * changes every tablet has applied. If the feed was pruned past that sequence, for example after
+ * the tablet was offline for long, the agent reloads all orders.
+ * <p>
+ * Without a change feed every refresh reloads all orders, so callers need not care which
+ * backend is in use.
+ */
+public class OrderSyncAgent extends BaseService {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final Duration DEFAULT_RETENTION_INTERVAL = Duration.ofHours(1);
+    public static final Duration DEFAULT_CONSUMER_TIMEOUT = Duration.ofDays(1);
+
+    // An unchanged cursor is acknowledged again at this interval, so the feed sees the tablet is active
+    private static final long ACKNOWLEDGE_INTERVAL_MILLIS = Duration.ofMinutes(1).toMillis();
+
+    private final OrderRepository orderRepository;
+    private final OrderChangeFeed changeFeed;
+    private final int batchSize;
+    private final String consumerId = UUID.randomUUID().toString();
+
+    private final Map<OrderId, OrderBusiness> orders = new ConcurrentHashMap<>();
+    private final List<Consumer<Delta>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile boolean loaded;
+
+    // Guarded by this
+    private long cursor;
+    // Open gaps below the cursor, first sequence to last sequence of each gap
+    private final NavigableMap<Long, Long> openGaps = new TreeMap<>();
+    private long acknowledged = -1;
+    private long acknowledgedAt;
+
+    private ScheduledExecutorService poller;
+    private ScheduledFuture<?> pollTask;
+    private ScheduledFuture<?> retentionTask;
+
+    /**
+     * Creates a new OrderSyncAgent with the default batch size.
+     *
+     * @param loggerFactory   the factory to create loggers
+     * @param orderRepository the repository to load changed orders from
+     * @param changeFeed      the change feed, or null to reload all orders on every refresh
+     */
+    public OrderSyncAgent(LoggerFactory loggerFactory, OrderRepository orderRepository, OrderChangeFeed changeFeed) {
+        this(loggerFactory, orderRepository, changeFeed, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new OrderSyncAgent.
+     *
+     * @param loggerFactory   the factory to create loggers
+     * @param orderRepository the repository to load changed orders from
+     * @param changeFeed      the change feed, or null to reload all orders on every refresh
+     * @param batchSize       the maximum number of changes read per query
+     */
+    public OrderSyncAgent(LoggerFactory loggerFactory, OrderRepository orderRepository, OrderChangeFeed changeFeed,
+                          int batchSize) {
+        super(loggerFactory);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.changeFeed = changeFeed;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Gets the cached orders, loading them first if this agent has not been refreshed yet.
+     *
+     * @return the cached orders
+     */
+    public List<OrderBusiness> getOrders() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    refresh();
+                }
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    /**
+     * Gets a cached order.
+     *
+     * @param orderId the ID of the order
+     * @return the order, or empty if it is not cached
+     */
+    public Optional<OrderBusiness> getOrder(OrderId orderId) {
+        return Optional.ofNullable(orders.get(orderId));
+    }
+
+    /**
+     * Gets the sequence of the last change applied to the cache.
+     *
+     * @return the sequence of the last applied change
+     */
+    public synchronized long getCursor() {
+        return cursor;
+    }
+
+    /**
+     * Gets the sequence up to which every change has been applied to the cache, which is the
+     * sequence before the first open gap. This is the sequence the agent acknowledges to the feed.
+     *
+     * @return the sequence up to which every change was applied
+     */
+    public synchronized long getAppliedSequence() {
+        return openGaps.isEmpty() ? cursor : openGaps.firstKey() - 1;
+    }
+
+    /**
+     * Registers a listener for the deltas applied to the cache.
+     * Listeners are called on the thread that refreshes, which is not the JavaFX thread when the
+     * agent polls in the background.
+     *
+     * @param listener the listener
+     */
+    public void addListener(Consumer<Delta> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(Consumer<Delta> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Brings the cache up to date and notifies the listeners if anything changed.
+     *
+     * @return the delta that was applied
+     */
+    public synchronized Delta refresh() {
+        Delta delta = !loaded || changeFeed == null ? reloadAll() : applyChanges();
+        if (changeFeed != null) {
+            acknowledge();
+        }
+        if (!delta.isEmpty()) {
+            for (Consumer<Delta> listener : listeners) {
+                try {
+                    listener.accept(delta);
+                } catch (RuntimeException e) {
+                    logger.error("Order sync listener failed", e);
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Prunes the changes that every active tablet has acknowledged from the change feed.
+     *
+     * @return the number of pruned changes
+     */
+    public int pruneChangeFeed() {
+        if (changeFeed == null) {
+            return 0;
+        }
+        int pruned = changeFeed.pruneAcknowledged(DEFAULT_CONSUMER_TIMEOUT);
+        if (pruned > 0) {
+            logger.debug("Pruned {} acknowledged order changes", pruned);
+        }
+        return pruned;
+    }
+
+    /**
+     * Starts refreshing in the background at a fixed interval. With a change feed, the changes
+     * every tablet has applied are pruned in the background as well.
+     *
+     * @param interval the time between refreshes
+     */
+    public synchronized void start(Duration interval) {
+        if (pollTask != null) {
+            return;
+        }
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        pollTask = poller.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (RuntimeException e) {
+                logger.warn("Order sync failed: {}", e.getMessage());
+            }
+        }, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        if (changeFeed != null) {
+            long retentionMillis = DEFAULT_RETENTION_INTERVAL.toMillis();
+            retentionTask = poller.scheduleWithFixedDelay(() -> {
+                try {
+                    pruneChangeFeed();
+                } catch (RuntimeException e) {
+                    logger.warn("Order change pruning failed: {}", e.getMessage());
+                }
+            }, retentionMillis, retentionMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops refreshing in the background.
+     */
+    public synchronized void stop() {
+        if (pollTask != null) {
+            pollTask.cancel(false);
+            pollTask = null;
+        }
+        if (retentionTask != null) {
+            retentionTask.cancel(false);
+            retentionTask = null;
+        }
+    }
+
+    private Delta reloadAll() {
+        // Read the cursor first, so changes committed during the load are applied by the next refresh
+        long latest = changeFeed != null ? changeFeed.findLatestSequence() : 0;
+        List<OrderBusiness> all = orderRepository.findAll();
+        Set<OrderId> removed = new HashSet<>(orders.keySet());
+        orders.clear();
+        for (OrderBusiness order : all) {
+            orders.put(order.getId(), order);
+            removed.remove(order.getId());
+        }
+        cursor = latest;
+        openGaps.clear();
+        loaded = true;
+        logger.debug("Loaded {} orders, change feed at {}", all.size(), latest);
+        return new Delta(all, removed, true);
+    }
+
+    private Delta applyChanges() {
+        // Last operation per order, in the order the changes were applied
+        Map<OrderId, OrderChange.Operation> changed = new LinkedHashMap<>();
+        if (!openGaps.isEmpty() && !settleGaps(changed)) {
+            return reloadAll();
+        }
+        List<OrderChange> changes;
+        do {
+            changes = changeFeed.findChangesSince(cursor, batchSize);
+            for (OrderChange change : changes) {
+                if (change.sequence() > cursor + 1) {
+                    if (changeFeed.findPrunedSequence() > cursor) {
+                        logger.info("Order changes after {} were pruned, reloading all orders", cursor);
+                        return reloadAll();
+                    }
+                    openGaps.put(cursor + 1, change.sequence() - 1);
+                }
+                record(changed, change);
+                cursor = change.sequence();
+            }
+        } while (changes.size() == batchSize);
+
+        List<OrderBusiness> updated = new ArrayList<>();
+        Set<OrderId> removed = new HashSet<>();
+        for (Map.Entry<OrderId, OrderChange.Operation> entry : changed.entrySet()) {
+            Optional<OrderBusiness> order = entry.getValue() == OrderChange.Operation.DELETE
+                                            ? Optional.empty()
+                                            : orderRepository.findById(entry.getKey());
+            if (order.isPresent()) {
+                orders.put(entry.getKey(), order.get());
+                updated.add(order.get());
+            } else if (orders.remove(entry.getKey()) != null) {
+                removed.add(entry.getKey());
+            }
+        }
+        if (!changed.isEmpty()) {
+            logger.debug("Applied changes up to {} with {} open gaps: {} orders updated, {} removed", cursor,
+                    openGaps.size(), updated.size(), removed.size());
+        }
+        return new Delta(updated, removed, false);
+    }
+
+    /**
+     * Settles the open gaps: the changes committed in a gap are recorded, and a gap is closed once
+     * the feed has settled it. Orders are reloaded rather than patched, so applying a change after
+     * the ones that followed it leaves the cache in the same state.
+     *
+     * @return false if the feed was pruned past an open gap, so its changes may have been lost
+     */
+    private boolean settleGaps(Map<OrderId, OrderChange.Operation> changed) {
+        if (changeFeed.findPrunedSequence() >= openGaps.firstKey()) {
+            logger.info("Order changes in an open gap after {} were pruned, reloading all orders",
+                    openGaps.firstKey() - 1);
+            return false;
+        }
+        for (Map.Entry<Long, Long> gap : new ArrayList<>(openGaps.entrySet())) {
+            List<OrderChange> settled;
+            try {
+                settled = changeFeed.settleChanges(gap.getKey() - 1, gap.getValue());
+            } catch (RuntimeException e) {
+                // A transaction is still writing the gap; it stays open until the next refresh
+                logger.debug("Gap {} to {} in the order change feed is still open: {}", gap.getKey(),
+                        gap.getValue(), e.getMessage());
+                continue;
+            }
+            for (OrderChange change : settled) {
+                record(changed, change);
+            }
+            openGaps.remove(gap.getKey());
+            logger.debug("Settled gap {} to {} in the order change feed with {} late changes", gap.getKey(),
+                    gap.getValue(), settled.size());
+        }
+        return true;
+    }
+
+    private static void record(Map<OrderId, OrderChange.Operation> changed, OrderChange change) {
+        // A photo change means the order must be reloaded, a later order change decides its fate
+        changed.remove(change.orderId());
+        changed.put(change.orderId(), change.entityType() == OrderChange.EntityType.ORDER
+                                      ? change.operation()
+                                      : OrderChange.Operation.UPSERT);
+    }
+
+    /**
+     * Acknowledges the applied sequence to the feed when it changed, and at an interval otherwise.
+     */
+    private void acknowledge() {
+        long applied = getAppliedSequence();
+        long now = System.currentTimeMillis();
+        if (applied == acknowledged && now - acknowledgedAt < ACKNOWLEDGE_INTERVAL_MILLIS) {
+            return;
+        }
+        try {
+            changeFeed.acknowledge(consumerId, applied);
+            acknowledged = applied;
+            acknowledgedAt = now;
+        } catch (RuntimeException e) {
+            logger.warn("Could not acknowledge order changes up to {}: {}", applied, e.getMessage());
+        }
+    }
+
+    /**
+     * Changes applied to the order cache by one refresh.
+     *
+     * @param updated    the orders that were added or changed
+     * @param removed    the IDs of the orders that were removed
+     * @param fullReload whether all orders were reloaded, in which case updated holds every order
+     */
+    public record Delta(Collection<OrderBusiness> updated, Set<OrderId> removed, boolean fullReload) {
+
+        public Delta {
+            updated = List.copyOf(updated);
+            removed = Set.copyOf(removed);
+        }
+
+        /**
+         * Checks whether the refresh changed nothing.
+         *
+         * @return true if no order was updated or removed
+         */
+        public boolean isEmpty() {
+            return updated.isEmpty() && removed.isEmpty() && !fullReload;
+        }
+    }
+}
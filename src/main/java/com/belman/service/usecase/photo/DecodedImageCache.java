@@ -0,0 +1,337 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.services.LoggerFactory;
+import com.belman.service.base.BaseService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A shared cache of decoded photos for the views that step through the photos of an order, with
+ * a strict byte budget and prefetching of the neighbours of the photo being shown.
+ * <p>
+ * Photos are decoded by a {@link Decoder} so their longest edge fits the screen, and the cache
+ * holds the images the views display, so showing a cached photo does not copy it. The UI layer
+ * supplies the decoder, which keeps this class free of any image toolkit and usable on every
+ * platform. The cost of an entry is the size its decoder reports, so a few large photos cannot
+ * exceed the budget the way a count-based cache would. When the budget is exceeded, the least recently used photos are
+ * demoted to soft references: they no longer count against the budget, and the garbage collector
+ * may reclaim them when memory is short. A demoted photo that is still reachable is promoted
+ * again on its next use without decoding it.
+ * <p>
+ * Photos requested for display are decoded on one thread and prefetched photos on another, so a
+ * prefetch never delays the photo the user is waiting for. A photo being decoded by either thread
+ * is not decoded twice.
+ */
+public class DecodedImageCache<T> extends BaseService implements AutoCloseable {
+
+    /**
+     * Decodes photos for the cache.
+     *
+     * @param <T> the type of the decoded photos
+     */
+    public interface Decoder<T> {
+
+        /**
+         * Decodes a photo, scaled down so its longest edge is at most the maximum edge.
+         *
+         * @param imageFile the image file
+         * @param maxEdge   the longest edge to decode the photo at
+         * @return the decoded photo
+         * @throws IOException if the file cannot be read or decoded
+         */
+        T decode(Path imageFile, int maxEdge) throws IOException;
+
+        /**
+         * Gets the number of bytes a decoded photo holds in memory.
+         *
+         * @param image the decoded photo
+         * @return the size in bytes
+         */
+        long byteSize(T image);
+    }
+
+    public static final int DEFAULT_MAX_EDGE = 2048;
+    public static final int PREFETCH_DISTANCE = 1;
+
+    private static final long MIN_DEFAULT_BUDGET = 32L * 1024 * 1024;
+    private static final long MAX_DEFAULT_BUDGET = 256L * 1024 * 1024;
+
+    private final Decoder<T> decoder;
+    private final long byteBudget;
+    private final int maxEdge;
+    private final LinkedHashMap<Path, T> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Path, SoftReference<T>> demoted = new HashMap<>();
+    private final Map<Path, CompletableFuture<T>> loading = new ConcurrentHashMap<>();
+    private final AtomicLong prefetchGeneration = new AtomicLong();
+    private final ExecutorService decodeExecutor;
+    private final ExecutorService prefetchExecutor;
+    private long usedBytes;
+
+    /**
+     * Creates a new DecodedImageCache with the default budget and screen size.
+     *
+     * @param loggerFactory the factory to create loggers
+     * @param decoder       the decoder of the photos
+     */
+    public DecodedImageCache(LoggerFactory loggerFactory, Decoder<T> decoder) {
+        this(loggerFactory, decoder, defaultByteBudget(), DEFAULT_MAX_EDGE);
+    }
+
+    /**
+     * Creates a new DecodedImageCache.
+     *
+     * @param loggerFactory the factory to create loggers
+     * @param decoder       the decoder of the photos
+     * @param byteBudget    the maximum number of bytes of decoded photos to keep
+     * @param maxEdge       the longest edge photos are decoded at, typically the screen size
+     */
+    public DecodedImageCache(LoggerFactory loggerFactory, Decoder<T> decoder, long byteBudget, int maxEdge) {
+        super(loggerFactory);
+        if (byteBudget <= 0 || maxEdge <= 0) {
+            throw new IllegalArgumentException("Byte budget and maximum edge must be positive");
+        }
+        this.decoder = Objects.requireNonNull(decoder, "decoder must not be null");
+        this.byteBudget = byteBudget;
+        this.maxEdge = maxEdge;
+        this.decodeExecutor = Executors.newSingleThreadExecutor(runnable -> newThread(runnable, "photo-decode",
+                Thread.NORM_PRIORITY));
+        this.prefetchExecutor = Executors.newSingleThreadExecutor(runnable -> newThread(runnable, "photo-prefetch",
+                Thread.NORM_PRIORITY - 1));
+    }
+
+    /**
+     * Gets the default budget: an eighth of the maximum heap, between 32 and 256 MB.
+     *
+     * @return the default byte budget
+     */
+    public static long defaultByteBudget() {
+        return Math.max(MIN_DEFAULT_BUDGET, Math.min(MAX_DEFAULT_BUDGET, Runtime.getRuntime().maxMemory() / 8));
+    }
+
+    /**
+     * Gets a decoded photo if it is cached, without decoding it.
+     *
+     * @param imageFile the image file
+     * @return the decoded photo, or empty if it is not cached
+     */
+    public synchronized Optional<T> getIfPresent(Path imageFile) {
+        Path key = key(imageFile);
+        T image = entries.get(key);
+        if (image == null) {
+            SoftReference<T> reference = demoted.remove(key);
+            image = reference != null ? reference.get() : null;
+            if (image != null) {
+                put(key, image);
+            }
+        }
+        return Optional.ofNullable(image);
+    }
+
+    /**
+     * Gets a decoded photo, decoding it on the decode thread if it is not cached.
+     *
+     * @param imageFile the image file
+     * @return a future with the decoded photo; completed already if it was cached
+     */
+    public CompletableFuture<T> getAsync(Path imageFile) {
+        Path key = key(imageFile);
+        Optional<T> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        CompletableFuture<T> inFlight = loading.get(key);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return load(key);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, decodeExecutor);
+    }
+
+    /**
+     * Decodes the photos next to the current one in a sequence on the prefetch thread, the next
+     * photo first. A later call replaces the prefetches of an earlier one that have not started.
+     *
+     * @param sequence the image files in the order the user steps through them
+     * @param index    the index of the photo being shown
+     */
+    public void prefetch(List<Path> sequence, int index) {
+        long generation = prefetchGeneration.incrementAndGet();
+        List<Path> neighbours = new ArrayList<>(2 * PREFETCH_DISTANCE);
+        for (int distance = 1; distance <= PREFETCH_DISTANCE; distance++) {
+            if (index + distance < sequence.size()) {
+                neighbours.add(sequence.get(index + distance));
+            }
+            if (index - distance >= 0) {
+                neighbours.add(sequence.get(index - distance));
+            }
+        }
+        if (neighbours.isEmpty()) {
+            return;
+        }
+        prefetchExecutor.execute(() -> {
+            for (Path neighbour : neighbours) {
+                // Stop when the user has moved on, the next call prefetches around the new photo
+                if (prefetchGeneration.get() != generation) {
+                    return;
+                }
+                Path key = key(neighbour);
+                if (getIfPresent(key).isPresent() || loading.containsKey(key)) {
+                    continue;
+                }
+                try {
+                    load(key);
+                } catch (IOException | RuntimeException e) {
+                    logger.debug("Could not prefetch {}: {}", key.getFileName(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes a photo, for example after it was deleted.
+     *
+     * @param imageFile the image file
+     */
+    public synchronized void invalidate(Path imageFile) {
+        Path key = key(imageFile);
+        T removed = entries.remove(key);
+        if (removed != null) {
+            usedBytes -= decoder.byteSize(removed);
+        }
+        demoted.remove(key);
+    }
+
+    /**
+     * Removes all photos.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        demoted.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Gets the number of bytes of decoded photos counted against the budget.
+     *
+     * @return the used bytes, never more than the budget
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Gets the maximum number of bytes of decoded photos to keep.
+     *
+     * @return the byte budget
+     */
+    public long getByteBudget() {
+        return byteBudget;
+    }
+
+    /**
+     * Stops the decode and prefetch threads and removes all photos.
+     */
+    @Override
+    public void close() {
+        decodeExecutor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+        clear();
+    }
+
+    /**
+     * Decodes a photo and caches it, or waits for the thread that is already decoding it.
+     */
+    private T load(Path key) throws IOException {
+        CompletableFuture<T> mine = new CompletableFuture<>();
+        CompletableFuture<T> existing = loading.putIfAbsent(key, mine);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            long start = System.nanoTime();
+            T image = decoder.decode(key, maxEdge);
+            synchronized (this) {
+                put(key, image);
+            }
+            logger.debug("Decoded {} into {} bytes in {} ms", key.getFileName(), decoder.byteSize(image),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            mine.complete(image);
+            return image;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    /**
+     * Adds a photo and demotes the least recently used photos until the budget is met. A photo
+     * larger than the whole budget is only kept softly.
+     */
+    private void put(Path key, T image) {
+        long size = decoder.byteSize(image);
+        T previous = entries.remove(key);
+        if (previous != null) {
+            usedBytes -= decoder.byteSize(previous);
+        }
+        if (size > byteBudget) {
+            demoted.put(key, new SoftReference<>(image));
+            return;
+        }
+        entries.put(key, image);
+        usedBytes += size;
+        Iterator<Map.Entry<Path, T>> eldest = entries.entrySet().iterator();
+        while (usedBytes > byteBudget && eldest.hasNext()) {
+            Map.Entry<Path, T> entry = eldest.next();
+            if (entry.getKey().equals(key)) {
+                continue;
+            }
+            usedBytes -= decoder.byteSize(entry.getValue());
+            demoted.put(entry.getKey(), new SoftReference<>(entry.getValue()));
+            eldest.remove();
+        }
+        demoted.values().removeIf(reference -> reference.get() == null);
+    }
+
+    private static Path key(Path imageFile) {
+        return Objects.requireNonNull(imageFile, "imageFile must not be null").toAbsolutePath().normalize();
+    }
+
+    private static Thread newThread(Runnable runnable, String name, int priority) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.setPriority(priority);
+        return thread;
+    }
+}
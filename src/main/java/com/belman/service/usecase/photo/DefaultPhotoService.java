@@ -1,13 +1,17 @@
 package com.belman.service.usecase.photo;
 
 import com.belman.domain.common.Timestamp;
+import com.belman.domain.core.ConflictRetry;
+import com.belman.domain.event.BusinessEventPublisher;
 import com.belman.domain.order.OrderBusiness;
 import com.belman.domain.order.OrderId;
 import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.ImageMetadata;
 import com.belman.domain.order.photo.Photo;
 import com.belman.domain.order.photo.PhotoDocument;
 import com.belman.domain.order.photo.PhotoId;
 import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.events.PhotoUploadedEvent;
 import com.belman.domain.services.PhotoService;
 import com.belman.domain.user.UserBusiness;
 import com.belman.presentation.core.ErrorHandler;
@@ -21,7 +25,12 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Default implementation of the PhotoService interface.
@@ -32,6 +41,9 @@ public class DefaultPhotoService implements PhotoService {
     private static final StandardCopyOption FILE_COPY_OPTION = StandardCopyOption.REPLACE_EXISTING;
     private static final int BUFFER_SIZE = 8192;
 
+    // Maximum time an upload waits for the quality pre-screen after the file has been copied
+    private static final long PRESCREEN_TIMEOUT_MILLIS = 2000;
+
     // Error message constants
     private static final String UPLOAD_ERROR_MESSAGE = "Failed to upload photo: ";
     private static final String COPY_ERROR_MESSAGE = "Failed to copy file with Gluon Storage: ";
@@ -46,17 +58,31 @@ public class DefaultPhotoService implements PhotoService {
 
     private final OrderRepository orderRepository;
     private final String photoStorageDirectory;
+    private final ImageQualityPrescreener prescreener;
     private final ErrorHandler errorHandler = ErrorHandler.getInstance();
 
     /**
-     * Creates a new DefaultPhotoService.
+     * Creates a new DefaultPhotoService without an image quality pre-screen.
      *
      * @param orderRepository       the order repository
      * @param photoStorageDirectory the directory where photos are stored
      */
     public DefaultPhotoService(OrderRepository orderRepository, String photoStorageDirectory) {
+        this(orderRepository, photoStorageDirectory, null);
+    }
+
+    /**
+     * Creates a new DefaultPhotoService.
+     *
+     * @param orderRepository       the order repository
+     * @param photoStorageDirectory the directory where photos are stored
+     * @param prescreener           the image quality pre-screen for uploaded photos, or null to skip it
+     */
+    public DefaultPhotoService(OrderRepository orderRepository, String photoStorageDirectory,
+                               ImageQualityPrescreener prescreener) {
         this.orderRepository = orderRepository;
         this.photoStorageDirectory = photoStorageDirectory;
+        this.prescreener = prescreener;
 
         // Create the photo storage directory if it doesn't exist
         File directory = new File(photoStorageDirectory);
@@ -67,12 +93,23 @@ public class DefaultPhotoService implements PhotoService {
 
     @Override
     public PhotoDocument uploadPhoto(File file, OrderId orderId, PhotoTemplate angle, UserBusiness uploadedBy) {
+        // Fail before copying, so an upload to a missing order leaves no file behind
+        if (!orderRepository.existsById(orderId)) {
+            throw new NoSuchElementException("Order not found: " + orderId.id());
+        }
+
         // Generate a unique ID for the photo
         PhotoId photoId = PhotoId.newId();
 
         // Generate a unique file path for the photo
         Photo imagePath = generateUniqueFilePath(file.getName(), orderId);
 
+        // Score and hash the source file while it is being copied
+        CompletableFuture<Optional<ImageQualityPrescreener.Result>> prescreen =
+                prescreener != null
+                        ? prescreener.screen(file.toPath())
+                        : CompletableFuture.completedFuture(Optional.empty());
+
         try {
             // Check if we're running on a mobile device
             if (PlatformUtils.isRunningOnMobile()) {
@@ -86,21 +123,32 @@ public class DefaultPhotoService implements PhotoService {
             }
 
             // Create a new photo document
+            ImageMetadata metadata = readImageMetadata(file);
+            Optional<ImageQualityPrescreener.Result> result = awaitPrescreen(prescreen);
             PhotoDocument photo = PhotoDocument.builder()
                     .photoId(photoId)
                     .template(angle)
                     .imagePath(imagePath)
                     .uploadedBy(uploadedBy)
                     .uploadedAt(Timestamp.now())
+                    .qualityScore(result.map(ImageQualityPrescreener.Result::qualityScore).orElse(null))
+                    .perceptualHash(result.map(ImageQualityPrescreener.Result::perceptualHash).orElse(null))
+                    .imageMetadata(metadata)
                     .build();
 
 
-            // Find the orderAggregate and add the photo to it
-            Optional<OrderBusiness> orderAggregate = orderRepository.findById(orderId);
-            if (orderAggregate != null) {
-                orderAggregate.get().addPhoto(photo);
-                orderRepository.save(orderAggregate.get());
+            // Add the photo to the order; adding is commutative, so a concurrent change to the order
+            // is merged by reloading it and adding the photo again
+            try {
+                ConflictRetry.update(orderRepository, orderId, order -> order.addPhoto(photo))
+                        .orElseThrow(() -> new NoSuchElementException("Order not found: " + orderId.id()));
+            } catch (RuntimeException e) {
+                // The order was deleted meanwhile or could not be saved, so no photo refers to the copy
+                deleteStoredFile(imagePath.value());
+                throw e;
             }
+            BusinessEventPublisher.getInstance().publish(new PhotoUploadedEvent(
+                    photoId, orderId, photo.getUploadedAt().toInstant(), photo.getQualityScore()));
 
             return photo;
         } catch (IOException e) {
@@ -110,6 +158,43 @@ public class DefaultPhotoService implements PhotoService {
         }
     }
 
+    /**
+     * Waits a bounded time for the pre-screen of an upload.
+     * The pre-screen is advisory, so a photo that is not screened in time is stored without
+     * quality scores or perceptual hash.
+     *
+     * @param prescreen the pending pre-screen
+     * @return the result, or empty if the photo was not screened in time
+     */
+    private Optional<ImageQualityPrescreener.Result> awaitPrescreen(
+            CompletableFuture<Optional<ImageQualityPrescreener.Result>> prescreen) {
+        try {
+            return prescreen.get(PRESCREEN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            errorHandler.handleExceptionQuietly(e, "Image pre-screen did not complete");
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads the dimensions, orientation and capture time from the header of an uploaded image.
+     * Only a few kilobytes are read, so this runs on every platform without slowing down the upload.
+     *
+     * @param file the uploaded image
+     * @return the metadata, or null if the header could not be read
+     */
+    private ImageMetadata readImageMetadata(File file) {
+        try {
+            return ImageMetadataReader.read(file.toPath()).orElse(null);
+        } catch (IOException e) {
+            errorHandler.handleExceptionQuietly(e, "Image metadata could not be read");
+            return null;
+        }
+    }
+
     /**
      * Copies a file using Gluon's StorageService.
      *
@@ -174,17 +259,7 @@ public class DefaultPhotoService implements PhotoService {
             List<PhotoDocument> photos = orderBusiness.getPhotos();
             for (PhotoDocument photo : photos) {
                 if (photo.getPhotoId().equals(photoId)) {
-                    boolean deleted;
-
-                    // Check if we're running on a mobile device
-                    if (PlatformUtils.isRunningOnMobile()) {
-                        // Use Gluon's StorageService for mobile devices
-                        deleted = deleteFileWithGluonStorage(photo.getImagePath().value());
-                    } else {
-                        // Use standard Java file I/O for desktop
-                        File file = new File(photoStorageDirectory, photo.getImagePath().value());
-                        deleted = file.delete();
-                    }
+                    boolean deleted = deleteStoredFile(photo.getImagePath().value());
 
                     // Remove the photo from the orderBusiness
                     orderBusiness.getPhotos().remove(photo);
@@ -198,6 +273,22 @@ public class DefaultPhotoService implements PhotoService {
         return false;
     }
 
+    /**
+     * Deletes a stored photo file.
+     *
+     * @param fileName the name of the file to delete
+     * @return true if the file was deleted successfully, false otherwise
+     */
+    private boolean deleteStoredFile(String fileName) {
+        // Check if we're running on a mobile device
+        if (PlatformUtils.isRunningOnMobile()) {
+            // Use Gluon's StorageService for mobile devices
+            return deleteFileWithGluonStorage(fileName);
+        }
+        // Use standard Java file I/O for desktop
+        return new File(photoStorageDirectory, fileName).delete();
+    }
+
     /**
      * Deletes a file using Gluon's StorageService.
      *
@@ -262,6 +353,20 @@ public class DefaultPhotoService implements PhotoService {
         return null;
     }
 
+    @Override
+    public File getPhotoFile(PhotoDocument photo) {
+        String fileName = photo.getImagePath().value();
+        if (PlatformUtils.isRunningOnMobile()) {
+            // Photos uploaded on a mobile device are stored in Gluon's private storage
+            Optional<File> privateStorageDir = Services.get(StorageService.class)
+                    .flatMap(StorageService::getPrivateStorage);
+            if (privateStorageDir.isPresent()) {
+                return new File(privateStorageDir.get(), fileName);
+            }
+        }
+        return new File(photoStorageDirectory, fileName);
+    }
+
     @Override
     public Photo generateUniqueFilePath(String originalFileName, OrderId orderId) {
         // Extract the file extension
@@ -0,0 +1,316 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.order.photo.ImageMetadata;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Reads the dimensions, EXIF orientation and capture time of a JPEG or PNG file from its header,
+ * without decoding the image.
+ * <p>
+ * Only the header segments are read, with small positional reads: for a JPEG the markers up to
+ * the start-of-frame segment, including an EXIF APP1 segment; for a PNG the IHDR chunk and the
+ * chunks before the image data, including an eXIf chunk. A megapixel photo is thus described by
+ * reading a few kilobytes. The reader uses no image decoder, so it also works on mobile.
+ */
+public final class ImageMetadataReader {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+
+    // EXIF segments are limited to 64 KB by the JPEG segment length
+    private static final int MAX_EXIF_SIZE = 64 * 1024;
+    // Stop scanning files whose image data does not start within this many segments
+    private static final int MAX_SEGMENTS = 64;
+
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATE_TIME = 0x0132;
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+    private static final int TAG_OFFSET_TIME_ORIGINAL = 0x9011;
+    private static final int TYPE_SHORT = 3;
+    private static final int TYPE_LONG = 4;
+
+    private static final DateTimeFormatter EXIF_DATE_TIME = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private ImageMetadataReader() {
+    }
+
+    /**
+     * Reads the metadata of an image, interpreting capture times without a UTC offset in the
+     * default time zone.
+     *
+     * @param file the image file
+     * @return the metadata, or empty if the file is not a JPEG or PNG or its header is malformed
+     * @throws IOException if the file cannot be read
+     */
+    public static Optional<ImageMetadata> read(Path file) throws IOException {
+        return read(file, ZoneId.systemDefault());
+    }
+
+    /**
+     * Reads the metadata of an image.
+     *
+     * @param file the image file
+     * @param zone the time zone of capture times that are recorded without a UTC offset, which
+     *             cameras record in local time
+     * @return the metadata, or empty if the file is not a JPEG or PNG or its header is malformed
+     * @throws IOException if the file cannot be read
+     */
+    public static Optional<ImageMetadata> read(Path file, ZoneId zone) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer start = readAt(channel, 0, PNG_SIGNATURE.length);
+            if (start.remaining() >= 2 && (start.get(0) & 0xFF) == 0xFF && (start.get(1) & 0xFF) == 0xD8) {
+                return readJpeg(channel, zone);
+            }
+            if (start.remaining() == PNG_SIGNATURE.length && start.equals(ByteBuffer.wrap(PNG_SIGNATURE))) {
+                return readPng(channel, zone);
+            }
+            return Optional.empty();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // Truncated or inconsistent header
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<ImageMetadata> readJpeg(FileChannel channel, ZoneId zone) throws IOException {
+        Exif exif = Exif.NONE;
+        long position = 2;
+        for (int segment = 0; segment < MAX_SEGMENTS; segment++) {
+            ByteBuffer marker = readAt(channel, position, 4);
+            if (marker.remaining() < 2 || (marker.get(0) & 0xFF) != 0xFF) {
+                return Optional.empty();
+            }
+            int type = marker.get(1) & 0xFF;
+            if (type == 0xFF) {
+                // Fill byte before a marker
+                position++;
+                continue;
+            }
+            if (type == 0x01 || (type >= 0xD0 && type <= 0xD8)) {
+                // Markers without a length
+                position += 2;
+                continue;
+            }
+            if (type == 0xDA || type == 0xD9 || marker.remaining() < 4) {
+                // Image data or end of image before any frame header
+                return Optional.empty();
+            }
+            int length = marker.getShort(2) & 0xFFFF;
+            if (type == 0xE1 && exif == Exif.NONE) {
+                ByteBuffer app1 = readAt(channel, position + 4, Math.min(length - 2, MAX_EXIF_SIZE));
+                if (startsWith(app1, EXIF_HEADER)) {
+                    exif = Exif.parse(app1.position(EXIF_HEADER.length).slice(), zone);
+                }
+            } else if (isStartOfFrame(type)) {
+                ByteBuffer frame = readAt(channel, position + 4, 5);
+                int height = frame.getShort(1) & 0xFFFF;
+                int width = frame.getShort(3) & 0xFFFF;
+                return Optional.of(new ImageMetadata(width, height, exif.orientation, exif.capturedAt));
+            }
+            position += 2 + length;
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<ImageMetadata> readPng(FileChannel channel, ZoneId zone) throws IOException {
+        ByteBuffer header = readAt(channel, PNG_SIGNATURE.length, 16);
+        if (header.getInt(4) != chunkType("IHDR")) {
+            return Optional.empty();
+        }
+        int width = header.getInt(8);
+        int height = header.getInt(12);
+
+        // The eXIf chunk must precede the image data
+        Exif exif = Exif.NONE;
+        long position = PNG_SIGNATURE.length + 8 + 13 + 4;
+        for (int chunk = 0; chunk < MAX_SEGMENTS; chunk++) {
+            ByteBuffer chunkHeader = readAt(channel, position, 8);
+            if (chunkHeader.remaining() < 8) {
+                break;
+            }
+            long length = chunkHeader.getInt(0) & 0xFFFFFFFFL;
+            int type = chunkHeader.getInt(4);
+            if (type == chunkType("IDAT") || type == chunkType("IEND")) {
+                break;
+            }
+            if (type == chunkType("eXIf") && length <= MAX_EXIF_SIZE) {
+                ByteBuffer data = readAt(channel, position + 8, (int) length);
+                if (startsWith(data, EXIF_HEADER)) {
+                    data.position(EXIF_HEADER.length);
+                }
+                exif = Exif.parse(data.slice(), zone);
+                break;
+            }
+            position += 12 + length;
+        }
+        return Optional.of(new ImageMetadata(width, height, exif.orientation, exif.capturedAt));
+    }
+
+    private static boolean isStartOfFrame(int type) {
+        // SOF0 to SOF15, except DHT (C4), JPG (C8) and DAC (CC)
+        return type >= 0xC0 && type <= 0xCF && type != 0xC4 && type != 0xC8 && type != 0xCC;
+    }
+
+    private static int chunkType(String name) {
+        return ByteBuffer.wrap(name.getBytes(StandardCharsets.US_ASCII)).getInt();
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+        if (buffer.remaining() < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer.get(buffer.position() + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads up to a number of bytes at a position. Fewer bytes are returned at the end of the file.
+     */
+    private static ByteBuffer readAt(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.max(0, length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * The fields read from an EXIF (TIFF) structure.
+     */
+    private static final class Exif {
+
+        static final Exif NONE = new Exif(ImageMetadata.ORIENTATION_NORMAL, null);
+
+        final int orientation;
+        final Instant capturedAt;
+
+        private Exif(int orientation, Instant capturedAt) {
+            this.orientation = orientation;
+            this.capturedAt = capturedAt;
+        }
+
+        /**
+         * Parses the orientation and capture time of a TIFF structure. Malformed fields are
+         * ignored, as EXIF written by cameras and editors is often slightly off.
+         */
+        static Exif parse(ByteBuffer tiff, ZoneId zone) {
+            try {
+                if (tiff.get(0) == 'I' && tiff.get(1) == 'I') {
+                    tiff.order(ByteOrder.LITTLE_ENDIAN);
+                } else if (tiff.get(0) == 'M' && tiff.get(1) == 'M') {
+                    tiff.order(ByteOrder.BIG_ENDIAN);
+                } else {
+                    return NONE;
+                }
+                if ((tiff.getShort(2) & 0xFFFF) != 42) {
+                    return NONE;
+                }
+
+                int orientation = ImageMetadata.ORIENTATION_NORMAL;
+                String dateTime = null;
+                String dateTimeOriginal = null;
+                String offsetTimeOriginal = null;
+                int exifIfd = -1;
+
+                int ifd0 = tiff.getInt(4);
+                int entries = tiff.getShort(ifd0) & 0xFFFF;
+                for (int i = 0; i < entries; i++) {
+                    int entry = ifd0 + 2 + i * 12;
+                    switch (tiff.getShort(entry) & 0xFFFF) {
+                        case TAG_ORIENTATION -> {
+                            int value = tiff.getShort(entry + 8) & 0xFFFF;
+                            if ((tiff.getShort(entry + 2) & 0xFFFF) == TYPE_SHORT && value >= 1 && value <= 8) {
+                                orientation = value;
+                            }
+                        }
+                        case TAG_DATE_TIME -> dateTime = ascii(tiff, entry);
+                        case TAG_EXIF_IFD -> {
+                            if ((tiff.getShort(entry + 2) & 0xFFFF) == TYPE_LONG) {
+                                exifIfd = tiff.getInt(entry + 8);
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+
+                if (exifIfd > 0) {
+                    int exifEntries = tiff.getShort(exifIfd) & 0xFFFF;
+                    for (int i = 0; i < exifEntries; i++) {
+                        int entry = exifIfd + 2 + i * 12;
+                        int tag = tiff.getShort(entry) & 0xFFFF;
+                        if (tag == TAG_DATE_TIME_ORIGINAL) {
+                            dateTimeOriginal = ascii(tiff, entry);
+                        } else if (tag == TAG_OFFSET_TIME_ORIGINAL) {
+                            offsetTimeOriginal = ascii(tiff, entry);
+                        }
+                    }
+                }
+
+                Instant capturedAt = dateTimeOriginal != null
+                                     ? parseDateTime(dateTimeOriginal, offsetTimeOriginal, zone)
+                                     : parseDateTime(dateTime, null, zone);
+                return new Exif(orientation, capturedAt);
+            } catch (IndexOutOfBoundsException e) {
+                return NONE;
+            }
+        }
+
+        /**
+         * Reads an ASCII value, which is stored in the entry itself when it fits in four bytes.
+         */
+        private static String ascii(ByteBuffer tiff, int entry) {
+            int count = tiff.getInt(entry + 4);
+            if (count <= 0 || count > 256) {
+                return null;
+            }
+            int offset = count <= 4 ? entry + 8 : tiff.getInt(entry + 8);
+            byte[] bytes = new byte[count];
+            tiff.get(offset, bytes);
+            int length = 0;
+            while (length < count && bytes[length] != 0) {
+                length++;
+            }
+            return new String(bytes, 0, length, StandardCharsets.US_ASCII).trim();
+        }
+
+        private static Instant parseDateTime(String dateTime, String offset, ZoneId zone) {
+            if (dateTime == null) {
+                return null;
+            }
+            try {
+                LocalDateTime local = LocalDateTime.parse(dateTime, EXIF_DATE_TIME);
+                ZoneId recordedZone = offset != null && !offset.isEmpty() ? ZoneOffset.of(offset) : zone;
+                return local.atZone(recordedZone).toInstant();
+            } catch (DateTimeParseException e) {
+                // Unset dates are written as "0000:00:00 00:00:00" or blanks
+                return null;
+            } catch (DateTimeException e) {
+                // Malformed offset; the local time alone is still useful
+                return LocalDateTime.parse(dateTime, EXIF_DATE_TIME).atZone(zone).toInstant();
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.order.photo.ImageQualityScore;
+
+import java.util.Arrays;
+
+/**
+ * Computes the image quality scores of a photo from its pixels.
+ * <p>
+ * The image is first reduced to an 8-bit luminance plane of at most {@link #ANALYSIS_SIZE} pixels
+ * on its longest side by averaging square blocks of pixels. Sharpness is the variance of the
+ * 4-neighbour Laplacian of that plane, and exposure is read from its 256-bin histogram. All
+ * passes are single loops over primitive arrays without per-pixel allocation.
+ */
+public final class ImageQualityAnalyzer {
+
+    /**
+     * The maximum width or height of the luminance plane the scores are computed on.
+     */
+    public static final int ANALYSIS_SIZE = 1024;
+
+    /**
+     * Luminance values at or below this level count as crushed to black.
+     */
+    static final int DARK_CLIP_LEVEL = 5;
+
+    /**
+     * Luminance values at or above this level count as blown out to white.
+     */
+    static final int BRIGHT_CLIP_LEVEL = 250;
+
+    private ImageQualityAnalyzer() {
+    }
+
+    /**
+     * Computes the quality scores of an image.
+     *
+     * @param argb   the pixels of the image as packed ARGB values, row by row
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the quality scores
+     * @throws IllegalArgumentException if the dimensions do not match the pixel array
+     */
+    public static ImageQualityScore analyze(int[] argb, int width, int height) {
+        int factor = downsampleFactor(width, height);
+        byte[] luminance = luminance(argb, width, height, factor);
+        return analyzeLuminance(luminance, width / factor, height / factor);
+    }
+
+    /**
+     * Computes the quality scores of an 8-bit luminance plane.
+     *
+     * @param luminance the luminance values, row by row
+     * @param width     the width of the plane
+     * @param height    the height of the plane
+     * @return the quality scores
+     * @throws IllegalArgumentException if the dimensions do not match the luminance array
+     */
+    public static ImageQualityScore analyzeLuminance(byte[] luminance, int width, int height) {
+        checkDimensions(luminance.length, width, height);
+
+        int[] histogram = new int[256];
+        for (byte value : luminance) {
+            histogram[value & 0xFF]++;
+        }
+
+        long total = 0;
+        int dark = 0;
+        int bright = 0;
+        for (int level = 0; level < 256; level++) {
+            total += (long) level * histogram[level];
+            if (level <= DARK_CLIP_LEVEL) {
+                dark += histogram[level];
+            } else if (level >= BRIGHT_CLIP_LEVEL) {
+                bright += histogram[level];
+            }
+        }
+
+        double pixels = luminance.length;
+        return new ImageQualityScore(laplacianVariance(luminance, width, height), total / pixels,
+                dark / pixels, bright / pixels);
+    }
+
+    /**
+     * Gets the block size that reduces an image to at most {@link #ANALYSIS_SIZE} pixels per side.
+     *
+     * @param width  the width of the image
+     * @param height the height of the image
+     * @return the block size, at least 1
+     */
+    static int downsampleFactor(int width, int height) {
+        int longest = Math.max(width, height);
+        return Math.max(1, (longest + ANALYSIS_SIZE - 1) / ANALYSIS_SIZE);
+    }
+
+    /**
+     * Converts ARGB pixels to luminance, averaging blocks of {@code factor} by {@code factor} pixels.
+     * Pixels in an incomplete block at the right or bottom edge are dropped.
+     */
+    static byte[] luminance(int[] argb, int width, int height, int factor) {
+        checkDimensions(argb.length, width, height);
+        int outWidth = width / factor;
+        int outHeight = height / factor;
+        if (outWidth < 1 || outHeight < 1) {
+            throw new IllegalArgumentException("Image is smaller than the downsample factor");
+        }
+
+        byte[] out = new byte[outWidth * outHeight];
+        int[] rowSums = new int[outWidth];
+        // Luminance is summed in 8.8 fixed point; blocks with a power-of-two size are averaged by shifting
+        int blockShift = Integer.numberOfTrailingZeros(factor * factor);
+        boolean powerOfTwo = Integer.bitCount(factor) == 1;
+        int blockPixels = factor * factor;
+
+        for (int outY = 0; outY < outHeight; outY++) {
+            Arrays.fill(rowSums, 0);
+            for (int dy = 0; dy < factor; dy++) {
+                int index = (outY * factor + dy) * width;
+                for (int outX = 0; outX < outWidth; outX++) {
+                    int sum = 0;
+                    for (int dx = 0; dx < factor; dx++) {
+                        int pixel = argb[index++];
+                        sum += 77 * ((pixel >> 16) & 0xFF) + 150 * ((pixel >> 8) & 0xFF) + 29 * (pixel & 0xFF);
+                    }
+                    rowSums[outX] += sum;
+                }
+            }
+            int outIndex = outY * outWidth;
+            for (int outX = 0; outX < outWidth; outX++) {
+                int average = powerOfTwo ? rowSums[outX] >>> blockShift : rowSums[outX] / blockPixels;
+                out[outIndex + outX] = (byte) (average >>> 8);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Computes the variance of the 4-neighbour Laplacian over the interior of a luminance plane.
+     */
+    static double laplacianVariance(byte[] luminance, int width, int height) {
+        if (width < 3 || height < 3) {
+            return 0;
+        }
+
+        long sum = 0;
+        long sumOfSquares = 0;
+        for (int y = 1; y < height - 1; y++) {
+            int row = y * width;
+            int up = row - width;
+            int down = row + width;
+            for (int x = 1; x < width - 1; x++) {
+                int laplacian = 4 * (luminance[row + x] & 0xFF)
+                        - (luminance[row + x - 1] & 0xFF)
+                        - (luminance[row + x + 1] & 0xFF)
+                        - (luminance[up + x] & 0xFF)
+                        - (luminance[down + x] & 0xFF);
+                sum += laplacian;
+                sumOfSquares += (long) laplacian * laplacian;
+            }
+        }
+
+        double count = (double) (width - 2) * (height - 2);
+        double mean = sum / count;
+        return Math.max(0, sumOfSquares / count - mean * mean);
+    }
+
+    private static void checkDimensions(int length, int width, int height) {
+        if (width <= 0 || height <= 0 || (long) width * height != length) {
+            throw new IllegalArgumentException(
+                    "Dimensions " + width + "x" + height + " do not match " + length + " pixels");
+        }
+    }
+}
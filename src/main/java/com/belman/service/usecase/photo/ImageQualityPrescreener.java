@@ -0,0 +1,217 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.service.base.BaseService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores the sharpness and exposure of uploaded photos and computes their perceptual hash on a
+ * bounded pool of worker threads.
+ * <p>
+ * Images are decoded by a {@link Decoder} scaled down to at most twice the analysis size, so a
+ * 12 MP photo is never held at full resolution. The decoder is supplied by the caller, because the
+ * image codecs of the platform the app runs on are not available in this layer. The decoded image
+ * is reduced to one luminance plane, which is scored by the {@link ImageQualityAnalyzer} and
+ * hashed by the {@link PerceptualHasher}.
+ * <p>
+ * The pool has a fixed number of threads and a fixed queue; when the queue is full, new photos
+ * are not pre-screened rather than slowing down the upload. The pre-screen is advisory, so every
+ * failure results in an empty result.
+ * <p>
+ * The results of the last few files are kept, keyed by path, size and modification time. A photo
+ * that is screened for near-duplicates when it is selected is therefore decoded only once, and
+ * the upload reuses its scores and hash.
+ */
+public class ImageQualityPrescreener extends BaseService implements AutoCloseable {
+
+    /**
+     * Decodes image files into pixels for the pre-screen.
+     */
+    public interface Decoder {
+
+        /**
+         * Decodes an image, scaled down so its longest edge is at most the maximum edge. Images
+         * that are already smaller are decoded at their own size.
+         *
+         * @param imageFile the image file
+         * @param maxEdge   the longest edge to decode the image at
+         * @return the decoded pixels
+         * @throws IOException if the file cannot be read or decoded
+         */
+        Pixels decode(Path imageFile, int maxEdge) throws IOException;
+    }
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 16;
+    private static final int RECENT_RESULTS = 8;
+
+    private final ThreadPoolExecutor executor;
+    private final Decoder decoder;
+    // Pending and completed screens of the most recently screened files, least recently used first
+    private final Map<FileKey, CompletableFuture<Optional<Result>>> recentScreens =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<FileKey, CompletableFuture<Optional<Result>>> eldest) {
+                    return size() > RECENT_RESULTS;
+                }
+            };
+
+    /**
+     * Creates a new ImageQualityPrescreener with one thread per two processors.
+     *
+     * @param loggerFactory the factory to create loggers
+     * @param decoder       the decoder for image files
+     */
+    public ImageQualityPrescreener(LoggerFactory loggerFactory, Decoder decoder) {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_QUEUE_CAPACITY, loggerFactory,
+                decoder);
+    }
+
+    /**
+     * Creates a new ImageQualityPrescreener.
+     *
+     * @param threads       the number of worker threads
+     * @param queueCapacity the maximum number of photos waiting to be scored
+     * @param loggerFactory the factory to create loggers
+     * @param decoder       the decoder for image files
+     */
+    public ImageQualityPrescreener(int threads, int queueCapacity, LoggerFactory loggerFactory, Decoder decoder) {
+        super(loggerFactory);
+        if (threads < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Threads and queue capacity must be positive");
+        }
+        this.decoder = Objects.requireNonNull(decoder, "decoder must not be null");
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-prescreen-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Schedules an image file to be scored and hashed, unless the same unchanged file was screened
+     * recently, in which case that screen is returned.
+     *
+     * @param imageFile the image file
+     * @return a future with the result, or with an empty result if the image could not be decoded
+     */
+    public CompletableFuture<Optional<Result>> screen(Path imageFile) {
+        Objects.requireNonNull(imageFile, "imageFile must not be null");
+        FileKey key = FileKey.of(imageFile);
+        synchronized (recentScreens) {
+            CompletableFuture<Optional<Result>> recent = key != null ? recentScreens.get(key) : null;
+            if (recent != null) {
+                return recent;
+            }
+            try {
+                CompletableFuture<Optional<Result>> screen =
+                        CompletableFuture.supplyAsync(() -> score(imageFile), executor);
+                if (key != null) {
+                    recentScreens.put(key, screen);
+                }
+                return screen;
+            } catch (RejectedExecutionException e) {
+                logger.warn("Pre-screen queue is full, skipping {}", imageFile.getFileName());
+                return CompletableFuture.completedFuture(Optional.empty());
+            }
+        }
+    }
+
+    private Optional<Result> score(Path imageFile) {
+        long start = System.nanoTime();
+        try {
+            // Decoded at up to twice the analysis size; the analyzer then averages the pixels in
+            // blocks, which avoids aliasing inflating the sharpness score
+            Pixels pixels = decoder.decode(imageFile, 2 * ImageQualityAnalyzer.ANALYSIS_SIZE);
+            int width = pixels.width();
+            int height = pixels.height();
+            int factor = ImageQualityAnalyzer.downsampleFactor(width, height);
+            byte[] luminance = ImageQualityAnalyzer.luminance(pixels.argb(), width, height, factor);
+            Result result = new Result(
+                    ImageQualityAnalyzer.analyzeLuminance(luminance, width / factor, height / factor),
+                    PerceptualHasher.differenceHash(luminance, width / factor, height / factor));
+            logger.debug("Pre-screened {} in {} ms: {}", imageFile.getFileName(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), result);
+            return Optional.of(result);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to pre-screen {}: {}", imageFile.getFileName(), e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stops the worker threads. Photos that are still queued are not scored.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Identifies a version of an image file, so an edited or replaced file is screened again.
+     */
+    private record FileKey(Path path, long size, long lastModifiedMillis) {
+
+        /**
+         * @return the key of the file, or null if its attributes cannot be read
+         */
+        static FileKey of(Path file) {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return new FileKey(file.toAbsolutePath().normalize(), attributes.size(),
+                        attributes.lastModifiedTime().toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The result of pre-screening a photo.
+     *
+     * @param qualityScore   the sharpness and exposure scores
+     * @param perceptualHash the perceptual hash, for finding near-duplicates
+     */
+    public record Result(ImageQualityScore qualityScore, PerceptualHash perceptualHash) {
+    }
+
+    /**
+     * The pixels of a decoded image.
+     *
+     * @param width  the width in pixels
+     * @param height the height in pixels
+     * @param argb   the pixels as ARGB values, row by row
+     */
+    public record Pixels(int width, int height, int[] argb) {
+
+        /**
+         * Creates a new Pixels.
+         *
+         * @throws IllegalArgumentException if the dimensions do not match the pixel array
+         */
+        public Pixels {
+            Objects.requireNonNull(argb, "argb must not be null");
+            if (width < 1 || height < 1 || (long) width * height != argb.length) {
+                throw new IllegalArgumentException("Pixel array does not match " + width + "x" + height);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.belman.service.usecase.photo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Minimal streaming JSON reader: values are read one token at a time, so a document is never held
+ * in memory as a whole.
+ * <p>
+ * The reader checks the tokens the caller asks for but is lenient about separators, which is
+ * enough for the metadata files it reads. Numbers and booleans can be read as text with
+ * {@link #nextString()}.
+ */
+final class JsonStreamReader implements Closeable {
+
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private final Reader in;
+    private final StringBuilder text = new StringBuilder();
+    private int lookahead = -2;
+    private Token token;
+    private String value;
+
+    JsonStreamReader(Reader in) {
+        this.in = in;
+    }
+
+    Token peek() throws IOException {
+        if (token == null) {
+            readToken();
+        }
+        return token;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+    }
+
+    /**
+     * Checks whether the current object or array has another element.
+     */
+    boolean hasNext() throws IOException {
+        Token next = peek();
+        return next != Token.END_OBJECT && next != Token.END_ARRAY && next != Token.END_DOCUMENT;
+    }
+
+    String nextName() throws IOException {
+        return expect(Token.NAME);
+    }
+
+    /**
+     * Reads a string, number or boolean as text.
+     *
+     * @return the value, or null for a JSON null
+     * @throws IOException if the next token is not a scalar value
+     */
+    String nextString() throws IOException {
+        Token next = peek();
+        if (next == Token.NULL || next == Token.NUMBER || next == Token.BOOLEAN) {
+            return expect(next);
+        }
+        return expect(Token.STRING);
+    }
+
+    /**
+     * Skips the next value, including all nested values of an object or array.
+     */
+    void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            Token next = peek();
+            if (next == Token.BEGIN_OBJECT || next == Token.BEGIN_ARRAY) {
+                depth++;
+            } else if (next == Token.END_OBJECT || next == Token.END_ARRAY) {
+                depth--;
+            } else if (next == Token.END_DOCUMENT) {
+                throw new IOException("Malformed JSON: unexpected end of document");
+            }
+            token = null;
+        } while (depth > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private String expect(Token expected) throws IOException {
+        Token next = peek();
+        if (next != expected) {
+            throw new IOException("Malformed JSON: expected " + expected + " but found " + next);
+        }
+        token = null;
+        return value;
+    }
+
+    private void readToken() throws IOException {
+        value = null;
+        int c = read();
+        while (c == ',' || c == ':' || Character.isWhitespace(c)) {
+            c = read();
+        }
+        switch (c) {
+            case -1 -> token = Token.END_DOCUMENT;
+            case '{' -> token = Token.BEGIN_OBJECT;
+            case '}' -> token = Token.END_OBJECT;
+            case '[' -> token = Token.BEGIN_ARRAY;
+            case ']' -> token = Token.END_ARRAY;
+            case '"' -> {
+                value = readString();
+                int next = read();
+                while (Character.isWhitespace(next)) {
+                    next = read();
+                }
+                if (next == ':') {
+                    token = Token.NAME;
+                } else {
+                    lookahead = next;
+                    token = Token.STRING;
+                }
+            }
+            default -> {
+                value = readLiteral(c);
+                switch (value) {
+                    case "true", "false" -> token = Token.BOOLEAN;
+                    case "null" -> {
+                        token = Token.NULL;
+                        value = null;
+                    }
+                    default -> {
+                        if (value.isEmpty() || !(value.charAt(0) == '-' || Character.isDigit(value.charAt(0)))) {
+                            throw new IOException("Malformed JSON: unexpected '" + value + "'");
+                        }
+                        token = Token.NUMBER;
+                    }
+                }
+            }
+        }
+    }
+
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                throw new IOException("Malformed JSON: unterminated string");
+            }
+            if (c == '"') {
+                return text.toString();
+            }
+            if (c != '\\') {
+                text.append((char) c);
+                continue;
+            }
+            int escaped = read();
+            switch (escaped) {
+                case '"', '\\', '/' -> text.append((char) escaped);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) {
+                            throw new IOException("Malformed JSON: invalid unicode escape");
+                        }
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw new IOException("Malformed JSON: invalid escape");
+            }
+        }
+    }
+
+    private String readLiteral(int first) throws IOException {
+        text.setLength(0);
+        int c = first;
+        while (c != -1 && c != ',' && c != '}' && c != ']' && c != ':' && !Character.isWhitespace(c)) {
+            text.append((char) c);
+            c = read();
+        }
+        lookahead = c;
+        return text.toString();
+    }
+
+    private int read() throws IOException {
+        if (lookahead != -2) {
+            int c = lookahead;
+            lookahead = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,575 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.ProductDescription;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.UserRepository;
+import com.belman.domain.user.Username;
+import com.belman.service.base.BaseService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Imports the legacy photo archive into the order repository and the photo store.
+ * <p>
+ * The archive holds one directory per order, {@code yyyy/MM/dd/<legacy order number>/}, with a
+ * {@code metadata.json} file and the images of the order. Worker threads parse the metadata and
+ * copy or link the images into the photo store; the calling thread collects the resulting orders
+ * and writes them with {@link OrderRepository#insertAll} in large batches. After each batch, the
+ * legacy order numbers it wrote are appended to a checkpoint file, so an interrupted import skips
+ * them when it is run again.
+ * <p>
+ * Legacy order numbers ({@code ORD-<country>-<yyMMdd>-<product>-<sequence>}) are translated to
+ * the current format as {@code MM/yy-<country>-<sequence>}. That format has no room for the day
+ * and the product, so order and photo IDs are derived from the full legacy order number instead,
+ * and importing the same archive twice does not create duplicates, even without a checkpoint.
+ * A legacy order whose translated order number or ID is already taken by another order is
+ * reported as failed rather than merged with it.
+ */
+public class LegacyArchiveImporter extends BaseService {
+
+    public static final int DEFAULT_BATCH_SIZE = 250;
+
+    private static final String METADATA_FILE = "metadata.json";
+    private static final Pattern LEGACY_ORDER_NUMBER =
+            Pattern.compile("ORD-(\\d{1,6})-(\\d{2})(\\d{2})\\d{2}-[A-Za-z]+-(\\d{1,8})");
+    private static final String PRODUCT_SPECIFICATIONS = "Imported from legacy archive";
+    private static final String LEGACY_NUMBER_NOTE = "Legacy order number ";
+    private static final int QUEUE_CAPACITY_PER_THREAD = 64;
+
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final Path photoStorageDirectory;
+    private final UserBusiness importedBy;
+    private final ImportMode mode;
+    private final int threads;
+    private final int batchSize;
+
+    private final Map<String, UserBusiness> uploaders = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+    /**
+     * How images are put into the photo store.
+     */
+    public enum ImportMode {
+        /**
+         * Copies each image.
+         */
+        COPY,
+        /**
+         * Creates a hard link to each image, which is much faster and uses no extra space when the
+         * archive and the photo store are on the same file system. Falls back to copying when a
+         * link cannot be created.
+         */
+        LINK
+    }
+
+    /**
+     * Creates a new LegacyArchiveImporter that copies images with one thread per processor.
+     *
+     * @param loggerFactory         the factory to create loggers
+     * @param orderRepository       the repository to insert the orders into
+     * @param userRepository        the repository to look up uploaders by username
+     * @param photoStorageDirectory the directory where photos are stored
+     * @param importedBy            the user running the import, who is recorded as the creator of the
+     *                              orders and as the reviewer of reviewed photos
+     */
+    public LegacyArchiveImporter(LoggerFactory loggerFactory, OrderRepository orderRepository,
+                                 UserRepository userRepository, Path photoStorageDirectory, UserBusiness importedBy) {
+        this(loggerFactory, orderRepository, userRepository, photoStorageDirectory, importedBy, ImportMode.COPY,
+                Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a new LegacyArchiveImporter.
+     *
+     * @param loggerFactory         the factory to create loggers
+     * @param orderRepository       the repository to insert the orders into
+     * @param userRepository        the repository to look up uploaders by username
+     * @param photoStorageDirectory the directory where photos are stored
+     * @param importedBy            the user running the import, who is recorded as the creator of the
+     *                              orders and as the reviewer of reviewed photos
+     * @param mode                  how images are put into the photo store
+     * @param threads               the number of threads that parse metadata and copy images
+     * @param batchSize             the number of orders written per batch
+     */
+    public LegacyArchiveImporter(LoggerFactory loggerFactory, OrderRepository orderRepository,
+                                 UserRepository userRepository, Path photoStorageDirectory, UserBusiness importedBy,
+                                 ImportMode mode, int threads, int batchSize) {
+        super(loggerFactory);
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.photoStorageDirectory = photoStorageDirectory;
+        this.importedBy = importedBy;
+        this.mode = mode;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports all orders of an archive that are not listed in the checkpoint file.
+     * Orders that fail to import are reported in the result and not checkpointed, so they are
+     * retried by the next run.
+     *
+     * @param archiveRoot    the root directory of the archive, which holds the year directories
+     * @param checkpointFile the file that lists the imported legacy order numbers; created if missing
+     * @return the result of the import
+     * @throws IOException if the archive cannot be listed or the checkpoint cannot be written
+     */
+    public ImportResult importArchive(Path archiveRoot, Path checkpointFile) throws IOException {
+        cancelled = false;
+        Set<String> done = readCheckpoint(checkpointFile);
+        List<Path> pending = new ArrayList<>();
+        int skipped = 0;
+        for (Path directory : findOrderDirectories(archiveRoot)) {
+            if (done.contains(directory.getFileName().toString())) {
+                skipped++;
+            } else {
+                pending.add(directory);
+            }
+        }
+        Files.createDirectories(photoStorageDirectory);
+        logger.info("Importing {} legacy orders from {}, {} already imported", pending.size(), archiveRoot, skipped);
+
+        long start = System.nanoTime();
+        Map<String, String> failed = new LinkedHashMap<>();
+        Map<OrderNumber, String> claimedNumbers = new ConcurrentHashMap<>();
+        BlockingQueue<Parsed> results = new ArrayBlockingQueue<>(threads * QUEUE_CAPACITY_PER_THREAD);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "legacy-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int importedOrders = 0;
+        int importedPhotos = 0;
+        try (FileChannel checkpoint = FileChannel.open(checkpointFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            for (Path directory : pending) {
+                workers.execute(() -> {
+                    Parsed parsed = parse(directory, claimedNumbers);
+                    try {
+                        results.put(parsed);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            List<Parsed> batch = new ArrayList<>(batchSize);
+            for (int received = 0; received < pending.size() && !cancelled; received++) {
+                Parsed parsed = results.take();
+                if (parsed.order() == null) {
+                    failed.put(parsed.legacyNumber(), parsed.error());
+                    continue;
+                }
+                batch.add(parsed);
+                if (batch.size() == batchSize) {
+                    int[] written = writeBatch(batch, checkpoint, failed);
+                    importedOrders += written[0];
+                    importedPhotos += written[1];
+                    batch.clear();
+                }
+            }
+            int[] written = writeBatch(batch, checkpoint, failed);
+            importedOrders += written[0];
+            importedPhotos += written[1];
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        } finally {
+            workers.shutdownNow();
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Imported {} legacy orders with {} photos in {} ms, {} failed{}", importedOrders,
+                importedPhotos, millis, failed.size(), cancelled ? ", cancelled" : "");
+        return new ImportResult(importedOrders, importedPhotos, skipped, failed, cancelled);
+    }
+
+    /**
+     * Stops a running import after the current batch. Orders that were written stay checkpointed,
+     * so the next run continues where this one stopped.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Translates a legacy order number to the current order number format.
+     *
+     * @param legacyNumber the legacy order number, e.g. {@code ORD-33-230720-PIP-0003}
+     * @return the order number, e.g. {@code 07/23-000033-00000003}
+     * @throws IllegalArgumentException if the legacy order number has an unknown format
+     */
+    public static OrderNumber translateOrderNumber(String legacyNumber) {
+        Matcher matcher = LEGACY_ORDER_NUMBER.matcher(legacyNumber);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Unknown legacy order number format: " + legacyNumber);
+        }
+        return new OrderNumber(matcher.group(3) + "/" + matcher.group(2) + "-" +
+                               String.format("%06d", Integer.parseInt(matcher.group(1))) + "-" +
+                               String.format("%08d", Integer.parseInt(matcher.group(4))));
+    }
+
+    /**
+     * Writes a batch of orders and checkpoints them. If the batch fails, its orders are written one
+     * at a time, so a single bad order does not fail the others.
+     *
+     * @return the number of orders and photos that were inserted
+     */
+    private int[] writeBatch(List<Parsed> batch, FileChannel checkpoint, Map<String, String> failed)
+            throws IOException {
+        if (batch.isEmpty()) {
+            return new int[2];
+        }
+        List<OrderBusiness> inserted = new ArrayList<>();
+        List<Parsed> written = new ArrayList<>();
+        try {
+            inserted.addAll(orderRepository.insertAll(batch.stream().map(Parsed::order).toList()));
+            written.addAll(batch);
+        } catch (RuntimeException e) {
+            logger.warn("Batch of {} legacy orders failed, retrying one at a time: {}", batch.size(),
+                    e.getMessage());
+            for (Parsed parsed : batch) {
+                try {
+                    inserted.addAll(orderRepository.insertAll(List.of(parsed.order())));
+                    written.add(parsed);
+                } catch (RuntimeException orderError) {
+                    failed.put(parsed.legacyNumber(), orderError.getMessage());
+                }
+            }
+        }
+
+        // Orders that were already stored count as done as well, unless another legacy order holds their ID
+        for (Iterator<Parsed> iterator = written.iterator(); iterator.hasNext(); ) {
+            Parsed parsed = iterator.next();
+            if (inserted.contains(parsed.order())) {
+                continue;
+            }
+            String storedBy = orderRepository.findById(parsed.order().getId())
+                    .map(LegacyArchiveImporter::legacyNumberOf)
+                    .orElse(null);
+            if (!legacyNumberOf(parsed.order()).equals(storedBy)) {
+                String error = "Order ID " + parsed.order().getId().id() + " is already used by " +
+                               (storedBy != null ? "legacy order " + storedBy : "an order that was not imported");
+                logger.error("Legacy order {} was not imported: {}", parsed.legacyNumber(), error);
+                failed.put(parsed.legacyNumber(), error);
+                iterator.remove();
+            }
+        }
+
+        StringBuilder lines = new StringBuilder();
+        for (Parsed parsed : written) {
+            lines.append(parsed.legacyNumber()).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            checkpoint.write(buffer);
+        }
+        checkpoint.force(false);
+
+        int photos = 0;
+        for (OrderBusiness order : inserted) {
+            photos += order.getPhotos().size();
+        }
+        return new int[]{inserted.size(), photos};
+    }
+
+    /**
+     * Parses the metadata of an order directory and puts its images into the photo store.
+     * Runs on a worker thread; errors are returned rather than thrown.
+     */
+    private Parsed parse(Path directory, Map<OrderNumber, String> claimedNumbers) {
+        String legacyNumber = directory.getFileName().toString();
+        try {
+            LegacyOrderMetadata metadata = LegacyOrderMetadata.read(directory.resolve(METADATA_FILE));
+            OrderNumber orderNumber = translateOrderNumber(metadata.orderNumber());
+            String claimedBy = claimedNumbers.putIfAbsent(orderNumber, legacyNumber);
+            if (claimedBy != null) {
+                return Parsed.failure(legacyNumber, "Order number " + orderNumber.value() +
+                                                    " is also used by legacy order " + claimedBy);
+            }
+            OrderId orderId = orderId(metadata.orderNumber());
+            Optional<OrderBusiness> stored = orderRepository.findByOrderNumber(orderNumber);
+            if (stored.isPresent() && !stored.get().getId().equals(orderId)) {
+                String storedBy = legacyNumberOf(stored.get());
+                String error = "Order number " + orderNumber.value() + " is already used by " +
+                               (storedBy != null ? "legacy order " + storedBy : "order " + stored.get().getId().id());
+                logger.error("Legacy order {} was not imported: {}", legacyNumber, error);
+                return Parsed.failure(legacyNumber, error);
+            }
+            return new Parsed(legacyNumber, toOrder(directory, metadata, orderId, orderNumber), null);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not import legacy order {}: {}", legacyNumber, e.getMessage());
+            return Parsed.failure(legacyNumber, e.getMessage());
+        }
+    }
+
+    private OrderBusiness toOrder(Path directory, LegacyOrderMetadata metadata, OrderId orderId,
+                                  OrderNumber orderNumber) throws IOException {
+        Timestamp createdAt = new Timestamp(parseDate(metadata.date()));
+        OrderBusiness order = new OrderBusiness(orderId, orderNumber, UserReference.from(importedBy), createdAt);
+        order.setProductDescription(new ProductDescription(
+                metadata.productType() != null ? metadata.productType() : "Unknown product",
+                PRODUCT_SPECIFICATIONS, LEGACY_NUMBER_NOTE + metadata.orderNumber()));
+
+        Set<String> seenFiles = new HashSet<>();
+        for (LegacyOrderMetadata.Image image : metadata.images()) {
+            if (!seenFiles.add(image.filename())) {
+                continue;
+            }
+            Optional<Path> source = findImageFile(directory, image.filename());
+            if (source.isEmpty()) {
+                logger.warn("Image {} of legacy order {} not found, skipping it", image.filename(),
+                        metadata.orderNumber());
+                continue;
+            }
+            PhotoId photoId = photoId(metadata.orderNumber(), image.filename());
+            Photo photo = storeImage(source.get(), order.getId(), photoId);
+            Timestamp uploadedAt = image.uploadedAt() != null
+                                   ? new Timestamp(Instant.parse(image.uploadedAt()))
+                                   : createdAt;
+            PhotoDocument document = PhotoDocument.builder()
+                    .photoId(photoId)
+                    .template(PhotoTemplate.CUSTOM)
+                    .imagePath(photo)
+                    .uploadedBy(findUploader(image.uploadedBy()))
+                    .uploadedAt(uploadedAt)
+                    .imageMetadata(ImageMetadataReader.read(source.get()).orElse(null))
+                    .build();
+            // The archive does not record reviewers or review times
+            if ("approved".equalsIgnoreCase(image.status())) {
+                document.approve(UserReference.from(importedBy), uploadedAt);
+            } else if ("rejected".equalsIgnoreCase(image.status())) {
+                document.reject(UserReference.from(importedBy), uploadedAt, image.rejectionReason());
+            }
+            order.addPhoto(document);
+        }
+        return order;
+    }
+
+    /**
+     * Finds an image of an order directory. The archive may hold the image under another extension
+     * than the metadata names, so a file with the same base name is accepted as well.
+     */
+    private Optional<Path> findImageFile(Path directory, String filename) throws IOException {
+        Path file = directory.resolve(filename);
+        if (Files.isRegularFile(file)) {
+            return Optional.of(file);
+        }
+        String stem = baseName(filename);
+        try (DirectoryStream<Path> candidates = Files.newDirectoryStream(directory, stem + ".*")) {
+            for (Path candidate : candidates) {
+                if (Files.isRegularFile(candidate) && !candidate.getFileName().toString().equals(METADATA_FILE)) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Puts an image into the photo store under a name derived from its IDs. An image that is already
+     * stored, e.g. by an interrupted run, is kept.
+     */
+    private Photo storeImage(Path source, OrderId orderId, PhotoId photoId) throws IOException {
+        String sourceName = source.getFileName().toString();
+        int dot = sourceName.lastIndexOf('.');
+        String fileName = orderId.id() + "_" + photoId.id() + (dot > 0 ? sourceName.substring(dot) : "");
+        Path target = photoStorageDirectory.resolve(fileName);
+        if (!Files.exists(target)) {
+            try {
+                if (mode != ImportMode.LINK || !link(source, target)) {
+                    copy(source, target);
+                }
+            } catch (FileAlreadyExistsException e) {
+                // Stored concurrently by another run
+            }
+        }
+        return new Photo(fileName);
+    }
+
+    /**
+     * Creates a hard link to an image.
+     *
+     * @return true if the link was created, false if the file system cannot link the image
+     */
+    private boolean link(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            return false;
+        }
+    }
+
+    private void copy(Path source, Path target) throws IOException {
+        // Copy to a temporary file first, so an interrupted copy never leaves a partial image behind
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Finds the user with the username the archive records as uploader, or the importing user if
+     * there is no such user.
+     */
+    private UserBusiness findUploader(String username) {
+        if (username == null) {
+            return importedBy;
+        }
+        return uploaders.computeIfAbsent(username, name -> {
+            try {
+                return userRepository.findByUsername(new Username(name)).orElse(importedBy);
+            } catch (IllegalArgumentException e) {
+                return importedBy;
+            }
+        });
+    }
+
+    private static OrderId orderId(String legacyNumber) {
+        return new OrderId(nameUuid("legacy-order:" + legacyNumber));
+    }
+
+    private static PhotoId photoId(String legacyNumber, String filename) {
+        return new PhotoId(nameUuid("legacy-photo:" + legacyNumber + "/" + filename));
+    }
+
+    /**
+     * Reads the legacy order number that an imported order records in its product notes.
+     *
+     * @return the legacy order number, or null if the order was not imported from the archive
+     */
+    private static String legacyNumberOf(OrderBusiness order) {
+        ProductDescription description = order.getProductDescription();
+        if (description == null || description.notes() == null
+            || !description.notes().startsWith(LEGACY_NUMBER_NOTE)) {
+            return null;
+        }
+        return description.notes().substring(LEGACY_NUMBER_NOTE.length());
+    }
+
+    private static String nameUuid(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private static Instant parseDate(String date) {
+        try {
+            return LocalDate.parse(date).atStartOfDay(ZoneOffset.UTC).toInstant();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid order date: " + date, e);
+        }
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private static List<Path> findOrderDirectories(Path archiveRoot) throws IOException {
+        // <root>/yyyy/MM/dd/<order>/metadata.json
+        try (Stream<Path> files = Files.find(archiveRoot, 5, (path, attributes) ->
+                attributes.isRegularFile() && path.getFileName().toString().equals(METADATA_FILE))) {
+            return files.map(Path::getParent).sorted().toList();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Set<String> readCheckpoint(Path checkpointFile) throws IOException {
+        Set<String> done = new HashSet<>();
+        if (Files.exists(checkpointFile)) {
+            for (String line : Files.readAllLines(checkpointFile, StandardCharsets.UTF_8)) {
+                if (!line.isBlank()) {
+                    done.add(line.strip());
+                }
+            }
+        }
+        return done;
+    }
+
+    /**
+     * The outcome of parsing one order directory: either an order or an error.
+     */
+    private record Parsed(String legacyNumber, OrderBusiness order, String error) {
+
+        static Parsed failure(String legacyNumber, String error) {
+            return new Parsed(legacyNumber, null, error != null ? error : "Unknown error");
+        }
+    }
+
+    /**
+     * The result of an import.
+     *
+     * @param importedOrders the number of orders that were inserted
+     * @param importedPhotos the number of photos of the inserted orders
+     * @param skippedOrders  the number of orders skipped because the checkpoint lists them
+     * @param failedOrders   the error per legacy order number of the orders that could not be imported
+     * @param cancelled      whether the import was cancelled before all orders were processed
+     */
+    public record ImportResult(int importedOrders, int importedPhotos, int skippedOrders,
+                               Map<String, String> failedOrders, boolean cancelled) {
+
+        public ImportResult {
+            failedOrders = Map.copyOf(failedOrders);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.belman.service.usecase.photo;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The contents of a {@code metadata.json} file of an order in the legacy photo archive.
+ * Unknown fields are skipped, so newer archive files can still be read.
+ *
+ * @param orderNumber the legacy order number, e.g. {@code ORD-33-230720-PIP-0003}
+ * @param date        the order date as {@code yyyy-MM-dd}
+ * @param productType the product type
+ * @param countryCode the country code of the customer
+ * @param images      the images of the order
+ */
+record LegacyOrderMetadata(String orderNumber, String date, String productType, String countryCode,
+                           List<Image> images) {
+
+    /**
+     * An image entry of the legacy metadata.
+     *
+     * @param filename        the file name of the image in the order directory
+     * @param description     the description of the image
+     * @param uploadedBy      the username of the uploader
+     * @param uploadedAt      the upload time as an ISO-8601 instant
+     * @param status          {@code approved}, {@code rejected} or absent for pending images
+     * @param rejectionReason the rejection reason, if the image was rejected
+     */
+    record Image(String filename, String description, String uploadedBy, String uploadedAt, String status,
+                 String rejectionReason) {
+    }
+
+    /**
+     * Reads a metadata file with a streaming parser.
+     *
+     * @param file the metadata file
+     * @return the metadata
+     * @throws IOException if the file cannot be read or is not valid metadata
+     */
+    static LegacyOrderMetadata read(Path file) throws IOException {
+        try (JsonStreamReader reader = new JsonStreamReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Reads metadata from a character stream.
+     *
+     * @param in the metadata
+     * @return the metadata
+     * @throws IOException if the stream cannot be read or is not valid metadata
+     */
+    static LegacyOrderMetadata read(Reader in) throws IOException {
+        return read(new JsonStreamReader(in));
+    }
+
+    private static LegacyOrderMetadata read(JsonStreamReader reader) throws IOException {
+        String orderNumber = null;
+        String date = null;
+        String productType = null;
+        String countryCode = null;
+        List<Image> images = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "orderNumber" -> orderNumber = reader.nextString();
+                case "date" -> date = reader.nextString();
+                case "productType" -> productType = reader.nextString();
+                case "countryCode" -> countryCode = reader.nextString();
+                case "images" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        images.add(readImage(reader));
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (orderNumber == null || date == null) {
+            throw new IOException("Metadata lacks orderNumber or date");
+        }
+        return new LegacyOrderMetadata(orderNumber, date, productType, countryCode, List.copyOf(images));
+    }
+
+    private static Image readImage(JsonStreamReader reader) throws IOException {
+        String filename = null;
+        String description = null;
+        String uploadedBy = null;
+        String uploadedAt = null;
+        String status = null;
+        String rejectionReason = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "filename" -> filename = reader.nextString();
+                case "description" -> description = reader.nextString();
+                case "uploadedBy" -> uploadedBy = reader.nextString();
+                case "uploadedAt" -> uploadedAt = reader.nextString();
+                case "status" -> status = reader.nextString();
+                case "rejectionReason" -> rejectionReason = reader.nextString();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (filename == null) {
+            throw new IOException("Image entry lacks a filename");
+        }
+        return new Image(filename, description, uploadedBy, uploadedAt, status, rejectionReason);
+    }
+}
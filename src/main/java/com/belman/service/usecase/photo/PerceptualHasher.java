@@ -0,0 +1,77 @@
+package com.belman.service.usecase.photo;
+
+import com.belman.domain.order.photo.PerceptualHash;
+
+/**
+ * Computes the difference hash (dHash) of a photo from its luminance plane.
+ * <p>
+ * The plane is reduced to 9 by 8 cells by averaging, and each bit of the hash records whether a
+ * cell is brighter than its right neighbour. The hash depends on the gradients of the scene
+ * rather than its absolute brightness, so re-encoded, resized or slightly re-exposed copies of a
+ * photo hash to within a few bits of each other.
+ */
+public final class PerceptualHasher {
+
+    private static final int COLUMNS = 9;
+    private static final int ROWS = 8;
+
+    private PerceptualHasher() {
+    }
+
+    /**
+     * Computes the difference hash of an 8-bit luminance plane.
+     *
+     * @param luminance the luminance values, row by row
+     * @param width     the width of the plane, at least 9
+     * @param height    the height of the plane, at least 8
+     * @return the perceptual hash
+     * @throws IllegalArgumentException if the plane is too small or does not match its dimensions
+     */
+    public static PerceptualHash differenceHash(byte[] luminance, int width, int height) {
+        if (width < COLUMNS || height < ROWS || (long) width * height != luminance.length) {
+            throw new IllegalArgumentException("Luminance plane of " + width + "x" + height + " cannot be hashed");
+        }
+
+        long[] cellSums = new long[COLUMNS * ROWS];
+        int[] cellOfColumn = new int[width];
+        for (int x = 0; x < width; x++) {
+            cellOfColumn[x] = (int) ((long) x * COLUMNS / width);
+        }
+        for (int y = 0; y < height; y++) {
+            int cellRow = (int) ((long) y * ROWS / height) * COLUMNS;
+            int index = y * width;
+            for (int x = 0; x < width; x++) {
+                cellSums[cellRow + cellOfColumn[x]] += luminance[index + x] & 0xFF;
+            }
+        }
+
+        // Cells differ in size by at most one pixel per side, so the averages are compared
+        double[] averages = new double[cellSums.length];
+        for (int row = 0; row < ROWS; row++) {
+            long cellHeight = cellEnd(row, ROWS, height) - cellEnd(row - 1, ROWS, height);
+            for (int column = 0; column < COLUMNS; column++) {
+                long cellWidth = cellEnd(column, COLUMNS, width) - cellEnd(column - 1, COLUMNS, width);
+                averages[row * COLUMNS + column] = (double) cellSums[row * COLUMNS + column] / (cellWidth * cellHeight);
+            }
+        }
+
+        long bits = 0;
+        for (int row = 0; row < ROWS; row++) {
+            for (int column = 0; column < COLUMNS - 1; column++) {
+                bits <<= 1;
+                if (averages[row * COLUMNS + column] > averages[row * COLUMNS + column + 1]) {
+                    bits |= 1;
+                }
+            }
+        }
+        return new PerceptualHash(bits);
+    }
+
+    /**
+     * Gets the first pixel after a cell; cell {@code i} covers the pixels {@code p} with
+     * {@code p * cells / size == i}.
+     */
+    private static long cellEnd(int cell, int cells, int size) {
+        return cell < 0 ? 0 : ((long) (cell + 1) * size + cells - 1) / cells;
+    }
+}
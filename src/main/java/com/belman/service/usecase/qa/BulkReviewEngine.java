@@ -0,0 +1,183 @@
+package com.belman.service.usecase.qa;
+
+import com.belman.domain.audit.AuditFacade;
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.order.photo.events.PhotoApprovedEvent;
+import com.belman.domain.order.photo.events.PhotoRejectedEvent;
+import com.belman.domain.order.photo.events.PhotosReviewedEvent;
+import com.belman.domain.order.photo.services.PhotoApprovalService.PhotoApprovalException;
+import com.belman.domain.order.photo.services.PhotoApprovalService.PhotoEventPublisher;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserReference;
+import com.belman.service.base.BaseService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Approves or rejects many photos in one pass.
+ * <p>
+ * The photo IDs are grouped by order, and each order is loaded and saved once with all of its
+ * review transitions applied. After an order is saved, a single {@link PhotosReviewedEvent} is
+ * published for it. The per-photo audit records of all orders are written with one
+ * {@link AuditFacade#logBatch(List)} call at the end.
+ * <p>
+ * Photos that are unknown or no longer pending are skipped and not counted. If saving an order
+ * fails, none of its photos are counted, published or audited, and the remaining orders are
+ * still processed.
+ */
+public class BulkReviewEngine extends BaseService {
+
+    private final PhotoRepository photoRepository;
+    private final OrderRepository orderRepository;
+    private final AuditFacade auditFacade;
+    private final PhotoEventPublisher eventPublisher;
+
+    /**
+     * Creates a new BulkReviewEngine.
+     *
+     * @param photoRepository the repository used to find the orders of the photos
+     * @param orderRepository the repository the reviewed orders are loaded from and saved to
+     * @param auditFacade     the facade for logging audit events
+     * @param eventPublisher  the publisher for review events
+     * @param loggerFactory   the factory to create loggers
+     */
+    public BulkReviewEngine(PhotoRepository photoRepository, OrderRepository orderRepository,
+                            AuditFacade auditFacade, PhotoEventPublisher eventPublisher,
+                            LoggerFactory loggerFactory) {
+        super(loggerFactory);
+        this.photoRepository = Objects.requireNonNull(photoRepository, "photoRepository must not be null");
+        this.orderRepository = Objects.requireNonNull(orderRepository, "orderRepository must not be null");
+        this.auditFacade = Objects.requireNonNull(auditFacade, "auditFacade must not be null");
+        this.eventPublisher = Objects.requireNonNull(eventPublisher, "eventPublisher must not be null");
+    }
+
+    /**
+     * Approves the pending photos among the given IDs.
+     *
+     * @param photoIds   the IDs of the photos to approve
+     * @param approvedBy the user who approved the photos
+     * @return the number of photos that were approved
+     */
+    public int approve(List<PhotoId> photoIds, UserBusiness approvedBy) {
+        return review(photoIds, approvedBy, PhotoDocument.ApprovalStatus.APPROVED, null);
+    }
+
+    /**
+     * Rejects the pending photos among the given IDs.
+     *
+     * @param photoIds   the IDs of the photos to reject
+     * @param rejectedBy the user who rejected the photos
+     * @param reason     the reason for rejection
+     * @return the number of photos that were rejected
+     * @throws PhotoApprovalException if the reason is empty
+     */
+    public int reject(List<PhotoId> photoIds, UserBusiness rejectedBy, String reason) {
+        Objects.requireNonNull(reason, "Rejection reason must not be null");
+        if (reason.trim().isEmpty()) {
+            throw new PhotoApprovalException("Rejection reason cannot be empty.");
+        }
+        return review(photoIds, rejectedBy, PhotoDocument.ApprovalStatus.REJECTED, reason);
+    }
+
+    private int review(List<PhotoId> photoIds, UserBusiness reviewer, PhotoDocument.ApprovalStatus outcome,
+                       String reason) {
+        Objects.requireNonNull(photoIds, "photoIds must not be null");
+        Objects.requireNonNull(reviewer, "reviewer must not be null");
+
+        Map<OrderId, Set<PhotoId>> photoIdsByOrder = groupByOrder(photoIds);
+        UserReference reviewerReference = UserReference.from(reviewer);
+        Timestamp reviewedAt = Timestamp.now();
+        List<AuditEvent> auditEvents = new ArrayList<>();
+        int reviewed = 0;
+
+        for (Map.Entry<OrderId, Set<PhotoId>> entry : photoIdsByOrder.entrySet()) {
+            OrderId orderId = entry.getKey();
+            Optional<OrderBusiness> order = orderRepository.findById(orderId);
+            if (order.isEmpty()) {
+                logger.warn("Order {} not found, skipping {} photos", orderId, entry.getValue().size());
+                continue;
+            }
+
+            List<PhotoId> changed = new ArrayList<>();
+            List<AuditEvent> orderAuditEvents = new ArrayList<>();
+            for (PhotoDocument photo : order.get().getPhotos()) {
+                if (!entry.getValue().contains(photo.getPhotoId())) {
+                    continue;
+                }
+                if (!photo.isPending()) {
+                    logger.debug("Photo {} is already {}, skipping", photo.getPhotoId(), photo.getStatus());
+                    continue;
+                }
+                changed.add(photo.getPhotoId());
+            }
+
+            for (PhotoId photoId : changed) {
+                if (outcome == PhotoDocument.ApprovalStatus.APPROVED) {
+                    order.get().approvePhoto(photoId, reviewerReference, reviewedAt);
+                    orderAuditEvents.add(new PhotoApprovedEvent(photoId, orderId));
+                } else {
+                    order.get().rejectPhoto(photoId, reviewerReference, reviewedAt, reason);
+                    orderAuditEvents.add(new PhotoRejectedEvent(photoId, orderId, reason));
+                }
+            }
+
+            if (changed.isEmpty()) {
+                continue;
+            }
+
+            try {
+                orderRepository.save(order.get());
+            } catch (RuntimeException e) {
+                logger.error("Failed to save review of order " + orderId, e);
+                continue;
+            }
+
+            eventPublisher.publish(new PhotosReviewedEvent(orderId, changed, outcome, reviewer.getId(), reason));
+            auditEvents.addAll(orderAuditEvents);
+            reviewed += changed.size();
+        }
+
+        auditFacade.logBatch(auditEvents);
+        logger.info("Reviewed {} of {} photos as {} across {} orders",
+                reviewed, photoIds.size(), outcome, photoIdsByOrder.size());
+        return reviewed;
+    }
+
+    private Map<OrderId, Set<PhotoId>> groupByOrder(List<PhotoId> photoIds) {
+        Set<PhotoId> requested = new LinkedHashSet<>(photoIds);
+        // One batched lookup instead of one query per photo
+        Map<PhotoId, OrderId> orderIdsByPhoto = new HashMap<>();
+        for (PhotoDocument photo : photoRepository.findByIds(requested)) {
+            if (photo.getOrderId() != null) {
+                orderIdsByPhoto.put(photo.getPhotoId(), photo.getOrderId());
+            }
+        }
+
+        Map<OrderId, Set<PhotoId>> photoIdsByOrder = new LinkedHashMap<>();
+        for (PhotoId photoId : requested) {
+            OrderId orderId = orderIdsByPhoto.get(photoId);
+            if (orderId == null) {
+                logger.debug("Photo {} not found or not assigned to an order, skipping", photoId);
+                continue;
+            }
+            photoIdsByOrder.computeIfAbsent(orderId, id -> new LinkedHashSet<>()).add(photoId);
+        }
+        return photoIdsByOrder;
+    }
+}
@@ -0,0 +1,128 @@
+package com.belman.service.usecase.qa;
+
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.domain.user.UserBusiness;
+import com.belman.service.base.BaseService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Default implementation of the QAService interface.
+ * <p>
+ * The photo lists are read from the {@link ReviewQueueProjection}, and only the listed photos
+ * are loaded from the photo repository, in one batched lookup. Approvals and rejections, single or bulk,
+ * go through the {@link BulkReviewEngine}, so reviewing many photos saves each order once.
+ */
+public class DefaultQAService extends BaseService implements QAService {
+
+    private final PhotoRepository photoRepository;
+    private final BulkReviewEngine reviewEngine;
+    private final ReviewQueueProjection reviewQueue;
+
+    /**
+     * Creates a new DefaultQAService.
+     *
+     * @param photoRepository the repository for querying photos
+     * @param reviewEngine    the engine that applies and stores reviews
+     * @param reviewQueue     the projection the photo lists are read from
+     * @param loggerFactory   the factory to create loggers
+     */
+    public DefaultQAService(PhotoRepository photoRepository, BulkReviewEngine reviewEngine,
+                            ReviewQueueProjection reviewQueue, LoggerFactory loggerFactory) {
+        super(loggerFactory);
+        this.photoRepository = Objects.requireNonNull(photoRepository, "photoRepository must not be null");
+        this.reviewEngine = Objects.requireNonNull(reviewEngine, "reviewEngine must not be null");
+        this.reviewQueue = Objects.requireNonNull(reviewQueue, "reviewQueue must not be null");
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The photos are listed least sharp first, so photos that likely need retaking are reviewed first.
+     */
+    @Override
+    public List<PhotoDocument> getPendingReviewPhotos() {
+        return resolve(reviewQueue.pageBySharpness(PhotoDocument.ApprovalStatus.PENDING, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<PhotoDocument> getPendingReviewPhotosByOrderId(OrderId orderId) {
+        return resolve(reviewQueue.page(PhotoDocument.ApprovalStatus.PENDING, orderId, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<PhotoDocument> getApprovedPhotos() {
+        return resolve(reviewQueue.page(PhotoDocument.ApprovalStatus.APPROVED, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<PhotoDocument> getApprovedPhotosByOrderId(OrderId orderId) {
+        return resolve(reviewQueue.page(PhotoDocument.ApprovalStatus.APPROVED, orderId, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<PhotoDocument> getRejectedPhotos() {
+        return resolve(reviewQueue.page(PhotoDocument.ApprovalStatus.REJECTED, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public List<PhotoDocument> getRejectedPhotosByOrderId(OrderId orderId) {
+        return resolve(reviewQueue.page(PhotoDocument.ApprovalStatus.REJECTED, orderId, null, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public boolean approvePhoto(PhotoId photoId, UserBusiness approvedBy) {
+        return approvePhotos(List.of(photoId), approvedBy) == 1;
+    }
+
+    @Override
+    public int approvePhotos(List<PhotoId> photoIds, UserBusiness approvedBy) {
+        return reviewEngine.approve(photoIds, approvedBy);
+    }
+
+    @Override
+    public boolean rejectPhoto(PhotoId photoId, UserBusiness rejectedBy, String reason) {
+        return rejectPhotos(List.of(photoId), rejectedBy, reason) == 1;
+    }
+
+    @Override
+    public int rejectPhotos(List<PhotoId> photoIds, UserBusiness rejectedBy, String reason) {
+        return reviewEngine.reject(photoIds, rejectedBy, reason);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Photo documents only store a review comment as part of a rejection, so this always returns false.
+     */
+    @Override
+    public boolean addComment(PhotoId photoId, String comment, UserBusiness commentedBy) {
+        logger.warn("Comments outside of a rejection are not supported, ignoring comment on photo {}", photoId);
+        return false;
+    }
+
+    private List<PhotoDocument> resolve(List<ReviewQueueProjection.Entry> entries) {
+        List<PhotoId> photoIds = entries.stream().map(ReviewQueueProjection.Entry::photoId).toList();
+        Map<PhotoId, PhotoDocument> photosById = new HashMap<>();
+        for (PhotoDocument photo : photoRepository.findByIds(photoIds)) {
+            photosById.put(photo.getPhotoId(), photo);
+        }
+        // Keep the order of the review queue
+        List<PhotoDocument> photos = new ArrayList<>(entries.size());
+        for (ReviewQueueProjection.Entry entry : entries) {
+            PhotoDocument photo = photosById.get(entry.photoId());
+            if (photo != null) {
+                photos.add(photo);
+            }
+        }
+        return photos;
+    }
+}
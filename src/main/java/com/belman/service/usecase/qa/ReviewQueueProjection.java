@@ -0,0 +1,354 @@
+package com.belman.service.usecase.qa;
+
+import com.belman.domain.event.BusinessEventPublisher;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.order.photo.events.PhotoApprovedEvent;
+import com.belman.domain.order.photo.events.PhotoRejectedEvent;
+import com.belman.domain.order.photo.events.PhotoUploadedEvent;
+import com.belman.domain.order.photo.events.PhotosReviewedEvent;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.service.base.BaseService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read model of the QA review queue: which photos are pending, approved or rejected, per order.
+ * <p>
+ * The projection is built once from the photo repository and then kept current by the photo
+ * upload and review events, so the QA screens never scan all orders or photos. Photos are kept
+ * in sorted sets keyed by status and by status and order, ordered by upload time. Counts are
+ * the sizes of those sets, and pages are read with a keyset cursor (the last photo of the
+ * previous page), so neither depends on the size of the queue.
+ * <p>
+ * Each status also keeps its photos ordered by the sharpness score of the upload pre-screen,
+ * least sharp first and unscored photos last, so reviewers can deal with likely rejects first.
+ */
+public class ReviewQueueProjection extends BaseService {
+
+    private static final Comparator<Entry> QUEUE_ORDER = Comparator
+            .comparing(Entry::uploadedAt)
+            .thenComparing(entry -> entry.photoId().id());
+
+    private static final Comparator<Entry> SHARPNESS_ORDER = Comparator
+            .comparingDouble((Entry entry) -> entry.qualityScore() != null
+                    ? entry.qualityScore().sharpness()
+                    : Double.POSITIVE_INFINITY)
+            .thenComparing(QUEUE_ORDER);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<PhotoId, Entry> entries = new HashMap<>();
+    private final Map<PhotoDocument.ApprovalStatus, NavigableSet<Entry>> byStatus =
+            new EnumMap<>(PhotoDocument.ApprovalStatus.class);
+    private final Map<PhotoDocument.ApprovalStatus, NavigableSet<Entry>> byStatusAndSharpness =
+            new EnumMap<>(PhotoDocument.ApprovalStatus.class);
+    private final Map<PhotoDocument.ApprovalStatus, Map<OrderId, NavigableSet<Entry>>> byStatusAndOrder =
+            new EnumMap<>(PhotoDocument.ApprovalStatus.class);
+
+    /**
+     * Creates a new, empty ReviewQueueProjection.
+     *
+     * @param loggerFactory the factory to create loggers
+     */
+    public ReviewQueueProjection(LoggerFactory loggerFactory) {
+        super(loggerFactory);
+        for (PhotoDocument.ApprovalStatus status : PhotoDocument.ApprovalStatus.values()) {
+            byStatus.put(status, new TreeSet<>(QUEUE_ORDER));
+            byStatusAndSharpness.put(status, new TreeSet<>(SHARPNESS_ORDER));
+            byStatusAndOrder.put(status, new HashMap<>());
+        }
+    }
+
+    /**
+     * Subscribes this projection to the photo upload and review events.
+     *
+     * @param publisher the publisher the events are published on
+     */
+    public void subscribe(BusinessEventPublisher publisher) {
+        publisher.register(PhotoUploadedEvent.class,
+                event -> add(event.getPhotoId(), event.getOrderId(), event.getUploadedAt(), event.getQualityScore()));
+        publisher.register(PhotoApprovedEvent.class,
+                event -> move(event.getPhotoId(), PhotoDocument.ApprovalStatus.APPROVED));
+        publisher.register(PhotoRejectedEvent.class,
+                event -> move(event.getPhotoId(), PhotoDocument.ApprovalStatus.REJECTED));
+        publisher.register(PhotosReviewedEvent.class,
+                event -> event.getPhotoIds().forEach(photoId -> move(photoId, event.getOutcome())));
+    }
+
+    /**
+     * Replaces the contents of this projection with the photos in the repository.
+     *
+     * @param photoRepository the repository to read all photos from
+     */
+    public void rebuild(PhotoRepository photoRepository) {
+        rebuild(photoRepository.findAll());
+    }
+
+    /**
+     * Replaces the contents of this projection with the given photos.
+     * Photos that are not assigned to an order are ignored.
+     *
+     * @param photos the photos
+     */
+    public void rebuild(Collection<PhotoDocument> photos) {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            byStatus.values().forEach(NavigableSet::clear);
+            byStatusAndSharpness.values().forEach(NavigableSet::clear);
+            byStatusAndOrder.values().forEach(Map::clear);
+            for (PhotoDocument photo : photos) {
+                if (photo.getOrderId() != null) {
+                    insert(new Entry(photo.getPhotoId(), photo.getOrderId(),
+                            photo.getUploadedAt().toInstant(), photo.getStatus(), photo.getQualityScore()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Review queue rebuilt with {} photos, {} pending",
+                photos.size(), count(PhotoDocument.ApprovalStatus.PENDING));
+    }
+
+    /**
+     * Adds a newly uploaded photo as pending. Adding a photo that is already known has no effect.
+     *
+     * @param photoId    the ID of the photo
+     * @param orderId    the ID of the order the photo belongs to
+     * @param uploadedAt the time the photo was uploaded
+     */
+    public void add(PhotoId photoId, OrderId orderId, Instant uploadedAt) {
+        add(photoId, orderId, uploadedAt, null);
+    }
+
+    /**
+     * Adds a newly uploaded photo with its pre-screen scores as pending.
+     * Adding a photo that is already known has no effect.
+     *
+     * @param photoId      the ID of the photo
+     * @param orderId      the ID of the order the photo belongs to
+     * @param uploadedAt   the time the photo was uploaded
+     * @param qualityScore the pre-screen scores of the photo, or null if it was not scored
+     */
+    public void add(PhotoId photoId, OrderId orderId, Instant uploadedAt, ImageQualityScore qualityScore) {
+        lock.writeLock().lock();
+        try {
+            if (!entries.containsKey(photoId)) {
+                insert(new Entry(photoId, orderId, uploadedAt, PhotoDocument.ApprovalStatus.PENDING, qualityScore));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Moves a photo to another status. Unknown photos are ignored.
+     *
+     * @param photoId the ID of the photo
+     * @param status  the new status
+     */
+    public void move(PhotoId photoId, PhotoDocument.ApprovalStatus status) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(photoId);
+            if (entry == null) {
+                logger.debug("Photo {} is not in the review queue, ignoring move to {}", photoId, status);
+                return;
+            }
+            if (entry.status() != status) {
+                remove(entry);
+                insert(new Entry(entry.photoId(), entry.orderId(), entry.uploadedAt(), status,
+                        entry.qualityScore()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of photos with a status.
+     *
+     * @param status the status
+     * @return the number of photos
+     */
+    public int count(PhotoDocument.ApprovalStatus status) {
+        lock.readLock().lock();
+        try {
+            return byStatus.get(status).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of photos of an order with a status.
+     *
+     * @param status  the status
+     * @param orderId the ID of the order
+     * @return the number of photos
+     */
+    public int count(PhotoDocument.ApprovalStatus status, OrderId orderId) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> orderEntries = byStatusAndOrder.get(status).get(orderId);
+            return orderEntries != null ? orderEntries.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a page of photos with a status, oldest upload first.
+     *
+     * @param status the status
+     * @param after  the last photo of the previous page, or null for the first page
+     * @param limit  the maximum number of photos to return
+     * @return the photos of the page
+     */
+    public List<Entry> page(PhotoDocument.ApprovalStatus status, PhotoId after, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(byStatus.get(status), after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a page of the photos of an order with a status, oldest upload first.
+     *
+     * @param status  the status
+     * @param orderId the ID of the order
+     * @param after   the last photo of the previous page, or null for the first page
+     * @param limit   the maximum number of photos to return
+     * @return the photos of the page
+     */
+    public List<Entry> page(PhotoDocument.ApprovalStatus status, OrderId orderId, PhotoId after, int limit) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> orderEntries = byStatusAndOrder.get(status).get(orderId);
+            return orderEntries != null ? page(orderEntries, after, limit) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a page of photos with a status, least sharp first. Photos without a pre-screen score
+     * come last, oldest upload first.
+     *
+     * @param status the status
+     * @param after  the last photo of the previous page, or null for the first page
+     * @param limit  the maximum number of photos to return
+     * @return the photos of the page
+     */
+    public List<Entry> pageBySharpness(PhotoDocument.ApprovalStatus status, PhotoId after, int limit) {
+        lock.readLock().lock();
+        try {
+            return page(byStatusAndSharpness.get(status), after, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the orders that have photos with a status, ordered by their oldest such photo.
+     *
+     * @param status the status
+     * @return the order IDs
+     */
+    public List<OrderId> getOrderIds(PhotoDocument.ApprovalStatus status) {
+        lock.readLock().lock();
+        try {
+            return byStatusAndOrder.get(status).values().stream()
+                    .map(NavigableSet::first)
+                    .sorted(QUEUE_ORDER)
+                    .map(Entry::orderId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Entry> page(NavigableSet<Entry> source, PhotoId after, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        NavigableSet<Entry> remaining = source;
+        if (after != null) {
+            Entry cursor = entries.get(after);
+            if (cursor == null) {
+                return List.of();
+            }
+            // The cursor may have moved to another status since; its sort key is unchanged
+            remaining = source.tailSet(cursor, false);
+        }
+
+        List<Entry> result = new ArrayList<>(Math.min(limit, remaining.size()));
+        for (Entry entry : remaining) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private void insert(Entry entry) {
+        entries.put(entry.photoId(), entry);
+        byStatus.get(entry.status()).add(entry);
+        byStatusAndSharpness.get(entry.status()).add(entry);
+        byStatusAndOrder.get(entry.status())
+                .computeIfAbsent(entry.orderId(), id -> new TreeSet<>(QUEUE_ORDER))
+                .add(entry);
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.photoId());
+        byStatus.get(entry.status()).remove(entry);
+        byStatusAndSharpness.get(entry.status()).remove(entry);
+        Map<OrderId, NavigableSet<Entry>> orders = byStatusAndOrder.get(entry.status());
+        NavigableSet<Entry> orderEntries = orders.get(entry.orderId());
+        if (orderEntries != null) {
+            orderEntries.remove(entry);
+            if (orderEntries.isEmpty()) {
+                orders.remove(entry.orderId());
+            }
+        }
+    }
+
+    /**
+     * A photo in the review queue.
+     *
+     * @param photoId      the ID of the photo
+     * @param orderId      the ID of the order the photo belongs to
+     * @param uploadedAt   the time the photo was uploaded
+     * @param status       the review status of the photo
+     * @param qualityScore the pre-screen scores of the photo, or null if it was not scored
+     */
+    public record Entry(PhotoId photoId, OrderId orderId, Instant uploadedAt, PhotoDocument.ApprovalStatus status,
+                        ImageQualityScore qualityScore) {
+        public Entry {
+            Objects.requireNonNull(photoId, "photoId must not be null");
+            Objects.requireNonNull(orderId, "orderId must not be null");
+            Objects.requireNonNull(uploadedAt, "uploadedAt must not be null");
+            Objects.requireNonNull(status, "status must not be null");
+        }
+    }
+}
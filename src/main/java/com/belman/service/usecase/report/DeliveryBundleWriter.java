@@ -0,0 +1,234 @@
+package com.belman.service.usecase.report;
+
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.service.base.BaseService;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Writes the delivery bundle of an order: a ZIP archive with the PDF report, the approved photos
+ * in full resolution and a manifest with their SHA-256 checksums.
+ * <p>
+ * The bundle is streamed, so its size is not limited by the heap. Each file is read once to
+ * compute its checksums and then copied into the archive by the operating system with a channel
+ * transfer. Photos and PDF reports are already compressed, so they are stored without compression;
+ * only the manifest is deflated. The manifest uses the {@code sha256sum} format, so customers can
+ * verify the bundle with {@code sha256sum -c manifest.sha256}.
+ * <p>
+ * {@link #deliver} writes the bundle of an approved order and then marks the order as delivered,
+ * so an order is only delivered once its complete bundle exists.
+ */
+public class DeliveryBundleWriter extends BaseService {
+
+    public static final String REPORT_ENTRY = "report.pdf";
+    public static final String MANIFEST_ENTRY = "manifest.sha256";
+    public static final String PHOTO_DIRECTORY = "photos/";
+
+    private static final int CHECKSUM_BUFFER_SIZE = 256 * 1024;
+
+    private final Path photoStorageDirectory;
+    private final OrderRepository orderRepository;
+
+    /**
+     * Creates a new DeliveryBundleWriter that only writes bundles and cannot deliver orders.
+     *
+     * @param loggerFactory         the factory to create loggers
+     * @param photoStorageDirectory the directory where photos are stored
+     */
+    public DeliveryBundleWriter(LoggerFactory loggerFactory, Path photoStorageDirectory) {
+        this(loggerFactory, photoStorageDirectory, null);
+    }
+
+    /**
+     * Creates a new DeliveryBundleWriter.
+     *
+     * @param loggerFactory         the factory to create loggers
+     * @param photoStorageDirectory the directory where photos are stored
+     * @param orderRepository       the repository to save delivered orders in
+     */
+    public DeliveryBundleWriter(LoggerFactory loggerFactory, Path photoStorageDirectory,
+                                OrderRepository orderRepository) {
+        super(loggerFactory);
+        this.photoStorageDirectory = photoStorageDirectory;
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Delivers an approved order: writes its bundle to a file, marks the order as delivered and
+     * saves it. If the order cannot be saved, the bundle is deleted and the order stays approved.
+     *
+     * @param order  the order, which must be approved
+     * @param report the PDF report of the order, or null to bundle only the photos
+     * @param target the file to write the bundle to; replaced if it exists
+     * @return the result of writing the bundle
+     * @throws IOException           if a file cannot be read or the bundle cannot be written
+     * @throws IllegalStateException if the order is not approved, or this writer has no order repository
+     */
+    public BundleResult deliver(OrderBusiness order, Path report, Path target) throws IOException {
+        if (orderRepository == null) {
+            throw new IllegalStateException("No order repository to save the delivered order in");
+        }
+        if (order.getStatus() != OrderStatus.APPROVED) {
+            throw new IllegalStateException("Cannot deliver an order with status: " + order.getStatus());
+        }
+        BundleResult result = write(order, report, target);
+        order.deliver();
+        try {
+            orderRepository.save(order);
+        } catch (RuntimeException e) {
+            order.setStatus(OrderStatus.APPROVED);
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        logger.info("Order {} delivered with bundle {}", order.getId().id(), target);
+        return result;
+    }
+
+    /**
+     * Writes the delivery bundle of an order to a file. The bundle is written to a temporary file
+     * next to the target first, so the target never holds a partial bundle.
+     *
+     * @param order  the order, which must be approved or delivered
+     * @param report the PDF report of the order, or null to bundle only the photos
+     * @param target the file to write the bundle to; replaced if it exists
+     * @return the result of writing the bundle
+     * @throws IOException           if a file cannot be read or the bundle cannot be written
+     * @throws IllegalStateException if the order is not approved or delivered
+     */
+    public BundleResult write(OrderBusiness order, Path report, Path target) throws IOException {
+        checkDeliverable(order);
+        Path temp = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            BundleResult result;
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                result = write(order, report, out);
+                out.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams the delivery bundle of an order to a channel, such as a socket. The channel is not
+     * closed. If writing fails, the archive is abandoned without a central directory, so the
+     * receiver cannot mistake the partial bundle for a complete one.
+     *
+     * @param order  the order, which must be approved or delivered
+     * @param report the PDF report of the order, or null to bundle only the photos
+     * @param out    the channel to write the bundle to, which must be in blocking mode
+     * @return the result of writing the bundle
+     * @throws IOException           if a file cannot be read or the bundle cannot be written
+     * @throws IllegalStateException if the order is not approved or delivered
+     */
+    public BundleResult write(OrderBusiness order, Path report, WritableByteChannel out) throws IOException {
+        checkDeliverable(order);
+        List<PhotoDocument> photos = order.getApprovedPhotos();
+        StringBuilder manifest = new StringBuilder();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        long contentBytes = 0;
+
+        try (StreamingZipWriter zip = new StreamingZipWriter(out, LocalDateTime.now())) {
+            if (report != null) {
+                contentBytes += addFile(zip, REPORT_ENTRY, report, manifest, buffer);
+            }
+            for (int i = 0; i < photos.size(); i++) {
+                PhotoDocument photo = photos.get(i);
+                Path file = photoStorageDirectory.resolve(Paths.get(photo.getImagePath().value()));
+                contentBytes += addFile(zip, photoEntryName(i, photo), file, manifest, buffer);
+            }
+            zip.addDeflated(MANIFEST_ENTRY, manifest.toString().getBytes(StandardCharsets.UTF_8));
+            zip.finish(order.getOrderNumber() != null ? "Order " + order.getOrderNumber().value() : null);
+
+            logger.info("Delivery bundle for order {} written: {} photos, {} bytes", order.getId().id(),
+                    photos.size(), zip.getBytesWritten());
+            return new BundleResult(photos.size(), contentBytes, zip.getBytesWritten());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Delivery bundle for order {} abandoned: {}", order.getId().id(), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Adds a file to the bundle and its checksum to the manifest.
+     *
+     * @return the size of the file
+     */
+    private long addFile(StreamingZipWriter zip, String name, Path file, StringBuilder manifest, ByteBuffer buffer)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        MessageDigest sha256 = newSha256();
+        long size = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                size += buffer.remaining();
+                crc.update(buffer.duplicate());
+                sha256.update(buffer);
+                buffer.clear();
+            }
+        }
+        zip.addStoredFile(name, file, size, crc.getValue());
+        manifest.append(HexFormat.of().formatHex(sha256.digest())).append("  ").append(name).append('\n');
+        return size;
+    }
+
+    private static String photoEntryName(int index, PhotoDocument photo) {
+        String path = photo.getImagePath().value();
+        int dot = path.lastIndexOf('.');
+        String extension = dot > Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'))
+                           ? path.substring(dot).toLowerCase(Locale.ROOT)
+                           : "";
+        String template = photo.getTemplate().name().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_]+", "-");
+        return String.format("%s%03d-%s%s", PHOTO_DIRECTORY, index + 1, template, extension);
+    }
+
+    private static void checkDeliverable(OrderBusiness order) {
+        if (order.getStatus() != OrderStatus.APPROVED && order.getStatus() != OrderStatus.DELIVERED) {
+            throw new IllegalStateException("Cannot bundle an order with status: " + order.getStatus());
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * The result of writing a delivery bundle.
+     *
+     * @param photoCount   the number of photos in the bundle
+     * @param contentBytes the total size of the bundled files
+     * @param bundleBytes  the size of the bundle
+     */
+    public record BundleResult(int photoCount, long contentBytes, long bundleBytes) {
+    }
+}
@@ -62,13 +62,14 @@ public interface ReportService {
 
     /**
      * Sends a report to a recipient.
+     * The report is queued for delivery, so this does not wait for the mail server.
      *
      * @param reportId       the ID of the report to send
      * @param recipientEmail the email address of the recipient
      * @param subject        the subject of the email
      * @param message        the message body of the email
      * @param sentBy         the user who sent the report
-     * @return true if the report was sent, false if the report was not found
+     * @return true if the report was queued for sending, false if the report was not found
      */
     boolean sendReport(ReportId reportId, String recipientEmail, String subject, String message, UserBusiness sentBy);
 
@@ -0,0 +1,290 @@
+package com.belman.service.usecase.report;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a ZIP archive sequentially to a channel, without seeking back and without buffering
+ * entry data in the heap.
+ * <p>
+ * File entries are stored uncompressed and copied with {@link FileChannel#transferTo}, which lets
+ * the operating system copy the data directly to the target file or socket. Because the checksum
+ * and size of a stored entry must precede its data, the caller computes the CRC first, typically
+ * in the same pass that computes a manifest checksum. Small in-memory entries may be deflated.
+ * ZIP64 records are written where sizes, offsets or the entry count exceed the classic limits.
+ * <p>
+ * The central directory is only written by {@link #finish}. Closing a writer that was not
+ * finished abandons the archive: without a central directory, readers reject the partial archive
+ * instead of reading the entries that happened to be written before an error.
+ */
+final class StreamingZipWriter implements Closeable {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final short ZIP64_EXTRA = 0x0001;
+
+    private static final short VERSION = 20;
+    private static final short VERSION_ZIP64 = 45;
+    private static final short FLAG_UTF8 = 0x0800;
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    private static final int MAX_16 = 0xFFFF;
+
+    private final WritableByteChannel out;
+    private final ByteBuffer header = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    private final List<Entry> entries = new ArrayList<>();
+    private final int dosTime;
+    private final int dosDate;
+    private long position;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Creates a writer that writes to a channel. The channel is not closed by this writer.
+     *
+     * @param out      the channel to write to, which must be in blocking mode
+     * @param modified the modification time recorded for all entries
+     */
+    StreamingZipWriter(WritableByteChannel out, LocalDateTime modified) {
+        this.out = out;
+        LocalDateTime time = modified.getYear() < 1980 ? LocalDateTime.of(1980, 1, 1, 0, 0) : modified;
+        this.dosTime = (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() >> 1);
+        this.dosDate = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5) | time.getDayOfMonth();
+    }
+
+    /**
+     * Adds a file as a stored entry.
+     *
+     * @param name the name of the entry
+     * @param file the file to add
+     * @param size the size of the file when its CRC was computed
+     * @param crc  the CRC-32 of the file content
+     * @throws IOException if the file cannot be read, changed size, or the entry cannot be written
+     */
+    void addStoredFile(String name, Path file, long size, long crc) throws IOException {
+        Entry entry = new Entry(name, STORED, crc, size, size, position);
+        writeLocalHeader(entry);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            long copied = 0;
+            while (copied < size) {
+                long transferred = in.transferTo(copied, size - copied, out);
+                if (transferred <= 0 && copied >= in.size()) {
+                    break;
+                }
+                copied += transferred;
+            }
+            if (copied != size || in.size() != size) {
+                throw new IOException("File changed while it was added to the archive: " + file);
+            }
+        }
+        position += size;
+        entries.add(entry);
+    }
+
+    /**
+     * Adds an in-memory entry, compressed with deflate.
+     *
+     * @param name    the name of the entry
+     * @param content the content of the entry
+     * @throws IOException if the entry cannot be written
+     */
+    void addDeflated(String name, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        byte[] compressed;
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            ByteBuffer buffer = ByteBuffer.allocate(content.length + content.length / 1000 + 64);
+            while (!deflater.finished()) {
+                if (!buffer.hasRemaining()) {
+                    buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+                }
+                deflater.deflate(buffer);
+            }
+            compressed = new byte[buffer.position()];
+            buffer.flip().get(compressed);
+        } finally {
+            deflater.end();
+        }
+
+        Entry entry = new Entry(name, DEFLATED, crc.getValue(), compressed.length, content.length, position);
+        writeLocalHeader(entry);
+        write(ByteBuffer.wrap(compressed));
+        entries.add(entry);
+    }
+
+    /**
+     * Writes the central directory. No entries can be added afterwards.
+     *
+     * @param comment the archive comment, or null for none
+     * @throws IOException           if the central directory cannot be written
+     * @throws IllegalStateException if the writer is closed
+     */
+    void finish(String comment) throws IOException {
+        if (finished) {
+            return;
+        }
+        if (closed) {
+            throw new IllegalStateException("The archive was closed without being finished");
+        }
+        finished = true;
+        long centralStart = position;
+        for (Entry entry : entries) {
+            writeCentralHeader(entry);
+        }
+        long centralSize = position - centralStart;
+
+        boolean zip64 = entries.size() >= MAX_16 || centralStart >= MAX_32 || centralSize >= MAX_32;
+        if (zip64) {
+            long zip64Start = position;
+            header.clear();
+            header.putInt(ZIP64_END_OF_CENTRAL_DIRECTORY).putLong(44)
+                    .putShort(VERSION_ZIP64).putShort(VERSION_ZIP64)
+                    .putInt(0).putInt(0)
+                    .putLong(entries.size()).putLong(entries.size())
+                    .putLong(centralSize).putLong(centralStart);
+            header.putInt(ZIP64_LOCATOR).putInt(0).putLong(zip64Start).putInt(1);
+            writeHeader();
+        }
+
+        byte[] commentBytes = comment != null ? comment.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (commentBytes.length > MAX_16) {
+            throw new IllegalArgumentException("Archive comment is too long");
+        }
+        int count = (int) Math.min(entries.size(), MAX_16);
+        header.clear();
+        header.putInt(END_OF_CENTRAL_DIRECTORY).putShort((short) 0).putShort((short) 0)
+                .putShort((short) count).putShort((short) count)
+                .putInt((int) Math.min(centralSize, MAX_32)).putInt((int) Math.min(centralStart, MAX_32))
+                .putShort((short) commentBytes.length);
+        writeHeader();
+        write(ByteBuffer.wrap(commentBytes));
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the number of bytes written
+     */
+    long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * Closes the writer without writing anything. If the archive was not finished, it is abandoned
+     * without a central directory. The channel is left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void writeLocalHeader(Entry entry) throws IOException {
+        if (finished || closed) {
+            throw new IllegalStateException("The archive is already finished or closed");
+        }
+        boolean zip64 = entry.compressedSize >= MAX_32 || entry.size >= MAX_32;
+        header.clear();
+        header.putInt(LOCAL_HEADER)
+                .putShort(zip64 ? VERSION_ZIP64 : VERSION)
+                .putShort(FLAG_UTF8)
+                .putShort(entry.method)
+                .putShort((short) dosTime).putShort((short) dosDate)
+                .putInt((int) entry.crc)
+                .putInt((int) (zip64 ? MAX_32 : entry.compressedSize))
+                .putInt((int) (zip64 ? MAX_32 : entry.size))
+                .putShort((short) entry.name.length)
+                .putShort((short) (zip64 ? 20 : 0))
+                .put(entry.name);
+        if (zip64) {
+            header.putShort(ZIP64_EXTRA).putShort((short) 16).putLong(entry.size).putLong(entry.compressedSize);
+        }
+        writeHeader();
+    }
+
+    private void writeCentralHeader(Entry entry) throws IOException {
+        boolean sizeZip64 = entry.compressedSize >= MAX_32 || entry.size >= MAX_32;
+        boolean offsetZip64 = entry.offset >= MAX_32;
+        int extraLength = (sizeZip64 ? 16 : 0) + (offsetZip64 ? 8 : 0);
+        short version = sizeZip64 || offsetZip64 ? VERSION_ZIP64 : VERSION;
+        header.clear();
+        header.putInt(CENTRAL_HEADER)
+                .putShort(version).putShort(version)
+                .putShort(FLAG_UTF8)
+                .putShort(entry.method)
+                .putShort((short) dosTime).putShort((short) dosDate)
+                .putInt((int) entry.crc)
+                .putInt((int) (sizeZip64 ? MAX_32 : entry.compressedSize))
+                .putInt((int) (sizeZip64 ? MAX_32 : entry.size))
+                .putShort((short) entry.name.length)
+                .putShort((short) (extraLength > 0 ? extraLength + 4 : 0))
+                .putShort((short) 0).putShort((short) 0).putShort((short) 0)
+                .putInt(0)
+                .putInt((int) (offsetZip64 ? MAX_32 : entry.offset))
+                .put(entry.name);
+        if (extraLength > 0) {
+            header.putShort(ZIP64_EXTRA).putShort((short) extraLength);
+            if (sizeZip64) {
+                header.putLong(entry.size).putLong(entry.compressedSize);
+            }
+            if (offsetZip64) {
+                header.putLong(entry.offset);
+            }
+        }
+        writeHeader();
+    }
+
+    private void writeHeader() throws IOException {
+        header.flip();
+        write(header);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer);
+        }
+    }
+
+    /**
+     * An entry as recorded in the central directory.
+     */
+    private static final class Entry {
+        final byte[] name;
+        final short method;
+        final long crc;
+        final long compressedSize;
+        final long size;
+        final long offset;
+
+        Entry(String name, short method, long crc, long compressedSize, long size, long offset) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            if (this.name.length > 512) {
+                throw new IllegalArgumentException("Entry name is too long: " + name);
+            }
+            this.method = method;
+            this.crc = crc;
+            this.compressedSize = compressedSize;
+            this.size = size;
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.belman.service.usecase.security;
+
+import com.belman.common.logging.EmojiLogger;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.prefs.Preferences;
+
+/**
+ * Measures the BCrypt cost the current device can afford within a target verification latency.
+ * <p>
+ * BCrypt time doubles with every additional log round, so a single timed hash at the lowest
+ * accepted cost is enough to project the time for every higher cost. The result is stored in
+ * the user preferences, so the measurement only runs once per device.
+ */
+public class BCryptCostCalibrator {
+
+    /**
+     * The default time budget for verifying a single password.
+     */
+    public static final Duration DEFAULT_TARGET_LATENCY = Duration.ofMillis(250);
+
+    /**
+     * The lowest cost the calibrator will ever choose, regardless of device speed. It is the shared
+     * rehash floor, so hashes made on a slow device are not upgraded again on every login.
+     */
+    public static final int MIN_LOG_ROUNDS = BCryptPasswordHasher.SHARED_LOG_ROUNDS_FLOOR;
+
+    /**
+     * The highest cost the calibrator will ever choose, regardless of device speed.
+     */
+    public static final int MAX_LOG_ROUNDS = 14;
+
+    // Preference keys
+    private static final String PREF_LOG_ROUNDS = "bcryptLogRounds";
+    private static final String PREF_TARGET_MILLIS = "bcryptTargetMillis";
+    private static final String CALIBRATION_SAMPLE = "calibration-sample";
+    private static final int MEASUREMENT_RUNS = 3;
+
+    private final EmojiLogger logger = EmojiLogger.getLogger(BCryptCostCalibrator.class);
+    private final Duration targetLatency;
+    private final Preferences preferences;
+
+    /**
+     * Creates a new BCryptCostCalibrator with the default target latency.
+     */
+    public BCryptCostCalibrator() {
+        this(DEFAULT_TARGET_LATENCY, Preferences.userNodeForPackage(BCryptCostCalibrator.class));
+    }
+
+    /**
+     * Creates a new BCryptCostCalibrator with the specified target latency and preferences node.
+     *
+     * @param targetLatency the time budget for verifying a single password
+     * @param preferences   the preferences node used to remember the measured cost
+     */
+    public BCryptCostCalibrator(Duration targetLatency, Preferences preferences) {
+        if (targetLatency == null || targetLatency.isNegative() || targetLatency.isZero()) {
+            throw new IllegalArgumentException("Target latency must be positive");
+        }
+        this.targetLatency = targetLatency;
+        this.preferences = preferences;
+    }
+
+    /**
+     * Gets the calibrated cost for this device, measuring it if it has not been measured
+     * yet for the current target latency.
+     *
+     * @return the BCrypt cost to use for new hashes
+     */
+    public int getCalibratedLogRounds() {
+        long targetMillis = targetLatency.toMillis();
+        if (preferences != null && preferences.getLong(PREF_TARGET_MILLIS, -1) == targetMillis) {
+            int stored = preferences.getInt(PREF_LOG_ROUNDS, -1);
+            if (stored >= MIN_LOG_ROUNDS && stored <= MAX_LOG_ROUNDS) {
+                return stored;
+            }
+        }
+
+        int logRounds = measure();
+        if (preferences != null) {
+            preferences.putInt(PREF_LOG_ROUNDS, logRounds);
+            preferences.putLong(PREF_TARGET_MILLIS, targetMillis);
+        }
+        return logRounds;
+    }
+
+    /**
+     * Measures the highest cost whose projected verification time fits within the target latency.
+     *
+     * @return the measured BCrypt cost
+     */
+    public int measure() {
+        String salt = BCrypt.gensalt(MIN_LOG_ROUNDS);
+        long bestNanos = Long.MAX_VALUE;
+        // The first run also pays for class loading and JIT warm-up, so keep the fastest run
+        for (int i = 0; i < MEASUREMENT_RUNS; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw(CALIBRATION_SAMPLE, salt);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        int logRounds = selectLogRounds(bestNanos, targetLatency.toNanos());
+        logger.info("BCrypt calibrated to cost {} ({} ms at cost {}, target {} ms)",
+                logRounds, bestNanos / 1_000_000, MIN_LOG_ROUNDS, targetLatency.toMillis());
+        return logRounds;
+    }
+
+    /**
+     * Selects the highest cost whose projected time fits within the target.
+     *
+     * @param baselineNanos the measured time at {@link #MIN_LOG_ROUNDS}
+     * @param targetNanos   the time budget
+     * @return the selected BCrypt cost
+     */
+    static int selectLogRounds(long baselineNanos, long targetNanos) {
+        int logRounds = MIN_LOG_ROUNDS;
+        long projected = Math.max(1, baselineNanos);
+        while (logRounds < MAX_LOG_ROUNDS && projected * 2 <= targetNanos) {
+            projected *= 2;
+            logRounds++;
+        }
+        return logRounds;
+    }
+}
@@ -6,9 +6,51 @@ import org.mindrot.jbcrypt.BCrypt;
 /**
  * Implementation of the PasswordHasher interface using BCrypt.
  * This class encapsulates the BCrypt library to provide password hashing services.
+ * <p>
+ * The BCrypt cost (log rounds) can be changed at runtime, for example after
+ * {@link BCryptCostCalibrator} has measured what the current device can afford.
+ * Only hashes below a floor shared by all devices are reported by {@link #needsRehash(String)},
+ * so weak hashes are upgraded on the next successful login, while devices that calibrate to
+ * different costs, or log in before calibration finishes, never rehash each other's hashes.
  */
 public class BCryptPasswordHasher implements PasswordHasher {
 
+    /**
+     * The cost used by {@link BCrypt#gensalt()} when none is specified.
+     */
+    public static final int DEFAULT_LOG_ROUNDS = 10;
+
+    /**
+     * The lowest cost accepted without rehashing, the same on every device.
+     */
+    public static final int SHARED_LOG_ROUNDS_FLOOR = DEFAULT_LOG_ROUNDS;
+
+    // BCrypt hashes look like $2a$10$<salt+hash> (or $2$10$ for the original revision)
+    private static final int MIN_HASH_LENGTH = 7;
+
+    private final int rehashFloor;
+    private volatile int logRounds;
+
+    /**
+     * Creates a new BCryptPasswordHasher using the default BCrypt cost.
+     */
+    public BCryptPasswordHasher() {
+        this(DEFAULT_LOG_ROUNDS);
+    }
+
+    /**
+     * Creates a new BCryptPasswordHasher using the specified BCrypt cost. The rehash floor is
+     * the shared floor, or the cost itself if it is lower, so the hasher never asks to rehash
+     * its own hashes.
+     *
+     * @param logRounds the BCrypt cost (log2 of the number of rounds)
+     * @throws IllegalArgumentException if the cost is outside the range supported by BCrypt
+     */
+    public BCryptPasswordHasher(int logRounds) {
+        setLogRounds(logRounds);
+        this.rehashFloor = Math.min(logRounds, SHARED_LOG_ROUNDS_FLOOR);
+    }
+
     /**
      * Hashes a plain text password using BCrypt.
      *
@@ -21,7 +63,7 @@ public class BCryptPasswordHasher implements PasswordHasher {
         if (plainTextPassword == null || plainTextPassword.isBlank()) {
             throw new IllegalArgumentException("Plain text password must not be null or blank");
         }
-        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt());
+        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(logRounds));
     }
 
     /**
@@ -39,4 +81,69 @@ public class BCryptPasswordHasher implements PasswordHasher {
         }
         return BCrypt.checkpw(plainTextPassword, hashedPassword);
     }
-}
\ No newline at end of file
+
+    /**
+     * Checks if the hashed password was created with a cost below the rehash floor. Hashes at or
+     * above the floor are kept, whatever cost this device is calibrated to, so a hash is not
+     * rewritten back and forth by devices with different calibrations.
+     *
+     * @param hashedPassword the hashed password to inspect
+     * @return true if the password should be re-hashed, false otherwise
+     */
+    @Override
+    public boolean needsRehash(String hashedPassword) {
+        int cost = extractLogRounds(hashedPassword);
+        return cost > 0 && cost < rehashFloor;
+    }
+
+    /**
+     * Gets the BCrypt cost used for new hashes.
+     *
+     * @return the BCrypt cost
+     */
+    public int getLogRounds() {
+        return logRounds;
+    }
+
+    /**
+     * Gets the cost below which hashes are re-hashed on login.
+     *
+     * @return the rehash floor
+     */
+    public int getRehashFloor() {
+        return rehashFloor;
+    }
+
+    /**
+     * Sets the BCrypt cost used for new hashes.
+     *
+     * @param logRounds the BCrypt cost (log2 of the number of rounds)
+     * @throws IllegalArgumentException if the cost is outside the range supported by BCrypt
+     */
+    public void setLogRounds(int logRounds) {
+        if (logRounds < 4 || logRounds > 30) {
+            throw new IllegalArgumentException("BCrypt log rounds must be between 4 and 30, but was " + logRounds);
+        }
+        this.logRounds = logRounds;
+    }
+
+    /**
+     * Extracts the cost from a BCrypt hash.
+     *
+     * @param hashedPassword the BCrypt hash
+     * @return the cost, or -1 if the value is not a BCrypt hash
+     */
+    static int extractLogRounds(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < MIN_HASH_LENGTH ||
+            hashedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int offset = hashedPassword.charAt(2) == '$' ? 3 : 4;
+        char tens = hashedPassword.charAt(offset);
+        char units = hashedPassword.charAt(offset + 1);
+        if (!Character.isDigit(tens) || !Character.isDigit(units) || hashedPassword.charAt(offset + 2) != '$') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+}
@@ -17,6 +17,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -41,22 +42,62 @@ public class DefaultAuthenticationService extends BaseService implements Authent
     private static final String LOG_SESSION_TIMEOUT = "Session timed out for user {}";
     private static final String LOG_USER_LOGGED_OUT = "User {} logged out";
     private static final String LOG_AUTHENTICATION_ERROR = "Error during authentication";
+    private static final String LOG_PASSWORD_REHASHED = "Password hash for user {} migrated to the current cost";
+    private static final String LOG_PASSWORD_REHASH_FAILED = "Failed to migrate password hash for user {}";
+    private static final String LOG_CALIBRATION_FAILED = "BCrypt cost calibration failed, keeping the default cost";
     private final UserRepository userRepository;
     private final PasswordHasher passwordHasher;
+    private final LoginPipeline loginPipeline;
     // Track failed login attempts by username
     private final Map<String, FailedLoginTracker> failedLoginAttempts = new ConcurrentHashMap<>();
-    private UserBusiness currentUser;
-    private Instant lastActivityTime;
+    // Written from the verification pool, read from the FX thread
+    private volatile UserBusiness currentUser;
+    private volatile Instant lastActivityTime;
 
     /**
      * Creates a new DefaultAuthenticationService with the specified UserRepository.
+     * The BCrypt cost is calibrated for the current device on the verification pool.
      *
      * @param userRepository the user repository
      */
     public DefaultAuthenticationService(UserRepository userRepository) {
         super(EmojiLoggerFactory.getInstance());
         this.userRepository = userRepository;
-        this.passwordHasher = new BCryptPasswordHasher();
+        this.loginPipeline = new LoginPipeline();
+        BCryptPasswordHasher bcryptHasher = new BCryptPasswordHasher();
+        this.passwordHasher = bcryptHasher;
+        loginPipeline.execute(() -> calibrate(bcryptHasher));
+    }
+
+    /**
+     * Creates a new DefaultAuthenticationService with the specified collaborators.
+     *
+     * @param userRepository the user repository
+     * @param passwordHasher the password hasher used for verification and re-hashing
+     * @param loginPipeline  the pipeline that runs verification off the caller thread
+     */
+    public DefaultAuthenticationService(UserRepository userRepository, PasswordHasher passwordHasher,
+                                        LoginPipeline loginPipeline) {
+        super(EmojiLoggerFactory.getInstance());
+        this.userRepository = userRepository;
+        this.passwordHasher = passwordHasher;
+        this.loginPipeline = loginPipeline;
+    }
+
+    private void calibrate(BCryptPasswordHasher bcryptHasher) {
+        try {
+            bcryptHasher.setLogRounds(new BCryptCostCalibrator().getCalibratedLogRounds());
+        } catch (Exception e) {
+            logWarn(LOG_CALIBRATION_FAILED, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<UserBusiness>> authenticateAsync(String username, String password) {
+        if (username == null || username.isBlank() || password == null || password.isBlank()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return loginPipeline.submit(username, password, this::authenticate);
     }
 
     @Override
@@ -104,6 +145,11 @@ public class DefaultAuthenticationService extends BaseService implements Authent
                     currentUser = user;
                     updateLastActivityTime();
 
+                    // Upgrade hashes below the shared cost floor without delaying the login
+                    if (passwordHasher.needsRehash(hashedPassword.value())) {
+                        loginPipeline.execute(() -> rehashPassword(user, password));
+                    }
+
                     // Publish a UserLoggedInEvent
                     // TODO: Fix event publishing mechanism for BusinessEvent objects
                     // publishEvent(new UserLoggedInEvent(user));
@@ -135,6 +181,24 @@ public class DefaultAuthenticationService extends BaseService implements Authent
         }
     }
 
+    /**
+     * Re-hashes the password of a user with the current cost and saves the user.
+     * Only called after the password has been verified.
+     *
+     * @param user     the authenticated user
+     * @param password the verified plain text password
+     */
+    private void rehashPassword(UserBusiness user, String password) {
+        String username = user.getUsername().value();
+        try {
+            user.setPassword(HashedPassword.fromPlainText(password, passwordHasher));
+            userRepository.save(user);
+            logDebug(LOG_PASSWORD_REHASHED, username);
+        } catch (Exception e) {
+            logWarn(LOG_PASSWORD_REHASH_FAILED, username, e);
+        }
+    }
+
     /**
      * Checks if an account is locked out due to too many failed login attempts.
      *
@@ -13,6 +13,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -59,6 +60,11 @@ public class DefaultExtendedAuthenticationService extends BaseService implements
         return authenticationService.authenticate(username, password);
     }
 
+    @Override
+    public CompletableFuture<Optional<UserBusiness>> authenticateAsync(String username, String password) {
+        return authenticationService.authenticateAsync(username, password);
+    }
+
     @Override
     public Optional<UserBusiness> getCurrentUser() {
         return authenticationService.getCurrentUser();
@@ -0,0 +1,153 @@
+package com.belman.service.usecase.security;
+
+import com.belman.domain.user.UserBusiness;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Runs password verification on a small dedicated thread pool.
+ * <p>
+ * BCrypt verification is deliberately slow, so it must never run on the FX thread. At shift change
+ * many workers log in on the same shared tablets, so the pool is kept small to avoid starving the UI
+ * of CPU, and attempts are de-duplicated per username:
+ * <ul>
+ *   <li>a repeated submission with the same credentials (e.g. a double tap on the login button)
+ *       joins the attempt that is already in flight instead of verifying the password twice</li>
+ *   <li>a submission with different credentials for the same username waits for the in-flight
+ *       attempt, so failed-attempt counting and lockout see the attempts in order</li>
+ * </ul>
+ */
+public class LoginPipeline {
+
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 30;
+
+    private final ThreadPoolExecutor verificationPool;
+    private final Map<String, InFlightLogin> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new LoginPipeline sized for the current device.
+     */
+    public LoginPipeline() {
+        this(defaultPoolSize());
+    }
+
+    /**
+     * Creates a new LoginPipeline with the specified number of verification threads.
+     *
+     * @param poolSize the number of verification threads
+     */
+    public LoginPipeline(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.verificationPool = new ThreadPoolExecutor(poolSize, poolSize,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "login-verify-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.verificationPool.allowCoreThreadTimeOut(true);
+    }
+
+    private static int defaultPoolSize() {
+        return Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    /**
+     * Submits a login attempt to the verification pool.
+     *
+     * @param username      the username
+     * @param password      the password
+     * @param authenticator the synchronous authentication to run on the verification pool
+     * @return a CompletableFuture that completes with the authenticated user, or empty if authentication failed
+     */
+    public CompletableFuture<Optional<UserBusiness>> submit(String username, String password,
+                                                            BiFunction<String, String, Optional<UserBusiness>> authenticator) {
+        if (username == null || password == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        byte[] credentialDigest = digest(username, password);
+        InFlightLogin[] created = new InFlightLogin[1];
+        InFlightLogin login = inFlight.compute(username, (key, existing) -> {
+            if (existing != null && MessageDigest.isEqual(existing.credentialDigest, credentialDigest)) {
+                return existing;
+            }
+            CompletableFuture<Optional<UserBusiness>> attempt = existing == null
+                    ? CompletableFuture.supplyAsync(() -> authenticator.apply(username, password), verificationPool)
+                    : existing.result.handleAsync((previous, error) -> authenticator.apply(username, password),
+                            verificationPool);
+            created[0] = new InFlightLogin(credentialDigest, attempt);
+            return created[0];
+        });
+
+        // Registered outside compute(), since the attempt may already be complete
+        if (created[0] != null) {
+            InFlightLogin registered = created[0];
+            registered.result.whenComplete((result, error) -> inFlight.remove(username, registered));
+        }
+        return login.result.copy();
+    }
+
+    /**
+     * Runs a background task on the verification pool, e.g. re-hashing a password after login.
+     *
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        verificationPool.execute(task);
+    }
+
+    /**
+     * Gets the number of usernames with a login attempt currently in flight.
+     *
+     * @return the number of in-flight usernames
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Shuts down the verification pool. Attempts already submitted are still completed.
+     */
+    public void shutdown() {
+        verificationPool.shutdown();
+    }
+
+    private static byte[] digest(String username, String password) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            sha256.update(username.getBytes(StandardCharsets.UTF_8));
+            sha256.update((byte) 0);
+            return sha256.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * A login attempt that is queued or running for a username.
+     */
+    private static final class InFlightLogin {
+        private final byte[] credentialDigest;
+        private final CompletableFuture<Optional<UserBusiness>> result;
+
+        private InFlightLogin(byte[] credentialDigest, CompletableFuture<Optional<UserBusiness>> result) {
+            this.credentialDigest = credentialDigest;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+-- Create Order Changes Table
+-- Change feed for orders and photos, written by the order repository in the same transaction as
+-- the change itself. Tablets poll the changes after the last sequence they applied and reload only
+-- the orders that changed. Rows carry identities only, never order data.
+CREATE TABLE order_changes
+(
+    change_seq  BIGINT IDENTITY (1,1) PRIMARY KEY,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id   VARCHAR(36) NOT NULL,
+    order_id    VARCHAR(36) NOT NULL,
+    operation   VARCHAR(10) NOT NULL,
+    changed_at  DATETIME2   NOT NULL DEFAULT SYSDATETIME()
+);
@@ -0,0 +1,6 @@
+-- Add version columns for optimistic concurrency.
+-- Repositories write a row with UPDATE ... WHERE id = ? AND version = ? and increment the version,
+-- so a save from a stale copy updates no rows and is reported as a conflict instead of silently
+-- overwriting the newer change. Existing rows start at version 1.
+ALTER TABLE orderAggregates ADD version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE customers ADD version BIGINT NOT NULL DEFAULT 1;
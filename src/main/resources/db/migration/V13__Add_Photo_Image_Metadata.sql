@@ -0,0 +1,9 @@
+-- Add the image metadata read from the photo header on upload.
+-- Width and height are those of the stored pixels; the EXIF orientation (1 to 8) tells how the
+-- image must be rotated for display. captured_at is the EXIF capture time, which orders photos
+-- by when they were taken rather than when they were uploaded.
+-- Photos uploaded before this migration, or whose header could not be read, keep NULL values.
+ALTER TABLE photo_documents ADD image_width INT, image_height INT, orientation SMALLINT, captured_at DATETIME2;
+
+-- Create index for listing the photos of an order by capture time
+CREATE INDEX idx_photo_documents_captured_at ON photo_documents (order_id, captured_at);
@@ -0,0 +1,3 @@
+-- Rename the orders table to the name the SQL order repository and the embedded schema use.
+-- Foreign keys, indexes and data move with the table, so photo_documents keeps referencing it.
+EXEC sp_rename 'orderAggregates', 'orders';
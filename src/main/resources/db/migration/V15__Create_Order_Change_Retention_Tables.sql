@@ -0,0 +1,18 @@
+-- Create Order Change Retention Tables
+-- Each tablet acknowledges the sequence up to which it has applied every change of the feed.
+-- Changes that every active tablet has acknowledged are pruned, and the retention row records how
+-- far, so a tablet whose cursor was pruned knows it has to reload all orders.
+CREATE TABLE order_change_consumers
+(
+    consumer_id     VARCHAR(36) PRIMARY KEY,
+    last_sequence   BIGINT      NOT NULL,
+    acknowledged_at DATETIME2   NOT NULL
+);
+
+CREATE TABLE order_change_retention
+(
+    id           INT    PRIMARY KEY CHECK (id = 1),
+    pruned_up_to BIGINT NOT NULL
+);
+
+INSERT INTO order_change_retention (id, pruned_up_to) VALUES (1, 0);
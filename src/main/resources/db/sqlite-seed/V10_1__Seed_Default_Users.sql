@@ -0,0 +1,22 @@
+-- Seed the default users of the embedded database profile, once, when the database is created.
+-- Passwords are BCrypt hashes with the default cost of 10: admin/admin, production/production,
+-- qa_user1/qa and qa_user/qa. The PIN code and QR code are stored in the legacy plain text
+-- columns and replaced with keyed digests by the application on first use.
+INSERT INTO users (id, username, password, email, status)
+VALUES ('00000000-0000-4000-8000-000000000001', 'admin',
+        '$2a$10$otfFxD/5PzSfLcWSnKZbLuMh5z6OCk.D3FbqQSN2JjsJqI/xVcL4a', 'admin@belman.com', 'ACTIVE');
+INSERT INTO users (id, username, password, email, status, pin_code)
+VALUES ('00000000-0000-4000-8000-000000000002', 'production',
+        '$2a$10$DtE1agmMsFXzoheMNj5FuuHq2QzK87OmA9sDVXhcLvz0.dWISJFFm', 'production@belman.com', 'ACTIVE', '1234');
+INSERT INTO users (id, username, password, email, status, qr_code_hash)
+VALUES ('00000000-0000-4000-8000-000000000003', 'qa_user1',
+        '$2a$10$ruk3kzsBEeTGXIKud1yDcOn.ykbfSMq6RET9GzVlk.9XDKqzKuWE6', 'qa_user1@belman.com', 'ACTIVE',
+        'scanner123hash');
+INSERT INTO users (id, username, password, email, status)
+VALUES ('00000000-0000-4000-8000-000000000004', 'qa_user',
+        '$2a$10$ruk3kzsBEeTGXIKud1yDcOn.ykbfSMq6RET9GzVlk.9XDKqzKuWE6', 'qa_user@belman.com', 'ACTIVE');
+
+INSERT INTO user_roles (user_id, role) VALUES ('00000000-0000-4000-8000-000000000001', 'ADMIN');
+INSERT INTO user_roles (user_id, role) VALUES ('00000000-0000-4000-8000-000000000002', 'PRODUCTION');
+INSERT INTO user_roles (user_id, role) VALUES ('00000000-0000-4000-8000-000000000003', 'QA');
+INSERT INTO user_roles (user_id, role) VALUES ('00000000-0000-4000-8000-000000000004', 'QA');
@@ -0,0 +1,14 @@
+-- Create Photo Annotations Table
+-- All annotations of a photo are stored in one row, in the compact column-oriented encoding of
+-- PhotoAnnotationCodec. Photos without annotations have no row. The order ID is repeated here so
+-- reports can load the annotations of a whole order with one indexed query.
+CREATE TABLE photo_annotations
+(
+    photo_id         VARCHAR(36)    PRIMARY KEY,
+    order_id         VARCHAR(36)    NOT NULL,
+    annotation_count INT            NOT NULL,
+    data             BLOB           NOT NULL
+);
+
+-- Create Index on Order ID
+CREATE INDEX idx_photo_annotations_order_id ON photo_annotations (order_id);
@@ -0,0 +1,13 @@
+-- SQLite variant of V11__Create_Order_Changes_Table.sql for the embedded database profile.
+-- AUTOINCREMENT keeps sequences increasing even after the latest rows are deleted.
+
+-- Create Order Changes Table
+CREATE TABLE order_changes
+(
+    change_seq  INTEGER PRIMARY KEY AUTOINCREMENT,
+    entity_type VARCHAR(10) NOT NULL,
+    entity_id   VARCHAR(36) NOT NULL,
+    order_id    VARCHAR(36) NOT NULL,
+    operation   VARCHAR(10) NOT NULL,
+    changed_at  TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
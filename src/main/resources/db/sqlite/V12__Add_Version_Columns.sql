@@ -0,0 +1,5 @@
+-- SQLite variant of V12__Add_Version_Columns.sql for the embedded database profile.
+
+-- Add version columns for optimistic concurrency
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
+ALTER TABLE customers ADD COLUMN version BIGINT NOT NULL DEFAULT 1;
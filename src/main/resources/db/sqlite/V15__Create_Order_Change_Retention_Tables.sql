@@ -0,0 +1,17 @@
+-- SQLite variant of V15__Create_Order_Change_Retention_Tables.sql for the embedded database profile.
+
+-- Create Order Change Retention Tables
+CREATE TABLE order_change_consumers
+(
+    consumer_id     VARCHAR(36) PRIMARY KEY,
+    last_sequence   BIGINT      NOT NULL,
+    acknowledged_at TIMESTAMP   NOT NULL
+);
+
+CREATE TABLE order_change_retention
+(
+    id           INTEGER PRIMARY KEY CHECK (id = 1),
+    pruned_up_to BIGINT  NOT NULL
+);
+
+INSERT INTO order_change_retention (id, pruned_up_to) VALUES (1, 0);
@@ -0,0 +1,24 @@
+-- SQLite variant of V2__Create_Customers_Table.sql for the embedded database profile.
+-- Uses the person and company columns read and written by SqlCustomerRepository.
+
+-- Create Customers Table
+CREATE TABLE customers
+(
+    id                          VARCHAR(36) PRIMARY KEY,
+    type                        VARCHAR(20)  NOT NULL,
+    person_first_name           VARCHAR(50),
+    person_last_name            VARCHAR(50),
+    company_name                VARCHAR(100),
+    company_registration_number VARCHAR(50),
+    company_address             VARCHAR(255),
+    email                       VARCHAR(100) NOT NULL,
+    phone_number                VARCHAR(20),
+    created_at                  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at                  TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create Index on Email
+CREATE INDEX idx_customers_email ON customers (email);
+
+-- Create Index on Type
+CREATE INDEX idx_customers_type ON customers (type);
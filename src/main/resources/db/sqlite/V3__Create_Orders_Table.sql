@@ -0,0 +1,22 @@
+-- SQLite variant of V3__Create_Orders_Table.sql for the embedded database profile.
+-- The table is named orders, as queried by SqlOrderRepository.
+
+-- Create Orders Table
+CREATE TABLE orders
+(
+    id                   VARCHAR(36) PRIMARY KEY,
+    order_number         VARCHAR(50) NOT NULL UNIQUE,
+    customer_id          VARCHAR(36),
+    product_description  TEXT,
+    delivery_information TEXT,
+    status               VARCHAR(20) NOT NULL,
+    created_by           VARCHAR(36) NOT NULL,
+    created_at           TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at           TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create Index on Customer ID
+CREATE INDEX idx_orders_customer_id ON orders (customer_id);
+
+-- Create Index on Status
+CREATE INDEX idx_orders_status ON orders (status);
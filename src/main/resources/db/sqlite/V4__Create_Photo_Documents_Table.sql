@@ -0,0 +1,28 @@
+-- SQLite variant of V4__Create_Photo_Documents_Table.sql for the embedded database profile.
+
+-- Create Photo Documents Table
+CREATE TABLE photo_documents
+(
+    id             VARCHAR(36) PRIMARY KEY,
+    order_id       VARCHAR(36)  NOT NULL,
+    angle          VARCHAR(50)  NOT NULL,
+    image_path     VARCHAR(255) NOT NULL,
+    status         VARCHAR(20)  NOT NULL,
+    uploaded_by    VARCHAR(36)  NOT NULL,
+    uploaded_at    TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    reviewed_by    VARCHAR(36),
+    reviewed_at    TIMESTAMP,
+    review_comment TEXT,
+    created_at     TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at     TIMESTAMP    NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (order_id) REFERENCES orders (id) ON DELETE CASCADE
+);
+
+-- Create Index on Order ID
+CREATE INDEX idx_photo_documents_order_id ON photo_documents (order_id);
+
+-- Create Index on Status
+CREATE INDEX idx_photo_documents_status ON photo_documents (status);
+
+-- Create Index on Uploaded By
+CREATE INDEX idx_photo_documents_uploaded_by ON photo_documents (uploaded_by);
@@ -0,0 +1,12 @@
+-- SQLite variant of V6__Add_Authentication_Methods.sql for the embedded database profile.
+-- The embedded database starts empty, so there are no existing users to update.
+
+-- Add PIN code and QR code columns to users table
+ALTER TABLE users ADD COLUMN pin_code VARCHAR(10);
+ALTER TABLE users ADD COLUMN qr_code_hash VARCHAR(100);
+
+-- Create index on PIN code for faster lookups
+CREATE INDEX idx_users_pin_code ON users (pin_code);
+
+-- Create index on QR code hash for faster lookups
+CREATE INDEX idx_users_qr_code_hash ON users (qr_code_hash);
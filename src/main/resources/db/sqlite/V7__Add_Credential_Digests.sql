@@ -0,0 +1,13 @@
+-- Add keyed digest columns for PIN codes and QR codes.
+-- The digests are HMAC-SHA256 values computed by the application, so plain text
+-- credentials no longer need to be stored or compared. Existing plain text values
+-- are replaced with their digests by the application on first use, since the key
+-- is not available to the database.
+ALTER TABLE users ADD COLUMN pin_code_digest CHAR(64);
+ALTER TABLE users ADD COLUMN qr_code_digest CHAR(64);
+
+-- Create index on PIN code digest for single-probe PIN logins
+CREATE INDEX idx_users_pin_code_digest ON users (pin_code_digest);
+
+-- Create index on QR code digest for single-probe badge logins
+CREATE INDEX idx_users_qr_code_digest ON users (qr_code_digest);
@@ -0,0 +1,11 @@
+-- Add the image quality scores computed by the upload pre-screen.
+-- The scores are measured on a downsampled luminance plane: sharpness is the variance of
+-- the Laplacian, and the clipping ratios are the fractions of black and white pixels.
+-- Photos uploaded before the pre-screen, or not scored in time, keep NULL scores.
+ALTER TABLE photo_documents ADD COLUMN sharpness FLOAT;
+ALTER TABLE photo_documents ADD COLUMN mean_luminance FLOAT;
+ALTER TABLE photo_documents ADD COLUMN dark_clipping_ratio FLOAT;
+ALTER TABLE photo_documents ADD COLUMN bright_clipping_ratio FLOAT;
+
+-- Create index on sharpness for listing the least sharp pending photos
+CREATE INDEX idx_photo_documents_sharpness ON photo_documents (status, sharpness);
@@ -0,0 +1,5 @@
+-- Add the perceptual hash computed by the upload pre-screen.
+-- The 64-bit difference hash is stored as a signed BIGINT. Near-duplicates are found by
+-- Hamming distance in the application, per order, so the column is not indexed.
+-- Photos uploaded before the pre-screen, or not hashed in time, keep a NULL hash.
+ALTER TABLE photo_documents ADD COLUMN perceptual_hash BIGINT;
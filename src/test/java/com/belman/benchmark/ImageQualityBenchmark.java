@@ -0,0 +1,109 @@
+package com.belman.benchmark;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.service.usecase.photo.ImageQualityAnalyzer;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+import com.belman.test.util.ImageIoPixelDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the upload image quality pre-screen on 12 MP (4000x3000) photos.
+ * <p>
+ * Measures the analyzer on already decoded pixels, on an already downsampled luminance plane,
+ * and the full pre-screen of a JPEG file including the subsampled decode.
+ * <p>
+ * Run from the IDE via {@link #main(String[])}, or after {@code mvn test-compile} with the
+ * test classpath. Not part of the regular test run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageQualityBenchmark {
+
+    private static final int WIDTH = 4000;
+    private static final int HEIGHT = 3000;
+
+    private int[] argb;
+    private byte[] luminance;
+    private Path jpeg;
+    private ImageQualityPrescreener prescreener;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Textured scene with noise, so neither the Laplacian nor the JPEG codec sees flat areas
+        Random random = new Random(42);
+        argb = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int level = ((x / 16 + y / 16) % 2 == 0 ? 70 : 170) + random.nextInt(32);
+                argb[y * WIDTH + x] = 0xFF000000 | (level << 16) | (level << 8) | level;
+            }
+        }
+
+        luminance = new byte[(WIDTH / 4) * (HEIGHT / 4)];
+        random.nextBytes(luminance);
+
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, WIDTH, HEIGHT, argb, 0, WIDTH);
+        jpeg = Files.createTempFile("prescreen-benchmark", ".jpg");
+        ImageIO.write(image, "jpg", jpeg.toFile());
+
+        prescreener = new ImageQualityPrescreener(1, 1, EmojiLoggerFactory.getInstance(), new ImageIoPixelDecoder());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        prescreener.close();
+        Files.deleteIfExists(jpeg);
+    }
+
+    @Benchmark
+    public ImageQualityScore analyzeDecodedPixels() {
+        return ImageQualityAnalyzer.analyze(argb, WIDTH, HEIGHT);
+    }
+
+    @Benchmark
+    public ImageQualityScore analyzeLuminancePlane() {
+        return ImageQualityAnalyzer.analyzeLuminance(luminance, WIDTH / 4, HEIGHT / 4);
+    }
+
+    @Benchmark
+    public Optional<ImageQualityPrescreener.Result> screenJpegFile() {
+        return prescreener.screen(jpeg).join();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(ImageQualityBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,106 @@
+package com.belman.benchmark;
+
+import com.belman.domain.shared.StateStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JMH benchmark for StateStore write and notification throughput under contention.
+ * <p>
+ * Run from the IDE via {@link #main(String[])}, or after {@code mvn test-compile} with the
+ * test classpath. Not part of the regular test run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class StateStoreBenchmark {
+
+    private static final String SHARED_KEY = "benchmark.shared";
+    private static final String LISTENED_KEY = "benchmark.listened";
+
+    private final AtomicInteger nextThreadId = new AtomicInteger();
+    private StateStore store;
+
+    /**
+     * Per-thread state, so each thread can also write a key of its own.
+     */
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        String key;
+        int value;
+
+        @Setup(Level.Trial)
+        public void setUp(StateStoreBenchmark benchmark) {
+            key = "benchmark.thread." + benchmark.nextThreadId.incrementAndGet();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(Blackhole blackhole) {
+        store = StateStore.getInstance();
+        store.clear();
+        // Listener with trivial work, so the benchmark measures notification overhead
+        store.<Integer>listen(LISTENED_KEY, this, blackhole::consume);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        store.setNotificationExecutor(null);
+        store.clear();
+    }
+
+    @Benchmark
+    public void setSharedKey(ThreadKey threadKey) {
+        store.set(SHARED_KEY, ++threadKey.value);
+    }
+
+    @Benchmark
+    public void setOwnKey(ThreadKey threadKey) {
+        store.set(threadKey.key, ++threadKey.value);
+    }
+
+    @Benchmark
+    public void updateSharedCounter() {
+        store.<Integer>update(SHARED_KEY, value -> value == null ? 1 : value + 1);
+    }
+
+    @Benchmark
+    public void setListenedKey(ThreadKey threadKey) {
+        store.set(LISTENED_KEY, ++threadKey.value);
+    }
+
+    @Benchmark
+    public Object readSharedKey() {
+        return store.get(SHARED_KEY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(StateStoreBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.bootstrap.persistence.DatabaseConfig;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserRole;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlUserRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the embedded SQLite database profile, using a database file
+ * in a temporary directory.
+ */
+public class EmbeddedSqliteProfileTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void openSqlite_withNewFile_shouldUseWalModeAndSeedDefaultUsers() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("data").resolve("belsign.db");
+
+        // Act
+        try (HikariDataSource dataSource = DatabaseConfig.openSqlite(file, new Properties())) {
+            SqlUserRepository userRepository = new SqlUserRepository(dataSource);
+            Optional<UserBusiness> admin = userRepository.findByUsername(new Username("admin"));
+            Optional<UserBusiness> production = userRepository.findByPinCode("1234");
+
+            // Assert
+            assertEquals("wal", queryString(dataSource, "PRAGMA journal_mode"), "The database should run in WAL mode");
+            assertEquals("1", queryString(dataSource, "PRAGMA foreign_keys"), "Foreign keys should be enforced");
+            assertTrue(admin.isPresent(), "The default admin should be seeded");
+            assertTrue(admin.get().getRoles().contains(UserRole.ADMIN), "The admin should have the admin role");
+            assertTrue(production.isPresent(), "The production user should log in with the seeded PIN code");
+            assertEquals("production", production.get().getUsername().value(),
+                    "The PIN code should belong to the production user");
+        }
+    }
+
+    @Test
+    void openSqlite_withExistingFile_shouldKeepDataAndNotSeedAgain() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("belsign.db");
+        long usersAfterFirstOpen;
+        try (HikariDataSource dataSource = DatabaseConfig.openSqlite(file, new Properties())) {
+            SqlUserRepository userRepository = new SqlUserRepository(dataSource);
+            userRepository.deleteById(userRepository.findByUsername(new Username("qa_user")).orElseThrow().getId());
+            usersAfterFirstOpen = userRepository.count();
+        }
+
+        // Act
+        try (HikariDataSource dataSource = DatabaseConfig.openSqlite(file, new Properties())) {
+            SqlUserRepository userRepository = new SqlUserRepository(dataSource);
+
+            // Assert
+            assertEquals(usersAfterFirstOpen, userRepository.count(), "Reopening should keep the stored users");
+            assertTrue(userRepository.findByUsername(new Username("qa_user")).isEmpty(),
+                    "A deleted default user should not be seeded again");
+        }
+    }
+
+    private static String queryString(HikariDataSource dataSource, String sql) throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next(), "The query should return a row: " + sql);
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.repository.persistence.export.ExportCursor;
+import com.belman.repository.persistence.export.ExportFormat;
+import com.belman.repository.persistence.export.ExportRequest;
+import com.belman.repository.persistence.export.ExportResult;
+import com.belman.repository.persistence.export.ExportSource;
+import com.belman.repository.persistence.export.SqlExportJob;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for streaming exports, using the in-memory SQLite test database.
+ */
+public class SqlExportJobTest {
+
+    private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    private DataSource dataSource;
+    private String orderId;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        TestDatabaseConfig.initialize();
+        dataSource = TestDatabaseConfig.getDataSource();
+        // The test database is shared, so each test exports the photos of an order of its own
+        orderId = UUID.randomUUID().toString();
+        insertOrder();
+        insertPhoto(START.plusSeconds(20), "worker-2", "LEFT", "Blurry, \"retake\" please");
+        insertPhoto(START, "worker-1", "FRONT", null);
+        insertPhoto(START.plusSeconds(10), "worker-1", "BACK", "Weld\nseam");
+        insertPhoto(START.plusSeconds(30), "worker-2", "RIGHT", null);
+    }
+
+    @Test
+    void run_csv_shouldWriteHeaderAndRowsInTimeOrder() throws IOException {
+        // Arrange
+        SqlExportJob job = new SqlExportJob(dataSource, orderPhotos().build());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        ExportResult result = job.run(out);
+
+        // Assert
+        String csv = out.toString(StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertTrue(result.isComplete());
+        assertEquals(4, result.getRowCount());
+        assertEquals(String.join(",", ExportSource.PHOTO_DOCUMENTS.getColumns()), lines[0]);
+        assertTrue(lines[1].contains(",FRONT,"));
+        assertTrue(csv.contains(",\"Weld\nseam\""), "Values with line breaks should be quoted");
+        assertTrue(csv.contains(",\"Blurry, \"\"retake\"\" please\""), "Quotes should be doubled");
+        assertEquals(START.plusSeconds(30), result.getCursor().getTime());
+    }
+
+    @Test
+    void run_compressedJsonLinesWithFilter_shouldWriteMatchingRows() throws IOException {
+        // Arrange
+        ExportRequest request = orderPhotos()
+                .where("uploaded_by", "worker-2")
+                .format(ExportFormat.JSON_LINES)
+                .compressed(true)
+                .build();
+        Path target = tempDir.resolve("photos" + ExportFormat.JSON_LINES.getExtension() + ".gz");
+
+        // Act
+        ExportResult result = new SqlExportJob(dataSource, request).run(target);
+
+        // Assert
+        List<String> lines = readGzipLines(target);
+        assertEquals(2, result.getRowCount());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("{\"id\":\""));
+        assertTrue(lines.get(0).contains("\"review_comment\":\"Blurry, \\\"retake\\\" please\""));
+        assertTrue(lines.get(1).contains("\"angle\":\"RIGHT\""));
+        assertTrue(lines.get(1).endsWith("\"review_comment\":null}"));
+    }
+
+    @Test
+    void run_resumedAfterRowLimit_shouldContinueWhereItStopped() throws IOException {
+        // Arrange
+        Path complete = tempDir.resolve("complete.csv.gz");
+        Path resumed = tempDir.resolve("resumed.csv.gz");
+        new SqlExportJob(dataSource, orderPhotos().compressed(true).build()).run(complete);
+
+        // Act
+        ExportResult first = new SqlExportJob(dataSource, orderPhotos().compressed(true).maxRows(3).build())
+                .run(resumed);
+        ExportCursor cursor = ExportCursor.parse(first.getCursor().toString());
+        ExportResult second = new SqlExportJob(dataSource, orderPhotos().compressed(true).resumeAfter(cursor).build())
+                .run(resumed);
+
+        // Assert
+        assertFalse(first.isComplete());
+        assertEquals(3, first.getRowCount());
+        assertTrue(second.isComplete());
+        assertEquals(1, second.getRowCount());
+        assertEquals(readGzipLines(complete), readGzipLines(resumed));
+    }
+
+    @Test
+    void parse_cursorWithoutTime_shouldReadBackNullTime() {
+        // Arrange
+        ExportCursor cursor = new ExportCursor(null, "row-1");
+
+        // Act
+        ExportCursor parsed = ExportCursor.parse(cursor.toString());
+
+        // Assert
+        assertEquals("|row-1", cursor.toString());
+        assertNull(parsed.getTime());
+        assertEquals(cursor, parsed);
+    }
+
+    @Test
+    void run_cancelledJob_shouldStopWithoutRows() throws IOException {
+        // Arrange
+        SqlExportJob job = new SqlExportJob(dataSource, orderPhotos().build());
+        job.cancel();
+
+        // Act
+        ExportResult result = job.run(new ByteArrayOutputStream());
+
+        // Assert
+        assertTrue(job.isCancelled());
+        assertFalse(result.isComplete());
+        assertEquals(0, result.getRowCount());
+        assertNull(result.getCursor());
+    }
+
+    @Test
+    void where_unknownColumn_shouldThrowException() {
+        // Arrange
+        ExportRequest.Builder builder = ExportRequest.builder(ExportSource.PHOTO_DOCUMENTS);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> builder.where("review_comment; DROP TABLE users", "x"));
+    }
+
+    @Test
+    void constructor_auditTrail_shouldThrowException() {
+        // Arrange
+        ExportRequest request = ExportRequest.builder(ExportSource.AUDIT_EVENTS).build();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new SqlExportJob(dataSource, request),
+                "The audit trail is kept in the audit journal, not the database");
+    }
+
+    private ExportRequest.Builder orderPhotos() {
+        return ExportRequest.builder(ExportSource.PHOTO_DOCUMENTS)
+                .where("order_id", orderId);
+    }
+
+    private void insertOrder() throws SQLException {
+        String sql = "INSERT INTO orders (id, order_number, status, created_by) VALUES (?, ?, ?, ?)";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, orderId);
+            stmt.setString(2, "EXPORT-" + orderId);
+            stmt.setString(3, "PENDING");
+            stmt.setString(4, "worker-1");
+            stmt.executeUpdate();
+        }
+    }
+
+    private void insertPhoto(Instant uploadedAt, String uploadedBy, String angle, String comment)
+            throws SQLException {
+        String sql = "INSERT INTO photo_documents (id, order_id, angle, image_path, status, uploaded_by, " +
+                     "uploaded_at, review_comment) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, UUID.randomUUID().toString());
+            stmt.setString(2, orderId);
+            stmt.setString(3, angle);
+            stmt.setString(4, "photos/" + angle.toLowerCase() + ".jpg");
+            stmt.setString(5, "PENDING");
+            stmt.setString(6, uploadedBy);
+            stmt.setTimestamp(7, Timestamp.from(uploadedAt));
+            stmt.setString(8, comment);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static List<String> readGzipLines(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
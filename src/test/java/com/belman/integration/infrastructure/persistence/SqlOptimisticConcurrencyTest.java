@@ -0,0 +1,177 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.PersonName;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.customer.CustomerAggregate;
+import com.belman.domain.customer.CustomerId;
+import com.belman.domain.exceptions.VersionConflictException;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlCustomerRepository;
+import com.belman.repository.persistence.sql.SqlOrderRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the version-checked writes of the SQL repositories,
+ * using the in-memory SQLite test database.
+ */
+public class SqlOptimisticConcurrencyTest {
+
+    private SqlOrderRepository orderRepository;
+    private SqlCustomerRepository customerRepository;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        orderRepository = new SqlOrderRepository(TestDatabaseConfig.getDataSource());
+        customerRepository = new SqlCustomerRepository(TestDatabaseConfig.getDataSource());
+    }
+
+    @Test
+    void save_newAndExistingOrder_shouldIncrementVersion() {
+        // Arrange
+        OrderBusiness order = newOrder(OrderId.newId());
+
+        // Act
+        orderRepository.save(order);
+        long afterInsert = order.getVersion();
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        orderRepository.save(order);
+
+        // Assert
+        assertEquals(1, afterInsert);
+        assertEquals(2, order.getVersion());
+    }
+
+    @Test
+    void save_staleOrder_shouldThrowConflictAndKeepNewerChange() {
+        // Arrange
+        OrderId id = OrderId.newId();
+        OrderBusiness first = newOrder(id);
+        orderRepository.save(first);
+        OrderBusiness stale = newOrder(id);
+        stale.setVersion(first.getVersion());
+        first.setStatus(OrderStatus.IN_PROGRESS);
+        orderRepository.save(first);
+
+        // Act
+        stale.setStatus(OrderStatus.CANCELLED);
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> orderRepository.save(stale));
+
+        // Assert
+        assertEquals(1, error.getExpectedVersion());
+        assertEquals(2, error.getActualVersion());
+        assertEquals(1, stale.getVersion(), "A failed save should not change the version");
+        first.setStatus(OrderStatus.COMPLETED);
+        assertDoesNotThrow(() -> orderRepository.save(first), "The newer copy should still be writable");
+    }
+
+    @Test
+    void save_newOrderWithTakenId_shouldThrowConflict() {
+        // Arrange
+        OrderId id = OrderId.newId();
+        orderRepository.save(newOrder(id));
+
+        // Act & Assert
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> orderRepository.save(newOrder(id)));
+        assertEquals(0, error.getExpectedVersion());
+        assertEquals(1, error.getActualVersion());
+    }
+
+    @Test
+    void save_deletedOrder_shouldThrowDeletedConflict() {
+        // Arrange
+        OrderBusiness order = newOrder(OrderId.newId());
+        orderRepository.save(order);
+        orderRepository.deleteById(order.getId());
+
+        // Act
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> orderRepository.save(order));
+
+        // Assert
+        assertTrue(error.isDeleted());
+        assertFalse(orderRepository.existsById(order.getId()), "A deleted order should not be recreated");
+    }
+
+    @Test
+    void delete_staleOrder_shouldThrowConflictAndKeepOrder() {
+        // Arrange
+        OrderId id = OrderId.newId();
+        OrderBusiness first = newOrder(id);
+        orderRepository.save(first);
+        OrderBusiness stale = newOrder(id);
+        stale.setVersion(first.getVersion());
+        orderRepository.save(first);
+
+        // Act & Assert
+        assertThrows(VersionConflictException.class, () -> orderRepository.delete(stale));
+        assertTrue(orderRepository.existsById(id));
+    }
+
+    @Test
+    void save_staleCustomer_shouldThrowConflict() {
+        // Arrange
+        CustomerId id = CustomerId.newId();
+        customerRepository.save(CustomerAggregate.individual(id, new PersonName("Jane", "Doe"),
+                new EmailAddress("jane.doe@example.com")));
+        CustomerAggregate first = customerRepository.findById(id);
+        CustomerAggregate second = customerRepository.findById(id);
+        first.setEmail(new EmailAddress("jane@example.com"));
+        customerRepository.save(first);
+
+        // Act
+        second.setEmail(new EmailAddress("doe@example.com"));
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> customerRepository.save(second));
+
+        // Assert
+        assertEquals(1, error.getExpectedVersion());
+        assertEquals(2, error.getActualVersion());
+        assertEquals("jane@example.com", customerRepository.findById(id).getEmail().value());
+        assertEquals(2, customerRepository.findById(id).getVersion());
+    }
+
+    @Test
+    void save_newCustomerWithTakenId_shouldThrowConflictAndKeepStoredCustomer() {
+        // Arrange
+        CustomerId id = CustomerId.newId();
+        customerRepository.save(CustomerAggregate.individual(id, new PersonName("Jane", "Doe"),
+                new EmailAddress("jane.doe@example.com")));
+        CustomerAggregate duplicate = CustomerAggregate.individual(id, new PersonName("John", "Doe"),
+                new EmailAddress("john.doe@example.com"));
+
+        // Act
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> customerRepository.save(duplicate));
+
+        // Assert
+        assertEquals(0, error.getExpectedVersion());
+        assertEquals(1, error.getActualVersion());
+        assertEquals(0, duplicate.getVersion(), "A customer that was not saved should keep its version");
+        assertEquals("jane.doe@example.com", customerRepository.findById(id).getEmail().value());
+    }
+
+    private static OrderBusiness newOrder(OrderId id) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderNumber orderNumber = new OrderNumber(String.format("01/26-%06d-%08d",
+                random.nextInt(1_000_000), random.nextInt(100_000_000)));
+        return new OrderBusiness(id, orderNumber, new UserReference(UserId.newId(), new Username("creator")),
+                Timestamp.now());
+    }
+}
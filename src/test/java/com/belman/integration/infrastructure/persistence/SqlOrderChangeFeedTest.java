@@ -0,0 +1,237 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderChange;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlOrderChangeFeed;
+import com.belman.repository.persistence.sql.SqlOrderRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the order change feed written by SqlOrderRepository,
+ * using the in-memory SQLite test database.
+ */
+public class SqlOrderChangeFeedTest {
+
+    private static final UserBusiness UPLOADER = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("uploader"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("uploader@example.com"))
+            .build();
+
+    private SqlOrderRepository orderRepository;
+    private SqlOrderChangeFeed changeFeed;
+    private long cursor;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        orderRepository = new SqlOrderRepository(TestDatabaseConfig.getDataSource());
+        changeFeed = new SqlOrderChangeFeed(TestDatabaseConfig.getDataSource());
+        // The test database is shared, so each test only looks at the changes it makes
+        cursor = changeFeed.findLatestSequence();
+    }
+
+    @Test
+    void save_newOrderWithPhoto_shouldRecordPhotoAndOrderChanges() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        PhotoDocument photo = newPhoto();
+        order.addPhoto(photo);
+
+        // Act
+        orderRepository.save(order);
+        List<OrderChange> changes = changeFeed.findChangesSince(cursor, 100);
+
+        // Assert
+        assertEquals(2, changes.size(), "The photo and the order should each be recorded once");
+        assertEquals(OrderChange.EntityType.PHOTO, changes.get(0).entityType());
+        assertEquals(photo.getPhotoId().id(), changes.get(0).entityId());
+        assertEquals(OrderChange.EntityType.ORDER, changes.get(1).entityType());
+        assertEquals(order.getId(), changes.get(1).orderId());
+        assertEquals(OrderChange.Operation.UPSERT, changes.get(1).operation());
+        assertTrue(changes.get(0).sequence() < changes.get(1).sequence(), "Sequences should increase");
+        assertEquals(changes.get(1).sequence(), changeFeed.findLatestSequence());
+    }
+
+    @Test
+    void save_existingOrder_shouldRecordOnlyNewChanges() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        orderRepository.save(order);
+        long afterInsert = changeFeed.findLatestSequence();
+
+        // Act
+        order.addPhoto(newPhoto());
+        orderRepository.save(order);
+        List<OrderChange> changes = changeFeed.findChangesSince(afterInsert, 100);
+
+        // Assert
+        assertEquals(List.of(OrderChange.EntityType.PHOTO, OrderChange.EntityType.ORDER),
+                changes.stream().map(OrderChange::entityType).toList());
+        assertTrue(changes.stream().allMatch(change -> change.orderId().equals(order.getId())));
+    }
+
+    @Test
+    void save_afterReviewingOnePhoto_shouldRecordOnlyThatPhoto() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        PhotoDocument reviewed = newPhoto();
+        order.addPhoto(newPhoto());
+        order.addPhoto(reviewed);
+        order.addPhoto(newPhoto());
+        orderRepository.save(order);
+        long afterInsert = changeFeed.findLatestSequence();
+
+        // Act
+        reviewed.approve(UserReference.from(UPLOADER), Timestamp.now());
+        orderRepository.save(order);
+        List<OrderChange> changes = changeFeed.findChangesSince(afterInsert, 100);
+
+        // Assert
+        assertEquals(List.of(OrderChange.EntityType.PHOTO, OrderChange.EntityType.ORDER),
+                changes.stream().map(OrderChange::entityType).toList(),
+                "Unchanged photos should not be recorded again");
+        assertEquals(reviewed.getPhotoId().id(), changes.get(0).entityId());
+        assertTrue(orderRepository.findById(order.getId()).orElseThrow().getPhotos().stream()
+                .anyMatch(photo -> photo.getPhotoId().equals(reviewed.getPhotoId())
+                                   && photo.getStatus() == PhotoDocument.ApprovalStatus.APPROVED));
+    }
+
+    @Test
+    void deleteById_shouldRecordDelete() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        orderRepository.save(order);
+        long afterInsert = changeFeed.findLatestSequence();
+
+        // Act
+        boolean deleted = orderRepository.deleteById(order.getId());
+        List<OrderChange> changes = changeFeed.findChangesSince(afterInsert, 100);
+
+        // Assert
+        assertTrue(deleted);
+        assertEquals(1, changes.size());
+        assertEquals(OrderChange.Operation.DELETE, changes.get(0).operation());
+        assertEquals(order.getId(), changes.get(0).orderId());
+    }
+
+    @Test
+    void insertAll_withStoredOrder_shouldInsertOnlyNewOrdersAndRecordTheirChanges() {
+        // Arrange
+        OrderBusiness stored = newOrder();
+        orderRepository.save(stored);
+        long afterSave = changeFeed.findLatestSequence();
+        OrderBusiness first = newOrder();
+        first.addPhoto(newPhoto());
+        OrderBusiness second = newOrder();
+
+        // Act
+        List<OrderBusiness> inserted = orderRepository.insertAll(List.of(stored, first, second));
+        List<OrderChange> changes = changeFeed.findChangesSince(afterSave, 100);
+
+        // Assert
+        assertEquals(List.of(first, second), inserted, "The stored order should be skipped");
+        assertEquals(1, orderRepository.findById(first.getId()).orElseThrow().getPhotos().size());
+        assertEquals(List.of(OrderChange.EntityType.PHOTO, OrderChange.EntityType.ORDER, OrderChange.EntityType.ORDER),
+                changes.stream().map(OrderChange::entityType).toList());
+        assertEquals(second.getId(), changes.get(2).orderId());
+    }
+
+    @Test
+    void findChangesSince_withLimit_shouldPageInSequenceOrder() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            orderRepository.save(newOrder());
+        }
+
+        // Act
+        List<OrderChange> firstPage = changeFeed.findChangesSince(cursor, 3);
+        List<OrderChange> secondPage = changeFeed.findChangesSince(firstPage.get(2).sequence(), 3);
+
+        // Assert
+        assertEquals(3, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertTrue(firstPage.get(2).sequence() < secondPage.get(0).sequence());
+        assertTrue(changeFeed.findChangesSince(secondPage.get(1).sequence(), 3).isEmpty());
+    }
+
+    @Test
+    void pruneAcknowledged_withActiveAndStaleConsumers_shouldPruneUpToSlowestActiveConsumer() throws Exception {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            orderRepository.save(newOrder());
+        }
+        List<OrderChange> changes = changeFeed.findChangesSince(cursor, 100);
+        changeFeed.acknowledge(UUID.randomUUID().toString(), cursor);
+        Thread.sleep(100);
+        String slow = UUID.randomUUID().toString();
+        changeFeed.acknowledge(slow, cursor);
+        changeFeed.acknowledge(slow, changes.get(0).sequence());
+        changeFeed.acknowledge(UUID.randomUUID().toString(), changes.get(2).sequence());
+
+        // Act
+        int pruned = changeFeed.pruneAcknowledged(Duration.ofMillis(50));
+
+        // Assert
+        assertTrue(pruned >= 1, "The changes every active consumer applied should be pruned");
+        assertEquals(changes.get(0).sequence(), changeFeed.findPrunedSequence(),
+                "The stale consumer should not hold back pruning");
+        assertEquals(changes.subList(1, 3), changeFeed.findChangesSince(cursor, 100));
+        assertEquals(0, changeFeed.pruneAcknowledged(Duration.ofMillis(50)), "Nothing more should be pruned");
+    }
+
+    @Test
+    void settleChanges_rangeWithCommittedChanges_shouldReturnThem() {
+        // Arrange
+        orderRepository.save(newOrder());
+        orderRepository.save(newOrder());
+        List<OrderChange> changes = changeFeed.findChangesSince(cursor, 100);
+
+        // Act
+        List<OrderChange> settled = changeFeed.settleChanges(cursor, changes.get(0).sequence());
+
+        // Assert
+        assertEquals(List.of(changes.get(0)), settled);
+    }
+
+    private static OrderBusiness newOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderNumber orderNumber = new OrderNumber(String.format("01/26-%06d-%08d",
+                random.nextInt(1_000_000), random.nextInt(100_000_000)));
+        return new OrderBusiness(OrderId.newId(), orderNumber,
+                new UserReference(UserId.newId(), new Username("creator")), Timestamp.now());
+    }
+
+    private static PhotoDocument newPhoto() {
+        return PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                .imagePath(new Photo("/path/to/photo.jpg"))
+                .uploadedBy(UPLOADER)
+                .uploadedAt(Timestamp.now())
+                .build();
+    }
+}
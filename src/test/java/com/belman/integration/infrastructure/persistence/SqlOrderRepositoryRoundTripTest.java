@@ -0,0 +1,266 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.customer.CustomerId;
+import com.belman.domain.order.DeliveryInformation;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.order.ProductDescription;
+import com.belman.domain.order.photo.ImageMetadata;
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoAnnotation;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.security.HmacCredentialDigester;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlOrderRepository;
+import com.belman.repository.persistence.sql.SqlPhotoRepository;
+import com.belman.repository.persistence.sql.SqlUserRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for saving orders with photos through SqlOrderRepository and loading them
+ * back, using the in-memory SQLite test database.
+ */
+public class SqlOrderRepositoryRoundTripTest {
+
+    private static final byte[] KEY = "test-credential-key-0123456789".getBytes(StandardCharsets.UTF_8);
+    private static final Instant UPLOADED_AT = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    private SqlOrderRepository orderRepository;
+    private UserBusiness uploader;
+    private UserBusiness reviewer;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        orderRepository = new SqlOrderRepository(TestDatabaseConfig.getDataSource());
+        SqlUserRepository userRepository = new SqlUserRepository(TestDatabaseConfig.getDataSource(),
+                new HmacCredentialDigester(KEY));
+        uploader = userRepository.save(newUser("uploader"));
+        reviewer = userRepository.save(newUser("reviewer"));
+    }
+
+    @Test
+    void findById_savedOrderWithPhotos_shouldRestoreOrderFields() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        order.addPhoto(newPhoto(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY));
+        orderRepository.save(order);
+
+        // Act
+        OrderBusiness loaded = new SqlOrderRepository(TestDatabaseConfig.getDataSource())
+                .findById(order.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(order.getId(), loaded.getId());
+        assertEquals(order.getOrderNumber(), loaded.getOrderNumber());
+        assertEquals(order.getCustomerId(), loaded.getCustomerId());
+        assertEquals(order.getProductDescription(), loaded.getProductDescription());
+        assertEquals(order.getDeliveryInformation(), loaded.getDeliveryInformation());
+        assertEquals(order.getStatus(), loaded.getStatus());
+        assertEquals(order.getCreatedBy(), loaded.getCreatedBy());
+        assertEquals(1, loaded.getVersion());
+        assertEquals(1, loaded.getPhotos().size());
+    }
+
+    @Test
+    void findById_savedOrderWithReviewedPhotos_shouldRestorePhotos() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        PhotoDocument approved = newPhoto(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY);
+        PhotoDocument rejected = newPhoto(PhotoTemplate.CLOSE_UP_OF_WELD);
+        PhotoDocument pending = newPhoto(new PhotoTemplate("FLANGE_DETAIL", "Take a photo of the flange."));
+        order.addPhoto(approved);
+        order.addPhoto(rejected);
+        order.addPhoto(pending);
+        Timestamp reviewedAt = new Timestamp(UPLOADED_AT.plusSeconds(60));
+        order.approvePhoto(approved.getPhotoId(), reference(reviewer), reviewedAt);
+        order.rejectPhoto(rejected.getPhotoId(), reference(reviewer), reviewedAt, "Out of focus");
+        orderRepository.save(order);
+
+        // Act
+        OrderBusiness loaded = orderRepository.findById(order.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(3, loaded.getPhotos().size());
+        PhotoDocument loadedApproved = photo(loaded, approved.getPhotoId());
+        assertEquals(PhotoDocument.ApprovalStatus.APPROVED, loadedApproved.getStatus());
+        assertEquals(reference(reviewer), loadedApproved.getReviewedBy());
+        assertEquals(reviewedAt, loadedApproved.getReviewedAt());
+        assertEquals(approved.getTemplate(), loadedApproved.getTemplate());
+        assertEquals(approved.getImagePath(), loadedApproved.getImagePath());
+        assertEquals(uploader.getId(), loadedApproved.getUploadedBy().getId());
+        assertEquals(approved.getUploadedAt(), loadedApproved.getUploadedAt());
+        assertEquals(approved.getQualityScore(), loadedApproved.getQualityScore());
+        assertEquals(approved.getPerceptualHash(), loadedApproved.getPerceptualHash());
+        assertEquals(approved.getImageMetadata(), loadedApproved.getImageMetadata());
+        assertEquals(order.getId(), loadedApproved.getOrderId());
+
+        PhotoDocument loadedRejected = photo(loaded, rejected.getPhotoId());
+        assertEquals(PhotoDocument.ApprovalStatus.REJECTED, loadedRejected.getStatus());
+        assertEquals("Out of focus", loadedRejected.getReviewComment());
+
+        PhotoDocument loadedPending = photo(loaded, pending.getPhotoId());
+        assertTrue(loadedPending.isPending());
+        assertEquals("FLANGE_DETAIL", loadedPending.getTemplate().name());
+        assertTrue(loaded.getApprovedTemplateCoverage().contains(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY),
+                "The coverage of a loaded order should include its approved photos");
+    }
+
+    @Test
+    void save_reviewOfLoadedOrder_shouldBeVisibleAfterReload() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        PhotoDocument photo = newPhoto(PhotoTemplate.SIDE_VIEW_OF_WELD);
+        order.addPhoto(photo);
+        orderRepository.save(order);
+        OrderBusiness loaded = orderRepository.findById(order.getId()).orElseThrow();
+
+        // Act
+        loaded.approvePhoto(photo.getPhotoId(), reference(reviewer), Timestamp.now());
+        loaded.setStatus(OrderStatus.COMPLETED);
+        orderRepository.save(loaded);
+        OrderBusiness reloaded = orderRepository.findById(order.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(OrderStatus.COMPLETED, reloaded.getStatus());
+        assertEquals(2, reloaded.getVersion());
+        assertTrue(photo(reloaded, photo.getPhotoId()).isApproved(), "The approval should survive a reload");
+        List<PhotoDocument> approvedPhotos = new SqlPhotoRepository(TestDatabaseConfig.getDataSource())
+                .findByOrderId(order.getId());
+        assertEquals(1, approvedPhotos.size());
+        assertTrue(approvedPhotos.get(0).isApproved(), "The photo repository should read the same photos");
+    }
+
+    @Test
+    void save_newOrderWithAnnotatedPhotos_shouldLoadAnnotationsAfterReload() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        PhotoAnnotation issue = new PhotoAnnotation("a1", 0.25, 0.75, "Scratch on the weld seam",
+                PhotoAnnotation.AnnotationType.ISSUE);
+        PhotoDocument annotated = PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.CLOSE_UP_OF_WELD)
+                .imagePath(new Photo("photos/" + UUID.randomUUID() + ".jpg"))
+                .uploadedBy(uploader)
+                .uploadedAt(new Timestamp(UPLOADED_AT))
+                .addAnnotation(issue)
+                .build();
+        PhotoDocument plain = newPhoto(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY);
+        order.addPhoto(annotated);
+        order.addPhoto(plain);
+        OrderBusiness batched = newOrder();
+        PhotoDocument batchedPhoto = PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.SIDE_VIEW_OF_WELD)
+                .imagePath(new Photo("photos/" + UUID.randomUUID() + ".jpg"))
+                .uploadedBy(uploader)
+                .uploadedAt(new Timestamp(UPLOADED_AT))
+                .addAnnotation(issue)
+                .build();
+        batched.addPhoto(batchedPhoto);
+
+        // Act
+        orderRepository.save(order);
+        orderRepository.insertAll(List.of(batched));
+        OrderBusiness loaded = orderRepository.findById(order.getId()).orElseThrow();
+        OrderBusiness loadedBatch = orderRepository.findById(batched.getId()).orElseThrow();
+
+        // Assert
+        PhotoDocument loadedAnnotated = photo(loaded, annotated.getPhotoId());
+        assertFalse(loadedAnnotated.areAnnotationsLoaded(), "Annotations should be loaded when first read");
+        assertEquals(List.of(issue), loadedAnnotated.getAnnotations());
+        assertTrue(photo(loaded, plain.getPhotoId()).getAnnotations().isEmpty());
+        assertEquals(List.of(issue), photo(loadedBatch, batchedPhoto.getPhotoId()).getAnnotations(),
+                "Annotations of orders inserted in a batch should be stored too");
+    }
+
+    @Test
+    void findByOrderNumber_photoUploadedByDeletedUser_shouldKeepUploaderId() {
+        // Arrange
+        OrderBusiness order = newOrder();
+        UserBusiness unknown = newUser("former");
+        order.addPhoto(PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.TOP_VIEW_OF_JOINT)
+                .imagePath(new Photo("photos/former.jpg"))
+                .uploadedBy(unknown)
+                .uploadedAt(new Timestamp(UPLOADED_AT))
+                .build());
+        orderRepository.save(order);
+
+        // Act
+        OrderBusiness loaded = orderRepository.findByOrderNumber(order.getOrderNumber()).orElseThrow();
+
+        // Assert
+        assertEquals(unknown.getId(), loaded.getPhotos().get(0).getUploadedBy().getId());
+    }
+
+    private OrderBusiness newOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        OrderNumber orderNumber = new OrderNumber(String.format("01/26-%06d-%08d",
+                random.nextInt(1_000_000), random.nextInt(100_000_000)));
+        return new OrderBusiness(OrderId.newId(), orderNumber, CustomerId.newId(),
+                new ProductDescription("Pipe bend", "DN150, 90 degrees", null),
+                new DeliveryInformation("Industrivej 1, 7400 Herning", LocalDate.of(2026, 11, 2), "Jane Doe",
+                        new EmailAddress("jane.doe@example.com"), "Deliver before noon"),
+                reference(uploader), new Timestamp(UPLOADED_AT));
+    }
+
+    private PhotoDocument newPhoto(PhotoTemplate template) {
+        return PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(template)
+                .imagePath(new Photo("photos/" + UUID.randomUUID() + ".jpg"))
+                .uploadedBy(uploader)
+                .uploadedAt(new Timestamp(UPLOADED_AT))
+                .qualityScore(new ImageQualityScore(412.5, 118.25, 0.01, 0.002))
+                .perceptualHash(new PerceptualHash(0x8F3A_11C0_55AA_0F0FL))
+                .imageMetadata(new ImageMetadata(4032, 3024, 6, UPLOADED_AT.minusSeconds(30)))
+                .build();
+    }
+
+    private static PhotoDocument photo(OrderBusiness order, PhotoId photoId) {
+        return order.getPhotos().stream()
+                .filter(photo -> photo.getPhotoId().equals(photoId))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static UserReference reference(UserBusiness user) {
+        return new UserReference(user.getId(), user.getUsername());
+    }
+
+    private static UserBusiness newUser(String prefix) {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        return new UserBusiness.Builder()
+                .id(UserId.newId())
+                .username(new Username(prefix + "-" + suffix))
+                .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+                .email(new EmailAddress(prefix + "." + suffix + "@example.com"))
+                .build();
+    }
+}
@@ -0,0 +1,151 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoAnnotation;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlPhotoAnnotationRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for how SqlPhotoAnnotationRepository stores the annotations of photos,
+ * using the in-memory SQLite test database.
+ */
+public class SqlPhotoAnnotationRepositoryTest {
+
+    private static final UserBusiness UPLOADER = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("uploader"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("uploader@example.com"))
+            .build();
+
+    private SqlPhotoAnnotationRepository annotationRepository;
+    private OrderBusiness order;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        annotationRepository = new SqlPhotoAnnotationRepository(TestDatabaseConfig.getDataSource());
+        order = new OrderBusiness(OrderId.newId(),
+                new UserReference(UserId.newId(), new Username("creator")), Timestamp.now());
+    }
+
+    @Test
+    void findByPhotoId_afterSave_shouldRestoreAnnotationsInOrder() {
+        // Arrange
+        PhotoDocument photo = newPhoto(List.of(
+                new PhotoAnnotation("a1", 0.125, 0.5, "Scratch on the weld seam", PhotoAnnotation.AnnotationType.ISSUE),
+                new PhotoAnnotation("a2", 0.333333, 0.9, "", PhotoAnnotation.AnnotationType.NOTE),
+                new PhotoAnnotation("a3", 1.0, 0.0, "Længde 120 mm ✓", PhotoAnnotation.AnnotationType.ISSUE)));
+        order.addPhoto(photo);
+
+        // Act
+        annotationRepository.save(photo);
+        List<PhotoAnnotation> loaded = annotationRepository.findByPhotoId(photo.getPhotoId());
+
+        // Assert
+        List<PhotoAnnotation> saved = photo.getAnnotations();
+        assertEquals(saved.size(), loaded.size(), "All annotations should be stored");
+        for (int i = 0; i < saved.size(); i++) {
+            assertEquals(saved.get(i).getId(), loaded.get(i).getId(), "Annotations should keep their order");
+            assertEquals(saved.get(i).getType(), loaded.get(i).getType(), "Types should be restored");
+            assertEquals(saved.get(i).getText(), loaded.get(i).getText(), "Texts should be restored");
+            assertEquals(saved.get(i).getX(), loaded.get(i).getX(), 1e-6, "X should be restored to float precision");
+            assertEquals(saved.get(i).getY(), loaded.get(i).getY(), 1e-6, "Y should be restored to float precision");
+        }
+    }
+
+    @Test
+    void findByOrderId_withSeveralPhotos_shouldReturnAnnotatedPhotosOfOrderOnly() {
+        // Arrange
+        PhotoDocument annotated = newPhoto(List.of(
+                new PhotoAnnotation("a1", 0.2, 0.2, "Check paint", PhotoAnnotation.AnnotationType.HIGHLIGHT)));
+        PhotoDocument plain = newPhoto(List.of());
+        order.addPhoto(annotated);
+        order.addPhoto(plain);
+        annotationRepository.save(annotated);
+        annotationRepository.save(plain);
+
+        OrderBusiness otherOrder = new OrderBusiness(OrderId.newId(),
+                new UserReference(UserId.newId(), new Username("creator")), Timestamp.now());
+        PhotoDocument otherPhoto = newPhoto(List.of(
+                new PhotoAnnotation("b1", 0.7, 0.7, "Other order", PhotoAnnotation.AnnotationType.NOTE)));
+        otherOrder.addPhoto(otherPhoto);
+        annotationRepository.save(otherPhoto);
+
+        // Act
+        Map<PhotoId, List<PhotoAnnotation>> byPhoto = annotationRepository.findByOrderId(order.getId());
+
+        // Assert
+        assertEquals(1, byPhoto.size(), "Only the annotated photo of the order should have a row");
+        assertEquals("Check paint", byPhoto.get(annotated.getPhotoId()).get(0).getText(),
+                "The annotations should be keyed by photo ID");
+        assertTrue(annotationRepository.findByPhotoId(plain.getPhotoId()).isEmpty(),
+                "A photo without annotations should load an empty list");
+    }
+
+    @Test
+    void preloadAnnotations_withLazyPhotos_shouldNotCallLoaderOrReplaceLoadedAnnotations() {
+        // Arrange
+        AtomicInteger loaderCalls = new AtomicInteger();
+        PhotoDocument lazy = PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                .imagePath(new Photo("/path/to/photo.jpg"))
+                .uploadedBy(UPLOADER)
+                .uploadedAt(Timestamp.now())
+                .annotationLoader(() -> {
+                    loaderCalls.incrementAndGet();
+                    return List.of();
+                })
+                .build();
+        PhotoDocument loaded = newPhoto(List.of(
+                new PhotoAnnotation("edited", 0.5, 0.5, "Unsaved edit", PhotoAnnotation.AnnotationType.NOTE)));
+        order.addPhoto(lazy);
+        order.addPhoto(loaded);
+        PhotoAnnotation stored = new PhotoAnnotation("s1", 0.1, 0.9, "Stored", PhotoAnnotation.AnnotationType.MEASUREMENT);
+
+        // Act
+        boolean unloadedBefore = order.hasUnloadedAnnotations();
+        order.preloadAnnotations(Map.of(
+                lazy.getPhotoId(), List.of(stored),
+                loaded.getPhotoId(), List.of(stored)));
+
+        // Assert
+        assertTrue(unloadedBefore, "The lazy photo should count as unloaded");
+        assertFalse(order.hasUnloadedAnnotations(), "All photos should be loaded after preloading");
+        assertEquals(List.of(stored), lazy.getAnnotations(), "The lazy photo should use the preloaded annotations");
+        assertEquals(0, loaderCalls.get(), "The per-photo loader should not be called after preloading");
+        assertEquals("edited", loaded.getAnnotations().get(0).getId(), "Loaded annotations should not be replaced");
+    }
+
+    private static PhotoDocument newPhoto(List<PhotoAnnotation> annotations) {
+        return PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                .imagePath(new Photo("/path/to/photo.jpg"))
+                .uploadedBy(UPLOADER)
+                .uploadedAt(Timestamp.now())
+                .annotations(annotations)
+                .build();
+    }
+}
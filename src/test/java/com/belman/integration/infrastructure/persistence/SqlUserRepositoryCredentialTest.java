@@ -0,0 +1,133 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.security.HmacCredentialDigester;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserRole;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlUserRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the PIN and QR code lookups of SqlUserRepository,
+ * using the in-memory SQLite test database.
+ */
+public class SqlUserRepositoryCredentialTest {
+
+    private static final byte[] KEY = "test-credential-key-0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private DataSource dataSource;
+    private SqlUserRepository userRepository;
+    private UserBusiness testUser;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        dataSource = TestDatabaseConfig.getDataSource();
+        userRepository = new SqlUserRepository(dataSource, new HmacCredentialDigester(KEY));
+
+        String uniqueId = UUID.randomUUID().toString().substring(0, 8);
+        testUser = new UserBusiness.Builder()
+                .id(new UserId(UUID.randomUUID().toString()))
+                .username(new Username("pinuser_" + uniqueId))
+                .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+                .email(new EmailAddress("pinuser_" + uniqueId + "@example.com"))
+                .build();
+        testUser.addRole(UserRole.PRODUCTION);
+        userRepository.save(testUser);
+    }
+
+    @Test
+    void findByPinCode_withAssignedPin_shouldFindUserWithoutStoringPlainText() throws Exception {
+        // Arrange
+        String pinCode = uniquePin();
+        userRepository.assignPinCode(testUser.getId(), pinCode);
+
+        // Act
+        Optional<UserBusiness> found = userRepository.findByPinCode(pinCode);
+
+        // Assert
+        assertTrue(found.isPresent(), "User should be found by PIN code");
+        assertEquals(testUser.getId(), found.get().getId(), "The user with the PIN code should be found");
+        assertFalse(columnContains("pin_code_digest", pinCode), "The PIN code should not be stored in plain text");
+        assertTrue(userRepository.findByPinCode("0000x").isEmpty(), "An unknown PIN code should not match");
+    }
+
+    @Test
+    void findByPinCode_afterPinChanged_shouldNotReturnStaleCacheEntry() {
+        // Arrange
+        String oldPin = uniquePin();
+        String newPin = uniquePin();
+        userRepository.assignPinCode(testUser.getId(), oldPin);
+        assertTrue(userRepository.findByPinCode(oldPin).isPresent(), "Old PIN should be found before the change");
+
+        // Act
+        userRepository.assignPinCode(testUser.getId(), newPin);
+
+        // Assert
+        assertTrue(userRepository.findByPinCode(oldPin).isEmpty(), "Old PIN should no longer be accepted");
+        assertTrue(userRepository.findByPinCode(newPin).isPresent(), "New PIN should be accepted");
+    }
+
+    @Test
+    void findByPinCode_afterPinRevokedOnAnotherDevice_shouldNotFindUser() {
+        // Arrange
+        String pinCode = uniquePin();
+        userRepository.assignPinCode(testUser.getId(), pinCode);
+        assertTrue(userRepository.findByPinCode(pinCode).isPresent(), "PIN should be found before it is revoked");
+        SqlUserRepository otherDevice = new SqlUserRepository(dataSource, new HmacCredentialDigester(KEY));
+
+        // Act
+        otherDevice.assignPinCode(testUser.getId(), null);
+
+        // Assert
+        assertTrue(userRepository.findByPinCode(pinCode).isEmpty(), "A revoked PIN should no longer be accepted");
+    }
+
+    @Test
+    void findByQrCodeHash_withLegacyPlainTextValue_shouldMigrateToDigest() throws Exception {
+        // Arrange
+        String qrCode = "badge-" + UUID.randomUUID();
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("UPDATE users SET qr_code_hash = ? WHERE id = ?")) {
+            stmt.setString(1, qrCode);
+            stmt.setString(2, testUser.getId().id());
+            stmt.executeUpdate();
+        }
+
+        // Act
+        Optional<UserBusiness> found = userRepository.findByQrCodeHash(qrCode);
+
+        // Assert
+        assertTrue(found.isPresent(), "User should be found by the migrated QR code");
+        assertFalse(columnContains("qr_code_hash", qrCode), "The plain text QR code should be removed");
+    }
+
+    private static String uniquePin() {
+        return UUID.randomUUID().toString().substring(0, 6);
+    }
+
+    private boolean columnContains(String column, String value) throws Exception {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT COUNT(*) FROM users WHERE " + column + " = ?")) {
+            stmt.setString(1, value);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+}
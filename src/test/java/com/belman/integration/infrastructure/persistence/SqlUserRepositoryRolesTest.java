@@ -0,0 +1,108 @@
+package com.belman.integration.infrastructure.persistence;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.PersonName;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.security.HmacCredentialDigester;
+import com.belman.domain.user.ApprovalState;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserRole;
+import com.belman.domain.user.UserStatus;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.sql.SqlUserRepository;
+import com.belman.test.util.TestDatabaseConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for how SqlUserRepository loads and writes user roles,
+ * using the in-memory SQLite test database.
+ */
+public class SqlUserRepositoryRolesTest {
+
+    private static final byte[] KEY = "test-credential-key-0123456789".getBytes(StandardCharsets.UTF_8);
+
+    private SqlUserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        TestDatabaseConfig.initialize();
+        userRepository = new SqlUserRepository(TestDatabaseConfig.getDataSource(), new HmacCredentialDigester(KEY));
+    }
+
+    @Test
+    void save_withChangedRoles_shouldStoreOnlyCurrentRoles() {
+        // Arrange
+        UserBusiness user = newUser();
+        user.addRole(UserRole.PRODUCTION);
+        user.addRole(UserRole.QA);
+        userRepository.save(user);
+
+        // Act
+        user.removeRole(UserRole.PRODUCTION);
+        user.addRole(UserRole.ADMIN);
+        userRepository.save(user);
+        Optional<UserBusiness> loaded = userRepository.findById(user.getId());
+
+        // Assert
+        assertTrue(loaded.isPresent(), "Saved user should be found");
+        assertEquals(Set.of(UserRole.QA, UserRole.ADMIN), loaded.get().getRoles(), "Roles should match the saved user");
+    }
+
+    @Test
+    void findByRole_withSeveralUsers_shouldLoadAllRolesOfEachUser() {
+        // Arrange
+        UserBusiness first = newUser();
+        first.addRole(UserRole.QA);
+        first.addRole(UserRole.PRODUCTION);
+        UserBusiness second = newUser();
+        second.addRole(UserRole.QA);
+        userRepository.save(first);
+        userRepository.save(second);
+
+        // Act
+        List<UserBusiness> qaUsers = userRepository.findByRole(UserRole.QA);
+
+        // Assert
+        UserBusiness loadedFirst = qaUsers.stream().filter(u -> u.getId().equals(first.getId())).findFirst().orElseThrow();
+        UserBusiness loadedSecond = qaUsers.stream().filter(u -> u.getId().equals(second.getId())).findFirst().orElseThrow();
+        assertEquals(Set.of(UserRole.QA, UserRole.PRODUCTION), loadedFirst.getRoles(),
+                "Roles other than the queried role should also be loaded");
+        assertEquals(Set.of(UserRole.QA), loadedSecond.getRoles(), "Roles should not leak between users");
+    }
+
+    @Test
+    void findById_afterSave_shouldRestoreNameAndStatus() {
+        // Arrange
+        UserBusiness user = newUser();
+        user.setName(new PersonName("Test", "Worker"));
+        user.setApprovalState(ApprovalState.createApproved());
+        userRepository.save(user);
+
+        // Act
+        UserBusiness loaded = userRepository.findById(user.getId()).orElseThrow();
+
+        // Assert
+        assertEquals(user.getName(), loaded.getName(), "Name should be stored without reflection lookups");
+        assertEquals(UserStatus.ACTIVE, loaded.getStatus(), "An approved user should still be active after loading");
+    }
+
+    private static UserBusiness newUser() {
+        String uniqueId = UUID.randomUUID().toString().substring(0, 8);
+        return new UserBusiness.Builder()
+                .id(new UserId(UUID.randomUUID().toString()))
+                .username(new Username("roleuser_" + uniqueId))
+                .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+                .email(new EmailAddress("roleuser_" + uniqueId + "@example.com"))
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.belman.service.usecase.report;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ZIP records written by the package-private StreamingZipWriter.
+ */
+class StreamingZipWriterTest {
+
+    private static final String COMMENT = "Order 07/23-000033-00000004";
+    private static final int ZIP64_END_OF_CENTRAL_DIRECTORY = 0x06064b50;
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void finish_with65536Entries_shouldWriteZip64EndOfCentralDirectory() throws IOException {
+        // Arrange
+        int entryCount = 65_536;
+        Path zip = tempDir.resolve("zip64.zip");
+
+        // Act
+        writeEmptyEntries(zip, entryCount);
+
+        // Assert
+        ByteBuffer tail = readTail(zip, 56 + 20 + 22);
+        assertEquals(ZIP64_END_OF_CENTRAL_DIRECTORY, tail.getInt(0),
+                "The ZIP64 end of central directory record should be present");
+        assertEquals(0x07064b50, tail.getInt(56), "The ZIP64 locator should be present");
+        assertEquals(entryCount, tail.getLong(32), "The ZIP64 record should hold the entry count");
+        assertEquals(0xFFFF, Short.toUnsignedInt(tail.getShort(76 + 10)),
+                "The classic end record should defer the entry count to the ZIP64 record");
+        try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+            assertEquals(entryCount, zipFile.size());
+            assertNotNull(zipFile.getEntry("entry-65535"));
+        }
+    }
+
+    @Test
+    void finish_withFewEntries_shouldWriteClassicEndOfCentralDirectoryOnly() throws IOException {
+        // Arrange
+        Path zip = tempDir.resolve("classic.zip");
+
+        // Act
+        writeEmptyEntries(zip, 3);
+
+        // Assert
+        ByteBuffer tail = readTail(zip, 56 + 20 + 22);
+        assertNotEquals(ZIP64_END_OF_CENTRAL_DIRECTORY, tail.getInt(0), "No ZIP64 record should be written");
+        assertEquals(END_OF_CENTRAL_DIRECTORY, tail.getInt(76));
+        assertEquals(3, Short.toUnsignedInt(tail.getShort(76 + 10)));
+    }
+
+    private static void writeEmptyEntries(Path zip, int count) throws IOException {
+        try (FileChannel channel = FileChannel.open(zip, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             StreamingZipWriter writer = new StreamingZipWriter(channel, LocalDateTime.now())) {
+            for (int i = 0; i < count; i++) {
+                writer.addDeflated("entry-" + i, new byte[0]);
+            }
+            writer.finish(COMMENT);
+        }
+    }
+
+    // The end of the archive: the ZIP64 record and locator, if any, then the classic end record
+    private static ByteBuffer readTail(Path zip, int recordsLength) throws IOException {
+        int tailLength = recordsLength + COMMENT.getBytes(StandardCharsets.UTF_8).length;
+        ByteBuffer tail = ByteBuffer.allocate(tailLength).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel in = FileChannel.open(zip, StandardOpenOption.READ)) {
+            in.read(tail, in.size() - tailLength);
+        }
+        return tail;
+    }
+}
@@ -0,0 +1,46 @@
+package com.belman.test.util;
+
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Pre-screen decoder for tests, which run on a desktop JVM without the JavaFX toolkit.
+ * <p>
+ * Images are decoded with ImageIO, skipping rows and columns so the longest edge is at most the
+ * maximum edge.
+ */
+public class ImageIoPixelDecoder implements ImageQualityPrescreener.Decoder {
+
+    @Override
+    public ImageQualityPrescreener.Pixels decode(Path imageFile, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(imageFile.toFile())) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("No image reader for " + imageFile.getFileName());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                int subsampling = Math.max(1, (longest + maxEdge - 1) / maxEdge);
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage image = reader.read(0, param);
+                int width = image.getWidth();
+                int height = image.getHeight();
+                return new ImageQualityPrescreener.Pixels(width, height,
+                        image.getRGB(0, 0, width, height, null, 0, width));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.belman.test.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal SMTP server on the loopback interface for tests.
+ * <p>
+ * Accepts every message and records it. It can be told to answer a number of DATA commands
+ * with a temporary failure, and to reject recipient addresses permanently.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+    private final ServerSocket serverSocket;
+    private final List<ReceivedMessage> messages = new CopyOnWriteArrayList<>();
+    private final Set<String> rejectedRecipients = new HashSet<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger temporaryFailures = new AtomicInteger();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+
+    /**
+     * Starts the server on a free port.
+     *
+     * @throws IOException if the server socket cannot be opened
+     */
+    public LocalSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptConnections, "local-smtp-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public List<ReceivedMessage> getMessages() {
+        return messages;
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * Makes the next DATA commands fail with a temporary (451) reply.
+     *
+     * @param count the number of DATA commands to fail
+     */
+    public void failNextMessages(int count) {
+        temporaryFailures.set(count);
+    }
+
+    /**
+     * Makes RCPT commands for the address fail with a permanent (550) reply.
+     *
+     * @param address the address to reject
+     */
+    public synchronized void rejectRecipient(String address) {
+        rejectedRecipients.add(address.toLowerCase());
+    }
+
+    /**
+     * Waits until the server has accepted the given number of messages.
+     *
+     * @param count         the number of messages to wait for
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the messages arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitMessages(int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (messages.size() < count) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                sockets.add(socket);
+                Thread session = new Thread(() -> serve(socket), "local-smtp-session");
+                session.setDaemon(true);
+                session.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            reply(out, "220 localhost ESMTP test server");
+            List<String> recipients = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 localhost");
+                    case "MAIL" -> {
+                        recipients.clear();
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        String address = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>'));
+                        if (isRejected(address)) {
+                            reply(out, "550 No such user");
+                        } else {
+                            recipients.add(address);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        String data = readData(in);
+                        if (temporaryFailures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                            reply(out, "451 Try again later");
+                        } else {
+                            messages.add(new ReceivedMessage(List.copyOf(recipients), data));
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "502 Command not implemented");
+                }
+            }
+        } catch (SocketException e) {
+            // Closed by the client or by close()
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized boolean isRejected(String address) {
+        return rejectedRecipients.contains(address.toLowerCase());
+    }
+
+    private static String readData(BufferedReader in) throws IOException {
+        StringBuilder data = new StringBuilder();
+        String line;
+        while ((line = in.readLine()) != null && !line.equals(".")) {
+            data.append(line.startsWith("..") ? line.substring(1) : line).append("\r\n");
+        }
+        return data.toString();
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    /**
+     * A message accepted by the server.
+     *
+     * @param recipients the accepted recipients
+     * @param data       the message as sent after DATA
+     */
+    public record ReceivedMessage(List<String> recipients, String data) {
+    }
+}
@@ -1,15 +1,12 @@
 package com.belman.test.util;
 
+import com.belman.bootstrap.persistence.DatabaseConfig;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
-import org.flywaydb.core.Flyway;
 
 import javax.sql.DataSource;
 import java.io.IOException;
 import java.io.InputStream;
-import java.sql.Connection;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.Properties;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -64,54 +61,13 @@ public class TestDatabaseConfig {
      */
     private static void runMigrations() {
         try {
-            // For SQLite, we'll create the tables directly instead of using Flyway migrations
-            // This is because the SQL Server migrations might use features not supported by SQLite
-            createTestTables();
+            // Use the embedded profile's schema, without the default users, so tests see the same tables
+            DatabaseConfig.migrateSqlite(dataSource, false);
 
-            LOGGER.info("Test database tables created successfully");
+            LOGGER.info("Test database migrations applied successfully");
         } catch (Exception e) {
-            LOGGER.log(Level.SEVERE, "Failed to create test database tables", e);
-            throw new RuntimeException("Failed to create test database tables", e);
-        }
-    }
-
-    /**
-     * Creates the necessary tables for testing.
-     */
-    private static void createTestTables() throws SQLException {
-        try (Connection conn = dataSource.getConnection()) {
-            // Create users table
-            try (Statement stmt = conn.createStatement()) {
-                stmt.execute("CREATE TABLE IF NOT EXISTS users (" +
-                        "id VARCHAR(36) PRIMARY KEY, " +
-                        "username VARCHAR(50) NOT NULL UNIQUE, " +
-                        "password VARCHAR(100) NOT NULL, " +
-                        "first_name VARCHAR(50), " +
-                        "last_name VARCHAR(50), " +
-                        "email VARCHAR(100) NOT NULL UNIQUE, " +
-                        "status VARCHAR(20) NOT NULL, " +
-                        "approval_state VARCHAR(20) NOT NULL DEFAULT 'APPROVED', " +
-                        "phone_number VARCHAR(20), " +
-                        "pin_code VARCHAR(10), " +
-                        "qr_code_hash VARCHAR(100), " +
-                        "created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, " +
-                        "updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP" +
-                        ")");
-
-                // Create user_roles table
-                stmt.execute("CREATE TABLE IF NOT EXISTS user_roles (" +
-                        "user_id VARCHAR(36) NOT NULL, " +
-                        "role VARCHAR(20) NOT NULL, " +
-                        "PRIMARY KEY (user_id, role), " +
-                        "FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE" +
-                        ")");
-
-                // Create indexes
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_username ON users (username)");
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_email ON users (email)");
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_pin_code ON users (pin_code)");
-                stmt.execute("CREATE INDEX IF NOT EXISTS idx_users_qr_code_hash ON users (qr_code_hash)");
-            }
+            LOGGER.log(Level.SEVERE, "Failed to migrate test database", e);
+            throw new RuntimeException("Failed to migrate test database", e);
         }
     }
 
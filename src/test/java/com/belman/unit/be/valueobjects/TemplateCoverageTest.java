@@ -0,0 +1,139 @@
+package com.belman.unit.be.valueobjects;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.PhotoTemplateRegistry;
+import com.belman.domain.order.photo.TemplateCoverage;
+import com.belman.domain.order.photo.services.PhotoApprovalService;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the TemplateCoverage value object and the approved template coverage of orders.
+ */
+public class TemplateCoverageTest {
+
+    private static final UserBusiness UPLOADER = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("uploader"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("uploader@example.com"))
+            .build();
+    private static final UserReference REVIEWER = new UserReference(UserId.newId(), new Username("reviewer"));
+
+    @AfterEach
+    void tearDown() {
+        // Forget the templates registered by the tests, which other test classes must not see
+        PhotoTemplateRegistry.reset();
+    }
+
+    @Test
+    void countMissingFrom_withPartialCoverage_shouldCountOnlyMissingTemplates() {
+        // Arrange
+        TemplateCoverage required = TemplateCoverage.of(List.of(
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, PhotoTemplate.BACK_VIEW_OF_ASSEMBLY,
+                PhotoTemplate.SIDE_VIEW_OF_WELD));
+        TemplateCoverage provided = TemplateCoverage.of(List.of(
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, PhotoTemplate.CLOSE_UP_OF_WELD));
+
+        // Act
+        int missing = required.countMissingFrom(provided);
+
+        // Assert
+        assertEquals(2, missing, "Back and side views should be missing");
+        assertEquals(List.of(PhotoTemplate.SIDE_VIEW_OF_WELD, PhotoTemplate.BACK_VIEW_OF_ASSEMBLY),
+                required.missingFrom(provided), "Missing templates should be listed");
+        assertFalse(required.isCoveredBy(provided), "Partial coverage should not satisfy the requirement");
+    }
+
+    @Test
+    void with_templateBeyondFirstWord_shouldBeContained() {
+        // Arrange
+        TemplateCoverage coverage = TemplateCoverage.EMPTY;
+        for (int i = 0; i < 70; i++) {
+            coverage = coverage.with(new PhotoTemplate("EXTRA_VIEW_" + i, "Extra view " + i));
+        }
+
+        // Act
+        PhotoTemplate sameName = new PhotoTemplate("EXTRA_VIEW_69", "Other instructions");
+
+        // Assert
+        assertEquals(70, coverage.size(), "All added templates should be counted");
+        assertTrue(coverage.contains(sameName), "Templates should be identified by name");
+        assertFalse(coverage.contains(PhotoTemplate.CUSTOM), "Templates that were not added should be absent");
+    }
+
+    @Test
+    void approvePhoto_onOrder_shouldUpdateApprovedTemplateCoverage() {
+        // Arrange
+        OrderBusiness order = new OrderBusiness(OrderId.newId(), REVIEWER, Timestamp.now());
+        PhotoDocument front = newPhoto(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY);
+        PhotoDocument back = newPhoto(PhotoTemplate.BACK_VIEW_OF_ASSEMBLY);
+        order.addPhoto(front);
+        order.addPhoto(back);
+        TemplateCoverage required = TemplateCoverage.of(List.of(
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, PhotoTemplate.BACK_VIEW_OF_ASSEMBLY));
+        assertEquals(2, required.countMissingFrom(order.getApprovedTemplateCoverage()),
+                "No template should be covered before approval");
+
+        // Act
+        order.approvePhoto(front.getPhotoId(), REVIEWER, Timestamp.now());
+        order.rejectPhoto(back.getPhotoId(), REVIEWER, Timestamp.now(), "Blurry");
+
+        // Assert
+        assertEquals(1, required.countMissingFrom(order.getApprovedTemplateCoverage()),
+                "Only the approved photo should cover its template");
+        assertTrue(order.getApprovedTemplateCoverage().contains(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY));
+        assertThrows(IllegalArgumentException.class,
+                () -> order.approvePhoto(PhotoId.newId(), REVIEWER, Timestamp.now()),
+                "Photos of other orders should not be approvable through this order");
+    }
+
+    @Test
+    void approvePhoto_throughPhotoApprovalService_shouldUpdateApprovedTemplateCoverage() {
+        // Arrange
+        OrderBusiness order = new OrderBusiness(OrderId.newId(), REVIEWER, Timestamp.now());
+        PhotoDocument side = newPhoto(PhotoTemplate.SIDE_VIEW_OF_WELD);
+        order.addPhoto(side);
+        assertFalse(order.getApprovedTemplateCoverage().contains(PhotoTemplate.SIDE_VIEW_OF_WELD),
+                "The template should not be covered before approval");
+        List<Object> publishedEvents = new ArrayList<>();
+        PhotoApprovalService approvalService = new PhotoApprovalService(publishedEvents::add,
+                EmojiLoggerFactory.getInstance());
+
+        // Act
+        approvalService.approvePhoto(side, REVIEWER, Timestamp.now());
+
+        // Assert
+        assertTrue(order.getApprovedTemplateCoverage().contains(PhotoTemplate.SIDE_VIEW_OF_WELD),
+                "Approving the photo document directly should update the order's coverage");
+        assertEquals(1, publishedEvents.size(), "The approval should still be published");
+    }
+
+    private static PhotoDocument newPhoto(PhotoTemplate template) {
+        return PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(template)
+                .imagePath(new Photo("/path/to/" + template.name() + ".jpg"))
+                .uploadedBy(UPLOADER)
+                .uploadedAt(Timestamp.now())
+                .build();
+    }
+}
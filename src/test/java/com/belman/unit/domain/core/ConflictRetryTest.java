@@ -0,0 +1,133 @@
+package com.belman.unit.domain.core;
+
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.core.ConflictRetry;
+import com.belman.domain.exceptions.VersionConflictException;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.memory.InMemoryOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for retrying commutative changes after version conflicts.
+ */
+class ConflictRetryTest {
+
+    private ConflictingOrderRepository repository;
+    private OrderBusiness order;
+    private AtomicInteger applied;
+
+    @BeforeEach
+    void setUp() {
+        repository = new ConflictingOrderRepository();
+        order = new OrderBusiness(OrderId.newId(), new UserReference(UserId.newId(), new Username("creator")),
+                Timestamp.now());
+        repository.save(order);
+        repository.saveCalls = 0;
+        applied = new AtomicInteger();
+    }
+
+    @Test
+    void update_withoutConflict_shouldApplyChangeOnce() {
+        // Act
+        Optional<OrderBusiness> saved = ConflictRetry.update(repository, order.getId(),
+                o -> applied.incrementAndGet());
+
+        // Assert
+        assertTrue(saved.isPresent());
+        assertEquals(1, applied.get());
+        assertEquals(1, repository.saveCalls);
+    }
+
+    @Test
+    void update_withConflicts_shouldReloadAndReapplyChange() {
+        // Arrange
+        repository.conflictsLeft = 2;
+
+        // Act
+        Optional<OrderBusiness> saved = ConflictRetry.update(repository, order.getId(),
+                o -> applied.incrementAndGet());
+
+        // Assert
+        assertTrue(saved.isPresent());
+        assertEquals(3, applied.get());
+        assertEquals(3, repository.findByIdCalls);
+    }
+
+    @Test
+    void update_withPersistentConflict_shouldThrowAfterMaxAttempts() {
+        // Arrange
+        repository.conflictsLeft = Integer.MAX_VALUE;
+
+        // Act & Assert
+        VersionConflictException error = assertThrows(VersionConflictException.class,
+                () -> ConflictRetry.update(repository, order.getId(), o -> applied.incrementAndGet(), 4));
+        assertEquals(4, applied.get());
+        assertFalse(error.isDeleted());
+    }
+
+    @Test
+    void update_whenDeletedConcurrently_shouldReturnEmpty() {
+        // Arrange
+        repository.deletedOnSave = true;
+
+        // Act
+        Optional<OrderBusiness> saved = ConflictRetry.update(repository, order.getId(),
+                o -> applied.incrementAndGet());
+
+        // Assert
+        assertTrue(saved.isEmpty());
+        assertEquals(1, applied.get());
+    }
+
+    @Test
+    void update_withUnknownId_shouldNotApplyChange() {
+        // Act
+        Optional<OrderBusiness> saved = ConflictRetry.update(repository, OrderId.newId(),
+                o -> applied.incrementAndGet());
+
+        // Assert
+        assertTrue(saved.isEmpty());
+        assertEquals(0, applied.get());
+    }
+
+    /**
+     * In-memory repository that reports version conflicts on request.
+     */
+    private static class ConflictingOrderRepository extends InMemoryOrderRepository {
+        int conflictsLeft;
+        boolean deletedOnSave;
+        int saveCalls;
+        int findByIdCalls;
+
+        @Override
+        public Optional<OrderBusiness> findById(OrderId id) {
+            findByIdCalls++;
+            return super.findById(id);
+        }
+
+        @Override
+        public OrderBusiness save(OrderBusiness orderBusiness) {
+            saveCalls++;
+            if (deletedOnSave) {
+                throw new VersionConflictException("Order", orderBusiness.getId().id(), orderBusiness.getVersion(),
+                        VersionConflictException.DELETED);
+            }
+            if (conflictsLeft > 0) {
+                conflictsLeft--;
+                throw new VersionConflictException("Order", orderBusiness.getId().id(), orderBusiness.getVersion(),
+                        orderBusiness.getVersion() + 1);
+            }
+            return super.save(orderBusiness);
+        }
+    }
+}
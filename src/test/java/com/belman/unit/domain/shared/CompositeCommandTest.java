@@ -0,0 +1,153 @@
+package com.belman.unit.domain.shared;
+
+import com.belman.domain.shared.Command;
+import com.belman.domain.shared.CompositeCommand;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the dependency-aware execution and rollback of CompositeCommand.
+ */
+class CompositeCommandTest {
+
+    @Test
+    void execute_withIndependentCommands_shouldRunConcurrentlyUpToMaxParallelism() throws Exception {
+        // Arrange
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CompositeCommand.Builder<String> builder = CompositeCommand.<String>builder("Upload photos").maxParallelism(3);
+        for (int i = 0; i < 9; i++) {
+            builder.add(new StepCommand("upload " + i, running, maxRunning, new ArrayList<>(), false));
+        }
+
+        // Act
+        String result = builder.build().execute().get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("upload 8", result, "The result should be the result of the last command");
+        assertEquals(3, maxRunning.get(), "Independent commands should run concurrently up to the cap");
+    }
+
+    @Test
+    void execute_withDependencies_shouldStartCommandsAfterTheirDependencies() throws Exception {
+        // Arrange
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StepCommand createOrder = new StepCommand("create order", running, maxRunning, log, false);
+        StepCommand uploadFront = new StepCommand("upload front", running, maxRunning, log, false);
+        StepCommand uploadSide = new StepCommand("upload side", running, maxRunning, log, false);
+        StepCommand submit = new StepCommand("submit", running, maxRunning, log, false);
+        CompositeCommand<String> command = CompositeCommand.<String>builder("Document order")
+                .add(createOrder)
+                .add(uploadFront, createOrder)
+                .add(uploadSide, createOrder)
+                .add(submit, uploadFront, uploadSide)
+                .resultCommand(createOrder)
+                .build();
+
+        // Act
+        String result = command.execute().get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("create order", result, "The result should come from the result command");
+        assertEquals("execute create order", log.get(0), "The order should be created first");
+        assertEquals("execute submit", log.get(3), "The order should be submitted last");
+        assertEquals(2, maxRunning.get(), "Both uploads should run concurrently");
+    }
+
+    @Test
+    void execute_withFailingCommand_shouldUndoCompletedCommandsAfterTheirDependents() {
+        // Arrange
+        List<String> log = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        StepCommand createOrder = new StepCommand("create order", running, maxRunning, log, false);
+        StepCommand uploadFront = new StepCommand("upload front", running, maxRunning, log, false);
+        StepCommand uploadSide = new StepCommand("upload side", running, maxRunning, log, true);
+        StepCommand submit = new StepCommand("submit", running, maxRunning, log, false);
+        CompositeCommand<String> command = CompositeCommand.<String>builder("Document order")
+                .add(createOrder)
+                .add(uploadFront, createOrder)
+                .add(uploadSide, createOrder)
+                .add(submit, uploadFront, uploadSide)
+                .build();
+
+        // Act
+        CompletableFuture<String> future = command.execute();
+
+        // Assert
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS),
+                "The composite command should fail");
+        assertTrue(error.getCause().getMessage().contains("upload side"), "The error should name the failed command");
+        assertFalse(log.contains("execute submit"), "Commands after the failure should not start");
+        assertTrue(log.contains("undo upload front"), "The completed upload should be undone");
+        assertTrue(log.indexOf("undo upload front") < log.indexOf("undo create order"),
+                "The order should be undone after the upload depending on it");
+        assertFalse(log.contains("undo upload side"), "The failed command should not be undone");
+    }
+
+    /**
+     * A command that takes a little time on its own thread, so concurrent commands overlap
+     * regardless of the size of the common pool, and records its steps.
+     */
+    private static final class StepCommand implements Command<String> {
+        private final String name;
+        private final AtomicInteger running;
+        private final AtomicInteger maxRunning;
+        private final List<String> log;
+        private final boolean fail;
+
+        private StepCommand(String name, AtomicInteger running, AtomicInteger maxRunning, List<String> log,
+                            boolean fail) {
+            this.name = name;
+            this.running = running;
+            this.maxRunning = maxRunning;
+            this.log = log;
+            this.fail = fail;
+        }
+
+        @Override
+        public CompletableFuture<String> execute() {
+            return CompletableFuture.supplyAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                log.add("execute " + name);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    running.decrementAndGet();
+                }
+                if (fail) {
+                    throw new IllegalStateException(name + " failed");
+                }
+                return name;
+            }, runnable -> new Thread(runnable).start());
+        }
+
+        @Override
+        public CompletableFuture<Void> undo() {
+            return CompletableFuture.runAsync(() -> log.add("undo " + name));
+        }
+
+        @Override
+        public boolean canUndo() {
+            return true;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.belman.unit.domain.shared;
+
+import com.belman.domain.shared.NestedProperty;
+import com.belman.domain.shared.PropertyPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for NestedProperty and the compiled paths it uses.
+ */
+public class NestedPropertyTest {
+
+    @Test
+    void setNestedValue_withMissingMaps_shouldCreateIntermediateMaps() {
+        // Arrange
+        NestedProperty<Map<String, Object>> property = new NestedProperty<>(new HashMap<>());
+
+        // Act
+        property.setNestedValue("user.address.city", "Esbjerg");
+
+        // Assert
+        assertEquals("Esbjerg", property.getNestedValue("user.address.city"), "The value should be readable by path");
+    }
+
+    @Test
+    void getNestedValue_withListIndexAndBean_shouldResolveEachSegment() {
+        // Arrange
+        List<Object> photos = new ArrayList<>();
+        photos.add(new Photo("front", true));
+        Map<String, Object> root = new HashMap<>();
+        root.put("photos", photos);
+        NestedProperty<Map<String, Object>> property = new NestedProperty<>(root);
+
+        // Act
+        property.setNestedValue("photos.0.angle", "back");
+
+        // Assert
+        assertEquals("back", property.getNestedValue("photos.0.angle"), "Bean setter and getter should be used");
+        assertEquals(Boolean.TRUE, property.getNestedValue("photos.0.approved"), "Boolean is-getters should be used");
+        assertNull(property.getNestedValue("photos.5.angle"), "Out of range indices should resolve to null");
+        assertNull(property.getNestedValue("photos.0.unknown"), "Unknown properties should resolve to null");
+    }
+
+    @Test
+    void addNestedListener_whenNestedValueSet_shouldReceiveNestedValue() {
+        // Arrange
+        NestedProperty<Map<String, Object>> property = new NestedProperty<>(new HashMap<>());
+        List<Object> received = new ArrayList<>();
+        property.addNestedListener("order.status", received::add);
+
+        // Act
+        property.setNestedValue("order.status", "APPROVED");
+
+        // Assert
+        assertEquals("APPROVED", received.get(received.size() - 1), "Listener should see the new nested value");
+    }
+
+    @Test
+    void compile_withSamePath_shouldReuseCompiledForm() {
+        // Act & Assert
+        assertSame(PropertyPath.compile("a.b.c"), PropertyPath.compile("a.b.c"), "Paths should be compiled once");
+        assertThrows(IllegalArgumentException.class, () -> PropertyPath.compile(""), "Empty paths should be rejected");
+    }
+
+    public static class Photo {
+        private String angle;
+        private final boolean approved;
+
+        public Photo(String angle, boolean approved) {
+            this.angle = angle;
+            this.approved = approved;
+        }
+
+        public String getAngle() {
+            return angle;
+        }
+
+        public void setAngle(String angle) {
+            this.angle = angle;
+        }
+
+        public boolean isApproved() {
+            return approved;
+        }
+    }
+}
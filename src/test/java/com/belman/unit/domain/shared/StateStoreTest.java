@@ -0,0 +1,120 @@
+package com.belman.unit.domain.shared;
+
+import com.belman.domain.shared.StateSnapshot;
+import com.belman.domain.shared.StateStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the concurrency and notification behaviour of the StateStore.
+ */
+public class StateStoreTest {
+
+    private StateStore store;
+    private List<Runnable> scheduledNotifications;
+
+    @BeforeEach
+    void setUp() {
+        store = StateStore.getInstance();
+        store.clear();
+        scheduledNotifications = new ArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.setNotificationExecutor(null);
+        store.clear();
+    }
+
+    @Test
+    void update_withConcurrentWriters_shouldNotLoseUpdates() throws Exception {
+        // Arrange
+        int threads = 4;
+        int incrementsPerThread = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            pool.execute(() -> {
+                awaitQuietly(start);
+                for (int j = 0; j < incrementsPerThread; j++) {
+                    store.<Integer>update("counter", value -> value == null ? 1 : value + 1);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS), "Writers should finish");
+
+        // Assert
+        assertEquals(threads * incrementsPerThread, store.<Integer>get("counter"),
+                "Every concurrent update should be applied");
+    }
+
+    @Test
+    void set_withDeferredExecutor_shouldCoalesceNotifications() {
+        // Arrange
+        store.setNotificationExecutor(scheduledNotifications::add);
+        List<Integer> received = new ArrayList<>();
+        store.<Integer>listen("progress", this, received::add);
+
+        // Act
+        for (int i = 1; i <= 50; i++) {
+            store.set("progress", i);
+        }
+        scheduledNotifications.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(1, scheduledNotifications.size(), "Writes within one frame should schedule one notification");
+        assertEquals(List.of(50), received, "The listener should receive only the latest value");
+    }
+
+    @Test
+    void set_withDefaultExecutor_shouldNotifyImmediately() {
+        // Arrange
+        List<String> received = new ArrayList<>();
+        store.<String>listen("title", this, received::add);
+
+        // Act
+        store.set("title", "First");
+        store.set("title", "Second");
+
+        // Assert
+        assertEquals(List.of("First", "Second"), received, "Each write should be delivered on the writing thread");
+    }
+
+    @Test
+    void snapshot_afterWrites_shouldCaptureValuesAndVersion() {
+        // Arrange
+        store.set("a", 1);
+        StateSnapshot before = store.snapshot();
+
+        // Act
+        store.set("b", 2);
+        StateSnapshot after = store.snapshot();
+
+        // Assert
+        assertNull(before.get("b"), "Earlier snapshots should not see later writes");
+        assertEquals(2, (Integer) after.get("b"), "Later snapshots should see the write");
+        assertTrue(after.getVersion() > before.getVersion(), "Each write should increase the version");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.belman.unit.infrastructure;
+
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.domain.audit.event.BaseAuditEvent;
+import com.belman.repository.persistence.analytics.AuditAnalytics;
+import com.belman.repository.persistence.analytics.AuditQuery;
+import com.belman.repository.persistence.analytics.AuditRow;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the columnar audit analytics engine.
+ */
+class AuditAnalyticsTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void count_withFiltersAndTimeRange_shouldCountMatchingEvents() {
+        // Arrange
+        AuditAnalytics analytics = new AuditAnalytics("orderId");
+        analytics.addAll(List.of(
+                new ReviewEvent("PhotoRejected", "qa-1", "order-1", START),
+                new ReviewEvent("PhotoRejected", "qa-1", "order-2", START.plusSeconds(60)),
+                new ReviewEvent("PhotoRejected", "qa-2", "order-1", START.plusSeconds(120)),
+                new ReviewEvent("PhotoApproved", "qa-1", "order-1", START.plusSeconds(180)),
+                new ReviewEvent("PhotoRejected", "qa-1", "order-3", START.plusSeconds(240)),
+                new ReviewEvent("PhotoRejected", "qa-1", "order-1", START.plus(Duration.ofDays(100)))));
+
+        // Act
+        long count = analytics.count(AuditQuery.builder()
+                .where(AuditAnalytics.EVENT_TYPE, "PhotoRejected")
+                .where(AuditAnalytics.USER_ID, "qa-1")
+                .where("orderId", List.of("order-1", "order-2", "order-9"))
+                .between(START, START.plus(Duration.ofDays(90)))
+                .build());
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals(6, analytics.count(AuditQuery.all()));
+        assertEquals(0, analytics.count(AuditQuery.builder().where(AuditAnalytics.USER_ID, "nobody").build()));
+    }
+
+    @Test
+    void countBy_shouldGroupMatchingEventsLargestFirst() {
+        // Arrange
+        AuditAnalytics analytics = new AuditAnalytics("orderId");
+        for (int i = 0; i < 30; i++) {
+            analytics.add(new ReviewEvent(i % 3 == 0 ? "PhotoApproved" : "PhotoRejected", "qa-" + (i % 5),
+                    "order-" + i, START.plusSeconds(i)));
+        }
+
+        // Act
+        Map<String, Long> byType = analytics.countBy(AuditQuery.all(), AuditAnalytics.EVENT_TYPE);
+        Map<String, Long> byOrder = analytics.countBy(AuditQuery.builder()
+                .where(AuditAnalytics.USER_ID, "qa-0")
+                .build(), "orderId");
+
+        // Assert
+        assertEquals(List.of("PhotoRejected", "PhotoApproved"), new ArrayList<>(byType.keySet()));
+        assertEquals(20L, byType.get("PhotoRejected"));
+        assertEquals(10L, byType.get("PhotoApproved"));
+        assertEquals(6, byOrder.size());
+        assertEquals(1L, byOrder.get("order-25"));
+    }
+
+    @Test
+    void forEach_shouldStreamMatchingRowsInOrder() {
+        // Arrange
+        AuditAnalytics analytics = new AuditAnalytics("orderId");
+        ReviewEvent first = new ReviewEvent("PhotoRejected", "qa-1", "order-1", START);
+        ReviewEvent second = new ReviewEvent("PhotoRejected", "qa-1", "order-2", START.plusMillis(1500));
+        analytics.addAll(List.of(first, new ReviewEvent("PhotoApproved", "qa-1", "order-1", START), second));
+        List<AuditRow> rows = new ArrayList<>();
+
+        // Act
+        analytics.forEach(AuditQuery.builder().where(AuditAnalytics.EVENT_TYPE, "PhotoRejected").build(), rows::add);
+
+        // Assert
+        assertEquals(2, rows.size());
+        assertEquals(first.getEventId(), rows.get(0).getEventId());
+        assertEquals(second.getOccurredOn(), rows.get(1).getOccurredOn());
+        assertEquals("Photo", rows.get(1).getEntityType());
+        assertEquals("qa-1", rows.get(1).getUserId());
+        assertEquals("order-2", rows.get(1).get("orderId"));
+    }
+
+    @Test
+    void count_acrossBlocks_shouldMatchFullScan() {
+        // Arrange
+        AuditAnalytics analytics = new AuditAnalytics("orderId");
+        List<ReviewEvent> events = new ArrayList<>();
+        for (int i = 0; i < 150_000; i++) {
+            events.add(new ReviewEvent(i % 7 == 0 ? "PhotoApproved" : "PhotoRejected", "qa-" + (i % 11),
+                    "order-" + (i % 500), START.plusSeconds(i)));
+        }
+        analytics.addAll(events);
+        Instant from = START.plusSeconds(60_000);
+        Instant to = START.plusSeconds(140_000);
+
+        // Act
+        long count = analytics.count(AuditQuery.builder()
+                .where(AuditAnalytics.EVENT_TYPE, "PhotoRejected")
+                .where(AuditAnalytics.USER_ID, "qa-3", "qa-4")
+                .between(from, to)
+                .build());
+
+        // Assert
+        long expected = events.stream()
+                .filter(event -> event.getEventType().equals("PhotoRejected"))
+                .filter(event -> event.getUserId().equals("qa-3") || event.getUserId().equals("qa-4"))
+                .filter(event -> !event.getOccurredOn().isBefore(from) && event.getOccurredOn().isBefore(to))
+                .count();
+        assertEquals(expected, count);
+        assertEquals(150_000, analytics.getEventCount());
+    }
+
+    @Test
+    void load_shouldIndexJournalEventsInRange() throws IOException {
+        // Arrange
+        try (JournalAuditRepository journal = new JournalAuditRepository(tempDir,
+                "test-audit-journal-key-0123456789".getBytes(StandardCharsets.UTF_8))) {
+            for (int i = 0; i < 10; i++) {
+                journal.store(new ReviewEvent("PhotoRejected", "qa-" + (i % 2), "order-" + i, START.plusSeconds(i)));
+            }
+
+            // Act
+            AuditAnalytics analytics = AuditAnalytics.load(journal, START.plusSeconds(2), START.plusSeconds(8),
+                    "orderId");
+
+            // Assert
+            assertEquals(6, analytics.getEventCount());
+            assertEquals(Map.of("qa-0", 3L, "qa-1", 3L),
+                    analytics.countBy(AuditQuery.all(), AuditAnalytics.USER_ID));
+        }
+    }
+
+    @Test
+    void query_withUnknownDimension_shouldThrowException() {
+        // Arrange
+        AuditAnalytics analytics = new AuditAnalytics();
+        AuditQuery query = AuditQuery.builder().where("orderId", "order-1").build();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> analytics.count(query));
+    }
+
+    /**
+     * Review decision on a photo of an order.
+     */
+    public static class ReviewEvent extends BaseAuditEvent {
+        private final String eventType;
+        private final String userId;
+        private final String orderId;
+
+        ReviewEvent(String eventType, String userId, String orderId, Instant occurredOn) {
+            super(UUID.randomUUID(), occurredOn);
+            this.eventType = eventType;
+            this.userId = userId;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public String getEventType() {
+            return eventType;
+        }
+
+        public String getEntityType() {
+            return "Photo";
+        }
+
+        public String getEntityId() {
+            return orderId + "/photo";
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+    }
+}
@@ -19,10 +19,14 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -37,16 +41,20 @@ class GluonCompatibleSmtpEmailServiceTest {
     private ReportAggregate reportAggregate;
     private EmailAddress recipient;
     private List<File> testFiles;
+    private File spoolDirectory;
 
     @BeforeEach
     void setUp() throws IOException {
+        spoolDirectory = GluonTestStorageHelper.createTempTestDirectory(null);
+
         // Create a test email service with test-specific configuration
         emailService = new SmtpEmailService(
                 "localhost", // Use localhost instead of a real SMTP server
                 25,          // Use a standard port
                 "test",      // Use a simple test username
                 "test",      // Use a simple test password
-                "test@localhost" // Use a test from address
+                "test@localhost", // Use a test from address
+                spoolDirectory.toPath() // Keep queued mails out of the home directory
         );
 
         // Create a test reportAggregate
@@ -75,9 +83,14 @@ class GluonCompatibleSmtpEmailServiceTest {
     }
 
     @AfterEach
-    void tearDown() {
+    void tearDown() throws IOException {
+        emailService.close();
+
         // Clean up test files
         GluonTestStorageHelper.cleanupTempTestFiles(testFiles);
+        try (Stream<Path> files = Files.walk(spoolDirectory.toPath())) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
     }
 
     @Test
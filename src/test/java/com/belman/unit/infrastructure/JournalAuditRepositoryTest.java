@@ -0,0 +1,277 @@
+package com.belman.unit.infrastructure;
+
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.domain.audit.event.BaseAuditEvent;
+import com.belman.repository.persistence.journal.JournalAnchor;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
+import com.belman.repository.persistence.journal.JournaledAuditEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the memory-mapped audit journal on a temporary directory.
+ */
+class JournalAuditRepositoryTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T08:00:00Z");
+    private static final int SEGMENT_SIZE = 4096;
+    private static final byte[] KEY = "test-audit-journal-key-0123456789".getBytes(StandardCharsets.UTF_8);
+    // Offsets in the segment layout
+    private static final int OFFSET_END = 36;
+    private static final int FIRST_RECORD_BODY = 128 + 4 + 32;
+
+    @TempDir
+    Path tempDir;
+
+    private JournalAuditRepository journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void store_shouldFindEventsByEntityTypeAndUser() throws IOException {
+        // Arrange
+        journal = open();
+        PhotoReviewed approved = new PhotoReviewed("photo-1", "qa-1", START, "Looks good");
+        PhotoReviewed rejected = new PhotoReviewed("photo-2", "qa-2", START.plusSeconds(1), null);
+
+        // Act
+        journal.storeAll(List.of(approved, rejected));
+
+        // Assert
+        List<AuditEvent> byEntity = journal.getEventsByEntity("Photo", "photo-1");
+        assertEquals(1, byEntity.size());
+        JournaledAuditEvent event = (JournaledAuditEvent) byEntity.get(0);
+        assertEquals(approved.getEventId(), event.getEventId());
+        assertEquals(START, event.getOccurredOn());
+        assertEquals("PhotoReviewed", event.getEventType());
+        assertEquals("qa-1", event.getUserId());
+        assertEquals("Looks good", event.getProperty("comment"));
+        assertEquals(2, journal.getEventsByType("PhotoReviewed").size());
+        assertEquals(List.of(rejected.getEventId()),
+                journal.getEventsByUser("qa-2").stream().map(AuditEvent::getEventId).toList());
+        assertNull(((JournaledAuditEvent) journal.getEventsByUser("qa-2").get(0)).getProperty("comment"));
+    }
+
+    @Test
+    void getEventsBetween_acrossRotatedSegments_shouldReturnOnlyRange() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(200);
+
+        // Act
+        List<AuditEvent> events = journal.getEventsBetween(START.plus(Duration.ofMinutes(50)),
+                START.plus(Duration.ofMinutes(60)));
+
+        // Assert
+        assertTrue(countFiles(".seg") > 1, "The journal should have rotated");
+        assertEquals(10, events.size());
+        assertEquals(START.plus(Duration.ofMinutes(50)), events.get(0).getOccurredOn());
+        assertEquals(200, journal.getEventCount());
+    }
+
+    @Test
+    void reopen_shouldKeepEventsAndChain() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(100);
+        journal.close();
+
+        // Act
+        journal = open();
+        journal.store(new PhotoReviewed("photo-new", "qa-1", START, null));
+
+        // Assert
+        assertEquals(101, journal.getEventCount());
+        assertEquals(1, journal.getEventsByEntity("Photo", "photo-new").size());
+        assertTrue(journal.verify());
+    }
+
+    @Test
+    void reopen_withTornRecord_shouldClearIt() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(3);
+        journal.close();
+        Path active = lastFile(".seg");
+        int end = readInt(active, OFFSET_END);
+        writeInt(active, end, 120);
+        writeInt(active, end + 4, 0xCAFE);
+
+        // Act
+        journal = open();
+        journal.store(new PhotoReviewed("photo-new", "qa-1", START, null));
+
+        // Assert
+        assertEquals(4, journal.getEventCount());
+        assertTrue(journal.verify());
+    }
+
+    @Test
+    void verify_withChangedRecord_shouldFail() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(3);
+        journal.close();
+        Path active = lastFile(".seg");
+        writeInt(active, FIRST_RECORD_BODY + 12, 0x12345678);
+
+        // Act
+        journal = open();
+
+        // Assert
+        assertEquals(JournalAuditRepository.Recovery.DAMAGED, journal.getRecovery());
+        assertFalse(journal.verify());
+        assertEquals(3, journal.getEventCount(), "Damaged records should be kept as evidence");
+    }
+
+    @Test
+    void reopen_withOtherKey_shouldReportDamage() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(3);
+        journal.close();
+
+        // Act
+        journal = new JournalAuditRepository(tempDir, "another-key-of-enough-length".getBytes(StandardCharsets.UTF_8),
+                SEGMENT_SIZE, Duration.ofMillis(10));
+
+        // Assert
+        assertEquals(JournalAuditRepository.Recovery.DAMAGED, journal.getRecovery(),
+                "Records chained with another key should not pass as intact");
+        assertFalse(journal.verify());
+    }
+
+    @Test
+    void verify_withAnchorAfterLastSegmentRemoved_shouldFail() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(200);
+        JournalAnchor anchor = JournalAnchor.parse(journal.getAnchor().toString());
+        assertTrue(journal.verify(anchor));
+        journal.close();
+        Files.delete(lastFile(".seg"));
+
+        // Act
+        journal = open();
+
+        // Assert
+        assertTrue(journal.verify(), "Cutting whole records off the end leaves a valid chain");
+        assertFalse(journal.verify(anchor), "The anchor should show that events were cut off");
+    }
+
+    @Test
+    void compact_shouldArchiveSealedSegmentsAndKeepThemReadable() throws IOException {
+        // Arrange
+        journal = open();
+        storeMinutes(200);
+        long segments = countFiles(".seg");
+
+        // Act
+        int archived = journal.compact(START.plus(Duration.ofMinutes(150)));
+
+        // Assert
+        assertTrue(archived > 0);
+        assertEquals(archived, countFiles(".arc"));
+        assertEquals(segments - archived, countFiles(".seg"));
+        assertEquals(200, journal.getEventsByType("PhotoReviewed").size());
+        assertEquals(5, journal.getEventsBetween(START, START.plus(Duration.ofMinutes(5))).size());
+        assertTrue(journal.verify());
+
+        journal.close();
+        journal = open();
+        assertEquals(200, journal.getEventCount());
+        assertTrue(journal.verify());
+    }
+
+    private JournalAuditRepository open() throws IOException {
+        return new JournalAuditRepository(tempDir, KEY, SEGMENT_SIZE, Duration.ofMillis(10));
+    }
+
+    private void storeMinutes(int count) {
+        List<AuditEvent> events = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            events.add(new PhotoReviewed("photo-" + i, "qa-" + (i % 3), START.plus(Duration.ofMinutes(i)), null));
+        }
+        journal.storeAll(events);
+    }
+
+    private long countFiles(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).count();
+        }
+    }
+
+    private Path lastFile(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).sorted().reduce((a, b) -> b).orElseThrow();
+        }
+    }
+
+    private static int readInt(Path file, int position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            channel.read(buffer, position);
+            return buffer.getInt(0);
+        }
+    }
+
+    private static void writeInt(Path file, int position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, value), position);
+        }
+    }
+
+    /**
+     * Audit event with an entity, a user and one optional property.
+     */
+    public static class PhotoReviewed extends BaseAuditEvent {
+        private final String photoId;
+        private final String userId;
+        private final String comment;
+
+        PhotoReviewed(String photoId, String userId, Instant occurredOn, String comment) {
+            super(UUID.randomUUID(), occurredOn);
+            this.photoId = photoId;
+            this.userId = userId;
+            this.comment = comment;
+        }
+
+        public String getEntityType() {
+            return "Photo";
+        }
+
+        public String getEntityId() {
+            return photoId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.belman.unit.infrastructure;
+
+import com.belman.repository.persistence.export.ExportCursor;
+import com.belman.repository.persistence.export.ExportFormat;
+import com.belman.repository.persistence.export.ExportRequest;
+import com.belman.repository.persistence.export.ExportResult;
+import com.belman.repository.persistence.export.ExportSource;
+import com.belman.repository.persistence.export.JournalExportJob;
+import com.belman.repository.persistence.journal.JournalAuditRepository;
+import com.belman.unit.infrastructure.JournalAuditRepositoryTest.PhotoReviewed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests exporting the audit trail from the audit journal.
+ */
+class JournalExportJobTest {
+
+    private static final Instant START = Instant.parse("2026-03-01T10:00:00Z");
+    private static final byte[] KEY = "test-audit-journal-key-0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path tempDir;
+
+    private JournalAuditRepository journal;
+    private PhotoReviewed approved;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        journal = new JournalAuditRepository(tempDir.resolve("audit"), KEY, 4096, Duration.ofMillis(10));
+        approved = new PhotoReviewed("photo-1", "qa-1", START, null);
+        journal.storeAll(List.of(
+                approved,
+                new PhotoReviewed("photo-2", "qa-2", START.plusSeconds(10), "Weld\nseam"),
+                new PhotoReviewed("photo-3", "qa-1", START.plusSeconds(20), "Blurry, \"retake\" please"),
+                new PhotoReviewed("photo-4", "qa-2", START.plusSeconds(30), null)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void run_csv_shouldWriteHeaderAndEventsFromJournal() throws IOException {
+        // Arrange
+        JournalExportJob job = new JournalExportJob(journal, ExportRequest.builder(ExportSource.AUDIT_EVENTS).build());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        ExportResult result = job.run(out);
+
+        // Assert
+        String csv = out.toString(StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertTrue(result.isComplete());
+        assertEquals(4, result.getRowCount());
+        assertEquals(String.join(",", ExportSource.AUDIT_EVENTS.getColumns()), lines[0]);
+        assertTrue(lines[1].startsWith(approved.getEventId() + "," + START + ",PhotoReviewed,Photo,photo-1,qa-1"));
+        assertTrue(csv.contains(",\"comment=Weld\nseam\""), "Values with line breaks should be quoted");
+        assertTrue(csv.contains(",\"comment=Blurry, \"\"retake\"\" please\""), "Quotes should be doubled");
+        assertEquals(START.plusSeconds(30), result.getCursor().getTime());
+    }
+
+    @Test
+    void run_compressedJsonLinesWithFilterAndRange_shouldWriteMatchingEvents() throws IOException {
+        // Arrange
+        ExportRequest request = ExportRequest.builder(ExportSource.AUDIT_EVENTS)
+                .where("user_id", "qa-2")
+                .between(START, START.plusSeconds(30))
+                .format(ExportFormat.JSON_LINES)
+                .compressed(true)
+                .build();
+        Path target = tempDir.resolve("audit" + ExportFormat.JSON_LINES.getExtension() + ".gz");
+
+        // Act
+        ExportResult result = new JournalExportJob(journal, request).run(target);
+
+        // Assert
+        List<String> lines = readGzipLines(target);
+        assertTrue(result.isComplete());
+        assertEquals(1, result.getRowCount());
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"entity_id\":\"photo-2\""));
+        assertTrue(lines.get(0).endsWith("\"properties\":\"comment=Weld\\nseam\"}"));
+    }
+
+    @Test
+    void run_resumedAfterRowLimit_shouldContinueWhereItStopped() throws IOException {
+        // Arrange
+        Path complete = tempDir.resolve("complete.csv.gz");
+        Path resumed = tempDir.resolve("resumed.csv.gz");
+        new JournalExportJob(journal, auditTrail().build()).run(complete);
+
+        // Act
+        ExportResult first = new JournalExportJob(journal, auditTrail().maxRows(3).build()).run(resumed);
+        ExportCursor cursor = ExportCursor.parse(first.getCursor().toString());
+        ExportResult second = new JournalExportJob(journal, auditTrail().resumeAfter(cursor).build()).run(resumed);
+
+        // Assert
+        assertFalse(first.isComplete());
+        assertEquals(3, first.getRowCount());
+        assertTrue(second.isComplete());
+        assertEquals(1, second.getRowCount());
+        assertEquals(readGzipLines(complete), readGzipLines(resumed));
+    }
+
+    @Test
+    void run_cancelledJob_shouldStopWithoutRows() throws IOException {
+        // Arrange
+        JournalExportJob job = new JournalExportJob(journal, auditTrail().build());
+        job.cancel();
+
+        // Act
+        ExportResult result = job.run(new ByteArrayOutputStream());
+
+        // Assert
+        assertTrue(job.isCancelled());
+        assertFalse(result.isComplete());
+        assertEquals(0, result.getRowCount());
+        assertNull(result.getCursor());
+    }
+
+    @Test
+    void constructor_databaseSource_shouldThrowException() {
+        // Arrange
+        ExportRequest request = ExportRequest.builder(ExportSource.PHOTO_DOCUMENTS).build();
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> new JournalExportJob(journal, request));
+    }
+
+    private static ExportRequest.Builder auditTrail() {
+        return ExportRequest.builder(ExportSource.AUDIT_EVENTS).compressed(true);
+    }
+
+    private static List<String> readGzipLines(Path file) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.belman.unit.infrastructure;
+
+import com.belman.repository.email.MailDispatcher;
+import com.belman.repository.email.MailSpool;
+import com.belman.repository.email.OutboundMail;
+import com.belman.repository.email.SmtpMailTransport;
+import com.belman.test.util.LocalSmtpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the outbound mail queue against a local SMTP server.
+ */
+class MailDispatcherTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalSmtpServer server;
+    private MailDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new LocalSmtpServer();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+        server.close();
+    }
+
+    @Test
+    void submit_withSeveralMails_shouldDeliverAllOverOneConnection() throws Exception {
+        // Arrange
+        Path report = tempDir.resolve("report.pdf");
+        Files.write(report, "%PDF-1.4 test report".getBytes(StandardCharsets.US_ASCII));
+        dispatcher = createDispatcher(new MailSpool(tempDir.resolve("outbox")), server.getPort());
+
+        // Act
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(dispatcher.submit(OutboundMail.create(List.of("customer" + i + "@example.com"),
+                    "QC report " + i, "Please find the report attached.", List.of(report))));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(3, server.getMessages().size());
+        assertEquals(1, server.getConnectionCount(), "Mails should reuse the SMTP connection");
+        String encoded = Base64.getEncoder().encodeToString(Files.readAllBytes(report));
+        for (LocalSmtpServer.ReceivedMessage message : server.getMessages()) {
+            assertTrue(message.data().contains("application/pdf") || message.data().contains("report.pdf"));
+            assertTrue(message.data().contains(encoded), "Attachment should be sent base64 encoded");
+        }
+        assertTrue(dispatcher.getPendingMails().isEmpty());
+    }
+
+    @Test
+    void submit_withTemporaryFailure_shouldRetryWithBackoff() throws Exception {
+        // Arrange
+        server.failNextMessages(2);
+        MailSpool spool = new MailSpool(tempDir.resolve("outbox"));
+        dispatcher = createDispatcher(spool, server.getPort());
+
+        // Act
+        CompletableFuture<Void> future = dispatcher.submit(OutboundMail.create(List.of("qa@example.com"),
+                "Report", "Body", List.of()));
+        future.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, server.getMessages().size());
+        assertEquals(List.of("qa@example.com"), server.getMessages().get(0).recipients());
+        assertEquals(0, spool.size());
+    }
+
+    @Test
+    void submit_withRejectedRecipient_shouldMoveMailToFailed() throws Exception {
+        // Arrange
+        server.rejectRecipient("unknown@example.com");
+        Path outbox = tempDir.resolve("outbox");
+        dispatcher = createDispatcher(new MailSpool(outbox), server.getPort());
+
+        // Act
+        CompletableFuture<Void> future = dispatcher.submit(OutboundMail.create(List.of("unknown@example.com"),
+                "Report", "Body", List.of()));
+
+        // Assert
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(SmtpMailTransport.isPermanent((Exception) error.getCause()));
+        assertTrue(server.getMessages().isEmpty());
+        assertTrue(dispatcher.getPendingMails().isEmpty());
+        assertEquals(1, countFiles(outbox.resolve("failed")));
+    }
+
+    @Test
+    void enqueue_withMissingAttachment_shouldThrowWithoutQueueing() throws Exception {
+        // Arrange
+        Path outbox = tempDir.resolve("outbox");
+        MailSpool spool = new MailSpool(outbox);
+        dispatcher = createDispatcher(spool, server.getPort());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> dispatcher.enqueue(OutboundMail.create(List.of("qa@example.com"),
+                "Report", "Body", List.of(tempDir.resolve("missing.pdf")))));
+        assertEquals(0, spool.size());
+        assertEquals(0, countFiles(outbox.resolve("failed")));
+        assertEquals(1, countFiles(outbox), "Only the failed directory should be left in the spool");
+    }
+
+    @Test
+    void submit_withAttachmentDeletedAfterQueueing_shouldSendQueuedCopy() throws Exception {
+        // Arrange
+        Path report = tempDir.resolve("report.pdf");
+        Files.write(report, "%PDF-1.4 test report".getBytes(StandardCharsets.US_ASCII));
+        String encoded = Base64.getEncoder().encodeToString(Files.readAllBytes(report));
+        Path outbox = tempDir.resolve("outbox");
+        dispatcher = createDispatcher(new MailSpool(outbox), server.getPort());
+
+        // Act
+        CompletableFuture<Void> future = dispatcher.submit(OutboundMail.create(List.of("qa@example.com"),
+                "Report", "Body", List.of(report)));
+        Files.delete(report);
+        future.get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, server.getMessages().size());
+        assertTrue(server.getMessages().get(0).data().contains(encoded), "The queued copy should be attached");
+        assertEquals(1, countFiles(outbox), "The copy should be deleted once the mail is delivered");
+    }
+
+    @Test
+    void start_withMailsLeftInSpool_shouldDeliverThem() throws Exception {
+        // Arrange
+        Path outbox = tempDir.resolve("outbox");
+        MailSpool previousRun = new MailSpool(outbox);
+        previousRun.add(OutboundMail.create(List.of("a@example.com"), "First", "Body", List.of()));
+        previousRun.add(OutboundMail.create(List.of("b@example.com"), "Second", "Body", List.of()));
+
+        MailSpool spool = new MailSpool(outbox);
+        assertEquals(2, spool.size());
+        dispatcher = createDispatcher(spool, server.getPort());
+
+        // Act
+        dispatcher.start();
+
+        // Assert
+        assertTrue(server.awaitMessages(2, 10_000));
+        assertEquals(2, server.getMessages().size());
+    }
+
+    @Test
+    void submit_withUnreachableServer_shouldKeepMailWithoutChargingAttempts() throws Exception {
+        // Arrange
+        int closedPort = server.getPort();
+        server.close();
+        MailSpool spool = new MailSpool(tempDir.resolve("outbox"));
+        dispatcher = createDispatcher(spool, closedPort);
+
+        // Act
+        CompletableFuture<Void> future = dispatcher.submit(OutboundMail.create(List.of("qa@example.com"),
+                "Report", "Body", List.of()));
+        Thread.sleep(300);
+
+        // Assert
+        assertFalse(future.isDone());
+        assertEquals(1, spool.size());
+        assertEquals(0, spool.pending().get(0).getAttempts());
+        assertTrue(Files.exists(tempDir.resolve("outbox").resolve(spool.pending().get(0).getId() + ".mail")));
+    }
+
+    @Test
+    void update_whenEntryCannotBeWritten_shouldStillRescheduleMail() throws Exception {
+        // Arrange
+        Path outbox = tempDir.resolve("outbox");
+        MailSpool spool = new MailSpool(outbox);
+        OutboundMail queued = spool.add(OutboundMail.create(List.of("qa@example.com"), "Report", "Body", List.of()));
+        // A directory in place of the temporary file makes the write fail
+        Files.createDirectory(outbox.resolve(queued.getId() + ".tmp"));
+        long retryAt = System.currentTimeMillis() + 60_000;
+
+        // Act
+        assertThrows(IOException.class, () -> spool.update(queued.withFailedAttempt(retryAt, "Timeout")));
+
+        // Assert
+        assertTrue(spool.due(System.currentTimeMillis()).isEmpty(),
+                "A mail that could not be written should not be due again at once");
+        assertEquals(OptionalLong.of(retryAt), spool.nextAttemptAt());
+    }
+
+    private static MailDispatcher createDispatcher(MailSpool spool, int port) {
+        SmtpMailTransport transport = new SmtpMailTransport("127.0.0.1", port, null, null, "qa@belman.dk");
+        return new MailDispatcher(spool, transport, Duration.ofMillis(20), Duration.ofMillis(200),
+                Duration.ofSeconds(30), 5);
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
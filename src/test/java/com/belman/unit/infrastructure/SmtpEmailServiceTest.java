@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SmtpEmailServiceTest {
@@ -43,7 +44,8 @@ class SmtpEmailServiceTest {
                 25,          // Use a standard port
                 "test",      // Use a simple test username
                 "test",      // Use a simple test password
-                "test@localhost" // Use a test from address
+                "test@localhost", // Use a test from address
+                tempDir.resolve("outbox") // Keep queued mails out of the home directory
         );
 
         // Create a test reportAggregate
@@ -98,6 +100,8 @@ class SmtpEmailServiceTest {
 
     @AfterEach
     void tearDown() {
+        emailService.close();
+
         // Clean up any temporary files
         for (File file : tempFiles) {
             if (file.exists()) {
@@ -128,4 +132,20 @@ class SmtpEmailServiceTest {
         assertTrue(result, "Email with attachments should be sent successfully");
         assertTrue(attachmentFile.exists(), "Temporary file should still exist");
     }
+
+    @Test
+    void sendReportWithMissingAttachmentShouldReturnFalse() {
+        List<File> attachments = List.of(tempDir.resolve("missing-report.pdf").toFile());
+
+        boolean result = emailService.sendReport(
+                reportAggregate,
+                recipient,
+                "QC ReportAggregate for OrderBusiness " + reportAggregate.getOrderId(),
+                "Please find attached the QC reportAggregate for your order.",
+                attachments
+        );
+
+        assertFalse(result, "A report whose attachment cannot be queued should not be reported as sent");
+        assertTrue(emailService.getPendingCount() == 0, "Nothing should be queued");
+    }
 }
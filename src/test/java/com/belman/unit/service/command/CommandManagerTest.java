@@ -0,0 +1,275 @@
+package com.belman.unit.service.command;
+
+import com.belman.bootstrap.di.ServiceLocator;
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.events.CommandExecutedEvent;
+import com.belman.domain.events.DomainEventHandler;
+import com.belman.domain.events.DomainEventPublisher;
+import com.belman.domain.services.LoggerFactory;
+import com.belman.domain.shared.Command;
+import com.belman.domain.shared.CommandKey;
+import com.belman.service.command.CommandManager;
+import com.belman.service.command.data.SaveDataCommand;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the serialized execution, merging and undo/redo of the CommandManager.
+ */
+class CommandManagerTest {
+
+    private CommandManager commandManager;
+
+    @BeforeEach
+    void setUp() {
+        ServiceLocator.registerServiceIfAbsent(LoggerFactory.class, EmojiLoggerFactory.getInstance());
+        commandManager = CommandManager.getInstance();
+        commandManager.setMaxHistorySize(1000);
+        commandManager.clearHistory().join();
+    }
+
+    @AfterEach
+    void tearDown() {
+        commandManager.setMaxHistorySize(100);
+        commandManager.clearHistory().join();
+    }
+
+    @Test
+    void execute_withConcurrentSubmissions_shouldKeepHistoryConsistent() throws Exception {
+        // Arrange
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+
+        // Act
+        List<Future<CompletableFuture<Integer>>> submissions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            submissions.add(submitters.submit(() -> commandManager.execute(new IncrementCommand(counter))));
+        }
+        for (Future<CompletableFuture<Integer>> submission : submissions) {
+            futures.add(submission.get());
+        }
+        // Undos submitted without waiting still undo the executions queued before them
+        for (int i = 0; i < 150; i++) {
+            futures.add(commandManager.undo());
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+        submitters.shutdown();
+
+        // Assert
+        assertEquals(50, counter.get(), "150 of the 200 increments should be undone");
+        assertEquals(50, commandManager.getUndoStackSize(), "The remaining increments should be undoable");
+        assertEquals(150, commandManager.getRedoStackSize(), "The undone increments should be redoable");
+    }
+
+    @Test
+    void execute_withQueuedSavesToSameTarget_shouldPersistOnceAndUndoInOneStep() throws Exception {
+        // Arrange
+        AtomicReference<String> stored = new AtomicReference<>("original");
+        List<String> writes = new ArrayList<>();
+        Consumer<String> save = value -> {
+            synchronized (writes) {
+                writes.add(value);
+            }
+            stored.set(value);
+        };
+        Supplier<String> load = stored::get;
+        CommandKey key = new CommandKey("photo-1", "edit");
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = commandManager.execute(new BlockingCommand(release));
+
+        // Act
+        CompletableFuture<String> first =
+                commandManager.execute(new SaveDataCommand<>("draft 1", save, load, "Edit", key));
+        CompletableFuture<String> second =
+                commandManager.execute(new SaveDataCommand<>("draft 2", value -> save.accept(value), load, "Edit",
+                        new CommandKey("photo-1", "edit")));
+        CompletableFuture<String> third = commandManager.execute(new SaveDataCommand<>("final", save, load, "Edit", key));
+        release.countDown();
+        CompletableFuture.allOf(blocker, first, second, third).get(10, TimeUnit.SECONDS);
+        int undoStackSize = commandManager.getUndoStackSize();
+        commandManager.undo().get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(List.of("final", "original"), writes, "The queued saves should be written once, then undone once");
+        assertEquals("final", first.join(), "Every merged submission should complete with the merged result");
+        assertEquals("final", second.join(), "Every merged submission should complete with the merged result");
+        assertEquals(1, undoStackSize, "The merged saves should be one undo step");
+        assertEquals("original", stored.get(), "One undo should restore the value before the first save");
+    }
+
+    @Test
+    void execute_withQueuedSavesWithoutKey_shouldNotMerge() throws Exception {
+        // Arrange
+        AtomicReference<String> stored = new AtomicReference<>("original");
+        Consumer<String> save = stored::set;
+        Supplier<String> load = stored::get;
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = commandManager.execute(new BlockingCommand(release));
+
+        // Act
+        CompletableFuture<String> first = commandManager.execute(new SaveDataCommand<>("draft", save, load, "Edit"));
+        CompletableFuture<String> second = commandManager.execute(new SaveDataCommand<>("final", save, load, "Edit"));
+        release.countDown();
+        CompletableFuture.allOf(blocker, first, second).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals("draft", first.join(), "A save without a merge key should run on its own");
+        assertEquals(2, commandManager.getUndoStackSize());
+    }
+
+    @Test
+    void execute_beforeBlockedCommand_shouldCompleteWithoutWaitingForIt() throws Exception {
+        // Arrange
+        AtomicInteger counter = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Act
+        CompletableFuture<Integer> increment = commandManager.execute(new IncrementCommand(counter));
+        CompletableFuture<Void> blocker = commandManager.execute(new BlockingCommand(release));
+
+        // Assert
+        try {
+            assertEquals(1, (int) increment.get(10, TimeUnit.SECONDS),
+                    "A command should complete as soon as it has run, not after the whole queue");
+            assertFalse(blocker.isDone());
+        } finally {
+            release.countDown();
+        }
+        blocker.get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void execute_queuedCommands_shouldPublishTheirEventsTogetherAfterAllHaveRun() throws Exception {
+        // Arrange
+        AtomicInteger counter = new AtomicInteger();
+        List<Integer> countsSeenByHandler = new ArrayList<>();
+        CountDownLatch published = new CountDownLatch(3);
+        DomainEventHandler<CommandExecutedEvent> handler = event -> {
+            synchronized (countsSeenByHandler) {
+                countsSeenByHandler.add(counter.get());
+            }
+            published.countDown();
+        };
+        DomainEventPublisher.getInstance().register(CommandExecutedEvent.class, handler);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = commandManager.execute(new BlockingCommand(release));
+
+        try {
+            // Act
+            List<CompletableFuture<Integer>> increments = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                increments.add(commandManager.execute(new IncrementCommand(counter)));
+            }
+            release.countDown();
+            blocker.get(10, TimeUnit.SECONDS);
+            CompletableFuture.allOf(increments.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            // Assert
+            assertTrue(published.await(10, TimeUnit.SECONDS), "Every executed command should publish its event");
+            assertEquals(List.of(3, 3, 3), countsSeenByHandler,
+                    "The events of the queued commands should be published once all of them have run");
+        } finally {
+            DomainEventPublisher.getInstance().unregister(CommandExecutedEvent.class, handler);
+        }
+    }
+
+    @Test
+    void redo_afterFailedUndo_shouldKeepCommandOnUndoStack() throws Exception {
+        // Arrange
+        AtomicInteger counter = new AtomicInteger();
+        commandManager.execute(new IncrementCommand(counter)).get(10, TimeUnit.SECONDS);
+        commandManager.execute(new FailingUndoCommand()).get(10, TimeUnit.SECONDS);
+
+        // Act
+        CompletableFuture<Void> failedUndo = commandManager.undo();
+        CompletableFuture<?> redoWithoutUndo = commandManager.redo();
+
+        // Assert
+        assertThrows(Exception.class, () -> failedUndo.get(10, TimeUnit.SECONDS), "The failing undo should fail");
+        assertThrows(Exception.class, () -> redoWithoutUndo.get(10, TimeUnit.SECONDS),
+                "There should be nothing to redo after a failed undo");
+        assertEquals(2, commandManager.getUndoStackSize(), "The failed command should stay on the undo stack");
+        assertEquals(1, counter.get(), "The increment should not be undone");
+    }
+
+    private static final class IncrementCommand implements Command<Integer> {
+        private final AtomicInteger counter;
+
+        private IncrementCommand(AtomicInteger counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public CompletableFuture<Integer> execute() {
+            return CompletableFuture.supplyAsync(counter::incrementAndGet);
+        }
+
+        @Override
+        public CompletableFuture<Void> undo() {
+            return CompletableFuture.runAsync(counter::decrementAndGet);
+        }
+
+        @Override
+        public boolean canUndo() {
+            return true;
+        }
+    }
+
+    private static final class BlockingCommand implements Command<Void> {
+        private final CountDownLatch release;
+
+        private BlockingCommand(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public CompletableFuture<Void> execute() {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> undo() {
+            return CompletableFuture.failedFuture(new UnsupportedOperationException("Not undoable"));
+        }
+    }
+
+    private static final class FailingUndoCommand implements Command<Void> {
+        @Override
+        public CompletableFuture<Void> execute() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> undo() {
+            return CompletableFuture.failedFuture(new IllegalStateException("Undo failed"));
+        }
+
+        @Override
+        public boolean canUndo() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.belman.unit.service.usecase.order;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderChange;
+import com.belman.domain.order.OrderChangeFeed;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.memory.InMemoryOrderRepository;
+import com.belman.service.usecase.order.OrderSyncAgent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for how the OrderSyncAgent applies the deltas of the order change feed.
+ */
+class OrderSyncAgentTest {
+
+    private CountingOrderRepository repository;
+    private ListChangeFeed feed;
+    private OrderSyncAgent agent;
+
+    @BeforeEach
+    void setUp() {
+        repository = new CountingOrderRepository();
+        feed = new ListChangeFeed();
+        agent = new OrderSyncAgent(EmojiLoggerFactory.getInstance(), repository, feed, 2);
+    }
+
+    @Test
+    void refresh_firstTime_shouldLoadAllOrdersAndStartAtLatestChange() {
+        // Arrange
+        OrderBusiness order = save(newOrder());
+        feed.append(OrderChange.EntityType.ORDER, order.getId(), OrderChange.Operation.UPSERT);
+
+        // Act
+        OrderSyncAgent.Delta delta = agent.refresh();
+
+        // Assert
+        assertTrue(delta.fullReload());
+        assertEquals(1, agent.getOrders().size());
+        assertEquals(1, agent.getCursor());
+        assertEquals(1, repository.findAllCalls);
+    }
+
+    @Test
+    void refresh_afterChanges_shouldReloadOnlyChangedOrdersOnce() {
+        // Arrange
+        OrderBusiness unchanged = save(newOrder());
+        OrderBusiness changed = save(newOrder());
+        agent.refresh();
+        changed.setStatus(OrderStatus.IN_PROGRESS);
+        feed.append(OrderChange.EntityType.PHOTO, changed.getId(), OrderChange.Operation.UPSERT);
+        feed.append(OrderChange.EntityType.PHOTO, changed.getId(), OrderChange.Operation.UPSERT);
+        feed.append(OrderChange.EntityType.ORDER, changed.getId(), OrderChange.Operation.UPSERT);
+        List<OrderSyncAgent.Delta> notified = new ArrayList<>();
+        agent.addListener(notified::add);
+
+        // Act
+        OrderSyncAgent.Delta delta = agent.refresh();
+
+        // Assert
+        assertFalse(delta.fullReload());
+        assertEquals(List.of(changed.getId()), delta.updated().stream().map(OrderBusiness::getId).toList());
+        assertEquals(1, repository.findByIdCalls, "Changes of one order should be collapsed into one load");
+        assertEquals(1, repository.findAllCalls, "Deltas should not reload all orders");
+        assertEquals(3, agent.getCursor(), "Batches should be read until the feed is exhausted");
+        assertTrue(agent.getOrder(unchanged.getId()).isPresent());
+        assertEquals(List.of(delta), notified);
+    }
+
+    @Test
+    void refresh_withDeletedOrder_shouldRemoveItFromCache() {
+        // Arrange
+        OrderBusiness order = save(newOrder());
+        agent.refresh();
+        repository.deleteById(order.getId());
+        feed.append(OrderChange.EntityType.ORDER, order.getId(), OrderChange.Operation.DELETE);
+
+        // Act
+        OrderSyncAgent.Delta delta = agent.refresh();
+
+        // Assert
+        assertEquals(Set.of(order.getId()), delta.removed());
+        assertTrue(agent.getOrders().isEmpty());
+        assertEquals(0, repository.findByIdCalls, "Deleted orders should not be loaded");
+    }
+
+    @Test
+    void refresh_withGapInFeed_shouldApplyLaterChangesAndKeepGapOpen() {
+        // Arrange
+        agent.refresh();
+        OrderBusiness first = save(newOrder());
+        OrderBusiness inGap = save(newOrder());
+        OrderBusiness afterGap = save(newOrder());
+        feed.append(OrderChange.EntityType.ORDER, first.getId(), OrderChange.Operation.UPSERT);
+        long gap = feed.reserve();
+        feed.append(OrderChange.EntityType.ORDER, afterGap.getId(), OrderChange.Operation.UPSERT);
+
+        // Act
+        agent.refresh();
+        long cursorWithOpenGap = agent.getCursor();
+        long appliedWithOpenGap = agent.getAppliedSequence();
+        long acknowledgedWithOpenGap = feed.acknowledgedSequence();
+        boolean inGapSeenEarly = agent.getOrder(inGap.getId()).isPresent();
+        feed.commit(gap, OrderChange.EntityType.ORDER, inGap.getId(), OrderChange.Operation.UPSERT);
+        agent.refresh();
+
+        // Assert
+        assertEquals(3, cursorWithOpenGap, "Changes after an open gap should be applied");
+        assertTrue(agent.getOrder(afterGap.getId()).isPresent());
+        assertEquals(1, appliedWithOpenGap, "The applied sequence should stop before the open gap");
+        assertEquals(1, acknowledgedWithOpenGap, "Only the sequence before the gap should be acknowledged");
+        assertFalse(inGapSeenEarly);
+        assertTrue(agent.getOrder(inGap.getId()).isPresent(), "A change committed in the gap should be applied");
+        assertEquals(3, agent.getAppliedSequence());
+        assertEquals(3, feed.acknowledgedSequence());
+    }
+
+    @Test
+    void refresh_withRolledBackGap_shouldCloseGapOnceSettled() {
+        // Arrange
+        agent.refresh();
+        OrderBusiness afterGap = save(newOrder());
+        long gap = feed.reserve();
+        feed.append(OrderChange.EntityType.ORDER, afterGap.getId(), OrderChange.Operation.UPSERT);
+        agent.refresh();
+
+        // Act
+        agent.refresh();
+        long appliedWhileWriting = agent.getAppliedSequence();
+        feed.rollback(gap);
+        agent.refresh();
+
+        // Assert
+        assertEquals(0, appliedWhileWriting, "A gap that is still being written should stay open");
+        assertEquals(2, agent.getAppliedSequence(), "A rolled-back gap should be closed");
+        assertTrue(agent.getOrder(afterGap.getId()).isPresent());
+    }
+
+    @Test
+    void refresh_afterFeedPrunedPastCursor_shouldReloadAllOrders() {
+        // Arrange
+        agent.refresh();
+        OrderBusiness order = save(newOrder());
+        feed.append(OrderChange.EntityType.ORDER, order.getId(), OrderChange.Operation.UPSERT);
+        feed.append(OrderChange.EntityType.ORDER, order.getId(), OrderChange.Operation.UPSERT);
+        feed.pruneUpTo(1);
+
+        // Act
+        OrderSyncAgent.Delta delta = agent.refresh();
+
+        // Assert
+        assertTrue(delta.fullReload(), "Pruned changes cannot be applied, so all orders should be reloaded");
+        assertEquals(2, agent.getCursor());
+        assertEquals(2, repository.findAllCalls);
+    }
+
+    @Test
+    void refresh_withoutChangeFeed_shouldReloadAllOrders() {
+        // Arrange
+        OrderSyncAgent withoutFeed = new OrderSyncAgent(EmojiLoggerFactory.getInstance(), repository, null);
+        save(newOrder());
+
+        // Act
+        withoutFeed.refresh();
+        save(newOrder());
+        OrderSyncAgent.Delta delta = withoutFeed.refresh();
+
+        // Assert
+        assertTrue(delta.fullReload());
+        assertEquals(2, withoutFeed.getOrders().size());
+    }
+
+    private OrderBusiness save(OrderBusiness order) {
+        return repository.save(order);
+    }
+
+    private static OrderBusiness newOrder() {
+        return new OrderBusiness(OrderId.newId(), new UserReference(UserId.newId(), new Username("creator")),
+                Timestamp.now());
+    }
+
+    /**
+     * In-memory repository that counts the loads the agent makes.
+     */
+    private static class CountingOrderRepository extends InMemoryOrderRepository {
+        int findAllCalls;
+        int findByIdCalls;
+
+        @Override
+        public List<OrderBusiness> findAll() {
+            findAllCalls++;
+            return super.findAll();
+        }
+
+        @Override
+        public Optional<OrderBusiness> findById(OrderId id) {
+            findByIdCalls++;
+            return super.findById(id);
+        }
+    }
+
+    /**
+     * Change feed backed by a list, with sequences assigned on append. A reserved sequence stands
+     * for a transaction that is still writing it: it cannot be settled until it is committed or
+     * rolled back.
+     */
+    private static class ListChangeFeed implements OrderChangeFeed {
+        private final List<OrderChange> changes = new ArrayList<>();
+        private final Set<Long> reserved = new HashSet<>();
+        private long sequence;
+        private long pruned;
+        private long acknowledged = -1;
+
+        void append(OrderChange.EntityType type, OrderId orderId, OrderChange.Operation operation) {
+            changes.add(new OrderChange(++sequence, type, orderId.id(), orderId, operation));
+        }
+
+        long reserve() {
+            reserved.add(++sequence);
+            return sequence;
+        }
+
+        void commit(long reservedSequence, OrderChange.EntityType type, OrderId orderId,
+                    OrderChange.Operation operation) {
+            reserved.remove(reservedSequence);
+            changes.add(new OrderChange(reservedSequence, type, orderId.id(), orderId, operation));
+            changes.sort(Comparator.comparingLong(OrderChange::sequence));
+        }
+
+        void rollback(long reservedSequence) {
+            reserved.remove(reservedSequence);
+        }
+
+        void pruneUpTo(long prunedSequence) {
+            changes.removeIf(change -> change.sequence() <= prunedSequence);
+            pruned = prunedSequence;
+        }
+
+        long acknowledgedSequence() {
+            return acknowledged;
+        }
+
+        @Override
+        public List<OrderChange> findChangesSince(long since, int limit) {
+            return changes.stream().filter(change -> change.sequence() > since).limit(limit).toList();
+        }
+
+        @Override
+        public long findLatestSequence() {
+            return sequence;
+        }
+
+        @Override
+        public List<OrderChange> settleChanges(long after, long upTo) {
+            if (reserved.stream().anyMatch(reservedSequence -> reservedSequence > after && reservedSequence <= upTo)) {
+                throw new IllegalStateException("Lock request time out period exceeded");
+            }
+            return changes.stream()
+                    .filter(change -> change.sequence() > after && change.sequence() <= upTo)
+                    .toList();
+        }
+
+        @Override
+        public void acknowledge(String consumerId, long acknowledgedSequence) {
+            acknowledged = acknowledgedSequence;
+        }
+
+        @Override
+        public long findPrunedSequence() {
+            return pruned;
+        }
+
+        @Override
+        public int pruneAcknowledged(Duration consumerTimeout) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.service.usecase.photo.DecodedImageCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the byte budget and prefetching of the DecodedImageCache, using a test decoder
+ * based on ImageIO.
+ */
+class DecodedImageCacheTest {
+
+    private static final int MAX_EDGE = 100;
+    private static final long PHOTO_BYTES = 100L * 50 * 4;
+
+    @TempDir
+    Path tempDir;
+
+    private final SubsamplingDecoder decoder = new SubsamplingDecoder();
+    private DecodedImageCache<BufferedImage> cache;
+
+    @AfterEach
+    void tearDown() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+
+    @Test
+    void getAsync_largePhoto_shouldDecodeAtMaxEdgeOnce() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, 3 * PHOTO_BYTES, MAX_EDGE);
+        Path photo = writePhoto("large.png", 400, 200);
+
+        // Act
+        BufferedImage image = cache.getAsync(photo).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(100, image.getWidth());
+        assertEquals(50, image.getHeight());
+        assertEquals(PHOTO_BYTES, cache.getUsedBytes(), "The budget should be counted in the decoder's bytes");
+        assertSame(image, cache.getAsync(photo).getNow(null), "A cached photo should not be decoded again");
+        assertEquals(1, decoder.decodeCount.get());
+    }
+
+    @Test
+    void getAsync_overBudget_shouldDemoteLeastRecentlyUsedPhoto() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, 2 * PHOTO_BYTES, MAX_EDGE);
+        Path first = writePhoto("first.png", 100, 50);
+        Path second = writePhoto("second.png", 100, 50);
+        Path third = writePhoto("third.png", 100, 50);
+        BufferedImage firstImage = cache.getAsync(first).get(10, TimeUnit.SECONDS);
+        cache.getAsync(second).get(10, TimeUnit.SECONDS);
+
+        // Act
+        cache.getAsync(third).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(2 * PHOTO_BYTES, cache.getUsedBytes(), "The budget should be counted in decoded bytes");
+        // The test still holds the first photo, so its soft reference cannot have been cleared
+        assertSame(firstImage, cache.getIfPresent(first).orElseThrow(),
+                "A demoted photo should be promoted again without decoding it");
+        assertTrue(cache.getUsedBytes() <= cache.getByteBudget());
+    }
+
+    @Test
+    void getAsync_photoLargerThanBudget_shouldNotCountAgainstBudget() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, PHOTO_BYTES / 2, MAX_EDGE);
+        Path photo = writePhoto("photo.png", 100, 50);
+
+        // Act
+        BufferedImage image = cache.getAsync(photo).get(10, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(0, cache.getUsedBytes());
+        assertSame(image, cache.getIfPresent(photo).orElseThrow());
+    }
+
+    @Test
+    void prefetch_middleOfSequence_shouldDecodeNeighbours() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, 10 * PHOTO_BYTES, MAX_EDGE);
+        List<Path> sequence = List.of(writePhoto("a.png", 100, 50), writePhoto("b.png", 100, 50),
+                writePhoto("c.png", 100, 50), writePhoto("d.png", 100, 50));
+
+        // Act
+        cache.prefetch(sequence, 1);
+
+        // Assert
+        assertTrue(awaitCached(sequence.get(2)), "The next photo should be prefetched");
+        assertTrue(awaitCached(sequence.get(0)), "The previous photo should be prefetched");
+        assertTrue(cache.getIfPresent(sequence.get(3)).isEmpty(), "Only the direct neighbours are prefetched");
+    }
+
+    @Test
+    void invalidateAndClear_cachedPhotos_shouldReleaseBytes() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, 10 * PHOTO_BYTES, MAX_EDGE);
+        Path first = writePhoto("first.png", 100, 50);
+        Path second = writePhoto("second.png", 100, 50);
+        cache.getAsync(first).get(10, TimeUnit.SECONDS);
+        cache.getAsync(second).get(10, TimeUnit.SECONDS);
+
+        // Act
+        cache.invalidate(first);
+        long afterInvalidate = cache.getUsedBytes();
+        cache.clear();
+
+        // Assert
+        assertEquals(PHOTO_BYTES, afterInvalidate);
+        assertTrue(cache.getIfPresent(first).isEmpty());
+        assertTrue(cache.getIfPresent(second).isEmpty());
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    @Test
+    void getAsync_unreadableFile_shouldCompleteExceptionally() throws Exception {
+        // Arrange
+        cache = new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, PHOTO_BYTES, MAX_EDGE);
+        Path missing = tempDir.resolve("missing.png");
+
+        // Act & Assert
+        assertThrows(Exception.class, () -> cache.getAsync(missing).get(10, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DecodedImageCache<>(EmojiLoggerFactory.getInstance(), decoder, 0, MAX_EDGE));
+    }
+
+    private boolean awaitCached(Path photo) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (cache.getIfPresent(photo).isPresent()) {
+                return true;
+            }
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    private Path writePhoto(String name, int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+            }
+        }
+        Path file = tempDir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+
+    /**
+     * Decodes with source subsampling so the longest edge fits the maximum edge, and counts
+     * 4 bytes per pixel.
+     */
+    private static class SubsamplingDecoder implements DecodedImageCache.Decoder<BufferedImage> {
+        private final AtomicInteger decodeCount = new AtomicInteger();
+
+        @Override
+        public BufferedImage decode(Path imageFile, int maxEdge) throws IOException {
+            decodeCount.incrementAndGet();
+            try (ImageInputStream input = ImageIO.createImageInputStream(imageFile.toFile())) {
+                if (input == null) {
+                    throw new IOException("Cannot read image: " + imageFile);
+                }
+                Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+                if (!readers.hasNext()) {
+                    throw new IOException("Unsupported image format: " + imageFile.getFileName());
+                }
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+                    int subsampling = Math.max(1, (longest + maxEdge - 1) / maxEdge);
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                    return reader.read(0, param);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+
+        @Override
+        public long byteSize(BufferedImage image) {
+            return (long) image.getWidth() * image.getHeight() * 4;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.memory.InMemoryOrderRepository;
+import com.belman.service.usecase.photo.DefaultPhotoService;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+import com.belman.test.util.ImageIoPixelDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for uploading photos with the DefaultPhotoService.
+ */
+class DefaultPhotoServiceTest {
+
+    private static final UserBusiness WORKER = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("production_worker"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("production_worker@example.com"))
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    private InMemoryOrderRepository orderRepository;
+    private ImageQualityPrescreener prescreener;
+    private DefaultPhotoService photoService;
+    private OrderBusiness order;
+
+    @BeforeEach
+    void setUp() {
+        orderRepository = new InMemoryOrderRepository();
+        prescreener = new ImageQualityPrescreener(1, 4, EmojiLoggerFactory.getInstance(), new ImageIoPixelDecoder());
+        photoService = new DefaultPhotoService(orderRepository, photoDirectory().toString(), prescreener);
+        order = new OrderBusiness(OrderId.newId(), new OrderNumber("07/23-000034-00000004"),
+                UserReference.from(WORKER), Timestamp.now());
+        orderRepository.save(order);
+    }
+
+    @AfterEach
+    void tearDown() {
+        prescreener.close();
+    }
+
+    @Test
+    void uploadPhoto_withPrescreener_shouldSaveQualityScoreAndHash() throws IOException {
+        // Arrange
+        File file = writeImage("front.png");
+
+        // Act
+        PhotoDocument uploaded = photoService.uploadPhoto(file, order.getId(), PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY,
+                WORKER);
+
+        // Assert
+        PhotoDocument saved = orderRepository.findById(order.getId()).orElseThrow().getPhotos().get(0);
+        assertEquals(uploaded.getPhotoId(), saved.getPhotoId());
+        assertNotNull(saved.getQualityScore(), "The pre-screen scores should be saved with the photo");
+        assertNotNull(saved.getPerceptualHash(), "The perceptual hash should be saved with the photo");
+        assertTrue(saved.getQualityScore().sharpness() > 0, "A checkerboard should not score as blurred");
+    }
+
+    @Test
+    void uploadPhoto_sameSceneTwice_shouldFindFirstPhotoAsNearDuplicate() throws IOException {
+        // Arrange
+        PhotoDocument first = photoService.uploadPhoto(writeImage("front.png"), order.getId(),
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, WORKER);
+        File retake = writeImage("retake.png");
+
+        // Act
+        PhotoDocument second = photoService.uploadPhoto(retake, order.getId(), PhotoTemplate.CUSTOM, WORKER);
+
+        // Assert
+        OrderBusiness saved = orderRepository.findById(order.getId()).orElseThrow();
+        List<PhotoDocument> duplicates = saved.findNearDuplicates(second.getPerceptualHash(),
+                PerceptualHash.NEAR_DUPLICATE_DISTANCE);
+        assertTrue(duplicates.stream().anyMatch(photo -> photo.getPhotoId().equals(first.getPhotoId())),
+                "The retake should be reported as a near-duplicate of the first upload");
+    }
+
+    @Test
+    void uploadPhoto_toMissingOrder_shouldThrowWithoutStoringFile() throws IOException {
+        // Arrange
+        File file = writeImage("front.png");
+
+        // Act & Assert
+        assertThrows(NoSuchElementException.class, () -> photoService.uploadPhoto(file, OrderId.newId(),
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, WORKER));
+        assertEquals(0, storedFileCount(), "No photo file should be stored for a missing order");
+    }
+
+    @Test
+    void uploadPhoto_whenOrderCannotBeSaved_shouldDeleteStoredFile() throws IOException {
+        // Arrange
+        InMemoryOrderRepository failingRepository = new InMemoryOrderRepository() {
+            @Override
+            public OrderBusiness save(OrderBusiness orderBusiness) {
+                // Accepts the order, then fails the save that adds the photo
+                if (!orderBusiness.getPhotos().isEmpty()) {
+                    throw new IllegalStateException("Database unavailable");
+                }
+                return super.save(orderBusiness);
+            }
+        };
+        failingRepository.save(order);
+        DefaultPhotoService service = new DefaultPhotoService(failingRepository, photoDirectory().toString(),
+                prescreener);
+        File file = writeImage("front.png");
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> service.uploadPhoto(file, order.getId(),
+                PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, WORKER));
+        assertEquals(0, storedFileCount(), "The copied photo should be deleted when the order is not saved");
+    }
+
+    private Path photoDirectory() {
+        return tempDir.resolve("photos");
+    }
+
+    private long storedFileCount() throws IOException {
+        try (Stream<Path> files = Files.list(photoDirectory())) {
+            return files.count();
+        }
+    }
+
+    private File writeImage(String name) throws IOException {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x / 8 + y / 8) % 2 == 0 ? 0x202020 : 0xFFFFFF);
+            }
+        }
+        File file = tempDir.resolve(name).toFile();
+        ImageIO.write(image, "png", file);
+        return file;
+    }
+}
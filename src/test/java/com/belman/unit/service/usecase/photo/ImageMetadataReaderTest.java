@@ -0,0 +1,186 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.domain.order.photo.ImageMetadata;
+import com.belman.service.usecase.photo.ImageMetadataReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for reading image dimensions, orientation and capture time with the ImageMetadataReader.
+ */
+class ImageMetadataReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void read_encodedJpegAndPng_shouldReadDimensions() throws IOException {
+        // Arrange
+        BufferedImage image = new BufferedImage(640, 480, BufferedImage.TYPE_INT_RGB);
+        Path jpeg = tempDir.resolve("photo.jpg");
+        Path png = tempDir.resolve("photo.png");
+        ImageIO.write(image, "jpg", jpeg.toFile());
+        ImageIO.write(image, "png", png.toFile());
+
+        // Act
+        ImageMetadata jpegMetadata = ImageMetadataReader.read(jpeg, ZoneOffset.UTC).orElseThrow();
+        ImageMetadata pngMetadata = ImageMetadataReader.read(png, ZoneOffset.UTC).orElseThrow();
+
+        // Assert
+        assertEquals(new ImageMetadata(640, 480, 1, null), jpegMetadata);
+        assertEquals(new ImageMetadata(640, 480, 1, null), pngMetadata);
+    }
+
+    @Test
+    void read_jpegWithExif_shouldReadOrientationAndCaptureTime() throws IOException {
+        // Arrange
+        Path bigEndian = tempDir.resolve("big-endian.jpg");
+        Path littleEndian = tempDir.resolve("little-endian.jpg");
+        Files.write(bigEndian, jpeg(exif(ByteOrder.BIG_ENDIAN, 6, "2024:03:15 09:30:00", "+02:00"), 4000, 3000));
+        Files.write(littleEndian, jpeg(exif(ByteOrder.LITTLE_ENDIAN, 8, "2024:03:15 09:30:00", null), 4000, 3000));
+
+        // Act
+        ImageMetadata withOffset = ImageMetadataReader.read(bigEndian, ZoneOffset.UTC).orElseThrow();
+        ImageMetadata withoutOffset = ImageMetadataReader.read(littleEndian, ZoneOffset.ofHours(1)).orElseThrow();
+
+        // Assert
+        assertEquals(new ImageMetadata(4000, 3000, 6, Instant.parse("2024-03-15T07:30:00Z")), withOffset);
+        assertEquals(Instant.parse("2024-03-15T08:30:00Z"), withoutOffset.capturedAt(),
+                "Times without an offset should be read in the given zone");
+        assertEquals(8, withoutOffset.orientation());
+        assertTrue(withOffset.isTransposed());
+        assertEquals(3000, withOffset.displayWidth(), "Portrait photos should be displayed rotated");
+        assertEquals(4000, withOffset.displayHeight());
+    }
+
+    @Test
+    void read_pngWithExifChunk_shouldReadOrientation() throws IOException {
+        // Arrange
+        Path png = tempDir.resolve("photo.png");
+        Files.write(png, png(exif(ByteOrder.BIG_ENDIAN, 3, "2023:07:20 14:20:10", "+00:00"), 1920, 1080));
+
+        // Act
+        ImageMetadata metadata = ImageMetadataReader.read(png, ZoneOffset.UTC).orElseThrow();
+
+        // Assert
+        assertEquals(new ImageMetadata(1920, 1080, 3, Instant.parse("2023-07-20T14:20:10Z")), metadata);
+    }
+
+    @Test
+    void read_malformedFiles_shouldReturnEmpty() throws IOException {
+        // Arrange
+        Path text = tempDir.resolve("photo.txt");
+        Path truncated = tempDir.resolve("truncated.jpg");
+        Path badExif = tempDir.resolve("bad-exif.jpg");
+        Files.writeString(text, "not an image");
+        byte[] complete = jpeg(new byte[0], 800, 600);
+        Files.write(truncated, java.util.Arrays.copyOf(complete, 5));
+        byte[] exif = exif(ByteOrder.BIG_ENDIAN, 6, "0000:00:00 00:00:00", null);
+        // Point the first IFD past the end of the segment
+        exif[4 + 6] = 0x7F;
+        Files.write(badExif, jpeg(exif, 800, 600));
+
+        // Act
+        Optional<ImageMetadata> fromText = ImageMetadataReader.read(text);
+        Optional<ImageMetadata> fromTruncated = ImageMetadataReader.read(truncated);
+        Optional<ImageMetadata> fromBadExif = ImageMetadataReader.read(badExif);
+
+        // Assert
+        assertTrue(fromText.isEmpty());
+        assertTrue(fromTruncated.isEmpty());
+        assertEquals(Optional.of(new ImageMetadata(800, 600, 1, null)), fromBadExif,
+                "A malformed EXIF segment should not hide the dimensions");
+    }
+
+    /**
+     * Builds the header of a baseline JPEG: SOI, an optional EXIF APP1 segment, a quantization table
+     * segment, SOF0 and the start of the scan.
+     */
+    private static byte[] jpeg(byte[] exif, int width, int height) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(0xFF);
+        out.write(0xD8);
+        if (exif.length > 0) {
+            segment(out, 0xE1, exif);
+        }
+        segment(out, 0xDB, new byte[65]);
+        segment(out, 0xC0, new byte[]{8, (byte) (height >> 8), (byte) height, (byte) (width >> 8), (byte) width,
+                1, 1, 0x11, 0});
+        segment(out, 0xDA, new byte[10]);
+        out.writeBytes(new byte[1000]);
+        return out.toByteArray();
+    }
+
+    private static void segment(ByteArrayOutputStream out, int marker, byte[] data) {
+        out.write(0xFF);
+        out.write(marker);
+        out.write((data.length + 2) >> 8);
+        out.write(data.length + 2);
+        out.writeBytes(data);
+    }
+
+    /**
+     * Builds a PNG with IHDR, an eXIf chunk, and an empty IDAT and IEND. CRCs are left zero, as the
+     * reader does not check them.
+     */
+    private static byte[] png(byte[] exif, int width, int height) {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 25 + 12 + exif.length - 6 + 12 + 12);
+        buffer.put(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'});
+        buffer.putInt(13).put("IHDR".getBytes(StandardCharsets.US_ASCII))
+                .putInt(width).putInt(height).put(new byte[]{8, 2, 0, 0, 0}).putInt(0);
+        // The eXIf chunk holds the TIFF structure without the "Exif" header of the JPEG segment
+        buffer.putInt(exif.length - 6).put("eXIf".getBytes(StandardCharsets.US_ASCII))
+                .put(exif, 6, exif.length - 6).putInt(0);
+        buffer.putInt(0).put("IDAT".getBytes(StandardCharsets.US_ASCII)).putInt(0);
+        buffer.putInt(0).put("IEND".getBytes(StandardCharsets.US_ASCII)).putInt(0);
+        return buffer.array();
+    }
+
+    /**
+     * Builds an EXIF APP1 payload with an orientation in IFD0 and the capture time in the EXIF IFD.
+     */
+    private static byte[] exif(ByteOrder order, int orientation, String dateTimeOriginal, String offset) {
+        ByteBuffer tiff = ByteBuffer.allocate(200).order(order);
+        tiff.put(order == ByteOrder.BIG_ENDIAN ? "MM".getBytes(StandardCharsets.US_ASCII)
+                                               : "II".getBytes(StandardCharsets.US_ASCII));
+        tiff.putShort((short) 42).putInt(8);
+
+        // IFD0 at 8: orientation and the EXIF IFD pointer
+        tiff.putShort((short) 2);
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putShort((short) 0x8769).putShort((short) 4).putInt(1).putInt(38);
+        tiff.putInt(0);
+
+        // EXIF IFD at 38: DateTimeOriginal and OffsetTimeOriginal, with their values from 68
+        int entries = offset != null ? 2 : 1;
+        tiff.putShort((short) entries);
+        tiff.putShort((short) 0x9003).putShort((short) 2).putInt(20).putInt(68);
+        tiff.putShort((short) 0x9011).putShort((short) 2).putInt(7).putInt(88);
+        tiff.putInt(0);
+        tiff.position(68);
+        tiff.put((dateTimeOriginal + "\0").getBytes(StandardCharsets.US_ASCII));
+        if (offset != null) {
+            tiff.position(88);
+            tiff.put((offset + "\0").getBytes(StandardCharsets.US_ASCII));
+        }
+
+        ByteBuffer app1 = ByteBuffer.allocate(6 + 96);
+        app1.put(new byte[]{'E', 'x', 'i', 'f', 0, 0}).put(tiff.array(), 0, 96);
+        return app1.array();
+    }
+}
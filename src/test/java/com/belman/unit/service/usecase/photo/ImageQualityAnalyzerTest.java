@@ -0,0 +1,90 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.domain.order.photo.ImageQualityScore;
+import com.belman.domain.order.photo.policy.PhotoQualityPolicy;
+import com.belman.service.usecase.photo.ImageQualityAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImageQualityAnalyzer and the image quality rules of the PhotoQualityPolicy.
+ */
+class ImageQualityAnalyzerTest {
+
+    private static final int WIDTH = 400;
+    private static final int HEIGHT = 300;
+
+    @Test
+    void analyze_withCheckerboard_shouldScoreSharperThanSmoothGradient() {
+        // Arrange
+        int[] checkerboard = image((x, y) -> ((x / 4 + y / 4) % 2 == 0) ? 60 : 190);
+        int[] gradient = image((x, y) -> 60 + (x * 130) / WIDTH);
+
+        // Act
+        ImageQualityScore sharp = ImageQualityAnalyzer.analyze(checkerboard, WIDTH, HEIGHT);
+        ImageQualityScore blurred = ImageQualityAnalyzer.analyze(gradient, WIDTH, HEIGHT);
+
+        // Assert
+        assertTrue(sharp.sharpness() > 1000, "Hard edges should give a high Laplacian variance");
+        assertTrue(blurred.sharpness() < 10, "A smooth gradient should give a low Laplacian variance");
+        assertEquals(0, sharp.clippingRatio(), 1e-9, "Mid-grey pixels should not be clipped");
+    }
+
+    @Test
+    void analyze_withLargeImage_shouldDownsampleAndMeasureClipping() {
+        // Arrange
+        int width = 4000;
+        int height = 3000;
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                // Left quarter is black, right quarter is white, the middle is mid grey
+                int level = x < width / 4 ? 0 : x >= width * 3 / 4 ? 255 : 128;
+                argb[y * width + x] = 0xFF000000 | (level << 16) | (level << 8) | level;
+            }
+        }
+
+        // Act
+        ImageQualityScore score = ImageQualityAnalyzer.analyze(argb, width, height);
+
+        // Assert
+        assertEquals(0.25, score.darkClippingRatio(), 0.01, "A quarter of the pixels should be black");
+        assertEquals(0.25, score.brightClippingRatio(), 0.01, "A quarter of the pixels should be white");
+        assertEquals(128, score.meanLuminance(), 2, "The mean should be mid grey");
+    }
+
+    @Test
+    void getImageQualityIssues_withBlurredDarkPhoto_shouldFlagPhoto() {
+        // Arrange
+        PhotoQualityPolicy policy = new PhotoQualityPolicy();
+        ImageQualityScore usable = new ImageQualityScore(450, 120, 0.01, 0.02);
+        ImageQualityScore blurredAndDark = new ImageQualityScore(20, 25, 0.4, 0);
+
+        // Act
+        boolean usableFlagged = policy.isLikelyUnusable(usable);
+
+        // Assert
+        assertFalse(usableFlagged, "A sharp, well exposed photo should not be flagged");
+        assertEquals(2, policy.getImageQualityIssues(blurredAndDark).size(),
+                "Both blur and underexposure should be reported");
+        assertTrue(policy.isLikelyUnusable(blurredAndDark), "A blurred, dark photo should be flagged");
+        assertThrows(IllegalArgumentException.class, () -> new ImageQualityScore(10, 300, 0, 0),
+                "Luminance outside 0-255 should be rejected");
+    }
+
+    private static int[] image(PixelFunction luminance) {
+        int[] argb = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int level = luminance.at(x, y);
+                argb[y * WIDTH + x] = 0xFF000000 | (level << 16) | (level << 8) | level;
+            }
+        }
+        return argb;
+    }
+
+    private interface PixelFunction {
+        int at(int x, int y);
+    }
+}
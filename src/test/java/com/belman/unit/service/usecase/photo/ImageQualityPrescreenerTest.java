@@ -0,0 +1,76 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.service.usecase.photo.ImageQualityPrescreener;
+import com.belman.test.util.ImageIoPixelDecoder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ImageQualityPrescreener.
+ */
+class ImageQualityPrescreenerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void screen_sameFileTwice_shouldReuseFirstScreen() throws IOException {
+        // Arrange
+        Path file = writeImage("selected.png", 0x808080);
+        try (ImageQualityPrescreener prescreener = new ImageQualityPrescreener(1, 4, EmojiLoggerFactory.getInstance(),
+                new ImageIoPixelDecoder())) {
+            CompletableFuture<Optional<ImageQualityPrescreener.Result>> selected = prescreener.screen(file);
+
+            // Act
+            CompletableFuture<Optional<ImageQualityPrescreener.Result>> uploaded = prescreener.screen(file);
+
+            // Assert
+            assertSame(selected, uploaded, "The upload should reuse the screen of the selected photo");
+            assertTrue(uploaded.join().isPresent(), "The photo should be scored and hashed");
+        }
+    }
+
+    @Test
+    void screen_modifiedFile_shouldScreenAgain() throws IOException {
+        // Arrange
+        Path file = writeImage("retaken.png", 0x808080);
+        try (ImageQualityPrescreener prescreener = new ImageQualityPrescreener(1, 4, EmojiLoggerFactory.getInstance(),
+                new ImageIoPixelDecoder())) {
+            CompletableFuture<Optional<ImageQualityPrescreener.Result>> first = prescreener.screen(file);
+            first.join();
+            writeImage("retaken.png", 0x202020);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+
+            // Act
+            CompletableFuture<Optional<ImageQualityPrescreener.Result>> second = prescreener.screen(file);
+
+            // Assert
+            assertNotSame(first, second, "A changed file should be decoded again");
+            assertTrue(second.join().isPresent(), "The changed photo should be scored and hashed");
+        }
+    }
+
+    private Path writeImage(String name, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(320, 240, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, (x / 8 + y / 8) % 2 == 0 ? rgb : 0xFFFFFF);
+            }
+        }
+        Path file = tempDir.resolve(name);
+        ImageIO.write(image, "png", file.toFile());
+        return file;
+    }
+}
@@ -0,0 +1,187 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.memory.InMemoryOrderRepository;
+import com.belman.repository.persistence.memory.InMemoryUserRepository;
+import com.belman.service.usecase.photo.LegacyArchiveImporter;
+import com.belman.service.usecase.photo.LegacyArchiveImporter.ImportResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for importing the legacy photo archive with the LegacyArchiveImporter.
+ */
+class LegacyArchiveImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path archive;
+    private Path photos;
+    private Path checkpoint;
+    private InMemoryOrderRepository orderRepository;
+    private LegacyArchiveImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        archive = tempDir.resolve("archive");
+        photos = tempDir.resolve("photos");
+        checkpoint = tempDir.resolve("import.checkpoint");
+        orderRepository = new InMemoryOrderRepository();
+        InMemoryUserRepository userRepository = new InMemoryUserRepository();
+        UserBusiness admin = userRepository.findByUsername(new Username("admin")).orElseThrow();
+        importer = new LegacyArchiveImporter(EmojiLoggerFactory.getInstance(), orderRepository, userRepository,
+                photos, admin, LegacyArchiveImporter.ImportMode.COPY, 2, 2);
+    }
+
+    @Test
+    void importArchive_withArchive_shouldCreateOrdersWithReviewedPhotos() throws IOException {
+        // Arrange
+        writeOrder("2023/07/20", "ORD-33-230720-PIP-0003", "img1.jpg", "img2.jpg");
+        writeOrder("2023/05/01", "ORD-45-230501-WLD-0001", "img1.jpg");
+
+        // Act
+        ImportResult result = importer.importArchive(archive, checkpoint);
+
+        // Assert
+        assertEquals(2, result.importedOrders());
+        assertEquals(3, result.importedPhotos());
+        assertTrue(result.failedOrders().isEmpty());
+        OrderBusiness order = orderRepository.findByOrderNumber(new OrderNumber("07/23-000033-00000003"))
+                .orElseThrow();
+        List<PhotoDocument> orderPhotos = order.getPhotos();
+        assertEquals(2, orderPhotos.size());
+        assertEquals(PhotoDocument.ApprovalStatus.APPROVED, orderPhotos.get(0).getStatus());
+        assertEquals(PhotoDocument.ApprovalStatus.REJECTED, orderPhotos.get(1).getStatus());
+        assertEquals("Gauge not visible", orderPhotos.get(1).getReviewComment());
+        assertEquals("production", orderPhotos.get(0).getUploadedBy().getUsername().value(),
+                "Uploaders should be looked up by username");
+        for (PhotoDocument photo : orderPhotos) {
+            assertTrue(Files.isRegularFile(photos.resolve(photo.getImagePath().value())),
+                    "Images should be copied into the photo store");
+        }
+    }
+
+    @Test
+    void importArchive_runAgain_shouldSkipCheckpointedOrders() throws IOException {
+        // Arrange
+        writeOrder("2023/07/20", "ORD-33-230720-PIP-0003", "img1.jpg");
+        importer.importArchive(archive, checkpoint);
+        writeOrder("2023/06/15", "ORD-12-230615-CST-0002", "img1.jpg");
+
+        // Act
+        ImportResult result = importer.importArchive(archive, checkpoint);
+
+        // Assert
+        assertEquals(1, result.skippedOrders());
+        assertEquals(1, result.importedOrders());
+        assertEquals(2, orderRepository.count());
+        assertEquals(List.of("ORD-33-230720-PIP-0003", "ORD-12-230615-CST-0002"), Files.readAllLines(checkpoint));
+    }
+
+    @Test
+    void importArchive_withoutCheckpoint_shouldNotDuplicateOrders() throws IOException {
+        // Arrange
+        writeOrder("2023/07/20", "ORD-33-230720-PIP-0003", "img1.jpg");
+        importer.importArchive(archive, checkpoint);
+        Files.delete(checkpoint);
+
+        // Act
+        ImportResult result = importer.importArchive(archive, checkpoint);
+
+        // Assert
+        assertEquals(0, result.importedOrders(), "Order IDs are derived from the legacy order number");
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    void importArchive_sameOrderNumberInLaterRun_shouldFailWithoutCheckpointing() throws IOException {
+        // Arrange
+        writeOrder("2023/07/20", "ORD-33-230720-PIP-0003", "img1.jpg");
+        importer.importArchive(archive, checkpoint);
+        writeOrder("2023/07/21", "ORD-33-230721-WLD-0003", "img1.jpg");
+
+        // Act
+        ImportResult result = importer.importArchive(archive, checkpoint);
+
+        // Assert
+        assertEquals(0, result.importedOrders());
+        assertTrue(result.failedOrders().get("ORD-33-230721-WLD-0003").contains("ORD-33-230720-PIP-0003"),
+                "The failure should name the legacy order that holds the order number");
+        assertEquals(1, orderRepository.count());
+        assertFalse(Files.readAllLines(checkpoint).contains("ORD-33-230721-WLD-0003"),
+                "A colliding order should not be marked as imported");
+    }
+
+    @Test
+    void importArchive_withMalformedMetadata_shouldReportFailureAndImportOthers() throws IOException {
+        // Arrange
+        writeOrder("2023/07/20", "ORD-33-230720-PIP-0003", "img1.jpg");
+        Path broken = archive.resolve("2023/07/21/ORD-33-230721-PIP-0004");
+        Files.createDirectories(broken);
+        Files.writeString(broken.resolve("metadata.json"), "{\"orderNumber\": \"ORD-33-230721-PIP-0004\", ");
+
+        // Act
+        ImportResult result = importer.importArchive(archive, checkpoint);
+
+        // Assert
+        assertEquals(1, result.importedOrders());
+        assertEquals(1, result.failedOrders().size());
+        assertTrue(result.failedOrders().containsKey("ORD-33-230721-PIP-0004"));
+        assertFalse(Files.readAllLines(checkpoint).contains("ORD-33-230721-PIP-0004"),
+                "Failed orders should be retried by the next run");
+    }
+
+    @Test
+    void translateOrderNumber_withLegacyNumber_shouldUseMonthYearCountryAndSequence() {
+        // Act
+        OrderNumber orderNumber = LegacyArchiveImporter.translateOrderNumber("ORD-45-230501-WLD-0001");
+
+        // Assert
+        assertEquals("05/23-000045-00000001", orderNumber.value());
+        assertThrows(IllegalArgumentException.class, () -> LegacyArchiveImporter.translateOrderNumber("45-0001"));
+    }
+
+    /**
+     * Writes an order directory like the legacy archive does: the metadata names .jpg files while
+     * the directory holds .txt files, and every second image is rejected.
+     */
+    private void writeOrder(String datePath, String legacyNumber, String... images) throws IOException {
+        Path directory = archive.resolve(datePath).resolve(legacyNumber);
+        Files.createDirectories(directory);
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"orderNumber\": \"").append(legacyNumber).append("\",\n")
+                .append("  \"date\": \"").append(datePath.replace('/', '-')).append("\",\n")
+                .append("  \"productType\": \"Pipe Solution\",\n")
+                .append("  \"countryCode\": \"33\",\n")
+                .append("  \"tags\": [\"legacy\", {\"nested\": true}],\n")
+                .append("  \"images\": [");
+        for (int i = 0; i < images.length; i++) {
+            String image = images[i];
+            Files.writeString(directory.resolve(image.replace(".jpg", ".txt")), "image " + image);
+            json.append(i > 0 ? "," : "").append("\n    {\"filename\": \"").append(image).append("\", ")
+                    .append("\"uploadedBy\": \"production\", ")
+                    .append("\"uploadedAt\": \"").append(datePath.replace('/', '-')).append("T14:20:10Z\", ");
+            if (i % 2 == 0) {
+                json.append("\"status\": \"approved\"}");
+            } else {
+                json.append("\"status\": \"rejected\", \"rejectionReason\": \"Gauge not visible\"}");
+            }
+        }
+        json.append("\n  ]\n}");
+        Files.writeString(directory.resolve("metadata.json"), json.toString());
+    }
+}
@@ -0,0 +1,135 @@
+package com.belman.unit.service.usecase.photo;
+
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PerceptualHash;
+import com.belman.domain.order.photo.PerceptualHashIndex;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.service.usecase.photo.PerceptualHasher;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for perceptual hashing and the near-duplicate index of orders.
+ */
+class PerceptualHashIndexTest {
+
+    private static final UserBusiness UPLOADER = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("uploader"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("uploader@example.com"))
+            .build();
+
+    @Test
+    void search_withRandomHashes_shouldMatchLinearScan() {
+        // Arrange
+        Random random = new Random(7);
+        PerceptualHashIndex<Integer> index = new PerceptualHashIndex<>();
+        List<PerceptualHash> hashes = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Flip a few bits of a handful of base hashes, so there are clusters to find
+            long bits = (i % 5) * 0x1234_5678_9ABC_DEF1L;
+            for (int flip = 0; flip < random.nextInt(12); flip++) {
+                bits ^= 1L << random.nextInt(64);
+            }
+            hashes.add(new PerceptualHash(bits));
+            index.add(hashes.get(i), i);
+        }
+        PerceptualHash query = new PerceptualHash(2 * 0x1234_5678_9ABC_DEF1L ^ 0b1011);
+
+        // Act
+        List<Integer> matches = index.search(query, PerceptualHash.NEAR_DUPLICATE_DISTANCE);
+
+        // Assert
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < hashes.size(); i++) {
+            if (hashes.get(i).distanceTo(query) <= PerceptualHash.NEAR_DUPLICATE_DISTANCE) {
+                expected.add(i);
+            }
+        }
+        assertFalse(expected.isEmpty(), "The query should be near one of the clusters");
+        assertEquals(new HashSet<>(expected), new HashSet<>(matches), "The index should find exactly the linear scan matches");
+        assertEquals(500, index.size(), "All photos should be counted");
+    }
+
+    @Test
+    void differenceHash_withReexposedCopy_shouldBeNearDuplicateButNotOfOtherScene() {
+        // Arrange
+        int width = 360;
+        int height = 240;
+        byte[] scene = new byte[width * height];
+        byte[] brighterCopy = new byte[width * height];
+        byte[] otherScene = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int level = (int) (120 + 80 * Math.sin(x / 23.0) * Math.cos(y / 17.0));
+                scene[y * width + x] = (byte) level;
+                brighterCopy[y * width + x] = (byte) Math.min(255, level + 25);
+                otherScene[y * width + x] = (byte) (120 + 80 * Math.cos(x / 41.0 + y / 9.0));
+            }
+        }
+
+        // Act
+        PerceptualHash original = PerceptualHasher.differenceHash(scene, width, height);
+        PerceptualHash copy = PerceptualHasher.differenceHash(brighterCopy, width, height);
+        PerceptualHash other = PerceptualHasher.differenceHash(otherScene, width, height);
+
+        // Assert
+        assertTrue(original.isNearDuplicateOf(copy), "A brighter copy should hash close to the original");
+        assertFalse(original.isNearDuplicateOf(other), "A different scene should not be a near-duplicate");
+        assertEquals(original, PerceptualHash.fromHex(original.toHex()), "The hex form should round-trip");
+    }
+
+    @Test
+    void groupNearDuplicates_onOrder_shouldCollapseCopiesIntoFirstPhoto() {
+        // Arrange
+        OrderBusiness order = new OrderBusiness(OrderId.newId(),
+                new UserReference(UserId.newId(), new Username("creator")), Timestamp.now());
+        PhotoDocument first = newPhoto(0x0F0F_0F0F_0F0F_0F0FL);
+        PhotoDocument unrelated = newPhoto(0xF0F0_F0F0_F0F0_F0F0L);
+        PhotoDocument copy = newPhoto(0x0F0F_0F0F_0F0F_0F0FL ^ 0b111);
+        PhotoDocument unhashed = newPhoto(null);
+        order.addPhoto(first);
+        order.addPhoto(unrelated);
+        order.addPhoto(unhashed);
+        order.addPhoto(copy);
+
+        // Act
+        List<List<PhotoDocument>> groups = order.groupNearDuplicates();
+
+        // Assert
+        assertEquals(List.of(List.of(first, copy), List.of(unrelated), List.of(unhashed)), groups,
+                "The copy should be grouped under the first photo");
+        assertEquals(List.of(first, copy),
+                order.findNearDuplicates(first.getPerceptualHash(), PerceptualHash.NEAR_DUPLICATE_DISTANCE),
+                "Near-duplicates should be listed in upload order");
+    }
+
+    private static PhotoDocument newPhoto(Long hashBits) {
+        return PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                .imagePath(new Photo("/path/to/photo.jpg"))
+                .uploadedBy(UPLOADER)
+                .uploadedAt(Timestamp.now())
+                .perceptualHash(hashBits != null ? new PerceptualHash(hashBits) : null)
+                .build();
+    }
+}
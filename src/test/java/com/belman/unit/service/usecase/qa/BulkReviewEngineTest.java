@@ -0,0 +1,155 @@
+package com.belman.unit.service.usecase.qa;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.audit.AuditFacade;
+import com.belman.domain.audit.event.AuditEvent;
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.events.PhotosReviewedEvent;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.service.usecase.qa.BulkReviewEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the BulkReviewEngine.
+ */
+class BulkReviewEngineTest {
+
+    private PhotoRepository photoRepository;
+    private OrderRepository orderRepository;
+    private AuditFacade auditFacade;
+    private List<Object> publishedEvents;
+    private Map<PhotoId, PhotoDocument> storedPhotos;
+    private BulkReviewEngine engine;
+    private UserBusiness reviewer;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        auditFacade = mock(AuditFacade.class);
+        publishedEvents = new ArrayList<>();
+        storedPhotos = new HashMap<>();
+        when(photoRepository.findByIds(any())).thenAnswer(invocation -> {
+            Collection<PhotoId> ids = invocation.getArgument(0);
+            return ids.stream().map(storedPhotos::get).filter(Objects::nonNull).toList();
+        });
+        engine = new BulkReviewEngine(photoRepository, orderRepository, auditFacade, publishedEvents::add,
+                EmojiLoggerFactory.getInstance());
+
+        reviewer = new UserBusiness.Builder()
+                .id(UserId.newId())
+                .username(new Username("qalead"))
+                .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+                .email(new EmailAddress("qalead@example.com"))
+                .build();
+    }
+
+    @Test
+    void approve_withManyPhotosOfOneOrder_shouldSaveOrderOnce() {
+        // Arrange
+        OrderBusiness order = newOrder(60);
+        List<PhotoId> photoIds = order.getPhotos().stream().map(PhotoDocument::getPhotoId).toList();
+
+        // Act
+        int approved = engine.approve(photoIds, reviewer);
+
+        // Assert
+        assertEquals(60, approved, "All pending photos should be approved");
+        assertTrue(order.getPhotos().stream().allMatch(PhotoDocument::isApproved), "Photos should be approved");
+        verify(orderRepository, times(1)).save(order);
+        assertEquals(1, publishedEvents.size(), "One review event should be published per order");
+        PhotosReviewedEvent event = (PhotosReviewedEvent) publishedEvents.get(0);
+        assertEquals(60, event.getPhotoIds().size(), "The review event should list every approved photo");
+        verify(auditFacade, times(1)).logBatch(argThat(events -> events.size() == 60));
+        verify(photoRepository, times(1)).findByIds(any());
+        verify(photoRepository, never()).findById(any());
+    }
+
+    @Test
+    void reject_withPhotosOfTwoOrders_shouldSaveEachOrderOnceAndAuditInOneBatch() {
+        // Arrange
+        OrderBusiness first = newOrder(3);
+        OrderBusiness second = newOrder(2);
+        List<PhotoId> photoIds = new ArrayList<>();
+        first.getPhotos().forEach(photo -> photoIds.add(photo.getPhotoId()));
+        second.getPhotos().forEach(photo -> photoIds.add(photo.getPhotoId()));
+
+        // Act
+        int rejected = engine.reject(photoIds, reviewer, "Blurry");
+
+        // Assert
+        assertEquals(5, rejected, "All pending photos should be rejected");
+        verify(orderRepository, times(1)).save(first);
+        verify(orderRepository, times(1)).save(second);
+        assertEquals(2, publishedEvents.size(), "One review event should be published per order");
+        verify(auditFacade, times(1)).logBatch(any());
+        assertEquals("Blurry", first.getPhotos().get(0).getReviewComment(), "The reason should be stored");
+    }
+
+    @Test
+    void approve_withAlreadyReviewedPhoto_shouldSkipItAndNotAuditFailedSave() {
+        // Arrange
+        OrderBusiness reviewed = newOrder(2);
+        reviewed.getPhotos().get(0).reject(UserReference.from(reviewer), Timestamp.now(), "Dark");
+        OrderBusiness failing = newOrder(1);
+        when(orderRepository.save(failing)).thenThrow(new RuntimeException("Database unavailable"));
+        List<PhotoId> photoIds = new ArrayList<>();
+        reviewed.getPhotos().forEach(photo -> photoIds.add(photo.getPhotoId()));
+        photoIds.add(failing.getPhotos().get(0).getPhotoId());
+
+        // Act
+        int approved = engine.approve(photoIds, reviewer);
+
+        // Assert
+        assertEquals(1, approved, "Only the pending photo of the saved order should be counted");
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AuditEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(auditFacade).logBatch(captor.capture());
+        assertEquals(1, captor.getValue().size(), "Only photos of saved orders should be audited");
+        assertEquals(1, publishedEvents.size(), "No event should be published for the order that failed to save");
+    }
+
+    private OrderBusiness newOrder(int photoCount) {
+        OrderBusiness order = new OrderBusiness(OrderId.newId(), UserReference.from(reviewer), Timestamp.now());
+        for (int i = 0; i < photoCount; i++) {
+            PhotoDocument photo = PhotoDocument.builder()
+                    .photoId(PhotoId.newId())
+                    .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                    .imagePath(new Photo("/path/to/image" + i + ".jpg"))
+                    .uploadedBy(reviewer)
+                    .uploadedAt(Timestamp.now())
+                    .build();
+            order.addPhoto(photo);
+            storedPhotos.put(photo.getPhotoId(), photo);
+        }
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+        return order;
+    }
+}
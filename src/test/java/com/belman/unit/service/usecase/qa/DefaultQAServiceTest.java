@@ -0,0 +1,103 @@
+package com.belman.unit.service.usecase.qa;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.audit.AuditFacade;
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderRepository;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoRepository;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.order.photo.events.PhotosReviewedEvent;
+import com.belman.domain.order.photo.services.PhotoApprovalService.PhotoEventPublisher;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.service.usecase.qa.BulkReviewEngine;
+import com.belman.service.usecase.qa.DefaultQAService;
+import com.belman.service.usecase.qa.ReviewQueueProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for reviewing single photos through the DefaultQAService.
+ */
+class DefaultQAServiceTest {
+
+    private PhotoRepository photoRepository;
+    private OrderRepository orderRepository;
+    private PhotoEventPublisher eventPublisher;
+    private DefaultQAService qaService;
+    private UserBusiness reviewer;
+    private OrderBusiness order;
+    private PhotoDocument photo;
+
+    @BeforeEach
+    void setUp() {
+        photoRepository = mock(PhotoRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        eventPublisher = mock(PhotoEventPublisher.class);
+        BulkReviewEngine engine = new BulkReviewEngine(photoRepository, orderRepository, mock(AuditFacade.class),
+                eventPublisher, EmojiLoggerFactory.getInstance());
+        qaService = new DefaultQAService(photoRepository, engine,
+                new ReviewQueueProjection(EmojiLoggerFactory.getInstance()), EmojiLoggerFactory.getInstance());
+
+        reviewer = new UserBusiness.Builder()
+                .id(UserId.newId())
+                .username(new Username("qalead"))
+                .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+                .email(new EmailAddress("qalead@example.com"))
+                .build();
+        order = new OrderBusiness(OrderId.newId(), UserReference.from(reviewer), Timestamp.now());
+        photo = PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY)
+                .imagePath(new Photo("/path/to/image.jpg"))
+                .uploadedBy(reviewer)
+                .uploadedAt(Timestamp.now())
+                .build();
+        order.addPhoto(photo);
+        when(photoRepository.findByIds(any())).thenReturn(List.of(photo));
+        when(orderRepository.findById(order.getId())).thenReturn(Optional.of(order));
+    }
+
+    @Test
+    void approvePhoto_pendingPhoto_shouldSaveOrderBeforePublishing() {
+        // Act
+        boolean approved = qaService.approvePhoto(photo.getPhotoId(), reviewer);
+
+        // Assert
+        assertTrue(approved, "The pending photo should be approved");
+        assertTrue(photo.isApproved(), "The photo of the order should be approved");
+        InOrder inOrder = inOrder(orderRepository, eventPublisher);
+        inOrder.verify(orderRepository).save(order);
+        inOrder.verify(eventPublisher).publish(any(PhotosReviewedEvent.class));
+    }
+
+    @Test
+    void rejectPhoto_whenSaveFails_shouldReturnFalseAndPublishNothing() {
+        // Arrange
+        when(orderRepository.save(order)).thenThrow(new RuntimeException("Database unavailable"));
+
+        // Act
+        boolean rejected = qaService.rejectPhoto(photo.getPhotoId(), reviewer, "Blurry");
+
+        // Assert
+        assertFalse(rejected, "A review that was not saved should not be reported as done");
+        verify(eventPublisher, never()).publish(any());
+    }
+}
@@ -0,0 +1,98 @@
+package com.belman.unit.service.usecase.qa;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.photo.PhotoDocument.ApprovalStatus;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.events.PhotosReviewedEvent;
+import com.belman.domain.user.UserId;
+import com.belman.service.usecase.qa.ReviewQueueProjection;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ReviewQueueProjection.
+ */
+class ReviewQueueProjectionTest {
+
+    private static final Instant START = Instant.parse("2025-01-01T08:00:00Z");
+
+    private ReviewQueueProjection projection;
+    private OrderId firstOrder;
+    private OrderId secondOrder;
+
+    @BeforeEach
+    void setUp() {
+        projection = new ReviewQueueProjection(EmojiLoggerFactory.getInstance());
+        firstOrder = OrderId.newId();
+        secondOrder = OrderId.newId();
+    }
+
+    @Test
+    void add_withPhotosOfTwoOrders_shouldCountByStatusAndOrder() {
+        // Arrange
+        addPhoto(firstOrder, 0);
+        addPhoto(firstOrder, 1);
+        addPhoto(secondOrder, 2);
+
+        // Act
+        int pending = projection.count(ApprovalStatus.PENDING);
+        int pendingForFirst = projection.count(ApprovalStatus.PENDING, firstOrder);
+
+        // Assert
+        assertEquals(3, pending, "All uploaded photos should be pending");
+        assertEquals(2, pendingForFirst, "Only the photos of the order should be counted");
+        assertEquals(0, projection.count(ApprovalStatus.APPROVED), "No photo should be approved yet");
+    }
+
+    @Test
+    void page_withCursor_shouldReturnPhotosInUploadOrder() {
+        // Arrange
+        PhotoId newest = addPhoto(firstOrder, 30);
+        PhotoId oldest = addPhoto(firstOrder, 10);
+        PhotoId middle = addPhoto(secondOrder, 20);
+
+        // Act
+        List<ReviewQueueProjection.Entry> firstPage = projection.page(ApprovalStatus.PENDING, null, 2);
+        List<ReviewQueueProjection.Entry> secondPage = projection.page(ApprovalStatus.PENDING,
+                firstPage.get(firstPage.size() - 1).photoId(), 2);
+
+        // Assert
+        assertEquals(List.of(oldest, middle), firstPage.stream().map(ReviewQueueProjection.Entry::photoId).toList(),
+                "The first page should hold the oldest uploads");
+        assertEquals(List.of(newest), secondPage.stream().map(ReviewQueueProjection.Entry::photoId).toList(),
+                "The second page should continue after the cursor");
+        assertEquals(List.of(firstOrder, secondOrder), projection.getOrderIds(ApprovalStatus.PENDING),
+                "Orders should be listed by their oldest pending photo");
+    }
+
+    @Test
+    void move_afterReviewEvent_shouldUpdateCountsAndDropEmptyOrders() {
+        // Arrange
+        PhotoId first = addPhoto(firstOrder, 0);
+        PhotoId second = addPhoto(firstOrder, 1);
+        addPhoto(secondOrder, 2);
+        PhotosReviewedEvent event = new PhotosReviewedEvent(firstOrder, List.of(first, second),
+                ApprovalStatus.APPROVED, UserId.newId(), null);
+
+        // Act
+        event.getPhotoIds().forEach(photoId -> projection.move(photoId, event.getOutcome()));
+
+        // Assert
+        assertEquals(1, projection.count(ApprovalStatus.PENDING), "Reviewed photos should leave the pending queue");
+        assertEquals(2, projection.count(ApprovalStatus.APPROVED, firstOrder), "Reviewed photos should be approved");
+        assertEquals(List.of(secondOrder), projection.getOrderIds(ApprovalStatus.PENDING),
+                "An order without pending photos should not be listed");
+    }
+
+    private PhotoId addPhoto(OrderId orderId, int minutesAfterStart) {
+        PhotoId photoId = PhotoId.newId();
+        projection.add(photoId, orderId, START.plusSeconds(minutesAfterStart * 60L));
+        return photoId;
+    }
+}
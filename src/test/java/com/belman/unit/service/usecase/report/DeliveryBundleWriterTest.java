@@ -0,0 +1,242 @@
+package com.belman.unit.service.usecase.report;
+
+import com.belman.common.logging.EmojiLoggerFactory;
+import com.belman.domain.common.EmailAddress;
+import com.belman.domain.common.Timestamp;
+import com.belman.domain.order.OrderBusiness;
+import com.belman.domain.order.OrderId;
+import com.belman.domain.order.OrderNumber;
+import com.belman.domain.order.OrderStatus;
+import com.belman.domain.order.photo.Photo;
+import com.belman.domain.order.photo.PhotoDocument;
+import com.belman.domain.order.photo.PhotoId;
+import com.belman.domain.order.photo.PhotoTemplate;
+import com.belman.domain.security.HashedPassword;
+import com.belman.domain.user.UserBusiness;
+import com.belman.domain.user.UserId;
+import com.belman.domain.user.UserReference;
+import com.belman.domain.user.Username;
+import com.belman.repository.persistence.memory.InMemoryOrderRepository;
+import com.belman.service.usecase.report.DeliveryBundleWriter;
+import com.belman.service.usecase.report.DeliveryBundleWriter.BundleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the delivery bundles written by the DeliveryBundleWriter.
+ */
+class DeliveryBundleWriterTest {
+
+    private static final UserBusiness QA = new UserBusiness.Builder()
+            .id(UserId.newId())
+            .username(new Username("qa_user"))
+            .password(new HashedPassword("$2a$10$abcdefghijklmnopqrstuvwxyz012345678901234567890123"))
+            .email(new EmailAddress("qa_user@example.com"))
+            .build();
+
+    @TempDir
+    Path tempDir;
+
+    private Path report;
+    private OrderBusiness order;
+    private DeliveryBundleWriter writer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        report = tempDir.resolve("report.pdf");
+        Files.write(report, randomBytes(10_000));
+        order = new OrderBusiness(OrderId.newId(), new OrderNumber("07/23-000033-00000003"),
+                UserReference.from(QA), Timestamp.now());
+        addPhoto("front.jpg", PhotoTemplate.FRONT_VIEW_OF_ASSEMBLY, true);
+        addPhoto("rejected.jpg", PhotoTemplate.CUSTOM, false);
+        addPhoto("custom.jpg", PhotoTemplate.CUSTOM, true);
+        order.setStatus(OrderStatus.APPROVED);
+        writer = new DeliveryBundleWriter(EmojiLoggerFactory.getInstance(), tempDir);
+    }
+
+    @Test
+    void write_approvedOrder_shouldStoreReportAndApprovedPhotos() throws IOException {
+        // Arrange
+        Path bundle = tempDir.resolve("bundle.zip");
+
+        // Act
+        BundleResult result = writer.write(order, report, bundle);
+
+        // Assert
+        assertEquals(2, result.photoCount(), "Only approved photos should be bundled");
+        assertEquals(Files.size(bundle), result.bundleBytes());
+        try (ZipFile zip = new ZipFile(bundle.toFile())) {
+            List<String> names = new ArrayList<>();
+            zip.stream().forEach(entry -> names.add(entry.getName()));
+            assertEquals(List.of("report.pdf", "photos/001-front_view_of_assembly.jpg", "photos/002-custom.jpg",
+                    "manifest.sha256"), names);
+            assertEquals(ZipEntry.STORED, zip.getEntry("photos/001-front_view_of_assembly.jpg").getMethod());
+            assertEquals(ZipEntry.DEFLATED, zip.getEntry("manifest.sha256").getMethod());
+            assertArrayEquals(Files.readAllBytes(tempDir.resolve("front.jpg")),
+                    zip.getInputStream(zip.getEntry("photos/001-front_view_of_assembly.jpg")).readAllBytes());
+            assertEquals("Order 07/23-000033-00000003", zip.getComment());
+        }
+        assertFalse(Files.exists(tempDir.resolve("bundle.zip.part")));
+    }
+
+    @Test
+    void write_toChannel_shouldWriteManifestWithChecksums() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        BundleResult result = writer.write(order, report, Channels.newChannel(out));
+
+        // Assert
+        assertEquals(out.size(), result.bundleBytes());
+        String manifest = null;
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+                byte[] content = zip.readAllBytes();
+                if (entry.getName().equals("manifest.sha256")) {
+                    manifest = new String(content, StandardCharsets.UTF_8);
+                } else {
+                    assertEquals(entry.getCrc(), crc(content));
+                }
+            }
+        }
+        assertEquals(4, names.size(), "A streaming reader should read every entry");
+        assertNotNull(manifest);
+        assertTrue(manifest.contains(sha256(report) + "  report.pdf\n"));
+        assertTrue(manifest.contains(sha256(tempDir.resolve("custom.jpg")) + "  photos/002-custom.jpg\n"));
+    }
+
+    @Test
+    void write_pendingOrder_shouldThrow() {
+        // Arrange
+        order.setStatus(OrderStatus.IN_PROGRESS);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> writer.write(order, report, tempDir.resolve("bundle.zip")));
+        assertFalse(Files.exists(tempDir.resolve("bundle.zip")));
+    }
+
+    @Test
+    void write_missingPhoto_shouldThrowAndLeaveNoBundle() throws IOException {
+        // Arrange
+        Files.delete(tempDir.resolve("custom.jpg"));
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> writer.write(order, report, tempDir.resolve("bundle.zip")));
+        assertFalse(Files.exists(tempDir.resolve("bundle.zip")));
+        assertFalse(Files.exists(tempDir.resolve("bundle.zip.part")));
+    }
+
+    @Test
+    void write_toChannelWithMissingPhoto_shouldNotWriteCentralDirectory() throws IOException {
+        // Arrange
+        Files.delete(tempDir.resolve("custom.jpg"));
+        Path partial = tempDir.resolve("partial.zip");
+
+        // Act
+        try (FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            assertThrows(IOException.class, () -> writer.write(order, report, out));
+        }
+
+        // Assert
+        assertTrue(Files.size(partial) > 0, "The entries before the missing photo should have been streamed");
+        assertThrows(ZipException.class, () -> new ZipFile(partial.toFile()).close(),
+                "A bundle abandoned after an error should not be readable as a complete archive");
+    }
+
+    @Test
+    void deliver_approvedOrder_shouldWriteBundleAndSaveDeliveredOrder() throws IOException {
+        // Arrange
+        InMemoryOrderRepository orders = new InMemoryOrderRepository();
+        DeliveryBundleWriter deliveringWriter = new DeliveryBundleWriter(EmojiLoggerFactory.getInstance(), tempDir,
+                orders);
+        Path bundle = tempDir.resolve("delivery.zip");
+
+        // Act
+        deliveringWriter.deliver(order, report, bundle);
+
+        // Assert
+        assertTrue(Files.exists(bundle));
+        assertEquals(OrderStatus.DELIVERED, order.getStatus());
+        assertEquals(OrderStatus.DELIVERED, orders.findById(order.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void deliver_missingPhoto_shouldKeepOrderApproved() throws IOException {
+        // Arrange
+        Files.delete(tempDir.resolve("custom.jpg"));
+        InMemoryOrderRepository orders = new InMemoryOrderRepository();
+        DeliveryBundleWriter deliveringWriter = new DeliveryBundleWriter(EmojiLoggerFactory.getInstance(), tempDir,
+                orders);
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> deliveringWriter.deliver(order, report, tempDir.resolve("delivery.zip")));
+        assertEquals(OrderStatus.APPROVED, order.getStatus());
+        assertTrue(orders.findById(order.getId()).isEmpty(), "An undelivered order should not be saved");
+    }
+
+    /**
+     * Reads the total entry count from the ZIP64 end of central directory record, which precedes the
+     * ZIP64 locator and the classic end record.
+     */
+    private void addPhoto(String fileName, PhotoTemplate template, boolean approved) throws IOException {
+        Files.write(tempDir.resolve(fileName), randomBytes(50_000));
+        PhotoDocument photo = PhotoDocument.builder()
+                .photoId(PhotoId.newId())
+                .template(template)
+                .imagePath(new Photo(fileName))
+                .uploadedBy(QA)
+                .uploadedAt(Timestamp.now())
+                .build();
+        order.addPhoto(photo);
+        if (approved) {
+            order.approvePhoto(photo.getPhotoId(), UserReference.from(QA), Timestamp.now());
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.belman.unit.service.usecase.security;
+
+import com.belman.domain.user.UserBusiness;
+import com.belman.service.usecase.security.BCryptPasswordHasher;
+import com.belman.service.usecase.security.LoginPipeline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the LoginPipeline and the cost migration support in BCryptPasswordHasher.
+ */
+public class LoginPipelineTest {
+
+    private LoginPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new LoginPipeline(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void submit_withSameCredentialsInFlight_shouldVerifyOnce() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger verifications = new AtomicInteger();
+
+        // Act
+        CompletableFuture<Optional<UserBusiness>> first = pipeline.submit("worker", "secret", (u, p) -> {
+            verifications.incrementAndGet();
+            await(release);
+            return Optional.empty();
+        });
+        CompletableFuture<Optional<UserBusiness>> second = pipeline.submit("worker", "secret", (u, p) -> {
+            verifications.incrementAndGet();
+            return Optional.empty();
+        });
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, verifications.get(), "Duplicate submissions should share one verification");
+    }
+
+    @Test
+    void submit_withDifferentPasswordInFlight_shouldVerifyAfterPreviousAttempt() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger order = new AtomicInteger();
+        AtomicInteger firstPosition = new AtomicInteger();
+        AtomicInteger secondPosition = new AtomicInteger();
+
+        // Act
+        CompletableFuture<Optional<UserBusiness>> first = pipeline.submit("worker", "wrong", (u, p) -> {
+            await(release);
+            firstPosition.set(order.incrementAndGet());
+            return Optional.empty();
+        });
+        CompletableFuture<Optional<UserBusiness>> second = pipeline.submit("worker", "secret", (u, p) -> {
+            secondPosition.set(order.incrementAndGet());
+            return Optional.empty();
+        });
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(1, firstPosition.get(), "The first attempt should be verified first");
+        assertEquals(2, secondPosition.get(), "The second attempt should wait for the first");
+    }
+
+    @Test
+    void submit_afterCompletion_shouldClearInFlightEntry() throws Exception {
+        // Act
+        pipeline.submit("worker", "secret", (u, p) -> Optional.empty()).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(0, pipeline.getInFlightCount(), "Completed attempts should not stay in flight");
+    }
+
+    @Test
+    void needsRehash_belowFloor_shouldReturnTrue() {
+        // Arrange
+        String hash = new BCryptPasswordHasher(4).hash("password");
+
+        // Act & Assert
+        assertTrue(new BCryptPasswordHasher(5).needsRehash(hash), "A cheaper hash should be upgraded");
+        assertFalse(new BCryptPasswordHasher(4).needsRehash(new BCryptPasswordHasher(5).hash("password")),
+                "A more expensive hash should never be downgraded");
+        assertFalse(new BCryptPasswordHasher(4).needsRehash(hash), "A hash at the current cost should be kept");
+        assertFalse(new BCryptPasswordHasher(4).needsRehash("plaintext"), "Non-BCrypt values should be ignored");
+    }
+
+    @Test
+    void needsRehash_calibratedCostsDiffer_shouldKeepHashesAtSharedFloor() {
+        // Arrange - a fast device calibrated above the floor and a slow one at it
+        BCryptPasswordHasher fastDevice = new BCryptPasswordHasher();
+        fastDevice.setLogRounds(BCryptPasswordHasher.SHARED_LOG_ROUNDS_FLOOR + 2);
+        BCryptPasswordHasher slowDevice = new BCryptPasswordHasher();
+        String floorHash = "$2a$" + BCryptPasswordHasher.SHARED_LOG_ROUNDS_FLOOR + "$" + "a".repeat(53);
+        String strongHash = "$2a$" + (BCryptPasswordHasher.SHARED_LOG_ROUNDS_FLOOR + 2) + "$" + "a".repeat(53);
+
+        // Act & Assert
+        assertFalse(fastDevice.needsRehash(floorHash), "Hashes at the shared floor should not be upgraded");
+        assertFalse(slowDevice.needsRehash(strongHash), "Stronger hashes should not be downgraded");
+        assertTrue(fastDevice.needsRehash("$2a$09$" + "a".repeat(53)), "Hashes below the floor should be upgraded");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}